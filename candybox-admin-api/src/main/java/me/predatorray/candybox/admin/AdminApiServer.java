@@ -121,6 +121,7 @@ public final class AdminApiServer implements AutoCloseable {
         register("/api/cluster", this::handleCluster);
         register("/api/boxes", this::handleBoxes);
         register("/api/lsm", this::handleLsm);
+        register("/api/balancer", this::handleBalancer);
         register("/api/metrics", this::handleMetricsText);
         register("/api/metrics/timeseries", this::handleMetricsTimeseries);
         // Single context for all box-scoped routes — the JDK HttpServer's prefix matcher is too
@@ -437,10 +438,53 @@ public final class AdminApiServer implements AutoCloseable {
         jsonRespond(exchange, 200, JsonWriter.write(Map.of("boxes", rows)));
     }
 
+    private void handleBalancer(HttpExchange exchange) throws IOException {
+        if (!"GET".equals(exchange.getRequestMethod())) {
+            textRespond(exchange, 405, "method not allowed\n");
+            return;
+        }
+        DashboardData.BalancerSnapshot snapshot = data.balancer();
+        List<Map<String, Object>> partitions = new ArrayList<>();
+        for (DashboardData.PartitionLoadRow r : snapshot.partitions()) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("partition", r.partition());
+            row.put("owner", r.owner());
+            row.put("opsPerSecond", nullIfNegative(r.opsPerSecond()));
+            row.put("bytesInPerSecond", nullIfNegative(r.bytesInPerSecond()));
+            row.put("bytesOutPerSecond", nullIfNegative(r.bytesOutPerSecond()));
+            row.put("memtableBytes", nullIfNegative(r.memtableBytes()));
+            row.put("l0Tables", nullIfNegative(r.l0Tables()));
+            partitions.add(row);
+        }
+        Map<String, Object> lastRound = null;
+        if (snapshot.lastRoundAtMillis() >= 0) {
+            List<Map<String, Object>> moves = new ArrayList<>();
+            for (DashboardData.BalancerMove m : snapshot.lastMoves()) {
+                Map<String, Object> move = new LinkedHashMap<>();
+                move.put("partition", m.partition());
+                move.put("from", m.from());
+                move.put("to", m.to());
+                move.put("weight", m.weight());
+                moves.add(move);
+            }
+            lastRound = new LinkedHashMap<>();
+            lastRound.put("atMillis", snapshot.lastRoundAtMillis());
+            lastRound.put("moves", moves);
+        }
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("partitions", partitions);
+        body.put("lastRound", lastRound);
+        jsonRespond(exchange, 200, JsonWriter.write(body));
+    }
+
     private static Object nullIfNegative(long v) {
         return v < 0 ? null : v;
     }
 
+    private static Object nullIfNegative(double v) {
+        return v < 0 ? null : v;
+    }
+
     private void handleMetricsText(HttpExchange exchange) throws IOException {
         // /api/metrics/timeseries also starts with /api/metrics — the prefix matcher would route
         // it here; bail to let the more specific handler take it.
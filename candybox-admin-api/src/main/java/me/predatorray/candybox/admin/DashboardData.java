@@ -61,6 +61,16 @@ public interface DashboardData {
      */
     List<LsmRow> lsm();
 
+    /**
+     * What the partition balancer weighs and what it last did: each partition's owner next to the
+     * load the owner last published, and the moves of the coordinator's last round that took
+     * partitions away from a live owner. Defaults to an empty view for backends that cannot see
+     * the balancer's coordination state.
+     */
+    default BalancerSnapshot balancer() {
+        return new BalancerSnapshot(List.of(), -1, List.of());
+    }
+
     // ---- mutating ops (post-v1) ----------------------------------------------------------------
     //
     // These mirror the four operations the v1 plan deferred to a future commit. They are exposed
@@ -107,6 +117,31 @@ public interface DashboardData {
         }
     }
 
+    /**
+     * One partition's balancer input. The load fields are {@code -1} while no owner has published
+     * load for the partition yet.
+     */
+    record PartitionLoadRow(String partition, String owner, double opsPerSecond,
+                            double bytesInPerSecond, double bytesOutPerSecond, long memtableBytes,
+                            long l0Tables) {
+
+        public static PartitionLoadRow unpublished(String partition, String owner) {
+            return new PartitionLoadRow(partition, owner, -1, -1, -1, -1, -1);
+        }
+    }
+
+    /** One partition the balancer moved off a live owner; {@code weight} is its load share. */
+    record BalancerMove(String partition, String from, String to, double weight) {
+    }
+
+    /**
+     * The balancer view. {@code lastRoundAtMillis} is {@code -1} (and {@code lastMoves} empty) until
+     * a coordinator has moved a partition.
+     */
+    record BalancerSnapshot(List<PartitionLoadRow> partitions, long lastRoundAtMillis,
+                            List<BalancerMove> lastMoves) {
+    }
+
     /**
      * Cluster snapshot. {@code stub} flags the bootstrap state where the admin API is running but
      * not yet wired to a coordination backend; the dashboard surfaces it as a hint.
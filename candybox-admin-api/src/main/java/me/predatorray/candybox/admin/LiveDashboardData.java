@@ -23,10 +23,12 @@ import java.util.Map;
 import java.util.Optional;
 import me.predatorray.candybox.client.BoxClient;
 import me.predatorray.candybox.client.CandyboxClient;
+import me.predatorray.candybox.coordination.BalancerRound;
 import me.predatorray.candybox.coordination.BoxDescriptor;
 import me.predatorray.candybox.coordination.CandyboxKeys;
 import me.predatorray.candybox.coordination.CoordinationService;
 import me.predatorray.candybox.coordination.LeaseInfo;
+import me.predatorray.candybox.coordination.PartitionLoad;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -64,7 +66,7 @@ public final class LiveDashboardData implements DashboardData {
         List<String> ownerless = new ArrayList<>(); // boxes with at least one ownerless partition
         for (String box : boxes) {
             boolean allOwned = true;
-            for (int p = 0; p < partitionCountOf(box); p++) {
+            for (int p : partitionsOf(box)) {
                 Optional<LeaseInfo> holder =
                         coordination.leaseHolder(CandyboxKeys.ownerResource(box, p));
                 if (holder.isPresent()) {
@@ -117,7 +119,7 @@ public final class LiveDashboardData implements DashboardData {
         List<String> boxes = safeListBoxes();
         List<LsmRow> rows = new ArrayList<>(boxes.size());
         for (String box : boxes) {
-            for (int p = 0; p < partitionCountOf(box); p++) {
+            for (int p : partitionsOf(box)) {
                 Optional<LeaseInfo> holder =
                         coordination.leaseHolder(CandyboxKeys.ownerResource(box, p));
                 String owner = holder.map(h -> String.valueOf(h.ownerNodeId())).orElse(null);
@@ -136,6 +138,32 @@ public final class LiveDashboardData implements DashboardData {
         return rows;
     }
 
+    @Override
+    public BalancerSnapshot balancer() {
+        List<PartitionLoadRow> rows = new ArrayList<>();
+        for (String box : safeListBoxes()) {
+            for (int p : partitionsOf(box)) {
+                String partition = box + "/" + p;
+                String owner = coordination.leaseHolder(CandyboxKeys.ownerResource(box, p))
+                        .map(h -> String.valueOf(h.ownerNodeId()))
+                        .orElse(null);
+                rows.add(coordination.get(CandyboxKeys.partitionLoadKey(box, p))
+                        .map(v -> PartitionLoad.decode(v.value()))
+                        .map(l -> new PartitionLoadRow(partition, owner, l.opsPerSecond(),
+                                l.bytesInPerSecond(), l.bytesOutPerSecond(), l.memtableBytes(),
+                                l.l0Tables()))
+                        .orElseGet(() -> PartitionLoadRow.unpublished(partition, owner)));
+            }
+        }
+        Optional<BalancerRound> round = coordination.get(CandyboxKeys.BALANCER_ROUND_KEY)
+                .map(v -> BalancerRound.decode(v.value()));
+        List<BalancerMove> moves = new ArrayList<>();
+        round.ifPresent(r -> r.moves().forEach(m -> moves.add(new BalancerMove(
+                m.partition().box() + "/" + m.partition().partition(),
+                String.valueOf(m.fromNode()), String.valueOf(m.toNode()), m.weight()))));
+        return new BalancerSnapshot(rows, round.map(BalancerRound::atMillis).orElse(-1L), moves);
+    }
+
     @Override
     public void createBox(String name) {
         client.createBox(name);
@@ -183,11 +211,11 @@ public final class LiveDashboardData implements DashboardData {
         }
     }
 
-    /** The Box's partition count from its descriptor, or 0 if the descriptor is missing. */
-    private int partitionCountOf(String box) {
+    /** The Box's partition ids from its descriptor, or none if the descriptor is missing. */
+    private List<Integer> partitionsOf(String box) {
         return coordination.get(CandyboxKeys.boxMetaKey(box))
-                .map(v -> BoxDescriptor.decode(v.value()).partitionCount())
-                .orElse(0);
+                .map(v -> BoxDescriptor.decode(v.value()).partitions())
+                .orElse(List.of());
     }
 
     /**
@@ -196,7 +224,7 @@ public final class LiveDashboardData implements DashboardData {
      */
     private String ownerOf(String box) {
         java.util.TreeSet<Integer> owners = new java.util.TreeSet<>();
-        for (int p = 0; p < partitionCountOf(box); p++) {
+        for (int p : partitionsOf(box)) {
             coordination.leaseHolder(CandyboxKeys.ownerResource(box, p))
                     .ifPresent(h -> owners.add(h.ownerNodeId()));
         }
@@ -125,6 +125,32 @@ class AdminApiServerTest {
         }
     }
 
+    @Test
+    void balancerEndpointShowsLoadInputsAndTheLastRoundsMoves() throws Exception {
+        FakeDashboardData data = new FakeDashboardData()
+                .withLoadRow(new DashboardData.PartitionLoadRow("photos/0", "1", 120.5, 4096, 0,
+                        65536, 3))
+                .withLoadRow(DashboardData.PartitionLoadRow.unpublished("photos/1", "2"))
+                .withBalancerRound(5_000, new DashboardData.BalancerMove("photos/2", "1", "2", 0.75));
+        try (AdminApiServer server = start(data, new AtomicBoolean(true), false)) {
+            HttpResponse<String> r = get(HttpClient.newHttpClient(),
+                    "http://127.0.0.1:" + server.port() + "/api/balancer");
+            assertThat(r.statusCode()).isEqualTo(200);
+            assertThat(r.body()).contains("\"partition\":\"photos/0\"").contains("\"opsPerSecond\":120.5")
+                    .contains("\"memtableBytes\":65536").contains("\"l0Tables\":3");
+            // A partition nobody has published load for yet serializes its figures as null.
+            assertThat(r.body()).contains("\"partition\":\"photos/1\",\"owner\":\"2\","
+                    + "\"opsPerSecond\":null");
+            assertThat(r.body()).contains("\"atMillis\":5000").contains("\"from\":\"1\"")
+                    .contains("\"to\":\"2\"").contains("\"weight\":0.75");
+        }
+        try (AdminApiServer server = start(new EmptyDashboardData(), new AtomicBoolean(true), false)) {
+            HttpResponse<String> r = get(HttpClient.newHttpClient(),
+                    "http://127.0.0.1:" + server.port() + "/api/balancer");
+            assertThat(r.body()).contains("\"lastRound\":null");
+        }
+    }
+
     @Test
     void uiAndRootBehaviour() throws Exception {
         try (AdminApiServer ui = start(new EmptyDashboardData(), new AtomicBoolean(true), true)) {
@@ -350,8 +376,8 @@ class AdminApiServerTest {
             HttpClient http = HttpClient.newHttpClient();
             String base = "http://127.0.0.1:" + server.port();
             // /api/cluster, /api/lsm, /api/metrics, /api/metrics/timeseries are GET-only.
-            for (String path : new String[]{"/api/cluster", "/api/lsm", "/api/metrics",
-                    "/api/metrics/timeseries"}) {
+            for (String path : new String[]{"/api/cluster", "/api/lsm", "/api/balancer",
+                    "/api/metrics", "/api/metrics/timeseries"}) {
                 HttpResponse<String> r = http.send(
                         HttpRequest.newBuilder(URI.create(base + path))
                                 .method("POST", HttpRequest.BodyPublishers.noBody())
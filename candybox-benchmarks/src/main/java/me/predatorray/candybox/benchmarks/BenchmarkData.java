@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.predatorray.candybox.benchmarks;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import me.predatorray.candybox.common.CandyKey;
+import me.predatorray.candybox.common.CandyLocator;
+import me.predatorray.candybox.common.Hlc;
+import me.predatorray.candybox.common.SegmentRef;
+
+/** Deterministic keys, values and locators shared by the benchmark suites. */
+public final class BenchmarkData {
+
+    private BenchmarkData() {
+    }
+
+    /** The {@code i}-th key: an S3-style path, zero-padded so the numeric and byte orders agree. */
+    public static String key(int i) {
+        return String.format("bench/objects/%010d", i);
+    }
+
+    public static CandyKey candyKey(int i) {
+        return CandyKey.of(key(i));
+    }
+
+    /** {@code size} pseudo-random bytes from a fixed seed. */
+    public static byte[] value(int size) {
+        byte[] data = new byte[size];
+        new Random(size).nextBytes(data);
+        return data;
+    }
+
+    /** A single-segment put locator, the shape most index entries take. */
+    public static CandyLocator locator(Hlc hlc, long syrupId, long contentLength) {
+        return CandyLocator.singlePart(hlc, contentLength, 1 << 20, "application/octet-stream",
+                Map.of(), 0, hlc.physicalMillis(), List.of(new SegmentRef(syrupId, 0, 0)));
+    }
+}
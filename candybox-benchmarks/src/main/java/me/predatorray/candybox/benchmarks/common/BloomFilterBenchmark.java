@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.predatorray.candybox.benchmarks.common;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import me.predatorray.candybox.benchmarks.BenchmarkData;
+import me.predatorray.candybox.common.bloom.BloomFilter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** {@link BloomFilter#mightContain} for present and absent keys over a filter of {@code keyCount}. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BloomFilterBenchmark {
+
+    @Param({"1000", "100000"})
+    public int keyCount;
+
+    @Param({"10"})
+    public int bitsPerKey;
+
+    private byte[][] present;
+    private byte[][] absent;
+    private BloomFilter filter;
+
+    @Setup
+    public void setUp() {
+        present = new byte[keyCount][];
+        absent = new byte[keyCount][];
+        List<byte[]> keys = new ArrayList<>(keyCount);
+        for (int i = 0; i < keyCount; i++) {
+            present[i] = BenchmarkData.key(2 * i).getBytes(StandardCharsets.UTF_8);
+            absent[i] = BenchmarkData.key(2 * i + 1).getBytes(StandardCharsets.UTF_8);
+            keys.add(present[i]);
+        }
+        filter = BloomFilter.build(keys, bitsPerKey);
+    }
+
+    @Benchmark
+    public boolean mightContainPresent() {
+        return filter.mightContain(present[ThreadLocalRandom.current().nextInt(keyCount)]);
+    }
+
+    @Benchmark
+    public boolean mightContainAbsent() {
+        return filter.mightContain(absent[ThreadLocalRandom.current().nextInt(keyCount)]);
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.predatorray.candybox.benchmarks.common;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import me.predatorray.candybox.common.CandyLocator;
+import me.predatorray.candybox.common.Hlc;
+import me.predatorray.candybox.common.SegmentRef;
+import me.predatorray.candybox.common.serial.CandyLocatorSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Round-tripping a PUT locator through {@link CandyLocatorSerializer}. {@code segments} grows the
+ * segment list the way a large, many-chunk Candy does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CandyLocatorSerializerBenchmark {
+
+    @Param({"1", "64"})
+    public int segments;
+
+    private CandyLocator locator;
+    private byte[] serialized;
+
+    @Setup
+    public void setUp() {
+        List<SegmentRef> refs = new ArrayList<>(segments);
+        for (int i = 0; i < segments; i++) {
+            refs.add(new SegmentRef(1_000 + i, 0, 15));
+        }
+        Hlc hlc = new Hlc(1_700_000_000_000L, 3, 1);
+        locator = CandyLocator.singlePart(hlc, 16L * (1 << 20) * segments, 1 << 20, "image/png",
+                Map.of("owner-team", "storage", "source", "benchmark"), 0x1234abcd,
+                hlc.physicalMillis(), refs);
+        serialized = CandyLocatorSerializer.serialize(locator);
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return CandyLocatorSerializer.serialize(locator);
+    }
+
+    @Benchmark
+    public CandyLocator deserialize() {
+        return CandyLocatorSerializer.deserialize(serialized);
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.predatorray.candybox.benchmarks.lsm;
+
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import me.predatorray.candybox.benchmarks.BenchmarkData;
+import me.predatorray.candybox.bookkeeper.fake.InMemoryLedgerStore;
+import me.predatorray.candybox.common.BoxName;
+import me.predatorray.candybox.common.SystemClock;
+import me.predatorray.candybox.common.config.CandyboxConfig;
+import me.predatorray.candybox.lsm.engine.BoxEngine;
+import me.predatorray.candybox.lsm.engine.CandyMetadata;
+import me.predatorray.candybox.lsm.engine.ListResult;
+import me.predatorray.candybox.lsm.engine.ScanQuery;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The single-partition engine path — put, point get and a one-page scan — over an
+ * {@link InMemoryLedgerStore}. The Box is preloaded with {@code keyCount} Candies of
+ * {@code valueSize} bytes and flushed, so gets and scans read through SSTables; puts overwrite
+ * random preloaded keys so the key space stays fixed while the memtable fills and flushes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BoxEngineBenchmark {
+
+    @Param({"1000", "10000"})
+    public int keyCount;
+
+    @Param({"128", "4096"})
+    public int valueSize;
+
+    @Param({"100"})
+    public int scanPageSize;
+
+    private InMemoryLedgerStore store;
+    private BoxEngine engine;
+    private byte[] value;
+
+    @Setup
+    public void setUp() {
+        store = new InMemoryLedgerStore();
+        engine = BoxEngine.createNew(BoxName.of("bench-box"), CandyboxConfig.defaults(), store, 1,
+                SystemClock.INSTANCE, 1L);
+        value = BenchmarkData.value(valueSize);
+        for (int i = 0; i < keyCount; i++) {
+            engine.putCandy(BenchmarkData.candyKey(i), value, null, Map.of(), null);
+        }
+        engine.flush();
+    }
+
+    @TearDown
+    public void tearDown() {
+        engine.close();
+        store.close();
+    }
+
+    @Benchmark
+    public CandyMetadata putCandy() {
+        int i = ThreadLocalRandom.current().nextInt(keyCount);
+        return engine.putCandy(BenchmarkData.candyKey(i), value, null, Map.of(), null);
+    }
+
+    @Benchmark
+    public byte[] getCandy() {
+        int i = ThreadLocalRandom.current().nextInt(keyCount);
+        return engine.getCandy(BenchmarkData.candyKey(i));
+    }
+
+    @Benchmark
+    public ListResult scanCandies() {
+        int i = ThreadLocalRandom.current().nextInt(keyCount);
+        return engine.scanCandies(ScanQuery.forward(null, BenchmarkData.candyKey(i), scanPageSize));
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.predatorray.candybox.benchmarks.lsm;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import me.predatorray.candybox.common.CandyKey;
+import me.predatorray.candybox.common.Mutation;
+import me.predatorray.candybox.lsm.engine.ScanDirection;
+import me.predatorray.candybox.lsm.iterator.MergingIterator;
+import me.predatorray.candybox.lsm.iterator.PeekingIterator;
+
+/**
+ * The pre-heap {@link MergingIterator}: two linear passes over every source per emitted key. Kept
+ * only as the baseline for {@link MergingIteratorBenchmark}; same LWW and tombstone semantics.
+ */
+final class LinearMergingIterator implements Iterator<Mutation> {
+
+    private final List<PeekingIterator<Mutation>> sources;
+    private final boolean dropTombstones;
+    private final ScanDirection direction;
+    private Mutation nextOut;
+    private boolean computed;
+
+    LinearMergingIterator(List<Iterator<Mutation>> sources, boolean dropTombstones,
+                          ScanDirection direction) {
+        this.sources = new ArrayList<>(sources.size());
+        for (Iterator<Mutation> s : sources) {
+            this.sources.add(new PeekingIterator<>(s));
+        }
+        this.dropTombstones = dropTombstones;
+        this.direction = direction;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (!computed) {
+            nextOut = computeNext();
+            computed = true;
+        }
+        return nextOut != null;
+    }
+
+    @Override
+    public Mutation next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Mutation result = nextOut;
+        nextOut = null;
+        computed = false;
+        return result;
+    }
+
+    private Mutation computeNext() {
+        while (true) {
+            CandyKey frontier = null;
+            for (PeekingIterator<Mutation> it : sources) {
+                if (it.hasNext()) {
+                    CandyKey k = it.peek().key();
+                    if (frontier == null || isAhead(k, frontier)) {
+                        frontier = k;
+                    }
+                }
+            }
+            if (frontier == null) {
+                return null;
+            }
+
+            Mutation winner = null;
+            for (PeekingIterator<Mutation> it : sources) {
+                if (it.hasNext() && it.peek().key().equals(frontier)) {
+                    Mutation cand = it.next();
+                    if (winner == null || cand.hlc().isAfter(winner.hlc())) {
+                        winner = cand;
+                    }
+                }
+            }
+
+            if (dropTombstones && winner.isTombstone()) {
+                continue;
+            }
+            return winner;
+        }
+    }
+
+    private boolean isAhead(CandyKey k, CandyKey current) {
+        int cmp = k.compareTo(current);
+        return direction == ScanDirection.FORWARD ? cmp < 0 : cmp > 0;
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.predatorray.candybox.benchmarks.lsm;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import me.predatorray.candybox.common.CandyKey;
+import me.predatorray.candybox.common.CandyLocator;
+import me.predatorray.candybox.common.Hlc;
+import me.predatorray.candybox.common.Mutation;
+import me.predatorray.candybox.common.SegmentRef;
+import me.predatorray.candybox.lsm.engine.ScanDirection;
+import me.predatorray.candybox.lsm.iterator.MergingIterator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Drains a full k-way merge with the heap-based {@link MergingIterator} and with the old linear
+ * scan ({@link LinearMergingIterator}) over the same sources. Each source holds
+ * {@code keysPerSource} sorted keys drawn from a shared key space half that wide in total, so most
+ * keys appear in about two sources (the L0-overlap shape); one in ten entries is a tombstone.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MergingIteratorBenchmark {
+
+    @Param({"4", "16", "64"})
+    public int sources;
+
+    @Param({"1000"})
+    public int keysPerSource;
+
+    @Param({"FORWARD", "REVERSE"})
+    public ScanDirection direction;
+
+    private List<List<Mutation>> data;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        int keySpace = Math.max(keysPerSource, sources * keysPerSource / 2);
+        data = new ArrayList<>(sources);
+        for (int s = 0; s < sources; s++) {
+            TreeSet<Integer> picked = new TreeSet<>();
+            while (picked.size() < keysPerSource) {
+                picked.add(random.nextInt(keySpace));
+            }
+            List<Mutation> source = new ArrayList<>(keysPerSource);
+            for (int k : picked) {
+                Hlc hlc = new Hlc(1 + random.nextInt(1_000_000), 0, s);
+                CandyKey key = CandyKey.of(String.format("bench/objects/%08d", k));
+                CandyLocator locator = random.nextInt(10) == 0
+                        ? CandyLocator.tombstone(hlc, hlc.physicalMillis())
+                        : CandyLocator.singlePart(hlc, 10, 1 << 20, "application/octet-stream",
+                                Map.of(), 0, hlc.physicalMillis(), List.of(new SegmentRef(1, 0, 0)));
+                source.add(new Mutation(key, locator));
+            }
+            if (direction == ScanDirection.REVERSE) {
+                Collections.reverse(source);
+            }
+            data.add(source);
+        }
+    }
+
+    @Benchmark
+    public void heap(Blackhole bh) {
+        drain(new MergingIterator(iterators(), true, direction), bh);
+    }
+
+    @Benchmark
+    public void linear(Blackhole bh) {
+        drain(new LinearMergingIterator(iterators(), true, direction), bh);
+    }
+
+    private List<Iterator<Mutation>> iterators() {
+        List<Iterator<Mutation>> its = new ArrayList<>(data.size());
+        for (List<Mutation> source : data) {
+            its.add(source.iterator());
+        }
+        return its;
+    }
+
+    private static void drain(Iterator<Mutation> it, Blackhole bh) {
+        while (it.hasNext()) {
+            bh.consume(it.next());
+        }
+    }
+}
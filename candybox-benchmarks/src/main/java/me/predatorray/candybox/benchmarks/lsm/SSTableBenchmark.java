@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.predatorray.candybox.benchmarks.lsm;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import me.predatorray.candybox.benchmarks.BenchmarkData;
+import me.predatorray.candybox.bookkeeper.LedgerConfig;
+import me.predatorray.candybox.bookkeeper.fake.InMemoryLedgerStore;
+import me.predatorray.candybox.common.CandyLocator;
+import me.predatorray.candybox.common.Hlc;
+import me.predatorray.candybox.common.Mutation;
+import me.predatorray.candybox.common.config.CandyboxConfig;
+import me.predatorray.candybox.common.config.LedgerRole;
+import me.predatorray.candybox.lsm.sstable.BlockCache;
+import me.predatorray.candybox.lsm.sstable.SSTableMeta;
+import me.predatorray.candybox.lsm.sstable.SSTableReader;
+import me.predatorray.candybox.lsm.sstable.SSTableWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Writing a whole SSTable of {@code keyCount} entries, and point lookups against one — both a hit
+ * and a miss that the bloom filter should reject — with and without the block cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SSTableBenchmark {
+
+    private static final LedgerConfig CONFIG = LedgerConfig.forRole(LedgerRole.SSTABLE);
+
+    @Param({"1000", "100000"})
+    public int keyCount;
+
+    @Param({"true", "false"})
+    public boolean blockCache;
+
+    private InMemoryLedgerStore store;
+    private SSTableWriter writer;
+    private List<Mutation> mutations;
+    private SSTableReader reader;
+    private final List<Long> written = new ArrayList<>();
+
+    @Setup
+    public void setUp() {
+        store = new InMemoryLedgerStore();
+        writer = new SSTableWriter(store, CandyboxConfig.defaults().bloomBitsPerKey());
+        mutations = new ArrayList<>(keyCount);
+        for (int i = 0; i < keyCount; i++) {
+            // Even keys only, so odd ones are guaranteed misses.
+            Hlc hlc = new Hlc(1_000 + i, 0, 1);
+            mutations.add(new Mutation(BenchmarkData.candyKey(2 * i), BenchmarkData.locator(hlc, i, 10)));
+        }
+        SSTableMeta meta = writer.write(CONFIG, 0, mutations.iterator());
+        reader = blockCache
+                ? new SSTableReader(store, meta.ledgerId(),
+                        new BlockCache(CandyboxConfig.defaults().blockCacheCapacityBytes()))
+                : new SSTableReader(store, meta.ledgerId());
+    }
+
+    @TearDown(Level.Iteration)
+    public void dropWritten() {
+        for (long ledgerId : written) {
+            store.deleteLedger(ledgerId);
+        }
+        written.clear();
+    }
+
+    @TearDown
+    public void tearDown() {
+        reader.close();
+        store.close();
+    }
+
+    @Benchmark
+    public SSTableMeta write() {
+        SSTableMeta meta = writer.write(CONFIG, 0, mutations.iterator());
+        written.add(meta.ledgerId());
+        return meta;
+    }
+
+    @Benchmark
+    public Optional<CandyLocator> getHit() {
+        int i = ThreadLocalRandom.current().nextInt(keyCount);
+        return reader.get(BenchmarkData.candyKey(2 * i));
+    }
+
+    @Benchmark
+    public Optional<CandyLocator> getMiss() {
+        int i = ThreadLocalRandom.current().nextInt(keyCount);
+        return reader.get(BenchmarkData.candyKey(2 * i + 1));
+    }
+}
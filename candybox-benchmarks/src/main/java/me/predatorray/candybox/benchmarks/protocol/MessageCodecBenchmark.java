@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.predatorray.candybox.benchmarks.protocol;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import me.predatorray.candybox.benchmarks.BenchmarkData;
+import me.predatorray.candybox.protocol.FrameCodec;
+import me.predatorray.candybox.protocol.Message;
+import me.predatorray.candybox.protocol.MessageCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link MessageCodec} plus {@link FrameCodec} for the messages that dominate traffic: a PUT request
+ * and a GET response carrying {@code valueSize} bytes, and a listing page of {@code listSize} rows.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageCodecBenchmark {
+
+    @Param({"128", "65536"})
+    public int valueSize;
+
+    @Param({"1000"})
+    public int listSize;
+
+    private final MessageCodec codec = new MessageCodec();
+    private final FrameCodec frameCodec = new FrameCodec();
+    private Message put;
+    private Message getResponse;
+    private Message listResponse;
+    private byte[] putBytes;
+    private byte[] getResponseBytes;
+    private byte[] listResponseBytes;
+
+    @Setup
+    public void setUp() {
+        byte[] value = BenchmarkData.value(valueSize);
+        put = new Message.PutCandyRequest("bench-box", BenchmarkData.key(42), "application/octet-stream",
+                Map.of("source", "benchmark"), null, value);
+        getResponse = new Message.CandyDataResponse(valueSize, "application/octet-stream",
+                Map.of("source", "benchmark"), 0x1234abcd, value);
+        List<Message.ListedCandy> rows = new ArrayList<>(listSize);
+        for (int i = 0; i < listSize; i++) {
+            rows.add(new Message.ListedCandy(BenchmarkData.key(i), valueSize, 1_700_000_000_000L + i));
+        }
+        listResponse = new Message.ListCandiesResponse(rows, BenchmarkData.key(listSize - 1));
+        putBytes = frameCodec.encode(codec.encode(put));
+        getResponseBytes = frameCodec.encode(codec.encode(getResponse));
+        listResponseBytes = frameCodec.encode(codec.encode(listResponse));
+    }
+
+    @Benchmark
+    public byte[] encodePut() {
+        return frameCodec.encode(codec.encode(put));
+    }
+
+    @Benchmark
+    public Message decodePut() {
+        return codec.decode(frameCodec.decode(putBytes));
+    }
+
+    @Benchmark
+    public byte[] encodeGetResponse() {
+        return frameCodec.encode(codec.encode(getResponse));
+    }
+
+    @Benchmark
+    public Message decodeGetResponse() {
+        return codec.decode(frameCodec.decode(getResponseBytes));
+    }
+
+    @Benchmark
+    public byte[] encodeListResponse() {
+        return frameCodec.encode(codec.encode(listResponse));
+    }
+
+    @Benchmark
+    public Message decodeListResponse() {
+        return codec.decode(frameCodec.decode(listResponseBytes));
+    }
+}
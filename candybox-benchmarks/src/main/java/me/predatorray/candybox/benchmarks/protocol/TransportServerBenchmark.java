@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.predatorray.candybox.benchmarks.protocol;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import me.predatorray.candybox.benchmarks.BenchmarkData;
+import me.predatorray.candybox.protocol.Frame;
+import me.predatorray.candybox.protocol.FrameCodec;
+import me.predatorray.candybox.protocol.Opcode;
+import me.predatorray.candybox.protocol.transport.Connection;
+import me.predatorray.candybox.protocol.transport.NioTransportServer;
+import me.predatorray.candybox.protocol.transport.RequestHandler;
+import me.predatorray.candybox.protocol.transport.TcpTransport;
+import me.predatorray.candybox.protocol.transport.TcpTransportServer;
+import me.predatorray.candybox.protocol.transport.TransportServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The client listener under many open connections: {@code connections} one-request-at-a-time
+ * clients stay connected to a {@link TcpTransportServer} ({@code blocking}, a thread each) or a
+ * {@link NioTransportServer} ({@code nio}, one event loop), and 32 threads send small echo requests
+ * over randomly chosen ones. Most connections sit idle at any moment, as a node's clients do.
+ *
+ * <p>Each connection is a socket on both ends of loopback, so the 10k case needs a file-descriptor
+ * limit above 20k ({@code ulimit -n}); the blocking server also needs room for 10k threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(32)
+@Fork(value = 1, jvmArgsAppend = "-Xss256k")
+public class TransportServerBenchmark {
+
+    private static final RequestHandler ECHO =
+            request -> new Frame(Opcode.RESPONSE_OK, request.payload());
+
+    @Param({"blocking", "nio"})
+    public String mode;
+
+    @Param({"1000", "10000"})
+    public int connections;
+
+    @Param({"256"})
+    public int valueSize;
+
+    private final FrameCodec codec = new FrameCodec();
+    private TransportServer server;
+    private TcpTransport transport;
+    private List<Connection> open;
+    private byte[] value;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        server = switch (mode) {
+            case "blocking" -> new TcpTransportServer(0, ECHO, codec);
+            case "nio" -> new NioTransportServer(0, ECHO, codec);
+            default -> throw new IllegalArgumentException("Unknown mode " + mode);
+        };
+        transport = new TcpTransport(codec, null, false, false);
+        open = new ArrayList<>(connections);
+        for (int i = 0; i < connections; i++) {
+            open.add(transport.connect("127.0.0.1", server.port()));
+        }
+        value = BenchmarkData.value(valueSize);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        open.forEach(Connection::close);
+        transport.close();
+        server.close();
+    }
+
+    @Benchmark
+    public Frame echo() {
+        Connection connection = open.get(ThreadLocalRandom.current().nextInt(open.size()));
+        return connection.call(new Frame(Opcode.GET_CANDY, value));
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.predatorray.candybox.benchmarks.server;
+
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import me.predatorray.candybox.benchmarks.BenchmarkData;
+import me.predatorray.candybox.bookkeeper.fake.InMemoryLedgerStore;
+import me.predatorray.candybox.common.BoxName;
+import me.predatorray.candybox.common.Partitioning;
+import me.predatorray.candybox.common.SystemClock;
+import me.predatorray.candybox.common.config.CandyboxConfig;
+import me.predatorray.candybox.coordination.fake.InMemoryCoordinationService;
+import me.predatorray.candybox.protocol.Frame;
+import me.predatorray.candybox.protocol.Message;
+import me.predatorray.candybox.protocol.MessageCodec;
+import me.predatorray.candybox.protocol.transport.RequestHandler;
+import me.predatorray.candybox.server.CandyboxNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * A whole storage node — request decoding, partition routing, the owning {@link
+ * me.predatorray.candybox.lsm.engine.BoxEngine} and response encoding — driven through its
+ * {@link RequestHandler} over {@link InMemoryLedgerStore} and {@link InMemoryCoordinationService}.
+ * Four threads hit one Box split into {@code partitions}, so the partition count shows how much
+ * the per-partition locks and WALs spread concurrent writers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class CandyboxNodeBenchmark {
+
+    private static final String BOX = "bench-box";
+
+    @Param({"1", "4", "16"})
+    public int partitions;
+
+    @Param({"10000"})
+    public int keyCount;
+
+    @Param({"1024"})
+    public int valueSize;
+
+    private final MessageCodec codec = new MessageCodec();
+    private InMemoryLedgerStore store;
+    private CandyboxNode node;
+    private RequestHandler handler;
+    private byte[] value;
+
+    @Setup
+    public void setUp() {
+        store = new InMemoryLedgerStore();
+        node = new CandyboxNode(1, CandyboxConfig.defaults(), store, new InMemoryCoordinationService(),
+                SystemClock.INSTANCE);
+        node.createBox(BoxName.of(BOX), partitions);
+        handler = node.requestHandler();
+        value = BenchmarkData.value(valueSize);
+        for (int i = 0; i < keyCount; i++) {
+            handle(put(i));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        node.close();
+        store.close();
+    }
+
+    @Benchmark
+    public Message putCandy() {
+        return handle(put(ThreadLocalRandom.current().nextInt(keyCount)));
+    }
+
+    @Benchmark
+    public Message getCandy() {
+        return handle(new Message.GetCandyRequest(BOX,
+                BenchmarkData.key(ThreadLocalRandom.current().nextInt(keyCount))));
+    }
+
+    /** One listing page of one partition — a single leg of the client's scatter-gather. */
+    @Benchmark
+    public Message listCandies() {
+        String startAfter = BenchmarkData.key(ThreadLocalRandom.current().nextInt(keyCount));
+        int partition = Partitioning.partitionOf(startAfter, partitions);
+        return handle(new Message.ListCandiesRequest(BOX, partition, null, startAfter, 100));
+    }
+
+    private Message put(int i) {
+        return new Message.PutCandyRequest(BOX, BenchmarkData.key(i), null, Map.of(), null, value);
+    }
+
+    private Message handle(Message request) {
+        Frame response = handler.handle(codec.encode(request));
+        return codec.decode(response);
+    }
+}
@@ -0,0 +1,323 @@
+/*
+ * Copyright (c) 2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.predatorray.candybox.bookkeeper;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import me.predatorray.candybox.common.Clock;
+import me.predatorray.candybox.common.concurrent.CacheStats;
+import me.predatorray.candybox.common.concurrent.PeriodicGate;
+
+/**
+ * A {@link LedgerStore} that keeps the read-only handles {@link #openLedger(long)} returns open
+ * between callers, so reading a hot Syrup or SSTable ledger stops paying a metadata-store round trip
+ * per open. One instance wraps the node's store and is shared by every Box engine, compactor and GC
+ * pass on the node.
+ *
+ * <p>{@code openLedger} hands out a lease on the cached handle; closing the lease returns it rather
+ * than closing the handle. A handle is closed only when it is evicted — to stay within
+ * {@code capacity} (least recently used first) or after {@code idleMillis} unused — and never while
+ * a lease on it is outstanding. {@link #deleteLedger(long)} drops the ledger's handle before
+ * deleting it; leases still out keep working until they are closed, as a plain handle would.
+ *
+ * <p>Only handles of ledgers that were already sealed when opened are cached. A sealed ledger never
+ * changes, so a cached handle's {@link ReadableLedger#lastAddConfirmed()} and
+ * {@link ReadableLedger#isSealed()} stay true for as long as it is shared; a handle opened on a
+ * ledger still being written would keep reporting its tail as of the open. Such opens, and writable
+ * and recover-opened handles, go straight to the underlying store.
+ *
+ * <p>{@link #evictIdle()} runs lazily from {@code openLedger}; an owner that may go quiet (a node)
+ * also calls it on a timer, so idle handles close even when nothing is opened.
+ */
+public final class CachingLedgerStore implements LedgerStore {
+
+    private final LedgerStore delegate;
+    private final int capacity;
+    private final long idleMillis;
+    private final Clock clock;
+    private final PeriodicGate idleSweep;
+    // Access-ordered, so iteration starts at the least recently used handle.
+    private final LinkedHashMap<Long, Entry> handles = new LinkedHashMap<>(16, 0.75f, true);
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * @param capacity   most handles kept open; {@code 0} disables caching (every open goes to
+     *                   {@code delegate})
+     * @param idleMillis how long an unused handle stays open
+     */
+    public CachingLedgerStore(LedgerStore delegate, int capacity, long idleMillis, Clock clock) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("capacity must be non-negative: " + capacity);
+        }
+        if (idleMillis <= 0) {
+            throw new IllegalArgumentException("idleMillis must be positive: " + idleMillis);
+        }
+        this.delegate = delegate;
+        this.capacity = capacity;
+        this.idleMillis = idleMillis;
+        this.clock = clock;
+        this.idleSweep = new PeriodicGate(clock, idleMillis);
+    }
+
+    @Override
+    public WritableLedger createLedger(LedgerConfig config) {
+        return delegate.createLedger(config);
+    }
+
+    @Override
+    public ReadableLedger openLedger(long ledgerId) {
+        idleSweep.runIfDue(this::evictIdle);
+        if (capacity == 0) {
+            synchronized (this) {
+                misses++;
+            }
+            return delegate.openLedger(ledgerId);
+        }
+        synchronized (this) {
+            Entry cached = handles.get(ledgerId);
+            if (cached != null) {
+                hits++;
+                return cached.lease();
+            }
+            misses++;
+        }
+        // Open outside the lock: it is a metadata round trip. A concurrent miss may race us here;
+        // the loser closes its handle and shares the winner's.
+        ReadableLedger opened = delegate.openLedger(ledgerId);
+        if (!opened.isSealed()) {
+            return opened; // its tail still moves: the caller gets a handle of its own
+        }
+        List<ReadableLedger> toClose = new ArrayList<>();
+        ReadableLedger lease;
+        synchronized (this) {
+            Entry cached = handles.get(ledgerId);
+            if (cached != null) {
+                toClose.add(opened);
+            } else {
+                cached = new Entry(opened);
+                handles.put(ledgerId, cached);
+            }
+            lease = cached.lease();
+            evictOverCapacityLocked(toClose);
+        }
+        closeAll(toClose);
+        return lease;
+    }
+
+    @Override
+    public ReadableLedger recoverOpen(long ledgerId) {
+        return delegate.recoverOpen(ledgerId);
+    }
+
+    @Override
+    public void deleteLedger(long ledgerId) {
+        invalidate(ledgerId);
+        delegate.deleteLedger(ledgerId);
+    }
+
+    @Override
+    public List<Long> listLedgers() {
+        return delegate.listLedgers();
+    }
+
+    /** Drops the cached handle of {@code ledgerId}, closing it once no lease holds it. */
+    public void invalidate(long ledgerId) {
+        ReadableLedger toClose;
+        synchronized (this) {
+            Entry entry = handles.remove(ledgerId);
+            if (entry == null) {
+                return;
+            }
+            entry.retired = true;
+            toClose = entry.leases == 0 ? entry.handle : null;
+        }
+        if (toClose != null) {
+            toClose.close();
+        }
+    }
+
+    /** Closes every cached handle nobody is using; leased ones close as their leases return. */
+    public void invalidateAll() {
+        List<ReadableLedger> toClose = new ArrayList<>();
+        synchronized (this) {
+            for (Entry entry : handles.values()) {
+                entry.retired = true;
+                if (entry.leases == 0) {
+                    toClose.add(entry.handle);
+                }
+            }
+            handles.clear();
+        }
+        closeAll(toClose);
+    }
+
+    /**
+     * Closes handles unused for at least {@code idleMillis}. Run lazily from {@code openLedger} and
+     * by the owner's periodic maintenance.
+     */
+    public void evictIdle() {
+        long cutoff = clock.currentTimeMillis() - idleMillis;
+        List<ReadableLedger> toClose = new ArrayList<>();
+        synchronized (this) {
+            Iterator<Entry> it = handles.values().iterator();
+            while (it.hasNext()) {
+                Entry entry = it.next();
+                if (entry.leases == 0 && entry.lastUsedMillis <= cutoff) {
+                    it.remove();
+                    entry.retired = true;
+                    toClose.add(entry.handle);
+                    evictions++;
+                }
+            }
+        }
+        closeAll(toClose);
+    }
+
+    /**
+     * Hits and misses count {@code openLedger} calls (a miss is an open that reached the underlying
+     * store); {@code weightedSize} and {@code capacity} are in handles.
+     */
+    public synchronized CacheStats stats() {
+        return new CacheStats(hits, misses, evictions, handles.size(), capacity);
+    }
+
+    /** Closes the cached handles, then the underlying store. */
+    @Override
+    public void close() {
+        invalidateAll();
+        delegate.close();
+    }
+
+    private void evictOverCapacityLocked(List<ReadableLedger> toClose) {
+        Iterator<Entry> it = handles.values().iterator();
+        int excess = handles.size() - capacity;
+        while (excess > 0 && it.hasNext()) {
+            Entry entry = it.next();
+            if (entry.leases == 0) {
+                it.remove();
+                entry.retired = true;
+                toClose.add(entry.handle);
+                evictions++;
+                excess--;
+            }
+        }
+    }
+
+    private void release(Entry entry) {
+        List<ReadableLedger> toClose = new ArrayList<>();
+        synchronized (this) {
+            entry.leases--;
+            entry.lastUsedMillis = clock.currentTimeMillis();
+            if (entry.retired) {
+                if (entry.leases == 0) {
+                    toClose.add(entry.handle);
+                }
+            } else {
+                // Leased handles cannot be evicted, so the cache may have run over while this was out.
+                evictOverCapacityLocked(toClose);
+            }
+        }
+        closeAll(toClose);
+    }
+
+    private static void closeAll(List<ReadableLedger> handles) {
+        for (ReadableLedger handle : handles) {
+            handle.close();
+        }
+    }
+
+    /** A cached handle and the leases out on it; guarded by the store's monitor. */
+    private final class Entry {
+        private final ReadableLedger handle;
+        private int leases;
+        private long lastUsedMillis;
+        private boolean retired;
+
+        private Entry(ReadableLedger handle) {
+            this.handle = handle;
+        }
+
+        private ReadableLedger lease() {
+            leases++;
+            lastUsedMillis = clock.currentTimeMillis();
+            return new Lease(this);
+        }
+    }
+
+    /** What {@code openLedger} returns: the cached handle, except that {@link #close()} releases it. */
+    private final class Lease implements ReadableLedger {
+        private final Entry entry;
+        private boolean closed;
+
+        private Lease(Entry entry) {
+            this.entry = entry;
+        }
+
+        @Override
+        public LedgerEntry read(long entryId) {
+            return entry.handle.read(entryId);
+        }
+
+        @Override
+        public List<LedgerEntry> readRange(long firstEntryId, long lastEntryId) {
+            return entry.handle.readRange(firstEntryId, lastEntryId);
+        }
+
+        @Override
+        public CompletableFuture<LedgerEntry> readAsync(long entryId) {
+            return entry.handle.readAsync(entryId);
+        }
+
+        @Override
+        public long readLastAddConfirmed() {
+            return entry.handle.readLastAddConfirmed();
+        }
+
+        @Override
+        public long ledgerId() {
+            return entry.handle.ledgerId();
+        }
+
+        @Override
+        public long lastAddConfirmed() {
+            return entry.handle.lastAddConfirmed();
+        }
+
+        @Override
+        public boolean isSealed() {
+            return entry.handle.isSealed();
+        }
+
+        @Override
+        public Map<String, byte[]> customMetadata() {
+            return entry.handle.customMetadata();
+        }
+
+        @Override
+        public synchronized void close() {
+            if (!closed) {
+                closed = true;
+                release(entry);
+            }
+        }
+    }
+}
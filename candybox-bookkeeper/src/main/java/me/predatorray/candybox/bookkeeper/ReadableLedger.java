@@ -16,6 +16,7 @@
 package me.predatorray.candybox.bookkeeper;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import me.predatorray.candybox.common.exception.StorageException;
 
 /** A read view over a ledger. Reads are bounded by {@link #lastAddConfirmed()}. */
@@ -39,4 +40,26 @@ public interface ReadableLedger extends Ledger {
      * @throws StorageException if the range is invalid or the read fails
      */
     List<LedgerEntry> readRange(long firstEntryId, long lastEntryId);
+
+    /**
+     * Reads a single entry without waiting for it, so a reader can keep several entries in flight to
+     * the bookies instead of paying one round trip per entry. Futures may complete in any order; the
+     * caller bounds how many are outstanding and must not close the handle until they have completed.
+     *
+     * @param entryId entry id in {@code [0, lastAddConfirmed()]}
+     * @return a future of the entry, completed exceptionally with {@link StorageException} under the
+     *         same conditions as {@link #read(long)}
+     */
+    CompletableFuture<LedgerEntry> readAsync(long entryId);
+
+    /**
+     * Asks the storage for the ledger's current last-add-confirmed, advancing
+     * {@link #lastAddConfirmed()} to it. A passive {@link LedgerStore#openLedger(long) open} of a
+     * ledger that is still being written sees its tail as of the open; a follower tailing it calls this
+     * before each poll. The answer may trail the writer by the entries still awaiting their quorum.
+     *
+     * @return the refreshed last-add-confirmed, {@code -1} if nothing is confirmed yet
+     * @throws StorageException if the storage cannot be reached
+     */
+    long readLastAddConfirmed();
 }
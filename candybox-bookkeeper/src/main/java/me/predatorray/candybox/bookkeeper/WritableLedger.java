@@ -15,6 +15,7 @@
  */
 package me.predatorray.candybox.bookkeeper;
 
+import java.util.concurrent.CompletableFuture;
 import me.predatorray.candybox.common.exception.FencedException;
 import me.predatorray.candybox.common.exception.StorageException;
 
@@ -35,4 +36,20 @@ public interface WritableLedger extends ReadableLedger {
      * @throws StorageException if ack-quorum could not be met or the append otherwise failed
      */
     long append(byte[] data);
+
+    /**
+     * Appends an entry without waiting for its acknowledgement, so a writer can keep several entries
+     * in flight to the bookies instead of paying one quorum round trip per entry. Entry ids are
+     * assigned in call order and futures complete in that order; if an append fails, every later
+     * append issued on this handle fails too.
+     *
+     * <p>The handle does not bound how many appends are outstanding — the caller owns its in-flight
+     * window (see {@code CandyboxConfig#syrupAppendWindow}) and must join the futures before relying
+     * on the entries being durable.
+     *
+     * @param data the entry payload; must not be mutated until the future completes
+     * @return a future of the assigned entry id, completed exceptionally with {@link FencedException}
+     *         or {@link StorageException} under the same conditions as {@link #append(byte[])}
+     */
+    CompletableFuture<Long> appendAsync(byte[] data);
 }
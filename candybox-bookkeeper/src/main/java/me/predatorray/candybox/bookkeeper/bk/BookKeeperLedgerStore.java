@@ -20,6 +20,8 @@ import java.util.ArrayList;
 import java.util.Enumeration;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import org.apache.bookkeeper.client.BKException;
 import org.apache.bookkeeper.client.BookKeeper;
 import org.apache.bookkeeper.client.BookKeeperAdmin;
@@ -48,9 +50,17 @@ import org.slf4j.LoggerFactory;
  *   <li>{@link #recoverOpen(long)} → {@code openLedger} (recovers and fences).</li>
  *   <li>{@link WritableLedger#append(byte[])} on a fenced ledger surfaces BookKeeper's
  *       {@code LedgerFencedException} as a Candybox {@link FencedException}.</li>
+ *   <li>{@link WritableLedger#appendAsync(byte[])} → {@code LedgerHandle.appendAsync}; BookKeeper
+ *       pipelines the adds and completes them in entry-id order.</li>
+ *   <li>{@link ReadableLedger#readAsync(long)} → {@code asyncReadUnconfirmedEntries}, completed on
+ *       the BookKeeper callback thread.</li>
+ *   <li>{@link ReadableLedger#readLastAddConfirmed()} → {@code readLastAddConfirmed}, the LAC read a
+ *       follower tails an open ledger by, and {@code readExplicitLastConfirmed} as well when the
+ *       client publishes explicit LACs ({@code explicitLacInterval}): a ledger's newest entry
+ *       otherwise only becomes visible to a follower with the writer's next add.</li>
  * </ul>
  *
- * <p>All operations are synchronous; async batching is left to a later phase.
+ * <p>All operations other than {@code appendAsync} and {@code readAsync} are synchronous.
  */
 public final class BookKeeperLedgerStore implements LedgerStore {
 
@@ -89,11 +99,30 @@ public final class BookKeeperLedgerStore implements LedgerStore {
      */
     public static BookKeeperLedgerStore create(String metadataServiceUri, byte[] password,
                                                java.util.Map<String, String> clientProperties) {
+        return create(metadataServiceUri, password, clientProperties, 0);
+    }
+
+    /**
+     * {@link #create(String, byte[], java.util.Map)} that also has writers publish the LAC of a
+     * ledger gone quiet at least every {@code explicitLacIntervalMillis} (when positive), so
+     * followers tailing it see its newest entry within that interval. A shorter passthrough
+     * {@code explicitLacInterval} wins.
+     */
+    public static BookKeeperLedgerStore create(String metadataServiceUri, byte[] password,
+                                               java.util.Map<String, String> clientProperties,
+                                               long explicitLacIntervalMillis) {
         ClientConfiguration conf = new ClientConfiguration();
         conf.setMetadataServiceUri(metadataServiceUri);
         for (java.util.Map.Entry<String, String> e : clientProperties.entrySet()) {
             conf.setProperty(e.getKey(), e.getValue());
         }
+        if (explicitLacIntervalMillis > 0) {
+            int configured = conf.getExplicitLacInterval();
+            int interval = (int) Math.min(explicitLacIntervalMillis, Integer.MAX_VALUE);
+            if (configured <= 0 || configured > interval) {
+                conf.setExplicitLacInterval(interval);
+            }
+        }
         if (!clientProperties.isEmpty()) {
             LOG.info("Applied {} passthrough BookKeeper client propert{}: {}",
                     clientProperties.size(), clientProperties.size() == 1 ? "y" : "ies",
@@ -146,7 +175,7 @@ public final class BookKeeperLedgerStore implements LedgerStore {
     public ReadableLedger openLedger(long ledgerId) {
         try {
             LedgerHandle lh = bookKeeper.openLedgerNoRecovery(ledgerId, DIGEST, password);
-            return new BkReadableHandle(lh);
+            return new BkReadableHandle(lh, clientConfiguration.getExplicitLacInterval() > 0);
         } catch (BKException | InterruptedException e) {
             throw mapException("open ledger", ledgerId, e);
         }
@@ -157,7 +186,7 @@ public final class BookKeeperLedgerStore implements LedgerStore {
         try {
             // openLedger performs recovery: it fences the ledger and seals it at the recovered tail.
             LedgerHandle lh = bookKeeper.openLedger(ledgerId, DIGEST, password);
-            return new BkReadableHandle(lh);
+            return new BkReadableHandle(lh, false);
         } catch (BKException | InterruptedException e) {
             throw mapException("recover-open ledger", ledgerId, e);
         }
@@ -267,8 +296,18 @@ public final class BookKeeperLedgerStore implements LedgerStore {
     }
 
     private static class BkReadableHandle extends BkBaseHandle implements ReadableLedger {
-        BkReadableHandle(LedgerHandle lh) {
+        private final boolean explicitLac;
+        // The newest explicit LAC read; the handle's own LAC only advances with piggybacked ones.
+        private volatile long explicitLastConfirmed = -1;
+
+        BkReadableHandle(LedgerHandle lh, boolean explicitLac) {
             super(lh);
+            this.explicitLac = explicitLac;
+        }
+
+        @Override
+        public long lastAddConfirmed() {
+            return Math.max(lh.getLastAddConfirmed(), explicitLastConfirmed);
         }
 
         @Override
@@ -299,11 +338,46 @@ public final class BookKeeperLedgerStore implements LedgerStore {
                 throw mapException("read ledger", lh.getId(), ex);
             }
         }
+
+        @Override
+        public long readLastAddConfirmed() {
+            try {
+                // Updates the handle's own LAC too, so later reads up to it are in range.
+                long lac = lh.readLastAddConfirmed();
+                if (explicitLac && !lh.isClosed()) {
+                    explicitLastConfirmed = Math.max(explicitLastConfirmed,
+                            lh.readExplicitLastConfirmed());
+                }
+                return lastAddConfirmed();
+            } catch (BKException | InterruptedException e) {
+                throw mapException("read last-add-confirmed of ledger", lh.getId(), e);
+            }
+        }
+
+        @Override
+        public CompletableFuture<LedgerEntry> readAsync(long entryId) {
+            CompletableFuture<LedgerEntry> result = new CompletableFuture<>();
+            if (entryId < 0) {
+                result.completeExceptionally(new StorageException("Invalid entry id " + entryId));
+                return result;
+            }
+            // Unconfirmed, as in readRange: the entry may sit in a still-open Syrup.
+            lh.asyncReadUnconfirmedEntries(entryId, entryId, (rc, handle, entries, ctx) -> {
+                if (rc != BKException.Code.OK) {
+                    result.completeExceptionally(
+                            mapException("read ledger", lh.getId(), BKException.create(rc)));
+                    return;
+                }
+                org.apache.bookkeeper.client.LedgerEntry be = entries.nextElement();
+                result.complete(new LedgerEntry(be.getEntryId(), be.getEntry()));
+            }, null);
+            return result;
+        }
     }
 
     private static final class BkWritableHandle extends BkReadableHandle implements WritableLedger {
         BkWritableHandle(LedgerHandle lh) {
-            super(lh);
+            super(lh, false);
         }
 
         @Override
@@ -314,5 +388,22 @@ public final class BookKeeperLedgerStore implements LedgerStore {
                 throw mapException("append to ledger", lh.getId(), e);
             }
         }
+
+        @Override
+        public CompletableFuture<Long> appendAsync(byte[] data) {
+            CompletableFuture<Long> result = new CompletableFuture<>();
+            lh.appendAsync(data).whenComplete((entryId, error) -> {
+                if (error == null) {
+                    result.complete(entryId);
+                    return;
+                }
+                Throwable cause = error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause() : error;
+                result.completeExceptionally(cause instanceof Exception e
+                        ? mapException("append to ledger", lh.getId(), e)
+                        : cause);
+            });
+            return result;
+        }
     }
 }
@@ -18,6 +18,7 @@ package me.predatorray.candybox.bookkeeper.fake;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicLong;
@@ -28,6 +29,7 @@ import me.predatorray.candybox.bookkeeper.LedgerNotFoundException;
 import me.predatorray.candybox.bookkeeper.LedgerStore;
 import me.predatorray.candybox.bookkeeper.ReadableLedger;
 import me.predatorray.candybox.bookkeeper.WritableLedger;
+import me.predatorray.candybox.common.Clock;
 import me.predatorray.candybox.common.exception.FencedException;
 import me.predatorray.candybox.common.exception.StorageException;
 
@@ -43,6 +45,11 @@ import me.predatorray.candybox.common.exception.StorageException;
  *       {@link FencedException} — exactly the zombie-owner defense.</li>
  *   <li><b>Ack-quorum.</b> {@link #setAvailableBookies(int)} injects bookie loss; create requires the
  *       ensemble and append requires the ack-quorum to be satisfiable, else {@link StorageException}.</li>
+ *   <li><b>Piggybacked LAC</b> (opt-in, {@link #InMemoryLedgerStore(Clock, long)}). A passive
+ *       handle learns an open ledger's last-add-confirmed only from the writer's next add, so it
+ *       sees all but the newest entry — unless the writer has been quiet for the explicit-LAC
+ *       interval, after which it publishes its LAC, as BookKeeper's {@code explicitLacInterval}
+ *       does.</li>
  * </ul>
  *
  * <p>Thread-safe. Entry payloads are defensively copied in and out so callers cannot mutate state.
@@ -51,9 +58,29 @@ public final class InMemoryLedgerStore implements LedgerStore {
 
     private final ConcurrentMap<Long, FakeLedger> ledgers = new ConcurrentHashMap<>();
     private final AtomicLong idGenerator = new AtomicLong(0);
+    private final Clock clock;
+    private final long explicitLacIntervalMillis;
     private volatile int availableBookies = Integer.MAX_VALUE;
     private volatile boolean storeClosed = false;
 
+    /** A fake whose passive handles always see the live tail. */
+    public InMemoryLedgerStore() {
+        this(null, 0);
+    }
+
+    /**
+     * A fake whose passive handles see an open ledger's newest entry only once the writer adds
+     * another, or once {@code explicitLacIntervalMillis} (if positive) has passed on {@code clock}
+     * since that entry was added.
+     */
+    public InMemoryLedgerStore(Clock clock, long explicitLacIntervalMillis) {
+        if (explicitLacIntervalMillis < 0) {
+            throw new IllegalArgumentException("explicitLacIntervalMillis must be >= 0");
+        }
+        this.clock = clock;
+        this.explicitLacIntervalMillis = explicitLacIntervalMillis;
+    }
+
     /** Sets how many bookies are currently reachable, to inject quorum-loss failures. */
     public void setAvailableBookies(int count) {
         if (count < 0) {
@@ -92,7 +119,8 @@ public final class InMemoryLedgerStore implements LedgerStore {
     @Override
     public ReadableLedger openLedger(long ledgerId) {
         ensureOpen();
-        return new ReadableHandle(require(ledgerId));
+        FakeLedger ledger = require(ledgerId);
+        return clock == null ? new ReadableHandle(ledger) : new PassiveHandle(ledger);
     }
 
     @Override
@@ -135,6 +163,7 @@ public final class InMemoryLedgerStore implements LedgerStore {
         private final List<byte[]> entries = new ArrayList<>();
         private boolean sealed = false;
         private int epoch = 0;
+        private long lastAppendMillis;
 
         FakeLedger(long id, LedgerConfig config) {
             this.id = id;
@@ -145,6 +174,16 @@ public final class InMemoryLedgerStore implements LedgerStore {
             return entries.size() - 1L;
         }
 
+        /** The LAC a passive reader can learn: the live one, or the one the last add carried. */
+        synchronized long visibleLac(Clock clock, long explicitLacIntervalMillis) {
+            if (sealed || entries.isEmpty()) {
+                return lac();
+            }
+            boolean published = explicitLacIntervalMillis > 0
+                    && clock.currentTimeMillis() - lastAppendMillis >= explicitLacIntervalMillis;
+            return published ? lac() : lac() - 1;
+        }
+
         synchronized boolean sealed() {
             return sealed;
         }
@@ -158,7 +197,7 @@ public final class InMemoryLedgerStore implements LedgerStore {
             epoch++;
         }
 
-        synchronized long append(int writerEpoch, int availableBookies, byte[] data) {
+        synchronized long append(int writerEpoch, int availableBookies, Clock clock, byte[] data) {
             if (sealed) {
                 throw new FencedException("Ledger " + id + " is sealed; appends are rejected");
             }
@@ -172,6 +211,9 @@ public final class InMemoryLedgerStore implements LedgerStore {
                         + " bookie(s)");
             }
             entries.add(data);
+            if (clock != null) {
+                lastAppendMillis = clock.currentTimeMillis();
+            }
             return entries.size() - 1L;
         }
 
@@ -222,6 +264,22 @@ public final class InMemoryLedgerStore implements LedgerStore {
             return new LedgerEntry(entryId, ledger.read(entryId));
         }
 
+        /** Completes immediately, like {@link WritableHandle#appendAsync}: there is no latency to hide. */
+        @Override
+        public CompletableFuture<LedgerEntry> readAsync(long entryId) {
+            try {
+                return CompletableFuture.completedFuture(read(entryId));
+            } catch (RuntimeException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+
+        /** Unless the store models the piggybacked LAC, handles see the live tail. */
+        @Override
+        public long readLastAddConfirmed() {
+            return ledger.lac();
+        }
+
         @Override
         public List<LedgerEntry> readRange(long firstEntryId, long lastEntryId) {
             if (firstEntryId < 0 || lastEntryId < firstEntryId) {
@@ -241,6 +299,27 @@ public final class InMemoryLedgerStore implements LedgerStore {
         }
     }
 
+    /** A passive handle on a store that models the piggybacked LAC. */
+    private final class PassiveHandle extends ReadableHandle {
+        private volatile long lac;
+
+        PassiveHandle(FakeLedger ledger) {
+            super(ledger);
+            this.lac = ledger.visibleLac(clock, explicitLacIntervalMillis);
+        }
+
+        @Override
+        public long lastAddConfirmed() {
+            return lac;
+        }
+
+        @Override
+        public long readLastAddConfirmed() {
+            lac = Math.max(lac, ledger.visibleLac(clock, explicitLacIntervalMillis));
+            return lac;
+        }
+    }
+
     private final class WritableHandle extends ReadableHandle implements WritableLedger {
         private final int writerEpoch;
 
@@ -251,7 +330,20 @@ public final class InMemoryLedgerStore implements LedgerStore {
 
         @Override
         public long append(byte[] data) {
-            return ledger.append(writerEpoch, availableBookies, data.clone());
+            return ledger.append(writerEpoch, availableBookies, clock, data.clone());
+        }
+
+        /**
+         * Acknowledges immediately: the fake has no network round trip to overlap, so the future is
+         * already complete (or failed) on return, preserving call-order entry ids.
+         */
+        @Override
+        public CompletableFuture<Long> appendAsync(byte[] data) {
+            try {
+                return CompletableFuture.completedFuture(append(data));
+            } catch (RuntimeException e) {
+                return CompletableFuture.failedFuture(e);
+            }
         }
 
         @Override
@@ -0,0 +1,27 @@
+/*
+ * Copyright (c) 2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.predatorray.candybox.bookkeeper;
+
+import me.predatorray.candybox.bookkeeper.fake.InMemoryLedgerStore;
+
+/** Runs the shared {@link LedgerStoreContract} through a small {@link CachingLedgerStore}. */
+class CachingLedgerStoreContractTest extends LedgerStoreContract {
+
+    @Override
+    protected LedgerStore newStore() {
+        return new CachingLedgerStore(new InMemoryLedgerStore(), 2, 60_000L, System::currentTimeMillis);
+    }
+}
@@ -0,0 +1,233 @@
+/*
+ * Copyright (c) 2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.predatorray.candybox.bookkeeper;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import me.predatorray.candybox.bookkeeper.fake.InMemoryLedgerStore;
+import me.predatorray.candybox.common.config.LedgerRole;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Handle reuse, eviction and invalidation in {@link CachingLedgerStore}, over an in-memory store that
+ * counts how many handles were really opened and closed.
+ */
+class CachingLedgerStoreTest {
+
+    private final CountingStore backing = new CountingStore();
+    private final AtomicLong now = new AtomicLong(1_000);
+    private final CachingLedgerStore store = new CachingLedgerStore(backing, 2, 100, now::get);
+
+    @AfterEach
+    void tearDown() {
+        store.close();
+    }
+
+    private long sealedLedger(String payload) {
+        WritableLedger w = store.createLedger(LedgerConfig.forRole(LedgerRole.SYRUP));
+        w.append(payload.getBytes());
+        w.close();
+        return w.ledgerId();
+    }
+
+    @Test
+    void reopeningAHotLedgerReusesOneHandle() {
+        long id = sealedLedger("a");
+        for (int i = 0; i < 3; i++) {
+            ReadableLedger r = store.openLedger(id);
+            assertThat(r.read(0).data()).isEqualTo("a".getBytes());
+            r.close();
+            r.close(); // a lease closes once
+        }
+        assertThat(backing.opened.get()).isEqualTo(1);
+        assertThat(backing.closed.get()).isZero();
+        assertThat(store.stats().hits()).isEqualTo(2);
+        assertThat(store.stats().misses()).isEqualTo(1);
+        assertThat(store.stats().weightedSize()).isEqualTo(1);
+    }
+
+    @Test
+    void capacityEvictsTheLeastRecentlyUsedIdleHandleOnly() {
+        long a = sealedLedger("a");
+        long b = sealedLedger("b");
+        long c = sealedLedger("c");
+        ReadableLedger leasedA = store.openLedger(a);
+        store.openLedger(b).close();
+        store.openLedger(c).close(); // over capacity: b is the LRU idle handle, a is leased
+
+        assertThat(backing.closed.get()).isEqualTo(1);
+        assertThat(store.stats().evictions()).isEqualTo(1);
+        assertThat(leasedA.read(0).data()).isEqualTo("a".getBytes());
+        store.openLedger(c).close();
+        assertThat(backing.opened.get()).isEqualTo(3);
+        leasedA.close();
+        assertThat(store.stats().weightedSize()).isEqualTo(2);
+    }
+
+    @Test
+    void idleHandlesCloseAfterTheIdleTimeout() {
+        long a = sealedLedger("a");
+        store.openLedger(a).close();
+        now.addAndGet(99);
+        store.evictIdle();
+        assertThat(backing.closed.get()).isZero();
+
+        now.addAndGet(1);
+        long b = sealedLedger("b");
+        store.openLedger(b).close(); // the lazy sweep on open retires a
+        assertThat(backing.closed.get()).isEqualTo(1);
+        assertThat(store.stats().weightedSize()).isEqualTo(1);
+    }
+
+    @Test
+    void deleteDropsTheHandleButLeavesOutstandingLeasesReadable() {
+        long a = sealedLedger("a");
+        ReadableLedger leased = store.openLedger(a);
+        ReadableLedger other = store.openLedger(a);
+        other.close();
+
+        store.deleteLedger(a);
+        assertThat(backing.closed.get()).isZero(); // still leased
+        assertThat(leased.ledgerId()).isEqualTo(a);
+        leased.close();
+        assertThat(backing.closed.get()).isEqualTo(1);
+        assertThatThrownBy(() -> store.openLedger(a)).isInstanceOf(LedgerNotFoundException.class);
+    }
+
+    @Test
+    void handlesOfLedgersStillBeingWrittenAreNotShared() {
+        WritableLedger w = store.createLedger(LedgerConfig.forRole(LedgerRole.SYRUP));
+        w.append("a".getBytes());
+        ReadableLedger early = store.openLedger(w.ledgerId());
+        assertThat(early.isSealed()).isFalse();
+        early.close();
+        assertThat(backing.closed.get()).isEqualTo(1); // closed for real, not kept
+        assertThat(store.stats().weightedSize()).isZero();
+
+        w.append("b".getBytes());
+        w.close();
+        ReadableLedger sealed = store.openLedger(w.ledgerId());
+        assertThat(sealed.lastAddConfirmed()).isEqualTo(1);
+        sealed.close();
+        store.openLedger(w.ledgerId()).close();
+        assertThat(backing.opened.get()).isEqualTo(2);
+        assertThat(store.stats().weightedSize()).isEqualTo(1);
+    }
+
+    @Test
+    void zeroCapacityPassesEveryOpenThrough() {
+        CachingLedgerStore uncached = new CachingLedgerStore(backing, 0, 100, now::get);
+        long a = sealedLedger("a");
+        uncached.openLedger(a).close();
+        uncached.openLedger(a).close();
+        assertThat(backing.opened.get()).isEqualTo(2);
+        assertThat(backing.closed.get()).isEqualTo(2);
+        assertThat(uncached.stats().misses()).isEqualTo(2);
+    }
+
+    /** An in-memory store counting the read handles it opens and closes. */
+    private static final class CountingStore implements LedgerStore {
+
+        private final InMemoryLedgerStore delegate = new InMemoryLedgerStore();
+        final AtomicInteger opened = new AtomicInteger();
+        final AtomicInteger closed = new AtomicInteger();
+
+        @Override
+        public WritableLedger createLedger(LedgerConfig config) {
+            return delegate.createLedger(config);
+        }
+
+        @Override
+        public ReadableLedger openLedger(long ledgerId) {
+            ReadableLedger handle = delegate.openLedger(ledgerId);
+            opened.incrementAndGet();
+            return new ReadableLedger() {
+                @Override
+                public LedgerEntry read(long entryId) {
+                    return handle.read(entryId);
+                }
+
+                @Override
+                public List<LedgerEntry> readRange(long firstEntryId, long lastEntryId) {
+                    return handle.readRange(firstEntryId, lastEntryId);
+                }
+
+                @Override
+                public CompletableFuture<LedgerEntry> readAsync(long entryId) {
+                    return handle.readAsync(entryId);
+                }
+
+                @Override
+                public long readLastAddConfirmed() {
+                    return handle.readLastAddConfirmed();
+                }
+
+                @Override
+                public long ledgerId() {
+                    return handle.ledgerId();
+                }
+
+                @Override
+                public long lastAddConfirmed() {
+                    return handle.lastAddConfirmed();
+                }
+
+                @Override
+                public boolean isSealed() {
+                    return handle.isSealed();
+                }
+
+                @Override
+                public Map<String, byte[]> customMetadata() {
+                    return handle.customMetadata();
+                }
+
+                @Override
+                public void close() {
+                    closed.incrementAndGet();
+                    handle.close();
+                }
+            };
+        }
+
+        @Override
+        public ReadableLedger recoverOpen(long ledgerId) {
+            return delegate.recoverOpen(ledgerId);
+        }
+
+        @Override
+        public void deleteLedger(long ledgerId) {
+            delegate.deleteLedger(ledgerId);
+        }
+
+        @Override
+        public List<Long> listLedgers() {
+            return delegate.listLedgers();
+        }
+
+        @Override
+        public void close() {
+            delegate.close();
+        }
+    }
+}
@@ -19,7 +19,10 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import me.predatorray.candybox.common.config.LedgerRole;
 import me.predatorray.candybox.common.exception.FencedException;
 import me.predatorray.candybox.common.exception.StorageException;
@@ -82,6 +85,23 @@ public abstract class LedgerStoreContract {
                 .containsExactly("alpha", "beta");
     }
 
+    @Test
+    void readAsyncReturnsTheEntryAndFailsOutOfRange() {
+        WritableLedger w = store.createLedger(config());
+        w.append(bytes("alpha"));
+        w.append(bytes("beta"));
+        w.close();
+
+        ReadableLedger r = store.openLedger(w.ledgerId());
+        CompletableFuture<LedgerEntry> second = r.readAsync(1);
+        CompletableFuture<LedgerEntry> first = r.readAsync(0);
+        assertThat(new String(first.join().data(), StandardCharsets.UTF_8)).isEqualTo("alpha");
+        assertThat(second.join().entryId()).isEqualTo(1);
+        assertThatThrownBy(() -> r.readAsync(5).join())
+                .isInstanceOf(CompletionException.class)
+                .hasCauseInstanceOf(StorageException.class);
+    }
+
     @Test
     void openLedgerDoesNotFenceTheWriter() {
         WritableLedger w = store.createLedger(config());
@@ -98,6 +118,25 @@ public abstract class LedgerStoreContract {
         assertThat(r.readRange(0, 2)).hasSize(3);
     }
 
+    @Test
+    void passiveReaderTailsAnOpenLedgerByRefreshingItsLastAddConfirmed() {
+        WritableLedger w = store.createLedger(config());
+        w.append(bytes("a"));
+        w.append(bytes("b"));
+        ReadableLedger r = store.openLedger(w.ledgerId());
+        w.append(bytes("c"));
+        w.append(bytes("d"));
+
+        // The LAC rides on later adds, so a live tail may trail the writer by an entry.
+        long lac = r.readLastAddConfirmed();
+        assertThat(lac).isBetween(2L, 3L);
+        assertThat(r.lastAddConfirmed()).isEqualTo(lac);
+        assertThat(r.readRange(0, lac)).hasSize((int) lac + 1);
+
+        w.close();
+        assertThat(r.readLastAddConfirmed()).isEqualTo(3);
+    }
+
     @Test
     void recoverOpenSealsAndFencesPriorWriter() {
         WritableLedger w = store.createLedger(config());
@@ -116,6 +155,36 @@ public abstract class LedgerStoreContract {
         assertThatThrownBy(() -> w.append(bytes("three"))).isInstanceOf(FencedException.class);
     }
 
+    @Test
+    void pipelinedAsyncAppendsAreAssignedIdsInCallOrder() {
+        WritableLedger w = store.createLedger(config());
+        List<CompletableFuture<Long>> acks = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            acks.add(w.appendAsync(bytes("chunk-" + i)));
+        }
+        for (int i = 0; i < acks.size(); i++) {
+            assertThat(acks.get(i).join()).isEqualTo(i);
+        }
+        w.close();
+
+        ReadableLedger r = store.openLedger(w.ledgerId());
+        assertThat(r.readRange(0, 7))
+                .extracting(e -> new String(e.data(), StandardCharsets.UTF_8))
+                .containsExactly("chunk-0", "chunk-1", "chunk-2", "chunk-3", "chunk-4", "chunk-5",
+                        "chunk-6", "chunk-7");
+    }
+
+    @Test
+    void asyncAppendToFencedLedgerCompletesExceptionally() {
+        WritableLedger w = store.createLedger(config());
+        w.appendAsync(bytes("one")).join();
+        store.recoverOpen(w.ledgerId());
+
+        assertThatThrownBy(() -> w.appendAsync(bytes("two")).join())
+                .isInstanceOf(CompletionException.class)
+                .hasCauseInstanceOf(FencedException.class);
+    }
+
     @Test
     void closedLedgerRejectsFurtherAppends() {
         WritableLedger w = store.createLedger(config());
@@ -20,12 +20,17 @@ import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 import java.nio.charset.StandardCharsets;
 import me.predatorray.candybox.bookkeeper.LedgerConfig;
+import me.predatorray.candybox.bookkeeper.ReadableLedger;
 import me.predatorray.candybox.bookkeeper.WritableLedger;
+import me.predatorray.candybox.common.ManualClock;
 import me.predatorray.candybox.common.config.QuorumConfig;
 import me.predatorray.candybox.common.exception.StorageException;
 import org.junit.jupiter.api.Test;
 
-/** Adversarial behaviours specific to the fake: injected bookie loss / ack-quorum failures. */
+/**
+ * Adversarial behaviours specific to the fake: injected bookie loss / ack-quorum failures and the
+ * piggybacked last-add-confirmed.
+ */
 class InMemoryLedgerStoreTest {
 
     private static byte[] bytes(String s) {
@@ -55,4 +60,22 @@ class InMemoryLedgerStoreTest {
                 .isInstanceOf(StorageException.class)
                 .hasMessageContaining("ensemble");
     }
+
+    @Test
+    void passiveReaderSeesTheNewestEntryOnlyOnceItsLacIsPiggybackedOrPublished() {
+        ManualClock clock = new ManualClock(1000);
+        InMemoryLedgerStore store = new InMemoryLedgerStore(clock, 200);
+        WritableLedger w = store.createLedger(new LedgerConfig(new QuorumConfig(3, 3, 2)));
+        w.append(bytes("first"));
+        ReadableLedger r = store.openLedger(w.ledgerId());
+        assertThat(r.lastAddConfirmed()).isEqualTo(-1);
+
+        w.append(bytes("second")); // carries the first entry's LAC
+        assertThat(r.readLastAddConfirmed()).isEqualTo(0);
+        clock.advance(199);
+        assertThat(r.readLastAddConfirmed()).isEqualTo(0);
+        clock.advance(1); // the writer has been quiet for the explicit-LAC interval
+        assertThat(r.readLastAddConfirmed()).isEqualTo(1);
+        assertThat(r.lastAddConfirmed()).isEqualTo(1);
+    }
 }
@@ -24,9 +24,10 @@ import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import me.predatorray.candybox.common.BoxName;
 import me.predatorray.candybox.common.CandyKey;
-import me.predatorray.candybox.common.Partitioning;
 import me.predatorray.candybox.common.SystemClock;
 import me.predatorray.candybox.common.Validation;
 import me.predatorray.candybox.common.config.CandyboxConfig;
@@ -43,6 +44,7 @@ import me.predatorray.candybox.common.exception.CandyNotFoundException;
 import me.predatorray.candybox.common.exception.CandyboxException;
 import me.predatorray.candybox.common.exception.NotOwnerException;
 import me.predatorray.candybox.common.exception.StorageException;
+import me.predatorray.candybox.coordination.BoxDescriptor;
 import me.predatorray.candybox.coordination.CoordinationService;
 import me.predatorray.candybox.protocol.Message;
 import me.predatorray.candybox.protocol.transport.Transport;
@@ -52,22 +54,38 @@ import me.predatorray.candybox.protocol.transport.Transport;
  * typed {@link Message}s, hands them to a {@link Router}, and maps responses back to results or the
  * Candybox exception hierarchy. Client-side size validation fails fast before a request is sent.
  *
- * <p>Every Box is hash-partitioned (its partition count is fixed at creation and cached here after a
- * {@code BoxInfo} lookup). Keyed operations route to the owner of the key's partition;
- * {@code deleteRange} and the listings fan out across every partition (listings merge pages in key
- * order); cross-partition {@code copy}/{@code rename}/{@code uploadPartCopy} fall back to a
- * client-side byte copy because the zero-copy path is only safe within one partition's manifest.
+ * <p>Every Box is hash-partitioned (its {@link BoxDescriptor}, cached here after a {@code BoxInfo}
+ * lookup and re-read when a node answers that a partition has since been split). Keyed operations
+ * route to the owner of the key's partition; {@code deleteRange} and the listings fan out to every
+ * partition concurrently (listings merge pages in key order, see {@link ScatterGather});
+ * cross-partition {@code copy}/{@code rename}/{@code uploadPartCopy} fall back to a client-side
+ * byte copy because the zero-copy path is only safe within one partition's manifest.
  *
  * <p>Construct with a {@code host:port} for a single node ({@link DirectRouter}), or with a
  * {@link CoordinationService} for a cluster ({@link ClusterRouter}, which resolves each partition's
- * owner and re-routes on {@code MOVED}). Large objects are buffered in memory for now; chunked
- * streaming over the wire is TODO(phase-2.5).
+ * owner and re-routes on {@code MOVED}). A cluster client configured with a positive
+ * {@code followerReadMaxStalenessMillis} sends its GET, HEAD and list requests with that bound, so a
+ * partition's standbys may answer them too — except right after it wrote to that partition.
+ *
+ * <p>The {@code InputStream}/{@code OutputStream} overloads of put, get and {@code uploadPart}
+ * stream the body over the wire in flow-controlled chunks, so neither side holds a whole object in
+ * memory. Against a node (or transport) that does not stream they fall back to buffering the body
+ * and sending it inline.
  */
 public final class CandyboxClient implements BoxClient, AutoCloseable {
 
+    /** How many times one request re-reads a Box's routing that a split changed under it. */
+    private static final int MAX_ROUTING_REFRESHES = 4;
+
+    private static final Comparator<ListedKey> KEY_ORDER = Comparator.comparing(ListedKey::key);
+    private static final Comparator<UploadEntry> UPLOAD_ORDER =
+            Comparator.comparing(UploadEntry::key).thenComparing(UploadEntry::uploadId);
+
     private final Router router;
     private final SizeLimits limits;
-    private final ConcurrentMap<String, Integer> partitionCounts = new ConcurrentHashMap<>();
+    private final long maxStalenessMillis;
+    private final ConcurrentMap<String, BoxDescriptor> descriptors = new ConcurrentHashMap<>();
+    private final ScatterGather scatterGather = new ScatterGather();
 
     /** Single-node client talking directly to {@code host:port}. */
     public CandyboxClient(Transport transport, String host, int port) {
@@ -78,13 +96,16 @@ public final class CandyboxClient implements BoxClient, AutoCloseable {
     public CandyboxClient(Transport transport, String host, int port, SizeLimits limits) {
         this.router = new DirectRouter(transport, host, port);
         this.limits = limits;
+        this.maxStalenessMillis = 0;
     }
 
     /** Cluster-aware client: routes each request to the owning node via coordination. */
     public CandyboxClient(Transport transport, CoordinationService coordination, CandyboxConfig config) {
         this.router = new ClusterRouter(transport, coordination, config.routerCacheTtlMillis(),
-                SystemClock.INSTANCE);
+                SystemClock.INSTANCE, config.routerConnectionsPerNode(),
+                config.followerReadMaxStalenessMillis());
         this.limits = config.sizeLimits();
+        this.maxStalenessMillis = config.followerReadMaxStalenessMillis();
     }
 
     // ---- Box admin -------------------------------------------------------------------------
@@ -102,21 +123,25 @@ public final class CandyboxClient implements BoxClient, AutoCloseable {
 
     public void deleteBox(String box, boolean force) {
         expectOk(router.callAny(new Message.DeleteBoxRequest(BoxName.of(box).value(), force)));
-        partitionCounts.remove(box);
+        descriptors.remove(box);
     }
 
     // ---- partition routing -------------------------------------------------------------------
 
-    /** The Box's partition count, fetched once via {@code BoxInfo} and cached (it is immutable). */
-    private int partitionCount(String box) {
-        Integer cached = partitionCounts.get(box);
+    /**
+     * The Box's routing, fetched via {@code BoxInfo} and cached until a node reports that it changed
+     * (see {@link #routed}).
+     */
+    private BoxDescriptor descriptor(String box) {
+        BoxDescriptor cached = descriptors.get(box);
         if (cached != null) {
             return cached;
         }
         Message response = router.callAny(new Message.BoxInfoRequest(BoxName.of(box).value()));
         if (response instanceof Message.BoxInfoResponse info) {
-            partitionCounts.put(box, info.partitionCount());
-            return info.partitionCount();
+            BoxDescriptor descriptor = new BoxDescriptor(info.partitionCount(), info.splitLevels());
+            descriptors.put(box, descriptor);
+            return descriptor;
         }
         if (response instanceof Message.NotFoundResponse) {
             throw new BoxNotFoundException(box);
@@ -125,12 +150,56 @@ public final class CandyboxClient implements BoxClient, AutoCloseable {
     }
 
     private int partitionFor(String box, String key) {
-        return Partitioning.partitionOf(key, partitionCount(box));
+        return descriptor(box).partitionOf(key);
+    }
+
+    /**
+     * Sends a request through {@code call}, which resolves its partition afresh each time: when the
+     * node answers that the partition's routing changed (it was split), the Box's routing is re-read
+     * and the request re-sent, a bounded number of times.
+     */
+    private Message routed(String box, Supplier<Message> call) {
+        for (int attempt = 1; ; attempt++) {
+            Message response = call.get();
+            if (!(response instanceof Message.MovedResponse moved && moved.routingChanged())
+                    || attempt == MAX_ROUTING_REFRESHES) {
+                return response;
+            }
+            descriptors.remove(box);
+        }
+    }
+
+    /**
+     * Runs a fan-out over the Box's partitions, restarting it over re-read routing if a partition
+     * turned out to have been split meanwhile (its node refuses a request naming the old scope).
+     * The fanned-out requests are reads or idempotent range deletes, so a restart is safe.
+     */
+    private <T> T fanOutRouted(String box, Function<BoxDescriptor, T> fanOut) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return fanOut.apply(descriptor(box));
+            } catch (NotOwnerException moved) {
+                if (attempt == MAX_ROUTING_REFRESHES) {
+                    throw moved;
+                }
+                descriptors.remove(box);
+            }
+        }
     }
 
     /** Routes a keyed request to the owner of the key's partition. */
     private Message callKey(String box, String key, Message request) {
-        return router.callPartition(box, partitionFor(box, key), request);
+        return routed(box, () -> router.callPartition(box, partitionFor(box, key), request));
+    }
+
+    /** Routes a read of a key, which may be answered by a standby when the client tolerates it. */
+    private Message readKey(String box, String key, Message request) {
+        return routed(box, () -> read(box, partitionFor(box, key), request));
+    }
+
+    private Message read(String box, int partition, Message request) {
+        return maxStalenessMillis > 0 ? router.callReplica(box, partition, request)
+                : router.callPartition(box, partition, request);
     }
 
     // ---- Candy ops -------------------------------------------------------------------------
@@ -157,29 +226,93 @@ public final class CandyboxClient implements BoxClient, AutoCloseable {
                 idempotencyToken, data, owner, grants == null ? List.of() : grants)));
     }
 
-    /** Streaming put (buffers the stream in memory for now — TODO(phase-2): true streaming). */
+    /** Streaming put: reads {@code data} to EOF, chunk by chunk as the node asks for it. */
     public void putCandy(String box, String key, InputStream data, String contentType,
                          Map<String, String> userMetadata, String idempotencyToken) {
-        putCandy(box, key, readFully(data), contentType, userMetadata, idempotencyToken);
+        putCandy(box, key, data, contentType, userMetadata, idempotencyToken, null, List.of());
+    }
+
+    /**
+     * Streaming {@code putCandy} stamping the object's owner / ACL grants. The size limit is enforced
+     * by the node as the body arrives; {@code data} is not closed.
+     */
+    public void putCandy(String box, String key, InputStream data, String contentType,
+                         Map<String, String> userMetadata, String idempotencyToken, String owner,
+                         List<String> grants) {
+        CandyKey candyKey = CandyKey.of(key);
+        Validation.checkCandyKey(candyKey, limits);
+        Validation.checkUserMetadata(userMetadata, limits);
+        Message request = new Message.PutCandyStreamRequest(BoxName.of(box).value(),
+                candyKey.value(), contentType, userMetadata == null ? Map.of() : userMetadata,
+                idempotencyToken, owner, grants == null ? List.of() : grants);
+        // A redirect comes before the node asks for the body, so a re-sent request still has it all.
+        Message response = routed(box, () -> router.uploadPartition(box, partitionFor(box, key),
+                request, data));
+        if (response == null) {
+            putCandy(box, key, readFully(data), contentType, userMetadata, idempotencyToken, owner,
+                    grants);
+            return;
+        }
+        expectOk(response);
     }
 
     public byte[] getCandy(String box, String key) {
-        Message response = callKey(box, key, new Message.GetCandyRequest(BoxName.of(box).value(),
-                CandyKey.of(key).value()));
+        Message response = readKey(box, key, new Message.GetCandyRequest(BoxName.of(box).value(),
+                CandyKey.of(key).value(), maxStalenessMillis));
         if (response instanceof Message.CandyDataResponse data) {
             return data.data();
         }
         throw mapUnexpected(response, box, key);
     }
 
-    /** Streaming get convenience: writes the bytes to {@code out}. */
+    /** Streaming get: writes the bytes to {@code out}, which is not closed. */
     public void getCandy(String box, String key, OutputStream out) {
-        byte[] data = getCandy(box, key);
+        getCandy(box, key, info -> out);
+    }
+
+    /**
+     * Streaming get: once the object's metadata is known, writes its bytes to the stream
+     * {@code sink} returns for it (not closed), and returns that metadata.
+     */
+    public CandyInfo getCandy(String box, String key, Function<CandyInfo, OutputStream> sink) {
+        Message request = new Message.GetCandyStreamRequest(BoxName.of(box).value(),
+                CandyKey.of(key).value(), maxStalenessMillis);
+        Function<Message, OutputStream> body = header ->
+                header instanceof Message.CandyStreamResponse stream
+                        ? sink.apply(infoOf(stream)) : OutputStream.nullOutputStream();
+        Message response = routed(box, () -> maxStalenessMillis > 0
+                ? router.downloadReplica(box, partitionFor(box, key), request, body)
+                : router.downloadPartition(box, partitionFor(box, key), request, body));
+        if (response == null) {
+            return getCandyBuffered(box, key, sink);
+        }
+        if (response instanceof Message.CandyStreamResponse stream) {
+            return infoOf(stream);
+        }
+        throw mapUnexpected(response, box, key);
+    }
+
+    private CandyInfo getCandyBuffered(String box, String key,
+                                       Function<CandyInfo, OutputStream> sink) {
+        Message response = readKey(box, key, new Message.GetCandyRequest(BoxName.of(box).value(),
+                CandyKey.of(key).value(), maxStalenessMillis));
+        if (!(response instanceof Message.CandyDataResponse data)) {
+            throw mapUnexpected(response, box, key);
+        }
+        // The inline GET response carries no creation time.
+        CandyInfo info = new CandyInfo(data.contentLength(), data.contentType(),
+                data.userMetadata(), data.crc32c(), 0L);
         try {
-            out.write(data);
+            sink.apply(info).write(data.data());
         } catch (IOException e) {
             throw new StorageException("Failed writing Candy to output stream", e);
         }
+        return info;
+    }
+
+    private static CandyInfo infoOf(Message.CandyStreamResponse stream) {
+        return new CandyInfo(stream.contentLength(), stream.contentType(), stream.userMetadata(),
+                stream.crc32c(), stream.createdAtMillis());
     }
 
     /**
@@ -192,8 +325,9 @@ public final class CandyboxClient implements BoxClient, AutoCloseable {
      * </ul>
      */
     public RangeBytes getCandyRange(String box, String key, long firstByte, long lastByte) {
-        Message response = callKey(box, key, new Message.RangeGetCandyRequest(
-                BoxName.of(box).value(), CandyKey.of(key).value(), firstByte, lastByte));
+        Message response = readKey(box, key, new Message.RangeGetCandyRequest(
+                BoxName.of(box).value(), CandyKey.of(key).value(), firstByte, lastByte,
+                maxStalenessMillis));
         if (response instanceof Message.CandyDataResponse data) {
             // For range responses, contentLength is the slice length and totalLength is the whole
             // object; the resolved start byte is implicit: totalLength - sliceLength may differ from
@@ -205,8 +339,8 @@ public final class CandyboxClient implements BoxClient, AutoCloseable {
     }
 
     public CandyInfo headCandy(String box, String key) {
-        Message response = callKey(box, key, new Message.HeadCandyRequest(BoxName.of(box).value(),
-                CandyKey.of(key).value()));
+        Message response = readKey(box, key, new Message.HeadCandyRequest(BoxName.of(box).value(),
+                CandyKey.of(key).value(), maxStalenessMillis));
         if (response instanceof Message.HeadCandyResponse head) {
             return new CandyInfo(head.contentLength(), head.contentType(), head.userMetadata(),
                     head.crc32c(), head.createdAtMillis());
@@ -321,6 +455,24 @@ public final class CandyboxClient implements BoxClient, AutoCloseable {
         throw mapUnexpected(response, box, key);
     }
 
+    /** Streaming {@code uploadPart}: reads {@code data} to EOF as the node asks for it. */
+    public PartUploadInfo uploadPart(String box, String key, String uploadId, int partNumber,
+                                     InputStream data) {
+        CandyKey candyKey = CandyKey.of(key);
+        Validation.checkCandyKey(candyKey, limits);
+        Message request = new Message.UploadPartStreamRequest(BoxName.of(box).value(),
+                candyKey.value(), uploadId, partNumber);
+        Message response = routed(box, () -> router.uploadPartition(box, partitionFor(box, key),
+                request, data));
+        if (response == null) {
+            return uploadPart(box, key, uploadId, partNumber, readFully(data));
+        }
+        if (response instanceof Message.UploadPartResponse up) {
+            return new PartUploadInfo(partNumber, up.crc32c(), up.partLength());
+        }
+        throw mapUnexpected(response, box, key);
+    }
+
     /**
      * Materializes the multipart upload at its target key. {@code parts} enumerates every uploaded
      * part in ascending {@code partNumber} order, paired with the CRC32C returned by the matching
@@ -370,8 +522,7 @@ public final class CandyboxClient implements BoxClient, AutoCloseable {
                                          String srcKey, long firstByte, long lastByte) {
         Validation.checkCandyKey(CandyKey.of(key), limits);
         Validation.checkCandyKey(CandyKey.of(srcKey), limits);
-        int n = partitionCount(box);
-        if (Partitioning.partitionOf(srcKey, n) != Partitioning.partitionOf(key, n)) {
+        if (partitionFor(box, srcKey) != partitionFor(box, key)) {
             byte[] bytes = (firstByte < 0 && lastByte < 0)
                     ? getCandy(box, srcKey)
                     : getCandyRange(box, srcKey, firstByte, lastByte).data();
@@ -389,30 +540,40 @@ public final class CandyboxClient implements BoxClient, AutoCloseable {
     /** Lists in-flight multipart uploads in {@code box}, narrowed by an optional key prefix. */
     public MultipartListing listMultipartUploads(String box, String prefix, String keyMarker,
                                                  String uploadIdMarker, int maxUploads) {
-        int n = partitionCount(box);
         int limit = maxUploads <= 0 ? 1000 : maxUploads;
-        List<UploadEntry> all = new ArrayList<>();
-        boolean anyTruncated = false;
-        for (int p = 0; p < n; p++) {
-            Message response = router.callPartition(box, p, new Message.ListMultipartUploadsRequest(
-                    BoxName.of(box).value(), p, prefix, keyMarker, uploadIdMarker, limit));
-            if (!(response instanceof Message.ListMultipartUploadsResponse page)) {
-                throw mapResponse(response);
-            }
-            for (Message.InProgressUpload u : page.uploads()) {
-                all.add(new UploadEntry(u.uploadId(), u.key(), u.createdAtMillis()));
-            }
-            if (page.nextKeyMarker() != null) {
-                anyTruncated = true;
-            }
-        }
-        all.sort(Comparator.comparing(UploadEntry::key).thenComparing(UploadEntry::uploadId));
-        boolean truncated = anyTruncated || all.size() > limit;
-        List<UploadEntry> rows = all.size() > limit ? new ArrayList<>(all.subList(0, limit)) : all;
+        ScatterGather.Merged<UploadEntry> merged = fanOutRouted(box, descriptor -> {
+            List<Integer> partitions = descriptor.partitions();
+            ScatterGather.PageSource<UploadEntry> pages = (i, after, pageSize) -> uploadPage(box,
+                    partitions.get(i), descriptor, prefix, after == null ? keyMarker : after.key(),
+                    after == null ? uploadIdMarker : after.uploadId(), pageSize);
+            int firstPage = ScatterGather.firstPageSize(limit, partitions.size());
+            return ScatterGather.merge(
+                    scatterGather.fanOut(partitions.size(), i -> pages.fetch(i, null, firstPage)),
+                    UPLOAD_ORDER, limit, pages);
+        });
+        List<UploadEntry> rows = merged.rows();
         UploadEntry last = rows.isEmpty() ? null : rows.get(rows.size() - 1);
         return new MultipartListing(rows,
-                truncated && last != null ? last.key() : null,
-                truncated && last != null ? last.uploadId() : null);
+                merged.truncated() && last != null ? last.key() : null,
+                merged.truncated() && last != null ? last.uploadId() : null);
+    }
+
+    private ScatterGather.Page<UploadEntry> uploadPage(String box, int partition,
+                                                       BoxDescriptor descriptor, String prefix,
+                                                       String keyMarker, String uploadIdMarker,
+                                                       int maxUploads) {
+        Message response = router.callPartition(box, partition,
+                new Message.ListMultipartUploadsRequest(BoxName.of(box).value(), partition, prefix,
+                        keyMarker, uploadIdMarker, maxUploads,
+                        descriptor.scopeOf(partition).modulus()));
+        if (!(response instanceof Message.ListMultipartUploadsResponse page)) {
+            throw mapResponse(response);
+        }
+        List<UploadEntry> rows = new ArrayList<>(page.uploads().size());
+        for (Message.InProgressUpload u : page.uploads()) {
+            rows.add(new UploadEntry(u.uploadId(), u.key(), u.createdAtMillis()));
+        }
+        return new ScatterGather.Page<>(rows, page.nextKeyMarker() != null);
     }
 
     /** Lists the parts recorded for one in-flight upload, paged by {@code partNumberMarker}. */
@@ -490,7 +651,7 @@ public final class CandyboxClient implements BoxClient, AutoCloseable {
                 loc.userMetadata(), loc.owner(), loc.grants(), token, token,
                 CandyKey.of(srcKey).value(), srcPartition, loc.hlc()));
         // 3. Finalize the source delete (best-effort fast path; the maintenance sweep is the backstop).
-        router.callPartition(box, srcPartition, new Message.CompleteRenameRequest(
+        callKey(box, srcKey, new Message.CompleteRenameRequest(
                 BoxName.of(box).value(), CandyKey.of(srcKey).value(), srcPartition, token, loc.hlc()));
         return result;
     }
@@ -506,7 +667,7 @@ public final class CandyboxClient implements BoxClient, AutoCloseable {
 
     /** Sends a locator-resolving request to the source's partition owner and unwraps the response. */
     private Message.CandyLocatorResponse resolveLocator(String box, String srcKey, Message request) {
-        Message response = router.callPartition(box, partitionFor(box, srcKey), request);
+        Message response = callKey(box, srcKey, request);
         if (response instanceof Message.CandyLocatorResponse loc) {
             return loc;
         }
@@ -515,7 +676,7 @@ public final class CandyboxClient implements BoxClient, AutoCloseable {
 
     /** Sends a zero-copy put to the destination's partition owner and unwraps the head response. */
     private CandyInfo zeroCopyPut(String box, String dstKey, Message.ZeroCopyPutRequest request) {
-        Message response = router.callPartition(box, partitionFor(box, dstKey), request);
+        Message response = callKey(box, dstKey, request);
         if (response instanceof Message.HeadCandyResponse head) {
             return new CandyInfo(head.contentLength(), head.contentType(), head.userMetadata(),
                     head.crc32c(), head.createdAtMillis());
@@ -529,11 +690,7 @@ public final class CandyboxClient implements BoxClient, AutoCloseable {
      * empty/null prefix deletes the whole Box's contents.
      */
     public void deleteRangeByPrefix(String box, String prefix) {
-        int n = partitionCount(box);
-        for (int p = 0; p < n; p++) {
-            expectOk(router.callPartition(box, p, new Message.DeleteRangeRequest(
-                    BoxName.of(box).value(), p, prefix == null ? "" : prefix, null, null)));
-        }
+        deleteRangeEverywhere(box, prefix == null ? "" : prefix, null, null);
     }
 
     /**
@@ -541,61 +698,134 @@ public final class CandyboxClient implements BoxClient, AutoCloseable {
      * one server-side range tombstone per partition (fanned out; idempotent to retry).
      */
     public void deleteRange(String box, String startKey, String endKey) {
-        int n = partitionCount(box);
-        for (int p = 0; p < n; p++) {
-            expectOk(router.callPartition(box, p, new Message.DeleteRangeRequest(
-                    BoxName.of(box).value(), p, null, startKey, endKey)));
-        }
+        deleteRangeEverywhere(box, null, startKey, endKey);
+    }
+
+    private void deleteRangeEverywhere(String box, String prefix, String startKey, String endKey) {
+        fanOutRouted(box, descriptor -> {
+            List<Integer> partitions = descriptor.partitions();
+            return scatterGather.fanOut(partitions.size(), i -> {
+                int p = partitions.get(i);
+                expectOk(router.callPartition(box, p, new Message.DeleteRangeRequest(
+                        BoxName.of(box).value(), p, prefix, startKey, endKey,
+                        descriptor.scopeOf(p).modulus())));
+                return null;
+            });
+        });
     }
 
     public Listing listCandies(String box, String prefix, String startAfter, int maxKeys) {
-        return listCandies(box, prefix, null, null, startAfter, false, maxKeys);
+        return listCandies(box, prefix, null, null, null, startAfter, false, maxKeys);
+    }
+
+    /**
+     * A prefix listing with keys rolled up into common prefixes at {@code delimiter} by the nodes
+     * (S3 {@code ListObjectsV2} with a delimiter). Common prefixes count against {@code maxKeys}, and
+     * {@code nextStartAfter} may be a common prefix, which the next page skips past.
+     */
+    public Listing listCandies(String box, String prefix, String delimiter, String startAfter,
+                               int maxKeys) {
+        return listCandies(box, prefix, delimiter, null, null, startAfter, false, maxKeys);
+    }
+
+    public Listing listCandies(String box, String prefix, String startKey, String endKey,
+                               String startAfter, boolean reverse, int maxKeys) {
+        return listCandies(box, prefix, null, startKey, endKey, startAfter, reverse, maxKeys);
     }
 
     /**
      * Range/directional listing: lists live Candies over the half-open window {@code [startKey, endKey)}
      * (either bound nullable), optionally narrowed by {@code prefix}, walked forward or in reverse, and
      * paged via {@code startAfter} (the previous page's {@code nextStartAfter}, exclusive in the scan
-     * direction). Internally scatter-gathers every partition and merges pages in key order.
+     * direction). An optional {@code delimiter} rolls keys up into common prefixes. Internally
+     * scatter-gathers every partition and merges pages in key order. {@code maxKeys <= 0} means the
+     * server default of 1000.
      */
-    public Listing listCandies(String box, String prefix, String startKey, String endKey,
-                               String startAfter, boolean reverse, int maxKeys) {
-        int n = partitionCount(box);
-        List<Listing.Entry> all = new ArrayList<>();
-        boolean anyTruncated = false;
-        for (int p = 0; p < n; p++) {
-            Message response = router.callPartition(box, p, new Message.ListCandiesRequest(
-                    BoxName.of(box).value(), p, prefix, startAfter, maxKeys, startKey, endKey,
-                    reverse));
-            if (!(response instanceof Message.ListCandiesResponse page)) {
-                throw mapResponse(response);
+    public Listing listCandies(String box, String prefix, String delimiter, String startKey,
+                               String endKey, String startAfter, boolean reverse, int maxKeys) {
+        int limit = maxKeys <= 0 ? 1000 : maxKeys;
+        ScatterGather.Merged<ListedKey> merged = fanOutRouted(box, descriptor -> {
+            List<Integer> partitions = descriptor.partitions();
+            ScatterGather.PageSource<ListedKey> pages = (i, after, pageSize) -> candyPage(box,
+                    partitions.get(i), descriptor, prefix, delimiter, startKey, endKey,
+                    after == null ? startAfter : after.value(), reverse, pageSize);
+            int firstPage = ScatterGather.firstPageSize(limit, partitions.size());
+            // A partition's rows past its page sort after the page's last row, so a page is only
+            // refilled once the merge has taken all of it and still needs rows: the merged first
+            // `limit` rows are globally correct.
+            return ScatterGather.merge(
+                    scatterGather.fanOut(partitions.size(), i -> pages.fetch(i, null, firstPage)),
+                    reverse ? KEY_ORDER.reversed() : KEY_ORDER, limit, pages);
+        });
+        List<Listing.Entry> entries = new ArrayList<>(merged.rows().size());
+        List<String> commonPrefixes = new ArrayList<>();
+        for (ListedKey row : merged.rows()) {
+            if (row.entry() != null) {
+                entries.add(row.entry());
+            } else {
+                commonPrefixes.add(row.commonPrefix());
             }
-            for (Message.ListedCandy c : page.entries()) {
-                all.add(new Listing.Entry(c.key(), c.contentLength(), c.createdAtMillis()));
-            }
-            if (page.nextStartAfter() != null) {
-                anyTruncated = true;
+        }
+        List<ListedKey> rows = merged.rows();
+        String next = merged.truncated() && !rows.isEmpty() ? rows.get(rows.size() - 1).value() : null;
+        return new Listing(entries, commonPrefixes, next);
+    }
+
+    /** One partition's page, its keys and common prefixes interleaved in scan order. */
+    private ScatterGather.Page<ListedKey> candyPage(String box, int partition,
+                                                    BoxDescriptor descriptor, String prefix,
+                                                    String delimiter, String startKey,
+                                                    String endKey, String startAfter,
+                                                    boolean reverse, int maxKeys) {
+        Message response = read(box, partition, new Message.ListCandiesRequest(
+                BoxName.of(box).value(), partition, prefix, startAfter, maxKeys, startKey, endKey,
+                reverse, delimiter, maxStalenessMillis, descriptor.scopeOf(partition).modulus()));
+        if (!(response instanceof Message.ListCandiesResponse page)) {
+            throw mapResponse(response);
+        }
+        Comparator<ListedKey> order = reverse ? KEY_ORDER.reversed() : KEY_ORDER;
+        List<ListedKey> rows = new ArrayList<>(page.entries().size() + page.commonPrefixes().size());
+        int p = 0;
+        for (Message.ListedCandy c : page.entries()) {
+            ListedKey row = new ListedKey(CandyKey.of(c.key()),
+                    new Listing.Entry(c.key(), c.contentLength(), c.createdAtMillis()), null);
+            for (; p < page.commonPrefixes().size(); p++) {
+                ListedKey rolledUp = ListedKey.rolledUp(page.commonPrefixes().get(p));
+                if (order.compare(rolledUp, row) > 0) {
+                    break;
+                }
+                rows.add(rolledUp);
             }
+            rows.add(row);
+        }
+        for (; p < page.commonPrefixes().size(); p++) {
+            rows.add(ListedKey.rolledUp(page.commonPrefixes().get(p)));
         }
-        // Each partition page holds its first maxKeys matches past the cursor, so the merged first
-        // maxKeys are globally correct: anything a truncated partition withheld sorts after its
-        // page's last (returned) key and therefore after the merged page too.
-        Comparator<Listing.Entry> byKey = Comparator.comparing(e -> CandyKey.of(e.key()));
-        all.sort(reverse ? byKey.reversed() : byKey);
-        boolean overflow = maxKeys > 0 && all.size() > maxKeys;
-        List<Listing.Entry> entries = overflow ? new ArrayList<>(all.subList(0, maxKeys)) : all;
-        boolean truncated = anyTruncated || overflow;
-        String next = truncated && !entries.isEmpty() ? entries.get(entries.size() - 1).key() : null;
-        return new Listing(entries, next);
+        return new ScatterGather.Page<>(rows, page.nextStartAfter() != null);
     }
 
     @Override
     public void close() {
+        scatterGather.close();
         router.close();
     }
 
     // ---- internals -------------------------------------------------------------------------
 
+    /**
+     * A listed row with its parsed key, so the merge compares without re-parsing: a Candy
+     * ({@code entry}) or a rolled-up {@code commonPrefix}.
+     */
+    private record ListedKey(CandyKey key, Listing.Entry entry, String commonPrefix) {
+        static ListedKey rolledUp(String commonPrefix) {
+            return new ListedKey(CandyKey.of(commonPrefix), null, commonPrefix);
+        }
+
+        String value() {
+            return entry != null ? entry.key() : commonPrefix;
+        }
+    }
+
     private void expectOk(Message response) {
         if (!(response instanceof Message.OkResponse)) {
             throw mapResponse(response);
@@ -619,8 +849,9 @@ public final class CandyboxClient implements BoxClient, AutoCloseable {
             return new CandyboxException("Not found");
         }
         if (response instanceof Message.MovedResponse moved) {
-            // Only reachable via the DirectRouter (the ClusterRouter re-routes MOVED internally).
-            return new NotOwnerException("owned by node " + moved.ownerNodeId());
+            // Via the DirectRouter, or a split the ClusterRouter hands back (see fanOutRouted).
+            return new NotOwnerException("owned by node " + moved.ownerNodeId()
+                    + (moved.routingChanged() ? "; the Box's routing changed" : ""));
         }
         return new CandyboxException("Unexpected response: " + response.opcode());
     }
@@ -683,8 +914,19 @@ public final class CandyboxClient implements BoxClient, AutoCloseable {
                              Map<String, String> userMetadata, int crc32c) {
     }
 
-    /** A page of {@code listCandies} results. */
-    public record Listing(List<Entry> entries, String nextStartAfter) {
+    /**
+     * A page of {@code listCandies} results: the Candies and, for a delimited listing, the common
+     * prefixes they rolled up into (both in scan order).
+     */
+    public record Listing(List<Entry> entries, List<String> commonPrefixes, String nextStartAfter) {
+        public Listing {
+            commonPrefixes = commonPrefixes == null ? List.of() : commonPrefixes;
+        }
+
+        public Listing(List<Entry> entries, String nextStartAfter) {
+            this(entries, List.of(), nextStartAfter);
+        }
+
         public boolean isTruncated() {
             return nextStartAfter != null;
         }
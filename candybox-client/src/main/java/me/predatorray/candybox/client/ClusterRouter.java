@@ -15,18 +15,23 @@
  */
 package me.predatorray.candybox.client;
 
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 import me.predatorray.candybox.common.Clock;
 import me.predatorray.candybox.common.concurrent.TtlCache;
 import me.predatorray.candybox.common.exception.CandyboxException;
 import me.predatorray.candybox.common.exception.NotOwnerException;
+import me.predatorray.candybox.common.exception.StorageException;
 import me.predatorray.candybox.coordination.CandyboxKeys;
 import me.predatorray.candybox.coordination.CoordinationService;
 import me.predatorray.candybox.coordination.LeaseInfo;
-import me.predatorray.candybox.protocol.Frame;
+import me.predatorray.candybox.coordination.PartitionAssignment;
 import me.predatorray.candybox.protocol.Message;
 import me.predatorray.candybox.protocol.MessageCodec;
 import me.predatorray.candybox.protocol.transport.Connection;
@@ -36,8 +41,20 @@ import me.predatorray.candybox.protocol.transport.Transport;
  * A cluster-aware {@link Router}: it resolves a (Box, partition) to its owning node via the
  * per-partition coordination lease, maps the owner's node id to its advertised {@code host:port} via
  * membership, connects there, and re-routes on a {@code MOVED} response (using the named owner).
- * Partition→address resolutions are cached with a TTL and invalidated on redirect; one connection is
- * kept per node address.
+ * Partition→address resolutions are cached with a TTL and invalidated on redirect. A {@code MOVED}
+ * that says the partition's routing changed (it was split) is not followed but handed back to the
+ * caller, which re-reads the Box's routing before retrying. A small fixed
+ * number of connections is kept per node address and used round-robin; each is shared by concurrent
+ * callers (a multiplexed connection keeps all of their requests in flight at once).
+ *
+ * <p>A streamed request is redirected the same way: the node answers {@code MOVED} before it asks
+ * for the body, so the body is still unread when the request moves to the named owner.
+ *
+ * <p>A read that tolerates staleness ({@link #callReplica}) is spread round-robin across the owner
+ * and the partition's standbys, as the assignment table (also cached with the TTL) names them. A
+ * standby not caught up within the request's bound answers {@code MOVED}, and the read moves to the
+ * owner. So that a client reads its own writes, every owner-routed request marks its partition for
+ * {@code readYourWritesMillis}, and a marked partition's reads go to the owner too.
  */
 final class ClusterRouter implements Router {
 
@@ -48,22 +65,139 @@ final class ClusterRouter implements Router {
     private final MessageCodec codec = new MessageCodec();
 
     private final TtlCache<String, NodeAddress> partitionCache;
+    private final TtlCache<String, PartitionAssignment> assignmentCache;
+    // "box#partition" of every partition this router sent an owner-routed request to recently.
+    private final TtlCache<String, Boolean> ownerRouted;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    // Keyed by "host:port", plus "#slot" when more than one connection is kept per node.
     private final ConcurrentMap<String, Connection> connections = new ConcurrentHashMap<>();
+    private final int connectionsPerNode;
+    private final AtomicInteger nextSlot = new AtomicInteger();
 
     ClusterRouter(Transport transport, CoordinationService coordination, long cacheTtlMillis,
                   Clock clock) {
+        this(transport, coordination, cacheTtlMillis, clock, 1);
+    }
+
+    ClusterRouter(Transport transport, CoordinationService coordination, long cacheTtlMillis,
+                  Clock clock, int connectionsPerNode) {
+        this(transport, coordination, cacheTtlMillis, clock, connectionsPerNode, 0);
+    }
+
+    /**
+     * @param readYourWritesMillis how long after an owner-routed request its partition's reads keep
+     *                             going to the owner; the client's staleness bound
+     */
+    ClusterRouter(Transport transport, CoordinationService coordination, long cacheTtlMillis,
+                  Clock clock, int connectionsPerNode, long readYourWritesMillis) {
+        if (connectionsPerNode < 1) {
+            throw new IllegalArgumentException("connectionsPerNode must be positive");
+        }
         this.transport = transport;
         this.coordination = coordination;
         this.partitionCache = new TtlCache<>(clock, cacheTtlMillis);
+        this.assignmentCache = new TtlCache<>(clock, cacheTtlMillis);
+        this.ownerRouted = new TtlCache<>(clock, readYourWritesMillis);
+        this.connectionsPerNode = connectionsPerNode;
     }
 
     @Override
     public Message callPartition(String box, int partition, Message request) {
+        return routePartition(box, partition, connection -> codec.decode(
+                connection.call(codec.encode(request))));
+    }
+
+    @Override
+    public Message uploadPartition(String box, int partition, Message request, InputStream body) {
+        return routePartition(box, partition, connection -> connection.supportsStreaming()
+                ? codec.decode(connection.upload(codec.encode(request), body))
+                : null);
+    }
+
+    @Override
+    public Message downloadPartition(String box, int partition, Message request,
+                                     Function<Message, OutputStream> body) {
+        return routePartition(box, partition, connection -> connection.supportsStreaming()
+                ? codec.decode(connection.download(codec.encode(request),
+                        header -> body.apply(codec.decode(header))))
+                : null);
+    }
+
+    @Override
+    public Message callReplica(String box, int partition, Message request) {
+        return routeReplica(box, partition, connection -> codec.decode(
+                connection.call(codec.encode(request))));
+    }
+
+    @Override
+    public Message downloadReplica(String box, int partition, Message request,
+                                   Function<Message, OutputStream> body) {
+        return routeReplica(box, partition, connection -> connection.supportsStreaming()
+                ? codec.decode(connection.download(codec.encode(request),
+                        header -> body.apply(codec.decode(header))))
+                : null);
+    }
+
+    /**
+     * Sends a stale-tolerant read to the next of the partition's owner and standbys, and to the
+     * owner instead when this router recently sent the partition an owner-routed request. A standby
+     * that answers {@code MOVED}, or cannot be reached, sends the read on to the owner.
+     */
+    private Message routeReplica(String box, int partition,
+                                 Function<Connection, Message> exchange) {
+        String cacheKey = box + "#" + partition;
+        if (ownerRouted.getIfFresh(cacheKey).isPresent()) {
+            return routeToOwner(box, partition, cacheKey, exchange);
+        }
+        List<Integer> standbys = standbysOf(box, partition);
+        int pick = Math.floorMod(nextReplica.getAndIncrement(), standbys.size() + 1);
+        if (pick == standbys.size()) {
+            return routeToOwner(box, partition, cacheKey, exchange);
+        }
+        Message response;
+        try {
+            response = send(addressOfNode(standbys.get(pick)), exchange);
+        } catch (StorageException streamFailed) {
+            throw streamFailed; // part of the body may already have been written
+        } catch (RuntimeException unreachable) {
+            return routeToOwner(box, partition, cacheKey, exchange);
+        }
+        if (response instanceof Message.MovedResponse) {
+            return routeToOwner(box, partition, cacheKey, exchange); // not fresh enough
+        }
+        return response;
+    }
+
+    /** The partition's standbys per the (cached) assignment table; empty if it names none. */
+    private List<Integer> standbysOf(String box, int partition) {
+        PartitionAssignment assignment = assignmentCache.get(CandyboxKeys.ASSIGNMENT_KEY,
+                key -> coordination.get(key)
+                        .map(v -> PartitionAssignment.decode(v.value()))
+                        .orElseGet(PartitionAssignment::empty));
+        return assignment.standbysOf(new PartitionAssignment.BoxPartition(box, partition));
+    }
+
+    /**
+     * Sends {@code exchange} to the partition's owner, following {@code MOVED} redirects, and marks
+     * the partition so this router's reads of it go to the owner for a while.
+     */
+    private Message routePartition(String box, int partition,
+                                   Function<Connection, Message> exchange) {
         String cacheKey = box + "#" + partition;
+        ownerRouted.put(cacheKey, Boolean.TRUE);
+        return routeToOwner(box, partition, cacheKey, exchange);
+    }
+
+    private Message routeToOwner(String box, int partition, String cacheKey,
+                                 Function<Connection, Message> exchange) {
         NodeAddress address = resolveOwner(box, partition, cacheKey);
         for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
-            Message response = send(address, request);
+            Message response = send(address, exchange);
             if (response instanceof Message.MovedResponse moved) {
+                if (moved.routingChanged()) {
+                    partitionCache.invalidate(cacheKey);
+                    return response; // the request may not belong to this partition any more
+                }
                 address = addressOfNode(moved.ownerNodeId());
                 partitionCache.put(cacheKey, address);
                 continue;
@@ -76,7 +210,8 @@ final class ClusterRouter implements Router {
 
     @Override
     public Message callAny(Message request) {
-        return send(anyMember(), request);
+        return send(anyMember(), connection -> codec.decode(
+                connection.call(codec.encode(request))));
     }
 
     private NodeAddress resolveOwner(String box, int partition, String cacheKey) {
@@ -106,17 +241,19 @@ final class ClusterRouter implements Router {
         return addressOfNode(members.get(0));
     }
 
-    private Message send(NodeAddress address, Message request) {
-        Connection connection = acquireConnection(address);
+    private Message send(NodeAddress address, Function<Connection, Message> exchange) {
+        String key = connectionKey(address);
+        Connection connection = acquireConnection(key, address);
         try {
-            Frame response = connection.call(codec.encode(request));
-            return codec.decode(response);
+            return exchange.apply(connection);
+        } catch (StorageException streamFailed) {
+            throw streamFailed; // a body cut short leaves the connection usable
         } catch (RuntimeException e) {
-            // Drop a broken connection so it is reopened on the next attempt.
-            Connection broken = connections.remove(address.key());
-            if (broken != null) {
+            // Drop a broken connection so it is reopened on the next attempt; leave a replacement
+            // another caller already opened alone.
+            if (connections.remove(key, connection)) {
                 try {
-                    broken.close();
+                    connection.close();
                 } catch (RuntimeException ignored) {
                     // best effort
                 }
@@ -133,8 +270,7 @@ final class ClusterRouter implements Router {
      * The cost of this lock-free approach is that two callers racing on a cold address may both
      * connect; the loser's surplus connection is closed and the winner's is shared.
      */
-    private Connection acquireConnection(NodeAddress address) {
-        String key = address.key();
+    private Connection acquireConnection(String key, NodeAddress address) {
         Connection existing = connections.get(key);
         if (existing != null) {
             return existing;
@@ -152,6 +288,14 @@ final class ClusterRouter implements Router {
         return fresh;
     }
 
+    private String connectionKey(NodeAddress address) {
+        if (connectionsPerNode == 1) {
+            return address.key();
+        }
+        int slot = Math.floorMod(nextSlot.getAndIncrement(), connectionsPerNode);
+        return address.key() + "#" + slot;
+    }
+
     @Override
     public void close() {
         for (Connection connection : connections.values()) {
@@ -15,6 +15,9 @@
  */
 package me.predatorray.candybox.client;
 
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.function.Function;
 import me.predatorray.candybox.protocol.Frame;
 import me.predatorray.candybox.protocol.Message;
 import me.predatorray.candybox.protocol.MessageCodec;
@@ -40,6 +43,35 @@ final class DirectRouter implements Router {
         return send(request);
     }
 
+    @Override
+    public Message uploadPartition(String box, int partition, Message request, InputStream body) {
+        if (!connection.supportsStreaming()) {
+            return null;
+        }
+        return codec.decode(connection.upload(codec.encode(request), body));
+    }
+
+    @Override
+    public Message downloadPartition(String box, int partition, Message request,
+                                     Function<Message, OutputStream> body) {
+        if (!connection.supportsStreaming()) {
+            return null;
+        }
+        return codec.decode(connection.download(codec.encode(request),
+                header -> body.apply(codec.decode(header))));
+    }
+
+    @Override
+    public Message callReplica(String box, int partition, Message request) {
+        return send(request);
+    }
+
+    @Override
+    public Message downloadReplica(String box, int partition, Message request,
+                                   Function<Message, OutputStream> body) {
+        return downloadPartition(box, partition, request, body);
+    }
+
     @Override
     public Message callAny(Message request) {
         return send(request);
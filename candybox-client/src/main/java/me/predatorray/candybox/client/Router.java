@@ -15,6 +15,9 @@
  */
 package me.predatorray.candybox.client;
 
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.function.Function;
 import me.predatorray.candybox.protocol.Message;
 
 /**
@@ -27,6 +30,32 @@ interface Router extends AutoCloseable {
     /** Routes a partition-scoped request to that partition's current owner. */
     Message callPartition(String box, int partition, Message request);
 
+    /**
+     * Routes a request whose body streams from {@code body} to the partition's owner. Returns
+     * {@code null}, having read nothing from {@code body}, when the owner's connection does not
+     * stream; the caller then sends the request inline.
+     */
+    Message uploadPartition(String box, int partition, Message request, InputStream body);
+
+    /**
+     * Routes a request that may be answered with a streamed body to the partition's owner, and
+     * returns the response; a streamed body has been written to {@code body.apply(response)} by
+     * then. Returns {@code null} when the owner's connection does not stream.
+     */
+    Message downloadPartition(String box, int partition, Message request,
+                              Function<Message, OutputStream> body);
+
+    /**
+     * Routes a read that tolerates staleness (its {@code maxStalenessMillis} is positive) to the
+     * partition's owner or one of its standbys, which answers if it is fresh enough; anything else it
+     * would answer is retried on the owner.
+     */
+    Message callReplica(String box, int partition, Message request);
+
+    /** {@link #downloadPartition} for a read that tolerates staleness; see {@link #callReplica}. */
+    Message downloadReplica(String box, int partition, Message request,
+                            Function<Message, OutputStream> body);
+
     /** Routes a cluster-wide request (createBox, boxInfo, listBoxes) to any reachable node. */
     Message callAny(Message request);
 
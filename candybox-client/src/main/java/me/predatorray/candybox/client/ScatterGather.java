@@ -0,0 +1,202 @@
+/*
+ * Copyright (c) 2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.predatorray.candybox.client;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+/**
+ * The client's per-partition fan-out: issues one call per partition concurrently, and merges
+ * per-partition listing pages through a heap that stops at the page limit, fetching a partition's
+ * next page only when the merge has drained the previous one and still needs rows.
+ *
+ * <p>A partition's first page is sized to roughly twice its fair share of the limit rather than the
+ * whole limit, so an N-partition listing transfers about {@code 2 × limit} rows instead of
+ * {@code N × limit}; a partition holding more than its share is topped up on demand.
+ */
+final class ScatterGather implements AutoCloseable {
+
+    /** A first page never asks for fewer rows than this (avoids many tiny refills). */
+    static final int MIN_FIRST_PAGE = 16;
+
+    private final ExecutorService executor;
+
+    ScatterGather() {
+        AtomicInteger ids = new AtomicInteger();
+        this.executor = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "candybox-client-fanout-" + ids.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Runs {@code call} for every partition in {@code [0, n)} concurrently and returns the results in
+     * partition order. Waits for every call before rethrowing the lowest partition's failure, so no
+     * call is still in flight once this returns.
+     */
+    <T> List<T> fanOut(int n, IntFunction<T> call) {
+        if (n == 1) {
+            return Collections.singletonList(call.apply(0));
+        }
+        List<CompletableFuture<T>> futures = new ArrayList<>(n);
+        for (int p = 0; p < n; p++) {
+            int partition = p;
+            futures.add(CompletableFuture.supplyAsync(() -> call.apply(partition), executor));
+        }
+        List<T> results = new ArrayList<>(n);
+        RuntimeException failure = null;
+        for (CompletableFuture<T> future : futures) {
+            try {
+                results.add(future.join());
+            } catch (CompletionException e) {
+                if (failure == null) {
+                    failure = e.getCause() instanceof RuntimeException re ? re : e;
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return results;
+    }
+
+    /** The first-page size to request from each of {@code partitions} for a {@code limit}-row page. */
+    static int firstPageSize(int limit, int partitions) {
+        int fairShare = (limit + partitions - 1) / partitions;
+        return Math.min(limit, Math.max(MIN_FIRST_PAGE, 2 * fairShare));
+    }
+
+    /**
+     * Merges {@code firstPages} (one per partition, each in {@code order}) into the first
+     * {@code limit} rows overall. When a truncated partition's rows run out before the page is full,
+     * {@code more} fetches its next page past the last row taken from it. Rows that compare equal
+     * (a common prefix several partitions roll up to) are returned once.
+     */
+    static <E> Merged<E> merge(List<Page<E>> firstPages, Comparator<? super E> order, int limit,
+                               PageSource<E> more) {
+        PriorityQueue<Cursor<E>> heap = new PriorityQueue<>(Math.max(1, firstPages.size()),
+                (a, b) -> order.compare(a.head(), b.head()));
+        List<E> rows = new ArrayList<>(Math.min(limit, 1024));
+        for (int p = 0; p < firstPages.size(); p++) {
+            Cursor<E> cursor = new Cursor<>(p, firstPages.get(p), null);
+            if (cursor.refillIfDrained(more, limit)) {
+                heap.add(cursor);
+            }
+        }
+        boolean truncated = false;
+        while (!heap.isEmpty()) {
+            Cursor<E> cursor = heap.poll();
+            E row = cursor.head();
+            boolean duplicate = !rows.isEmpty() && order.compare(rows.get(rows.size() - 1), row) == 0;
+            if (!duplicate && rows.size() == limit) {
+                truncated = true;
+                break;
+            }
+            cursor.next();
+            if (!duplicate) {
+                rows.add(row);
+            }
+            if (cursor.hasNext()) {
+                heap.add(cursor);
+            } else if (cursor.truncated) {
+                if (rows.size() == limit) {
+                    truncated = true;
+                    break;
+                }
+                if (cursor.refillIfDrained(more, limit - rows.size())) {
+                    heap.add(cursor);
+                }
+            }
+        }
+        return new Merged<>(rows, truncated);
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    /** Fetches a partition's next page of at most {@code limit} rows after {@code after}. */
+    @FunctionalInterface
+    interface PageSource<E> {
+        Page<E> fetch(int partition, E after, int limit);
+    }
+
+    /** One partition's rows in merge order, and whether the partition holds more past them. */
+    record Page<E>(List<E> rows, boolean truncated) {
+    }
+
+    /** The merged rows, and whether any partition holds rows past them. */
+    record Merged<E>(List<E> rows, boolean truncated) {
+    }
+
+    private static final class Cursor<E> {
+        private final int partition;
+        private List<E> rows;
+        private int index;
+        private boolean truncated;
+        private E last;
+
+        Cursor(int partition, Page<E> page, E last) {
+            this.partition = partition;
+            this.rows = page.rows();
+            this.truncated = page.truncated();
+            this.last = last;
+        }
+
+        E head() {
+            return rows.get(index);
+        }
+
+        boolean hasNext() {
+            return index < rows.size();
+        }
+
+        E next() {
+            last = rows.get(index++);
+            return last;
+        }
+
+        /**
+         * Makes sure the cursor has a head, fetching the next page if it ran dry but the partition
+         * has more. False once the partition is exhausted — or a refill makes no progress, which
+         * would otherwise spin.
+         */
+        boolean refillIfDrained(PageSource<E> more, int limit) {
+            if (hasNext()) {
+                return true;
+            }
+            if (!truncated) {
+                return false;
+            }
+            Page<E> page = more.fetch(partition, last, limit);
+            rows = page.rows();
+            index = 0;
+            truncated = page.truncated() && !rows.isEmpty();
+            return hasNext();
+        }
+    }
+}
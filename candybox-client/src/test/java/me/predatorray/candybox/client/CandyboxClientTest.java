@@ -18,14 +18,25 @@ package me.predatorray.candybox.client;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import me.predatorray.candybox.common.exception.NotOwnerException;
 import me.predatorray.candybox.protocol.Frame;
+import me.predatorray.candybox.protocol.FrameCodec;
 import me.predatorray.candybox.protocol.Message;
 import me.predatorray.candybox.protocol.MessageCodec;
+import me.predatorray.candybox.protocol.transport.ConnectionContext;
+import me.predatorray.candybox.protocol.transport.Exchange;
 import me.predatorray.candybox.protocol.transport.LoopbackTransport;
 import me.predatorray.candybox.protocol.transport.RequestHandler;
+import me.predatorray.candybox.protocol.transport.TcpTransport;
+import me.predatorray.candybox.protocol.transport.TcpTransportServer;
 import org.junit.jupiter.api.Test;
 
 /**
@@ -108,6 +119,103 @@ class CandyboxClientTest {
         }
     }
 
+    // ---- streamed bodies ------------------------------------------------------------------------
+
+    /** A one-partition node keeping Candies in a map, serving both inline and streamed bodies. */
+    private static final class StoringNode implements RequestHandler {
+        final Map<String, byte[]> candies = new ConcurrentHashMap<>();
+        final List<String> opcodes = new java.util.concurrent.CopyOnWriteArrayList<>();
+
+        @Override
+        public Frame handle(Frame request) {
+            return handle(new ConnectionContext(), request, Exchange.NONE);
+        }
+
+        @Override
+        public Frame handle(ConnectionContext context, Frame request, Exchange exchange) {
+            opcodes.add(request.opcode().name());
+            Message message = CODEC.decode(request);
+            try {
+                if (message instanceof Message.PutCandyStreamRequest put) {
+                    candies.put(put.key(), exchange.requestBody().readAllBytes());
+                } else if (message instanceof Message.PutCandyRequest put) {
+                    candies.put(put.key(), put.data());
+                } else if (message instanceof Message.UploadPartStreamRequest part) {
+                    byte[] data = exchange.requestBody().readAllBytes();
+                    candies.put(part.key() + "#" + part.partNumber(), data);
+                    return CODEC.encode(new Message.UploadPartResponse(1, data.length));
+                } else if (message instanceof Message.UploadPartRequest part) {
+                    candies.put(part.key() + "#" + part.partNumber(), part.data());
+                    return CODEC.encode(new Message.UploadPartResponse(1, part.data().length));
+                } else if (message instanceof Message.GetCandyStreamRequest get) {
+                    byte[] data = candies.get(get.key());
+                    if (data == null) {
+                        return CODEC.encode(new Message.NotFoundResponse());
+                    }
+                    exchange.respondWithBody(CODEC.encode(new Message.CandyStreamResponse(
+                            data.length, "text/plain", Map.of(), 3, 77))).write(data);
+                    return null;
+                } else if (message instanceof Message.GetCandyRequest get) {
+                    byte[] data = candies.get(get.key());
+                    return CODEC.encode(data == null ? new Message.NotFoundResponse()
+                            : new Message.CandyDataResponse(data.length, "text/plain", Map.of(), 3,
+                                    data));
+                } else if (message instanceof Message.BoxInfoRequest) {
+                    return CODEC.encode(new Message.BoxInfoResponse(1));
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return CODEC.encode(new Message.OkResponse());
+        }
+    }
+
+    private static void putGetAndUploadPartByStream(CandyboxClient client, StoringNode node) {
+        byte[] large = new byte[300_000];
+        java.util.Arrays.fill(large, (byte) 'x');
+        client.putCandy("my-box", "k", new ByteArrayInputStream(large), null, Map.of(), null);
+        assertThat(node.candies.get("k")).isEqualTo(large);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        client.getCandy("my-box", "k", out);
+        assertThat(out.toByteArray()).isEqualTo(large);
+
+        CandyboxClient.CandyInfo info = client.getCandy("my-box", "k",
+                meta -> OutputStream.nullOutputStream());
+        assertThat(info.contentLength()).isEqualTo(large.length);
+        assertThat(info.contentType()).isEqualTo("text/plain");
+        assertThatThrownBy(() -> client.getCandy("my-box", "absent", out))
+                .isInstanceOf(me.predatorray.candybox.common.exception.CandyNotFoundException.class);
+
+        CandyboxClient.PartUploadInfo part = client.uploadPart("my-box", "mp", "u", 2,
+                new ByteArrayInputStream(large));
+        assertThat(part.partLength()).isEqualTo(large.length);
+        assertThat(node.candies.get("mp#2")).isEqualTo(large);
+    }
+
+    @Test
+    void streamingOverloadsStreamOverAMultiplexedConnection() {
+        StoringNode node = new StoringNode();
+        try (TcpTransportServer server = new TcpTransportServer(0, node, new FrameCodec());
+             CandyboxClient client = new CandyboxClient(new TcpTransport(), "127.0.0.1",
+                     server.port())) {
+            putGetAndUploadPartByStream(client, node);
+        }
+        assertThat(node.opcodes).contains("PUT_CANDY_STREAM", "GET_CANDY_STREAM",
+                "UPLOAD_PART_STREAM").doesNotContain("PUT_CANDY", "GET_CANDY", "UPLOAD_PART");
+    }
+
+    @Test
+    void streamingOverloadsFallBackToInlineBodiesWithoutStreaming() {
+        StoringNode node = new StoringNode();
+        try (CandyboxClient client = new CandyboxClient(new LoopbackTransport(node), "ignored",
+                0)) {
+            putGetAndUploadPartByStream(client, node);
+        }
+        assertThat(node.opcodes).contains("PUT_CANDY", "GET_CANDY", "UPLOAD_PART")
+                .doesNotContain("PUT_CANDY_STREAM", "GET_CANDY_STREAM", "UPLOAD_PART_STREAM");
+    }
+
     // ---- ACL round trips + auth error mapping ------------------------------------------------
 
     /** Echoes ACL requests back as responses so both wire directions are exercised. */
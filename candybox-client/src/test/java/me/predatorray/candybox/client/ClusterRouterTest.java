@@ -22,10 +22,16 @@ import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import me.predatorray.candybox.common.ManualClock;
 import me.predatorray.candybox.common.SystemClock;
 import me.predatorray.candybox.common.exception.CandyboxException;
 import me.predatorray.candybox.common.exception.NotOwnerException;
+import me.predatorray.candybox.common.exception.StorageException;
 import me.predatorray.candybox.coordination.CandyboxKeys;
+import me.predatorray.candybox.coordination.PartitionAssignment;
+import me.predatorray.candybox.coordination.PartitionAssignment.BoxPartition;
 import me.predatorray.candybox.coordination.fake.InMemoryCoordinationService;
 import me.predatorray.candybox.protocol.Frame;
 import me.predatorray.candybox.protocol.Message;
@@ -36,8 +42,8 @@ import org.junit.jupiter.api.Test;
 
 /**
  * Drives {@link ClusterRouter} against a fake coordination service and a recording stub transport:
- * resolution by lease holder, redirect on {@code MOVED} using the named owner, route caching, and the
- * no-owner case.
+ * resolution by lease holder, redirect on {@code MOVED} using the named owner, route caching, the
+ * no-owner case, and the spreading of stale-tolerant reads over a partition's standbys.
  */
 class ClusterRouterTest {
 
@@ -108,6 +114,41 @@ class ClusterRouterTest {
         }
     }
 
+    @Test
+    void staleTolerantReadsAlternateBetweenOwnerAndStandbysExceptRightAfterAWrite() {
+        ManualClock clock = new ManualClock(1_000);
+        InMemoryCoordinationService coordination = coordinationWithMembers();
+        coordination.tryAcquireLease(CandyboxKeys.ownerResource("b", 0), 2, 10_000); // owner = node 2
+        BoxPartition bp = new BoxPartition("b", 0);
+        coordination.create(CandyboxKeys.ASSIGNMENT_KEY,
+                new PartitionAssignment(Map.of(bp, 2), Map.of(bp, List.of(1))).encode());
+        RecordingTransport transport = new RecordingTransport();
+
+        try (ClusterRouter router = new ClusterRouter(transport, coordination, 5_000, clock, 1,
+                1_000)) {
+            Message head = new Message.HeadCandyRequest("b", "k", 1_000);
+            router.callReplica("b", 0, head);
+            router.callReplica("b", 0, head);
+            assertThat(transport.contacted).containsExactly(1001, 2002);
+
+            // The standby on port 1001 redirects GETs, as one that fell behind the bound would.
+            Message get = router.callReplica("b", 0, new Message.GetCandyRequest("b", "k", 1_000));
+            assertThat(get).isInstanceOf(Message.OkResponse.class);
+            assertThat(transport.contacted).containsExactly(1001, 2002, 1001, 2002);
+
+            // An owner-routed request pins the partition's reads to the owner for the bound.
+            transport.contacted.clear();
+            router.callPartition("b", 0, new Message.DeleteCandyRequest("b", "k"));
+            router.callReplica("b", 0, head);
+            router.callReplica("b", 0, head);
+            assertThat(transport.contacted).containsExactly(2002, 2002, 2002);
+            clock.advance(1_000);
+            router.callReplica("b", 0, head);
+            router.callReplica("b", 0, head);
+            assertThat(transport.contacted).containsExactly(2002, 2002, 2002, 2002, 1001);
+        }
+    }
+
     @Test
     void throwsWhenBoxHasNoOwner() {
         InMemoryCoordinationService coordination = coordinationWithMembers();
@@ -118,6 +159,34 @@ class ClusterRouterTest {
         }
     }
 
+    @Test
+    void spreadsCallsRoundRobinOverThePerNodeConnectionPool() {
+        InMemoryCoordinationService coordination = coordinationWithMembers();
+        coordination.tryAcquireLease(CandyboxKeys.ownerResource("b", 0), 2, 10_000);
+        RecordingTransport recording = new RecordingTransport();
+        AtomicInteger opened = new AtomicInteger();
+        Transport counting = new Transport() {
+            @Override
+            public Connection connect(String host, int port) {
+                opened.incrementAndGet();
+                return recording.connect(host, port);
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+
+        try (ClusterRouter router = new ClusterRouter(counting, coordination, 5_000,
+                SystemClock.INSTANCE, 3)) {
+            for (int i = 0; i < 9; i++) {
+                router.callPartition("b", 0, new Message.GetCandyRequest("b", "k"));
+            }
+            assertThat(opened).hasValue(3);
+            assertThat(recording.contacted).hasSize(9);
+        }
+    }
+
     @Test
     void callAnyContactsAMember() {
         InMemoryCoordinationService coordination = coordinationWithMembers();
@@ -229,4 +298,71 @@ class ClusterRouterTest {
                     .isInstanceOf(IllegalStateException.class);
         }
     }
+
+    @Test
+    void streamedUploadFollowsMovedWithoutDrawingTheBodyEarly() throws Exception {
+        InMemoryCoordinationService coordination = coordinationWithMembers();
+        coordination.tryAcquireLease(CandyboxKeys.ownerResource("b", 0), 1, 10_000); // stale owner
+        List<Integer> opened = Collections.synchronizedList(new ArrayList<>());
+        // Node 1 answers MOVED before asking for the body; node 2 takes it, and fails downloads
+        // mid-stream on a connection that stays usable.
+        Transport streaming = new Transport() {
+            @Override
+            public Connection connect(String host, int port) {
+                opened.add(port);
+                return new Connection() {
+                    @Override
+                    public Frame call(Frame request) {
+                        return CODEC.encode(new Message.OkResponse());
+                    }
+
+                    @Override
+                    public boolean supportsStreaming() {
+                        return true;
+                    }
+
+                    @Override
+                    public Frame upload(Frame request, java.io.InputStream body) {
+                        if (port == 1001) {
+                            return CODEC.encode(new Message.MovedResponse(2));
+                        }
+                        try {
+                            return CODEC.encode(new Message.UploadPartResponse(0,
+                                    body.readAllBytes().length));
+                        } catch (java.io.IOException e) {
+                            throw new IllegalStateException(e);
+                        }
+                    }
+
+                    @Override
+                    public Frame download(Frame request,
+                                          java.util.function.Function<Frame, java.io.OutputStream> body) {
+                        throw new StorageException("Streamed response failed");
+                    }
+
+                    @Override
+                    public void close() {
+                    }
+                };
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        try (ClusterRouter router = new ClusterRouter(streaming, coordination, 5_000, SystemClock.INSTANCE)) {
+            Message response = router.uploadPartition("b", 0,
+                    new Message.UploadPartStreamRequest("b", "k", "u", 1),
+                    new java.io.ByteArrayInputStream(new byte[1234]));
+            assertThat(((Message.UploadPartResponse) response).partLength()).isEqualTo(1234);
+            assertThat(opened).containsExactly(1001, 2002);
+
+            assertThatThrownBy(() -> router.downloadPartition("b", 0,
+                    new Message.GetCandyStreamRequest("b", "k"),
+                    header -> java.io.OutputStream.nullOutputStream()))
+                    .isInstanceOf(StorageException.class);
+            router.callPartition("b", 0, new Message.GetCandyRequest("b", "k"));
+            assertThat(opened).containsExactly(1001, 2002); // the failed stream kept its connection
+        }
+    }
 }
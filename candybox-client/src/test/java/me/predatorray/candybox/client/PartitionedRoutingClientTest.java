@@ -59,7 +59,7 @@ class PartitionedRoutingClientTest {
     private static final class StubNode implements RequestHandler {
         final AtomicInteger boxInfoCalls = new AtomicInteger();
         final List<Message> requests = new ArrayList<>();
-        Map<Integer, Message.ListCandiesResponse> listPages = Map.of();
+        Map<Integer, List<String>> listKeys = Map.of(); // per partition, ascending
         Map<Integer, Message.ListMultipartUploadsResponse> uploadPages = Map.of();
 
         @Override
@@ -75,7 +75,7 @@ class PartitionedRoutingClientTest {
                 boxInfoCalls.incrementAndGet();
                 return new Message.BoxInfoResponse(PARTITIONS);
             } else if (message instanceof Message.ListCandiesRequest m) {
-                return listPages.get(m.partition());
+                return listPage(m);
             } else if (message instanceof Message.ListMultipartUploadsRequest m) {
                 return uploadPages.get(m.partition());
             } else if (message instanceof Message.GetCandyRequest) {
@@ -106,6 +106,44 @@ class PartitionedRoutingClientTest {
             return new Message.OkResponse();
         }
 
+        /**
+         * Pages the partition's keys past the cursor in the scan direction, rolling them up at the
+         * delimiter (forward only), like the engine.
+         */
+        private Message.ListCandiesResponse listPage(Message.ListCandiesRequest m) {
+            List<String> keys = new ArrayList<>(listKeys.getOrDefault(m.partition(), List.of()));
+            if (m.reverse()) {
+                java.util.Collections.reverse(keys);
+            }
+            List<Message.ListedCandy> rows = new ArrayList<>();
+            List<String> prefixes = new ArrayList<>();
+            String last = null;
+            String next = null;
+            for (String key : keys) {
+                if (m.startAfter() != null
+                        && (m.reverse() ? key.compareTo(m.startAfter()) >= 0
+                                : key.compareTo(m.startAfter()) <= 0)) {
+                    continue;
+                }
+                int at = m.delimiter() == null ? -1 : key.indexOf(m.delimiter());
+                String rolledUp = at < 0 ? null : key.substring(0, at + 1);
+                if (rolledUp != null && (rolledUp.equals(last) || rolledUp.equals(m.startAfter()))) {
+                    continue;
+                }
+                if (rows.size() + prefixes.size() == m.maxKeys()) {
+                    next = last;
+                    break;
+                }
+                if (rolledUp != null) {
+                    prefixes.add(rolledUp);
+                } else {
+                    rows.add(row(key));
+                }
+                last = rolledUp != null ? rolledUp : key;
+            }
+            return new Message.ListCandiesResponse(rows, prefixes, next);
+        }
+
         synchronized <T extends Message> List<T> recorded(Class<T> type) {
             List<T> out = new ArrayList<>();
             for (Message m : requests) {
@@ -124,9 +162,7 @@ class PartitionedRoutingClientTest {
     @Test
     void listMergesPartitionsInKeyOrderAndCachesTheDescriptor() {
         StubNode node = new StubNode();
-        node.listPages = Map.of(
-                0, new Message.ListCandiesResponse(List.of(row("a"), row("c")), null),
-                1, new Message.ListCandiesResponse(List.of(row("b"), row("d")), null));
+        node.listKeys = Map.of(0, List.of("a", "c"), 1, List.of("b", "d"));
         try (CandyboxClient client = new CandyboxClient(new LoopbackTransport(node), "x", 0)) {
             CandyboxClient.Listing page = client.listCandies("box", null, null, 3);
             assertThat(page.entries()).extracting(CandyboxClient.Listing.Entry::key)
@@ -146,20 +182,22 @@ class PartitionedRoutingClientTest {
     @Test
     void listHonorsPartitionTruncationAndReverseOrder() {
         StubNode node = new StubNode();
-        node.listPages = Map.of(
-                0, new Message.ListCandiesResponse(List.of(row("a")), "a"), // truncated partition
-                1, new Message.ListCandiesResponse(List.of(row("b")), null));
+        node.listKeys = Map.of(0, List.of("a", "c"), 1, List.of("b"));
         try (CandyboxClient client = new CandyboxClient(new LoopbackTransport(node), "x", 0)) {
-            CandyboxClient.Listing page = client.listCandies("box", null, null, 10);
-            // Fewer rows than maxKeys, but partition 0 had more: the page must carry a cursor.
-            assertThat(page.entries()).hasSize(2);
+            CandyboxClient.Listing page = client.listCandies("box", null, null, 2);
+            // Partition 0 still holds "c": the page must carry a cursor.
+            assertThat(page.entries()).extracting(CandyboxClient.Listing.Entry::key)
+                    .containsExactly("a", "b");
             assertThat(page.nextStartAfter()).isEqualTo("b");
+
+            CandyboxClient.Listing rest = client.listCandies("box", null, "b", 2);
+            assertThat(rest.entries()).extracting(CandyboxClient.Listing.Entry::key)
+                    .containsExactly("c");
+            assertThat(rest.isTruncated()).isFalse();
         }
 
         StubNode reverseNode = new StubNode();
-        reverseNode.listPages = Map.of(
-                0, new Message.ListCandiesResponse(List.of(row("c"), row("a")), null),
-                1, new Message.ListCandiesResponse(List.of(row("d"), row("b")), null));
+        reverseNode.listKeys = Map.of(0, List.of("a", "c"), 1, List.of("b", "d"));
         try (CandyboxClient client = new CandyboxClient(new LoopbackTransport(reverseNode), "x", 0)) {
             CandyboxClient.Listing page = client.listCandies("box", null, null, null, null, true, 10);
             assertThat(page.entries()).extracting(CandyboxClient.Listing.Entry::key)
@@ -167,6 +205,29 @@ class PartitionedRoutingClientTest {
         }
     }
 
+    @Test
+    void delimitedListMergesCommonPrefixesSharedByPartitionsOnce() {
+        StubNode node = new StubNode();
+        node.listKeys = Map.of(
+                0, List.of("a", "docs/1", "photos/1", "photos/3"),
+                1, List.of("docs/2", "photos/2", "z"));
+        try (CandyboxClient client = new CandyboxClient(new LoopbackTransport(node), "x", 0)) {
+            CandyboxClient.Listing page = client.listCandies("box", null, "/", null, 2);
+            assertThat(page.entries()).extracting(CandyboxClient.Listing.Entry::key)
+                    .containsExactly("a");
+            assertThat(page.commonPrefixes()).containsExactly("docs/");
+            assertThat(page.nextStartAfter()).isEqualTo("docs/");
+
+            CandyboxClient.Listing rest = client.listCandies("box", null, "/", "docs/", 10);
+            assertThat(rest.commonPrefixes()).containsExactly("photos/");
+            assertThat(rest.entries()).extracting(CandyboxClient.Listing.Entry::key)
+                    .containsExactly("z");
+            assertThat(rest.isTruncated()).isFalse();
+        }
+        assertThat(node.recorded(Message.ListCandiesRequest.class))
+                .extracting(Message.ListCandiesRequest::delimiter).containsOnly("/");
+    }
+
     @Test
     void deleteRangeFansOutToEveryPartition() {
         StubNode node = new StubNode();
@@ -174,11 +235,16 @@ class PartitionedRoutingClientTest {
             client.deleteRangeByPrefix("box", "logs/");
             client.deleteRange("box", "a", "m");
         }
+        // Each call fans out concurrently, so partitions may arrive in either order within a call.
         List<Message.DeleteRangeRequest> sent = node.recorded(Message.DeleteRangeRequest.class);
-        assertThat(sent).extracting(Message.DeleteRangeRequest::partition)
-                .containsExactly(0, 1, 0, 1);
-        assertThat(sent.get(0).prefix()).isEqualTo("logs/");
-        assertThat(sent.get(2).startKey()).isEqualTo("a");
+        assertThat(sent.subList(0, 2)).extracting(Message.DeleteRangeRequest::partition)
+                .containsExactlyInAnyOrder(0, 1);
+        assertThat(sent.subList(0, 2)).extracting(Message.DeleteRangeRequest::prefix)
+                .containsExactly("logs/", "logs/");
+        assertThat(sent.subList(2, 4)).extracting(Message.DeleteRangeRequest::partition)
+                .containsExactlyInAnyOrder(0, 1);
+        assertThat(sent.subList(2, 4)).extracting(Message.DeleteRangeRequest::startKey)
+                .containsExactly("a", "a");
     }
 
     @Test
@@ -284,10 +350,7 @@ class PartitionedRoutingClientTest {
 
     @Test
     void deleteBoxInvalidatesTheCachedDescriptor() {
-        StubNode node = new StubNode();
-        node.listPages = Map.of(
-                0, new Message.ListCandiesResponse(List.of(), null),
-                1, new Message.ListCandiesResponse(List.of(), null));
+        StubNode node = new StubNode(); // both partitions empty
         try (CandyboxClient client = new CandyboxClient(new LoopbackTransport(node), "x", 0)) {
             client.listCandies("box", null, null, 5);
             assertThat(node.boxInfoCalls.get()).isEqualTo(1);
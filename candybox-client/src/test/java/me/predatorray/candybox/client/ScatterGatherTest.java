@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.predatorray.candybox.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class ScatterGatherTest {
+
+    /** Serves ascending per-partition integers in pages, recording every follow-up fetch. */
+    private static final class Partitions implements ScatterGather.PageSource<Integer> {
+        final List<List<Integer>> data;
+        final List<Integer> refilled = new ArrayList<>();
+
+        Partitions(List<List<Integer>> data) {
+            this.data = data;
+        }
+
+        @Override
+        public ScatterGather.Page<Integer> fetch(int partition, Integer after, int limit) {
+            if (after != null) {
+                refilled.add(partition);
+            }
+            List<Integer> rows = new ArrayList<>();
+            for (int v : data.get(partition)) {
+                if (after == null || v > after) {
+                    if (rows.size() == limit) {
+                        return new ScatterGather.Page<>(rows, true);
+                    }
+                    rows.add(v);
+                }
+            }
+            return new ScatterGather.Page<>(rows, false);
+        }
+
+        List<ScatterGather.Page<Integer>> firstPages(int pageSize) {
+            List<ScatterGather.Page<Integer>> pages = new ArrayList<>();
+            for (int p = 0; p < data.size(); p++) {
+                pages.add(fetch(p, null, pageSize));
+            }
+            return pages;
+        }
+    }
+
+    @Test
+    void mergeStopsAtTheLimitAndReportsTruncation() {
+        Partitions source = new Partitions(List.of(List.of(1, 4, 7), List.of(2, 5), List.of(3, 6)));
+        ScatterGather.Merged<Integer> merged = ScatterGather.merge(source.firstPages(10),
+                Comparator.naturalOrder(), 4, source);
+        assertThat(merged.rows()).containsExactly(1, 2, 3, 4);
+        assertThat(merged.truncated()).isTrue();
+
+        ScatterGather.Merged<Integer> all = ScatterGather.merge(source.firstPages(10),
+                Comparator.naturalOrder(), 10, source);
+        assertThat(all.rows()).containsExactly(1, 2, 3, 4, 5, 6, 7);
+        assertThat(all.truncated()).isFalse();
+        assertThat(source.refilled).isEmpty();
+    }
+
+    @Test
+    void onlyDrainedPartitionsAreRefilled() {
+        List<Integer> dense = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            dense.add(i);
+        }
+        // Partition 0 holds every small key; the others only large ones.
+        Partitions source = new Partitions(List.of(dense, List.of(100, 101), List.of(200)));
+        ScatterGather.Merged<Integer> merged = ScatterGather.merge(source.firstPages(4),
+                Comparator.naturalOrder(), 12, source);
+        assertThat(merged.rows()).containsExactlyElementsOf(dense.subList(0, 12));
+        assertThat(merged.truncated()).isTrue();
+        assertThat(source.refilled).containsOnly(0); // partitions 1 and 2 were never re-asked
+    }
+
+    @Test
+    void aPageFilledExactlyAtTheLimitIsNotRefilled() {
+        Partitions source = new Partitions(List.of(List.of(1, 2, 3), List.of(9)));
+        ScatterGather.Merged<Integer> merged = ScatterGather.merge(source.firstPages(2),
+                Comparator.naturalOrder(), 2, source);
+        assertThat(merged.rows()).containsExactly(1, 2);
+        assertThat(merged.truncated()).isTrue();
+        assertThat(source.refilled).isEmpty();
+    }
+
+    @Test
+    void mergeFollowsTheGivenOrder() {
+        Partitions source = new Partitions(List.of(List.of(1, 3), List.of(2)));
+        ScatterGather.Merged<Integer> merged = ScatterGather.merge(
+                List.of(new ScatterGather.Page<>(List.of(3, 1), false),
+                        new ScatterGather.Page<>(List.of(2), false)),
+                Comparator.<Integer>naturalOrder().reversed(), 10, source);
+        assertThat(merged.rows()).containsExactly(3, 2, 1);
+    }
+
+    @Test
+    void firstPageIsTwiceTheFairShareWithinBounds() {
+        assertThat(ScatterGather.firstPageSize(1000, 1)).isEqualTo(1000);
+        assertThat(ScatterGather.firstPageSize(1000, 8)).isEqualTo(250);
+        assertThat(ScatterGather.firstPageSize(1000, 64)).isEqualTo(32);
+        assertThat(ScatterGather.firstPageSize(1000, 1000)).isEqualTo(ScatterGather.MIN_FIRST_PAGE);
+        assertThat(ScatterGather.firstPageSize(5, 64)).isEqualTo(5);
+    }
+
+    @Test
+    void fanOutRunsPartitionsConcurrentlyAndKeepsPartitionOrder() throws Exception {
+        CountDownLatch allStarted = new CountDownLatch(4);
+        try (ScatterGather scatterGather = new ScatterGather()) {
+            List<Integer> results = scatterGather.fanOut(4, p -> {
+                allStarted.countDown();
+                try {
+                    // Completes only if every partition's call is in flight at once.
+                    assertThat(allStarted.await(10, TimeUnit.SECONDS)).isTrue();
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+                return p * 10;
+            });
+            assertThat(results).containsExactly(0, 10, 20, 30);
+        }
+    }
+
+    @Test
+    void fanOutRethrowsTheLowestPartitionsFailureAfterAllComplete() {
+        List<Integer> completed = java.util.Collections.synchronizedList(new ArrayList<>());
+        try (ScatterGather scatterGather = new ScatterGather()) {
+            assertThatThrownBy(() -> scatterGather.fanOut(3, p -> {
+                if (p > 0) {
+                    throw new IllegalStateException("partition " + p);
+                }
+                completed.add(p);
+                return p;
+            })).isInstanceOf(IllegalStateException.class).hasMessage("partition 1");
+        }
+        assertThat(completed).containsExactly(0);
+    }
+}
@@ -34,6 +34,10 @@ import me.predatorray.candybox.common.auth.ObjectAcl;
  * ({@link #contentLength()}, {@link #chunkSize()}, {@link #crc32c()}, {@link #segments()}) are kept
  * for callers that don't care about parts — derived from the part list.
  *
+ * <p><b>v4:</b> a Candy below the inline threshold is stored as a single {@linkplain Part#isInline()
+ * inline} part — its bytes ride in the locator itself, so it has no {@link #segments()} and reads,
+ * copies, renames, compaction and GC all treat it as Syrup-free.
+ *
  * @param hlc             the HLC timestamp (LWW key)
  * @param type            PUT or DELETE
  * @param contentType     optional MIME-ish content type (nullable)
@@ -75,6 +79,13 @@ public record CandyLocator(
                 newAcl);
     }
 
+    /** The same locator with its bytes re-homed — Syrup defragmentation moves a Candy's parts to a
+     * fresh Syrup without changing its content, metadata or ACL. */
+    public CandyLocator withParts(Hlc newHlc, List<Part> newParts) {
+        return new CandyLocator(newHlc, type, contentType, userMetadata, createdAtMillis, newParts,
+                acl);
+    }
+
     public boolean isTombstone() {
         return type == LocatorType.DELETE;
     }
@@ -154,4 +165,12 @@ public record CandyLocator(
         return new CandyLocator(hlc, LocatorType.PUT, contentType, userMetadata, createdAtMillis,
                 List.of(part), acl);
     }
+
+    /** A PUT locator carrying the whole Candy {@code payload} as one inline part (format v4). */
+    public static CandyLocator inline(Hlc hlc, byte[] payload, int chunkSize, String contentType,
+                                      Map<String, String> userMetadata, int crc32c,
+                                      long createdAtMillis, ObjectAcl acl) {
+        return new CandyLocator(hlc, LocatorType.PUT, contentType, userMetadata, createdAtMillis,
+                List.of(Part.inline(payload, chunkSize, crc32c)), acl);
+    }
 }
@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.predatorray.candybox.common;
+
+/**
+ * The keys one partition owns: those whose {@link Partitioning#hashOf routing hash} leaves
+ * {@code residue} modulo {@code modulus}. An unsplit partition {@code p} of an {@code n}-partition
+ * Box has scope {@code (n, p)}; splitting a scope halves it into {@link #left()} and {@link #right()},
+ * which between them own exactly its keys.
+ */
+public record HashScope(int modulus, int residue) {
+
+    /** Every key: the scope of a Box with one partition, and of an engine outside any Box layout. */
+    public static final HashScope ALL = new HashScope(1, 0);
+
+    /** A scope is never split below this modulus, so the children's residues stay in range. */
+    public static final int MAX_MODULUS = 1 << 30;
+
+    public HashScope {
+        if (modulus < 1 || modulus > MAX_MODULUS) {
+            throw new IllegalArgumentException("modulus must be in [1, 2^30]: " + modulus);
+        }
+        if (residue < 0 || residue >= modulus) {
+            throw new IllegalArgumentException("residue must be in [0, " + modulus + "): " + residue);
+        }
+    }
+
+    /** Whether {@code key} falls in this scope. */
+    public boolean contains(CandyKey key) {
+        return contains(key.utf8Bytes());
+    }
+
+    /** Whether a key given as UTF-8 bytes falls in this scope. */
+    public boolean contains(byte[] keyUtf8) {
+        return modulus == 1 || Partitioning.hashOf(keyUtf8) % modulus == residue;
+    }
+
+    /** Whether every key of {@code other} falls in this scope, i.e. {@code other} is split from it. */
+    public boolean covers(HashScope other) {
+        return other.modulus % modulus == 0 && other.residue % modulus == residue;
+    }
+
+    /** Whether this scope can be split further. */
+    public boolean isSplittable() {
+        return modulus <= MAX_MODULUS / 2;
+    }
+
+    /** The half of this scope that keeps its residue. */
+    public HashScope left() {
+        return new HashScope(checkedDouble(), residue);
+    }
+
+    /** The half of this scope whose residue gains the next hash bit. */
+    public HashScope right() {
+        return new HashScope(checkedDouble(), residue + modulus);
+    }
+
+    private int checkedDouble() {
+        if (!isSplittable()) {
+            throw new IllegalStateException("Scope " + this + " cannot be split further");
+        }
+        return modulus * 2;
+    }
+}
@@ -15,7 +15,9 @@
  */
 package me.predatorray.candybox.common;
 
+import java.util.Arrays;
 import java.util.List;
+import java.util.Objects;
 
 /**
  * One uniformly-chunked run of a Candy's bytes. A single-PUT Candy has exactly one {@code Part}; a
@@ -28,13 +30,21 @@ import java.util.List;
  * short-tail chunk can sit in the middle of the object — that is exactly why the data model has to be
  * 1:N rather than a flat segment list (see {@code MULTIPART_RANGE_PLAN.md}).
  *
+ * <p>A small part may instead carry its bytes {@linkplain #isInline() inline}: {@code inline} holds
+ * the whole payload and there are no segments, so the part lives entirely in the locator — reading
+ * it costs no Syrup I/O and it pins no Syrup against GC (locator format v4).
+ *
  * @param partLength total payload bytes in this part (sum of chunk payloads, excluding the 4-byte
  *                   per-chunk CRC header)
  * @param chunkSize  Syrup chunk size used when writing this part; uniform within the part
  * @param crc32c     end-to-end CRC32C of this part's payload bytes
- * @param segments   contiguous Syrup runs holding this part's chunks, in order; never empty for a Part
+ * @param segments   contiguous Syrup runs holding this part's chunks, in order; never empty for a
+ *                   non-empty Syrup-backed Part, always empty for an inline one
+ * @param inline     the payload of an inline part, {@code partLength} bytes; {@code null} when the
+ *                   bytes live in Syrups. Shared, not copied — never modify it
  */
-public record Part(long partLength, int chunkSize, int crc32c, List<SegmentRef> segments) {
+public record Part(long partLength, int chunkSize, int crc32c, List<SegmentRef> segments,
+                   byte[] inline) {
 
     public Part {
         if (partLength < 0) {
@@ -44,11 +54,31 @@ public record Part(long partLength, int chunkSize, int crc32c, List<SegmentRef>
             throw new IllegalArgumentException("chunkSize must be positive");
         }
         segments = segments == null ? List.of() : List.copyOf(segments);
-        if (partLength > 0 && segments.isEmpty()) {
+        if (inline != null) {
+            if (inline.length != partLength || !segments.isEmpty()) {
+                throw new IllegalArgumentException(
+                        "an inline Part carries exactly partLength bytes and no segments");
+            }
+        } else if (partLength > 0 && segments.isEmpty()) {
             throw new IllegalArgumentException("a non-empty Part must carry at least one segment");
         }
     }
 
+    /** A Syrup-backed part. */
+    public Part(long partLength, int chunkSize, int crc32c, List<SegmentRef> segments) {
+        this(partLength, chunkSize, crc32c, segments, null);
+    }
+
+    /** An inline part holding {@code payload} (not copied), whose CRC32C is {@code crc32c}. */
+    public static Part inline(byte[] payload, int chunkSize, int crc32c) {
+        return new Part(payload.length, chunkSize, crc32c, List.of(), payload);
+    }
+
+    /** Whether this part's bytes are held in the locator rather than in Syrups. */
+    public boolean isInline() {
+        return inline != null;
+    }
+
     /** Total entry count across this part's segments. */
     public long entryCount() {
         long n = 0;
@@ -57,4 +87,22 @@ public record Part(long partLength, int chunkSize, int crc32c, List<SegmentRef>
         }
         return n;
     }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Part p && partLength == p.partLength && chunkSize == p.chunkSize
+                && crc32c == p.crc32c && segments.equals(p.segments) && Arrays.equals(inline, p.inline);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Objects.hash(partLength, chunkSize, crc32c, segments)
+                + Arrays.hashCode(inline);
+    }
+
+    @Override
+    public String toString() {
+        return "Part[partLength=" + partLength + ", chunkSize=" + chunkSize + ", crc32c=" + crc32c
+                + (inline != null ? ", inline" : ", segments=" + segments) + "]";
+    }
 }
@@ -23,8 +23,9 @@ import me.predatorray.candybox.common.checksum.Crc32c;
  * both always agree on which partition a key lives in. CRC32C over the key's UTF-8 bytes keeps it
  * deterministic across JVMs and architectures and dependency-free.
  *
- * <p>A Box's partition count is fixed at creation (see {@code BoxDescriptor}), so the mapping for a
- * given Box never changes.
+ * <p>A Box's base partition count is fixed at creation (see {@code BoxDescriptor}). A partition that
+ * outgrows its node is split in two by hash range, each half owning the keys of one more bit of
+ * {@link #hashOf}: a {@link HashScope} names the keys a partition owns.
  */
 public final class Partitioning {
 
@@ -41,6 +42,16 @@ public final class Partitioning {
         if (partitionCount <= 0) {
             throw new IllegalArgumentException("partitionCount must be positive: " + partitionCount);
         }
-        return (Crc32c.of(keyUtf8) & 0x7fffffff) % partitionCount;
+        return hashOf(keyUtf8) % partitionCount;
+    }
+
+    /** The non-negative routing hash of {@code key}; a partition is a residue class of it. */
+    public static int hashOf(String key) {
+        return hashOf(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** The routing hash of a key given as UTF-8 bytes. */
+    public static int hashOf(byte[] keyUtf8) {
+        return Crc32c.of(keyUtf8) & 0x7fffffff;
     }
 }
@@ -0,0 +1,30 @@
+/*
+ * Copyright (c) 2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.predatorray.candybox.common.concurrent;
+
+/**
+ * A point-in-time snapshot of a weighted cache's counters. {@code hits}, {@code misses} and
+ * {@code evictions} are cumulative; {@code weightedSize} and {@code capacity} are gauges in the
+ * cache's weight unit (bytes for the block cache).
+ *
+ * @param hits         lookups served from the cache
+ * @param misses       lookups that found nothing
+ * @param evictions    entries dropped to stay within capacity (explicit invalidations excluded)
+ * @param weightedSize current total weight of the cached entries
+ * @param capacity     configured maximum total weight
+ */
+public record CacheStats(long hits, long misses, long evictions, long weightedSize, long capacity) {
+}
@@ -0,0 +1,251 @@
+/*
+ * Copyright (c) 2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.predatorray.candybox.common.concurrent;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import java.util.function.ToLongBiFunction;
+
+/**
+ * A thread-safe, weight-bounded cache with scan-resistant segmented-LRU eviction, for hot paths that
+ * many threads hit at once (unlike {@link BoundedLruCache}, which serializes every call on one lock).
+ *
+ * <p>Entries are spread over independently locked shards by key hash. Within a shard a new entry
+ * lands in the <em>probation</em> segment and is promoted to the <em>protected</em> segment on its
+ * second hit; protected overflow is demoted back to probation, and eviction always takes the
+ * least-recently-used probation entry first. A one-pass scan therefore only churns probation and
+ * cannot flush the repeatedly-read working set out of protected.
+ *
+ * <p>Each entry is charged the weight its {@code weigher} reports; an entry heavier than one shard's
+ * share of the capacity is not cached. A capacity of {@code 0} disables caching (every lookup
+ * misses). Null keys and null values are rejected so {@link #get} returning {@code null}
+ * unambiguously means "absent".
+ *
+ * @param <K> key type
+ * @param <V> value type
+ */
+public final class SegmentedLruCache<K, V> {
+
+    /** Share of each shard's capacity reserved for the protected segment. */
+    private static final double PROTECTED_RATIO = 0.8;
+
+    private final long capacity;
+    private final ToLongBiFunction<? super K, ? super V> weigher;
+    private final List<Shard<K, V>> shards;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param capacity   the maximum total weight to retain; {@code 0} disables caching
+     * @param shardCount number of independently locked shards (each gets an equal share of capacity)
+     * @param weigher    the weight charged for one entry; must be non-negative
+     */
+    public SegmentedLruCache(long capacity, int shardCount,
+                             ToLongBiFunction<? super K, ? super V> weigher) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("capacity must be non-negative: " + capacity);
+        }
+        if (shardCount <= 0) {
+            throw new IllegalArgumentException("shardCount must be positive: " + shardCount);
+        }
+        this.capacity = capacity;
+        this.weigher = weigher;
+        long perShard = capacity / shardCount;
+        List<Shard<K, V>> shards = new ArrayList<>(shardCount);
+        for (int i = 0; i < shardCount; i++) {
+            shards.add(new Shard<>(perShard));
+        }
+        this.shards = List.copyOf(shards);
+    }
+
+    /** The configured maximum total weight. */
+    public long capacity() {
+        return capacity;
+    }
+
+    /** Returns the value cached under {@code key} (recording a hit or a miss), or {@code null}. */
+    public V get(K key) {
+        V value = shardFor(requireNonNull(key, "key")).get(key);
+        (value == null ? misses : hits).increment();
+        return value;
+    }
+
+    /** Caches {@code value} under {@code key}, replacing any previous value and evicting as needed. */
+    public void put(K key, V value) {
+        requireNonNull(key, "key");
+        requireNonNull(value, "value");
+        long weight = weigher.applyAsLong(key, value);
+        if (weight < 0) {
+            throw new IllegalArgumentException("weight must be non-negative: " + weight);
+        }
+        evictions.add(shardFor(key).put(key, value, weight));
+    }
+
+    /** Removes the entry for {@code key}, if any. */
+    public void invalidate(K key) {
+        shardFor(requireNonNull(key, "key")).remove(key);
+    }
+
+    /**
+     * Removes every entry whose key matches {@code filter}. Visits the whole cache, so it is meant for
+     * rare bulk invalidation (e.g. a deleted file), not per-request use.
+     *
+     * @return the number of entries removed
+     */
+    public int invalidateIf(Predicate<? super K> filter) {
+        int removed = 0;
+        for (Shard<K, V> shard : shards) {
+            removed += shard.removeIf(filter);
+        }
+        return removed;
+    }
+
+    /** The current total weight of cached entries (never exceeds {@link #capacity()}). */
+    public long weightedSize() {
+        long total = 0;
+        for (Shard<K, V> shard : shards) {
+            total += shard.weight();
+        }
+        return total;
+    }
+
+    /** A snapshot of the hit/miss/eviction counters and the current size. */
+    public CacheStats stats() {
+        return new CacheStats(hits.sum(), misses.sum(), evictions.sum(), weightedSize(), capacity);
+    }
+
+    private Shard<K, V> shardFor(K key) {
+        int h = key.hashCode();
+        h ^= h >>> 16; // spread high bits so power-of-two shard counts use them too
+        return shards.get(Math.floorMod(h, shards.size()));
+    }
+
+    private static <T> T requireNonNull(T value, String what) {
+        if (value == null) {
+            throw new NullPointerException(what + " must not be null");
+        }
+        return value;
+    }
+
+    private record Entry<V>(V value, long weight) {
+    }
+
+    /** One lock-guarded slice of the cache: two insertion-ordered segments, eldest first. */
+    private static final class Shard<K, V> {
+        private final long capacity;
+        private final long protectedCapacity;
+        private final LinkedHashMap<K, Entry<V>> probation = new LinkedHashMap<>();
+        private final LinkedHashMap<K, Entry<V>> protectedSegment = new LinkedHashMap<>();
+        private long probationWeight;
+        private long protectedWeight;
+
+        Shard(long capacity) {
+            this.capacity = capacity;
+            this.protectedCapacity = (long) (capacity * PROTECTED_RATIO);
+        }
+
+        synchronized V get(K key) {
+            Entry<V> e = protectedSegment.remove(key);
+            if (e != null) {
+                protectedSegment.put(key, e); // re-insert as most recently used
+                return e.value();
+            }
+            e = probation.remove(key);
+            if (e == null) {
+                return null;
+            }
+            // Second touch: promote, demoting protected overflow back to the head of probation.
+            probationWeight -= e.weight();
+            protectedSegment.put(key, e);
+            protectedWeight += e.weight();
+            while (protectedWeight > protectedCapacity && !protectedSegment.isEmpty()) {
+                Iterator<Map.Entry<K, Entry<V>>> eldest = protectedSegment.entrySet().iterator();
+                Map.Entry<K, Entry<V>> demoted = eldest.next();
+                eldest.remove();
+                protectedWeight -= demoted.getValue().weight();
+                probation.put(demoted.getKey(), demoted.getValue());
+                probationWeight += demoted.getValue().weight();
+            }
+            return e.value();
+        }
+
+        /** Inserts into probation; returns the number of entries evicted to make room. */
+        synchronized int put(K key, V value, long weight) {
+            removeLocked(key);
+            if (weight > capacity) {
+                return 0; // would displace the whole shard; serve it uncached
+            }
+            probation.put(key, new Entry<>(value, weight));
+            probationWeight += weight;
+            int evicted = 0;
+            while (probationWeight + protectedWeight > capacity) {
+                LinkedHashMap<K, Entry<V>> victims = probation.isEmpty() ? protectedSegment : probation;
+                Iterator<Map.Entry<K, Entry<V>>> eldest = victims.entrySet().iterator();
+                long w = eldest.next().getValue().weight();
+                eldest.remove();
+                if (victims == probation) {
+                    probationWeight -= w;
+                } else {
+                    protectedWeight -= w;
+                }
+                evicted++;
+            }
+            return evicted;
+        }
+
+        synchronized void remove(K key) {
+            removeLocked(key);
+        }
+
+        synchronized int removeIf(Predicate<? super K> filter) {
+            List<K> matching = new ArrayList<>();
+            for (K key : probation.keySet()) {
+                if (filter.test(key)) {
+                    matching.add(key);
+                }
+            }
+            for (K key : protectedSegment.keySet()) {
+                if (filter.test(key)) {
+                    matching.add(key);
+                }
+            }
+            matching.forEach(this::removeLocked);
+            return matching.size();
+        }
+
+        synchronized long weight() {
+            return probationWeight + protectedWeight;
+        }
+
+        private void removeLocked(K key) {
+            Entry<V> e = probation.remove(key);
+            if (e != null) {
+                probationWeight -= e.weight();
+                return;
+            }
+            e = protectedSegment.remove(key);
+            if (e != null) {
+                protectedWeight -= e.weight();
+            }
+        }
+    }
+}
@@ -29,12 +29,27 @@ public final class CandyboxConfig {
     private final SizeLimits sizeLimits;
     private final Map<LedgerRole, QuorumConfig> quorums;
     private final int bloomBitsPerKey;
+    private final long blockCacheCapacityBytes;
+    private final int ledgerHandleCacheCapacity;
+    private final long ledgerHandleIdleMillis;
     private final long memtableFlushThresholdBytes;
+    private final int memtableMaxImmutables;
+    private final int flushThreads;
+    private final int recoveryThreads;
+    private final long walGroupCommitMaxDelayMicros;
+    private final int walGroupCommitMaxBytes;
     private final long syrupRolloverBytes;
+    private final int syrupAppendWindow;
+    private final int syrupReadAheadWindow;
+    private final int inlineThresholdBytes;
+    private final int syrupDefragLiveRatioPercent;
+    private final long syrupDefragMaxBytesPerRound;
     private final int maxFrameSizeBytes;
     private final long ownershipLeaseTtlMillis;
     private final long leaseRenewIntervalMillis;
     private final long routerCacheTtlMillis;
+    private final int routerConnectionsPerNode;
+    private final long followerReadMaxStalenessMillis;
     private final long compactionIntervalMillis;
     private final long maxClockSkewMillis;
     private final long tombstoneGcGraceMillis;
@@ -48,18 +63,36 @@ public final class CandyboxConfig {
     private final int partitionsPerBoxDefault;
     private final long balancerIntervalMillis;
     private final int balancerMaxMovesPerRound;
+    private final int balancerMaxSplitsPerRound;
+    private final int standbyReplicas;
+    private final long standbyCatchUpIntervalMillis;
     private final long renameIntentAbandonMillis;
 
     private CandyboxConfig(Builder b) {
         this.sizeLimits = b.sizeLimits;
         this.quorums = new EnumMap<>(b.quorums);
         this.bloomBitsPerKey = b.bloomBitsPerKey;
+        this.blockCacheCapacityBytes = b.blockCacheCapacityBytes;
+        this.ledgerHandleCacheCapacity = b.ledgerHandleCacheCapacity;
+        this.ledgerHandleIdleMillis = b.ledgerHandleIdleMillis;
         this.memtableFlushThresholdBytes = b.memtableFlushThresholdBytes;
+        this.memtableMaxImmutables = b.memtableMaxImmutables;
+        this.flushThreads = b.flushThreads;
+        this.recoveryThreads = b.recoveryThreads;
+        this.walGroupCommitMaxDelayMicros = b.walGroupCommitMaxDelayMicros;
+        this.walGroupCommitMaxBytes = b.walGroupCommitMaxBytes;
         this.syrupRolloverBytes = b.syrupRolloverBytes;
+        this.syrupAppendWindow = b.syrupAppendWindow;
+        this.syrupReadAheadWindow = b.syrupReadAheadWindow;
+        this.inlineThresholdBytes = b.inlineThresholdBytes;
+        this.syrupDefragLiveRatioPercent = b.syrupDefragLiveRatioPercent;
+        this.syrupDefragMaxBytesPerRound = b.syrupDefragMaxBytesPerRound;
         this.maxFrameSizeBytes = b.maxFrameSizeBytes;
         this.ownershipLeaseTtlMillis = b.ownershipLeaseTtlMillis;
         this.leaseRenewIntervalMillis = b.leaseRenewIntervalMillis;
         this.routerCacheTtlMillis = b.routerCacheTtlMillis;
+        this.routerConnectionsPerNode = b.routerConnectionsPerNode;
+        this.followerReadMaxStalenessMillis = b.followerReadMaxStalenessMillis;
         this.compactionIntervalMillis = b.compactionIntervalMillis;
         this.maxClockSkewMillis = b.maxClockSkewMillis;
         this.tombstoneGcGraceMillis = b.tombstoneGcGraceMillis;
@@ -73,6 +106,9 @@ public final class CandyboxConfig {
         this.partitionsPerBoxDefault = b.partitionsPerBoxDefault;
         this.balancerIntervalMillis = b.balancerIntervalMillis;
         this.balancerMaxMovesPerRound = b.balancerMaxMovesPerRound;
+        this.balancerMaxSplitsPerRound = b.balancerMaxSplitsPerRound;
+        this.standbyReplicas = b.standbyReplicas;
+        this.standbyCatchUpIntervalMillis = b.standbyCatchUpIntervalMillis;
         this.renameIntentAbandonMillis = b.renameIntentAbandonMillis;
     }
 
@@ -96,14 +132,110 @@ public final class CandyboxConfig {
         return bloomBitsPerKey;
     }
 
+    /**
+     * Byte budget of the node-wide cache of decoded SSTable data blocks, shared by every partition
+     * the node owns. {@code 0} disables it (every block read goes to the bookies).
+     */
+    public long blockCacheCapacityBytes() {
+        return blockCacheCapacityBytes;
+    }
+
+    /**
+     * Read-only ledger handles (Syrup and SSTable) a node keeps open between reads, so a hot ledger is
+     * not re-opened against the metadata store on every GET. {@code 0} disables the cache.
+     */
+    public int ledgerHandleCacheCapacity() {
+        return ledgerHandleCacheCapacity;
+    }
+
+    /** How long a cached ledger handle may sit unused before it is closed. */
+    public long ledgerHandleIdleMillis() {
+        return ledgerHandleIdleMillis;
+    }
+
     public long memtableFlushThresholdBytes() {
         return memtableFlushThresholdBytes;
     }
 
+    /**
+     * Sealed memtables a Box may queue for the background flush before writes stall with
+     * {@code BUSY}; the active memtable keeps absorbing writes while fewer are queued.
+     */
+    public int memtableMaxImmutables() {
+        return memtableMaxImmutables;
+    }
+
+    /** Node-wide threads writing sealed memtables to L0 SSTables; {@code 0} flushes on the writer. */
+    public int flushThreads() {
+        return flushThreads;
+    }
+
+    /**
+     * Partitions a node recovers at once on takeover or failover, and likewise the threads opening a
+     * recovering partition's SSTable readers. {@code 0} recovers one partition at a time on the
+     * caller, opening its readers in sequence.
+     */
+    public int recoveryThreads() {
+        return recoveryThreads;
+    }
+
+    /**
+     * How long a WAL group-commit leader waits for concurrent writes to join its batch before writing
+     * it. {@code 0} batches only writes that queued while the previous batch was in flight.
+     */
+    public long walGroupCommitMaxDelayMicros() {
+        return walGroupCommitMaxDelayMicros;
+    }
+
+    /** Serialized-size cap of one group-committed WAL entry (a larger single record goes alone). */
+    public int walGroupCommitMaxBytes() {
+        return walGroupCommitMaxBytes;
+    }
+
     public long syrupRolloverBytes() {
         return syrupRolloverBytes;
     }
 
+    /**
+     * Max Syrup chunk appends a single Candy write keeps in flight to the bookies before waiting for
+     * the oldest acknowledgement. {@code 1} restores one-round-trip-per-chunk synchronous writes.
+     */
+    public int syrupAppendWindow() {
+        return syrupAppendWindow;
+    }
+
+    /**
+     * Max Syrup chunk reads a single Candy read (GET, Range GET, defragmentation copy) keeps in
+     * flight ahead of what it has emitted; it also bounds that read's buffered chunks. {@code 1}
+     * restores one-round-trip-per-chunk reads.
+     */
+    public int syrupReadAheadWindow() {
+        return syrupReadAheadWindow;
+    }
+
+    /**
+     * Candies smaller than this are stored inline in their locator instead of in a Syrup, saving a
+     * BookKeeper write on PUT and a read on GET. {@code 0} disables inlining. A Candy whose locator
+     * would then exceed {@code maxLocatorBytes} (large metadata, a small cap) still goes to a Syrup.
+     */
+    public int inlineThresholdBytes() {
+        return inlineThresholdBytes;
+    }
+
+    /**
+     * A sealed Syrup whose live chunks are at or below this percentage of its entries is
+     * defragmented: its surviving Candies are copied to a fresh Syrup so the old one can be
+     * reclaimed. {@code 0} disables defragmentation.
+     */
+    public int syrupDefragLiveRatioPercent() {
+        return syrupDefragLiveRatioPercent;
+    }
+
+    /** The most Candy bytes a node copies for Syrup defragmentation per maintenance round. */
+    public long syrupDefragMaxBytesPerRound() {
+        return syrupDefragMaxBytesPerRound;
+    }
+
     public int maxFrameSizeBytes() {
         return maxFrameSizeBytes;
     }
@@ -122,6 +254,24 @@ public final class CandyboxConfig {
         return routerCacheTtlMillis;
     }
 
+    /**
+     * How many connections the client keeps to each node, used round-robin. A multiplexed connection
+     * already carries many requests at once, so more than one only helps spread large transfers.
+     */
+    public int routerConnectionsPerNode() {
+        return routerConnectionsPerNode;
+    }
+
+    /**
+     * How stale a cluster client's reads may be. {@code 0} sends every read to the partition's owner;
+     * a positive bound spreads GET, HEAD and list requests across the owner and its standbys, any of
+     * which answers if it caught up with the owner within the bound. A partition the client wrote to
+     * within the bound is still read from its owner, so the client reads its own writes.
+     */
+    public long followerReadMaxStalenessMillis() {
+        return followerReadMaxStalenessMillis;
+    }
+
     /** How often a node runs background compaction over its owned Boxes. {@code 0} disables it. */
     public long compactionIntervalMillis() {
         return compactionIntervalMillis;
@@ -185,6 +335,27 @@ public final class CandyboxConfig {
         return balancerMaxMovesPerRound;
     }
 
+    /**
+     * Max partitions a node splits per balancing round because each alone outweighs a node's fair
+     * share of the cluster load. {@code 0} disables splitting.
+     */
+    public int balancerMaxSplitsPerRound() {
+        return balancerMaxSplitsPerRound;
+    }
+
+    /**
+     * Warm standbys the balancer designates per partition: nodes that tail the owner's manifest and
+     * WAL and are preferred as its failover target. {@code 0} disables standbys.
+     */
+    public int standbyReplicas() {
+        return standbyReplicas;
+    }
+
+    /** How often a standby polls the owner's manifest and WALs for new entries. */
+    public long standbyCatchUpIntervalMillis() {
+        return standbyCatchUpIntervalMillis;
+    }
+
     /**
      * How long a source-side cross-partition rename intent may sit without its destination completion
      * marker appearing before it is abandoned (the rename never reached the destination; the source
@@ -198,12 +369,27 @@ public final class CandyboxConfig {
         private SizeLimits sizeLimits = SizeLimits.defaults();
         private Map<LedgerRole, QuorumConfig> quorums = new EnumMap<>(QuorumConfig.defaults());
         private int bloomBitsPerKey = 10;
+        private long blockCacheCapacityBytes = 64L << 20;     // 64 MiB node-wide; 0 disables
+        private int ledgerHandleCacheCapacity = 1024;          // open read handles node-wide; 0 disables
+        private long ledgerHandleIdleMillis = 60_000L;         // 1 min unused before a handle closes
         private long memtableFlushThresholdBytes = 4L << 20;   // 4 MiB
+        private int memtableMaxImmutables = 2;                 // sealed memtables queued per Box
+        private int flushThreads = 2;                          // node-wide background flushers
+        private int recoveryThreads = 8;                       // partitions recovered concurrently
+        private long walGroupCommitMaxDelayMicros = 0L;        // batch only what queued meanwhile
+        private int walGroupCommitMaxBytes = 1 << 20;          // 1 MiB per WAL entry
         private long syrupRolloverBytes = 1L << 30;            // 1 GiB
+        private int syrupAppendWindow = 4;                     // chunk appends in flight per write
+        private int syrupReadAheadWindow = 4;                  // chunk reads in flight per read
+        private int inlineThresholdBytes = 4 << 10;            // 4 KiB; 0 disables inlining
+        private int syrupDefragLiveRatioPercent = 50;          // 0 disables Syrup defragmentation
+        private long syrupDefragMaxBytesPerRound = 256L << 20; // 256 MiB copied per maintenance round
         private int maxFrameSizeBytes = 16 << 20;              // 16 MiB protocol cap
         private long ownershipLeaseTtlMillis = 10_000L;        // 10s lease
         private long leaseRenewIntervalMillis = 3_000L;        // renew well within the TTL; 0 disables
         private long routerCacheTtlMillis = 5_000L;            // client Box->owner cache TTL
+        private int routerConnectionsPerNode = 1;              // multiplexed, so one usually suffices
+        private long followerReadMaxStalenessMillis = 0L;      // 0 reads from owners only
         private long compactionIntervalMillis = 0L;            // background compaction; 0 disables
         private long maxClockSkewMillis = 300_000L;            // 5 min HLC skew bound
         private long tombstoneGcGraceMillis = 24L * 3600 * 1000; // 24h late-write window
@@ -217,6 +403,9 @@ public final class CandyboxConfig {
         private int partitionsPerBoxDefault = 8;                        // write spread vs. per-engine cost
         private long balancerIntervalMillis = 0L;                       // balancing round; 0 disables
         private int balancerMaxMovesPerRound = 4;                       // migration rate limit
+        private int balancerMaxSplitsPerRound = 0;                      // hot-partition splits; 0 disables
+        private int standbyReplicas = 0;                                // warm followers; 0 disables
+        private long standbyCatchUpIntervalMillis = 200L;               // standby tail poll period
         private long renameIntentAbandonMillis = 60_000L;               // abandon a stuck rename intent
 
         public Builder sizeLimits(SizeLimits v) {
@@ -234,16 +423,81 @@ public final class CandyboxConfig {
             return this;
         }
 
+        public Builder blockCacheCapacityBytes(long v) {
+            this.blockCacheCapacityBytes = v;
+            return this;
+        }
+
+        public Builder ledgerHandleCacheCapacity(int v) {
+            this.ledgerHandleCacheCapacity = v;
+            return this;
+        }
+
+        public Builder ledgerHandleIdleMillis(long v) {
+            this.ledgerHandleIdleMillis = v;
+            return this;
+        }
+
         public Builder memtableFlushThresholdBytes(long v) {
             this.memtableFlushThresholdBytes = v;
             return this;
         }
 
+        public Builder memtableMaxImmutables(int v) {
+            this.memtableMaxImmutables = v;
+            return this;
+        }
+
+        public Builder flushThreads(int v) {
+            this.flushThreads = v;
+            return this;
+        }
+
+        public Builder recoveryThreads(int v) {
+            this.recoveryThreads = v;
+            return this;
+        }
+
+        public Builder walGroupCommitMaxDelayMicros(long v) {
+            this.walGroupCommitMaxDelayMicros = v;
+            return this;
+        }
+
+        public Builder walGroupCommitMaxBytes(int v) {
+            this.walGroupCommitMaxBytes = v;
+            return this;
+        }
+
         public Builder syrupRolloverBytes(long v) {
             this.syrupRolloverBytes = v;
             return this;
         }
 
+        public Builder syrupAppendWindow(int v) {
+            this.syrupAppendWindow = v;
+            return this;
+        }
+
+        public Builder syrupReadAheadWindow(int v) {
+            this.syrupReadAheadWindow = v;
+            return this;
+        }
+
+        public Builder inlineThresholdBytes(int v) {
+            this.inlineThresholdBytes = v;
+            return this;
+        }
+
+        public Builder syrupDefragLiveRatioPercent(int v) {
+            this.syrupDefragLiveRatioPercent = v;
+            return this;
+        }
+
+        public Builder syrupDefragMaxBytesPerRound(long v) {
+            this.syrupDefragMaxBytesPerRound = v;
+            return this;
+        }
+
         public Builder maxFrameSizeBytes(int v) {
             this.maxFrameSizeBytes = v;
             return this;
@@ -264,6 +518,16 @@ public final class CandyboxConfig {
             return this;
         }
 
+        public Builder routerConnectionsPerNode(int v) {
+            this.routerConnectionsPerNode = v;
+            return this;
+        }
+
+        public Builder followerReadMaxStalenessMillis(long v) {
+            this.followerReadMaxStalenessMillis = v;
+            return this;
+        }
+
         public Builder compactionIntervalMillis(long v) {
             this.compactionIntervalMillis = v;
             return this;
@@ -329,6 +593,21 @@ public final class CandyboxConfig {
             return this;
         }
 
+        public Builder balancerMaxSplitsPerRound(int v) {
+            this.balancerMaxSplitsPerRound = v;
+            return this;
+        }
+
+        public Builder standbyReplicas(int v) {
+            this.standbyReplicas = v;
+            return this;
+        }
+
+        public Builder standbyCatchUpIntervalMillis(long v) {
+            this.standbyCatchUpIntervalMillis = v;
+            return this;
+        }
+
         public Builder renameIntentAbandonMillis(long v) {
             this.renameIntentAbandonMillis = v;
             return this;
@@ -338,6 +617,45 @@ public final class CandyboxConfig {
             if (l0StallThreshold < l0CompactionTrigger) {
                 throw new IllegalArgumentException("l0StallThreshold must be >= l0CompactionTrigger");
             }
+            if (blockCacheCapacityBytes < 0) {
+                throw new IllegalArgumentException("blockCacheCapacityBytes must be non-negative");
+            }
+            if (ledgerHandleCacheCapacity < 0) {
+                throw new IllegalArgumentException("ledgerHandleCacheCapacity must be non-negative");
+            }
+            if (ledgerHandleIdleMillis <= 0) {
+                throw new IllegalArgumentException("ledgerHandleIdleMillis must be positive");
+            }
+            if (memtableMaxImmutables < 1) {
+                throw new IllegalArgumentException("memtableMaxImmutables must be positive");
+            }
+            if (flushThreads < 0) {
+                throw new IllegalArgumentException("flushThreads must be non-negative");
+            }
+            if (recoveryThreads < 0) {
+                throw new IllegalArgumentException("recoveryThreads must be non-negative");
+            }
+            if (walGroupCommitMaxDelayMicros < 0) {
+                throw new IllegalArgumentException("walGroupCommitMaxDelayMicros must be non-negative");
+            }
+            if (walGroupCommitMaxBytes < 1) {
+                throw new IllegalArgumentException("walGroupCommitMaxBytes must be positive");
+            }
+            if (syrupAppendWindow < 1) {
+                throw new IllegalArgumentException("syrupAppendWindow must be positive");
+            }
+            if (syrupReadAheadWindow < 1) {
+                throw new IllegalArgumentException("syrupReadAheadWindow must be positive");
+            }
+            if (inlineThresholdBytes < 0) {
+                throw new IllegalArgumentException("inlineThresholdBytes must be non-negative");
+            }
+            if (syrupDefragLiveRatioPercent < 0 || syrupDefragLiveRatioPercent > 100) {
+                throw new IllegalArgumentException("syrupDefragLiveRatioPercent must be in [0, 100]");
+            }
+            if (syrupDefragMaxBytesPerRound < 1) {
+                throw new IllegalArgumentException("syrupDefragMaxBytesPerRound must be positive");
+            }
             if (multipartMinPartBytes < 0) {
                 throw new IllegalArgumentException("multipartMinPartBytes must be non-negative");
             }
@@ -350,6 +668,22 @@ public final class CandyboxConfig {
             if (balancerMaxMovesPerRound < 1) {
                 throw new IllegalArgumentException("balancerMaxMovesPerRound must be positive");
             }
+            if (balancerMaxSplitsPerRound < 0) {
+                throw new IllegalArgumentException("balancerMaxSplitsPerRound must be non-negative");
+            }
+            if (standbyReplicas < 0) {
+                throw new IllegalArgumentException("standbyReplicas must be non-negative");
+            }
+            if (standbyCatchUpIntervalMillis <= 0) {
+                throw new IllegalArgumentException("standbyCatchUpIntervalMillis must be positive");
+            }
+            if (routerConnectionsPerNode < 1) {
+                throw new IllegalArgumentException("routerConnectionsPerNode must be positive");
+            }
+            if (followerReadMaxStalenessMillis < 0) {
+                throw new IllegalArgumentException(
+                        "followerReadMaxStalenessMillis must be non-negative");
+            }
             return new CandyboxConfig(this);
         }
     }
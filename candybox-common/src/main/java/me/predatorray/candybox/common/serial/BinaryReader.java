@@ -116,11 +116,31 @@ public final class BinaryReader {
         return out;
     }
 
+    /** Reads {@code len} bytes with no length prefix (the counterpart of {@code writeRaw}). */
+    public byte[] readRaw(int len) {
+        require(len);
+        byte[] out = new byte[len];
+        System.arraycopy(buf, pos, out, 0, len);
+        pos += len;
+        return out;
+    }
+
     public String readString() {
         return new String(readBytes(), StandardCharsets.UTF_8);
     }
 
-    /** Number of unread bytes remaining. */
+    /** Skips {@code n} bytes without copying them. */
+    public void skip(int n) {
+        require(n);
+        pos += n;
+    }
+
+    /** The absolute offset of the next unread byte in the backing array. */
+    public int position() {
+        return pos;
+    }
+
+        /** Number of unread bytes remaining. */
     public int remaining() {
         return limit - pos;
     }
@@ -31,11 +31,12 @@ import me.predatorray.candybox.common.exception.LimitExceededException;
 import me.predatorray.candybox.common.exception.SerializationException;
 
 /**
- * Versioned binary codec for {@link CandyLocator}. <b>v3 layout</b> (big-endian; varints where
- * noted) — v3 appends the object's owner principal and ACL grants after the part list:
+ * Versioned binary codec for {@link CandyLocator}. <b>v4 layout</b> (big-endian; varints where
+ * noted) — v3 appended the object's owner principal and ACL grants after the part list; v4 lets a
+ * part carry its bytes inline:
  *
  * <pre>
- *   byte    formatVersion (= 3)
+ *   byte    formatVersion (= 4, or 3 when no part is inline)
  *   byte    locator type code (PUT=1, DELETE=2)
  *   long    hlc.physicalMillis
  *   varint  hlc.logicalCounter
@@ -49,19 +50,23 @@ import me.predatorray.candybox.common.exception.SerializationException;
  *       varint  chunkSize
  *       int     crc32c
  *       varint  segment count         [+ {varlong syrupId, varlong firstEntryId, varlong lastEntryId}]
+ *       (v4: a segment count of 0 on a non-empty part means partLength inline payload bytes follow)
  *   byte    owner present?            [+ string "Type:name"]
  *   varint  grant count               [+ string "grantee:OP[+OP...]"]
  * </pre>
  *
  * <p>A {@code DELETE} tombstone serializes with {@code part count = 0}. A v1 single-part Candy is the
- * same shape with {@code part count = 1}.
+ * same shape with {@code part count = 1}. A locator without inline parts is still written as v3, so
+ * nodes that predate v4 keep reading everything but the inlined Candies; both versions are readable.
  *
  * <p>Every encode is checked against the configured {@code maxLocatorBytes} (default 256 KiB in v2 —
  * enough room for the ~200 KiB needed to hold an S3-cap 10,000-part multipart object).
  */
 public final class CandyLocatorSerializer {
 
-    public static final byte FORMAT_VERSION = 3;
+    public static final byte FORMAT_VERSION = 4;
+    /** The version written for a locator with no inline part; identical to v4 in that case. */
+    public static final byte FORMAT_VERSION_NO_INLINE = 3;
 
     private CandyLocatorSerializer() {
     }
@@ -71,8 +76,9 @@ public final class CandyLocatorSerializer {
     }
 
     public static byte[] serialize(CandyLocator locator, int maxLocatorBytes) {
+        List<Part> parts = locator.parts();
         BinaryWriter w = new BinaryWriter(64);
-        w.writeByte(FORMAT_VERSION);
+        w.writeByte(hasInlinePart(parts) ? FORMAT_VERSION : FORMAT_VERSION_NO_INLINE);
         w.writeByte(locator.type().code());
         Hlc hlc = locator.hlc();
         w.writeLong(hlc.physicalMillis());
@@ -94,19 +100,9 @@ public final class CandyLocatorSerializer {
             w.writeString(e.getValue());
         }
 
-        List<Part> parts = locator.parts();
         w.writeVarInt(parts.size());
         for (Part p : parts) {
-            w.writeVarLong(p.partLength());
-            w.writeVarInt(p.chunkSize());
-            w.writeInt(p.crc32c());
-            List<SegmentRef> segs = p.segments();
-            w.writeVarInt(segs.size());
-            for (SegmentRef s : segs) {
-                w.writeVarLong(s.syrupId());
-                w.writeVarLong(s.firstEntryId());
-                w.writeVarLong(s.lastEntryId());
-            }
+            writePart(w, p);
         }
 
         ObjectAcl acl = locator.acl();
@@ -135,7 +131,7 @@ public final class CandyLocatorSerializer {
 
     public static CandyLocator deserialize(BinaryReader r) {
         int version = r.readByte();
-        if (version != FORMAT_VERSION) {
+        if (version != FORMAT_VERSION && version != FORMAT_VERSION_NO_INLINE) {
             throw new SerializationException("Unsupported CandyLocator format version: " + version);
         }
         LocatorType type = LocatorType.fromCode(r.readByte());
@@ -155,15 +151,7 @@ public final class CandyLocatorSerializer {
         int partCount = r.readVarInt();
         List<Part> parts = new ArrayList<>(partCount);
         for (int p = 0; p < partCount; p++) {
-            long partLength = r.readVarLong();
-            int chunkSize = r.readVarInt();
-            int crc32c = r.readInt();
-            int segCount = r.readVarInt();
-            List<SegmentRef> segments = new ArrayList<>(segCount);
-            for (int i = 0; i < segCount; i++) {
-                segments.add(new SegmentRef(r.readVarLong(), r.readVarLong(), r.readVarLong()));
-            }
-            parts.add(new Part(partLength, chunkSize, crc32c, segments));
+            parts.add(readPart(r));
         }
 
         String owner = r.readBoolean() ? r.readString() : null;
@@ -176,4 +164,56 @@ public final class CandyLocatorSerializer {
         return new CandyLocator(hlc, type, contentType, md, createdAtMillis, parts,
                 new ObjectAcl(owner, grants));
     }
+
+    /**
+     * Writes one Part record: the v3 shape, except that an inline part writes a segment count of 0
+     * followed by its payload. A non-empty part never has zero segments otherwise, so the record
+     * stays unambiguous; the protocol's locator relay shares this encoding.
+     */
+    public static void writePart(BinaryWriter w, Part p) {
+        w.writeVarLong(p.partLength());
+        w.writeVarInt(p.chunkSize());
+        w.writeInt(p.crc32c());
+        if (p.isInline() && p.partLength() > 0) {
+            w.writeVarInt(0);
+            w.writeRaw(p.inline());
+            return;
+        }
+        List<SegmentRef> segs = p.segments();
+        w.writeVarInt(segs.size());
+        for (SegmentRef s : segs) {
+            w.writeVarLong(s.syrupId());
+            w.writeVarLong(s.firstEntryId());
+            w.writeVarLong(s.lastEntryId());
+        }
+    }
+
+    /** Reads a Part record written by {@link #writePart}. */
+    public static Part readPart(BinaryReader r) {
+        long partLength = r.readVarLong();
+        int chunkSize = r.readVarInt();
+        int crc32c = r.readInt();
+        int segCount = r.readVarInt();
+        if (segCount == 0 && partLength > 0) {
+            if (partLength > r.remaining()) {
+                throw new SerializationException("Inline part of " + partLength
+                        + " bytes overruns the buffer");
+            }
+            return Part.inline(r.readRaw((int) partLength), chunkSize, crc32c);
+        }
+        List<SegmentRef> segments = new ArrayList<>(segCount);
+        for (int i = 0; i < segCount; i++) {
+            segments.add(new SegmentRef(r.readVarLong(), r.readVarLong(), r.readVarLong()));
+        }
+        return new Part(partLength, chunkSize, crc32c, segments);
+    }
+
+    private static boolean hasInlinePart(List<Part> parts) {
+        for (Part p : parts) {
+            if (p.isInline() && p.partLength() > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
 }
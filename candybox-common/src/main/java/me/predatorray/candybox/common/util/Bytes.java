@@ -48,6 +48,33 @@ public final class Bytes {
         return out;
     }
 
+    /** Length of the longest common prefix of {@code a} and {@code b}. */
+    public static int commonPrefixLength(byte[] a, byte[] b) {
+        int mismatch = java.util.Arrays.mismatch(a, b);
+        return mismatch < 0 ? a.length : mismatch;
+    }
+
+    /**
+     * A short array {@code s} with {@code lower <= s < upper}, for index keys that only need to
+     * separate two adjacent runs (LevelDB's {@code FindShortestSeparator}). Keeps the common prefix
+     * and bumps the first differing byte of {@code lower} when that still sorts below {@code upper};
+     * otherwise returns {@code lower} itself. Requires {@code lower < upper}.
+     */
+    public static byte[] shortestSeparator(byte[] lower, byte[] upper) {
+        int shared = commonPrefixLength(lower, upper);
+        if (shared >= lower.length || shared >= upper.length) {
+            return lower; // one is a prefix of the other: nothing shorter fits between them
+        }
+        int diff = lower[shared] & 0xFF;
+        if (diff < 0xFF && diff + 1 < (upper[shared] & 0xFF) && shared + 1 < lower.length) {
+            byte[] out = new byte[shared + 1];
+            System.arraycopy(lower, 0, out, 0, shared + 1);
+            out[shared] = (byte) (diff + 1);
+            return out;
+        }
+        return lower;
+    }
+
     /** Compares two arrays byte-by-byte treating each byte as unsigned (0..255). */
     public static int compare(byte[] a, byte[] b) {
         int min = Math.min(a.length, b.length);
@@ -62,4 +62,32 @@ class PartitioningTest {
         assertThatThrownBy(() -> Partitioning.partitionOf("k", -3))
                 .isInstanceOf(IllegalArgumentException.class);
     }
+
+    @Test
+    void splitHalvesAScopeIntoTwoDisjointScopesCoveringIt() {
+        HashScope scope = new HashScope(8, 3);
+        HashScope left = scope.left();
+        HashScope right = scope.right();
+        assertThat(left).isEqualTo(new HashScope(16, 3));
+        assertThat(right).isEqualTo(new HashScope(16, 11));
+        int inScope = 0;
+        for (int i = 0; i < 2000; i++) {
+            CandyKey key = CandyKey.of("key/" + i);
+            boolean owned = scope.contains(key);
+            assertThat(owned).isEqualTo(Partitioning.partitionOf(key.value(), 8) == 3);
+            // Exactly one half owns each of the scope's keys, and neither owns any other key.
+            assertThat(left.contains(key) ^ right.contains(key)).isEqualTo(owned);
+            inScope += owned ? 1 : 0;
+        }
+        assertThat(inScope).isPositive();
+        assertThat(HashScope.ALL.contains(CandyKey.of("anything"))).isTrue();
+    }
+
+    @Test
+    void scopesStopSplittingAtTheMaximumModulus() {
+        HashScope deepest = new HashScope(HashScope.MAX_MODULUS, 5);
+        assertThat(deepest.isSplittable()).isFalse();
+        assertThatThrownBy(deepest::left).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> new HashScope(4, 4)).isInstanceOf(IllegalArgumentException.class);
+    }
 }
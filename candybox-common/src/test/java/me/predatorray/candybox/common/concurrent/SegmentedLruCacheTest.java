@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.predatorray.candybox.common.concurrent;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import org.junit.jupiter.api.Test;
+
+class SegmentedLruCacheTest {
+
+    /** One shard, every entry weighs 1: capacity counts entries (protected segment holds 8 of 10). */
+    private static SegmentedLruCache<Integer, String> unitCache(long capacity) {
+        return new SegmentedLruCache<>(capacity, 1, (k, v) -> 1);
+    }
+
+    @Test
+    void rejectsInvalidArgumentsAndNulls() {
+        assertThatThrownBy(() -> new SegmentedLruCache<Integer, String>(-1, 1, (k, v) -> 1))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new SegmentedLruCache<Integer, String>(10, 0, (k, v) -> 1))
+                .isInstanceOf(IllegalArgumentException.class);
+        SegmentedLruCache<Integer, String> cache = unitCache(4);
+        assertThatThrownBy(() -> cache.put(null, "v")).isInstanceOf(NullPointerException.class);
+        assertThatThrownBy(() -> cache.put(1, null)).isInstanceOf(NullPointerException.class);
+        assertThatThrownBy(() -> cache.get(null)).isInstanceOf(NullPointerException.class);
+    }
+
+    @Test
+    void countsHitsMissesAndEvictionsWithinTheWeightBudget() {
+        SegmentedLruCache<Integer, String> cache = new SegmentedLruCache<>(10, 1, (k, v) -> v.length());
+        cache.put(1, "aaaa");
+        cache.put(2, "bbbb");
+        assertThat(cache.get(1)).isEqualTo("aaaa");
+        assertThat(cache.get(3)).isNull();
+
+        cache.put(3, "cccc"); // 12 > 10: evicts the probation LRU (2); 1 was promoted
+        assertThat(cache.weightedSize()).isEqualTo(8);
+        assertThat(cache.get(2)).isNull();
+        assertThat(cache.stats()).isEqualTo(new CacheStats(1, 2, 1, 8, 10));
+    }
+
+    @Test
+    void aOnePassScanDoesNotEvictTheProtectedWorkingSet() {
+        SegmentedLruCache<Integer, String> cache = unitCache(10);
+        for (int hot = 0; hot < 4; hot++) {
+            cache.put(hot, "hot");
+            cache.get(hot); // second touch promotes to protected
+        }
+        for (int scanned = 100; scanned < 200; scanned++) {
+            cache.put(scanned, "scan"); // a plain LRU would have flushed the hot keys by now
+        }
+        for (int hot = 0; hot < 4; hot++) {
+            assertThat(cache.get(hot)).isEqualTo("hot");
+        }
+        assertThat(cache.weightedSize()).isEqualTo(10);
+    }
+
+    @Test
+    void overweightEntriesAreNotCachedAndZeroCapacityDisablesCaching() {
+        SegmentedLruCache<Integer, String> cache = new SegmentedLruCache<>(4, 1, (k, v) -> v.length());
+        cache.put(1, "too-long");
+        assertThat(cache.get(1)).isNull();
+
+        SegmentedLruCache<Integer, String> disabled = unitCache(0);
+        disabled.put(1, "v");
+        assertThat(disabled.get(1)).isNull();
+        assertThat(disabled.stats().misses()).isEqualTo(1);
+    }
+
+    @Test
+    void invalidateIfDropsMatchingKeysFromBothSegments() {
+        SegmentedLruCache<Integer, String> cache = new SegmentedLruCache<>(100, 4, (k, v) -> 1);
+        for (int i = 0; i < 20; i++) {
+            cache.put(i, "v" + i);
+            if (i % 2 == 0) {
+                cache.get(i);
+            }
+        }
+        assertThat(cache.invalidateIf(k -> k % 5 == 0)).isEqualTo(4);
+        cache.invalidate(1);
+        assertThat(cache.get(10)).isNull();
+        assertThat(cache.get(1)).isNull();
+        assertThat(cache.get(2)).isEqualTo("v2");
+        assertThat(cache.weightedSize()).isEqualTo(15);
+        assertThat(cache.stats().evictions()).isZero();
+    }
+
+    // ---- multi-threaded -------------------------------------------------------------------------
+
+    @Test
+    void staysWithinCapacityUnderConcurrentReadersAndWriters() throws Exception {
+        SegmentedLruCache<Integer, Integer> cache = new SegmentedLruCache<>(64, 8, (k, v) -> 1);
+        ConcurrentLinkedQueue<Throwable> failures = new ConcurrentLinkedQueue<>();
+        ConcurrencyTestSupport.runConcurrently(8, failures, t -> {
+            for (int i = 0; i < 50_000; i++) {
+                int key = (t * 31 + i) % 512;
+                if (cache.get(key) == null) {
+                    cache.put(key, i);
+                }
+            }
+            return 0;
+        });
+        assertThat(failures).isEmpty();
+        assertThat(cache.weightedSize()).isLessThanOrEqualTo(64);
+        CacheStats stats = cache.stats();
+        assertThat(stats.hits() + stats.misses()).isEqualTo(8L * 50_000);
+    }
+}
@@ -29,7 +29,20 @@ class CandyboxConfigTest {
         assertThat(cfg.sizeLimits()).isEqualTo(SizeLimits.defaults());
         assertThat(cfg.bloomBitsPerKey()).isEqualTo(10);
         assertThat(cfg.memtableFlushThresholdBytes()).isEqualTo(4L << 20);
+        assertThat(cfg.memtableMaxImmutables()).isEqualTo(2);
+        assertThat(cfg.blockCacheCapacityBytes()).isEqualTo(64L << 20);
+        assertThat(cfg.ledgerHandleCacheCapacity()).isEqualTo(1024);
+        assertThat(cfg.ledgerHandleIdleMillis()).isEqualTo(60_000L);
+        assertThat(cfg.flushThreads()).isEqualTo(2);
+        assertThat(cfg.recoveryThreads()).isEqualTo(8);
         assertThat(cfg.syrupRolloverBytes()).isEqualTo(1L << 30);
+        assertThat(cfg.syrupAppendWindow()).isEqualTo(4);
+        assertThat(cfg.syrupReadAheadWindow()).isEqualTo(4);
+        assertThat(cfg.inlineThresholdBytes()).isEqualTo(4 << 10);
+        assertThat(cfg.syrupDefragLiveRatioPercent()).isEqualTo(50);
+        assertThat(cfg.syrupDefragMaxBytesPerRound()).isEqualTo(256L << 20);
+        assertThat(cfg.walGroupCommitMaxDelayMicros()).isZero();
+        assertThat(cfg.walGroupCommitMaxBytes()).isEqualTo(1 << 20);
         assertThat(cfg.maxFrameSizeBytes()).isEqualTo(16 << 20);
         assertThat(cfg.ownershipLeaseTtlMillis()).isEqualTo(10_000L);
         assertThat(cfg.leaseRenewIntervalMillis()).isEqualTo(3_000L);
@@ -59,7 +72,18 @@ class CandyboxConfigTest {
                 .quorum(LedgerRole.WAL, customWal)
                 .bloomBitsPerKey(16)
                 .memtableFlushThresholdBytes(123)
+                .memtableMaxImmutables(5)
+                .blockCacheCapacityBytes(0)
+                .ledgerHandleCacheCapacity(0)
+                .ledgerHandleIdleMillis(5)
+                .flushThreads(0)
+                .recoveryThreads(0)
                 .syrupRolloverBytes(456)
+                .syrupAppendWindow(3)
+                .syrupReadAheadWindow(6)
+                .inlineThresholdBytes(0)
+                .walGroupCommitMaxDelayMicros(250)
+                .walGroupCommitMaxBytes(4096)
                 .maxFrameSizeBytes(789)
                 .ownershipLeaseTtlMillis(20_000)
                 .leaseRenewIntervalMillis(0)
@@ -78,7 +102,18 @@ class CandyboxConfigTest {
         assertThat(cfg.quorum(LedgerRole.SYRUP)).isEqualTo(QuorumConfig.defaultFor(LedgerRole.SYRUP));
         assertThat(cfg.bloomBitsPerKey()).isEqualTo(16);
         assertThat(cfg.memtableFlushThresholdBytes()).isEqualTo(123);
+        assertThat(cfg.memtableMaxImmutables()).isEqualTo(5);
+        assertThat(cfg.blockCacheCapacityBytes()).isZero();
+        assertThat(cfg.ledgerHandleCacheCapacity()).isZero();
+        assertThat(cfg.ledgerHandleIdleMillis()).isEqualTo(5);
+        assertThat(cfg.flushThreads()).isZero();
+        assertThat(cfg.recoveryThreads()).isZero();
         assertThat(cfg.syrupRolloverBytes()).isEqualTo(456);
+        assertThat(cfg.syrupAppendWindow()).isEqualTo(3);
+        assertThat(cfg.syrupReadAheadWindow()).isEqualTo(6);
+        assertThat(cfg.inlineThresholdBytes()).isZero();
+        assertThat(cfg.walGroupCommitMaxDelayMicros()).isEqualTo(250);
+        assertThat(cfg.walGroupCommitMaxBytes()).isEqualTo(4096);
         assertThat(cfg.maxFrameSizeBytes()).isEqualTo(789);
         assertThat(cfg.ownershipLeaseTtlMillis()).isEqualTo(20_000);
         assertThat(cfg.leaseRenewIntervalMillis()).isZero();
@@ -161,15 +196,44 @@ class CandyboxConfigTest {
         assertThat(defaults.partitionsPerBoxDefault()).isEqualTo(8);
         assertThat(defaults.balancerIntervalMillis()).isZero(); // off by default (tests drive rounds)
         assertThat(defaults.balancerMaxMovesPerRound()).isEqualTo(4);
+        assertThat(defaults.balancerMaxSplitsPerRound()).isZero(); // no splitting unless asked for
+        assertThat(defaults.standbyReplicas()).isZero(); // no warm standbys unless asked for
+        assertThat(defaults.standbyCatchUpIntervalMillis()).isEqualTo(200);
 
         CandyboxConfig cfg = CandyboxConfig.builder()
                 .partitionsPerBoxDefault(2)
                 .balancerIntervalMillis(5_000)
                 .balancerMaxMovesPerRound(1)
+                .balancerMaxSplitsPerRound(2)
+                .standbyReplicas(2)
+                .standbyCatchUpIntervalMillis(50)
                 .build();
         assertThat(cfg.partitionsPerBoxDefault()).isEqualTo(2);
         assertThat(cfg.balancerIntervalMillis()).isEqualTo(5_000);
         assertThat(cfg.balancerMaxMovesPerRound()).isEqualTo(1);
+        assertThat(cfg.balancerMaxSplitsPerRound()).isEqualTo(2);
+        assertThat(cfg.standbyReplicas()).isEqualTo(2);
+        assertThat(cfg.standbyCatchUpIntervalMillis()).isEqualTo(50);
+    }
+
+    @Test
+    void followerReadsAreOffByDefaultAndRejectANegativeBound() {
+        assertThat(CandyboxConfig.defaults().followerReadMaxStalenessMillis()).isZero();
+        assertThat(CandyboxConfig.builder().followerReadMaxStalenessMillis(2_000).build()
+                .followerReadMaxStalenessMillis()).isEqualTo(2_000);
+        assertThatThrownBy(() -> CandyboxConfig.builder().followerReadMaxStalenessMillis(-1).build())
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("followerReadMaxStalenessMillis");
+    }
+
+    @Test
+    void buildRejectsOutOfRangeSyrupDefragSettings() {
+        assertThatThrownBy(() -> CandyboxConfig.builder().syrupDefragLiveRatioPercent(101).build())
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("syrupDefragLiveRatioPercent");
+        assertThatThrownBy(() -> CandyboxConfig.builder().syrupDefragMaxBytesPerRound(0).build())
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("syrupDefragMaxBytesPerRound");
     }
 
     @Test
@@ -180,5 +244,39 @@ class CandyboxConfigTest {
         assertThatThrownBy(() -> CandyboxConfig.builder().balancerMaxMovesPerRound(0).build())
                 .isInstanceOf(IllegalArgumentException.class)
                 .hasMessageContaining("balancerMaxMovesPerRound");
+        assertThatThrownBy(() -> CandyboxConfig.builder().balancerMaxSplitsPerRound(-1).build())
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("balancerMaxSplitsPerRound");
+        assertThatThrownBy(() -> CandyboxConfig.builder().standbyReplicas(-1).build())
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("standbyReplicas");
+        assertThatThrownBy(() -> CandyboxConfig.builder().standbyCatchUpIntervalMillis(0).build())
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("standbyCatchUpIntervalMillis");
+    }
+
+    @Test
+    void buildRejectsInvalidFlushAndCacheSettings() {
+        assertThatThrownBy(() -> CandyboxConfig.builder().memtableMaxImmutables(0).build())
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("memtableMaxImmutables");
+        assertThatThrownBy(() -> CandyboxConfig.builder().flushThreads(-1).build())
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("flushThreads");
+        assertThatThrownBy(() -> CandyboxConfig.builder().recoveryThreads(-1).build())
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("recoveryThreads");
+        assertThatThrownBy(() -> CandyboxConfig.builder().blockCacheCapacityBytes(-1).build())
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("blockCacheCapacityBytes");
+        assertThatThrownBy(() -> CandyboxConfig.builder().syrupReadAheadWindow(0).build())
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("syrupReadAheadWindow");
+        assertThatThrownBy(() -> CandyboxConfig.builder().ledgerHandleCacheCapacity(-1).build())
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("ledgerHandleCacheCapacity");
+        assertThatThrownBy(() -> CandyboxConfig.builder().ledgerHandleIdleMillis(0).build())
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("ledgerHandleIdleMillis");
     }
 }
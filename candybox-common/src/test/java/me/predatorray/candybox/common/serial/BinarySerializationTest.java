@@ -56,6 +56,19 @@ class BinarySerializationTest {
         assertThatThrownBy(r::readByte).isInstanceOf(SerializationException.class);
     }
 
+    @Test
+    void skipAdvancesPositionWithinTheWindowAndIsBoundsChecked() {
+        byte[] bytes = new BinaryWriter().writeInt(7).writeBytes(new byte[] {1, 2, 3}).writeByte(9)
+                .toByteArray();
+        BinaryReader r = new BinaryReader(bytes, 4, bytes.length - 4);
+        assertThat(r.position()).isEqualTo(4);
+        int len = r.readVarInt();
+        r.skip(len);
+        assertThat(r.position()).isEqualTo(8);
+        assertThat(r.readByte()).isEqualTo(9);
+        assertThatThrownBy(() -> r.skip(1)).isInstanceOf(SerializationException.class);
+    }
+
     @Test
     void malformedVarintThrows() {
         // Six continuation bytes exceed the legal varint length for an int.
@@ -80,6 +80,29 @@ class CandyLocatorSerializerTest {
         assertThat(decoded).isEqualTo(tombstone);
     }
 
+    @Test
+    void roundTripsInlinePartAsV4AndKeepsV3ForSyrupOnlyLocators() {
+        byte[] payload = "{\"id\":42}".getBytes(java.nio.charset.StandardCharsets.UTF_8);
+        CandyLocator inline = CandyLocator.inline(new Hlc(5, 0, 1), payload, 1 << 20,
+                "application/json", Map.of("k", "v"), 0x5eed, 77L, null);
+
+        byte[] encoded = CandyLocatorSerializer.serialize(inline);
+        assertThat(encoded[0]).isEqualTo(CandyLocatorSerializer.FORMAT_VERSION);
+        CandyLocator decoded = CandyLocatorSerializer.deserialize(encoded);
+
+        assertThat(decoded).isEqualTo(inline);
+        assertThat(decoded.parts().get(0).isInline()).isTrue();
+        assertThat(decoded.parts().get(0).inline()).isEqualTo(payload);
+        assertThat(decoded.contentLength()).isEqualTo(payload.length);
+        assertThat(decoded.segments()).isEmpty(); // Syrup-free
+
+        // Without an inline part the locator keeps the v3 encoding older nodes can read.
+        CandyLocator syrupBacked = CandyLocator.singlePart(new Hlc(5, 0, 1), 10, 4, null, Map.of(),
+                123, 99L, List.of(new SegmentRef(5, 0, 2)));
+        assertThat(CandyLocatorSerializer.serialize(syrupBacked)[0])
+                .isEqualTo(CandyLocatorSerializer.FORMAT_VERSION_NO_INLINE);
+    }
+
     @Test
     void roundTripsOwnerAndObjectGrants() {
         CandyLocator locator = CandyLocator.singlePart(new Hlc(7, 1, 2), 10, 4, "text/plain",
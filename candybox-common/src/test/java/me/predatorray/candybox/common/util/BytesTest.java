@@ -90,4 +90,31 @@ class BytesTest {
         assertThat(Bytes.compare(bytes('k', 'e', 'y', 0x00), successor)).isNegative();
         assertThat(Bytes.compare(bytes('k', 'e', 'y', (byte) 0xFF), successor)).isNegative();
     }
+
+    @Test
+    void commonPrefixLengthStopsAtTheFirstDifferenceOrTheShorterEnd() {
+        assertThat(Bytes.commonPrefixLength(bytes('a', 'b', 'c'), bytes('a', 'b', 'd'))).isEqualTo(2);
+        assertThat(Bytes.commonPrefixLength(bytes('a', 'b'), bytes('a', 'b', 'c'))).isEqualTo(2);
+        assertThat(Bytes.commonPrefixLength(bytes('a'), bytes('a'))).isEqualTo(1);
+        assertThat(Bytes.commonPrefixLength(bytes(), bytes('a'))).isZero();
+    }
+
+    @Test
+    void shortestSeparatorShortensWhenAByteFitsBetweenTheKeys() {
+        byte[] lower = "tenant/2026/10/16/device-0001/frame-9.jpg".getBytes();
+        byte[] upper = "tenant/2026/10/16/device-0005/frame-0.jpg".getBytes();
+        byte[] sep = Bytes.shortestSeparator(lower, upper);
+        assertThat(new String(sep)).isEqualTo("tenant/2026/10/16/device-0002");
+        assertThat(Bytes.compare(lower, sep)).isNegative();
+        assertThat(Bytes.compare(sep, upper)).isNegative();
+    }
+
+    @Test
+    void shortestSeparatorKeepsLowerWhenNothingShorterFits() {
+        // Adjacent differing bytes, a prefix relationship, or no byte to drop all leave lower as is.
+        assertThat(Bytes.shortestSeparator(bytes('a', 'b', 'x'), bytes('a', 'c'))).containsExactly('a', 'b', 'x');
+        assertThat(Bytes.shortestSeparator(bytes('a', 'b'), bytes('a', 'b', 'c'))).containsExactly('a', 'b');
+        assertThat(Bytes.shortestSeparator(bytes(0xFF, 1), bytes(0xFF, 9))).containsExactly(0xFF, 1);
+        assertThat(Bytes.shortestSeparator(bytes('a', 'c'), bytes('a', 'e'))).containsExactly('a', 'c');
+    }
 }
@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.predatorray.candybox.coordination;
+
+import java.util.ArrayList;
+import java.util.List;
+import me.predatorray.candybox.common.serial.BinaryReader;
+import me.predatorray.candybox.common.serial.BinaryWriter;
+import me.predatorray.candybox.coordination.PartitionAssignment.BoxPartition;
+
+/**
+ * The moves the elected balancer chose in its last round that took partitions away from a live
+ * owner, stored at {@link CandyboxKeys#BALANCER_ROUND_KEY} next to the assignment table it
+ * published with them. Operators read it through the admin API to see why a partition moved;
+ * nothing in the data path consults it.
+ *
+ * @param atMillis when the coordinator published the round
+ * @param moves    the partitions moved, heaviest first
+ */
+public record BalancerRound(long atMillis, List<Move> moves) {
+
+    private static final int FORMAT_VERSION = 1;
+
+    /**
+     * One partition moved off a live owner.
+     *
+     * @param weight the partition's share of the cluster's load when it was moved; every
+     *               partition's weights sum to the number of load dimensions the balancer weighed
+     */
+    public record Move(BoxPartition partition, int fromNode, int toNode, double weight) {
+    }
+
+    public BalancerRound {
+        moves = List.copyOf(moves);
+    }
+
+    public byte[] encode() {
+        BinaryWriter w = new BinaryWriter(32 + moves.size() * 32);
+        w.writeByte(FORMAT_VERSION);
+        w.writeVarLong(atMillis);
+        w.writeVarInt(moves.size());
+        for (Move move : moves) {
+            w.writeString(move.partition().box());
+            w.writeVarInt(move.partition().partition());
+            w.writeInt(move.fromNode());
+            w.writeInt(move.toNode());
+            w.writeLong(Double.doubleToLongBits(move.weight()));
+        }
+        return w.toByteArray();
+    }
+
+    public static BalancerRound decode(byte[] data) {
+        BinaryReader r = new BinaryReader(data);
+        int version = r.readByte();
+        if (version != FORMAT_VERSION) {
+            throw new CoordinationException("Unsupported BalancerRound version: " + version);
+        }
+        long atMillis = r.readVarLong();
+        int count = r.readVarInt();
+        List<Move> moves = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            moves.add(new Move(new BoxPartition(r.readString(), r.readVarInt()), r.readInt(),
+                    r.readInt(), Double.longBitsToDouble(r.readLong())));
+        }
+        return new BalancerRound(atMillis, moves);
+    }
+}
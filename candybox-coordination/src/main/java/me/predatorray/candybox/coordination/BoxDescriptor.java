@@ -15,43 +15,151 @@
  */
 package me.predatorray.candybox.coordination;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import me.predatorray.candybox.common.HashScope;
 import me.predatorray.candybox.common.Partitioning;
 import me.predatorray.candybox.common.serial.BinaryReader;
 import me.predatorray.candybox.common.serial.BinaryWriter;
 
 /**
- * A Box's immutable metadata record, stored at {@link CandyboxKeys#boxMetaKey} when the Box is
- * created. The partition count is fixed for the Box's lifetime — it is the routing source of truth
- * for servers and clients, so changing it would silently re-home every key.
+ * A Box's routing metadata, stored at {@link CandyboxKeys#boxMetaKey} when the Box is created: the
+ * routing source of truth for servers and clients.
+ *
+ * <p>The Box starts with {@code partitionCount} hash partitions, which never change. A partition that
+ * outgrows its node is split by hash range (extendible hashing): partition {@code q} at split level
+ * {@code L} owns the keys whose {@link Partitioning#hashOf hash} is {@code q} modulo
+ * {@code partitionCount << L} (its {@link #scopeOf scope}), and splitting it leaves {@code q} at level
+ * {@code L + 1} and adds partition {@code q + (partitionCount << L)} for the other half. The half that
+ * keeps the id keeps its lease and manifest, and every other key keeps its partition, so a split
+ * re-homes only the keys it hands off. {@code splitLevels} records the level of every partition above
+ * level {@code 0}; it only ever grows.
+ *
+ * @param partitionCount the Box's base partition count, fixed at creation
+ * @param splitLevels    partition id to split level, for every partition that has been split or was
+ *                       created by a split
  */
-public record BoxDescriptor(int partitionCount) {
+public record BoxDescriptor(int partitionCount, Map<Integer, Integer> splitLevels) {
 
     private static final int FORMAT_VERSION = 1;
+    // v2 appends the split levels; an unsplit Box still encodes as v1.
+    private static final int SPLIT_FORMAT_VERSION = 2;
 
     public BoxDescriptor {
         if (partitionCount < 1) {
             throw new IllegalArgumentException("partitionCount must be positive: " + partitionCount);
         }
+        splitLevels = splitLevels == null ? Map.of() : Map.copyOf(splitLevels);
+    }
+
+    /** An unsplit Box of {@code partitionCount} partitions. */
+    public BoxDescriptor(int partitionCount) {
+        this(partitionCount, Map.of());
     }
 
     /** The partition the given key lives in, under this descriptor. */
     public int partitionOf(String key) {
-        return Partitioning.partitionOf(key, partitionCount);
+        if (splitLevels.isEmpty()) {
+            return Partitioning.partitionOf(key, partitionCount);
+        }
+        int hash = Partitioning.hashOf(key);
+        int modulus = partitionCount;
+        int partition = hash % modulus;
+        // A partition id at depth d is also the id of the leftmost partition below it, so its level
+        // says whether the walk must descend another bit.
+        for (int depth = 0; levelOf(partition) > depth; depth++) {
+            modulus <<= 1;
+            partition = hash % modulus;
+        }
+        return partition;
+    }
+
+    /** Whether {@code partition} is one of this Box's current partitions. */
+    public boolean isPartition(int partition) {
+        return partition >= 0 && (partition < partitionCount || splitLevels.containsKey(partition));
+    }
+
+    /** Every current partition id, ascending. */
+    public List<Integer> partitions() {
+        List<Integer> ids = new ArrayList<>(partitionCount + splitLevels.size());
+        for (int p = 0; p < partitionCount; p++) {
+            ids.add(p);
+        }
+        for (int p : new TreeMap<>(splitLevels).keySet()) {
+            if (p >= partitionCount) {
+                ids.add(p);
+            }
+        }
+        return ids;
+    }
+
+    /** The keys {@code partition} owns. */
+    public HashScope scopeOf(int partition) {
+        requirePartition(partition);
+        return new HashScope(partitionCount << levelOf(partition), partition);
+    }
+
+    /**
+     * Splits {@code partition} in two: it keeps the {@link HashScope#left()} half of its keys and the
+     * returned descriptor gains partition {@link #splitSibling} for the {@link HashScope#right()} one.
+     *
+     * @throws IllegalArgumentException if {@code partition} is not a current partition
+     * @throws IllegalStateException    if its scope is already as narrow as a scope can be
+     */
+    public BoxDescriptor split(int partition) {
+        HashScope right = scopeOf(partition).right();
+        int level = levelOf(partition) + 1;
+        Map<Integer, Integer> levels = new TreeMap<>(splitLevels);
+        levels.put(partition, level);
+        levels.put(right.residue(), level);
+        return new BoxDescriptor(partitionCount, levels);
+    }
+
+    /** The id of the partition a {@link #split} of {@code partition} creates. */
+    public int splitSibling(int partition) {
+        return scopeOf(partition).right().residue();
+    }
+
+    private int levelOf(int partition) {
+        return splitLevels.getOrDefault(partition, 0);
+    }
+
+    private void requirePartition(int partition) {
+        if (!isPartition(partition)) {
+            throw new IllegalArgumentException("No partition " + partition + " in this Box");
+        }
     }
 
     public byte[] encode() {
-        return new BinaryWriter(8)
-                .writeByte(FORMAT_VERSION)
-                .writeVarInt(partitionCount)
-                .toByteArray();
+        BinaryWriter w = new BinaryWriter(8 + splitLevels.size() * 4);
+        w.writeByte(splitLevels.isEmpty() ? FORMAT_VERSION : SPLIT_FORMAT_VERSION);
+        w.writeVarInt(partitionCount);
+        if (!splitLevels.isEmpty()) {
+            w.writeVarInt(splitLevels.size());
+            for (Map.Entry<Integer, Integer> e : new TreeMap<>(splitLevels).entrySet()) {
+                w.writeVarInt(e.getKey());
+                w.writeVarInt(e.getValue());
+            }
+        }
+        return w.toByteArray();
     }
 
     public static BoxDescriptor decode(byte[] data) {
         BinaryReader r = new BinaryReader(data);
         int version = r.readByte();
-        if (version != FORMAT_VERSION) {
+        if (version != FORMAT_VERSION && version != SPLIT_FORMAT_VERSION) {
             throw new CoordinationException("Unsupported BoxDescriptor version: " + version);
         }
-        return new BoxDescriptor(r.readVarInt());
+        int partitionCount = r.readVarInt();
+        Map<Integer, Integer> levels = new TreeMap<>();
+        if (version == SPLIT_FORMAT_VERSION) {
+            int count = r.readVarInt();
+            for (int i = 0; i < count; i++) {
+                levels.put(r.readVarInt(), r.readVarInt());
+            }
+        }
+        return new BoxDescriptor(partitionCount, levels);
     }
 }
@@ -31,6 +31,9 @@ public final class CandyboxKeys {
     /** The versioned key holding the desired partition→node assignment table. */
     public static final String ASSIGNMENT_KEY = "cluster/assignment";
 
+    /** The versioned key holding the balancer's last round of moves, for operators. */
+    public static final String BALANCER_ROUND_KEY = "cluster/balancer-round";
+
     private CandyboxKeys() {
     }
 
@@ -63,6 +66,14 @@ public final class CandyboxKeys {
         return BOXES_ROOT + "/" + boxName + "/partitions/" + partition + "/refs";
     }
 
+    /**
+     * The versioned key holding one partition's published {@link PartitionLoad}, written by its
+     * owner and weighed by the balancer.
+     */
+    public static String partitionLoadKey(String boxName, int partition) {
+        return BOXES_ROOT + "/" + boxName + "/partitions/" + partition + "/load";
+    }
+
     /**
      * The rendezvous marker a destination owner writes when a cross-partition rename's zero-copy put
      * is durable; the source owner reads it to finalize (tombstone the source) the rename.
@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.predatorray.candybox.coordination;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import me.predatorray.candybox.common.serial.BinaryReader;
+import me.predatorray.candybox.common.serial.BinaryWriter;
+
+/**
+ * The desired (box, partition) → node assignment table the elected balancer publishes at
+ * {@code cluster/assignment}. It is advisory: nodes acquire/release ownership to converge on it, but
+ * correctness always rests on the per-partition fenced lease, never on this table. Clients read it
+ * too, to find the standbys that can answer a stale-tolerant read.
+ *
+ * <p>Alongside each partition's owner the table may name its <em>standbys</em>: nodes that keep a
+ * warm replica of the partition and take it over first when the owner dies. A table without standbys
+ * is written in the original format, so nodes that predate them can still read it.
+ */
+public final class PartitionAssignment {
+
+    private static final int FORMAT_VERSION = 1;
+    private static final int FORMAT_VERSION_STANDBYS = 2;
+
+    /** One partition of one Box. */
+    public record BoxPartition(String box, int partition) implements Comparable<BoxPartition> {
+        @Override
+        public int compareTo(BoxPartition o) {
+            int c = box.compareTo(o.box);
+            return c != 0 ? c : Integer.compare(partition, o.partition);
+        }
+    }
+
+    private final Map<BoxPartition, Integer> targets;
+    private final Map<BoxPartition, List<Integer>> standbys;
+
+    public PartitionAssignment(Map<BoxPartition, Integer> targets) {
+        this(targets, Map.of());
+    }
+
+    /** @param standbys per partition, its standby nodes in order of preference; may omit partitions */
+    public PartitionAssignment(Map<BoxPartition, Integer> targets,
+                               Map<BoxPartition, List<Integer>> standbys) {
+        this.targets = new LinkedHashMap<>(targets);
+        this.standbys = new LinkedHashMap<>();
+        standbys.forEach((bp, nodes) -> {
+            if (!nodes.isEmpty()) {
+                this.standbys.put(bp, List.copyOf(nodes));
+            }
+        });
+    }
+
+    public static PartitionAssignment empty() {
+        return new PartitionAssignment(Map.of());
+    }
+
+    public Map<BoxPartition, Integer> targets() {
+        return java.util.Collections.unmodifiableMap(targets);
+    }
+
+    /** Standby nodes by partition, in order of preference; partitions without any are absent. */
+    public Map<BoxPartition, List<Integer>> standbys() {
+        return java.util.Collections.unmodifiableMap(standbys);
+    }
+
+    /** The standbys of {@code bp}, in order of preference; empty if it has none. */
+    public List<Integer> standbysOf(BoxPartition bp) {
+        return standbys.getOrDefault(bp, List.of());
+    }
+
+    public byte[] encode() {
+        BinaryWriter w = new BinaryWriter(64);
+        w.writeByte(standbys.isEmpty() ? FORMAT_VERSION : FORMAT_VERSION_STANDBYS);
+        w.writeVarInt(targets.size());
+        for (Map.Entry<BoxPartition, Integer> e : targets.entrySet()) {
+            w.writeString(e.getKey().box());
+            w.writeVarInt(e.getKey().partition());
+            w.writeInt(e.getValue());
+        }
+        if (!standbys.isEmpty()) {
+            w.writeVarInt(standbys.size());
+            for (Map.Entry<BoxPartition, List<Integer>> e : standbys.entrySet()) {
+                w.writeString(e.getKey().box());
+                w.writeVarInt(e.getKey().partition());
+                w.writeVarInt(e.getValue().size());
+                for (int node : e.getValue()) {
+                    w.writeInt(node);
+                }
+            }
+        }
+        return w.toByteArray();
+    }
+
+    public static PartitionAssignment decode(byte[] data) {
+        BinaryReader r = new BinaryReader(data);
+        int version = r.readByte();
+        if (version != FORMAT_VERSION && version != FORMAT_VERSION_STANDBYS) {
+            throw new IllegalArgumentException("Unsupported PartitionAssignment version: " + version);
+        }
+        int count = r.readVarInt();
+        Map<BoxPartition, Integer> targets = new LinkedHashMap<>(Math.max(4, count * 2));
+        for (int i = 0; i < count; i++) {
+            targets.put(new BoxPartition(r.readString(), r.readVarInt()), r.readInt());
+        }
+        Map<BoxPartition, List<Integer>> standbys = new LinkedHashMap<>();
+        if (version == FORMAT_VERSION_STANDBYS) {
+            int withStandbys = r.readVarInt();
+            for (int i = 0; i < withStandbys; i++) {
+                BoxPartition bp = new BoxPartition(r.readString(), r.readVarInt());
+                int n = r.readVarInt();
+                List<Integer> nodes = new ArrayList<>(n);
+                for (int j = 0; j < n; j++) {
+                    nodes.add(r.readInt());
+                }
+                standbys.put(bp, nodes);
+            }
+        }
+        return new PartitionAssignment(targets, standbys);
+    }
+}
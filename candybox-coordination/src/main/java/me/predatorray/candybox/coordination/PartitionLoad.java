@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.predatorray.candybox.coordination;
+
+import me.predatorray.candybox.common.serial.BinaryReader;
+import me.predatorray.candybox.common.serial.BinaryWriter;
+
+/**
+ * The load one partition's owner last published at {@link CandyboxKeys#partitionLoadKey}: request
+ * and byte rates over the owner's last sampling interval, plus its unflushed memtable bytes and L0
+ * table count at the end of it. The elected balancer weighs partitions by these figures so it can
+ * even out work rather than partition counts; the admin API shows them as-is.
+ *
+ * @param opsPerSecond      puts, deletes, gets, heads and lists per second
+ * @param bytesInPerSecond  Candy bytes written per second
+ * @param bytesOutPerSecond Candy bytes read per second
+ * @param memtableBytes     bytes held in the active and sealed memtables (flush pressure)
+ * @param l0Tables          SSTables waiting in level 0 (compaction debt)
+ */
+public record PartitionLoad(double opsPerSecond, double bytesInPerSecond, double bytesOutPerSecond,
+                            long memtableBytes, long l0Tables) {
+
+    private static final int FORMAT_VERSION = 1;
+
+    /** The load of a partition nobody has published figures for. */
+    public static final PartitionLoad NONE = new PartitionLoad(0, 0, 0, 0, 0);
+
+    public byte[] encode() {
+        return new BinaryWriter(48)
+                .writeByte(FORMAT_VERSION)
+                .writeLong(Double.doubleToLongBits(opsPerSecond))
+                .writeLong(Double.doubleToLongBits(bytesInPerSecond))
+                .writeLong(Double.doubleToLongBits(bytesOutPerSecond))
+                .writeVarLong(memtableBytes)
+                .writeVarLong(l0Tables)
+                .toByteArray();
+    }
+
+    public static PartitionLoad decode(byte[] data) {
+        BinaryReader r = new BinaryReader(data);
+        int version = r.readByte();
+        if (version != FORMAT_VERSION) {
+            throw new CoordinationException("Unsupported PartitionLoad version: " + version);
+        }
+        return new PartitionLoad(Double.longBitsToDouble(r.readLong()),
+                Double.longBitsToDouble(r.readLong()), Double.longBitsToDouble(r.readLong()),
+                r.readVarLong(), r.readVarLong());
+    }
+}
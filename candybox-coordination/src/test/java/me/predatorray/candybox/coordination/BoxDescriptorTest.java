@@ -18,6 +18,10 @@ package me.predatorray.candybox.coordination;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
+import java.util.HashMap;
+import java.util.Map;
+import me.predatorray.candybox.common.CandyKey;
+import me.predatorray.candybox.common.HashScope;
 import me.predatorray.candybox.common.Partitioning;
 import org.junit.jupiter.api.Test;
 
@@ -50,4 +54,47 @@ class BoxDescriptorTest {
         assertThatThrownBy(() -> BoxDescriptor.decode(encoded))
                 .isInstanceOf(CoordinationException.class);
     }
+
+    @Test
+    void splittingMovesOnlyTheHandedOffHalfOfOnePartition() {
+        BoxDescriptor base = new BoxDescriptor(4);
+        BoxDescriptor split = base.split(1);
+        assertThat(split.splitSibling(1)).isEqualTo(9); // split again: 1 -> 1 + 8
+        assertThat(base.splitSibling(1)).isEqualTo(5);
+        assertThat(split.partitions()).containsExactly(0, 1, 2, 3, 5);
+        assertThat(split.scopeOf(1)).isEqualTo(new HashScope(8, 1));
+        assertThat(split.scopeOf(5)).isEqualTo(new HashScope(8, 5));
+        assertThat(split.scopeOf(2)).isEqualTo(new HashScope(4, 2));
+
+        Map<Integer, Integer> moved = new HashMap<>();
+        for (int i = 0; i < 2000; i++) {
+            String key = "key/" + i;
+            int before = base.partitionOf(key);
+            int after = split.partitionOf(key);
+            assertThat(split.scopeOf(after).contains(CandyKey.of(key)))
+                    .isTrue();
+            if (before != after) {
+                assertThat(before).isEqualTo(1);
+                assertThat(after).isEqualTo(5);
+                moved.merge(after, 1, Integer::sum);
+            }
+        }
+        assertThat(moved).containsOnlyKeys(5);
+    }
+
+    @Test
+    void repeatedSplitsRouteByTheDeepestPartition() {
+        BoxDescriptor d = new BoxDescriptor(2).split(0).split(0).split(2);
+        // 0 -> {0, 2}; 0 -> {0, 4}; 2 -> {2, 6}
+        assertThat(d.partitions()).containsExactly(0, 1, 2, 4, 6);
+        for (int i = 0; i < 2000; i++) {
+            String key = "k" + i;
+            int hash = Partitioning.hashOf(key);
+            int expected = hash % 2 == 1 ? 1 : hash % 8;
+            assertThat(d.partitionOf(key)).isEqualTo(expected);
+        }
+        assertThat(d.isPartition(3)).isFalse();
+        assertThatThrownBy(() -> d.split(3)).isInstanceOf(IllegalArgumentException.class);
+        assertThat(BoxDescriptor.decode(d.encode())).isEqualTo(d);
+    }
 }
@@ -13,13 +13,14 @@
  * See the License for the specific language governing permissions and
  * limitations under the License.
  */
-package me.predatorray.candybox.server;
+package me.predatorray.candybox.coordination;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
+import java.util.List;
 import java.util.Map;
-import me.predatorray.candybox.server.PartitionAssignment.BoxPartition;
+import me.predatorray.candybox.coordination.PartitionAssignment.BoxPartition;
 import org.junit.jupiter.api.Test;
 
 class PartitionAssignmentTest {
@@ -37,6 +38,22 @@ class PartitionAssignmentTest {
                 .isEmpty();
     }
 
+    @Test
+    void standbysRoundTripAndATableWithoutThemKeepsTheOriginalFormat() {
+        BoxPartition a0 = new BoxPartition("alpha", 0);
+        BoxPartition a1 = new BoxPartition("alpha", 1);
+        PartitionAssignment assignment = new PartitionAssignment(Map.of(a0, 1, a1, 2),
+                Map.of(a0, List.of(3, 2), a1, List.of()));
+        PartitionAssignment decoded = PartitionAssignment.decode(assignment.encode());
+        assertThat(decoded.targets()).isEqualTo(assignment.targets());
+        assertThat(decoded.standbysOf(a0)).containsExactly(3, 2);
+        assertThat(decoded.standbysOf(a1)).isEmpty();
+        assertThat(decoded.standbys()).containsOnlyKeys(a0);
+
+        assertThat(new PartitionAssignment(Map.of(a0, 1)).encode()[0]).isEqualTo((byte) 1);
+        assertThat(assignment.encode()[0]).isEqualTo((byte) 2);
+    }
+
     @Test
     void rejectsUnknownFormatVersion() {
         byte[] encoded = PartitionAssignment.empty().encode();
@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.predatorray.candybox.coordination;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.List;
+import me.predatorray.candybox.coordination.PartitionAssignment.BoxPartition;
+import org.junit.jupiter.api.Test;
+
+class PartitionLoadTest {
+
+    @Test
+    void encodeDecodeRoundTrips() {
+        PartitionLoad load = new PartitionLoad(12.5, 4096.0, 0.25, 1L << 26, 7);
+        assertThat(PartitionLoad.decode(load.encode())).isEqualTo(load);
+        assertThat(PartitionLoad.decode(PartitionLoad.NONE.encode())).isEqualTo(PartitionLoad.NONE);
+    }
+
+    @Test
+    void balancerRoundRoundTripsItsMoves() {
+        BalancerRound round = new BalancerRound(1_000, List.of(
+                new BalancerRound.Move(new BoxPartition("hot", 3), 1, 2, 0.75),
+                new BalancerRound.Move(new BoxPartition("warm", 0), 1, 3, 0.5)));
+        assertThat(BalancerRound.decode(round.encode())).isEqualTo(round);
+    }
+
+    @Test
+    void rejectsUnknownFormatVersion() {
+        byte[] encoded = PartitionLoad.NONE.encode();
+        encoded[0] = 99;
+        assertThatThrownBy(() -> PartitionLoad.decode(encoded))
+                .isInstanceOf(CoordinationException.class);
+    }
+}
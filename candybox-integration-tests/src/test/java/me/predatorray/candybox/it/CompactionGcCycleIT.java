@@ -65,6 +65,7 @@ class CompactionGcCycleIT {
     void compactionThenGcReclaimsLedgersOnRealBookKeeper() {
         CandyboxConfig config = CandyboxConfig.builder()
                 .memtableFlushThresholdBytes(1) // each put flushes => L0 table + WAL rotation
+                .flushThreads(0)                // flush on the writer thread
                 .syrupRolloverBytes(1)          // each Candy in its own Syrup
                 .l0CompactionTrigger(2)
                 .l0StallThreshold(100)
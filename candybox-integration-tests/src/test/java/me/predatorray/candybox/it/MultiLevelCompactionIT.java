@@ -86,6 +86,7 @@ class MultiLevelCompactionIT {
     void entryCascadesToDeepLevelsThenDeleteOnADeepLevelIsReconciled() {
         CandyboxConfig config = CandyboxConfig.builder()
                 .memtableFlushThresholdBytes(1) // every write flushes => its own L0 SSTable + WAL rotation
+                .flushThreads(0)                // flush on the writer thread
                 .syrupRolloverBytes(1)          // every Candy in its own Syrup
                 .l0CompactionTrigger(2)
                 .l0StallThreshold(1000)
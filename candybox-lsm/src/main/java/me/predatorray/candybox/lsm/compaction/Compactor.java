@@ -24,6 +24,7 @@ import java.util.Set;
 import me.predatorray.candybox.bookkeeper.LedgerConfig;
 import me.predatorray.candybox.bookkeeper.LedgerStore;
 import me.predatorray.candybox.common.Clock;
+import me.predatorray.candybox.common.HashScope;
 import me.predatorray.candybox.common.Mutation;
 import me.predatorray.candybox.common.RangeTombstone;
 import me.predatorray.candybox.lsm.iterator.MergingIterator;
@@ -44,6 +45,10 @@ import me.predatorray.candybox.lsm.sstable.SSTableWriter;
  * bottommost level is dropped together with the (necessarily older) point locators it covers; younger
  * or non-bottommost range tombstones are carried forward into the output so they keep shadowing.
  *
+ * <p>A partition split leaves both halves sharing the parent's tables; compacting them with the
+ * partition's {@link HashScope} leaves the sibling's keys out of the output, so the shared tables
+ * drain away as each half compacts.
+ *
  * <p>This is the reusable execution core; distributed scheduling (ZK task claims/leases) and the
  * fenced commit + reference-counted GC live in the server in Phase 3.
  */
@@ -66,6 +71,14 @@ public final class Compactor {
 
     /** Runs the task and returns the output table (if any) plus the manifest edit. */
     public CompactionResult compact(CompactionTask task) {
+        return compact(task, HashScope.ALL);
+    }
+
+    /**
+     * {@link #compact(CompactionTask)} for a partition owning only {@code scope}: point entries for
+     * keys outside it are left out of the output. Range tombstones are carried as usual.
+     */
+    public CompactionResult compact(CompactionTask task, HashScope scope) {
         List<SSTableReader> readers = new ArrayList<>();
         Set<Long> removed = new LinkedHashSet<>();
         try {
@@ -93,6 +106,9 @@ public final class Compactor {
             }
 
             Iterator<Mutation> merged = new MergingIterator(sources, false);
+            if (!scope.equals(HashScope.ALL)) {
+                merged = inScope(merged, scope);
+            }
             Iterator<Mutation> filtered = task.bottommost()
                     ? dropDeadEntries(merged, dropping) : merged;
             PeekingIterator<Mutation> peek = new PeekingIterator<>(filtered);
@@ -115,6 +131,28 @@ public final class Compactor {
         }
     }
 
+    /** The entries of {@code delegate} whose key lies in {@code scope}. */
+    private static Iterator<Mutation> inScope(Iterator<Mutation> delegate, HashScope scope) {
+        PeekingIterator<Mutation> source = new PeekingIterator<>(delegate);
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                while (source.hasNext() && !scope.contains(source.peek().key())) {
+                    source.next();
+                }
+                return source.hasNext();
+            }
+
+            @Override
+            public Mutation next() {
+                if (!hasNext()) {
+                    throw new java.util.NoSuchElementException();
+                }
+                return source.next();
+            }
+        };
+    }
+
     /** Whether a range tombstone is older than the GC grace (uses its HLC's physical time). */
     private boolean isAged(RangeTombstone rt) {
         return clock.currentTimeMillis() - rt.hlc().physicalMillis() >= tombstoneGcGraceMillis;
@@ -16,8 +16,10 @@
 package me.predatorray.candybox.lsm.engine;
 
 import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.SequenceInputStream;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
@@ -26,10 +28,17 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
 import me.predatorray.candybox.bookkeeper.LedgerConfig;
 import me.predatorray.candybox.bookkeeper.LedgerStore;
 import me.predatorray.candybox.bookkeeper.ReadableLedger;
@@ -37,6 +46,7 @@ import me.predatorray.candybox.common.BoxName;
 import me.predatorray.candybox.common.CandyKey;
 import me.predatorray.candybox.common.CandyLocator;
 import me.predatorray.candybox.common.Clock;
+import me.predatorray.candybox.common.HashScope;
 import me.predatorray.candybox.common.auth.ObjectAcl;
 import me.predatorray.candybox.common.Hlc;
 import me.predatorray.candybox.common.HybridLogicalClock;
@@ -46,25 +56,30 @@ import me.predatorray.candybox.common.Part;
 import me.predatorray.candybox.common.RangeTombstone;
 import me.predatorray.candybox.common.SegmentRef;
 import me.predatorray.candybox.common.Validation;
+import me.predatorray.candybox.common.checksum.Crc32c;
 import me.predatorray.candybox.common.concurrent.BoundedLruCache;
 import me.predatorray.candybox.common.config.CandyboxConfig;
 import me.predatorray.candybox.common.config.LedgerRole;
 import me.predatorray.candybox.common.exception.BusyException;
 import me.predatorray.candybox.common.exception.CandyNotFoundException;
+import me.predatorray.candybox.common.exception.LimitExceededException;
+import me.predatorray.candybox.common.exception.NotOwnerException;
+import me.predatorray.candybox.common.exception.StorageException;
 import me.predatorray.candybox.common.exception.ValidationException;
+import me.predatorray.candybox.common.serial.CandyLocatorSerializer;
 import me.predatorray.candybox.lsm.manifest.Manifest;
 import me.predatorray.candybox.lsm.manifest.ManifestEdit;
 import me.predatorray.candybox.lsm.manifest.ManifestState;
 import me.predatorray.candybox.lsm.manifest.MultipartUploadState;
 import me.predatorray.candybox.lsm.manifest.RenameIntent;
 import me.predatorray.candybox.lsm.memtable.Memtable;
+import me.predatorray.candybox.lsm.sstable.BlockCache;
 import me.predatorray.candybox.lsm.sstable.SSTableMeta;
 import me.predatorray.candybox.lsm.sstable.SSTableReader;
 import me.predatorray.candybox.lsm.sstable.SSTableWriter;
 import me.predatorray.candybox.lsm.syrup.SyrupManager;
 import me.predatorray.candybox.lsm.syrup.SyrupReader;
 import me.predatorray.candybox.lsm.syrup.SyrupWriteResult;
-import me.predatorray.candybox.lsm.wal.WalEntry;
 import me.predatorray.candybox.lsm.wal.WriteAheadLog;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -73,19 +88,31 @@ import org.slf4j.LoggerFactory;
  * The single-Box LSM storage engine: the Phase 1 deliverable wiring memtable + WAL + L0 SSTable flush
  * + Syrup chunking + the merged read path under LWW with HLC timestamps and tombstones.
  *
- * <p>One node owns a Box at a time and serializes its writes here. Writes take a write lock (so the
- * owner stamps HLC and appends to the WAL in order); reads take a read lock and resolve a key to the
- * highest-HLC locator across the active memtable and the L0 SSTables, then stream the bytes from
- * Syrups. A single fenced owner serializing all writes makes the Box effectively per-key linearizable
- * on the owner (see DESIGN.md).
+ * <p>One node owns a Box at a time and serializes its writes here. Blind single-key writes
+ * ({@link #putCandy}, {@link #deleteCandy}) take the <em>shared</em> side of the partition lock so
+ * concurrent writers can share one group-committed WAL entry; LWW by HLC makes their memtable apply
+ * order irrelevant. Read-modify-write operations and structural changes (flush, compaction, manifest
+ * edits) take the exclusive side, which also waits out every in-flight blind write — so a WAL is
+ * never rotated under a stamped-but-unapplied mutation. Reads take the shared side and resolve a key
+ * to the highest-HLC locator across the active memtable, the sealed memtables awaiting flush, and the
+ * SSTables, then stream the bytes from Syrups.
+ *
+ * <p>Flushing is off the write path: a full active memtable is <em>sealed</em> in O(1) under the
+ * exclusive lock (WAL rotated, old WAL recorded as pending in the manifest) and handed to the flush
+ * executor, which writes the L0 SSTable without the lock and commits it with a short manifest edit.
+ * Writes stall with {@code BUSY} only once {@code memtableMaxImmutables} sealed memtables are
+ * queued. A single fenced owner serializing all writes makes the Box effectively per-key
+ * linearizable on the owner (see DESIGN.md).
  *
  * <p>This engine is networkless (Phase 1); the server wraps it with transport/routing in Phase 2.
  * Multi-level compaction is available via {@link #applyCompaction} but is not scheduled here (Phase 3).
  */
-public final class BoxEngine implements AutoCloseable {
+public final class BoxEngine implements BoxReader, AutoCloseable {
 
     private static final Logger LOG = LoggerFactory.getLogger(BoxEngine.class);
     private static final int IDEMPOTENCY_CACHE_SIZE = 1024;
+    // WAL entries read ahead during replay; each is at most walGroupCommitMaxBytes.
+    private static final int WAL_REPLAY_READ_AHEAD = 8;
 
     private final BoxName box;
     private final CandyboxConfig config;
@@ -101,7 +128,27 @@ public final class BoxEngine implements AutoCloseable {
     private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
     private volatile Memtable active = new Memtable();
     private WriteAheadLog wal;
+    // WAL ledgers holding the active memtable's mutations: the current WAL plus, after a recovery,
+    // the replayed ones (kept pending in the manifest until this memtable is flushed).
+    private final Set<Long> activeWalIds = new LinkedHashSet<>();
+    // Sealed memtables awaiting the background flush, newest first. Replaced copy-on-write under the
+    // write lock, so a reader holding the shared lock sees a stable list.
+    private volatile List<SealedMemtable> immutables = List.of();
+    private final Executor flushExecutor;
+    private final BlockCache blockCache;
+    private final Executor recoveryExecutor;
+    private volatile RecoveryTimings recoveryTimings = RecoveryTimings.NONE;
+    // Held by whichever thread is flushing the queue, so SSTables commit in seal order.
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private volatile boolean closed;
+    // While a split hands half of this partition's keys to a new partition: the half it keeps.
+    // Writes to the other half are refused with BUSY until the split is narrowed in or abandoned.
+    private volatile HashScope splitFence;
     private final ConcurrentMap<Long, SSTableReader> readers = new ConcurrentHashMap<>();
+    // The same readers arranged per level for point lookups; rebuilt under the write lock whenever
+    // the manifest's table set changes.
+    private volatile SSTableLevels levels = SSTableLevels.EMPTY;
 
     // SSTable ledgers dropped by a committed compaction, awaiting physical deletion by GC: id -> when.
     private final ConcurrentMap<Long, Long> obsoleteSSTables = new ConcurrentHashMap<>();
@@ -119,15 +166,29 @@ public final class BoxEngine implements AutoCloseable {
     private final AtomicLong headCount = new AtomicLong();
     private final AtomicLong listCount = new AtomicLong();
     private final AtomicLong flushCount = new AtomicLong();
+    private final AtomicLong flushMillis = new AtomicLong();
     private final AtomicLong compactionCount = new AtomicLong();
     private final AtomicLong stallRejectionCount = new AtomicLong();
+    private final AtomicLong defragRelocationCount = new AtomicLong();
+    private final AtomicLong defragBytes = new AtomicLong();
+    private final AtomicLong bytesIn = new AtomicLong();
+    private final AtomicLong bytesOut = new AtomicLong();
+
+    // Syrup defragmentation scoring: entry counts of sealed Syrups (immutable once sealed, so cached
+    // until the Syrup is dropped) and the last scoring pass, reused while no write has landed since.
+    private final ConcurrentMap<Long, Long> syrupEntryCounts = new ConcurrentHashMap<>();
+    private volatile ScoredSyrups scoredSyrups;
 
     // Bounded idempotency cache: token -> already-applied result, so a retried put is a no-op.
     private final BoundedLruCache<String, CandyMetadata> idempotencyCache =
             new BoundedLruCache<>(IDEMPOTENCY_CACHE_SIZE);
+    // Idempotency tokens whose group-committed write is in progress; see onceForToken.
+    private final ConcurrentMap<String, java.util.concurrent.CountDownLatch> inFlightTokens =
+            new ConcurrentHashMap<>();
 
     private BoxEngine(BoxName box, CandyboxConfig config, LedgerStore ledgerStore,
-                      HybridLogicalClock hlc, Clock clock, Manifest manifest, WriteAheadLog wal) {
+                      HybridLogicalClock hlc, Clock clock, Manifest manifest, WriteAheadLog wal,
+                      EngineResources resources) {
         this.box = box;
         this.config = config;
         this.ledgerStore = ledgerStore;
@@ -135,32 +196,50 @@ public final class BoxEngine implements AutoCloseable {
         this.clock = clock;
         this.manifest = manifest;
         this.wal = wal;
+        this.activeWalIds.add(wal.ledgerId());
+        this.flushExecutor = resources.flushExecutor();
+        this.blockCache = resources.blockCache();
+        this.recoveryExecutor = resources.recoveryExecutor();
         this.syrupManager = new SyrupManager(ledgerStore, config, ledgerConfig(LedgerRole.SYRUP));
         this.sstableWriter = new SSTableWriter(ledgerStore, config.bloomBitsPerKey());
-        this.syrupReader = new SyrupReader(ledgerStore);
+        this.syrupReader = new SyrupReader(ledgerStore, config.syrupReadAheadWindow());
     }
 
     /**
-     * Boots a brand-new Box: fresh manifest and WAL, empty memtable.
+     * Boots a brand-new Box: fresh manifest and WAL, empty memtable. Sealed memtables are flushed
+     * inline on the writer thread that sealed them.
      *
      * @param fencingToken this owner's lease fencing token, stamped into every manifest edit
      */
     public static BoxEngine createNew(BoxName box, CandyboxConfig config, LedgerStore ledgerStore,
                                       int nodeId, Clock clock, long fencingToken) {
+        return createNew(box, config, ledgerStore, nodeId, clock, fencingToken,
+                EngineResources.standalone());
+    }
+
+    /**
+     * Boots a brand-new Box that flushes on, and reads through, the given node-wide resources.
+     *
+     * @param fencingToken this owner's lease fencing token, stamped into every manifest edit
+     * @param resources    the flush executor and block cache shared with the node's other Boxes
+     */
+    public static BoxEngine createNew(BoxName box, CandyboxConfig config, LedgerStore ledgerStore,
+                                      int nodeId, Clock clock, long fencingToken,
+                                      EngineResources resources) {
         HybridLogicalClock hlc = new HybridLogicalClock(nodeId, clock, config.maxClockSkewMillis());
         Manifest manifest = Manifest.createNew(ledgerStore, roleConfig(config, ledgerStore, box,
                 LedgerRole.MANIFEST), fencingToken);
-        WriteAheadLog wal = WriteAheadLog.create(ledgerStore, roleConfig(config, ledgerStore, box,
-                LedgerRole.WAL));
+        WriteAheadLog wal = createWal(config, ledgerStore, box);
         // Record the initial WAL id so a future owner can always find and fence it.
         manifest.apply(ManifestEdit.builder().newWalLedgerId(wal.ledgerId()).build());
-        return new BoxEngine(box, config, ledgerStore, hlc, clock, manifest, wal);
+        return new BoxEngine(box, config, ledgerStore, hlc, clock, manifest, wal, resources);
     }
 
     /**
-     * Recovers ownership of a Box on handover: replays the prior owner's manifest and WAL (fencing
-     * both), rebuilds the memtable, and — critically — advances the HLC past the maximum HLC durably
-     * recorded so a regressed wall clock cannot stamp a newer write with a lower timestamp.
+     * Recovers ownership of a Box on handover: replays the prior owner's manifest and WALs (fencing
+     * them), rebuilds the memtable, and — critically — advances the HLC past the maximum HLC durably
+     * recorded so a regressed wall clock cannot stamp a newer write with a lower timestamp. Sealed
+     * memtables are flushed inline on the writer thread that sealed them.
      *
      * @param priorManifestLedgerId the prior owner's manifest ledger id
      * @param fencingToken          this owner's lease fencing token; a stale (lower) token is rejected
@@ -168,46 +247,84 @@ public final class BoxEngine implements AutoCloseable {
     public static BoxEngine recover(BoxName box, CandyboxConfig config, LedgerStore ledgerStore,
                                     int nodeId, Clock clock, long priorManifestLedgerId,
                                     long fencingToken) {
+        return recover(box, config, ledgerStore, nodeId, clock, priorManifestLedgerId, fencingToken,
+                EngineResources.standalone());
+    }
+
+    /**
+     * Recovers ownership of a Box that then flushes on, and reads through, the given node-wide
+     * resources.
+     * The replayed WALs are the current one plus every pending WAL of a memtable the prior owner
+     * sealed but had not flushed yet.
+     *
+     * @param priorManifestLedgerId the prior owner's manifest ledger id
+     * @param fencingToken          this owner's lease fencing token; a stale (lower) token is rejected
+     * @param resources             the flush executor and block cache shared with the node's other Boxes
+     */
+    public static BoxEngine recover(BoxName box, CandyboxConfig config, LedgerStore ledgerStore,
+                                    int nodeId, Clock clock, long priorManifestLedgerId,
+                                    long fencingToken, EngineResources resources) {
+        // A cold takeover is a standby's that never caught up: everything is read after the fence.
+        return new StandbyReplica(box, config, ledgerStore, priorManifestLedgerId, clock, resources)
+                .promote(nodeId, clock, fencingToken);
+    }
+
+    /**
+     * The takeover sequence behind {@link #recover} and {@link StandbyReplica#promote}: fence and
+     * finish the manifest, then the WALs it names, then open whatever SSTable readers the replica does
+     * not already hold. The caller closes the replica afterwards.
+     */
+    static BoxEngine takeOver(StandbyReplica replica, CandyboxConfig config, int nodeId, Clock clock,
+                              long fencingToken, EngineResources resources) {
+        BoxName box = replica.box();
+        LedgerStore ledgerStore = replica.ledgerStore();
         HybridLogicalClock hlc = new HybridLogicalClock(nodeId, clock, config.maxClockSkewMillis());
-        Manifest manifest = Manifest.recover(ledgerStore,
-                roleConfig(config, ledgerStore, box, LedgerRole.MANIFEST), priorManifestLedgerId,
-                fencingToken);
+        long started = System.nanoTime();
+        Manifest manifest = replica.fenceManifest(
+                roleConfig(config, ledgerStore, box, LedgerRole.MANIFEST), fencingToken);
         ManifestState state = manifest.current();
-
-        Memtable memtable = new Memtable();
-        long priorWalId = state.walLedgerId();
-        if (priorWalId >= 0) {
-            // recover-open fences the prior WAL so a resurrected old owner cannot keep appending.
-            ReadableLedger priorWal = ledgerStore.recoverOpen(priorWalId);
-            WriteAheadLog.ReplayResult replay;
-            try {
-                replay = WriteAheadLog.replay(priorWal);
-            } finally {
-                priorWal.close();
-            }
-            for (WalEntry e : replay.entries()) {
-                if (e instanceof WalEntry.PointMutation pm) {
-                    memtable.put(pm.mutation());
-                } else if (e instanceof WalEntry.RangeDelete rd) {
-                    memtable.delete(rd.tombstone());
-                }
-            }
-            // The current WAL always holds the most recent mutations (it is rotated on flush), so its
-            // max HLC dominates the flushed SSTables — observing it suffices for LWW correctness. An
-            // empty WAL (prior owner flushed before handing over) reports Hlc.MIN: nothing to observe,
-            // and the SSTables' HLCs are in the past relative to any clock the prior owner stamped by.
-            if (!replay.entries().isEmpty()) {
-                hlc.observe(replay.maxHlc());
+        long manifestDone = System.nanoTime();
+
+        StandbyReplica.Replayed replayed = replica.fenceWals(state, WAL_REPLAY_READ_AHEAD);
+        Memtable memtable = replayed.memtable();
+        // The unflushed WALs always hold the most recent mutations (a WAL is rotated when its
+        // memtable is sealed), so their max HLC dominates the flushed SSTables — observing it
+        // suffices for LWW correctness. Empty WALs (prior owner flushed before handing over) report
+        // Hlc.MIN: nothing to observe, and the SSTables' HLCs are in the past relative to any clock
+        // the prior owner stamped by.
+        if (replayed.maxHlc().isAfter(Hlc.MIN)) {
+            hlc.observe(replayed.maxHlc());
+        }
+        long walDone = System.nanoTime();
+
+        WriteAheadLog newWal = createWal(config, ledgerStore, box);
+        ManifestEdit.Builder walEdit = ManifestEdit.builder().newWalLedgerId(newWal.ledgerId());
+        if (memtable.isEmpty()) {
+            // Nothing left to replay: every prior WAL is durable in SSTables (or empty) and may be GC'd.
+            walEdit.removedPendingWals(state.pendingWalLedgerIds());
+        } else if (state.walLedgerId() >= 0) {
+            // The replayed mutations live only in this owner's memtable until it is flushed, so their
+            // WALs stay recovery sources for the next handover; that flush's edit retires them.
+            walEdit.addedPendingWals(Set.of(state.walLedgerId()));
+        }
+        manifest.apply(walEdit.build());
+
+        BoxEngine engine = new BoxEngine(box, config, ledgerStore, hlc, clock, manifest, newWal,
+                resources);
+        engine.active = memtable;
+        if (memtable.isEmpty()) {
+            long now = clock.currentTimeMillis();
+            for (long priorWalId : replayed.walIds()) {
+                engine.obsoleteWals.put(priorWalId, now);
             }
+        } else {
+            engine.activeWalIds.addAll(replayed.walIds());
         }
-
-        WriteAheadLog newWal = WriteAheadLog.create(ledgerStore,
-                roleConfig(config, ledgerStore, box, LedgerRole.WAL));
-        manifest.apply(ManifestEdit.builder().newWalLedgerId(newWal.ledgerId()).build());
-
-        BoxEngine engine = new BoxEngine(box, config, ledgerStore, hlc, clock, manifest, newWal);
-        engine.active = memtable;
-        engine.openReadersFor(state);
+        engine.openReadersFor(state, replica.takeReaders(state));
+        engine.recoveryTimings = new RecoveryTimings(
+                TimeUnit.NANOSECONDS.toMillis(manifestDone - started),
+                TimeUnit.NANOSECONDS.toMillis(walDone - manifestDone), replayed.records(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - walDone), state.tables().size());
         // Catch Syrups already orphaned before this handover (e.g. by a prior owner that crashed
         // pre-GC) so they are not leaked.
         engine.lock.writeLock().lock();
@@ -219,10 +336,47 @@ public final class BoxEngine implements AutoCloseable {
         return engine;
     }
 
-    private void openReadersFor(ManifestState state) {
+    /**
+     * Adopts the readers a standby already opened and opens one per remaining live SSTable on the
+     * {@link EngineResources#recoveryExecutor()}, so a Box with many tables pays roughly the slowest
+     * open rather than their sum. If any open fails, every reader is closed and the first failure is
+     * rethrown.
+     */
+    private void openReadersFor(ManifestState state, Map<Long, SSTableReader> adopted) {
+        Map<Long, CompletableFuture<SSTableReader>> opening = new LinkedHashMap<>();
         for (SSTableMeta table : state.tables()) {
-            readers.put(table.ledgerId(), new SSTableReader(ledgerStore, table.ledgerId()));
+            long ledgerId = table.ledgerId();
+            SSTableReader open = adopted.get(ledgerId);
+            if (open != null) {
+                opening.put(ledgerId, CompletableFuture.completedFuture(open));
+                continue;
+            }
+            opening.put(ledgerId, CompletableFuture.supplyAsync(
+                    () -> new SSTableReader(ledgerStore, ledgerId, blockCache), recoveryExecutor));
+        }
+        Map<Long, SSTableReader> opened = new LinkedHashMap<>();
+        RuntimeException failure = null;
+        for (Map.Entry<Long, CompletableFuture<SSTableReader>> e : opening.entrySet()) {
+            try {
+                opened.put(e.getKey(), e.getValue().join());
+            } catch (CompletionException ex) {
+                if (failure == null) {
+                    failure = ex.getCause() instanceof RuntimeException cause ? cause
+                            : new StorageException("Failed to open SSTable " + e.getKey(), ex.getCause());
+                }
+            }
+        }
+        if (failure != null) {
+            opened.values().forEach(SSTableReader::close);
+            throw failure;
         }
+        readers.putAll(opened);
+        levels = SSTableLevels.of(state, readers);
+    }
+
+    /** Where this engine's recovery spent its time; {@link RecoveryTimings#NONE} if it was created. */
+    public RecoveryTimings recoveryTimings() {
+        return recoveryTimings;
     }
 
     public BoxName box() {
@@ -237,8 +391,17 @@ public final class BoxEngine implements AutoCloseable {
     // ---- writes ----------------------------------------------------------------------------
 
     /**
-     * Stores a Candy. The owner stamps the HLC, streams bytes into Syrups, appends the locator to the
-     * WAL, and applies it to the memtable.
+     * Stores a Candy. The owner streams bytes into Syrups, then stamps the HLC, appends the locator to
+     * the WAL, and applies it to the memtable.
+     *
+     * <p>The write is two-phase: the Syrup streaming — the slow, size-proportional part — runs outside
+     * the partition write lock, so concurrent large puts to one Box move their bytes in parallel. Only
+     * the short commit (HLC + WAL + memtable) is serialized under the lock, which is also where the
+     * LWW order is decided. The streamed Syrups stay pinned against orphan GC until the commit lands.
+     *
+     * <p>A Candy smaller than {@link CandyboxConfig#inlineThresholdBytes()} skips the Syrups entirely
+     * and is stored inline in its locator: the first {@code threshold} bytes are read up front, and
+     * only a stream that outlasts them goes on to {@link SyrupManager}.
      *
      * @param idempotencyToken optional client token to dedupe retried writes (may be null)
      * @return metadata for the stored Candy
@@ -263,33 +426,86 @@ public final class BoxEngine implements AutoCloseable {
         }
         Map<String, String> metadata = userMetadata == null ? Map.of() : Map.copyOf(userMetadata);
 
-        lock.writeLock().lock();
-        try {
-            CandyMetadata replay = idempotentResult(idempotencyToken);
-            if (replay != null) {
-                return replay;
+        // Checked before streaming so a stalled Box does not first absorb the whole payload.
+        requireWritable(key);
+        rejectIfStalled();
+        int threshold = config.inlineThresholdBytes();
+        InputStream rest = data;
+        if (threshold > 0) {
+            byte[] head = readUpTo(data, threshold);
+            if (head.length < threshold) {
+                // The whole Candy is below the inline threshold: its bytes ride in the locator and
+                // no Syrup is touched — provided that locator stays within the configured cap.
+                Validation.checkCandySize(head.length, config.sizeLimits());
+                int crc32c = Crc32c.of(head, 0, head.length);
+                Function<Hlc, CandyLocator> inline = stamp -> CandyLocator.inline(stamp, head,
+                        config.sizeLimits().chunkSizeBytes(), contentType, metadata, crc32c,
+                        clock.currentTimeMillis(), acl);
+                if (fitsLocatorCap(inline.apply(hlc.peek()))) {
+                    return commitPut(key, idempotencyToken, inline);
+                }
             }
-            rejectIfStalled();
-            SyrupWriteResult written = syrupManager.writeCandy(data);
+            rest = new SequenceInputStream(new ByteArrayInputStream(head), data);
+        }
+        SyrupWriteResult written = syrupManager.writeCandy(rest);
+        try {
             Validation.checkCandySize(written.contentLength(), config.sizeLimits());
+            // If a concurrent retry with the same token commits first, our streamed bytes become
+            // orphans for GC.
+            return commitPut(key, idempotencyToken, stamp -> CandyLocator.singlePart(stamp,
+                    written.contentLength(), config.sizeLimits().chunkSizeBytes(), contentType,
+                    metadata, written.crc32c(), clock.currentTimeMillis(), written.segments(), acl));
+        } finally {
+            syrupManager.release(written);
+        }
+    }
 
-            Hlc stamp = hlc.tick();
-            CandyLocator locator = CandyLocator.singlePart(stamp, written.contentLength(),
-                    config.sizeLimits().chunkSizeBytes(), contentType, metadata, written.crc32c(),
-                    clock.currentTimeMillis(), written.segments(), acl);
-            Mutation mutation = new Mutation(key, locator);
-            wal.append(mutation);
-            active.put(mutation);
-            maybeFlushLocked();
-
-            CandyMetadata result = CandyMetadata.from(locator);
-            if (idempotencyToken != null) {
-                idempotencyCache.put(idempotencyToken, result);
+    /**
+     * Commits a PUT: stamps the HLC, builds the locator, appends it to the WAL and applies it to the
+     * memtable, all under the shared lock so concurrent puts share a group-committed WAL entry.
+     */
+    private CandyMetadata commitPut(CandyKey key, String idempotencyToken,
+                                    Function<Hlc, CandyLocator> locatorAt) {
+        CandyMetadata result = onceForToken(idempotencyToken, () -> {
+            lock.readLock().lock();
+            try {
+                requireWritable(key);
+                CandyLocator locator = locatorAt.apply(hlc.tick());
+                Mutation mutation = new Mutation(key, locator);
+                // Group commit: returns once the batch carrying this record is durable.
+                wal.append(mutation);
+                active.put(mutation);
+
+                CandyMetadata committed = CandyMetadata.from(locator);
+                if (idempotencyToken != null) {
+                    idempotencyCache.put(idempotencyToken, committed);
+                }
+                putCount.incrementAndGet();
+                bytesIn.addAndGet(locator.contentLength());
+                return committed;
+            } finally {
+                lock.readLock().unlock();
             }
-            putCount.incrementAndGet();
-            return result;
-        } finally {
-            lock.writeLock().unlock();
+        });
+        maybeFlush();
+        return result;
+    }
+
+    private boolean fitsLocatorCap(CandyLocator locator) {
+        try {
+            CandyLocatorSerializer.serialize(locator, config.sizeLimits().maxLocatorBytes());
+            return true;
+        } catch (LimitExceededException e) {
+            return false;
+        }
+    }
+
+    /** Reads at most {@code limit} bytes of {@code in}; fewer means the stream ended. */
+    private static byte[] readUpTo(InputStream in, int limit) {
+        try {
+            return in.readNBytes(limit);
+        } catch (IOException e) {
+            throw new StorageException("Failed reading Candy content stream", e);
         }
     }
 
@@ -314,6 +530,7 @@ public final class BoxEngine implements AutoCloseable {
         Map<String, String> metadata = userMetadata == null ? Map.of() : Map.copyOf(userMetadata);
         lock.writeLock().lock();
         try {
+            requireWritable(key);
             int inFlight = manifest.current().multipartUploads().size();
             if (inFlight >= config.multipartMaxConcurrentUploadsPerBox()) {
                 throw new ValidationException("Too many in-flight multipart uploads in box "
@@ -334,6 +551,10 @@ public final class BoxEngine implements AutoCloseable {
      * under {@code (uploadId, partNumber)}. A re-upload of the same {@code partNumber} supersedes the
      * prior part (last-write-wins); its Syrup segments are enqueued as pending orphans for GC.
      *
+     * <p>Like {@link #putCandy}, the bytes stream outside the partition write lock; only the manifest
+     * edit is serialized. The upload is re-checked under the lock in case it was completed or aborted
+     * while the part was streaming.
+     *
      * @return the per-part CRC32C and length, useful to the gateway for ETag construction
      */
     public PartUploadResult uploadPart(String uploadId, int partNumber, InputStream data) {
@@ -344,34 +565,38 @@ public final class BoxEngine implements AutoCloseable {
             throw new ValidationException("partNumber must be in [1, " + config.multipartMaxParts()
                     + "]");
         }
-        lock.writeLock().lock();
+        rejectIfStalled();
+        requireUpload(uploadId);
+        // The bytes go to Syrups via the normal write path, exactly like a single PUT.
+        SyrupWriteResult written = syrupManager.writeCandy(data);
         try {
-            rejectIfStalled();
-            MultipartUploadState upload = manifest.current().multipartUploads().get(uploadId);
-            if (upload == null) {
-                throw new CandyNotFoundException(box.value(), uploadId);
-            }
-            // The bytes go to Syrups via the normal write path, exactly like a single PUT.
-            SyrupWriteResult written = syrupManager.writeCandy(data);
             Validation.checkCandySize(written.contentLength(), config.sizeLimits());
             Part newPart = new Part(written.contentLength(), config.sizeLimits().chunkSizeBytes(),
                     written.crc32c(), written.segments());
-            // Apply the manifest edit; on success the old part (if any) becomes a pending orphan.
-            Part previous = upload.parts().get(partNumber);
-            manifest.apply(ManifestEdit.builder()
-                    .addPartUpsert(uploadId, partNumber, newPart)
-                    .build());
-            recomputeOrphanSyrupsLocked(clock.currentTimeMillis());
-            // Defensive: if we just superseded a part, its segments are reachable only through the
-            // pending-orphan path now.
-            if (previous != null) {
-                // referenced-syrup recompute already enqueued any newly-orphaned ledger.
-                LOG.debug("Superseded part {} of upload {} ({} bytes)", partNumber, uploadId,
-                        previous.partLength());
+            lock.writeLock().lock();
+            try {
+                MultipartUploadState upload = requireUpload(uploadId);
+                requireWritable(CandyKey.of(upload.key()));
+                // Apply the manifest edit; on success the old part (if any) becomes a pending orphan.
+                Part previous = upload.parts().get(partNumber);
+                manifest.apply(ManifestEdit.builder()
+                        .addPartUpsert(uploadId, partNumber, newPart)
+                        .build());
+                recomputeOrphanSyrupsLocked(clock.currentTimeMillis());
+                // Defensive: if we just superseded a part, its segments are reachable only through the
+                // pending-orphan path now.
+                if (previous != null) {
+                    // referenced-syrup recompute already enqueued any newly-orphaned ledger.
+                    LOG.debug("Superseded part {} of upload {} ({} bytes)", partNumber, uploadId,
+                            previous.partLength());
+                }
+                bytesIn.addAndGet(written.contentLength());
+                return new PartUploadResult(written.crc32c(), written.contentLength());
+            } finally {
+                lock.writeLock().unlock();
             }
-            return new PartUploadResult(written.crc32c(), written.contentLength());
         } finally {
-            lock.writeLock().unlock();
+            syrupManager.release(written);
         }
     }
 
@@ -397,42 +622,55 @@ public final class BoxEngine implements AutoCloseable {
             throw new ValidationException("partNumber must be in [1, " + config.multipartMaxParts()
                     + "]");
         }
-        lock.writeLock().lock();
+        rejectIfStalled();
+        requireUpload(uploadId);
+        CandyLocator source = resolveLive(src)
+                .orElseThrow(() -> new CandyNotFoundException(box.value(), src.value()));
+        long total = source.contentLength();
+        long resolvedFirst = firstByte < 0 ? 0 : firstByte;
+        long resolvedLast = lastByte < 0 ? total - 1 : Math.min(lastByte, total - 1);
+        if (total == 0 || resolvedFirst >= total || resolvedLast < resolvedFirst) {
+            throw new ValidationException("InvalidRange: copy-source-range " + firstByte + "-"
+                    + lastByte + " not satisfiable (object length " + total + ")");
+        }
+        // v1: buffer the slice in memory, then write through the normal Syrup chunker. The slice
+        // size is bounded by the same per-part cap that already applies to UploadPart, so this is
+        // no worse than a regular UploadPart of the same bytes. A true zero-copy that shares
+        // Syrup segments when the source range aligns to chunk boundaries is a future refinement.
+        // Both the read and the re-write run outside the partition write lock (same as getCandy and
+        // putCandy), so a large copy does not block other writers to the Box.
+        java.io.ByteArrayOutputStream buffer = new java.io.ByteArrayOutputStream(
+                (int) Math.min(resolvedLast - resolvedFirst + 1, Integer.MAX_VALUE));
+        syrupReader.readRange(source.parts(), resolvedFirst, resolvedLast, buffer);
+        SyrupWriteResult written = syrupManager.writeCandy(
+                new java.io.ByteArrayInputStream(buffer.toByteArray()));
         try {
-            rejectIfStalled();
-            MultipartUploadState upload = manifest.current().multipartUploads().get(uploadId);
-            if (upload == null) {
-                throw new CandyNotFoundException(box.value(), uploadId);
-            }
-            CandyLocator source = resolveLiveLocked(src)
-                    .orElseThrow(() -> new CandyNotFoundException(box.value(), src.value()));
-            long total = source.contentLength();
-            long resolvedFirst = firstByte < 0 ? 0 : firstByte;
-            long resolvedLast = lastByte < 0 ? total - 1 : Math.min(lastByte, total - 1);
-            if (total == 0 || resolvedFirst >= total || resolvedLast < resolvedFirst) {
-                throw new ValidationException("InvalidRange: copy-source-range " + firstByte + "-"
-                        + lastByte + " not satisfiable (object length " + total + ")");
-            }
-            // v1: buffer the slice in memory, then write through the normal Syrup chunker. The slice
-            // size is bounded by the same per-part cap that already applies to UploadPart, so this is
-            // no worse than a regular UploadPart of the same bytes. A true zero-copy that shares
-            // Syrup segments when the source range aligns to chunk boundaries is a future refinement.
-            java.io.ByteArrayOutputStream buffer = new java.io.ByteArrayOutputStream(
-                    (int) Math.min(resolvedLast - resolvedFirst + 1, Integer.MAX_VALUE));
-            syrupReader.readRange(source.parts(), resolvedFirst, resolvedLast, buffer);
-            SyrupWriteResult written = syrupManager.writeCandy(
-                    new java.io.ByteArrayInputStream(buffer.toByteArray()));
             Validation.checkCandySize(written.contentLength(), config.sizeLimits());
             Part newPart = new Part(written.contentLength(), config.sizeLimits().chunkSizeBytes(),
                     written.crc32c(), written.segments());
-            manifest.apply(ManifestEdit.builder()
-                    .addPartUpsert(uploadId, partNumber, newPart)
-                    .build());
-            recomputeOrphanSyrupsLocked(clock.currentTimeMillis());
-            return new PartUploadResult(written.crc32c(), written.contentLength());
+            lock.writeLock().lock();
+            try {
+                requireWritable(CandyKey.of(requireUpload(uploadId).key()));
+                manifest.apply(ManifestEdit.builder()
+                        .addPartUpsert(uploadId, partNumber, newPart)
+                        .build());
+                recomputeOrphanSyrupsLocked(clock.currentTimeMillis());
+                return new PartUploadResult(written.crc32c(), written.contentLength());
+            } finally {
+                lock.writeLock().unlock();
+            }
         } finally {
-            lock.writeLock().unlock();
+            syrupManager.release(written);
+        }
+    }
+
+    /** The in-flight upload {@code uploadId}, or {@link CandyNotFoundException} if there is none. */
+    private MultipartUploadState requireUpload(String uploadId) {
+        MultipartUploadState upload = manifest.current().multipartUploads().get(uploadId);
+        if (upload == null) {
+            throw new CandyNotFoundException(box.value(), uploadId);
         }
+        return upload;
     }
 
     /**
@@ -501,8 +739,9 @@ public final class BoxEngine implements AutoCloseable {
                 }
                 ordered.add(recorded);
             }
-            Hlc stamp = hlc.tick();
             CandyKey targetKey = CandyKey.of(upload.key());
+            requireWritable(targetKey);
+            Hlc stamp = hlc.tick();
             CandyLocator locator = new CandyLocator(stamp, LocatorType.PUT, upload.contentType(),
                     upload.userMetadata(), clock.currentTimeMillis(), ordered, acl);
             Mutation mutation = new Mutation(targetKey, locator);
@@ -540,9 +779,11 @@ public final class BoxEngine implements AutoCloseable {
         }
         lock.writeLock().lock();
         try {
-            if (!manifest.current().multipartUploads().containsKey(uploadId)) {
+            MultipartUploadState upload = manifest.current().multipartUploads().get(uploadId);
+            if (upload == null) {
                 return;
             }
+            requireWritable(CandyKey.of(upload.key()));
             manifest.apply(ManifestEdit.builder().removedUploads(Set.of(uploadId)).build());
             recomputeOrphanSyrupsLocked(clock.currentTimeMillis());
         } finally {
@@ -606,18 +847,20 @@ public final class BoxEngine implements AutoCloseable {
     /** Writes a DELETE tombstone for {@code key} under a fresh HLC. */
     public void deleteCandy(CandyKey key) {
         Validation.checkCandyKey(key, config.sizeLimits());
-        lock.writeLock().lock();
+        rejectIfStalled();
+        lock.readLock().lock();
         try {
-            rejectIfStalled();
+            requireWritable(key);
             Hlc stamp = hlc.tick();
             Mutation mutation = new Mutation(key, CandyLocator.tombstone(stamp, clock.currentTimeMillis()));
+            // Group commit, like putCandy: blind deletes share WAL entries under the shared lock.
             wal.append(mutation);
             active.put(mutation);
-            maybeFlushLocked();
             deleteCount.incrementAndGet();
         } finally {
-            lock.writeLock().unlock();
+            lock.readLock().unlock();
         }
+        maybeFlush();
     }
 
     /**
@@ -674,6 +917,10 @@ public final class BoxEngine implements AutoCloseable {
             rejectIfStalled();
             CandyLocator source = resolveLiveLocked(src)
                     .orElseThrow(() -> new CandyNotFoundException(box.value(), src.value()));
+            requireWritable(dst);
+            if (tombstoneSource) {
+                requireWritable(src);
+            }
 
             // The destination locator reuses the source's parts verbatim — zero copy of the bytes
             // *and* zero rebuild of the part list, so a multipart source becomes a multipart-shaped
@@ -749,6 +996,7 @@ public final class BoxEngine implements AutoCloseable {
                 return replay;
             }
             rejectIfStalled();
+            requireWritable(dst);
             Hlc stamp = hlc.tick();
             CandyLocator dstLocator = new CandyLocator(stamp, LocatorType.PUT, contentType, metadata,
                     createdAtMillis > 0 ? createdAtMillis : clock.currentTimeMillis(),
@@ -781,6 +1029,7 @@ public final class BoxEngine implements AutoCloseable {
         lock.writeLock().lock();
         try {
             rejectIfStalled();
+            requireWritable(key);
             CandyLocator live = resolveLiveLocked(key).orElse(null);
             if (live == null || expectedHlc == null || !live.hlc().equals(expectedHlc)) {
                 return false;
@@ -802,6 +1051,7 @@ public final class BoxEngine implements AutoCloseable {
     public void recordRenameIntent(RenameIntent intent) {
         lock.writeLock().lock();
         try {
+            requireWritable(CandyKey.of(intent.srcKey()));
             manifest.apply(ManifestEdit.builder().addRenameIntent(intent).build());
         } finally {
             lock.writeLock().unlock();
@@ -826,9 +1076,9 @@ public final class BoxEngine implements AutoCloseable {
 
     /**
      * The set of Syrup ids this partition currently references — manifest SSTable refs, in-flight
-     * multipart parts, the memtable, and the open write Syrup. Published to coordination so the
-     * Box-global GC never reclaims a Syrup a sibling partition still points at (cross-partition
-     * zero-copy copy/rename).
+     * multipart parts, the active and sealed memtables, and the open or in-flight write Syrups.
+     * Published to coordination so the Box-global GC never reclaims a Syrup a sibling partition
+     * still points at (cross-partition zero-copy copy/rename).
      */
     public java.util.Set<Long> referencedSyrups() {
         lock.readLock().lock();
@@ -836,21 +1086,164 @@ public final class BoxEngine implements AutoCloseable {
             ManifestState current = manifest.current();
             java.util.Set<Long> referenced = new java.util.HashSet<>(current.referencedSyrups());
             referenced.addAll(current.multipartReferencedSyrups());
-            for (java.util.Iterator<Mutation> it = active.iterator(); it.hasNext(); ) {
-                for (SegmentRef seg : it.next().locator().segments()) {
-                    referenced.add(seg.syrupId());
-                }
-            }
-            long openSyrup = syrupManager.currentSyrupId();
-            if (openSyrup >= 0) {
-                referenced.add(openSyrup);
+            for (Memtable memtable : memtables()) {
+                collectSyrups(memtable, referenced);
             }
+            referenced.addAll(syrupManager.openSyrupIds());
             return referenced;
         } finally {
             lock.readLock().unlock();
         }
     }
 
+    /**
+     * The SSTable ledger ids this partition's manifest lists. Published alongside
+     * {@link #referencedSyrups()}: after a split both halves share the parent's tables, so one half
+     * compacting a table away must not delete it while the other still reads it.
+     */
+    public java.util.Set<Long> referencedSSTables() {
+        java.util.Set<Long> referenced = new java.util.HashSet<>();
+        for (SSTableMeta table : manifest.current().tables()) {
+            referenced.add(table.ledgerId());
+        }
+        return referenced;
+    }
+
+    // ---- partition split (DESIGN §7b) ---------------------------------------------------------
+
+    /**
+     * Splits this partition by hash: the {@link HashScope#right()} half of its scope goes to a new
+     * partition, whose engine this returns, owned under {@code fencingToken}. The new partition starts
+     * from this one's SSTables and Syrups by reference — no Candy bytes move — plus the in-flight
+     * multipart uploads and rename intents of the keys it takes over.
+     *
+     * <p>The memtable is flushed first, so the shared tables hold every write accepted so far; from
+     * then until {@link #narrowScope} or {@link #abandonSplit}, writes to the handed-off half are
+     * refused with {@code BUSY}. This partition keeps serving reads of that half meanwhile, so the
+     * caller can publish the new partition before narrowing this one.
+     *
+     * @throws IllegalStateException if a split is already in progress, or the scope cannot split
+     */
+    public BoxEngine split(int nodeId, long fencingToken, EngineResources resources) {
+        HashScope scope;
+        lock.writeLock().lock();
+        try {
+            if (splitFence != null) {
+                throw new IllegalStateException("Box " + box + " is already splitting");
+            }
+            scope = manifest.current().hashScope();
+            splitFence = scope.left();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        try {
+            flush();
+            // Compactions committed from here on still run with the whole scope, so whatever table
+            // set this snapshot names holds the handed-off half in full.
+            ManifestState snapshot = manifest.current();
+            HashScope handedOff = scope.right();
+            List<MultipartUploadState> uploads = new ArrayList<>();
+            for (MultipartUploadState upload : snapshot.multipartUploads().values()) {
+                if (handedOff.contains(CandyKey.of(upload.key()))) {
+                    uploads.add(upload);
+                }
+            }
+            List<RenameIntent> intents = new ArrayList<>();
+            for (RenameIntent intent : snapshot.renameIntents().values()) {
+                if (handedOff.contains(CandyKey.of(intent.srcKey()))) {
+                    intents.add(intent);
+                }
+            }
+            // Every version in the shared tables was stamped by this clock: the new partition's
+            // writes must order after all of them.
+            HybridLogicalClock childHlc = new HybridLogicalClock(nodeId, clock,
+                    config.maxClockSkewMillis());
+            childHlc.observe(hlc.peek());
+            Manifest childManifest = Manifest.createNew(ledgerStore, ledgerConfig(LedgerRole.MANIFEST),
+                    fencingToken);
+            WriteAheadLog childWal = createWal(config, ledgerStore, box);
+            childManifest.apply(ManifestEdit.builder()
+                    .newWalLedgerId(childWal.ledgerId())
+                    .addedTables(snapshot.tables())
+                    .addedSyrups(snapshot.liveSyrups())
+                    .addedUploads(uploads)
+                    .addedRenameIntents(intents)
+                    .hashScope(handedOff)
+                    .build());
+            BoxEngine child = new BoxEngine(box, config, ledgerStore, childHlc, clock, childManifest,
+                    childWal, resources);
+            try {
+                child.openReadersFor(childManifest.current(), Map.of());
+                child.lock.writeLock().lock();
+                try {
+                    child.recomputeOrphanSyrupsLocked(clock.currentTimeMillis());
+                } finally {
+                    child.lock.writeLock().unlock();
+                }
+            } catch (RuntimeException e) {
+                child.close();
+                throw e;
+            }
+            LOG.info("Split box {} scope {}: handing {} to manifest ledger {} ({} tables shared)", box,
+                    scope, handedOff, childManifest.ledgerId(), snapshot.tables().size());
+            return child;
+        } catch (RuntimeException e) {
+            splitFence = null;
+            throw e;
+        }
+    }
+
+    /**
+     * Narrows this partition to {@code scope}: keys outside it become another partition's, so
+     * they are refused from now on, and the in-flight multipart uploads and rename intents of those
+     * keys are dropped here. Commits this side of a {@link #split}, and also finishes one interrupted
+     * after its new partition was published (the caller passes the scope routing names). A no-op if
+     * the scope is already {@code scope}. Fencing-gated.
+     *
+     * @throws IllegalArgumentException if {@code scope} is not within the current scope
+     */
+    public void narrowScope(HashScope scope) {
+        lock.writeLock().lock();
+        try {
+            ManifestState current = manifest.current();
+            if (!current.hashScope().covers(scope)) {
+                throw new IllegalArgumentException("Scope " + scope + " is not within "
+                        + current.hashScope() + " of box " + box);
+            }
+            Set<String> uploads = new LinkedHashSet<>();
+            for (MultipartUploadState upload : current.multipartUploads().values()) {
+                if (!scope.contains(CandyKey.of(upload.key()))) {
+                    uploads.add(upload.uploadId());
+                }
+            }
+            Set<String> intents = new LinkedHashSet<>();
+            for (RenameIntent intent : current.renameIntents().values()) {
+                if (!scope.contains(CandyKey.of(intent.srcKey()))) {
+                    intents.add(intent.token());
+                }
+            }
+            if (!scope.equals(current.hashScope()) || !uploads.isEmpty() || !intents.isEmpty()) {
+                manifest.apply(ManifestEdit.builder()
+                        .hashScope(scope)
+                        .removedUploads(uploads)
+                        .removedRenameIntents(intents)
+                        .build());
+                recomputeOrphanSyrupsLocked(clock.currentTimeMillis());
+            }
+            splitFence = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Gives up a {@link #split} this partition has not been narrowed for: writes to its whole scope
+     * are accepted again. The caller closes the new partition's engine, which never served.
+     */
+    public void abandonSplit() {
+        splitFence = null;
+    }
+
     /**
      * Deletes every live Candy whose key falls in {@code [startInclusive, endExclusive)} with a single
      * O(1) range tombstone — no per-key scan or write. Either bound may be null (null start = from the
@@ -867,6 +1260,10 @@ public final class BoxEngine implements AutoCloseable {
         lock.writeLock().lock();
         try {
             rejectIfStalled();
+            if (splitFence != null) {
+                // A range may span both halves; the new partition's snapshot is already taken.
+                throw new BusyException("Box " + box + " is splitting; retry the range delete");
+            }
             RangeTombstone tombstone = new RangeTombstone(startInclusive, endExclusive, hlc.tick());
             wal.append(tombstone);
             active.delete(tombstone);
@@ -898,6 +1295,7 @@ public final class BoxEngine implements AutoCloseable {
      *
      * @throws CandyNotFoundException if there is no live Candy at {@code key}
      */
+    @Override
     public ObjectAcl getCandyAcl(CandyKey key) {
         CandyLocator locator = resolveLive(key)
                 .orElseThrow(() -> new CandyNotFoundException(box.value(), key.value()));
@@ -917,6 +1315,7 @@ public final class BoxEngine implements AutoCloseable {
         lock.writeLock().lock();
         try {
             rejectIfStalled();
+            requireWritable(key);
             CandyLocator current = resolveLiveLocked(key)
                     .orElseThrow(() -> new CandyNotFoundException(box.value(), key.value()));
             CandyLocator updated = current.withAcl(hlc.tick(), acl);
@@ -934,6 +1333,7 @@ public final class BoxEngine implements AutoCloseable {
     // ---- reads -----------------------------------------------------------------------------
 
     /** Returns metadata for a live Candy, or throws {@link CandyNotFoundException}. */
+    @Override
     public CandyMetadata headCandy(CandyKey key) {
         CandyLocator locator = resolveLive(key)
                 .orElseThrow(() -> new CandyNotFoundException(box.value(), key.value()));
@@ -948,12 +1348,25 @@ public final class BoxEngine implements AutoCloseable {
      *
      * @throws CandyNotFoundException if there is no live Candy at {@code key}
      */
+    @Override
     public CandyMetadata getCandy(CandyKey key, OutputStream out) {
+        return getCandy(key, metadata -> out);
+    }
+
+    /**
+     * {@link #getCandy(CandyKey, OutputStream)} for a caller that needs the metadata before the
+     * bytes — a streamed response sends it ahead of the body: {@code sink} is handed the metadata
+     * once the key resolves and returns where the bytes go.
+     */
+    @Override
+    public CandyMetadata getCandy(CandyKey key, Function<CandyMetadata, OutputStream> sink) {
         CandyLocator locator = resolveLive(key)
                 .orElseThrow(() -> new CandyNotFoundException(box.value(), key.value()));
-        syrupReader.readParts(locator.parts(), out);
+        CandyMetadata metadata = CandyMetadata.from(locator);
+        syrupReader.readParts(locator.parts(), sink.apply(metadata));
         getCount.incrementAndGet();
-        return CandyMetadata.from(locator);
+        bytesOut.addAndGet(metadata.contentLength());
+        return metadata;
     }
 
     /**
@@ -979,47 +1392,16 @@ public final class BoxEngine implements AutoCloseable {
      * @throws IllegalArgumentException   if the resolved range is not satisfiable (S3
      *                                    {@code InvalidRange})
      */
+    @Override
     public RangeReadResult getCandyRange(CandyKey key, long firstByte, long lastByte,
                                          OutputStream out) {
         CandyLocator locator = resolveLive(key)
                 .orElseThrow(() -> new CandyNotFoundException(box.value(), key.value()));
-        long total = locator.contentLength();
-        long resolvedFirst;
-        long resolvedLast;
-        if (firstByte < 0 && lastByte < 0) {
-            throw new IllegalArgumentException("Invalid range: neither bound supplied");
-        }
-        if (firstByte < 0) {
-            // Suffix range: the last `lastByte` bytes.
-            long suffix = lastByte;
-            if (suffix <= 0) {
-                throw new IllegalArgumentException("Suffix range must be positive");
-            }
-            if (suffix >= total) {
-                resolvedFirst = 0;
-            } else {
-                resolvedFirst = total - suffix;
-            }
-            resolvedLast = total - 1;
-        } else if (lastByte < 0) {
-            // "From firstByte to end".
-            resolvedFirst = firstByte;
-            resolvedLast = total - 1;
-        } else {
-            resolvedFirst = firstByte;
-            resolvedLast = Math.min(lastByte, total - 1);
-        }
-        if (total == 0 || resolvedFirst >= total) {
-            throw new IllegalArgumentException("Range " + firstByte + "-" + lastByte
-                    + " not satisfiable (object length " + total + ")");
-        }
-        if (resolvedLast < resolvedFirst) {
-            throw new IllegalArgumentException("Range " + firstByte + "-" + lastByte
-                    + " is empty after resolution");
-        }
-        syrupReader.readRange(locator.parts(), resolvedFirst, resolvedLast, out);
+        RangeReadResult range = RangeReadResult.resolve(locator, firstByte, lastByte);
+        syrupReader.readRange(locator.parts(), range.firstByte(), range.lastByte(), out);
         getCount.incrementAndGet();
-        return new RangeReadResult(resolvedFirst, resolvedLast, total, CandyMetadata.from(locator));
+        bytesOut.addAndGet(range.contentLength());
+        return range;
     }
 
     /**
@@ -1032,6 +1414,46 @@ public final class BoxEngine implements AutoCloseable {
         public long contentLength() {
             return lastByte - firstByte + 1;
         }
+
+        /** Resolves a requested window against {@code locator}'s length; see {@link #getCandyRange}. */
+        static RangeReadResult resolve(CandyLocator locator, long firstByte, long lastByte) {
+            long total = locator.contentLength();
+            long resolvedFirst;
+            long resolvedLast;
+            if (firstByte < 0 && lastByte < 0) {
+                throw new IllegalArgumentException("Invalid range: neither bound supplied");
+            }
+            if (firstByte < 0) {
+                // Suffix range: the last `lastByte` bytes.
+                long suffix = lastByte;
+                if (suffix <= 0) {
+                    throw new IllegalArgumentException("Suffix range must be positive");
+                }
+                if (suffix >= total) {
+                    resolvedFirst = 0;
+                } else {
+                    resolvedFirst = total - suffix;
+                }
+                resolvedLast = total - 1;
+            } else if (lastByte < 0) {
+                // "From firstByte to end".
+                resolvedFirst = firstByte;
+                resolvedLast = total - 1;
+            } else {
+                resolvedFirst = firstByte;
+                resolvedLast = Math.min(lastByte, total - 1);
+            }
+            if (total == 0 || resolvedFirst >= total) {
+                throw new IllegalArgumentException("Range " + firstByte + "-" + lastByte
+                        + " not satisfiable (object length " + total + ")");
+            }
+            if (resolvedLast < resolvedFirst) {
+                throw new IllegalArgumentException("Range " + firstByte + "-" + lastByte
+                        + " is empty after resolution");
+            }
+            return new RangeReadResult(resolvedFirst, resolvedLast, total,
+                    CandyMetadata.from(locator));
+        }
     }
 
     /** Convenience: fully read a (small) Candy into a byte array. */
@@ -1056,65 +1478,18 @@ public final class BoxEngine implements AutoCloseable {
      * narrowed to a prefix, walked forward or in reverse, paged by the query's cursor and limit.
      * Tombstones are suppressed; the result's {@code nextStartAfter} is the continuation cursor for the
      * next page in the same direction (or {@code null} when exhausted).
+     *
+     * <p>With a delimiter, the first key of each common prefix emits the prefix and every source is
+     * re-seeked past the prefix's group, so a page costs one seek per prefix rather than a walk over
+     * every key beneath it.
      */
+    @Override
     public ListResult scanCandies(ScanQuery query) {
-        int limit = query.effectiveMaxKeys();
-        boolean forward = query.direction() == ScanDirection.FORWARD;
-
         lock.readLock().lock();
         try {
-            // Normalize the prefix into [lower, upper) and intersect it with any explicit bounds.
-            CandyKey lower = query.startInclusive();
-            CandyKey upper = query.endExclusive();
-            if (query.prefix() != null && !query.prefix().isEmpty()) {
-                CandyKey prefixLower = CandyKey.of(query.prefix());
-                byte[] succ = me.predatorray.candybox.common.util.Bytes
-                        .prefixSuccessor(prefixLower.utf8Bytes());
-                lower = maxKey(lower, prefixLower);
-                upper = minKey(upper, succ == null ? null : CandyKey.ofUtf8(succ));
-            }
-            CandyKey cursor = query.cursorExclusive();
-
-            Iterator<Mutation> merged = mergedView(lower, upper, cursor, query.direction());
-            List<RangeTombstone> rangeTombstones = gatherRangeTombstonesLocked();
-            List<ListResult.ListEntry> entries = new ArrayList<>();
-            String next = null;
-            while (merged.hasNext()) {
-                Mutation m = merged.next();
-                CandyKey key = m.key();
-                if (isShadowedByRange(rangeTombstones, key, m.hlc())) {
-                    continue; // a newer range tombstone deletes this key
-                }
-                if (cursor != null) {
-                    int c = key.compareTo(cursor);
-                    if (forward ? c <= 0 : c >= 0) {
-                        continue; // cursor is exclusive in the scan direction
-                    }
-                }
-                if (forward) {
-                    if (lower != null && key.compareTo(lower) < 0) {
-                        continue;
-                    }
-                    if (upper != null && key.compareTo(upper) >= 0) {
-                        break; // ascending: past the window's exclusive upper bound
-                    }
-                } else {
-                    if (upper != null && key.compareTo(upper) >= 0) {
-                        continue;
-                    }
-                    if (lower != null && key.compareTo(lower) < 0) {
-                        break; // descending: below the window's inclusive lower bound
-                    }
-                }
-                if (entries.size() == limit) {
-                    next = entries.get(entries.size() - 1).key().value();
-                    break;
-                }
-                CandyLocator loc = m.locator();
-                entries.add(new ListResult.ListEntry(key, loc.contentLength(), loc.createdAtMillis()));
-            }
+            ListResult result = view().scan(query);
             listCount.incrementAndGet();
-            return new ListResult(entries, next);
+            return result;
         } finally {
             lock.readLock().unlock();
         }
@@ -1132,7 +1507,8 @@ public final class BoxEngine implements AutoCloseable {
         try {
             manifest.apply(edit); // fencing-gated: throws if this owner has been superseded
             for (SSTableMeta added : edit.addedTables()) {
-                readers.computeIfAbsent(added.ledgerId(), id -> new SSTableReader(ledgerStore, id));
+                readers.computeIfAbsent(added.ledgerId(),
+                        id -> new SSTableReader(ledgerStore, id, blockCache));
             }
             long now = clock.currentTimeMillis();
             for (Long removed : edit.removedTableLedgerIds()) {
@@ -1142,6 +1518,7 @@ public final class BoxEngine implements AutoCloseable {
                 }
                 obsoleteSSTables.put(removed, now);
             }
+            levels = SSTableLevels.of(manifest.current(), readers);
             recomputeOrphanSyrupsLocked(now);
             compactionCount.incrementAndGet();
         } finally {
@@ -1150,25 +1527,21 @@ public final class BoxEngine implements AutoCloseable {
     }
 
     /**
-     * Recomputes which live Syrups are no longer referenced by any SSTable, the active memtable, or the
-     * currently open write Syrup, recording newly-orphaned ones with the time first seen. Syrup
-     * references only ever decrease (compaction drops superseded/tombstoned locators), so an orphan
-     * stays an orphan. Called under the write lock after a manifest change.
+     * Recomputes which live Syrups are no longer referenced by any SSTable, a memtable (active or
+     * sealed), or an open or in-flight write Syrup, recording newly-orphaned ones with the time
+     * first seen. Syrup references only ever decrease (compaction drops superseded/tombstoned
+     * locators), so an orphan stays an orphan. Called under the write lock after a manifest change.
      */
     private void recomputeOrphanSyrupsLocked(long now) {
         ManifestState current = manifest.current();
         java.util.Set<Long> referenced = new java.util.HashSet<>(current.referencedSyrups());
         // In-flight multipart uploads pin their parts' Syrups until Complete or Abort fires.
         referenced.addAll(current.multipartReferencedSyrups());
-        for (java.util.Iterator<Mutation> it = active.iterator(); it.hasNext(); ) {
-            for (SegmentRef seg : it.next().locator().segments()) {
-                referenced.add(seg.syrupId());
-            }
-        }
-        long openSyrup = syrupManager.currentSyrupId();
-        if (openSyrup >= 0) {
-            referenced.add(openSyrup);
+        for (Memtable memtable : memtables()) {
+            collectSyrups(memtable, referenced);
         }
+        // Open Syrups and those holding bytes of writes that have not committed yet.
+        referenced.addAll(syrupManager.openSyrupIds());
         for (Long syrup : current.liveSyrups()) {
             if (!referenced.contains(syrup)) {
                 pendingOrphanSyrups.putIfAbsent(syrup, now);
@@ -1201,6 +1574,7 @@ public final class BoxEngine implements AutoCloseable {
                     .removedSyrups(new java.util.LinkedHashSet<>(syrupIds))
                     .build());
             syrupIds.forEach(pendingOrphanSyrups::remove);
+            syrupIds.forEach(syrupEntryCounts::remove);
         } finally {
             lock.writeLock().unlock();
         }
@@ -1241,6 +1615,207 @@ public final class BoxEngine implements AutoCloseable {
         obsoleteWals.remove(ledgerId);
     }
 
+    // ---- Syrup defragmentation (DESIGN §9(d)) -------------------------------------------------
+
+    /**
+     * Scores every sealed Syrup this partition references by how much of it the live view still
+     * needs, emptiest first. Live entries are those reachable from a winning, non-deleted locator in
+     * the memtables and SSTables; a Syrup held only by shadowed versions scores zero (compaction, not
+     * defragmentation, frees it). Open, in-flight and multipart-pinned Syrups are not scored.
+     *
+     * <p>Walks the whole partition, so the result is reused until the next write.
+     */
+    public List<SyrupUsage> syrupUsage() {
+        long version = liveViewVersion();
+        ScoredSyrups scored = scoredSyrups;
+        if (scored != null && scored.version() == version) {
+            return scored.usage();
+        }
+        Map<Long, java.util.BitSet> live = new java.util.HashMap<>();
+        Set<Long> referenced;
+        lock.readLock().lock();
+        try {
+            ReadView view = view();
+            Iterator<Mutation> merged = view.merged(null, null, null, ScanDirection.FORWARD);
+            List<RangeTombstone> rangeTombstones = view.rangeTombstones();
+            while (merged.hasNext()) {
+                Mutation m = merged.next();
+                if (ReadView.isShadowedByRange(rangeTombstones, m.key(), m.hlc())) {
+                    continue;
+                }
+                for (SegmentRef seg : m.locator().segments()) {
+                    live.computeIfAbsent(seg.syrupId(), id -> new java.util.BitSet())
+                            .set(Math.toIntExact(seg.firstEntryId()),
+                                    Math.toIntExact(seg.lastEntryId() + 1));
+                }
+            }
+            referenced = new java.util.HashSet<>(manifest.current().referencedSyrups());
+            for (Memtable memtable : memtables()) {
+                collectSyrups(memtable, referenced);
+            }
+            referenced.removeAll(pinnedSyrupsLocked());
+        } finally {
+            lock.readLock().unlock();
+        }
+        List<SyrupUsage> usage = new ArrayList<>(referenced.size());
+        for (long syrupId : referenced) {
+            java.util.BitSet entries = live.get(syrupId);
+            usage.add(new SyrupUsage(syrupId, entries == null ? 0 : entries.cardinality(),
+                    syrupEntryCount(syrupId)));
+        }
+        usage.sort(java.util.Comparator.comparingDouble(SyrupUsage::liveRatio));
+        List<SyrupUsage> result = List.copyOf(usage);
+        scoredSyrups = new ScoredSyrups(version, result);
+        return result;
+    }
+
+    /**
+     * Copies the live Candies still held by {@code syrupIds} into a fresh Syrup and points their
+     * locators at the copy, so the old Syrups lose this partition's references and flow into the
+     * normal reclaim path once compaction has dropped the versions they shadow. Each rewrite is an
+     * LWW-conditional, fenced put with a fresh HLC: it lands only if the key's live locator is still
+     * the one that was copied, so a concurrent overwrite or delete always wins and the copy becomes
+     * an orphan for GC. Keys with a pending cross-partition rename are left alone, since the rename's
+     * conditional source delete is keyed on their current HLC.
+     *
+     * <p>Stops once at least {@code maxBytes} Candy bytes have been copied, or when the Box is
+     * write-stalled.
+     *
+     * @return the Candy bytes copied
+     */
+    public long defragmentSyrups(java.util.Collection<Long> syrupIds, long maxBytes) {
+        Set<Long> victims = new java.util.HashSet<>(syrupIds);
+        List<Mutation> affected = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            victims.removeAll(pinnedSyrupsLocked());
+            if (victims.isEmpty()) {
+                return 0;
+            }
+            Set<String> renaming = new java.util.HashSet<>();
+            for (RenameIntent intent : manifest.current().renameIntents().values()) {
+                renaming.add(intent.srcKey());
+            }
+            ReadView view = view();
+            Iterator<Mutation> merged = view.merged(null, null, null, ScanDirection.FORWARD);
+            List<RangeTombstone> rangeTombstones = view.rangeTombstones();
+            while (merged.hasNext()) {
+                Mutation m = merged.next();
+                if (view.owns(m.key())
+                        && !ReadView.isShadowedByRange(rangeTombstones, m.key(), m.hlc())
+                        && !renaming.contains(m.key().value())
+                        && touchesAny(m.locator().segments(), victims)) {
+                    affected.add(m);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        // A Part shared by several keys (zero-copy copies) is copied once and shared again.
+        Map<Part, Part> relocated = new java.util.HashMap<>();
+        List<SyrupWriteResult> pinned = new ArrayList<>();
+        long copied = 0;
+        try {
+            for (Mutation m : affected) {
+                if (copied >= maxBytes) {
+                    break;
+                }
+                rejectIfStalled();
+                List<Part> parts = new ArrayList<>(m.locator().parts().size());
+                for (Part part : m.locator().parts()) {
+                    if (!touchesAny(part.segments(), victims)) {
+                        parts.add(part);
+                        continue;
+                    }
+                    Part moved = relocated.get(part);
+                    if (moved == null) {
+                        SyrupWriteResult written = copyPart(part);
+                        pinned.add(written);
+                        moved = new Part(written.contentLength(), config.sizeLimits().chunkSizeBytes(),
+                                written.crc32c(), written.segments());
+                        relocated.put(part, moved);
+                        copied += written.contentLength();
+                        defragBytes.addAndGet(written.contentLength());
+                    }
+                    parts.add(moved);
+                }
+                relocateIfUnchanged(m.key(), m.locator().hlc(), parts);
+            }
+        } catch (BusyException e) {
+            LOG.debug("Box {} is write-stalled; deferring Syrup defragmentation", box);
+        } finally {
+            pinned.forEach(syrupManager::release);
+        }
+        return copied;
+    }
+
+    /** Streams one part's bytes into the open Syrup; the part's own CRC checks the copy. */
+    private SyrupWriteResult copyPart(Part part) {
+        try (InputStream in = syrupReader.openPart(part)) {
+            return syrupManager.writeCandy(in);
+        } catch (IOException e) {
+            throw new StorageException("Failed copying a part out of its Syrup", e);
+        }
+    }
+
+    /** Points {@code key} at {@code parts} only if its live locator still carries {@code expected}. */
+    private void relocateIfUnchanged(CandyKey key, Hlc expected, List<Part> parts) {
+        lock.writeLock().lock();
+        try {
+            rejectIfStalled();
+            requireWritable(key);
+            CandyLocator live = resolveLiveLocked(key).orElse(null);
+            if (live == null || !live.hlc().equals(expected)) {
+                return; // overwritten or deleted meanwhile: the newer write wins
+            }
+            Mutation mutation = new Mutation(key, live.withParts(hlc.tick(), parts));
+            wal.append(mutation);
+            active.put(mutation);
+            maybeFlushLocked();
+            defragRelocationCount.incrementAndGet();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Syrups that must not be scored or defragmented: open, in-flight, or multipart-pinned. */
+    private Set<Long> pinnedSyrupsLocked() {
+        Set<Long> pinned = new java.util.HashSet<>(manifest.current().multipartReferencedSyrups());
+        pinned.addAll(syrupManager.openSyrupIds());
+        return pinned;
+    }
+
+    /** A sealed Syrup's entry count, read once from its ledger. */
+    private long syrupEntryCount(long syrupId) {
+        return syrupEntryCounts.computeIfAbsent(syrupId, id -> {
+            ReadableLedger ledger = ledgerStore.openLedger(id);
+            try {
+                return ledger.lastAddConfirmed() + 1;
+            } finally {
+                ledger.close();
+            }
+        });
+    }
+
+    /** Changes whenever the live view may have: every write path bumps one of these counters. */
+    private long liveViewVersion() {
+        return putCount.get() + deleteCount.get() + defragRelocationCount.get();
+    }
+
+    private static boolean touchesAny(List<SegmentRef> segments, Set<Long> syrupIds) {
+        for (SegmentRef seg : segments) {
+            if (syrupIds.contains(seg.syrupId())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** The last {@link #syrupUsage()} result and the {@link #liveViewVersion()} it was computed at. */
+    private record ScoredSyrups(long version, List<SyrupUsage> usage) {
+    }
+
     /** A consistent snapshot of the current LSM state (for compaction picking / inspection). */
     public ManifestState manifestState() {
         return manifest.current();
@@ -1249,17 +1824,42 @@ public final class BoxEngine implements AutoCloseable {
     /** A snapshot of this engine's cumulative operational counters. */
     public BoxEngineStats stats() {
         return new BoxEngineStats(putCount.get(), deleteCount.get(), getCount.get(), headCount.get(),
-                listCount.get(), flushCount.get(), compactionCount.get(), stallRejectionCount.get());
+                listCount.get(), flushCount.get(), compactionCount.get(), stallRejectionCount.get(),
+                immutables.size(), flushMillis.get(), scoredLiveEntries(), scoredTotalEntries(),
+                defragRelocationCount.get(), defragBytes.get(), bytesIn.get(), bytesOut.get(),
+                memtableBytes(), manifest.current().level0().size());
+    }
+
+    /** The active and sealed memtables' combined approximate size: data not yet flushed to L0. */
+    private long memtableBytes() {
+        long bytes = active.approximateSizeBytes();
+        for (SealedMemtable sealed : immutables) {
+            bytes += sealed.memtable().approximateSizeBytes();
+        }
+        return bytes;
+    }
+
+    private long scoredLiveEntries() {
+        ScoredSyrups scored = scoredSyrups;
+        return scored == null ? 0 : scored.usage().stream().mapToLong(SyrupUsage::liveEntries).sum();
+    }
+
+    private long scoredTotalEntries() {
+        ScoredSyrups scored = scoredSyrups;
+        return scored == null ? 0 : scored.usage().stream().mapToLong(SyrupUsage::totalEntries).sum();
     }
 
     @Override
     public void close() {
         lock.writeLock().lock();
         try {
+            // Sealed memtables not yet flushed stay recoverable from their pending WALs.
+            closed = true;
             for (SSTableReader r : readers.values()) {
                 r.close();
             }
             readers.clear();
+            levels = SSTableLevels.EMPTY;
             wal.close();
             manifest.close();
             syrupManager.close();
@@ -1280,12 +1880,58 @@ public final class BoxEngine implements AutoCloseable {
         return token == null ? null : idempotencyCache.get(token);
     }
 
+    /**
+     * Runs a group-committed write at most once per idempotency token. Those writes hold only the
+     * shared lock, so the exclusive-lock re-check no longer serializes two retries of one token;
+     * instead the first claims the token and later ones wait for it, then return its cached result —
+     * or, if it failed, claim the token and write themselves. A null token just runs the write.
+     */
+    private CandyMetadata onceForToken(String token, java.util.function.Supplier<CandyMetadata> write) {
+        if (token == null) {
+            return write.get();
+        }
+        while (true) {
+            CandyMetadata cached = idempotentResult(token);
+            if (cached != null) {
+                return cached;
+            }
+            java.util.concurrent.CountDownLatch mine = new java.util.concurrent.CountDownLatch(1);
+            java.util.concurrent.CountDownLatch theirs = inFlightTokens.putIfAbsent(token, mine);
+            if (theirs == null) {
+                try {
+                    // The holder before us may have committed between our check and our claim.
+                    CandyMetadata replay = idempotentResult(token);
+                    return replay != null ? replay : write.get();
+                } finally {
+                    inFlightTokens.remove(token, mine);
+                    mine.countDown();
+                }
+            }
+            try {
+                theirs.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new StorageException("Interrupted waiting for a concurrent retry of token "
+                        + token, e);
+            }
+        }
+    }
+
     private void rejectIfStalled() {
         int l0 = manifest.current().level0().size();
         if (l0 >= config.l0StallThreshold()) {
             stallRejectionCount.incrementAndGet();
             throw new BusyException("Box " + box + " is write-stalled: " + l0 + " L0 SSTables");
         }
+        int queued = immutables.size();
+        if (queued >= config.memtableMaxImmutables()
+                && active.approximateSizeBytes() >= config.memtableFlushThresholdBytes()) {
+            stallRejectionCount.incrementAndGet();
+            // Nudge the flusher: if its last attempt failed, nothing else would retry until a seal.
+            flushExecutor.execute(this::flushInBackground);
+            throw new BusyException("Box " + box + " is write-stalled: " + queued
+                    + " memtables queued for flush");
+        }
     }
 
     private Optional<CandyLocator> resolveLive(CandyKey key) {
@@ -1297,178 +1943,235 @@ public final class BoxEngine implements AutoCloseable {
         }
     }
 
-    /** Resolves a key to its live locator; caller must hold the read or write lock. */
+    /**
+     * Resolves a key to its live locator; caller must hold the read or write lock.
+     *
+     * @throws NotOwnerException if the key was split off to a sibling partition
+     */
     private Optional<CandyLocator> resolveLiveLocked(CandyKey key) {
-        CandyLocator best = active.get(key).orElse(null);
-        for (SSTableReader reader : readers.values()) {
-            if (reader.minKey().compareTo(key) <= 0 && reader.maxKey().compareTo(key) >= 0) {
-                Optional<CandyLocator> candidate = reader.get(key);
-                if (candidate.isPresent()
-                        && (best == null || candidate.get().hlc().isAfter(best.hlc()))) {
-                    best = candidate.get();
-                }
-            }
-        }
-        if (best == null || best.isTombstone()) {
-            return Optional.empty();
-        }
-        // A range tombstone newer than the best point locator shadows the key (range delete).
-        Hlc deleteFloor = maxRangeTombstoneCoveringLocked(key);
-        if (deleteFloor != null && deleteFloor.isAfter(best.hlc())) {
-            return Optional.empty();
+        ReadView view = view();
+        if (!view.owns(key)) {
+            throw new NotOwnerException(box.value());
         }
-        return Optional.of(best);
+        return view.resolve(key);
+    }
+
+    /** The read path over the current sources. Caller holds the lock. */
+    private ReadView view() {
+        return new ReadView(memtables(), levels, readers.values(), manifest.current().hashScope());
     }
 
     /**
-     * The highest HLC among range tombstones covering {@code key} across the memtable and every open
-     * SSTable. Range tombstones can extend beyond a table's point-key range, so this consults all
-     * readers (they are few; tombstones merge away at compaction). Caller holds the lock.
+     * Refuses a write to {@code key} unless this partition owns it: {@link NotOwnerException} for a
+     * key split off to a sibling, {@code BUSY} for one a split in progress is handing off (the new
+     * partition's snapshot would miss it). Checked under the lock, so a split cannot race it.
      */
-    private Hlc maxRangeTombstoneCoveringLocked(CandyKey key) {
-        Hlc max = active.maxRangeTombstoneCovering(key);
-        for (SSTableReader reader : readers.values()) {
-            Hlc h = reader.maxRangeTombstoneCovering(key);
-            if (h != null && (max == null || h.isAfter(max))) {
-                max = h;
-            }
+    private void requireWritable(CandyKey key) {
+        if (!manifest.current().hashScope().contains(key)) {
+            throw new NotOwnerException(box.value());
+        }
+        HashScope fence = splitFence;
+        if (fence != null && !fence.contains(key)) {
+            throw new BusyException("Box " + box + " is splitting; retry the write to " + key.value());
         }
-        return max;
     }
 
-    /** The union of range tombstones across the memtable and all open SSTables. Caller holds the lock. */
-    private List<RangeTombstone> gatherRangeTombstonesLocked() {
-        List<RangeTombstone> all = new ArrayList<>(active.rangeTombstones());
-        for (SSTableReader reader : readers.values()) {
-            all.addAll(reader.rangeTombstones());
+    /**
+     * The active memtable followed by the sealed ones, newest first. Caller holds the lock (or is the
+     * flusher), so the pair is consistent.
+     */
+    private List<Memtable> memtables() {
+        List<SealedMemtable> sealed = immutables;
+        List<Memtable> all = new ArrayList<>(sealed.size() + 1);
+        all.add(active);
+        for (SealedMemtable m : sealed) {
+            all.add(m.memtable());
         }
         return all;
     }
 
-    /** Whether a range tombstone newer than {@code keyHlc} covers {@code key} (so it is deleted). */
-    private static boolean isShadowedByRange(List<RangeTombstone> rangeTombstones, CandyKey key,
-                                             Hlc keyHlc) {
-        for (RangeTombstone rt : rangeTombstones) {
-            if (rt.hlc().isAfter(keyHlc) && rt.covers(key)) {
-                return true;
+    private static void collectSyrups(Memtable memtable, Set<Long> into) {
+        for (Iterator<Mutation> it = memtable.iterator(); it.hasNext(); ) {
+            for (SegmentRef seg : it.next().locator().segments()) {
+                into.add(seg.syrupId());
             }
         }
-        return false;
+    }
+
+    /** Whether the active memtable is over the threshold and the flush queue has room to seal it. */
+    private boolean sealDue() {
+        return active.approximateSizeBytes() >= config.memtableFlushThresholdBytes()
+                && immutables.size() < config.memtableMaxImmutables();
     }
 
     /**
-     * Builds a tombstone-suppressed merged view over the window {@code [lower, upper)} in the given
-     * direction, seeking each source to the appropriate bound and pruning SSTables that cannot overlap
-     * the window. The caller still applies exact bound/cursor filtering on the emitted keys.
+     * {@link #maybeFlushLocked} for the group-committed paths, which cannot upgrade their shared lock:
+     * checks unlocked and only takes the exclusive lock when a seal is likely due.
      */
-    private Iterator<Mutation> mergedView(CandyKey lower, CandyKey upper, CandyKey cursor,
-                                          ScanDirection direction) {
-        List<Iterator<Mutation>> sources = new ArrayList<>();
-        if (direction == ScanDirection.FORWARD) {
-            CandyKey seek = maxKey(lower, cursor);
-            sources.add(seek == null ? active.iterator() : active.iterator(seek));
-            for (SSTableReader reader : readers.values()) {
-                if (overlapsWindow(reader.minKey(), reader.maxKey(), lower, upper)) {
-                    sources.add(reader.scan(seek));
-                }
-            }
-        } else {
-            CandyKey seekUpper = minKey(upper, cursor);
-            sources.add(seekUpper == null ? active.descendingIterator()
-                    : active.descendingIterator(seekUpper));
-            for (SSTableReader reader : readers.values()) {
-                if (overlapsWindow(reader.minKey(), reader.maxKey(), lower, upper)) {
-                    sources.add(reader.scanReverse(seekUpper));
-                }
+    private void maybeFlush() {
+        if (sealDue()) {
+            lock.writeLock().lock();
+            try {
+                maybeFlushLocked();
+            } finally {
+                lock.writeLock().unlock();
             }
         }
-        return new me.predatorray.candybox.lsm.iterator.MergingIterator(sources, true, direction);
     }
 
-    /** Whether {@code [minKey, maxKey]} overlaps the half-open window {@code [lower, upper)}. */
-    private static boolean overlapsWindow(CandyKey minKey, CandyKey maxKey, CandyKey lower,
-                                          CandyKey upper) {
-        if (lower != null && maxKey.compareTo(lower) < 0) {
-            return false;
-        }
-        if (upper != null && minKey.compareTo(upper) >= 0) {
-            return false;
+    /** Seals the active memtable and schedules its flush if it has grown past the threshold. */
+    private void maybeFlushLocked() {
+        if (sealDue()) {
+            sealActiveLocked();
+            flushExecutor.execute(this::flushInBackground);
         }
-        return true;
     }
 
-    /** The greater of two nullable keys, where {@code null} means "unbounded below" (loses). */
-    private static CandyKey maxKey(CandyKey a, CandyKey b) {
-        if (a == null) {
-            return b;
+    /**
+     * Forces a flush: seals the active memtable and writes every queued memtable to L0 before
+     * returning (visible for tests/operations, and used before a handover).
+     */
+    public void flush() {
+        lock.writeLock().lock();
+        try {
+            sealActiveLocked();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        flushLock.lock();
+        try {
+            flushQueued();
+        } finally {
+            flushLock.unlock();
         }
-        if (b == null) {
-            return a;
+        if (flushRequested.get()) {
+            flushExecutor.execute(this::flushInBackground); // sealed while we held the flush lock
         }
-        return a.compareTo(b) >= 0 ? a : b;
     }
 
-    /** The lesser of two nullable keys, where {@code null} means "unbounded above" (loses). */
-    private static CandyKey minKey(CandyKey a, CandyKey b) {
-        if (a == null) {
-            return b;
-        }
-        if (b == null) {
-            return a;
+    /**
+     * Swaps out the active memtable in O(1): rotates the WAL, records the old one as pending in the
+     * manifest (so a recovering owner still replays it), and queues the memtable for flushing.
+     */
+    private void sealActiveLocked() {
+        if (active.isEmpty()) {
+            return;
         }
-        return a.compareTo(b) <= 0 ? a : b;
+        WriteAheadLog newWal = createWal(config, ledgerStore, box);
+        manifest.apply(ManifestEdit.builder()
+                .newWalLedgerId(newWal.ledgerId())
+                .addedPendingWals(Set.of(wal.ledgerId()))
+                .build());
+        wal.close();
+        wal = newWal;
+
+        List<SealedMemtable> queue = new ArrayList<>(immutables.size() + 1);
+        queue.add(new SealedMemtable(active, Set.copyOf(activeWalIds)));
+        queue.addAll(immutables);
+        immutables = List.copyOf(queue);
+        active = new Memtable();
+        activeWalIds.clear();
+        activeWalIds.add(newWal.ledgerId());
     }
 
-    /** Flushes the active memtable to an L0 SSTable if it has grown past the threshold. */
-    private void maybeFlushLocked() {
-        if (active.approximateSizeBytes() >= config.memtableFlushThresholdBytes()) {
-            flushLocked();
+    /**
+     * Flush-executor task: drains the queue, unless another thread already holds the flush lock — it
+     * will see the request and drain again before giving up the queue.
+     */
+    private void flushInBackground() {
+        flushRequested.set(true);
+        while (flushRequested.get() && flushLock.tryLock()) {
+            try {
+                flushRequested.set(false);
+                flushQueued();
+            } catch (RuntimeException e) {
+                // The memtable stays queued; the next seal or stalled write retries it.
+                LOG.warn("Background flush of box {} failed", box, e);
+                return;
+            } finally {
+                flushLock.unlock();
+            }
         }
     }
 
-    /** Forces a flush of the active memtable (visible for tests/operations). */
-    public void flush() {
-        lock.writeLock().lock();
-        try {
-            flushLocked();
-        } finally {
-            lock.writeLock().unlock();
+    /** Flushes sealed memtables oldest first until none remain. Caller holds {@link #flushLock}. */
+    private void flushQueued() {
+        while (!closed) {
+            List<SealedMemtable> queue = immutables;
+            if (queue.isEmpty()) {
+                return;
+            }
+            flushSealed(queue.get(queue.size() - 1));
         }
     }
 
-    private void flushLocked() {
-        Memtable flushing = active;
-        if (flushing.isEmpty()) {
-            return;
-        }
+    /**
+     * Writes one sealed memtable to an L0 SSTable without the partition lock (it no longer changes),
+     * then commits the table and retires its pending WALs under the exclusive lock.
+     */
+    private void flushSealed(SealedMemtable sealed) {
+        long startNanos = System.nanoTime();
+        Memtable flushing = sealed.memtable();
         // Collect the Syrups referenced by this memtable (for live-Syrup tracking / GC).
         Set<Long> syrups = new LinkedHashSet<>();
-        Iterator<Mutation> scan = flushing.iterator();
-        while (scan.hasNext()) {
-            for (SegmentRef seg : scan.next().locator().segments()) {
-                syrups.add(seg.syrupId());
-            }
-        }
-
+        collectSyrups(flushing, syrups);
         SSTableMeta table = sstableWriter.write(ledgerConfig(LedgerRole.SSTABLE), 0,
                 flushing.iterator(), flushing.rangeTombstones());
 
-        WriteAheadLog newWal = WriteAheadLog.create(ledgerStore, ledgerConfig(LedgerRole.WAL));
-        long obsoleteWalId = wal.ledgerId();
-        manifest.apply(ManifestEdit.flush(table, syrups, newWal.ledgerId()));
-        wal.close();
-        wal = newWal;
-        active = new Memtable();
-
-        // The rotated WAL's mutations are now durable in the SSTable and the manifest points at the
-        // new WAL, so the old one is no longer a recovery source and may be GC'd.
-        obsoleteWals.put(obsoleteWalId, clock.currentTimeMillis());
-        readers.put(table.ledgerId(), new SSTableReader(ledgerStore, table.ledgerId()));
+        lock.writeLock().lock();
+        try {
+            if (closed) {
+                // Never committed: the next owner replays this memtable from its pending WALs.
+                deleteQuietly(table.ledgerId());
+                return;
+            }
+            manifest.apply(ManifestEdit.builder()
+                    .addedTables(List.of(table))
+                    .addedSyrups(syrups)
+                    .removedPendingWals(sealed.walIds())
+                    .build());
+            readers.put(table.ledgerId(), new SSTableReader(ledgerStore, table.ledgerId(), blockCache));
+            levels = SSTableLevels.of(manifest.current(), readers);
+            List<SealedMemtable> remaining = new ArrayList<>(immutables);
+            remaining.remove(sealed);
+            immutables = List.copyOf(remaining);
+
+            // The pending WALs' mutations are now durable in the SSTable and the manifest no longer
+            // lists them, so they are not a recovery source any more and may be GC'd.
+            long now = clock.currentTimeMillis();
+            for (Long walId : sealed.walIds()) {
+                obsoleteWals.put(walId, now);
+            }
+            // A full queue may have held the active memtable back; seal it now for the caller's loop.
+            if (sealDue()) {
+                sealActiveLocked();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
         flushCount.incrementAndGet();
+        flushMillis.addAndGet(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
         LOG.debug("Flushed memtable of box {} to SSTable ledger {} ({} entries)", box,
                 table.ledgerId(), table.entryCount());
     }
 
+    private void deleteQuietly(long ledgerId) {
+        try {
+            ledgerStore.deleteLedger(ledgerId);
+        } catch (RuntimeException e) {
+            LOG.warn("Could not delete uncommitted SSTable ledger {} of box {}", ledgerId, box, e);
+        }
+    }
+
+    /** A memtable sealed for flushing, with the WAL ledgers its mutations were logged to. */
+    private record SealedMemtable(Memtable memtable, Set<Long> walIds) {
+    }
+
+    private static WriteAheadLog createWal(CandyboxConfig config, LedgerStore store, BoxName box) {
+        return WriteAheadLog.create(store, roleConfig(config, store, box, LedgerRole.WAL),
+                config.walGroupCommitMaxDelayMicros(), config.walGroupCommitMaxBytes());
+    }
+
     private LedgerConfig ledgerConfig(LedgerRole role) {
         return roleConfig(config, ledgerStore, box, role);
     }
@@ -17,7 +17,9 @@ package me.predatorray.candybox.lsm.engine;
 
 /**
  * A point-in-time snapshot of a {@link BoxEngine}'s operational counters, for lightweight observability
- * (logging, ops endpoints). Counts are cumulative since the engine was created/recovered.
+ * (logging, ops endpoints). Counts are cumulative since the engine was created/recovered, except
+ * {@code flushQueueDepth}, {@code memtableBytes}, {@code l0Tables} and the {@code syrup*Entries} pair,
+ * which are gauges — the latter as of the last Syrup scoring pass (see {@link BoxEngine#syrupUsage()}).
  *
  * @param puts            successful {@code putCandy} operations
  * @param deletes         {@code deleteCandy} operations
@@ -27,7 +29,26 @@ package me.predatorray.candybox.lsm.engine;
  * @param flushes         memtable flushes to L0 SSTables
  * @param compactions     committed compaction edits applied
  * @param stallRejections writes rejected with {@code BUSY} under write-stall backpressure
+ * @param flushQueueDepth sealed memtables currently queued for a background flush
+ * @param flushMillis     total wall time spent writing and committing flushed SSTables
+ * @param syrupLiveEntries  Syrup chunk entries the live view references, over the scored Syrups
+ * @param syrupTotalEntries chunk entries those Syrups hold
+ * @param defragRelocations locators rewritten by Syrup defragmentation
+ * @param defragBytes       Candy bytes copied by Syrup defragmentation
+ * @param bytesIn           Candy bytes accepted by puts and multipart part uploads
+ * @param bytesOut          Candy bytes served by gets and ranged gets
+ * @param memtableBytes     approximate bytes held in the active and sealed memtables
+ * @param l0Tables          SSTables currently in level 0 (the compaction debt)
  */
 public record BoxEngineStats(long puts, long deletes, long gets, long heads, long lists, long flushes,
-                             long compactions, long stallRejections) {
+                             long compactions, long stallRejections, long flushQueueDepth,
+                             long flushMillis, long syrupLiveEntries, long syrupTotalEntries,
+                             long defragRelocations, long defragBytes, long bytesIn,
+                             long bytesOut, long memtableBytes, long l0Tables) {
+
+    /** The live fraction of the scored Syrups' entries; {@code 1} before any were scored. */
+    public double syrupLiveRatio() {
+        return syrupTotalEntries == 0 ? 1.0
+                : Math.min(1.0, (double) syrupLiveEntries / syrupTotalEntries);
+    }
 }
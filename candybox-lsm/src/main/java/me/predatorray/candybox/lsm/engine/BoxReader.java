@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.predatorray.candybox.lsm.engine;
+
+import java.io.OutputStream;
+import java.util.function.Function;
+import me.predatorray.candybox.common.CandyKey;
+import me.predatorray.candybox.common.auth.ObjectAcl;
+import me.predatorray.candybox.common.exception.CandyNotFoundException;
+
+/**
+ * The read side of one Box partition. The owning {@link BoxEngine} serves it from the latest state;
+ * a {@link StandbyReplica} serves it from what it has tailed from the owner so far, so its answers
+ * may lag the owner's by up to its staleness.
+ */
+public interface BoxReader {
+
+    /** Returns metadata for a live Candy, or throws {@link CandyNotFoundException}. */
+    CandyMetadata headCandy(CandyKey key);
+
+    /**
+     * Streams a Candy's bytes to {@code out}, validating each part's CRC32C, and returns its metadata.
+     *
+     * @throws CandyNotFoundException if there is no live Candy at {@code key}
+     */
+    CandyMetadata getCandy(CandyKey key, OutputStream out);
+
+    /**
+     * {@link #getCandy(CandyKey, OutputStream)} for a caller that needs the metadata before the
+     * bytes: {@code sink} is handed the metadata once the key resolves and returns where the bytes go.
+     */
+    CandyMetadata getCandy(CandyKey key, Function<CandyMetadata, OutputStream> sink);
+
+    /**
+     * Streams a byte window of a Candy to {@code out}; see {@link BoxEngine#getCandyRange}.
+     *
+     * @throws CandyNotFoundException   if there is no live Candy at {@code key}
+     * @throws IllegalArgumentException if the resolved range is not satisfiable
+     */
+    BoxEngine.RangeReadResult getCandyRange(CandyKey key, long firstByte, long lastByte,
+                                            OutputStream out);
+
+    /** Lists live Candies over a {@link ScanQuery}; see {@link BoxEngine#scanCandies}. */
+    ListResult scanCandies(ScanQuery query);
+
+    /** The Candy's object ACL, or throws {@link CandyNotFoundException}. */
+    ObjectAcl getCandyAcl(CandyKey key);
+}
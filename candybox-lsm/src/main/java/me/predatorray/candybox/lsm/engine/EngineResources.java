@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.predatorray.candybox.lsm.engine;
+
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import me.predatorray.candybox.lsm.sstable.BlockCache;
+
+/**
+ * Node-wide facilities a {@link BoxEngine} borrows rather than owns: they are shared by every Box a
+ * node serves and outlive any one engine.
+ *
+ * @param flushExecutor    runs background memtable flushes ({@code Runnable::run} = on the writer)
+ * @param blockCache       caches decoded SSTable data blocks across all of the node's engines
+ * @param recoveryExecutor opens a recovering engine's SSTable readers concurrently
+ *                         ({@code Runnable::run} = one after another on the recovering thread); must
+ *                         not be the pool the recoveries themselves run on, which would starve it
+ */
+public record EngineResources(Executor flushExecutor, BlockCache blockCache, Executor recoveryExecutor) {
+
+    public EngineResources {
+        Objects.requireNonNull(flushExecutor, "flushExecutor");
+        Objects.requireNonNull(blockCache, "blockCache");
+        Objects.requireNonNull(recoveryExecutor, "recoveryExecutor");
+    }
+
+    /** Resources whose recoveries open SSTable readers one at a time. */
+    public EngineResources(Executor flushExecutor, BlockCache blockCache) {
+        this(flushExecutor, blockCache, Runnable::run);
+    }
+
+    /** For an engine used on its own: flushes inline on the writer thread, no block cache. */
+    public static EngineResources standalone() {
+        return new EngineResources(Runnable::run, BlockCache.disabled());
+    }
+}
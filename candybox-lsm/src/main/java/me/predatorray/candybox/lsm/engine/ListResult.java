@@ -21,14 +21,22 @@ import me.predatorray.candybox.common.CandyKey;
 /**
  * A page of {@code listCandies} results over the merged, tombstone-suppressed view.
  *
- * @param entries        the keys on this page, ascending
+ * @param entries        the keys on this page, in scan order
+ * @param commonPrefixes the rolled-up common prefixes on this page, in scan order (empty without a
+ *                       delimiter)
  * @param nextStartAfter continuation cursor (pass as {@code startAfter} to resume), or {@code null}
  *                       when the listing is exhausted
  */
-public record ListResult(List<ListEntry> entries, String nextStartAfter) {
+public record ListResult(List<ListEntry> entries, List<String> commonPrefixes,
+                         String nextStartAfter) {
 
     public ListResult {
         entries = List.copyOf(entries);
+        commonPrefixes = commonPrefixes == null ? List.of() : List.copyOf(commonPrefixes);
+    }
+
+    public ListResult(List<ListEntry> entries, String nextStartAfter) {
+        this(entries, List.of(), nextStartAfter);
     }
 
     public boolean isTruncated() {
@@ -0,0 +1,309 @@
+/*
+ * Copyright (c) 2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.predatorray.candybox.lsm.engine;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import me.predatorray.candybox.common.CandyKey;
+import me.predatorray.candybox.common.CandyLocator;
+import me.predatorray.candybox.common.HashScope;
+import me.predatorray.candybox.common.Hlc;
+import me.predatorray.candybox.common.Mutation;
+import me.predatorray.candybox.common.RangeTombstone;
+import me.predatorray.candybox.common.util.Bytes;
+import me.predatorray.candybox.lsm.iterator.MergingIterator;
+import me.predatorray.candybox.lsm.memtable.Memtable;
+import me.predatorray.candybox.lsm.sstable.SSTableReader;
+
+/**
+ * The merged read path over one consistent set of a partition's sources: its memtables newest first,
+ * its SSTables arranged for point lookups, and every open reader (for range tombstones and scans).
+ * The owning {@link BoxEngine} builds one per read under its lock; a {@link StandbyReplica} builds
+ * one from what it has tailed. Holds no lock itself — the caller keeps the sources open while it
+ * reads.
+ *
+ * <p>After a split the partition shares its SSTables with its sibling, so the view also carries the
+ * partition's {@link HashScope}: scans skip the keys outside it, and callers check {@link #owns}
+ * before a point lookup.
+ */
+final class ReadView {
+
+    private final List<Memtable> memtables;
+    private final SSTableLevels levels;
+    private final Collection<SSTableReader> readers;
+    private final HashScope scope;
+
+    /**
+     * @param memtables newest first, so an HLC tie goes to the newer memtable
+     * @param levels    the readers arranged for point lookups
+     * @param readers   every open reader, in no particular order
+     * @param scope     the keys the partition owns
+     */
+    ReadView(List<Memtable> memtables, SSTableLevels levels, Collection<SSTableReader> readers,
+             HashScope scope) {
+        this.memtables = memtables;
+        this.levels = levels;
+        this.readers = readers;
+        this.scope = scope;
+    }
+
+    /** Whether the partition owns {@code key}; a lookup of any other key says nothing about it. */
+    boolean owns(CandyKey key) {
+        return scope.contains(key);
+    }
+
+    /**
+     * Resolves a key to its live locator. Sources are probed newest first — memtables, L0 newest
+     * first, then one table per deeper level — and the highest HLC wins, as it does for a scan: a
+     * newer source usually holds the newer version, but not after a handover to an owner whose
+     * clock lags the flushed SSTables.
+     */
+    Optional<CandyLocator> resolve(CandyKey key) {
+        CandyLocator best = null;
+        for (Memtable memtable : memtables) {
+            best = SSTableLevels.newer(best, memtable.get(key));
+        }
+        best = SSTableLevels.newer(best, levels.get(key));
+        if (best == null || best.isTombstone()) {
+            return Optional.empty();
+        }
+        // A range tombstone newer than the best point locator shadows the key (range delete).
+        Hlc deleteFloor = maxRangeTombstoneCovering(key);
+        if (deleteFloor != null && deleteFloor.isAfter(best.hlc())) {
+            return Optional.empty();
+        }
+        return Optional.of(best);
+    }
+
+    /**
+     * The highest HLC among range tombstones covering {@code key} across the memtables and every open
+     * SSTable. Range tombstones can extend beyond a table's point-key range, so this consults all
+     * readers (they are few; tombstones merge away at compaction).
+     */
+    private Hlc maxRangeTombstoneCovering(CandyKey key) {
+        Hlc max = null;
+        for (Memtable memtable : memtables) {
+            Hlc h = memtable.maxRangeTombstoneCovering(key);
+            if (h != null && (max == null || h.isAfter(max))) {
+                max = h;
+            }
+        }
+        for (SSTableReader reader : readers) {
+            Hlc h = reader.maxRangeTombstoneCovering(key);
+            if (h != null && (max == null || h.isAfter(max))) {
+                max = h;
+            }
+        }
+        return max;
+    }
+
+    /** The union of range tombstones across the memtables and all open SSTables. */
+    List<RangeTombstone> rangeTombstones() {
+        List<RangeTombstone> all = new ArrayList<>();
+        for (Memtable memtable : memtables) {
+            all.addAll(memtable.rangeTombstones());
+        }
+        for (SSTableReader reader : readers) {
+            all.addAll(reader.rangeTombstones());
+        }
+        return all;
+    }
+
+    /** Whether a range tombstone newer than {@code keyHlc} covers {@code key} (so it is deleted). */
+    static boolean isShadowedByRange(List<RangeTombstone> rangeTombstones, CandyKey key, Hlc keyHlc) {
+        for (RangeTombstone rt : rangeTombstones) {
+            if (rt.hlc().isAfter(keyHlc) && rt.covers(key)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Lists live keys over a {@link ScanQuery}; see {@link BoxEngine#scanCandies}. With a delimiter,
+     * the first key of each common prefix emits the prefix and every source is re-seeked past the
+     * prefix's group, so a page costs one seek per prefix rather than a walk over every key beneath
+     * it.
+     */
+    ListResult scan(ScanQuery query) {
+        int limit = query.effectiveMaxKeys();
+        boolean forward = query.direction() == ScanDirection.FORWARD;
+
+        // Normalize the prefix into [lower, upper) and intersect it with any explicit bounds.
+        CandyKey lower = query.startInclusive();
+        CandyKey upper = query.endExclusive();
+        if (query.prefix() != null && !query.prefix().isEmpty()) {
+            CandyKey prefixLower = CandyKey.of(query.prefix());
+            byte[] succ = Bytes.prefixSuccessor(prefixLower.utf8Bytes());
+            lower = maxKey(lower, prefixLower);
+            upper = minKey(upper, succ == null ? null : CandyKey.ofUtf8(succ));
+        }
+        CandyKey cursor = query.cursorExclusive();
+        if (forward && cursor != null && cursor.value().equals(query.commonPrefixOf(
+                cursor.value()))) {
+            // Resuming after a common prefix: skip its whole group.
+            CandyKey past = pastGroup(cursor.value());
+            if (past == null) {
+                return new ListResult(List.of(), null);
+            }
+            lower = maxKey(lower, past);
+            cursor = null;
+        }
+
+        Iterator<Mutation> merged = merged(lower, upper, cursor, query.direction());
+        List<RangeTombstone> rangeTombstones = rangeTombstones();
+        List<ListResult.ListEntry> entries = new ArrayList<>();
+        List<String> commonPrefixes = new ArrayList<>();
+        int emitted = 0;
+        String last = null;
+        String next = null;
+        boolean scoped = !scope.equals(HashScope.ALL);
+        while (merged.hasNext()) {
+            Mutation m = merged.next();
+            CandyKey key = m.key();
+            if (scoped && !scope.contains(key)) {
+                continue; // the sibling partition's half of a shared table
+            }
+            if (isShadowedByRange(rangeTombstones, key, m.hlc())) {
+                continue; // a newer range tombstone deletes this key
+            }
+            if (cursor != null) {
+                int c = key.compareTo(cursor);
+                if (forward ? c <= 0 : c >= 0) {
+                    continue; // cursor is exclusive in the scan direction
+                }
+            }
+            if (forward) {
+                if (lower != null && key.compareTo(lower) < 0) {
+                    continue;
+                }
+                if (upper != null && key.compareTo(upper) >= 0) {
+                    break; // ascending: past the window's exclusive upper bound
+                }
+            } else {
+                if (upper != null && key.compareTo(upper) >= 0) {
+                    continue;
+                }
+                if (lower != null && key.compareTo(lower) < 0) {
+                    break; // descending: below the window's inclusive lower bound
+                }
+            }
+            if (emitted == limit) {
+                next = last;
+                break;
+            }
+            String commonPrefix = query.commonPrefixOf(key.value());
+            if (commonPrefix != null) {
+                commonPrefixes.add(commonPrefix);
+                emitted++;
+                last = commonPrefix;
+                // Re-seek every source past the group (descending: below the prefix itself).
+                if (forward) {
+                    CandyKey past = pastGroup(commonPrefix);
+                    if (past == null) {
+                        break;
+                    }
+                    lower = maxKey(lower, past);
+                } else {
+                    upper = minKey(upper, CandyKey.of(commonPrefix));
+                }
+                merged = merged(lower, upper, cursor, query.direction());
+                continue;
+            }
+            CandyLocator loc = m.locator();
+            entries.add(new ListResult.ListEntry(key, loc.contentLength(), loc.createdAtMillis()));
+            emitted++;
+            last = key.value();
+        }
+        return new ListResult(entries, commonPrefixes, next);
+    }
+
+    /**
+     * Builds a tombstone-suppressed merged view over the window {@code [lower, upper)} in the given
+     * direction, seeking each source to the appropriate bound and pruning SSTables that cannot overlap
+     * the window. The caller still applies exact bound/cursor filtering on the emitted keys.
+     */
+    Iterator<Mutation> merged(CandyKey lower, CandyKey upper, CandyKey cursor,
+                              ScanDirection direction) {
+        List<Iterator<Mutation>> sources = new ArrayList<>();
+        if (direction == ScanDirection.FORWARD) {
+            CandyKey seek = maxKey(lower, cursor);
+            for (Memtable memtable : memtables) {
+                sources.add(seek == null ? memtable.iterator() : memtable.iterator(seek));
+            }
+            for (SSTableReader reader : readers) {
+                if (overlapsWindow(reader.minKey(), reader.maxKey(), lower, upper)) {
+                    sources.add(reader.scan(seek));
+                }
+            }
+        } else {
+            CandyKey seekUpper = minKey(upper, cursor);
+            for (Memtable memtable : memtables) {
+                sources.add(seekUpper == null ? memtable.descendingIterator()
+                        : memtable.descendingIterator(seekUpper));
+            }
+            for (SSTableReader reader : readers) {
+                if (overlapsWindow(reader.minKey(), reader.maxKey(), lower, upper)) {
+                    sources.add(reader.scanReverse(seekUpper));
+                }
+            }
+        }
+        return new MergingIterator(sources, true, direction);
+    }
+
+    /** The first key after every key starting with {@code commonPrefix}, or null if there is none. */
+    private static CandyKey pastGroup(String commonPrefix) {
+        byte[] succ = Bytes.prefixSuccessor(CandyKey.of(commonPrefix).utf8Bytes());
+        return succ == null ? null : CandyKey.ofUtf8(succ);
+    }
+
+    /** Whether {@code [minKey, maxKey]} overlaps the half-open window {@code [lower, upper)}. */
+    private static boolean overlapsWindow(CandyKey minKey, CandyKey maxKey, CandyKey lower,
+                                          CandyKey upper) {
+        if (lower != null && maxKey.compareTo(lower) < 0) {
+            return false;
+        }
+        if (upper != null && minKey.compareTo(upper) >= 0) {
+            return false;
+        }
+        return true;
+    }
+
+    /** The greater of two nullable keys, where {@code null} means "unbounded below" (loses). */
+    private static CandyKey maxKey(CandyKey a, CandyKey b) {
+        if (a == null) {
+            return b;
+        }
+        if (b == null) {
+            return a;
+        }
+        return a.compareTo(b) >= 0 ? a : b;
+    }
+
+    /** The lesser of two nullable keys, where {@code null} means "unbounded above" (loses). */
+    private static CandyKey minKey(CandyKey a, CandyKey b) {
+        if (a == null) {
+            return b;
+        }
+        if (b == null) {
+            return a;
+        }
+        return a.compareTo(b) <= 0 ? a : b;
+    }
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright (c) 2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.predatorray.candybox.lsm.engine;
+
+/**
+ * Where a {@link BoxEngine#recover recovery} spent its time, for the node's recovery-time metrics.
+ * Durations are wall time on the recovering thread; a freshly created engine reports {@link #NONE}.
+ *
+ * @param manifestMillis    recover-opening and replaying the prior manifest
+ * @param walReplayMillis   fencing and streaming the prior WALs into the memtable
+ * @param walRecords        WAL records replayed
+ * @param sstableOpenMillis opening the manifest's SSTable readers
+ * @param sstables          SSTable readers opened
+ */
+public record RecoveryTimings(long manifestMillis, long walReplayMillis, long walRecords,
+                              long sstableOpenMillis, int sstables) {
+
+    /** The timings of an engine that was created rather than recovered. */
+    public static final RecoveryTimings NONE = new RecoveryTimings(0, 0, 0, 0, 0);
+
+    /** The three phases together. */
+    public long totalMillis() {
+        return manifestMillis + walReplayMillis + sstableOpenMillis;
+    }
+}
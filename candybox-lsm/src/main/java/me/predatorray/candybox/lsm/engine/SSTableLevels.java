@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.predatorray.candybox.lsm.engine;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import me.predatorray.candybox.common.CandyKey;
+import me.predatorray.candybox.common.CandyLocator;
+import me.predatorray.candybox.lsm.manifest.ManifestState;
+import me.predatorray.candybox.lsm.sstable.SSTableMeta;
+import me.predatorray.candybox.lsm.sstable.SSTableReader;
+
+/**
+ * A partition's open SSTable readers arranged for point lookups: L0 newest first (its tables
+ * overlap), then each deeper level sorted by key (its tables do not, so at most one can hold a key).
+ *
+ * <p>Versions still resolve by HLC, as everywhere else on the read path: a table nearer the top is
+ * usually newer, but after a handover a lagging owner can stamp writes below the HLCs already
+ * flushed, so a lookup compares every hit rather than stopping at the first. Immutable; the engine
+ * swaps in a new one whenever the manifest's table set changes.
+ */
+final class SSTableLevels {
+
+    static final SSTableLevels EMPTY = new SSTableLevels(List.of(), List.of());
+
+    private final List<SSTableReader> level0;
+    // deeper.get(i) is level i + 1, sorted by minKey.
+    private final List<List<SSTableReader>> deeper;
+
+    private SSTableLevels(List<SSTableReader> level0, List<List<SSTableReader>> deeper) {
+        this.level0 = level0;
+        this.deeper = deeper;
+    }
+
+    /**
+     * Arranges the readers of {@code state}'s tables. The manifest lists tables in commit order, so
+     * L0's flush order is the reverse of its lookup order.
+     */
+    static SSTableLevels of(ManifestState state, Map<Long, SSTableReader> readers) {
+        List<SSTableReader> level0 = new ArrayList<>();
+        for (SSTableMeta table : state.level0()) {
+            SSTableReader reader = readers.get(table.ledgerId());
+            if (reader != null) {
+                level0.add(0, reader);
+            }
+        }
+        List<List<SSTableReader>> deeper = new ArrayList<>();
+        for (int level = 1; level <= state.maxLevel(); level++) {
+            List<SSTableReader> tables = new ArrayList<>();
+            for (SSTableMeta table : state.level(level)) {
+                SSTableReader reader = readers.get(table.ledgerId());
+                if (reader != null) {
+                    tables.add(reader);
+                }
+            }
+            tables.sort(Comparator.comparing(SSTableReader::minKey));
+            deeper.add(List.copyOf(tables));
+        }
+        return new SSTableLevels(List.copyOf(level0), List.copyOf(deeper));
+    }
+
+    /**
+     * The highest-HLC locator (possibly a tombstone) any table holds for {@code key}, probing at
+     * most every L0 table plus one table per deeper level; on an HLC tie the upper table wins, as
+     * in {@link me.predatorray.candybox.lsm.iterator.MergingIterator}. Range tombstones are the
+     * caller's concern.
+     */
+    Optional<CandyLocator> get(CandyKey key) {
+        CandyLocator best = null;
+        for (SSTableReader reader : level0) {
+            if (covers(reader, key)) {
+                best = newer(best, reader.get(key));
+            }
+        }
+        for (List<SSTableReader> level : deeper) {
+            SSTableReader candidate = floor(level, key);
+            if (candidate != null && covers(candidate, key)) {
+                best = newer(best, candidate.get(key));
+            }
+        }
+        return Optional.ofNullable(best);
+    }
+
+    /** {@code found} if it is strictly after {@code best} (or {@code best} is null), else best. */
+    static CandyLocator newer(CandyLocator best, Optional<CandyLocator> found) {
+        if (found.isEmpty()) {
+            return best;
+        }
+        CandyLocator candidate = found.get();
+        return best == null || candidate.hlc().isAfter(best.hlc()) ? candidate : best;
+    }
+
+    /** The last table of a sorted level whose minKey is {@code <= key}, or null if none. */
+    private static SSTableReader floor(List<SSTableReader> level, CandyKey key) {
+        int lo = 0;
+        int hi = level.size() - 1;
+        SSTableReader found = null;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            SSTableReader reader = level.get(mid);
+            if (reader.minKey().compareTo(key) <= 0) {
+                found = reader;
+                lo = mid + 1;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return found;
+    }
+
+    private static boolean covers(SSTableReader reader, CandyKey key) {
+        return reader.minKey().compareTo(key) <= 0 && reader.maxKey().compareTo(key) >= 0;
+    }
+}
@@ -28,12 +28,18 @@ import me.predatorray.candybox.common.CandyKey;
  * in the scan direction). The classic {@code listCandies(prefix, startAfter, maxKeys)} is exactly
  * {@link #forward(String, CandyKey, int)}.
  *
+ * <p>With a {@code delimiter}, every key containing it after the prefix is rolled up into one common
+ * prefix (the key up to and including the first such delimiter, S3 {@code CommonPrefixes}), returned
+ * once in scan order and counted against the page size like a key. A cursor equal to a common prefix
+ * resumes past that prefix's whole group.
+ *
  * @param prefix          optional key prefix (nullable)
  * @param startInclusive  inclusive lower key bound (nullable = unbounded below)
  * @param endExclusive    exclusive upper key bound (nullable = unbounded above)
  * @param cursorExclusive continuation cursor, exclusive in the scan direction (nullable)
  * @param direction       scan order
  * @param maxKeys         page size; values {@code <= 0} fall back to {@link #DEFAULT_MAX_KEYS}
+ * @param delimiter       optional common-prefix delimiter (nullable or empty = no rollup)
  */
 public record ScanQuery(
         String prefix,
@@ -41,7 +47,8 @@ public record ScanQuery(
         CandyKey endExclusive,
         CandyKey cursorExclusive,
         ScanDirection direction,
-        int maxKeys) {
+        int maxKeys,
+        String delimiter) {
 
     public static final int DEFAULT_MAX_KEYS = 1000;
 
@@ -49,6 +56,15 @@ public record ScanQuery(
         if (direction == null) {
             throw new IllegalArgumentException("direction is required");
         }
+        if (delimiter != null && delimiter.isEmpty()) {
+            delimiter = null;
+        }
+    }
+
+    /** A scan without delimiter rollup. */
+    public ScanQuery(String prefix, CandyKey startInclusive, CandyKey endExclusive,
+                     CandyKey cursorExclusive, ScanDirection direction, int maxKeys) {
+        this(prefix, startInclusive, endExclusive, cursorExclusive, direction, maxKeys, null);
     }
 
     /** The classic forward listing: prefix + exclusive {@code startAfter} cursor. */
@@ -68,6 +84,25 @@ public record ScanQuery(
                 ScanDirection.REVERSE, maxKeys);
     }
 
+    /** This query with keys rolled up into common prefixes at {@code delimiter}. */
+    public ScanQuery withDelimiter(String delimiter) {
+        return new ScanQuery(prefix, startInclusive, endExclusive, cursorExclusive, direction, maxKeys,
+                delimiter);
+    }
+
+    /**
+     * The common prefix {@code key} rolls up into under this query's delimiter, or null if it does
+     * not contain the delimiter past the query prefix (or there is no delimiter).
+     */
+    public String commonPrefixOf(String key) {
+        if (delimiter == null) {
+            return null;
+        }
+        int from = prefix == null ? 0 : prefix.length();
+        int at = key.indexOf(delimiter, from);
+        return at < 0 ? null : key.substring(0, at + delimiter.length());
+    }
+
     public int effectiveMaxKeys() {
         return maxKeys > 0 ? maxKeys : DEFAULT_MAX_KEYS;
     }
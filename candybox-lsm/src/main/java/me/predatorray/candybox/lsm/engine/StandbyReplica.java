@@ -0,0 +1,505 @@
+/*
+ * Copyright (c) 2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.predatorray.candybox.lsm.engine;
+
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import me.predatorray.candybox.bookkeeper.LedgerConfig;
+import me.predatorray.candybox.bookkeeper.LedgerStore;
+import me.predatorray.candybox.bookkeeper.ReadableLedger;
+import me.predatorray.candybox.common.BoxName;
+import me.predatorray.candybox.common.CandyKey;
+import me.predatorray.candybox.common.CandyLocator;
+import me.predatorray.candybox.common.Clock;
+import me.predatorray.candybox.common.Hlc;
+import me.predatorray.candybox.common.auth.ObjectAcl;
+import me.predatorray.candybox.common.config.CandyboxConfig;
+import me.predatorray.candybox.common.exception.CandyNotFoundException;
+import me.predatorray.candybox.common.exception.NotOwnerException;
+import me.predatorray.candybox.lsm.manifest.Manifest;
+import me.predatorray.candybox.lsm.manifest.ManifestState;
+import me.predatorray.candybox.lsm.manifest.ManifestTail;
+import me.predatorray.candybox.lsm.memtable.Memtable;
+import me.predatorray.candybox.lsm.sstable.BlockCache;
+import me.predatorray.candybox.lsm.sstable.SSTableMeta;
+import me.predatorray.candybox.lsm.sstable.SSTableReader;
+import me.predatorray.candybox.lsm.syrup.SyrupReader;
+import me.predatorray.candybox.lsm.wal.WalEntry;
+import me.predatorray.candybox.lsm.wal.WriteAheadLog;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A warm standby for a partition another node owns: it tails the owner's manifest ledger and the
+ * WALs the manifest names as recovery sources with passive (non-fencing) reads, replaying the WALs
+ * into one replica memtable per ledger and keeping an {@link SSTableReader} open for every live
+ * table. {@link #promote} then turns it into the owning {@link BoxEngine} by fencing and reading only
+ * the tails it has not seen, so a takeover costs a few round trips rather than a full replay.
+ *
+ * <p>A standby is only ever an accelerator: promotion recover-opens the manifest and every WAL the
+ * fenced manifest names exactly as a cold {@link BoxEngine#recover} does, so a standby that fell
+ * behind — or missed a rotation, or followed a manifest ledger that has since been superseded — just
+ * has more to read. {@link BoxEngine#recover} is itself a promotion of a standby that never caught up.
+ *
+ * <p>Passive reads of a ledger still being written see entries up to its last-add-confirmed, which
+ * trails the writer by the adds awaiting their quorum; those are picked up after the fence.
+ *
+ * <p>Between catch-ups the replica also serves reads as a {@link BoxReader}: the tailed memtables
+ * and open readers hold everything the owner had confirmed {@code standbyCatchUpIntervalMillis}
+ * before the last {@link #catchUp} started, which {@link #isCaughtUpWithin} lets a caller weigh
+ * against how stale an answer it accepts. The margin is the LAC lag: a passive reader learns an
+ * open ledger's last-add-confirmed from the writer's next add, so the newest entry of a ledger gone
+ * quiet stays invisible until the owner's ledger store publishes its LAC explicitly, which the
+ * server has it do at that interval whenever standbys are configured. Reads never see a
+ * half-applied catch-up's table set: the new one is swapped in only once its readers are open.
+ *
+ * <p>Thread-safe: the tailing methods are synchronized, so a {@link #catchUp} in progress finishes
+ * before a promotion starts; reads run concurrently with a catch-up and only wait out the swap.
+ */
+public final class StandbyReplica implements BoxReader, AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(StandbyReplica.class);
+
+    private final BoxName box;
+    private final LedgerStore ledgerStore;
+    private final BlockCache blockCache;
+    private final EngineResources resources;
+    private final CandyboxConfig config;
+    private final Clock clock;
+    private final SyrupReader syrupReader;
+
+    private ManifestTail manifest;
+    // The passive handle the manifest is tailed through; null until the first catch-up.
+    private ReadableLedger manifestLedger;
+    // Per recovery-source WAL ledger, in manifest order.
+    private final Map<Long, WalTail> wals = new LinkedHashMap<>();
+    private final Map<Long, SSTableReader> readers = new LinkedHashMap<>();
+    private long walRecords;
+
+    // Readers hold the shared side while they use the view; the swap after a catch-up, promotion and
+    // close take the exclusive side, so a reader is never closed under a read.
+    private final ReentrantReadWriteLock viewLock = new ReentrantReadWriteLock();
+    // Null until the first catch-up completes.
+    private volatile ReadView view;
+    private volatile long caughtUpAtMillis = Long.MIN_VALUE;
+    private volatile boolean closed;
+
+    StandbyReplica(BoxName box, CandyboxConfig config, LedgerStore ledgerStore,
+                   long manifestLedgerId, Clock clock, EngineResources resources) {
+        this.box = box;
+        this.config = config;
+        this.ledgerStore = ledgerStore;
+        this.clock = clock;
+        this.resources = resources;
+        this.blockCache = resources.blockCache();
+        this.syrupReader = new SyrupReader(ledgerStore, config.syrupReadAheadWindow());
+        this.manifest = ManifestTail.start(manifestLedgerId);
+    }
+
+    /**
+     * Starts following the partition whose owner writes manifest ledger {@code manifestLedgerId}.
+     * Nothing is read until the first {@link #catchUp}.
+     *
+     * @param clock     times the catch-ups, against which a read's staleness is measured
+     * @param resources the block cache the replica's readers share, and the executor the promoted
+     *                  engine flushes on
+     */
+    public static StandbyReplica follow(BoxName box, CandyboxConfig config, LedgerStore ledgerStore,
+                                        long manifestLedgerId, Clock clock,
+                                        EngineResources resources) {
+        return new StandbyReplica(box, config, ledgerStore, manifestLedgerId, clock, resources);
+    }
+
+    public BoxName box() {
+        return box;
+    }
+
+    /** The manifest ledger being followed. */
+    public synchronized long manifestLedgerId() {
+        return manifest.ledgerId();
+    }
+
+    /**
+     * Re-points the standby at a new manifest ledger, as after the owner changed: the new ledger
+     * opens with a checkpoint, so it is read from the start. WAL tails and SSTable readers the new
+     * manifest still names are kept. No-op if already following {@code manifestLedgerId}.
+     */
+    public synchronized void follow(long manifestLedgerId) {
+        ensureOpen();
+        if (manifest.ledgerId() == manifestLedgerId) {
+            return;
+        }
+        closeQuietly(manifestLedger);
+        manifestLedger = null;
+        manifest = ManifestTail.start(manifestLedgerId);
+    }
+
+    /**
+     * Reads whatever the owner has confirmed since the last call: new manifest edits, then the new
+     * entries of every WAL the manifest lists as a recovery source, then opens readers for tables
+     * the edits added and closes those they dropped. Failures propagate and leave the replica
+     * consistent, so the next call retries.
+     *
+     * @return the WAL records applied by this call
+     */
+    public synchronized long catchUp() {
+        ensureOpen();
+        long startedAt = clock.currentTimeMillis();
+        if (manifestLedger == null) {
+            manifestLedger = ledgerStore.openLedger(manifest.ledgerId());
+        }
+        manifestLedger.readLastAddConfirmed();
+        manifest.catchUp(manifestLedger);
+        ManifestState state = manifest.state();
+
+        long applied = 0;
+        for (long walId : retainWals(state)) {
+            WalTail tail = wals.get(walId);
+            if (tail.ledger == null) {
+                tail.ledger = ledgerStore.openLedger(walId);
+            }
+            tail.ledger.readLastAddConfirmed();
+            applied += tail.replay(tail.ledger, 1);
+        }
+        walRecords += applied;
+
+        for (SSTableMeta table : state.tables()) {
+            readers.computeIfAbsent(table.ledgerId(),
+                    id -> new SSTableReader(ledgerStore, id, blockCache));
+        }
+        viewLock.writeLock().lock();
+        try {
+            closeReadersNotIn(state);
+            view = new ReadView(memtablesNewestFirst(), SSTableLevels.of(state, readers),
+                    List.copyOf(readers.values()), state.hashScope());
+            caughtUpAtMillis = startedAt - config.standbyCatchUpIntervalMillis();
+        } finally {
+            viewLock.writeLock().unlock();
+        }
+        return applied;
+    }
+
+    /**
+     * How current the last completed {@link #catchUp} left the replica: it holds everything the
+     * owner had confirmed by then, the catch-up's start less the LAC lag. {@link Long#MIN_VALUE}
+     * before the first.
+     */
+    public long caughtUpAtMillis() {
+        return caughtUpAtMillis;
+    }
+
+    /**
+     * Whether the replica's reads are at most {@code maxStalenessMillis} behind the owner's, that is,
+     * whether {@link #caughtUpAtMillis} is no longer ago than that.
+     */
+    public boolean isCaughtUpWithin(long maxStalenessMillis) {
+        long at = caughtUpAtMillis;
+        return !closed && at != Long.MIN_VALUE && clock.currentTimeMillis() - at <= maxStalenessMillis;
+    }
+
+    /** WAL records replayed by every {@link #catchUp} so far. */
+    public synchronized long walRecords() {
+        return walRecords;
+    }
+
+    /** Whether the replica was closed or promoted; it cannot be used again either way. */
+    public synchronized boolean isClosed() {
+        return closed;
+    }
+
+    /** SSTable readers currently open. */
+    public synchronized int openReaders() {
+        return readers.size();
+    }
+
+    /**
+     * Takes ownership: fences the followed manifest and the WALs it names, reads their remaining
+     * tails, and returns the engine, which takes over this replica's memtables and readers. The
+     * replica is closed afterwards, whether or not the promotion succeeded.
+     *
+     * @param fencingToken the new owner's lease fencing token; a stale (lower) token is rejected
+     */
+    public synchronized BoxEngine promote(int nodeId, Clock clock, long fencingToken) {
+        ensureOpen();
+        viewLock.writeLock().lock();
+        try {
+            view = null; // the engine takes the memtables and readers over
+            return BoxEngine.takeOver(this, config, nodeId, clock, fencingToken, resources);
+        } finally {
+            close();
+            viewLock.writeLock().unlock();
+        }
+    }
+
+    // ---- reads -----------------------------------------------------------------------------
+
+    @Override
+    public CandyMetadata headCandy(CandyKey key) {
+        return CandyMetadata.from(resolveLive(key));
+    }
+
+    @Override
+    public CandyMetadata getCandy(CandyKey key, OutputStream out) {
+        return getCandy(key, metadata -> out);
+    }
+
+    @Override
+    public CandyMetadata getCandy(CandyKey key, Function<CandyMetadata, OutputStream> sink) {
+        CandyLocator locator = resolveLive(key);
+        CandyMetadata metadata = CandyMetadata.from(locator);
+        // Syrups are not dropped under the view (only GC deletes them, past a grace period), so the
+        // bytes stream without holding the view.
+        syrupReader.readParts(locator.parts(), sink.apply(metadata));
+        return metadata;
+    }
+
+    @Override
+    public BoxEngine.RangeReadResult getCandyRange(CandyKey key, long firstByte, long lastByte,
+                                                   OutputStream out) {
+        CandyLocator locator = resolveLive(key);
+        BoxEngine.RangeReadResult range =
+                BoxEngine.RangeReadResult.resolve(locator, firstByte, lastByte);
+        syrupReader.readRange(locator.parts(), range.firstByte(), range.lastByte(), out);
+        return range;
+    }
+
+    @Override
+    public ListResult scanCandies(ScanQuery query) {
+        return read(current -> current.scan(query));
+    }
+
+    @Override
+    public ObjectAcl getCandyAcl(CandyKey key) {
+        return resolveLive(key).acl();
+    }
+
+    // ---- takeover steps (BoxEngine) --------------------------------------------------------
+
+    LedgerStore ledgerStore() {
+        return ledgerStore;
+    }
+
+    /** Recover-opens the followed manifest ledger, reading only the edits not yet tailed. */
+    Manifest fenceManifest(LedgerConfig manifestConfig, long fencingToken) {
+        closeQuietly(manifestLedger);
+        manifestLedger = null;
+        return Manifest.recover(ledgerStore, manifestConfig, manifest, fencingToken);
+    }
+
+    /**
+     * Recover-opens every WAL {@code state} lists as a recovery source (fencing a prior owner still
+     * appending) and replays the entries not yet tailed, then merges the per-WAL memtables.
+     */
+    Replayed fenceWals(ManifestState state, int readAhead) {
+        long records = 0;
+        Hlc maxHlc = Hlc.MIN;
+        for (long walId : retainWals(state)) {
+            WalTail tail = wals.get(walId);
+            closeQuietly(tail.ledger);
+            tail.ledger = null;
+            // recover-open fences the prior WAL so a resurrected old owner cannot keep appending.
+            ReadableLedger sealed = ledgerStore.recoverOpen(walId);
+            try {
+                records += tail.replay(sealed, readAhead);
+            } finally {
+                sealed.close();
+            }
+            if (tail.maxHlc.isAfter(maxHlc)) {
+                maxHlc = tail.maxHlc;
+            }
+        }
+        return new Replayed(mergedMemtable(), new ArrayList<>(wals.keySet()), records, maxHlc);
+    }
+
+    /** Hands the readers of {@code state}'s tables to the caller, closing any others. */
+    Map<Long, SSTableReader> takeReaders(ManifestState state) {
+        closeReadersNotIn(state);
+        Map<Long, SSTableReader> taken = new LinkedHashMap<>(readers);
+        readers.clear();
+        return taken;
+    }
+
+    /**
+     * What {@link #fenceWals} recovered.
+     *
+     * @param memtable the mutations of every recovery-source WAL
+     * @param walIds   those WALs, in manifest order
+     * @param records  the WAL records read at takeover (those not tailed before)
+     * @param maxHlc   the highest HLC in any of the WALs, tailed or not ({@link Hlc#MIN} if all empty)
+     */
+    record Replayed(Memtable memtable, List<Long> walIds, long records, Hlc maxHlc) {
+    }
+
+    // ---- internals -------------------------------------------------------------------------
+
+    private CandyLocator resolveLive(CandyKey key) {
+        return read(current -> {
+            if (!current.owns(key)) {
+                throw new NotOwnerException(box.value()); // split off to a sibling partition
+            }
+            return current.resolve(key);
+        }).orElseThrow(() -> new CandyNotFoundException(box.value(), key.value()));
+    }
+
+    /**
+     * Runs {@code read} over the current view, or fails with {@link NotOwnerException} if there is
+     * none yet or the replica was promoted or closed, so the caller can go to the owner instead.
+     */
+    private <T> T read(Function<ReadView, T> read) {
+        viewLock.readLock().lock();
+        try {
+            ReadView current = view;
+            if (current == null || closed) {
+                throw new NotOwnerException(box.value());
+            }
+            return read.apply(current);
+        } finally {
+            viewLock.readLock().unlock();
+        }
+    }
+
+    /** The WAL memtables for a read view: the current WAL's first, then the pending ones, newest first. */
+    private List<Memtable> memtablesNewestFirst() {
+        List<Memtable> memtables = new ArrayList<>(wals.size());
+        for (WalTail tail : wals.values()) {
+            memtables.add(0, tail.memtable);
+        }
+        return memtables;
+    }
+
+    /**
+     * Drops the tails of WALs {@code state} no longer lists (their memtable is in an SSTable now) and
+     * starts tails for new ones, returning the recovery sources in order: pending, then current.
+     */
+    private Set<Long> retainWals(ManifestState state) {
+        Set<Long> sources = new LinkedHashSet<>(state.pendingWalLedgerIds());
+        if (state.walLedgerId() >= 0) {
+            sources.add(state.walLedgerId());
+        }
+        for (Iterator<Map.Entry<Long, WalTail>> it = wals.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<Long, WalTail> e = it.next();
+            if (!sources.contains(e.getKey())) {
+                closeQuietly(e.getValue().ledger);
+                it.remove();
+            }
+        }
+        for (long walId : sources) {
+            wals.computeIfAbsent(walId, id -> new WalTail());
+        }
+        return sources;
+    }
+
+    private Memtable mergedMemtable() {
+        if (wals.size() == 1) {
+            return wals.values().iterator().next().memtable;
+        }
+        Memtable merged = new Memtable();
+        for (WalTail tail : wals.values()) {
+            tail.memtable.iterator().forEachRemaining(merged::put);
+            tail.memtable.rangeTombstones().forEach(merged::delete);
+        }
+        return merged;
+    }
+
+    private void closeReadersNotIn(ManifestState state) {
+        Set<Long> live = new LinkedHashSet<>();
+        for (SSTableMeta table : state.tables()) {
+            live.add(table.ledgerId());
+        }
+        for (Iterator<Map.Entry<Long, SSTableReader>> it = readers.entrySet().iterator();
+                it.hasNext(); ) {
+            Map.Entry<Long, SSTableReader> e = it.next();
+            if (!live.contains(e.getKey())) {
+                e.getValue().close();
+                it.remove();
+            }
+        }
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("Standby of box " + box + " is closed");
+        }
+    }
+
+    private void closeQuietly(ReadableLedger ledger) {
+        if (ledger == null) {
+            return;
+        }
+        try {
+            ledger.close();
+        } catch (RuntimeException e) {
+            LOG.debug("Could not close ledger {} tailed for box {}", ledger.ledgerId(), box, e);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        viewLock.writeLock().lock();
+        try {
+            closed = true;
+            view = null;
+        } finally {
+            viewLock.writeLock().unlock();
+        }
+        closeQuietly(manifestLedger);
+        manifestLedger = null;
+        for (WalTail tail : wals.values()) {
+            closeQuietly(tail.ledger);
+        }
+        wals.clear();
+        readers.values().forEach(SSTableReader::close);
+        readers.clear();
+    }
+
+    /** One WAL's replica memtable and how far it has been read. */
+    private static final class WalTail {
+        private final Memtable memtable = new Memtable();
+        private ReadableLedger ledger;
+        private long nextEntryId;
+        private Hlc maxHlc = Hlc.MIN;
+
+        /** Replays from where the last replay ended up to {@code source}'s last-add-confirmed. */
+        private long replay(ReadableLedger source, int readAhead) {
+            WriteAheadLog.ReplaySummary replay =
+                    WriteAheadLog.replay(source, nextEntryId, readAhead, this::apply);
+            nextEntryId = replay.nextEntryId();
+            if (replay.maxHlc().isAfter(maxHlc)) {
+                maxHlc = replay.maxHlc();
+            }
+            return replay.records();
+        }
+
+        private void apply(WalEntry entry) {
+            if (entry instanceof WalEntry.PointMutation pm) {
+                memtable.put(pm.mutation());
+            } else if (entry instanceof WalEntry.RangeDelete rd) {
+                memtable.delete(rd.tombstone());
+            }
+        }
+    }
+}
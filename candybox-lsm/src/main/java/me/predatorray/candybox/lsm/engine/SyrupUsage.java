@@ -0,0 +1,33 @@
+/*
+ * Copyright (c) 2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.predatorray.candybox.lsm.engine;
+
+/**
+ * How much of one sealed Syrup a partition's live view still references, the score Syrup
+ * defragmentation picks victims by (DESIGN §9(d)). Counted in chunk entries: every chunk but a part's
+ * last is the full chunk size, so the entry ratio tracks the byte ratio closely.
+ *
+ * @param syrupId      the Syrup ledger id
+ * @param liveEntries  entries referenced by a live (winning, non-deleted) locator
+ * @param totalEntries entries the Syrup holds
+ */
+public record SyrupUsage(long syrupId, long liveEntries, long totalEntries) {
+
+    /** The live fraction in {@code [0, 1]}; an empty Syrup counts as fully live. */
+    public double liveRatio() {
+        return totalEntries == 0 ? 1.0 : Math.min(1.0, (double) liveEntries / totalEntries);
+    }
+}
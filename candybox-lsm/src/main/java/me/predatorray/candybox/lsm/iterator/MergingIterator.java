@@ -15,7 +15,6 @@
  */
 package me.predatorray.candybox.lsm.iterator;
 
-import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
@@ -33,12 +32,19 @@ import me.predatorray.candybox.lsm.engine.ScanDirection;
  *
  * <p>When {@code dropTombstones} is set the merged stream omits DELETE winners (the read/list view);
  * compaction passes {@code false} so tombstones survive until the bottommost-level GC rule drops them.
+ *
+ * <p>The source heads are kept in a binary min-heap ordered by key in the merge direction (ties by
+ * source index), so each emitted key costs O(d log N) for d duplicates across N sources rather than
+ * two full passes over every source. Sources are primed lazily on the first {@link #hasNext()}.
  */
 public final class MergingIterator implements Iterator<Mutation> {
 
-    private final List<PeekingIterator<Mutation>> sources;
+    private final List<Iterator<Mutation>> sources;
     private final boolean dropTombstones;
     private final ScanDirection direction;
+    private final Head[] heap;
+    private int size;
+    private boolean primed;
     private Mutation nextOut;
     private boolean computed;
 
@@ -49,12 +55,10 @@ public final class MergingIterator implements Iterator<Mutation> {
 
     public MergingIterator(List<Iterator<Mutation>> sources, boolean dropTombstones,
                            ScanDirection direction) {
-        this.sources = new ArrayList<>(sources.size());
-        for (Iterator<Mutation> s : sources) {
-            this.sources.add(new PeekingIterator<>(s));
-        }
+        this.sources = List.copyOf(sources);
         this.dropTombstones = dropTombstones;
         this.direction = direction;
+        this.heap = new Head[sources.size()];
     }
 
     @Override
@@ -78,29 +82,22 @@ public final class MergingIterator implements Iterator<Mutation> {
     }
 
     private Mutation computeNext() {
-        while (true) {
-            // The frontier key is the smallest (FORWARD) or largest (REVERSE) of the source heads.
-            CandyKey frontier = null;
-            for (PeekingIterator<Mutation> it : sources) {
-                if (it.hasNext()) {
-                    CandyKey k = it.peek().key();
-                    if (frontier == null || isAhead(k, frontier)) {
-                        frontier = k;
-                    }
-                }
-            }
-            if (frontier == null) {
-                return null; // all sources exhausted
-            }
-
-            Mutation winner = null;
-            for (PeekingIterator<Mutation> it : sources) {
-                if (it.hasNext() && it.peek().key().equals(frontier)) {
-                    Mutation cand = it.next();
-                    if (winner == null || cand.hlc().isAfter(winner.hlc())) {
-                        winner = cand;
-                    }
+        if (!primed) {
+            prime();
+        }
+        while (size > 0) {
+            // The heap top holds the frontier key: smallest (FORWARD) or largest (REVERSE) head.
+            Mutation winner = heap[0].current;
+            CandyKey frontier = winner.key();
+            advanceTop();
+            // Equal keys surface in source order, so a strict isAfter keeps the earliest source on an
+            // HLC tie exactly as the linear scan did.
+            while (size > 0 && heap[0].current.key().equals(frontier)) {
+                Mutation cand = heap[0].current;
+                if (cand.hlc().isAfter(winner.hlc())) {
+                    winner = cand;
                 }
+                advanceTop();
             }
 
             if (dropTombstones && winner.isTombstone()) {
@@ -108,11 +105,85 @@ public final class MergingIterator implements Iterator<Mutation> {
             }
             return winner;
         }
+        return null; // all sources exhausted
+    }
+
+    private void prime() {
+        primed = true;
+        for (int i = 0; i < sources.size(); i++) {
+            Iterator<Mutation> it = sources.get(i);
+            if (it.hasNext()) {
+                Head h = new Head(it, i);
+                h.current = it.next();
+                heap[size] = h;
+                siftUp(size++);
+            }
+        }
+    }
+
+    /** Replaces the top's head with its source's next entry, or drops the source when exhausted. */
+    private void advanceTop() {
+        Head top = heap[0];
+        if (top.source.hasNext()) {
+            top.current = top.source.next();
+        } else {
+            heap[0] = heap[--size];
+            heap[size] = null;
+        }
+        if (size > 0) {
+            siftDown(0);
+        }
     }
 
-    /** Whether {@code k} sorts before {@code current} in the merge direction. */
-    private boolean isAhead(CandyKey k, CandyKey current) {
-        int cmp = k.compareTo(current);
-        return direction == ScanDirection.FORWARD ? cmp < 0 : cmp > 0;
+    private void siftUp(int i) {
+        Head h = heap[i];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!isAhead(h, heap[parent])) {
+                break;
+            }
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = h;
+    }
+
+    private void siftDown(int i) {
+        Head h = heap[i];
+        int half = size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            int right = child + 1;
+            if (right < size && isAhead(heap[right], heap[child])) {
+                child = right;
+            }
+            if (!isAhead(heap[child], h)) {
+                break;
+            }
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = h;
+    }
+
+    /** Whether {@code a} should be emitted before {@code b}: key in merge direction, then source index. */
+    private boolean isAhead(Head a, Head b) {
+        int cmp = a.current.key().compareTo(b.current.key());
+        if (cmp != 0) {
+            return direction == ScanDirection.FORWARD ? cmp < 0 : cmp > 0;
+        }
+        return a.index < b.index;
+    }
+
+    /** One source and the entry at its head. */
+    private static final class Head {
+        final Iterator<Mutation> source;
+        final int index;
+        Mutation current;
+
+        Head(Iterator<Mutation> source, int index) {
+            this.source = source;
+            this.index = index;
+        }
     }
 }
@@ -20,6 +20,7 @@ import java.util.List;
 import me.predatorray.candybox.bookkeeper.LedgerConfig;
 import me.predatorray.candybox.bookkeeper.LedgerStore;
 import me.predatorray.candybox.bookkeeper.ReadableLedger;
+import me.predatorray.candybox.common.HashScope;
 import me.predatorray.candybox.common.exception.FencedException;
 import me.predatorray.candybox.lsm.sstable.SSTableMeta;
 
@@ -68,20 +69,29 @@ public final class Manifest implements AutoCloseable {
      */
     public static Manifest recover(LedgerStore store, LedgerConfig manifestConfig,
                                    long priorManifestLedgerId, long ownerFencingToken) {
-        ReadableLedger prior = store.recoverOpen(priorManifestLedgerId);
-        ManifestState recovered = ManifestState.empty();
-        long maxReplayedToken = 0;
+        return recover(store, manifestConfig, ManifestTail.start(priorManifestLedgerId),
+                ownerFencingToken);
+    }
+
+    /**
+     * {@link #recover(LedgerStore, LedgerConfig, long, long)} resuming from a standby's tail of the
+     * prior ledger: after the fence only the edits the tail has not read yet are replayed. The tail
+     * is advanced to the sealed end.
+     *
+     * @throws FencedException if {@code ownerFencingToken} regresses below the recovered max token
+     */
+    public static Manifest recover(LedgerStore store, LedgerConfig manifestConfig, ManifestTail prior,
+                                   long ownerFencingToken) {
+        ReadableLedger sealed = store.recoverOpen(prior.ledgerId());
         try {
-            for (ManifestEdit edit : ManifestLog.replay(prior)) {
-                recovered = recovered.apply(edit);
-                maxReplayedToken = Math.max(maxReplayedToken, edit.ownerFencingToken());
-            }
+            prior.catchUp(sealed);
         } finally {
-            prior.close();
+            sealed.close();
         }
-        if (ownerFencingToken < maxReplayedToken) {
+        ManifestState recovered = prior.state();
+        if (ownerFencingToken < prior.maxToken()) {
             throw new FencedException("Stale handover: owner token " + ownerFencingToken
-                    + " is below the committed max token " + maxReplayedToken);
+                    + " is below the committed max token " + prior.maxToken());
         }
 
         ManifestLog fresh = ManifestLog.create(store, manifestConfig);
@@ -137,6 +147,8 @@ public final class Manifest implements AutoCloseable {
                 .newWalLedgerId(wal)
                 .addedUploads(new ArrayList<>(state.multipartUploads().values()))
                 .addedRenameIntents(new ArrayList<>(state.renameIntents().values()))
+                .addedPendingWals(state.pendingWalLedgerIds())
+                .hashScope(state.hashScope().equals(HashScope.ALL) ? null : state.hashScope())
                 .build();
     }
 }
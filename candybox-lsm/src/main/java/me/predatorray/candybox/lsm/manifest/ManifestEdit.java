@@ -17,6 +17,7 @@ package me.predatorray.candybox.lsm.manifest;
 
 import java.util.List;
 import java.util.Set;
+import me.predatorray.candybox.common.HashScope;
 import me.predatorray.candybox.common.Part;
 import me.predatorray.candybox.lsm.sstable.SSTableMeta;
 
@@ -34,6 +35,14 @@ import me.predatorray.candybox.lsm.sstable.SSTableMeta;
  * owning node's token; {@code Manifest} rejects an edit whose token regresses below the highest token
  * it has committed (the manifest-level zombie-commit defense, complementing BookKeeper recover-open).
  *
+ * <p>Pending WALs (v4) track memtables sealed for a background flush: when the active memtable is
+ * swapped out, its WAL is rotated <em>and</em> recorded in {@link #addedPendingWals} so a recovering
+ * owner still replays it; the edit committing that memtable's SSTable lists it in
+ * {@link #removedPendingWals}.
+ *
+ * <p>A partition split (v5) records the keys the partition owns from then on in {@link #hashScope},
+ * so a recovering owner or a standby inherits the narrowed scope with the rest of the state.
+ *
  * @param addedTables           SSTables to add
  * @param removedTableLedgerIds SSTable ledger ids to remove
  * @param addedSyrups           Syrup ledger ids that became live
@@ -44,6 +53,10 @@ import me.predatorray.candybox.lsm.sstable.SSTableMeta;
  * @param removedUploads        upload ids dropped by this edit (CompleteMultipartUpload / Abort)
  * @param addedRenameIntents    in-flight cross-partition rename intents recorded by this edit (v3)
  * @param removedRenameIntents  rename intent tokens finalized/abandoned by this edit (v3)
+ * @param addedPendingWals      rotated-out WAL ledger ids whose memtable is not yet flushed (v4)
+ * @param removedPendingWals    pending WAL ledger ids whose memtable is now durable in an SSTable (v4)
+ * @param hashScope             the partition's key scope from this edit on, or {@code null} if
+ *                              unchanged (v5)
  * @param ownerFencingToken     fencing token of the authoring owner ({@code 0} = "stamp at apply time")
  */
 public record ManifestEdit(
@@ -57,6 +70,9 @@ public record ManifestEdit(
         Set<String> removedUploads,
         List<RenameIntent> addedRenameIntents,
         Set<String> removedRenameIntents,
+        Set<Long> addedPendingWals,
+        Set<Long> removedPendingWals,
+        HashScope hashScope,
         long ownerFencingToken) {
 
     public ManifestEdit {
@@ -69,6 +85,8 @@ public record ManifestEdit(
         removedUploads = removedUploads == null ? Set.of() : Set.copyOf(removedUploads);
         addedRenameIntents = addedRenameIntents == null ? List.of() : List.copyOf(addedRenameIntents);
         removedRenameIntents = removedRenameIntents == null ? Set.of() : Set.copyOf(removedRenameIntents);
+        addedPendingWals = addedPendingWals == null ? Set.of() : Set.copyOf(addedPendingWals);
+        removedPendingWals = removedPendingWals == null ? Set.of() : Set.copyOf(removedPendingWals);
         if (ownerFencingToken < 0) {
             throw new IllegalArgumentException("ownerFencingToken must be non-negative");
         }
@@ -81,14 +99,14 @@ public record ManifestEdit(
     /** Convenience: a flush edit adding one table plus its syrups, optionally rotating the WAL. */
     public static ManifestEdit flush(SSTableMeta table, Set<Long> syrups, Long newWalLedgerId) {
         return new ManifestEdit(List.of(table), Set.of(), syrups, Set.of(), newWalLedgerId,
-                List.of(), List.of(), Set.of(), List.of(), Set.of(), 0L);
+                List.of(), List.of(), Set.of(), List.of(), Set.of(), Set.of(), Set.of(), null, 0L);
     }
 
     /** Returns a copy with the given owner fencing token (used by {@link Manifest#apply}). */
     public ManifestEdit withOwnerFencingToken(long token) {
         return new ManifestEdit(addedTables, removedTableLedgerIds, addedSyrups, removedSyrups,
                 newWalLedgerId, addedUploads, upsertParts, removedUploads, addedRenameIntents,
-                removedRenameIntents, token);
+                removedRenameIntents, addedPendingWals, removedPendingWals, hashScope, token);
     }
 
     /**
@@ -121,6 +139,9 @@ public record ManifestEdit(
         private Set<String> removedUploads = Set.of();
         private List<RenameIntent> addedRenameIntents = List.of();
         private Set<String> removedRenameIntents = Set.of();
+        private Set<Long> addedPendingWals = Set.of();
+        private Set<Long> removedPendingWals = Set.of();
+        private HashScope hashScope = null;
         private long ownerFencingToken = 0L;
 
         public Builder addedTables(List<SSTableMeta> v) {
@@ -181,6 +202,21 @@ public record ManifestEdit(
             return this;
         }
 
+        public Builder addedPendingWals(Set<Long> v) {
+            this.addedPendingWals = v;
+            return this;
+        }
+
+        public Builder removedPendingWals(Set<Long> v) {
+            this.removedPendingWals = v;
+            return this;
+        }
+
+        public Builder hashScope(HashScope v) {
+            this.hashScope = v;
+            return this;
+        }
+
         public Builder ownerFencingToken(long v) {
             this.ownerFencingToken = v;
             return this;
@@ -205,7 +241,8 @@ public record ManifestEdit(
         public ManifestEdit build() {
             return new ManifestEdit(addedTables, removedTableLedgerIds, addedSyrups, removedSyrups,
                     newWalLedgerId, addedUploads, upsertParts, removedUploads, addedRenameIntents,
-                    removedRenameIntents, ownerFencingToken);
+                    removedRenameIntents, addedPendingWals, removedPendingWals, hashScope,
+                    ownerFencingToken);
         }
     }
 
@@ -22,6 +22,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import me.predatorray.candybox.common.CandyKey;
+import me.predatorray.candybox.common.HashScope;
 import me.predatorray.candybox.common.Hlc;
 import me.predatorray.candybox.common.Part;
 import me.predatorray.candybox.common.SegmentRef;
@@ -37,13 +38,15 @@ import me.predatorray.candybox.lsm.sstable.SSTableMeta;
  * <p><b>v2 layout</b> adds the multipart-upload tracking fields ({@code addedUploads},
  * {@code upsertParts}, {@code removedUploads}) at the end of the v1 record. <b>v3 layout</b> appends
  * the cross-partition rename-intent fields ({@code addedRenameIntents}, {@code removedRenameIntents}).
- * A v2 record (no rename-intent fields) still reads back as an edit with empty intent sets. Older v1
- * records cannot be read back; this is acceptable because the project has no production data to
- * migrate.
+ * <b>v4 layout</b> appends the pending-WAL sets ({@code addedPendingWals}, {@code removedPendingWals})
+ * used by the background memtable flush. <b>v5 layout</b> appends the optional partition
+ * {@code hashScope} a split narrowed the partition to. v2 to v4 records still read back, with the
+ * missing trailing fields empty. Older v1 records cannot be read back; this is acceptable because
+ * the project has no production data to migrate.
  */
 public final class ManifestSerializer {
 
-    public static final byte FORMAT_VERSION = 3;
+    public static final byte FORMAT_VERSION = 5;
 
     private ManifestSerializer() {
     }
@@ -93,13 +96,26 @@ public final class ManifestSerializer {
         for (String token : edit.removedRenameIntents()) {
             w.writeString(token);
         }
+
+        // ---- pending WALs of sealed, not-yet-flushed memtables (v4) --------------------------
+        writeLongSet(w, edit.addedPendingWals());
+        writeLongSet(w, edit.removedPendingWals());
+
+        // ---- partition key scope set by a split (v5) -----------------------------------------
+        if (edit.hashScope() == null) {
+            w.writeBoolean(false);
+        } else {
+            w.writeBoolean(true);
+            w.writeVarInt(edit.hashScope().modulus());
+            w.writeVarInt(edit.hashScope().residue());
+        }
         return w.toByteArray();
     }
 
     public static ManifestEdit deserialize(byte[] data) {
         BinaryReader r = new BinaryReader(data);
         int version = r.readByte();
-        if (version != 2 && version != FORMAT_VERSION) {
+        if (version < 2 || version > FORMAT_VERSION) {
             throw new SerializationException("Unsupported ManifestEdit version: " + version);
         }
         int tableCount = r.readVarInt();
@@ -145,9 +161,21 @@ public final class ManifestSerializer {
             }
         }
 
+        Set<Long> addedPendingWals = Set.of();
+        Set<Long> removedPendingWals = Set.of();
+        if (version >= 4) {
+            addedPendingWals = readLongSet(r);
+            removedPendingWals = readLongSet(r);
+        }
+
+        HashScope hashScope = null;
+        if (version >= 5 && r.readBoolean()) {
+            hashScope = new HashScope(r.readVarInt(), r.readVarInt());
+        }
+
         return new ManifestEdit(tables, removedTables, addedSyrups, removedSyrups, newWal,
                 addedUploads, upserts, removedUploads, addedIntents, removedIntents,
-                ownerFencingToken);
+                addedPendingWals, removedPendingWals, hashScope, ownerFencingToken);
     }
 
     private static void writeRenameIntent(BinaryWriter w, RenameIntent intent) {
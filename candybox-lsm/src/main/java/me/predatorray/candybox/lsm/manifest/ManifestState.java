@@ -22,37 +22,45 @@ import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import me.predatorray.candybox.common.HashScope;
 import me.predatorray.candybox.common.Part;
 import me.predatorray.candybox.common.SegmentRef;
 import me.predatorray.candybox.lsm.sstable.SSTableMeta;
 
 /**
  * An immutable snapshot of a Box's LSM state: the SSTables that exist (with their levels and key
- * ranges), the set of live Syrups, the id of the current WAL ledger, and the in-flight multipart
- * uploads. Produced by replaying the manifest log and advanced by {@link #apply(ManifestEdit)}.
+ * ranges), the set of live Syrups, the id of the current WAL ledger (plus any rotated-out WALs whose
+ * memtable is still awaiting a background flush), and the in-flight multipart uploads. Produced by
+ * replaying the manifest log and advanced by {@link #apply(ManifestEdit)}.
  *
- * <p>One {@code ManifestState} corresponds to one Box's single partition (v1); the structure is kept
- * partition-shaped so key-range sharding can be added later without reworking it.
+ * <p>One {@code ManifestState} corresponds to one partition of a Box. Its {@link #hashScope()} names
+ * the keys the partition owns: every key until a split narrows it, after which the tables the two
+ * halves share may still hold keys the partition no longer answers for.
  */
 public final class ManifestState {
 
     private static final ManifestState EMPTY =
-            new ManifestState(List.of(), Set.of(), -1L, Map.of(), Map.of());
+            new ManifestState(List.of(), Set.of(), -1L, Set.of(), Map.of(), Map.of(), HashScope.ALL);
 
     private final List<SSTableMeta> tables;
     private final Set<Long> liveSyrups;
     private final long walLedgerId;
+    private final Set<Long> pendingWalLedgerIds;
     private final Map<String, MultipartUploadState> multipartUploads;
     private final Map<String, RenameIntent> renameIntents;
+    private final HashScope hashScope;
 
     private ManifestState(List<SSTableMeta> tables, Set<Long> liveSyrups, long walLedgerId,
+                          Set<Long> pendingWalLedgerIds,
                           Map<String, MultipartUploadState> multipartUploads,
-                          Map<String, RenameIntent> renameIntents) {
+                          Map<String, RenameIntent> renameIntents, HashScope hashScope) {
         this.tables = List.copyOf(tables);
         this.liveSyrups = Set.copyOf(liveSyrups);
         this.walLedgerId = walLedgerId;
+        this.pendingWalLedgerIds = Collections.unmodifiableSet(new LinkedHashSet<>(pendingWalLedgerIds));
         this.multipartUploads = Collections.unmodifiableMap(new LinkedHashMap<>(multipartUploads));
         this.renameIntents = Collections.unmodifiableMap(new LinkedHashMap<>(renameIntents));
+        this.hashScope = hashScope;
     }
 
     public static ManifestState empty() {
@@ -105,6 +113,14 @@ public final class ManifestState {
         return walLedgerId;
     }
 
+    /**
+     * Rotated-out WAL ledgers whose memtable has not been flushed to an SSTable yet. A
+     * recovering owner replays these alongside {@link #walLedgerId()}.
+     */
+    public Set<Long> pendingWalLedgerIds() {
+        return pendingWalLedgerIds;
+    }
+
     /** Snapshot of currently in-flight multipart uploads, keyed by {@code uploadId}. */
     public Map<String, MultipartUploadState> multipartUploads() {
         return multipartUploads;
@@ -115,6 +131,11 @@ public final class ManifestState {
         return renameIntents;
     }
 
+    /** The keys this partition owns ({@link HashScope#ALL} until a split narrows it). */
+    public HashScope hashScope() {
+        return hashScope;
+    }
+
     /**
      * Syrups referenced by parts of in-flight multipart uploads. These must not be GC'd while the
      * upload is pending — even though no SSTable points at them yet.
@@ -147,6 +168,10 @@ public final class ManifestState {
 
         long newWal = edit.newWalLedgerId() == null ? walLedgerId : edit.newWalLedgerId();
 
+        Set<Long> newPendingWals = new LinkedHashSet<>(pendingWalLedgerIds);
+        newPendingWals.addAll(edit.addedPendingWals());
+        newPendingWals.removeAll(edit.removedPendingWals());
+
         Map<String, MultipartUploadState> newUploads = new LinkedHashMap<>(multipartUploads);
         for (MultipartUploadState u : edit.addedUploads()) {
             newUploads.put(u.uploadId(), u);
@@ -169,6 +194,8 @@ public final class ManifestState {
         for (String token : edit.removedRenameIntents()) {
             newIntents.remove(token);
         }
-        return new ManifestState(newTables, newSyrups, newWal, newUploads, newIntents);
+        HashScope newScope = edit.hashScope() == null ? hashScope : edit.hashScope();
+        return new ManifestState(newTables, newSyrups, newWal, newPendingWals, newUploads, newIntents,
+                newScope);
     }
 }
@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.predatorray.candybox.lsm.manifest;
+
+import me.predatorray.candybox.bookkeeper.LedgerEntry;
+import me.predatorray.candybox.bookkeeper.ReadableLedger;
+
+/**
+ * A replay of one manifest ledger that can be resumed: the state rebuilt from the edits read so far,
+ * the highest fencing token among them, and where the next read starts. A warm standby keeps one
+ * against the owner's live ledger and {@link #catchUp catches up} as edits land; on takeover
+ * {@link Manifest#recover} fences the ledger and reads only what the tail has not seen yet. Not
+ * thread-safe.
+ */
+public final class ManifestTail {
+
+    private final long ledgerId;
+    private ManifestState state = ManifestState.empty();
+    private long nextEntryId;
+    private long maxToken;
+
+    private ManifestTail(long ledgerId) {
+        this.ledgerId = ledgerId;
+    }
+
+    /** A tail of {@code ledgerId} that has read nothing yet. */
+    public static ManifestTail start(long ledgerId) {
+        return new ManifestTail(ledgerId);
+    }
+
+    /**
+     * Applies the edits from the next unread entry up to {@code ledger}'s last-add-confirmed, which a
+     * caller tailing a live ledger refreshes first.
+     *
+     * @param ledger a handle on {@link #ledgerId()}
+     * @return the number of edits applied
+     */
+    public int catchUp(ReadableLedger ledger) {
+        if (ledger.ledgerId() != ledgerId) {
+            throw new IllegalArgumentException("Tail of manifest ledger " + ledgerId
+                    + " cannot read ledger " + ledger.ledgerId());
+        }
+        long lac = ledger.lastAddConfirmed();
+        if (lac < nextEntryId) {
+            return 0;
+        }
+        int applied = 0;
+        for (LedgerEntry entry : ledger.readRange(nextEntryId, lac)) {
+            ManifestEdit edit = ManifestSerializer.deserialize(entry.data());
+            state = state.apply(edit);
+            maxToken = Math.max(maxToken, edit.ownerFencingToken());
+            applied++;
+        }
+        nextEntryId = lac + 1;
+        return applied;
+    }
+
+    /** The manifest ledger being replayed. */
+    public long ledgerId() {
+        return ledgerId;
+    }
+
+    /** The state as of the edits read so far. */
+    public ManifestState state() {
+        return state;
+    }
+
+    /** The entry the next {@link #catchUp} starts from. */
+    public long nextEntryId() {
+        return nextEntryId;
+    }
+
+    /** The highest owner fencing token among the edits read so far ({@code 0} if none). */
+    public long maxToken() {
+        return maxToken;
+    }
+}
@@ -27,6 +27,7 @@ import me.predatorray.candybox.common.CandyKey;
 import me.predatorray.candybox.common.CandyLocator;
 import me.predatorray.candybox.common.Hlc;
 import me.predatorray.candybox.common.Mutation;
+import me.predatorray.candybox.common.Part;
 import me.predatorray.candybox.common.RangeTombstone;
 
 /**
@@ -159,6 +160,11 @@ public final class Memtable {
             size += e.getKey().length() + e.getValue().length();
         }
         size += 24L * locator.segments().size();
+        for (Part part : locator.parts()) {
+            if (part.isInline()) {
+                size += part.partLength();
+            }
+        }
         return size;
     }
 }
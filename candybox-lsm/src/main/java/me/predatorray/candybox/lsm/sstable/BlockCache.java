@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.predatorray.candybox.lsm.sstable;
+
+import me.predatorray.candybox.common.concurrent.CacheStats;
+import me.predatorray.candybox.common.concurrent.SegmentedLruCache;
+
+/**
+ * Node-wide cache of parsed SSTable data blocks, keyed by {@code (ledgerId, blockIndex)} and
+ * bounded in bytes. One instance is shared by every {@link SSTableReader} the node's Box engines
+ * open, so a hot block is fetched from the bookies once no matter how many readers ask for it.
+ * v1/v2 blocks are cached decoded; v3+ blocks are cached raw with their restart index. Eviction is
+ * segmented LRU: a long range scan cannot flush the point-lookup working set.
+ *
+ * <p>SSTable ledgers are immutable, so a cached block never goes stale; entries only need dropping
+ * once the ledger itself is deleted ({@link #invalidateLedger}), which GC does after a compaction has
+ * retired the table.
+ */
+public final class BlockCache {
+
+    private static final long BYTES_PER_SHARD = 1L << 20;
+    private static final int MAX_SHARDS = 16;
+
+    private final SegmentedLruCache<Key, DataBlock> cache;
+
+    /** @param capacityBytes byte budget; {@code 0} disables caching */
+    public BlockCache(long capacityBytes) {
+        int shards = (int) Math.min(MAX_SHARDS, Math.max(1, capacityBytes / BYTES_PER_SHARD));
+        this.cache = new SegmentedLruCache<>(capacityBytes, shards, (k, block) -> block.weight());
+    }
+
+    /** A cache that never holds anything, for readers that must not pollute the shared cache. */
+    public static BlockCache disabled() {
+        return new BlockCache(0);
+    }
+
+    /** The cached block, or {@code null} if it is not cached. */
+    DataBlock get(long ledgerId, int blockIndex) {
+        return cache.get(new Key(ledgerId, blockIndex));
+    }
+
+    /** Caches a parsed block, charged its {@link DataBlock#weight()}. */
+    void put(long ledgerId, int blockIndex, DataBlock block) {
+        cache.put(new Key(ledgerId, blockIndex), block);
+    }
+
+    /** Drops every cached block of a deleted SSTable ledger; returns how many were dropped. */
+    public int invalidateLedger(long ledgerId) {
+        return cache.invalidateIf(k -> k.ledgerId() == ledgerId);
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    private record Key(long ledgerId, int blockIndex) {
+    }
+}
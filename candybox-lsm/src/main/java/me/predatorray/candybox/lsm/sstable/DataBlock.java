@@ -0,0 +1,223 @@
+/*
+ * Copyright (c) 2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.predatorray.candybox.lsm.sstable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import me.predatorray.candybox.common.CandyKey;
+import me.predatorray.candybox.common.CandyLocator;
+import me.predatorray.candybox.common.Mutation;
+import me.predatorray.candybox.common.exception.SerializationException;
+import me.predatorray.candybox.common.serial.BinaryReader;
+import me.predatorray.candybox.common.serial.CandyLocatorSerializer;
+import me.predatorray.candybox.common.serial.MutationSerializer;
+import me.predatorray.candybox.common.util.Bytes;
+
+/**
+ * One SSTable data block as read from its ledger entry, in the shape the {@link BlockCache} holds.
+ * The layout depends on the table's footer version (see {@link SSTableFormat}):
+ *
+ * <ul>
+ *   <li>v1/v2 ({@link Decoded}): {@code varint count + [bytes Mutation]*}. It is decoded eagerly
+ *       because entries can only be found by walking them.</li>
+ *   <li>v3 ({@link Indexed}): {@code [bytes key, bytes locator]* + int restartOffset* + int
+ *       restartCount}. It stays raw. A point lookup binary-searches the restart keys, compares raw
+ *       key bytes, and deserializes only the matching locator.</li>
+ *   <li>v4 ({@link Indexed}, prefix-compressed): as v3, but each entry is {@code varint shared,
+ *       bytes suffix, bytes locator}. Its key is the first {@code shared} bytes of the previous key
+ *       plus {@code suffix}, and {@code shared} is 0 at every restart point.</li>
+ * </ul>
+ */
+sealed interface DataBlock permits DataBlock.Decoded, DataBlock.Indexed {
+
+    /** Rough per-mutation heap overhead on top of its encoded bytes (key, locator, HLC objects). */
+    long PER_MUTATION_OVERHEAD = 64;
+
+    /** The locator stored for {@code key} (possibly a tombstone), or empty if the block lacks it. */
+    Optional<CandyLocator> get(byte[] key);
+
+    /** Every mutation in the block, key-ascending. */
+    List<Mutation> mutations();
+
+    /** Approximate heap footprint in bytes, charged against the block cache. */
+    long weight();
+
+    /** Parses a data block of a table whose footer carries {@code formatVersion}. */
+    static DataBlock parse(byte[] data, int formatVersion) {
+        if (formatVersion >= SSTableFormat.FORMAT_VERSION_RESTARTS) {
+            return Indexed.parse(data, formatVersion >= SSTableFormat.FORMAT_VERSION);
+        }
+        return Decoded.parse(data);
+    }
+
+    /** A v1/v2 block: length-prefixed Mutations, decoded up front. */
+    record Decoded(List<Mutation> mutations, long weight) implements DataBlock {
+
+        static Decoded parse(byte[] data) {
+            BinaryReader r = new BinaryReader(data);
+            int count = r.readVarInt();
+            List<Mutation> out = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                out.add(MutationSerializer.deserialize(r.readBytes()));
+            }
+            return new Decoded(Collections.unmodifiableList(out),
+                    data.length + PER_MUTATION_OVERHEAD * count);
+        }
+
+        @Override
+        public Optional<CandyLocator> get(byte[] key) {
+            for (Mutation m : mutations) {
+                int cmp = Bytes.compare(m.key().utf8Bytes(), key);
+                if (cmp == 0) {
+                    return Optional.of(m.locator());
+                }
+                if (cmp > 0) {
+                    break; // block is sorted; we've passed where the key would be
+                }
+            }
+            return Optional.empty();
+        }
+    }
+
+    /** A v3/v4 block: raw entries plus the restart-point offsets that make them binary-searchable. */
+    final class Indexed implements DataBlock {
+
+        private final byte[] data;
+        private final int[] restarts;
+        private final int entriesEnd;
+        private final boolean prefixCompressed;
+
+        private Indexed(byte[] data, int[] restarts, int entriesEnd, boolean prefixCompressed) {
+            this.data = data;
+            this.restarts = restarts;
+            this.entriesEnd = entriesEnd;
+            this.prefixCompressed = prefixCompressed;
+        }
+
+        static Indexed parse(byte[] data, boolean prefixCompressed) {
+            if (data.length < Integer.BYTES) {
+                throw new SerializationException("Truncated SSTable data block");
+            }
+            BinaryReader trailer = new BinaryReader(data, data.length - Integer.BYTES, Integer.BYTES);
+            int count = trailer.readInt();
+            long entriesEnd = data.length - Integer.BYTES - (long) count * Integer.BYTES;
+            if (count < 0 || entriesEnd < 0) {
+                throw new SerializationException("Bad restart count " + count + " in SSTable data block");
+            }
+            BinaryReader r = new BinaryReader(data, (int) entriesEnd, count * Integer.BYTES);
+            int[] restarts = new int[count];
+            for (int i = 0; i < count; i++) {
+                restarts[i] = r.readInt();
+                if (restarts[i] < 0 || restarts[i] >= entriesEnd
+                        || (i > 0 && restarts[i] <= restarts[i - 1])) {
+                    throw new SerializationException("Bad restart offset in SSTable data block");
+                }
+            }
+            return new Indexed(data, restarts, (int) entriesEnd, prefixCompressed);
+        }
+
+        @Override
+        public Optional<CandyLocator> get(byte[] key) {
+            if (restarts.length == 0) {
+                return Optional.empty();
+            }
+            // The last restart whose key is <= key; the run up to the next restart holds key if any.
+            int lo = 0;
+            int hi = restarts.length - 1;
+            while (lo < hi) {
+                int mid = (lo + hi + 1) >>> 1;
+                if (compareKeyAt(restarts[mid], key) <= 0) {
+                    lo = mid;
+                } else {
+                    hi = mid - 1;
+                }
+            }
+            int runEnd = lo + 1 < restarts.length ? restarts[lo + 1] : entriesEnd;
+            BinaryReader r = new BinaryReader(data, restarts[lo], runEnd - restarts[lo]);
+            KeyBuffer current = new KeyBuffer();
+            while (r.hasRemaining()) {
+                current.next(r);
+                int cmp = Arrays.compareUnsigned(current.bytes, 0, current.length, key, 0, key.length);
+                int locatorLength = r.readVarInt();
+                if (cmp == 0) {
+                    return Optional.of(CandyLocatorSerializer.deserialize(
+                            new BinaryReader(data, r.position(), locatorLength)));
+                }
+                if (cmp > 0) {
+                    break;
+                }
+                r.skip(locatorLength);
+            }
+            return Optional.empty();
+        }
+
+        @Override
+        public List<Mutation> mutations() {
+            BinaryReader r = new BinaryReader(data, 0, entriesEnd);
+            KeyBuffer current = new KeyBuffer();
+            List<Mutation> out = new ArrayList<>();
+            while (r.hasRemaining()) {
+                current.next(r);
+                CandyKey key = CandyKey.ofUtf8(Arrays.copyOf(current.bytes, current.length));
+                out.add(new Mutation(key, CandyLocatorSerializer.deserialize(r.readBytes())));
+            }
+            return out;
+        }
+
+        @Override
+        public long weight() {
+            return data.length + PER_MUTATION_OVERHEAD;
+        }
+
+        /** Compares the whole key stored at a restart point, in place, with {@code key}. */
+        private int compareKeyAt(int offset, byte[] key) {
+            BinaryReader r = new BinaryReader(data, offset, entriesEnd - offset);
+            if (prefixCompressed && r.readVarInt() != 0) {
+                throw new SerializationException("Restart entry shares a prefix in SSTable data block");
+            }
+            int keyLength = r.readVarInt();
+            int keyOffset = r.position();
+            r.skip(keyLength);
+            return Arrays.compareUnsigned(data, keyOffset, keyOffset + keyLength, key, 0, key.length);
+        }
+
+        /** The key of the entry being walked, rebuilt from the previous one's prefix in v4. */
+        private final class KeyBuffer {
+            private byte[] bytes = new byte[64];
+            private int length;
+
+            /** Reads the next entry's key fields from {@code r}, leaving it at the locator. */
+            void next(BinaryReader r) {
+                int shared = prefixCompressed ? r.readVarInt() : 0;
+                int suffixLength = r.readVarInt();
+                int suffixOffset = r.position();
+                r.skip(suffixLength);
+                if (shared > length) {
+                    throw new SerializationException("Key shares " + shared + " byte(s) with a "
+                            + length + "-byte predecessor in SSTable data block");
+                }
+                length = shared + suffixLength;
+                if (bytes.length < length) {
+                    bytes = Arrays.copyOf(bytes, Math.max(length, bytes.length * 2));
+                }
+                System.arraycopy(data, suffixOffset, bytes, shared, suffixLength);
+            }
+        }
+    }
+}
@@ -19,9 +19,10 @@ package me.predatorray.candybox.lsm.sstable;
  * Shared constants for the SSTable on-ledger layout. An SSTable ledger is laid out as:
  *
  * <pre>
- *   entry 0 .. B-1   data blocks    (each block = a run of length-prefixed Mutations, key-ascending)
+ *   entry 0 .. B-1   data blocks    (key-ascending entries + restart-point offsets; see DataBlock)
  *   entry B          bloom block    (serialized BloomFilter over all keys)
- *   entry B+1        index block    (per data block: lastKey + its entry id)
+ *   entry B+1        index block    (per data block: a key >= its last key (v4: < the next block's
+ *                                   first key) + its entry id)
  *   entry [B+2]      range-del block (v2+, optional: serialized RangeTombstone list, by start)
  *   entry (=LAC)     footer         (magic, version, bloom/index/range-del entry ids, counts, keys)
  * </pre>
@@ -31,13 +32,23 @@ package me.predatorray.candybox.lsm.sstable;
  * entry; data block size targets ~64 KiB.
  *
  * <p>Format version 1 has no range-del block; version 2 adds it (a table may also be range-only, with
- * zero data blocks). Readers accept both.
+ * zero data blocks). Versions 1 and 2 store each data block as a run of length-prefixed Mutations.
+ * Version 3 keeps the v2 footer but stores raw {@code key | locator} entries followed by a
+ * restart-point offset array (one offset every {@link #RESTART_INTERVAL} entries). A point lookup
+ * binary-searches the restarts and decodes only the matching locator. Version 4 prefix-compresses
+ * the keys: each entry stores only the bytes it does not share with the previous key, except at a
+ * restart point, where the key is stored whole. Its index keys are the shortest separators between
+ * adjacent blocks, not their full last keys. Readers accept all four.
  */
 final class SSTableFormat {
 
     static final int FOOTER_MAGIC = 0x53535442; // "SSTB"
-    static final byte FORMAT_VERSION = 2;
+    static final byte FORMAT_VERSION = 4;
+    static final byte FORMAT_VERSION_RESTARTS = 3;
+    static final byte FORMAT_VERSION_RANGE_DEL = 2;
     static final byte FORMAT_VERSION_NO_RANGE_DEL = 1;
+    /** Entries between two restart points in a v3+ data block (v4 restarts its key prefixes there). */
+    static final int RESTART_INTERVAL = 16;
     static final int DEFAULT_DATA_BLOCK_TARGET_BYTES = 64 * 1024;
 
     private SSTableFormat() {
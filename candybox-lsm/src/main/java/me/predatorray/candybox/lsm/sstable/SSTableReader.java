@@ -20,6 +20,9 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import me.predatorray.candybox.bookkeeper.LedgerEntry;
 import me.predatorray.candybox.bookkeeper.LedgerStore;
 import me.predatorray.candybox.bookkeeper.ReadableLedger;
 import me.predatorray.candybox.common.CandyKey;
@@ -30,20 +33,28 @@ import me.predatorray.candybox.common.RangeTombstone;
 import me.predatorray.candybox.common.bloom.BloomFilter;
 import me.predatorray.candybox.common.exception.SerializationException;
 import me.predatorray.candybox.common.serial.BinaryReader;
-import me.predatorray.candybox.common.serial.MutationSerializer;
 import me.predatorray.candybox.common.serial.RangeTombstoneSerializer;
 import me.predatorray.candybox.common.util.Bytes;
 
 /**
  * Reads an SSTable ledger written by {@link SSTableWriter}. The footer, index, and bloom filter are
- * loaded eagerly; data blocks are read on demand. Point lookups consult the bloom filter first; range
- * scans iterate blocks from the one containing the start key.
+ * loaded eagerly — the footer first, then the entries it points at in one batch of concurrent reads,
+ * so opening a table costs two bookie round trips however many metadata entries it has; data blocks
+ * are read on demand. Point lookups consult the bloom filter first, then
+ * search the one candidate block (by restart points for a v3 table); range scans iterate blocks from
+ * the one containing the start key.
+ *
+ * <p>Decoded data blocks are served from, and added to, the supplied {@link BlockCache}; readers
+ * that should not disturb it (compaction inputs, which are read once) use the uncached constructor.
  *
  * <p>Holds an open read handle on the ledger for its lifetime; {@link #close()} releases it.
  */
 public final class SSTableReader implements AutoCloseable {
 
     private final ReadableLedger ledger;
+    private final long ledgerId;
+    private final BlockCache blockCache;
+    private final int formatVersion;
     private final BloomFilter bloom;
     private final byte[][] blockLastKeys;
     private final long[] blockEntryIds;
@@ -53,28 +64,56 @@ public final class SSTableReader implements AutoCloseable {
     private final List<RangeTombstone> rangeTombstones;
 
     public SSTableReader(LedgerStore store, long ledgerId) {
+        this(store, ledgerId, BlockCache.disabled());
+    }
+
+    public SSTableReader(LedgerStore store, long ledgerId, BlockCache blockCache) {
         this.ledger = store.openLedger(ledgerId);
-        long lac = ledger.lastAddConfirmed();
-        if (lac < 0) {
-            throw new SerializationException("SSTable ledger " + ledgerId + " is empty");
-        }
-        Footer footer = parseFooter(ledger.read(lac).data(), ledgerId);
-        this.minKey = CandyKey.ofUtf8(footer.minKey);
-        this.maxKey = CandyKey.ofUtf8(footer.maxKey);
-        this.entryCount = footer.numEntries;
-        this.bloom = BloomFilter.deserialize(ledger.read(footer.bloomEntryId).data());
-
-        BinaryReader idx = new BinaryReader(ledger.read(footer.indexEntryId).data());
-        int blocks = idx.readVarInt();
-        this.blockLastKeys = new byte[blocks][];
-        this.blockEntryIds = new long[blocks];
-        for (int i = 0; i < blocks; i++) {
-            blockLastKeys[i] = idx.readBytes();
-            blockEntryIds[i] = idx.readVarLong();
+        this.ledgerId = ledgerId;
+        this.blockCache = blockCache;
+        try {
+            long lac = ledger.lastAddConfirmed();
+            if (lac < 0) {
+                throw new SerializationException("SSTable ledger " + ledgerId + " is empty");
+            }
+            Footer footer = parseFooter(ledger.read(lac).data(), ledgerId);
+            this.formatVersion = footer.version;
+            this.minKey = CandyKey.ofUtf8(footer.minKey);
+            this.maxKey = CandyKey.ofUtf8(footer.maxKey);
+            this.entryCount = footer.numEntries;
+            CompletableFuture<LedgerEntry> bloomRead = ledger.readAsync(footer.bloomEntryId);
+            CompletableFuture<LedgerEntry> indexRead = ledger.readAsync(footer.indexEntryId);
+            CompletableFuture<LedgerEntry> rangeDelRead = footer.rangeDelEntryId < 0 ? null
+                    : ledger.readAsync(footer.rangeDelEntryId);
+            this.bloom = BloomFilter.deserialize(await(bloomRead));
+
+            BinaryReader idx = new BinaryReader(await(indexRead));
+            int blocks = idx.readVarInt();
+            this.blockLastKeys = new byte[blocks][];
+            this.blockEntryIds = new long[blocks];
+            for (int i = 0; i < blocks; i++) {
+                blockLastKeys[i] = idx.readBytes();
+                blockEntryIds[i] = idx.readVarLong();
+            }
+
+            this.rangeTombstones = rangeDelRead == null ? List.of()
+                    : parseRangeTombstones(await(rangeDelRead));
+        } catch (RuntimeException e) {
+            ledger.close(); // a half-opened reader must not pin the handle
+            throw e;
         }
+    }
 
-        this.rangeTombstones = footer.rangeDelEntryId < 0 ? List.of()
-                : parseRangeTombstones(ledger.read(footer.rangeDelEntryId).data());
+    /** Waits for a metadata read, surfacing its failure as the storage exception it carries. */
+    private static byte[] await(CompletableFuture<LedgerEntry> read) {
+        try {
+            return read.join().data();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
     }
 
     private static List<RangeTombstone> parseRangeTombstones(byte[] data) {
@@ -130,16 +169,7 @@ public final class SSTableReader implements AutoCloseable {
         if (block < 0) {
             return Optional.empty();
         }
-        for (Mutation m : readBlock(block)) {
-            int cmp = m.key().compareTo(key);
-            if (cmp == 0) {
-                return Optional.of(m.locator());
-            }
-            if (cmp > 0) {
-                break; // block is sorted; we've passed where the key would be
-            }
-        }
-        return Optional.empty();
+        return readBlock(block).get(key.utf8Bytes());
     }
 
     /**
@@ -190,15 +220,14 @@ public final class SSTableReader implements AutoCloseable {
         return lo == blockLastKeys.length ? -1 : lo;
     }
 
-    private List<Mutation> readBlock(int blockIndex) {
-        byte[] data = ledger.read(blockEntryIds[blockIndex]).data();
-        BinaryReader r = new BinaryReader(data);
-        int count = r.readVarInt();
-        List<Mutation> out = new ArrayList<>(count);
-        for (int i = 0; i < count; i++) {
-            out.add(MutationSerializer.deserialize(r.readBytes()));
+    private DataBlock readBlock(int blockIndex) {
+        DataBlock cached = blockCache.get(ledgerId, blockIndex);
+        if (cached != null) {
+            return cached;
         }
-        return out;
+        DataBlock block = DataBlock.parse(ledger.read(blockEntryIds[blockIndex]).data(), formatVersion);
+        blockCache.put(ledgerId, blockIndex, block);
+        return block;
     }
 
     private final class ScanIterator implements Iterator<Mutation> {
@@ -215,7 +244,7 @@ public final class SSTableReader implements AutoCloseable {
         }
 
         private void loadBlock() {
-            block = blockIndex < blockEntryIds.length ? readBlock(blockIndex) : List.of();
+            block = blockIndex < blockEntryIds.length ? readBlock(blockIndex).mutations() : List.of();
             posInBlock = 0;
             if (!startSkipped && start != null) {
                 while (posInBlock < block.size() && block.get(posInBlock).key().compareTo(start) < 0) {
@@ -260,7 +289,7 @@ public final class SSTableReader implements AutoCloseable {
         }
 
         private void loadBlock() {
-            block = blockIndex >= 0 ? readBlock(blockIndex) : List.of();
+            block = blockIndex >= 0 ? readBlock(blockIndex).mutations() : List.of();
             posInBlock = block.size() - 1;
             if (!startPositioned && start != null) {
                 while (posInBlock >= 0 && block.get(posInBlock).key().compareTo(start) > 0) {
@@ -298,11 +327,11 @@ public final class SSTableReader implements AutoCloseable {
             throw new SerializationException("Bad SSTable footer magic in ledger " + ledgerId);
         }
         int version = r.readByte();
-        if (version != SSTableFormat.FORMAT_VERSION
-                && version != SSTableFormat.FORMAT_VERSION_NO_RANGE_DEL) {
+        if (version < SSTableFormat.FORMAT_VERSION_NO_RANGE_DEL || version > SSTableFormat.FORMAT_VERSION) {
             throw new SerializationException("Unsupported SSTable format version " + version);
         }
         Footer f = new Footer();
+        f.version = version;
         f.bloomEntryId = r.readVarLong();
         f.indexEntryId = r.readVarLong();
         f.numDataBlocks = r.readVarInt();
@@ -310,12 +339,13 @@ public final class SSTableReader implements AutoCloseable {
         f.minKey = r.readBytes();
         f.maxKey = r.readBytes();
         // v2+ adds an optional range-del block; v1 footers end after maxKey.
-        f.rangeDelEntryId = version >= SSTableFormat.FORMAT_VERSION && r.readBoolean()
+        f.rangeDelEntryId = version >= SSTableFormat.FORMAT_VERSION_RANGE_DEL && r.readBoolean()
                 ? r.readVarLong() : -1;
         return f;
     }
 
     private static final class Footer {
+        int version;
         long bloomEntryId;
         long indexEntryId;
         int numDataBlocks;
@@ -16,6 +16,7 @@
 package me.predatorray.candybox.lsm.sstable;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
@@ -30,8 +31,9 @@ import me.predatorray.candybox.common.RangeTombstone;
 import me.predatorray.candybox.common.SegmentRef;
 import me.predatorray.candybox.common.bloom.BloomFilter;
 import me.predatorray.candybox.common.serial.BinaryWriter;
-import me.predatorray.candybox.common.serial.MutationSerializer;
+import me.predatorray.candybox.common.serial.CandyLocatorSerializer;
 import me.predatorray.candybox.common.serial.RangeTombstoneSerializer;
+import me.predatorray.candybox.common.util.Bytes;
 
 /**
  * Writes a sorted run of mutations into a new SSTable ledger in the {@link SSTableFormat} layout, then
@@ -78,9 +80,7 @@ public final class SSTableWriter {
         List<Long> indexEntryIds = new ArrayList<>();
         List<byte[]> allKeys = new ArrayList<>();
 
-        List<byte[]> blockMutations = new ArrayList<>();
-        int blockBytes = 0;
-        byte[] blockLastKey = null;
+        BlockBuilder block = new BlockBuilder();
 
         byte[] minKey = null;
         byte[] maxKey = null;
@@ -94,17 +94,15 @@ public final class SSTableWriter {
             for (SegmentRef seg : m.locator().segments()) {
                 referencedSyrups.add(seg.syrupId());
             }
-            byte[] mb = MutationSerializer.serialize(m);
+            byte[] locator = CandyLocatorSerializer.serialize(m.locator());
 
-            if (blockBytes > 0 && blockBytes + mb.length + 5 > dataBlockTargetBytes) {
-                sizeBytes += flushBlock(ledger, blockMutations, blockLastKey, indexLastKeys, indexEntryIds);
-                blockMutations = new ArrayList<>();
-                blockBytes = 0;
+            if (!block.isEmpty()
+                    && block.sizeWith(keyBytes, locator) > dataBlockTargetBytes) {
+                sizeBytes += flushBlock(ledger, block, keyBytes, indexLastKeys, indexEntryIds);
+                block = new BlockBuilder();
             }
 
-            blockMutations.add(mb);
-            blockBytes += mb.length + 5;
-            blockLastKey = keyBytes;
+            block.add(keyBytes, locator);
             allKeys.add(keyBytes);
 
             if (minKey == null) {
@@ -119,7 +117,7 @@ public final class SSTableWriter {
             ledgerStore.deleteLedger(ledger.ledgerId());
             throw new IllegalArgumentException("Refusing to write an empty SSTable");
         }
-        sizeBytes += flushBlock(ledger, blockMutations, blockLastKey, indexLastKeys, indexEntryIds);
+        sizeBytes += flushBlock(ledger, block, null, indexLastKeys, indexEntryIds);
 
         BloomFilter bloom = BloomFilter.build(allKeys, bloomBitsPerKey);
         long bloomEntryId = ledger.append(bloom.serialize());
@@ -170,23 +168,71 @@ public final class SSTableWriter {
         return new byte[] {0};
     }
 
-    /** Appends the block as one ledger entry; returns the entry's byte length (0 if empty). */
-    private static int flushBlock(WritableLedger ledger, List<byte[]> blockMutations,
-                                  byte[] blockLastKey, List<byte[]> indexLastKeys,
-                                  List<Long> indexEntryIds) {
-        if (blockMutations.isEmpty()) {
+    /**
+     * Appends the block as one ledger entry and indexes it under the shortest key separating it from
+     * {@code nextKey} (its own last key when it is the final block); returns the entry's byte length
+     * (0 if empty).
+     */
+    private static int flushBlock(WritableLedger ledger, BlockBuilder block, byte[] nextKey,
+                                  List<byte[]> indexLastKeys, List<Long> indexEntryIds) {
+        if (block.isEmpty()) {
             return 0;
         }
-        BinaryWriter w = new BinaryWriter(256);
-        w.writeVarInt(blockMutations.size());
-        for (byte[] mb : blockMutations) {
-            w.writeBytes(mb);
-        }
-        byte[] block = w.toByteArray();
-        long entryId = ledger.append(block);
-        indexLastKeys.add(blockLastKey);
+        byte[] data = block.finish();
+        long entryId = ledger.append(data);
+        indexLastKeys.add(nextKey == null ? block.lastKey : Bytes.shortestSeparator(block.lastKey, nextKey));
         indexEntryIds.add(entryId);
-        return block.length;
+        return data.length;
+    }
+
+    /**
+     * Accumulates one v4 data block: {@code [varint shared, bytes suffix, bytes locator]*}, then the
+     * offset of every {@link SSTableFormat#RESTART_INTERVAL}-th entry (whose key is stored whole) and
+     * their count as fixed-width ints.
+     */
+    private static final class BlockBuilder {
+        private final BinaryWriter entries = new BinaryWriter(256);
+        private final List<Integer> restarts = new ArrayList<>();
+        private int count;
+        private byte[] lastKey;
+
+        boolean isEmpty() {
+            return count == 0;
+        }
+
+        /** The encoded block size if the entry were added (varint prefixes at their 5-byte bound). */
+        int sizeWith(byte[] key, byte[] locator) {
+            return entries.size() + key.length - sharedWith(key) + locator.length + 15
+                    + Integer.BYTES * (restarts.size() + 2);
+        }
+
+        void add(byte[] key, byte[] locator) {
+            int shared = sharedWith(key);
+            if (count % SSTableFormat.RESTART_INTERVAL == 0) {
+                restarts.add(entries.size());
+            }
+            entries.writeVarInt(shared)
+                    .writeBytes(Arrays.copyOfRange(key, shared, key.length))
+                    .writeBytes(locator);
+            lastKey = key;
+            count++;
+        }
+
+        /** Prefix bytes the next key may borrow from the last one; none at a restart point. */
+        private int sharedWith(byte[] key) {
+            if (count % SSTableFormat.RESTART_INTERVAL == 0) {
+                return 0;
+            }
+            return Bytes.commonPrefixLength(lastKey, key);
+        }
+
+        byte[] finish() {
+            for (int offset : restarts) {
+                entries.writeInt(offset);
+            }
+            entries.writeInt(restarts.size());
+            return entries.toByteArray();
+        }
     }
 
     private static byte[] serializeIndex(List<byte[]> lastKeys, List<Long> entryIds) {
@@ -211,7 +257,7 @@ public final class SSTableWriter {
                 .writeVarLong(numEntries)
                 .writeBytes(minKey)
                 .writeBytes(maxKey);
-        // v2 trailer: presence flag + range-del block entry id.
+        // v2+ trailer: presence flag + range-del block entry id (v3 changes only the data blocks).
         if (rangeDelEntryId >= 0) {
             w.writeBoolean(true);
             w.writeVarLong(rangeDelEntryId);
@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.predatorray.candybox.lsm.syrup;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import me.predatorray.candybox.bookkeeper.LedgerStore;
+import me.predatorray.candybox.bookkeeper.ReadableLedger;
+import me.predatorray.candybox.common.exception.StorageException;
+
+/**
+ * Keeps up to {@code window} Syrup chunk reads in flight ahead of the consumer and hands the chunks
+ * back strictly in the order their runs were {@linkplain #add added}. Each chunk's CRC validates on
+ * the thread that completes its read, so validation overlaps across the window; only the in-order
+ * hand-off is sequential.
+ *
+ * <p>Memory is bounded by {@code window + 1} chunks: a read is only issued when an earlier chunk has
+ * been taken, and the slot a taken chunk frees is refilled before {@link #next()} waits on it, so
+ * the chunk being handed out and {@code window} reads can be buffered at once. Ledger handles are
+ * opened on first use and held until {@link #close()}, which first waits out any reads still in
+ * flight. Not thread-safe; one consumer per prefetcher.
+ */
+final class ChunkPrefetcher implements AutoCloseable {
+
+    /** A validated chunk; its payload is {@code data[CHUNK_HEADER_BYTES, +payloadLength)}. */
+    record Chunk(long syrupId, long entryId, byte[] data, int payloadLength) {
+    }
+
+    private final LedgerStore ledgerStore;
+    private final int window;
+    private final Map<Long, ReadableLedger> ledgers = new HashMap<>();
+    // Runs not yet fully issued, as {syrupId, nextEntryId, lastEntryId}.
+    private final ArrayDeque<long[]> runs = new ArrayDeque<>();
+    private final ArrayDeque<CompletableFuture<Chunk>> inFlight = new ArrayDeque<>();
+
+    ChunkPrefetcher(LedgerStore ledgerStore, int window) {
+        if (window <= 0) {
+            throw new IllegalArgumentException("window must be positive: " + window);
+        }
+        this.ledgerStore = ledgerStore;
+        this.window = window;
+    }
+
+    /** Queues entries {@code [firstEntryId, lastEntryId]} of {@code syrupId} behind earlier runs. */
+    void add(long syrupId, long firstEntryId, long lastEntryId) {
+        if (firstEntryId <= lastEntryId) {
+            runs.add(new long[] {syrupId, firstEntryId, lastEntryId});
+        }
+    }
+
+    /**
+     * Returns the next chunk in order, waiting for its read if it has not landed yet.
+     *
+     * @return the next chunk, or null once every added run has been consumed
+     * @throws StorageException if the chunk's read or CRC validation failed
+     */
+    Chunk next() {
+        fill();
+        CompletableFuture<Chunk> head = inFlight.poll();
+        if (head == null) {
+            return null;
+        }
+        fill(); // the slot just freed goes to the next read before we wait on this one
+        try {
+            return head.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new StorageException("Syrup chunk read failed", e.getCause());
+        }
+    }
+
+    private void fill() {
+        while (inFlight.size() < window && !runs.isEmpty()) {
+            long[] run = runs.peek();
+            long syrupId = run[0];
+            long entryId = run[1]++;
+            if (run[1] > run[2]) {
+                runs.poll();
+            }
+            ReadableLedger ledger = ledgers.computeIfAbsent(syrupId, ledgerStore::openLedger);
+            inFlight.add(ledger.readAsync(entryId).thenApply(entry -> new Chunk(syrupId,
+                    entry.entryId(), entry.data(),
+                    SyrupReader.validatedPayloadLength(entry.data(), syrupId, entry.entryId()))));
+        }
+    }
+
+    /** Waits for outstanding reads (their results are dropped) and closes every opened ledger. */
+    @Override
+    public void close() {
+        CompletableFuture<Chunk> pending;
+        while ((pending = inFlight.poll()) != null) {
+            pending.exceptionally(e -> null).join();
+        }
+        runs.clear();
+        for (ReadableLedger ledger : ledgers.values()) {
+            ledger.close();
+        }
+        ledgers.clear();
+    }
+}
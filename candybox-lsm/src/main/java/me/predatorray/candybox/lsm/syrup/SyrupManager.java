@@ -17,8 +17,17 @@ package me.predatorray.candybox.lsm.syrup;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import me.predatorray.candybox.bookkeeper.LedgerConfig;
 import me.predatorray.candybox.bookkeeper.LedgerStore;
 import me.predatorray.candybox.bookkeeper.WritableLedger;
@@ -31,62 +40,88 @@ import me.predatorray.candybox.common.exception.StorageException;
  * Writes Candy bytes into Syrups (data ledgers), chunked into fixed-size entries. Each chunk entry is
  * prefixed with its own crc32c for partial validation on streaming reads/retries.
  *
- * <p>One Syrup stays open across Candies and fills with their bytes contiguously; it rolls to a fresh
- * Syrup once it reaches the configured size cap. A Candy that straddles a rollover is described by
- * more than one {@link SegmentRef}. This shared-Syrup layout (rather than one Syrup per Candy) keeps
+ * <p>An open Syrup stays open across Candies and fills with their bytes contiguously; it rolls to a
+ * fresh Syrup once it reaches the configured size cap. A Candy that straddles a rollover is described
+ * by more than one {@link SegmentRef}. This shared-Syrup layout (rather than one Syrup per Candy) keeps
  * the ledger count down; the space-amplification tradeoff under deletes is documented in DESIGN.md.
  *
- * <p>Not thread-safe on its own; the owning {@code BoxEngine} serializes writes for a Box.
+ * <p>Thread-safe. Concurrent {@link #writeCandy} calls stream in parallel, each into its own open
+ * Syrup checked out of a small idle pool (a new Syrup is created only when every open one is busy;
+ * at most {@value #MAX_IDLE_SYRUPS} are kept open between writes, surplus ones are sealed on return),
+ * so the owning {@code BoxEngine} does not need to hold its partition lock while bytes move. Every
+ * Syrup a write touches stays pinned — reported by {@link #openSyrupIds()} — until the caller has
+ * published the resulting locator and calls {@link #release}, so orphan tracking can never mistake
+ * a Syrup with in-flight bytes for garbage.
+ *
+ * <p>Within one write, chunks are pipelined: up to {@link CandyboxConfig#syrupAppendWindow()} chunk
+ * appends are outstanding at once, so a large Candy costs roughly one bookie round trip per window
+ * rather than per chunk. All appends are joined before the segments are reported, so a returned
+ * {@link SyrupWriteResult} only ever describes acknowledged entries.
  */
 public final class SyrupManager implements AutoCloseable {
 
     /** Per-chunk entry overhead: a 4-byte big-endian crc32c prefix. */
     static final int CHUNK_HEADER_BYTES = 4;
 
+    /** Open Syrups kept between writes; a burst of concurrent writers seals the rest on return. */
+    static final int MAX_IDLE_SYRUPS = 4;
+
     private final LedgerStore ledgerStore;
     private final int chunkSize;
     private final long rolloverBytes;
+    private final int appendWindow;
     private final LedgerConfig syrupConfig;
 
-    private WritableLedger currentSyrup;
-    private long bytesInCurrentSyrup;
+    /** Open Syrups not currently checked out by a writer; most recently released first. */
+    private final Deque<OpenSyrup> idle = new ArrayDeque<>();
+    /** Syrup id → number of in-flight writes (or unreleased results) that reference it. */
+    private final Map<Long, Integer> pins = new HashMap<>();
+    private boolean closed;
 
     public SyrupManager(LedgerStore ledgerStore, CandyboxConfig config, LedgerConfig syrupConfig) {
         this.ledgerStore = ledgerStore;
         this.chunkSize = config.sizeLimits().chunkSizeBytes();
         this.rolloverBytes = config.syrupRolloverBytes();
+        this.appendWindow = config.syrupAppendWindow();
         this.syrupConfig = syrupConfig;
     }
 
     /**
-     * Streams a Candy's bytes into Syrups.
+     * Streams a Candy's bytes into Syrups. Safe to call concurrently; does not block other writers
+     * while reading {@code in}. The returned segments stay pinned until {@link #release} is called
+     * with the result — callers must release it once the locator is durable (or abandoned).
      *
      * @param in the Candy content; read to EOF
      * @return the segments written, total length, and whole-object CRC
      */
-    public synchronized SyrupWriteResult writeCandy(InputStream in) {
+    public SyrupWriteResult writeCandy(InputStream in) {
         Crc32c.Accumulator whole = new Crc32c.Accumulator();
         long total = 0;
         List<SegmentRef> segments = new ArrayList<>();
+        Set<Long> touched = new HashSet<>();
+        Deque<CompletableFuture<Long>> inFlight = new ArrayDeque<>();
 
         long segSyrupId = -1;
-        long segFirst = -1;
-        long segLast = -1;
+        CompletableFuture<Long> segFirst = null;
+        CompletableFuture<Long> segLast = null;
         byte[] buf = new byte[chunkSize];
 
+        OpenSyrup syrup = checkout(touched);
+        boolean succeeded = false;
         try {
             int n;
             while ((n = readChunk(in, buf)) > 0) {
                 int entryLength = n + CHUNK_HEADER_BYTES;
-                rollIfNeeded(entryLength);
+                syrup = rollIfNeeded(syrup, entryLength, touched, inFlight);
 
-                long syrupId = currentSyrup.ledgerId();
+                long syrupId = syrup.ledger.ledgerId();
                 if (syrupId != segSyrupId) {
                     if (segSyrupId != -1) {
-                        segments.add(new SegmentRef(segSyrupId, segFirst, segLast));
+                        // rollIfNeeded drained the previous Syrup's appends, so these are complete.
+                        segments.add(new SegmentRef(segSyrupId, segFirst.join(), segLast.join()));
                     }
                     segSyrupId = syrupId;
-                    segFirst = -1;
+                    segFirst = null;
                 }
 
                 int crc = Crc32c.of(buf, 0, n);
@@ -97,52 +132,142 @@ public final class SyrupManager implements AutoCloseable {
                 entry[3] = (byte) crc;
                 System.arraycopy(buf, 0, entry, CHUNK_HEADER_BYTES, n);
 
-                long entryId = appendOrAbandon(entry);
-                if (segFirst == -1) {
-                    segFirst = entryId;
+                CompletableFuture<Long> ack = appendOrAbandon(syrup, entry);
+                if (segFirst == null) {
+                    segFirst = ack;
                 }
-                segLast = entryId;
-                bytesInCurrentSyrup += entryLength;
+                segLast = ack;
+                inFlight.addLast(ack);
+                syrup.bytes += entryLength;
 
                 whole.update(buf, 0, n);
                 total += n;
+                awaitAcks(syrup, inFlight, appendWindow - 1);
+            }
+            awaitAcks(syrup, inFlight, 0);
+            if (segSyrupId != -1) {
+                segments.add(new SegmentRef(segSyrupId, segFirst.join(), segLast.join()));
             }
+            succeeded = true;
         } catch (IOException e) {
             throw new StorageException("Failed reading Candy content stream", e);
+        } finally {
+            checkin(syrup, touched, succeeded ? segments : List.of());
         }
+        return new SyrupWriteResult(segments, total, whole.value());
+    }
 
-        if (segSyrupId != -1) {
-            segments.add(new SegmentRef(segSyrupId, segFirst, segLast));
+    /**
+     * Unpins the Syrups referenced by {@code written}. Call exactly once per successful
+     * {@link #writeCandy}, after its locator has been applied to the memtable/manifest (so the
+     * references are visible to orphan tracking) or after the write has been abandoned.
+     */
+    public synchronized void release(SyrupWriteResult written) {
+        for (long syrupId : distinctSyrups(written.segments())) {
+            unpinLocked(syrupId);
         }
-        return new SyrupWriteResult(segments, total, whole.value());
     }
 
     /**
-     * Appends a chunk to the current Syrup. If the append fails — e.g. BookKeeper sealed/fenced the
-     * ledger after bookie loss — the current Syrup is abandoned (for writes) so the next write rolls to
-     * a fresh ledger instead of being permanently stuck on a dead one. The exception is rethrown so the
+     * Issues a chunk append to a writer's Syrup. If the append fails — e.g. BookKeeper sealed/fenced
+     * the ledger after bookie loss — the Syrup is abandoned (for writes) so the next write rolls to a
+     * fresh ledger instead of being permanently stuck on a dead one. The exception is rethrown so the
      * in-progress put fails; its partial chunks are left as orphans for GC. Already-written Candies in
-     * the abandoned Syrup remain readable and referenced.
+     * the abandoned Syrup remain readable and referenced. Failures reported through the returned
+     * future are handled the same way by {@link #awaitAcks}.
      */
-    private long appendOrAbandon(byte[] entry) {
+    private static CompletableFuture<Long> appendOrAbandon(OpenSyrup syrup, byte[] entry) {
         try {
-            return currentSyrup.append(entry);
+            return syrup.ledger.appendAsync(entry);
         } catch (RuntimeException e) {
-            currentSyrup = null;
-            bytesInCurrentSyrup = 0;
+            syrup.abandoned = true;
             throw e;
         }
     }
 
-    private void rollIfNeeded(int entryLength) {
-        if (currentSyrup == null) {
-            currentSyrup = ledgerStore.createLedger(syrupConfig);
-            bytesInCurrentSyrup = 0;
-        } else if (bytesInCurrentSyrup > 0 && bytesInCurrentSyrup + entryLength > rolloverBytes) {
-            currentSyrup.close();
-            currentSyrup = ledgerStore.createLedger(syrupConfig);
-            bytesInCurrentSyrup = 0;
+    /**
+     * Joins the oldest in-flight appends until at most {@code keep} remain, abandoning the Syrup and
+     * rethrowing the append's own exception if one failed.
+     */
+    private static void awaitAcks(OpenSyrup syrup, Deque<CompletableFuture<Long>> inFlight, int keep) {
+        while (inFlight.size() > keep) {
+            try {
+                inFlight.pollFirst().join();
+            } catch (CompletionException e) {
+                syrup.abandoned = true;
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw new StorageException("Syrup append failed for ledger " + syrup.ledger.ledgerId(),
+                        e.getCause());
+            }
+        }
+    }
+
+    private OpenSyrup rollIfNeeded(OpenSyrup syrup, int entryLength, Set<Long> touched,
+                                   Deque<CompletableFuture<Long>> inFlight) {
+        if (syrup != null && !syrup.abandoned
+                && (syrup.bytes == 0 || syrup.bytes + entryLength <= rolloverBytes)) {
+            return syrup;
+        }
+        if (syrup != null && !syrup.abandoned) {
+            // Every append to the outgoing Syrup must be acknowledged before it is sealed.
+            awaitAcks(syrup, inFlight, 0);
+            syrup.ledger.close();
+        }
+        OpenSyrup fresh = new OpenSyrup(ledgerStore.createLedger(syrupConfig));
+        synchronized (this) {
+            pinLocked(fresh.ledger.ledgerId(), touched);
+        }
+        return fresh;
+    }
+
+    /** Takes an idle open Syrup (pinning it for the caller), or null if none is available. */
+    private synchronized OpenSyrup checkout(Set<Long> touched) {
+        OpenSyrup syrup = idle.pollFirst();
+        if (syrup != null) {
+            pinLocked(syrup.ledger.ledgerId(), touched);
         }
+        return syrup;
+    }
+
+    /**
+     * Returns a writer's Syrup to the idle pool (or closes it if the manager has been closed or the
+     * pool is full) and drops every pin the write took except those on {@code keepPinned}'s Syrups, which stay pinned
+     * until {@link #release}.
+     */
+    private synchronized void checkin(OpenSyrup syrup, Set<Long> touched, List<SegmentRef> keepPinned) {
+        if (syrup != null && !syrup.abandoned) {
+            if (closed || idle.size() >= MAX_IDLE_SYRUPS) {
+                syrup.ledger.close();
+            } else {
+                idle.addFirst(syrup);
+            }
+        }
+        Set<Long> keep = distinctSyrups(keepPinned);
+        for (long syrupId : touched) {
+            if (!keep.contains(syrupId)) {
+                unpinLocked(syrupId);
+            }
+        }
+    }
+
+    private void pinLocked(long syrupId, Set<Long> touched) {
+        if (touched.add(syrupId)) {
+            pins.merge(syrupId, 1, Integer::sum);
+        }
+    }
+
+    private void unpinLocked(long syrupId) {
+        pins.computeIfPresent(syrupId, (id, count) -> count == 1 ? null : count - 1);
+    }
+
+    private static Set<Long> distinctSyrups(List<SegmentRef> segments) {
+        Set<Long> ids = new LinkedHashSet<>();
+        for (SegmentRef seg : segments) {
+            ids.add(seg.syrupId());
+        }
+        return ids;
     }
 
     /** Reads up to {@code buf.length} bytes, returning the count (0 only at immediate EOF). */
@@ -158,16 +283,44 @@ public final class SyrupManager implements AutoCloseable {
         return off;
     }
 
-    /** The id of the Syrup currently open for writing, or -1 if none has been created yet. */
+    /**
+     * The id of the idle Syrup the next write will append to, or -1 if none is open (none created
+     * yet, or the last one was abandoned).
+     */
     public synchronized long currentSyrupId() {
-        return currentSyrup == null ? -1 : currentSyrup.ledgerId();
+        OpenSyrup next = idle.peekFirst();
+        return next == null ? -1 : next.ledger.ledgerId();
+    }
+
+    /**
+     * Every Syrup that must not be treated as an orphan right now: the idle open Syrups plus any
+     * Syrup pinned by an in-flight write or an unreleased {@link SyrupWriteResult}.
+     */
+    public synchronized Set<Long> openSyrupIds() {
+        Set<Long> ids = new HashSet<>(pins.keySet());
+        for (OpenSyrup syrup : idle) {
+            ids.add(syrup.ledger.ledgerId());
+        }
+        return ids;
     }
 
     @Override
     public synchronized void close() {
-        if (currentSyrup != null) {
-            currentSyrup.close();
-            currentSyrup = null;
+        closed = true;
+        for (OpenSyrup syrup : idle) {
+            syrup.ledger.close();
+        }
+        idle.clear();
+    }
+
+    /** A Syrup open for appends, with the bytes written to it so far. */
+    private static final class OpenSyrup {
+        private final WritableLedger ledger;
+        private long bytes;
+        private boolean abandoned;
+
+        private OpenSyrup(WritableLedger ledger) {
+            this.ledger = ledger;
         }
     }
 }
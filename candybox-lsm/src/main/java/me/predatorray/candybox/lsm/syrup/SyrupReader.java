@@ -17,11 +17,11 @@ package me.predatorray.candybox.lsm.syrup;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.List;
-import me.predatorray.candybox.bookkeeper.LedgerEntry;
 import me.predatorray.candybox.bookkeeper.LedgerStore;
-import me.predatorray.candybox.bookkeeper.ReadableLedger;
 import me.predatorray.candybox.common.Part;
 import me.predatorray.candybox.common.SegmentRef;
 import me.predatorray.candybox.common.checksum.Crc32c;
@@ -40,13 +40,38 @@ import me.predatorray.candybox.common.exception.StorageException;
  *       {@code [firstByte, lastByte]} (inclusive on both ends, S3-style). Per-chunk CRCs still
  *       validate; the part-level CRC cannot be verified on a partial slice and is skipped.</li>
  * </ul>
+ *
+ * <p>{@link #openPart(Part)} streams one part as an {@link InputStream} instead, for callers that
+ * re-write it elsewhere (Syrup defragmentation) without buffering it whole.
+ *
+ * <p>Every mode reads through a {@link ChunkPrefetcher}: up to {@code readAheadWindow} chunk reads
+ * are in flight at once, across segment and Syrup boundaries, and chunks are emitted strictly in
+ * order. A large GET therefore costs roughly one entry round trip per window rather than per chunk,
+ * and holds at most {@code readAheadWindow + 1} chunks in memory however large the Candy is.
+ *
+ * <p>An {@linkplain Part#isInline() inline} part is served from the locator without touching a
+ * ledger; a full read still checks it against the part CRC.
  */
 public final class SyrupReader {
 
     private final LedgerStore ledgerStore;
+    private final int readAheadWindow;
 
+    /** A reader with no read-ahead: one chunk read in flight at a time. */
     public SyrupReader(LedgerStore ledgerStore) {
+        this(ledgerStore, 1);
+    }
+
+    /**
+     * @param readAheadWindow the most chunk reads kept in flight per read; see
+     *                        {@code CandyboxConfig#syrupReadAheadWindow}
+     */
+    public SyrupReader(LedgerStore ledgerStore, int readAheadWindow) {
+        if (readAheadWindow <= 0) {
+            throw new IllegalArgumentException("readAheadWindow must be positive: " + readAheadWindow);
+        }
         this.ledgerStore = ledgerStore;
+        this.readAheadWindow = readAheadWindow;
     }
 
     /**
@@ -57,21 +82,14 @@ public final class SyrupReader {
      */
     public long readTo(List<SegmentRef> segments, OutputStream out) {
         long total = 0;
-        for (SegmentRef segment : segments) {
-            ReadableLedger ledger = ledgerStore.openLedger(segment.syrupId());
-            try {
-                for (LedgerEntry entry : ledger.readRange(segment.firstEntryId(), segment.lastEntryId())) {
-                    byte[] data = entry.data();
-                    int payloadLen = validatedPayloadLength(data, segment.syrupId(), entry.entryId());
-                    try {
-                        out.write(data, SyrupManager.CHUNK_HEADER_BYTES, payloadLen);
-                    } catch (IOException e) {
-                        throw new StorageException("Failed writing reassembled Candy bytes", e);
-                    }
-                    total += payloadLen;
-                }
-            } finally {
-                ledger.close();
+        try (ChunkPrefetcher chunks = new ChunkPrefetcher(ledgerStore, readAheadWindow)) {
+            for (SegmentRef segment : segments) {
+                chunks.add(segment.syrupId(), segment.firstEntryId(), segment.lastEntryId());
+            }
+            ChunkPrefetcher.Chunk chunk;
+            while ((chunk = chunks.next()) != null) {
+                write(out, chunk.data(), SyrupManager.CHUNK_HEADER_BYTES, chunk.payloadLength());
+                total += chunk.payloadLength();
             }
         }
         return total;
@@ -84,37 +102,39 @@ public final class SyrupReader {
      */
     public long readParts(List<Part> parts, OutputStream out) {
         long total = 0;
-        for (Part part : parts) {
-            Crc32c.Accumulator partCrc = new Crc32c.Accumulator();
-            long partWritten = 0;
-            for (SegmentRef segment : part.segments()) {
-                ReadableLedger ledger = ledgerStore.openLedger(segment.syrupId());
-                try {
-                    for (LedgerEntry entry : ledger.readRange(segment.firstEntryId(),
-                            segment.lastEntryId())) {
-                        byte[] data = entry.data();
-                        int payloadLen = validatedPayloadLength(data, segment.syrupId(),
-                                entry.entryId());
-                        try {
-                            out.write(data, SyrupManager.CHUNK_HEADER_BYTES, payloadLen);
-                        } catch (IOException e) {
-                            throw new StorageException("Failed writing reassembled Candy bytes", e);
-                        }
-                        partCrc.update(data, SyrupManager.CHUNK_HEADER_BYTES, payloadLen);
-                        partWritten += payloadLen;
-                        total += payloadLen;
-                    }
-                } finally {
-                    ledger.close();
+        try (ChunkPrefetcher chunks = new ChunkPrefetcher(ledgerStore, readAheadWindow)) {
+            for (Part part : parts) {
+                for (SegmentRef segment : part.segments()) {
+                    chunks.add(segment.syrupId(), segment.firstEntryId(), segment.lastEntryId());
                 }
             }
-            if (partWritten != part.partLength()) {
-                throw new StorageException("Part length mismatch: expected " + part.partLength()
-                        + " bytes, read " + partWritten);
-            }
-            if (partCrc.value() != part.crc32c()) {
-                throw new StorageException("Part CRC mismatch (expected " + part.crc32c()
-                        + ", got " + partCrc.value() + ")");
+            for (Part part : parts) {
+                Crc32c.Accumulator partCrc = new Crc32c.Accumulator();
+                long partWritten = 0;
+                if (part.isInline()) {
+                    write(out, part.inline(), 0, part.inline().length);
+                    partCrc.update(part.inline(), 0, part.inline().length);
+                    partWritten = part.inline().length;
+                }
+                for (SegmentRef segment : part.segments()) {
+                    for (long i = 0; i < segment.entryCount(); i++) {
+                        ChunkPrefetcher.Chunk chunk = chunks.next();
+                        write(out, chunk.data(), SyrupManager.CHUNK_HEADER_BYTES,
+                                chunk.payloadLength());
+                        partCrc.update(chunk.data(), SyrupManager.CHUNK_HEADER_BYTES,
+                                chunk.payloadLength());
+                        partWritten += chunk.payloadLength();
+                    }
+                }
+                if (partWritten != part.partLength()) {
+                    throw new StorageException("Part length mismatch: expected " + part.partLength()
+                            + " bytes, read " + partWritten);
+                }
+                if (partCrc.value() != part.crc32c()) {
+                    throw new StorageException("Part CRC mismatch (expected " + part.crc32c()
+                            + ", got " + partCrc.value() + ")");
+                }
+                total += partWritten;
             }
         }
         return total;
@@ -136,21 +156,29 @@ public final class SyrupReader {
         }
         long want = lastByte - firstByte + 1;
         long emitted = 0;
-        long partStart = 0;
-        for (Part part : parts) {
-            long partEnd = partStart + part.partLength(); // exclusive
-            if (partEnd <= firstByte) {
+        try (ChunkPrefetcher chunks = new ChunkPrefetcher(ledgerStore, readAheadWindow)) {
+            // Schedule every chunk the slice touches first, so read-ahead crosses part boundaries.
+            List<Slice> slices = new ArrayList<>();
+            long partStart = 0;
+            for (Part part : parts) {
+                long partEnd = partStart + part.partLength(); // exclusive
+                if (partEnd <= firstByte) {
+                    partStart = partEnd;
+                    continue;
+                }
+                if (partStart > lastByte) {
+                    break;
+                }
+                // Bytes wanted inside this part, in part-local coordinates:
+                long inPartFirst = Math.max(firstByte - partStart, 0);
+                long inPartLast = Math.min(lastByte - partStart, part.partLength() - 1);
+                slices.add(new Slice(part, inPartFirst, inPartLast,
+                        scheduleWithinPart(part, inPartFirst, inPartLast, chunks)));
                 partStart = partEnd;
-                continue;
             }
-            if (partStart > lastByte) {
-                break;
+            for (Slice slice : slices) {
+                emitted += emitWithinPart(slice, chunks, out);
             }
-            // Bytes wanted inside this part, in part-local coordinates:
-            long inPartFirst = Math.max(firstByte - partStart, 0);
-            long inPartLast = Math.min(lastByte - partStart, part.partLength() - 1);
-            emitted += readWithinPart(part, inPartFirst, inPartLast, out);
-            partStart = partEnd;
         }
         if (emitted != want) {
             throw new StorageException("Range read produced " + emitted + " bytes; expected " + want);
@@ -158,16 +186,25 @@ public final class SyrupReader {
         return emitted;
     }
 
+    /** Bytes {@code [inPartFirst, inPartLast]} of one part, and how many chunks cover them. */
+    private record Slice(Part part, long inPartFirst, long inPartLast, long chunkCount) {
+    }
+
     /**
-     * Reads bytes {@code [inPartFirst, inPartLast]} (inclusive) of one Part to {@code out}. Within a
-     * Part chunks are uniform-sized (modulo the final chunk in the part), so chunk indices are
-     * arithmetic; we walk the part's segments and skip / take whole chunks accordingly.
+     * Queues the chunks holding bytes {@code [inPartFirst, inPartLast]} (inclusive) of one Part and
+     * returns their count. Within a Part chunks are uniform-sized (modulo the final chunk in the
+     * part), so chunk indices are arithmetic; we walk the part's segments and skip / take whole
+     * chunks accordingly.
      */
-    private long readWithinPart(Part part, long inPartFirst, long inPartLast, OutputStream out) {
+    private static long scheduleWithinPart(Part part, long inPartFirst, long inPartLast,
+            ChunkPrefetcher chunks) {
+        if (part.isInline()) {
+            return 0;
+        }
         long chunkSize = part.chunkSize();
         long firstChunkIdx = inPartFirst / chunkSize;
         long lastChunkIdx = inPartLast / chunkSize;
-        long emitted = 0;
+        long scheduled = 0;
         long chunkIdx = 0; // running global index within this part
         for (SegmentRef segment : part.segments()) {
             long segEntryCount = segment.entryCount();
@@ -181,40 +218,51 @@ public final class SyrupReader {
             }
             long fromIdx = Math.max(firstChunkIdx, chunkIdx);
             long toIdx = Math.min(lastChunkIdx, segLastChunkIdx);
-            long fromEntry = segment.firstEntryId() + (fromIdx - chunkIdx);
-            long toEntry = segment.firstEntryId() + (toIdx - chunkIdx);
-            ReadableLedger ledger = ledgerStore.openLedger(segment.syrupId());
-            try {
-                long currentChunkIdx = fromIdx;
-                for (LedgerEntry entry : ledger.readRange(fromEntry, toEntry)) {
-                    byte[] data = entry.data();
-                    int payloadLen = validatedPayloadLength(data, segment.syrupId(), entry.entryId());
-                    long chunkPayloadStart = currentChunkIdx * chunkSize;
-                    long chunkPayloadEnd = chunkPayloadStart + payloadLen; // exclusive
-                    long sliceStart = Math.max(inPartFirst, chunkPayloadStart);
-                    long sliceEnd = Math.min(inPartLast + 1, chunkPayloadEnd); // exclusive
-                    int offWithinChunk = (int) (sliceStart - chunkPayloadStart);
-                    int len = (int) (sliceEnd - sliceStart);
-                    if (len > 0) {
-                        try {
-                            out.write(data, SyrupManager.CHUNK_HEADER_BYTES + offWithinChunk, len);
-                        } catch (IOException e) {
-                            throw new StorageException("Failed writing reassembled Candy bytes", e);
-                        }
-                        emitted += len;
-                    }
-                    currentChunkIdx++;
-                }
-            } finally {
-                ledger.close();
-            }
+            chunks.add(segment.syrupId(), segment.firstEntryId() + (fromIdx - chunkIdx),
+                    segment.firstEntryId() + (toIdx - chunkIdx));
+            scheduled += toIdx - fromIdx + 1;
             chunkIdx += segEntryCount;
         }
+        return scheduled;
+    }
+
+    /** Emits one scheduled slice, trimming its boundary chunks. */
+    private static long emitWithinPart(Slice slice, ChunkPrefetcher chunks, OutputStream out) {
+        Part part = slice.part();
+        if (part.isInline()) {
+            int len = (int) (slice.inPartLast() - slice.inPartFirst() + 1);
+            write(out, part.inline(), (int) slice.inPartFirst(), len);
+            return len;
+        }
+        long chunkSize = part.chunkSize();
+        long currentChunkIdx = slice.inPartFirst() / chunkSize;
+        long emitted = 0;
+        for (long i = 0; i < slice.chunkCount(); i++, currentChunkIdx++) {
+            ChunkPrefetcher.Chunk chunk = chunks.next();
+            long chunkPayloadStart = currentChunkIdx * chunkSize;
+            long chunkPayloadEnd = chunkPayloadStart + chunk.payloadLength(); // exclusive
+            long sliceStart = Math.max(slice.inPartFirst(), chunkPayloadStart);
+            long sliceEnd = Math.min(slice.inPartLast() + 1, chunkPayloadEnd); // exclusive
+            int len = (int) (sliceEnd - sliceStart);
+            if (len > 0) {
+                int offWithinChunk = (int) (sliceStart - chunkPayloadStart);
+                write(out, chunk.data(), SyrupManager.CHUNK_HEADER_BYTES + offWithinChunk, len);
+                emitted += len;
+            }
+        }
         return emitted;
     }
 
+    private static void write(OutputStream out, byte[] data, int off, int len) {
+        try {
+            out.write(data, off, len);
+        } catch (IOException e) {
+            throw new StorageException("Failed writing reassembled Candy bytes", e);
+        }
+    }
+
     /** Validates a chunk's CRC header and returns its payload length. */
-    private static int validatedPayloadLength(byte[] data, long syrupId, long entryId) {
+    static int validatedPayloadLength(byte[] data, long syrupId, long entryId) {
         if (data.length < SyrupManager.CHUNK_HEADER_BYTES) {
             throw new StorageException("Corrupt Syrup chunk: too short in ledger " + syrupId
                     + " entry " + entryId);
@@ -229,6 +277,16 @@ public final class SyrupReader {
         return payloadLen;
     }
 
+    /**
+     * Opens {@code part}'s bytes as a stream that keeps this reader's read-ahead window of chunks in
+     * flight. Per-chunk CRCs validate as chunks arrive; the part's length and end-to-end CRC are
+     * checked when the stream reaches its end, so a consumer that reads to EOF has read exactly the
+     * part.
+     */
+    public InputStream openPart(Part part) {
+        return new PartStream(part);
+    }
+
     /** Convenience: reassemble small Candies fully into a byte array (legacy single-part path). */
     public byte[] readAll(List<SegmentRef> segments, long expectedLength) {
         int cap = expectedLength > 0 && expectedLength < Integer.MAX_VALUE ? (int) expectedLength : 32;
@@ -236,4 +294,89 @@ public final class SyrupReader {
         readTo(segments, out);
         return out.toByteArray();
     }
+
+    /** A lazily-read {@link #openPart} stream over its own {@link ChunkPrefetcher}. */
+    private final class PartStream extends InputStream {
+
+        private final Part part;
+        private final ChunkPrefetcher chunks;
+        private final Crc32c.Accumulator crc = new Crc32c.Accumulator();
+        private byte[] chunk;
+        private int chunkOffset;
+        private int chunkEnd;
+        private long read;
+        private boolean verified;
+
+        private PartStream(Part part) {
+            this.part = part;
+            this.chunks = new ChunkPrefetcher(ledgerStore, readAheadWindow);
+            for (SegmentRef segment : part.segments()) {
+                chunks.add(segment.syrupId(), segment.firstEntryId(), segment.lastEntryId());
+            }
+            if (part.isInline()) {
+                chunk = part.inline();
+                chunkOffset = 0;
+                chunkEnd = chunk.length;
+                crc.update(chunk, 0, chunk.length);
+                read = chunk.length;
+            }
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) < 0 ? -1 : one[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            while (chunk == null || chunkOffset == chunkEnd) {
+                if (!nextChunk()) {
+                    verify();
+                    return -1;
+                }
+            }
+            int n = Math.min(len, chunkEnd - chunkOffset);
+            System.arraycopy(chunk, chunkOffset, b, off, n);
+            chunkOffset += n;
+            return n;
+        }
+
+        /** Loads the next chunk's payload, or returns false once every segment is exhausted. */
+        private boolean nextChunk() {
+            ChunkPrefetcher.Chunk next = chunks.next();
+            if (next == null) {
+                return false;
+            }
+            crc.update(next.data(), SyrupManager.CHUNK_HEADER_BYTES, next.payloadLength());
+            read += next.payloadLength();
+            chunk = next.data();
+            chunkOffset = SyrupManager.CHUNK_HEADER_BYTES;
+            chunkEnd = SyrupManager.CHUNK_HEADER_BYTES + next.payloadLength();
+            return true;
+        }
+
+        private void verify() {
+            if (verified) {
+                return;
+            }
+            verified = true;
+            if (read != part.partLength()) {
+                throw new StorageException("Part length mismatch: expected " + part.partLength()
+                        + " bytes, read " + read);
+            }
+            if (crc.value() != part.crc32c()) {
+                throw new StorageException("Part CRC mismatch (expected " + part.crc32c()
+                        + ", got " + crc.value() + ")");
+            }
+        }
+
+        @Override
+        public void close() {
+            chunks.close();
+        }
+    }
 }
@@ -15,6 +15,8 @@
  */
 package me.predatorray.candybox.lsm.wal;
 
+import java.util.ArrayList;
+import java.util.List;
 import me.predatorray.candybox.common.exception.SerializationException;
 import me.predatorray.candybox.common.serial.BinaryReader;
 import me.predatorray.candybox.common.serial.BinaryWriter;
@@ -27,14 +29,27 @@ import me.predatorray.candybox.common.serial.RangeTombstoneSerializer;
  * payload (so each record type keeps its independent format version).
  *
  * <pre>
- *   byte  kind (1 = point mutation, 2 = range delete)
+ *   byte  kind (1 = point mutation, 2 = range delete, 3 = batch)
  *   bytes payload (MutationSerializer or RangeTombstoneSerializer)
  * </pre>
+ *
+ * <p>A <em>batch</em> is one ledger entry carrying several group-committed records, each a complete
+ * single-record encoding of its own kind:
+ *
+ * <pre>
+ *   byte   kind = 3
+ *   varint record count (&gt;= 1)
+ *   repeat { varint length, bytes single-record encoding (kind 1 or 2) }
+ * </pre>
+ *
+ * A one-record batch is always written as the plain single record, so a WAL only uses kind 3 when
+ * group commit actually coalesced writes.
  */
 public final class WalEntrySerializer {
 
     private static final int KIND_MUTATION = 1;
     private static final int KIND_RANGE_DELETE = 2;
+    private static final int KIND_BATCH = 3;
 
     private WalEntrySerializer() {
     }
@@ -53,13 +68,67 @@ public final class WalEntrySerializer {
         return w.toByteArray();
     }
 
+    /** Encodes group-committed records as one ledger entry, in commit order. */
+    public static byte[] serializeBatch(List<WalEntry> entries) {
+        List<byte[]> records = new ArrayList<>(entries.size());
+        for (WalEntry entry : entries) {
+            records.add(serialize(entry));
+        }
+        return serializeEncodedBatch(records);
+    }
+
+    /**
+     * {@link #serializeBatch} over records already in their {@link #serialize single-record
+     * encoding}, which are copied in as they are rather than encoded again.
+     */
+    public static byte[] serializeEncodedBatch(List<byte[]> records) {
+        if (records.isEmpty()) {
+            throw new SerializationException("WAL batch must contain at least one record");
+        }
+        if (records.size() == 1) {
+            return records.get(0);
+        }
+        int size = 6; // kind and count, then each record and its length: never less than needed
+        for (byte[] record : records) {
+            size += 5 + record.length;
+        }
+        BinaryWriter w = new BinaryWriter(size);
+        w.writeByte(KIND_BATCH);
+        w.writeVarInt(records.size());
+        for (byte[] record : records) {
+            w.writeBytes(record);
+        }
+        return w.toByteArray();
+    }
+
+    /** Decodes a single-record entry; use {@link #deserializeAll} for entries that may be batches. */
     public static WalEntry deserialize(byte[] data) {
         BinaryReader r = new BinaryReader(data);
         int kind = r.readByte();
         return switch (kind) {
             case KIND_MUTATION -> WalEntry.of(MutationSerializer.deserialize(r));
             case KIND_RANGE_DELETE -> WalEntry.of(RangeTombstoneSerializer.deserialize(r));
+            case KIND_BATCH -> throw new SerializationException(
+                    "WAL entry is a batch; decode it with deserializeAll");
             default -> throw new SerializationException("Unknown WAL entry kind: " + kind);
         };
     }
+
+    /** Decodes a ledger entry of any kind into its records, in commit order. */
+    public static List<WalEntry> deserializeAll(byte[] data) {
+        if (data.length == 0 || (data[0] & 0xFF) != KIND_BATCH) {
+            return List.of(deserialize(data));
+        }
+        BinaryReader r = new BinaryReader(data);
+        r.readByte();
+        int count = r.readVarInt();
+        if (count < 1) {
+            throw new SerializationException("Invalid WAL batch record count: " + count);
+        }
+        List<WalEntry> entries = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            entries.add(deserialize(r.readBytes()));
+        }
+        return entries;
+    }
 }
@@ -15,10 +15,17 @@
  */
 package me.predatorray.candybox.lsm.wal;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
 import me.predatorray.candybox.bookkeeper.LedgerConfig;
-import me.predatorray.candybox.bookkeeper.LedgerEntry;
 import me.predatorray.candybox.bookkeeper.LedgerStore;
 import me.predatorray.candybox.bookkeeper.ReadableLedger;
 import me.predatorray.candybox.bookkeeper.WritableLedger;
@@ -34,20 +41,55 @@ import me.predatorray.candybox.common.RangeTombstone;
  * the old one becomes eligible for GC once its mutations are durable in an SSTable.
  *
  * <p>On handover the new owner must {@code recover-open} the prior WAL (fencing it) and replay it via
- * {@link #replay(ReadableLedger)}, then advance its HLC past {@link ReplayResult#maxHlc()} before
- * stamping anything — see {@code BoxEngine}.
+ * {@link #replay(ReadableLedger, int, Consumer)}, then advance its HLC past
+ * {@link ReplaySummary#maxHlc()} before stamping anything — see {@code BoxEngine}.
+ *
+ * <p><b>Group commit.</b> {@link #append} is safe to call concurrently. Callers queue their records;
+ * the first caller with nothing ahead of it becomes the batch leader, optionally lingers up to
+ * {@code maxDelayMicros} for followers to join, then writes every queued record (up to
+ * {@code maxBatchBytes}) as a single ledger entry and wakes the followers once it is durable. Records
+ * that arrive while a batch is in flight form the next batch, so under load one bookie round trip
+ * acknowledges many writes. A batch that fails fails every caller in it.
  */
 public final class WriteAheadLog implements AutoCloseable {
 
+    /** Default cap on a group-committed ledger entry; a single larger record is still written alone. */
+    public static final int DEFAULT_MAX_BATCH_BYTES = 1 << 20;
+
     private final WritableLedger ledger;
+    private final long maxDelayNanos;
+    private final int maxBatchBytes;
+
+    private final ReentrantLock queueLock = new ReentrantLock();
+    /** Signalled when a batch completes (a new leader may be needed) or a record is queued. */
+    private final Condition changed = queueLock.newCondition();
+    private final Deque<PendingRecord> queue = new ArrayDeque<>();
+    private boolean writing;
 
-    private WriteAheadLog(WritableLedger ledger) {
+    private WriteAheadLog(WritableLedger ledger, long maxDelayMicros, int maxBatchBytes) {
+        if (maxDelayMicros < 0 || maxBatchBytes < 1) {
+            throw new IllegalArgumentException("Invalid WAL group-commit bounds: maxDelayMicros="
+                    + maxDelayMicros + ", maxBatchBytes=" + maxBatchBytes);
+        }
         this.ledger = ledger;
+        this.maxDelayNanos = TimeUnit.MICROSECONDS.toNanos(maxDelayMicros);
+        this.maxBatchBytes = maxBatchBytes;
     }
 
-    /** Creates a fresh WAL ledger. */
+    /** Creates a fresh WAL ledger that batches only records already queued (no linger). */
     public static WriteAheadLog create(LedgerStore store, LedgerConfig config) {
-        return new WriteAheadLog(store.createLedger(config));
+        return create(store, config, 0, DEFAULT_MAX_BATCH_BYTES);
+    }
+
+    /**
+     * Creates a fresh WAL ledger with explicit group-commit bounds.
+     *
+     * @param maxDelayMicros how long a batch leader waits for more records before writing; 0 = never
+     * @param maxBatchBytes  the serialized-size cap of one batched ledger entry
+     */
+    public static WriteAheadLog create(LedgerStore store, LedgerConfig config, long maxDelayMicros,
+                                       int maxBatchBytes) {
+        return new WriteAheadLog(store.createLedger(config), maxDelayMicros, maxBatchBytes);
     }
 
     /** Appends a point mutation, blocking until ack-quorum durable. */
@@ -60,9 +102,102 @@ public final class WriteAheadLog implements AutoCloseable {
         return append(WalEntry.of(tombstone));
     }
 
-    /** Appends a WAL entry of either kind, blocking until ack-quorum durable. */
+    /**
+     * Appends a WAL entry of either kind, blocking until the batch carrying it is ack-quorum durable.
+     *
+     * @return the id of the ledger entry holding the record (shared by every record of its batch)
+     */
     public long append(WalEntry entry) {
-        return ledger.append(WalEntrySerializer.serialize(entry));
+        PendingRecord mine = new PendingRecord(WalEntrySerializer.serialize(entry));
+        List<PendingRecord> batch;
+        queueLock.lock();
+        try {
+            queue.addLast(mine);
+            changed.signalAll();
+            while (!mine.done && (writing || queue.peekFirst() != mine)) {
+                changed.awaitUninterruptibly();
+            }
+            if (mine.done) {
+                return mine.result();
+            }
+            writing = true;
+            lingerLocked();
+            batch = takeBatchLocked();
+        } finally {
+            queueLock.unlock();
+        }
+
+        long entryId = -1;
+        RuntimeException failure = null;
+        try {
+            entryId = ledger.append(encode(batch));
+        } catch (RuntimeException e) {
+            failure = e;
+        }
+
+        queueLock.lock();
+        try {
+            for (PendingRecord record : batch) {
+                record.entryId = entryId;
+                record.failure = failure;
+                record.done = true;
+            }
+            writing = false;
+            changed.signalAll();
+        } finally {
+            queueLock.unlock();
+        }
+        return mine.result();
+    }
+
+    /** As batch leader, waits up to the configured delay for the queue to fill a batch. */
+    private void lingerLocked() {
+        if (maxDelayNanos == 0) {
+            return;
+        }
+        long remaining = maxDelayNanos;
+        while (remaining > 0 && queuedBytesLocked() < maxBatchBytes) {
+            try {
+                remaining = changed.awaitNanos(remaining);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private long queuedBytesLocked() {
+        long bytes = 0;
+        for (PendingRecord record : queue) {
+            bytes += record.bytes.length;
+        }
+        return bytes;
+    }
+
+    /** Dequeues the leader's record plus as many followers as fit under {@code maxBatchBytes}. */
+    private List<PendingRecord> takeBatchLocked() {
+        List<PendingRecord> batch = new ArrayList<>();
+        long bytes = 0;
+        while (!queue.isEmpty()) {
+            PendingRecord next = queue.peekFirst();
+            if (!batch.isEmpty() && bytes + next.bytes.length > maxBatchBytes) {
+                break;
+            }
+            batch.add(queue.pollFirst());
+            bytes += next.bytes.length;
+        }
+        return batch;
+    }
+
+    private static byte[] encode(List<PendingRecord> batch) {
+        if (batch.size() == 1) {
+            return batch.get(0).bytes;
+        }
+        List<byte[]> records = new ArrayList<>(batch.size());
+        for (PendingRecord record : batch) {
+            records.add(record.bytes);
+        }
+        return WalEntrySerializer.serializeEncodedBatch(records);
     }
 
     public long ledgerId() {
@@ -83,18 +218,77 @@ public final class WriteAheadLog implements AutoCloseable {
      */
     public static ReplayResult replay(ReadableLedger ledger) {
         List<WalEntry> entries = new ArrayList<>();
-        Hlc maxHlc = Hlc.MIN;
+        ReplaySummary summary = replay(ledger, 1, entries::add);
+        return new ReplayResult(entries, summary.maxHlc());
+    }
+
+    /**
+     * Streams every entry of a WAL ledger to {@code sink} in append order without materializing the
+     * log: up to {@code readAhead} ledger entries are read (and decoded, on the read's completion
+     * thread) ahead of the one being delivered, so replay memory is bounded by the window rather than
+     * by the WAL's length and the bookie round trips overlap.
+     *
+     * @param ledger    a readable WAL ledger (typically the result of {@code recoverOpen})
+     * @param readAhead ledger entries in flight at once; at least 1
+     * @param sink      receives each record, on the calling thread
+     */
+    public static ReplaySummary replay(ReadableLedger ledger, int readAhead, Consumer<WalEntry> sink) {
+        return replay(ledger, 0, readAhead, sink);
+    }
+
+    /**
+     * {@link #replay(ReadableLedger, int, Consumer)} from {@code fromEntryId} onwards, for a follower
+     * resuming where its last replay of the same ledger ({@link ReplaySummary#nextEntryId()}) ended.
+     * Reads stop at the ledger's last-add-confirmed as of the call.
+     *
+     * @param fromEntryId the first ledger entry to read; past the last-add-confirmed reads nothing
+     */
+    public static ReplaySummary replay(ReadableLedger ledger, long fromEntryId, int readAhead,
+                                       Consumer<WalEntry> sink) {
+        if (readAhead <= 0) {
+            throw new IllegalArgumentException("readAhead must be positive: " + readAhead);
+        }
+        if (fromEntryId < 0) {
+            throw new IllegalArgumentException("fromEntryId must not be negative: " + fromEntryId);
+        }
         long lac = ledger.lastAddConfirmed();
-        if (lac >= 0) {
-            for (LedgerEntry entry : ledger.readRange(0, lac)) {
-                WalEntry e = WalEntrySerializer.deserialize(entry.data());
-                entries.add(e);
-                if (e.hlc().isAfter(maxHlc)) {
-                    maxHlc = e.hlc();
+        Deque<CompletableFuture<List<WalEntry>>> inFlight = new ArrayDeque<>();
+        long next = fromEntryId;
+        long records = 0;
+        Hlc maxHlc = Hlc.MIN;
+        try {
+            while (next <= lac || !inFlight.isEmpty()) {
+                while (next <= lac && inFlight.size() < readAhead) {
+                    inFlight.add(ledger.readAsync(next++)
+                            .thenApply(entry -> WalEntrySerializer.deserializeAll(entry.data())));
+                }
+                // A group-committed entry carries several records; every one counts toward maxHlc.
+                for (WalEntry e : join(inFlight.poll())) {
+                    sink.accept(e);
+                    records++;
+                    if (e.hlc().isAfter(maxHlc)) {
+                        maxHlc = e.hlc();
+                    }
                 }
             }
+        } finally {
+            // On failure, let the reads still out finish before the caller closes the ledger.
+            for (CompletableFuture<List<WalEntry>> pending : inFlight) {
+                pending.exceptionally(e -> null).join();
+            }
+        }
+        return new ReplaySummary(records, maxHlc, Math.max(fromEntryId, lac + 1));
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
         }
-        return new ReplayResult(entries, maxHlc);
     }
 
     /**
@@ -105,4 +299,33 @@ public final class WriteAheadLog implements AutoCloseable {
      */
     public record ReplayResult(List<WalEntry> entries, Hlc maxHlc) {
     }
+
+    /**
+     * The outcome of a streamed WAL replay.
+     *
+     * @param records     the number of WAL records delivered to the sink
+     * @param maxHlc      the highest HLC recorded ({@link Hlc#MIN} if nothing was read)
+     * @param nextEntryId the ledger entry after the last one read, where a later replay resumes
+     */
+    public record ReplaySummary(long records, Hlc maxHlc, long nextEntryId) {
+    }
+
+    /** One caller's record waiting for its batch; fields are guarded by {@code queueLock}. */
+    private static final class PendingRecord {
+        private final byte[] bytes;
+        private boolean done;
+        private long entryId;
+        private RuntimeException failure;
+
+        private PendingRecord(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        private long result() {
+            if (failure != null) {
+                throw failure;
+            }
+            return entryId;
+        }
+    }
 }
@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.predatorray.candybox.lsm.engine;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.Queue;
+import me.predatorray.candybox.bookkeeper.fake.InMemoryLedgerStore;
+import me.predatorray.candybox.common.BoxName;
+import me.predatorray.candybox.common.CandyKey;
+import me.predatorray.candybox.common.ManualClock;
+import me.predatorray.candybox.common.config.CandyboxConfig;
+import me.predatorray.candybox.common.exception.BusyException;
+import me.predatorray.candybox.lsm.sstable.BlockCache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Sealed memtables are flushed off the write path: the flush executor here only queues its tasks, so
+ * each test decides exactly when the background flush runs.
+ */
+class BoxEngineBackgroundFlushTest {
+
+    private final InMemoryLedgerStore store = new InMemoryLedgerStore();
+    private final BoxName box = BoxName.of("flush-box");
+    private final ManualClock clock = new ManualClock(1000);
+    private final Queue<Runnable> flushTasks = new ArrayDeque<>();
+    private final EngineResources deferred =
+            new EngineResources(flushTasks::add, BlockCache.disabled());
+    private BoxEngine engine;
+
+    // Every put seals the active memtable; at most two sealed memtables may queue up.
+    private final CandyboxConfig config = CandyboxConfig.builder()
+            .memtableFlushThresholdBytes(1)
+            .memtableMaxImmutables(2)
+            .build();
+
+    @AfterEach
+    void tearDown() {
+        if (engine != null) {
+            engine.close();
+        }
+        store.close();
+    }
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private void runFlushTasks() {
+        Runnable task;
+        while ((task = flushTasks.poll()) != null) {
+            task.run();
+        }
+    }
+
+    private void put(BoxEngine target, String key, String value) {
+        target.putCandy(CandyKey.of(key), bytes(value), null, Map.of(), null);
+    }
+
+    @Test
+    void sealedMemtableStaysReadableUntilTheBackgroundFlushCommits() {
+        engine = BoxEngine.createNew(box, config, store, 1, clock, 1L, deferred);
+        put(engine, "k1", "v1");
+
+        // Sealed and queued, but not yet written: no SSTable, its WAL is still a recovery source.
+        assertThat(engine.stats().flushQueueDepth()).isEqualTo(1);
+        assertThat(engine.manifestState().level0()).isEmpty();
+        assertThat(engine.manifestState().pendingWalLedgerIds()).hasSize(1);
+        assertThat(engine.getCandy(CandyKey.of("k1"))).isEqualTo(bytes("v1"));
+        assertThat(engine.listCandies("", null, 10).entries()).hasSize(1);
+
+        runFlushTasks();
+
+        BoxEngineStats stats = engine.stats();
+        assertThat(stats.flushes()).isEqualTo(1);
+        assertThat(stats.flushQueueDepth()).isZero();
+        assertThat(stats.flushMillis()).isNotNegative();
+        assertThat(engine.manifestState().level0()).hasSize(1);
+        assertThat(engine.manifestState().pendingWalLedgerIds()).isEmpty();
+        assertThat(engine.reclaimableWals(clock.currentTimeMillis())).hasSize(1);
+        assertThat(engine.getCandy(CandyKey.of("k1"))).isEqualTo(bytes("v1"));
+    }
+
+    @Test
+    void writesStallOnlyOnceTheFlushQueueIsFull() {
+        engine = BoxEngine.createNew(box, config, store, 1, clock, 1L, deferred);
+        put(engine, "k1", "v1"); // sealed (1 queued)
+        put(engine, "k2", "v2"); // sealed (2 queued)
+        put(engine, "k3", "v3"); // queue full: stays in the over-threshold active memtable
+
+        assertThat(engine.stats().flushQueueDepth()).isEqualTo(2);
+        assertThatThrownBy(() -> put(engine, "k4", "v4")).isInstanceOf(BusyException.class);
+        assertThat(engine.stats().stallRejections()).isEqualTo(1);
+
+        // Draining the queue also seals and flushes the memtable that was held back.
+        runFlushTasks();
+        assertThat(engine.stats().flushQueueDepth()).isZero();
+        assertThat(engine.manifestState().level0()).hasSize(3);
+
+        put(engine, "k4", "v4");
+        for (String k : new String[] {"k1", "k2", "k3", "k4"}) {
+            assertThat(engine.getCandy(CandyKey.of(k))).isEqualTo(bytes("v" + k.substring(1)));
+        }
+    }
+
+    @Test
+    void recoveryReplaysThePendingWalsOfUnflushedMemtables() {
+        BoxEngine ownerA = BoxEngine.createNew(box, config, store, 1, clock, 1L, deferred);
+        put(ownerA, "k1", "v1");
+        put(ownerA, "k2", "v2");
+        put(ownerA, "k3", "v3");
+        long manifestLedgerId = ownerA.manifestLedgerId();
+        ownerA.close();
+        runFlushTasks(); // the closed owner must not commit its queued flushes
+
+        engine = BoxEngine.recover(box, config, store, 2, clock, manifestLedgerId, 2L);
+        assertThat(engine.manifestState().level0()).isEmpty();
+        assertThat(engine.manifestState().pendingWalLedgerIds()).hasSize(3);
+        for (String k : new String[] {"k1", "k2", "k3"}) {
+            assertThat(engine.getCandy(CandyKey.of(k))).isEqualTo(bytes("v" + k.substring(1)));
+        }
+
+        engine.flush();
+        assertThat(engine.manifestState().pendingWalLedgerIds()).isEmpty();
+        assertThat(engine.reclaimableWals(clock.currentTimeMillis())).hasSize(4);
+    }
+
+    @Test
+    void unflushedWritesSurviveBackToBackHandovers() {
+        BoxEngine ownerA = BoxEngine.createNew(box, CandyboxConfig.defaults(), store, 1, clock, 1L);
+        put(ownerA, "k", "v");
+        ownerA.close();
+
+        // B recovers but neither writes nor flushes before handing over again.
+        BoxEngine ownerB = BoxEngine.recover(box, CandyboxConfig.defaults(), store, 2, clock,
+                ownerA.manifestLedgerId(), 2L);
+        ownerB.close();
+
+        engine = BoxEngine.recover(box, CandyboxConfig.defaults(), store, 3, clock,
+                ownerB.manifestLedgerId(), 3L);
+        assertThat(engine.getCandy(CandyKey.of("k"))).isEqualTo(bytes("v"));
+    }
+}
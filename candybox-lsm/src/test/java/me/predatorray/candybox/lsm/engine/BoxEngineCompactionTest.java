@@ -194,6 +194,50 @@ class BoxEngineCompactionTest {
         assertThat(keysAtLevel(2)).containsExactly("k");
     }
 
+    @Test
+    void pointLookupPicksTheNewestVersionAcrossOverlappingL0AndDisjointL1Tables() {
+        engine = newEngine();
+        // Three disjoint L1 tables: [a1, a2], [m1, m2], [z1].
+        for (List<String> batch : List.of(List.of("a1", "a2"), List.of("m1", "m2"), List.of("z1"))) {
+            for (String key : batch) {
+                engine.putCandy(CandyKey.of(key), bytes(key + "-v1"), null, Map.of(), null);
+            }
+            engine.flush();
+            compact(0, 1, false, 100, 2_000);
+        }
+        assertThat(engine.manifestState().level(1)).hasSize(3);
+
+        // Two overlapping L0 tables on top; the newer one re-writes a2 again and deletes m2.
+        engine.putCandy(CandyKey.of("a2"), bytes("a2-v2"), null, Map.of(), null);
+        engine.putCandy(CandyKey.of("m1"), bytes("m1-v2"), null, Map.of(), null);
+        engine.flush();
+        engine.putCandy(CandyKey.of("a2"), bytes("a2-v3"), null, Map.of(), null);
+        engine.deleteCandy(CandyKey.of("m2"));
+        engine.flush();
+        assertThat(engine.manifestState().level0()).hasSize(2);
+
+        assertThat(engine.getCandy(CandyKey.of("a1"))).isEqualTo(bytes("a1-v1"));
+        assertThat(engine.getCandy(CandyKey.of("a2"))).isEqualTo(bytes("a2-v3"));
+        assertThat(engine.getCandy(CandyKey.of("m1"))).isEqualTo(bytes("m1-v2"));
+        assertThat(engine.getCandy(CandyKey.of("z1"))).isEqualTo(bytes("z1-v1"));
+        for (String missing : List.of("m2", "0", "b", "n", "zz")) {
+            assertThatThrownBy(() -> engine.getCandy(CandyKey.of(missing)))
+                    .isInstanceOf(CandyNotFoundException.class);
+        }
+
+        // The same answers once L0 is pushed down into L1 and the engine is recovered from scratch.
+        compact(0, 1, false, 100, 3_000);
+        BoxEngine recovered = BoxEngine.recover(box, CandyboxConfig.defaults(), store, 1,
+                new ManualClock(4_000), engine.manifestLedgerId(), 2L);
+        engine.close();
+        engine = recovered;
+        assertThat(engine.getCandy(CandyKey.of("a2"))).isEqualTo(bytes("a2-v3"));
+        assertThat(engine.getCandy(CandyKey.of("m1"))).isEqualTo(bytes("m1-v2"));
+        assertThat(engine.getCandy(CandyKey.of("z1"))).isEqualTo(bytes("z1-v1"));
+        assertThatThrownBy(() -> engine.getCandy(CandyKey.of("m2")))
+                .isInstanceOf(CandyNotFoundException.class);
+    }
+
     @Test
     void deleteOfEntryLivingOnADeepLevelShadowsAcrossLevelsAndIsReconciledAway() {
         engine = newEngine();
@@ -17,14 +17,27 @@ package me.predatorray.candybox.lsm.engine;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReferenceArray;
 import me.predatorray.candybox.bookkeeper.fake.InMemoryLedgerStore;
 import me.predatorray.candybox.common.BoxName;
 import me.predatorray.candybox.common.CandyKey;
 import me.predatorray.candybox.common.ManualClock;
+import me.predatorray.candybox.common.SegmentRef;
 import me.predatorray.candybox.common.config.CandyboxConfig;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
@@ -90,6 +103,107 @@ class BoxEngineConcurrencyTest {
         }
     }
 
+    /**
+     * Syrup streaming runs outside the partition write lock, so N concurrent large puts to one Box
+     * overlap their byte transfer and finish in roughly max(t) rather than sum(t). Each payload
+     * stream refuses to deliver its bytes until every stream has been opened: if the engine streamed
+     * under the lock, only one would ever be read and the rendezvous would time out.
+     */
+    @Test
+    void concurrentLargePutsStreamInParallel() throws Exception {
+        engine = BoxEngine.createNew(box, CandyboxConfig.defaults(), store, 1, new ManualClock(1000), 1L);
+
+        int writers = 4;
+        long streamMillis = 300;
+        int payloadBytes = 3 * (1 << 20) + 17;
+        CountDownLatch allStreaming = new CountDownLatch(writers);
+        ExecutorService pool = Executors.newFixedThreadPool(writers);
+        try {
+            List<Future<CandyMetadata>> results = new ArrayList<>();
+            long start = System.nanoTime();
+            for (int i = 0; i < writers; i++) {
+                byte[] payload = new byte[payloadBytes];
+                Arrays.fill(payload, (byte) i);
+                InputStream slow = new RendezvousStream(payload, allStreaming, streamMillis);
+                String key = "big/" + i;
+                results.add(pool.submit(() -> engine.putCandy(CandyKey.of(key), slow,
+                        "application/octet-stream", Map.of(), null)));
+            }
+            for (Future<CandyMetadata> result : results) {
+                assertThat(result.get(30, TimeUnit.SECONDS).contentLength()).isEqualTo(payloadBytes);
+            }
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            // Serialized streaming would take at least writers * streamMillis.
+            assertThat(elapsedMillis).isLessThan(writers * streamMillis);
+        } finally {
+            pool.shutdownNow();
+        }
+
+        for (int i = 0; i < writers; i++) {
+            byte[] expected = new byte[payloadBytes];
+            Arrays.fill(expected, (byte) i);
+            assertThat(engine.getCandy(CandyKey.of("big/" + i))).isEqualTo(expected);
+        }
+        assertThat(engine.stats().puts()).isEqualTo(writers);
+        // Every in-flight Syrup pin was released once its put committed: what stays referenced is
+        // exactly the Syrups the committed locators point at.
+        Set<Long> committed = new HashSet<>();
+        for (int i = 0; i < writers; i++) {
+            for (SegmentRef segment : engine.resolveLocator(CandyKey.of("big/" + i)).segments()) {
+                committed.add(segment.syrupId());
+            }
+        }
+        assertThat(engine.referencedSyrups()).isEqualTo(committed);
+    }
+
+    /**
+     * Serves {@code payload}, but blocks on the first read until {@code rendezvous} opens, then
+     * spreads the remaining bytes over {@code streamMillis} of wall time.
+     */
+    private static final class RendezvousStream extends InputStream {
+        private final byte[] payload;
+        private final CountDownLatch rendezvous;
+        private final long streamMillis;
+        private int pos;
+        private boolean arrived;
+
+        RendezvousStream(byte[] payload, CountDownLatch rendezvous, long streamMillis) {
+            this.payload = payload;
+            this.rendezvous = rendezvous;
+            this.streamMillis = streamMillis;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) < 0 ? -1 : one[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            try {
+                if (!arrived) {
+                    arrived = true;
+                    rendezvous.countDown();
+                    if (!rendezvous.await(10, TimeUnit.SECONDS)) {
+                        throw new IOException("other puts never started streaming");
+                    }
+                    Thread.sleep(streamMillis);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException(e);
+            }
+            if (pos >= payload.length) {
+                return -1;
+            }
+            int n = Math.min(len, payload.length - pos);
+            System.arraycopy(payload, pos, b, off, n);
+            pos += n;
+            return n;
+        }
+    }
+
     private Runnable put(String key, String token, AtomicReferenceArray<CandyMetadata> results,
                          AtomicReferenceArray<Throwable> errors, int slot, CyclicBarrier barrier) {
         return () -> {
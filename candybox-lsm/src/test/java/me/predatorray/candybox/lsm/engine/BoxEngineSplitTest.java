@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.predatorray.candybox.lsm.engine;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import me.predatorray.candybox.bookkeeper.fake.InMemoryLedgerStore;
+import me.predatorray.candybox.common.BoxName;
+import me.predatorray.candybox.common.CandyKey;
+import me.predatorray.candybox.common.HashScope;
+import me.predatorray.candybox.common.ManualClock;
+import me.predatorray.candybox.common.config.CandyboxConfig;
+import me.predatorray.candybox.common.exception.BusyException;
+import me.predatorray.candybox.common.exception.NotOwnerException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Covers {@link BoxEngine#split}: the new partition starts from the parent's tables by reference,
+ * writes to the handed-off half are fenced while the split is in flight, and after
+ * {@link BoxEngine#narrowScope} each half serves only its own keys.
+ */
+class BoxEngineSplitTest {
+
+    private static final HashScope KEPT = HashScope.ALL.left();
+    private static final HashScope HANDED_OFF = HashScope.ALL.right();
+
+    private final InMemoryLedgerStore store = new InMemoryLedgerStore();
+    private final BoxName box = BoxName.of("split-box");
+    private final ManualClock clock = new ManualClock(1000);
+    private BoxEngine parent;
+    private BoxEngine child;
+
+    @AfterEach
+    void tearDown() {
+        if (child != null) {
+            child.close();
+        }
+        if (parent != null) {
+            parent.close();
+        }
+        store.close();
+    }
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /** The first {@code n} of {@code k0, k1, ...} that fall in {@code scope}. */
+    private static List<String> keysIn(HashScope scope, int n) {
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; keys.size() < n; i++) {
+            if (scope.contains(CandyKey.of("k" + i))) {
+                keys.add("k" + i);
+            }
+        }
+        return keys;
+    }
+
+    private void putAll(BoxEngine engine, List<String> keys) {
+        for (String key : keys) {
+            engine.putCandy(CandyKey.of(key), bytes("v-" + key), null, Map.of(), null);
+        }
+    }
+
+    private static List<String> listed(BoxEngine engine) {
+        return engine.listCandies(null, null, 1000).entries().stream()
+                .map(e -> e.key().value()).toList();
+    }
+
+    @Test
+    void eachHalfServesOnlyItsOwnKeysFromTheSharedTables() {
+        parent = BoxEngine.createNew(box, CandyboxConfig.defaults(), store, 1, clock, 1L);
+        List<String> kept = keysIn(KEPT, 4);
+        List<String> handedOff = keysIn(HANDED_OFF, 4);
+        putAll(parent, kept.subList(0, 2));
+        putAll(parent, handedOff.subList(0, 2));
+        parent.flush();
+        putAll(parent, kept.subList(2, 4)); // still in the memtable when the split starts
+        putAll(parent, handedOff.subList(2, 4));
+
+        child = parent.split(1, 2L, EngineResources.standalone());
+        // No bytes moved: the new partition lists exactly the parent's tables.
+        assertThat(child.referencedSSTables()).isEqualTo(parent.referencedSSTables());
+        assertThat(child.manifestState().hashScope()).isEqualTo(HANDED_OFF);
+        parent.narrowScope(KEPT);
+
+        assertThat(listed(parent)).containsExactlyInAnyOrderElementsOf(kept);
+        assertThat(listed(child)).containsExactlyInAnyOrderElementsOf(handedOff);
+        for (String key : handedOff) {
+            assertThat(child.getCandy(CandyKey.of(key))).isEqualTo(bytes("v-" + key));
+            assertThatThrownBy(() -> parent.headCandy(CandyKey.of(key)))
+                    .isInstanceOf(NotOwnerException.class);
+        }
+        for (String key : kept) {
+            assertThat(parent.getCandy(CandyKey.of(key))).isEqualTo(bytes("v-" + key));
+            assertThatThrownBy(() -> child.putCandy(CandyKey.of(key), bytes("x"), null, Map.of(),
+                    null)).isInstanceOf(NotOwnerException.class);
+        }
+
+        // The new partition's writes order after every version it inherited (clock stands still).
+        String key = handedOff.get(3);
+        child.putCandy(CandyKey.of(key), bytes("newer"), null, Map.of(), null);
+        assertThat(child.getCandy(CandyKey.of(key))).isEqualTo(bytes("newer"));
+    }
+
+    @Test
+    void writesToTheHandedOffHalfAreFencedUntilTheSplitCommits() {
+        parent = BoxEngine.createNew(box, CandyboxConfig.defaults(), store, 1, clock, 1L);
+        String kept = keysIn(KEPT, 1).get(0);
+        String handedOff = keysIn(HANDED_OFF, 1).get(0);
+        putAll(parent, List.of(kept, handedOff));
+
+        child = parent.split(1, 2L, EngineResources.standalone());
+        assertThatThrownBy(() -> parent.putCandy(CandyKey.of(handedOff), bytes("late"), null,
+                Map.of(), null)).isInstanceOf(BusyException.class);
+        assertThatThrownBy(() -> parent.deleteRange(null, null)).isInstanceOf(BusyException.class);
+        assertThatThrownBy(() -> parent.split(1, 3L, EngineResources.standalone()))
+                .isInstanceOf(IllegalStateException.class);
+        // Reads of the handed-off half, and writes to the kept one, carry on meanwhile.
+        assertThat(parent.getCandy(CandyKey.of(handedOff))).isEqualTo(bytes("v-" + handedOff));
+        parent.putCandy(CandyKey.of(kept), bytes("during"), null, Map.of(), null);
+
+        parent.abandonSplit();
+        parent.putCandy(CandyKey.of(handedOff), bytes("after"), null, Map.of(), null);
+        assertThat(parent.getCandy(CandyKey.of(handedOff))).isEqualTo(bytes("after"));
+    }
+
+    @Test
+    void inFlightUploadsMoveWithTheirKeysAndTheNarrowedScopeSurvivesRecovery() {
+        parent = BoxEngine.createNew(box, CandyboxConfig.defaults(), store, 1, clock, 1L);
+        String kept = keysIn(KEPT, 1).get(0);
+        String handedOff = keysIn(HANDED_OFF, 1).get(0);
+        String keptUpload = parent.createMultipartUpload(CandyKey.of(kept), null, Map.of());
+        String movedUpload = parent.createMultipartUpload(CandyKey.of(handedOff), null, Map.of());
+        parent.uploadPart(movedUpload, 1, bytes("part"));
+
+        child = parent.split(1, 2L, EngineResources.standalone());
+        parent.narrowScope(KEPT);
+        assertThat(parent.listMultipartUploads()).extracting(u -> u.uploadId())
+                .containsExactly(keptUpload);
+        assertThat(child.listMultipartUploads()).extracting(u -> u.uploadId())
+                .containsExactly(movedUpload);
+        assertThat(child.multipartUpload(movedUpload).parts()).containsKey(1);
+
+        BoxEngine recovered = BoxEngine.recover(box, CandyboxConfig.defaults(), store, 2, clock,
+                parent.manifestLedgerId(), 3L);
+        parent.close();
+        parent = recovered;
+        assertThat(parent.manifestState().hashScope()).isEqualTo(KEPT);
+        assertThatThrownBy(() -> parent.putCandy(CandyKey.of(handedOff), bytes("x"), null, Map.of(),
+                null)).isInstanceOf(NotOwnerException.class);
+    }
+}
@@ -20,15 +20,21 @@ import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 import java.nio.charset.StandardCharsets;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import me.predatorray.candybox.bookkeeper.fake.InMemoryLedgerStore;
 import me.predatorray.candybox.common.BoxName;
 import me.predatorray.candybox.common.CandyKey;
 import me.predatorray.candybox.common.ManualClock;
+import me.predatorray.candybox.common.SegmentRef;
 import me.predatorray.candybox.common.config.CandyboxConfig;
+import me.predatorray.candybox.common.config.SizeLimits;
 import me.predatorray.candybox.common.exception.BusyException;
 import me.predatorray.candybox.common.exception.CandyNotFoundException;
 import me.predatorray.candybox.common.exception.FencedException;
 import me.predatorray.candybox.common.exception.ValidationException;
+import me.predatorray.candybox.lsm.manifest.RenameIntent;
+import me.predatorray.candybox.lsm.sstable.BlockCache;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 
@@ -259,6 +265,41 @@ class BoxEngineTest {
         assertThat(page2.isTruncated()).isFalse();
     }
 
+    @Test
+    void delimiterRollsKeysUpIntoCommonPrefixesAndPagesPastThem() {
+        engine = BoxEngine.createNew(box, CandyboxConfig.defaults(), store, 1, new ManualClock(1000), 1L);
+        for (int i = 0; i < 20; i++) {
+            engine.putCandy(CandyKey.of("photos/" + i), bytes("x"), null, Map.of(), null);
+        }
+        engine.putCandy(CandyKey.of("docs/a"), bytes("x"), null, Map.of(), null);
+        engine.putCandy(CandyKey.of("music/x"), bytes("x"), null, Map.of(), null);
+        engine.flush();
+        engine.putCandy(CandyKey.of("docs/b/c"), bytes("x"), null, Map.of(), null); // memtable
+        engine.putCandy(CandyKey.of("top.txt"), bytes("x"), null, Map.of(), null);
+        engine.deleteCandy(CandyKey.of("music/x")); // a deleted key rolls nothing up
+
+        ListResult page1 = engine.scanCandies(ScanQuery.forward(null, null, 2).withDelimiter("/"));
+        assertThat(page1.commonPrefixes()).containsExactly("docs/", "photos/");
+        assertThat(page1.entries()).isEmpty();
+        assertThat(page1.nextStartAfter()).isEqualTo("photos/");
+
+        // Resuming at a common prefix skips its whole group.
+        ListResult page2 = engine.scanCandies(
+                ScanQuery.forward(null, CandyKey.of(page1.nextStartAfter()), 2).withDelimiter("/"));
+        assertThat(page2.commonPrefixes()).isEmpty();
+        assertThat(page2.entries()).extracting(e -> e.key().value()).containsExactly("top.txt");
+        assertThat(page2.isTruncated()).isFalse();
+
+        ListResult nested = engine.scanCandies(ScanQuery.forward("docs/", null, 10).withDelimiter("/"));
+        assertThat(nested.entries()).extracting(e -> e.key().value()).containsExactly("docs/a");
+        assertThat(nested.commonPrefixes()).containsExactly("docs/b/");
+
+        ListResult reverse = engine.scanCandies(
+                ScanQuery.reverse(null, null, null, null, 10).withDelimiter("/"));
+        assertThat(reverse.entries()).extracting(e -> e.key().value()).containsExactly("top.txt");
+        assertThat(reverse.commonPrefixes()).containsExactly("photos/", "docs/");
+    }
+
     @Test
     void copyCandyReusesSegmentsWithoutWritingNewSyrup() {
         engine = BoxEngine.createNew(box, CandyboxConfig.defaults(), store, 1, new ManualClock(1000), 1L);
@@ -279,6 +320,100 @@ class BoxEngineTest {
         assertThat(engine.manifestState().referencedSyrups()).hasSize(syrupsBefore);
     }
 
+    @Test
+    void smallCandiesAreInlinedInTheLocatorAndNeverTouchASyrup() {
+        CandyboxConfig config = CandyboxConfig.builder().inlineThresholdBytes(16).build();
+        engine = BoxEngine.createNew(box, config, store, 1, new ManualClock(1000), 1L);
+        engine.putCandy(CandyKey.of("tiny"), bytes("{\"n\":1}"), "application/json", Map.of(), null);
+        assertThat(engine.resolveLocator(CandyKey.of("tiny")).parts().get(0).isInline()).isTrue();
+        engine.copyCandy(CandyKey.of("tiny"), CandyKey.of("copy"), null);
+        engine.renameCandy(CandyKey.of("copy"), CandyKey.of("moved"), null);
+        engine.flush();
+
+        // Served from the locator — full, ranged and copied — with no Syrup referenced at all.
+        assertThat(engine.getCandy(CandyKey.of("tiny"))).isEqualTo(bytes("{\"n\":1}"));
+        assertThat(engine.getCandy(CandyKey.of("moved"))).isEqualTo(bytes("{\"n\":1}"));
+        java.io.ByteArrayOutputStream slice = new java.io.ByteArrayOutputStream();
+        engine.getCandyRange(CandyKey.of("tiny"), 2, 4, slice);
+        assertThat(slice.toByteArray()).isEqualTo(bytes("n\":"));
+        assertThat(engine.referencedSyrups()).isEmpty();
+        assertThat(engine.manifestState().referencedSyrups()).isEmpty();
+
+        // A Candy at the threshold is not below it, and still streams to a Syrup.
+        engine.putCandy(CandyKey.of("big"), bytes("0123456789abcdef"), null, Map.of(), null);
+        assertThat(engine.resolveLocator(CandyKey.of("big")).segments()).hasSize(1);
+        assertThat(engine.getCandy(CandyKey.of("big"))).isEqualTo(bytes("0123456789abcdef"));
+    }
+
+    @Test
+    void defragmentationMovesSurvivorsOutOfAMostlyDeadSyrup() {
+        // 16-byte chunks and an 80-byte rollover: four one-chunk Candies fill a Syrup.
+        SizeLimits defaults = SizeLimits.defaults();
+        CandyboxConfig config = CandyboxConfig.builder()
+                .sizeLimits(new SizeLimits(16, defaults.maxCandyKeyBytes(),
+                        defaults.maxUserMetadataBytes(), defaults.maxLocatorBytes(),
+                        defaults.maxCandySizeBytes()))
+                .syrupRolloverBytes(80)
+                .inlineThresholdBytes(0)
+                .build();
+        engine = BoxEngine.createNew(box, config, store, 1, new ManualClock(1000), 1L);
+        for (String k : new String[] {"a", "b", "c", "d"}) {
+            engine.putCandy(CandyKey.of(k), bytes("candy-" + k + "-0123456"), null, Map.of(), null);
+        }
+        long pinned = engine.resolveLocator(CandyKey.of("a")).segments().get(0).syrupId();
+        engine.putCandy(CandyKey.of("e"), bytes("candy-e-0123456"), null, Map.of(), null); // rolls
+        engine.copyCandy(CandyKey.of("a"), CandyKey.of("a-copy"), null);
+        engine.deleteCandy(CandyKey.of("b"));
+        engine.deleteCandy(CandyKey.of("c"));
+        engine.putCandy(CandyKey.of("d"), bytes("overwritten-d"), null, Map.of(), null);
+        engine.flush();
+
+        // One of the four entries is still live (shared by a and its zero-copy copy); the open Syrup
+        // is not scored.
+        assertThat(engine.syrupUsage()).containsExactly(new SyrupUsage(pinned, 1, 4));
+        assertThat(engine.stats().syrupLiveRatio()).isEqualTo(0.25);
+
+        long copied = engine.defragmentSyrups(java.util.List.of(pinned), Long.MAX_VALUE);
+
+        // The shared part was copied once and both keys point at the copy, with fresh HLCs.
+        assertThat(copied).isEqualTo(15);
+        assertThat(engine.getCandy(CandyKey.of("a"))).isEqualTo(bytes("candy-a-0123456"));
+        assertThat(engine.getCandy(CandyKey.of("a-copy"))).isEqualTo(bytes("candy-a-0123456"));
+        java.util.List<SegmentRef> moved = engine.resolveLocator(CandyKey.of("a")).segments();
+        assertThat(engine.resolveLocator(CandyKey.of("a-copy")).segments()).isEqualTo(moved);
+        assertThat(moved).extracting(SegmentRef::syrupId).doesNotContain(pinned);
+        assertThat(engine.getCandy(CandyKey.of("d"))).isEqualTo(bytes("overwritten-d"));
+        assertThat(engine.stats().defragRelocations()).isEqualTo(2);
+        assertThat(engine.stats().defragBytes()).isEqualTo(15);
+
+        // Only the flushed, now-shadowed versions still hold the Syrup; nothing live does.
+        assertThat(engine.syrupUsage()).contains(new SyrupUsage(pinned, 0, 4));
+        engine.flush();
+        assertThat(engine.getCandy(CandyKey.of("a"))).isEqualTo(bytes("candy-a-0123456"));
+    }
+
+    @Test
+    void defragmentationLeavesAKeyWithAPendingRenameIntentAlone() {
+        SizeLimits defaults = SizeLimits.defaults();
+        CandyboxConfig config = CandyboxConfig.builder()
+                .sizeLimits(new SizeLimits(16, defaults.maxCandyKeyBytes(),
+                        defaults.maxUserMetadataBytes(), defaults.maxLocatorBytes(),
+                        defaults.maxCandySizeBytes()))
+                .syrupRolloverBytes(20)
+                .inlineThresholdBytes(0)
+                .build();
+        engine = BoxEngine.createNew(box, config, store, 1, new ManualClock(1000), 1L);
+        CandyMetadata src = engine.putCandy(CandyKey.of("src"), bytes("renaming-0123456"), null,
+                Map.of(), null);
+        long syrup = engine.resolveLocator(CandyKey.of("src")).segments().get(0).syrupId();
+        engine.putCandy(CandyKey.of("other"), bytes("rolls-a-syrup"), null, Map.of(), null);
+        engine.recordRenameIntent(new RenameIntent("tok", "src", src.hlc(), "dst", 1, 1000));
+
+        assertThat(engine.defragmentSyrups(java.util.List.of(syrup), Long.MAX_VALUE)).isZero();
+        assertThat(engine.resolveLocator(CandyKey.of("src")).hlc()).isEqualTo(src.hlc());
+        assertThat(engine.deleteCandyConditional(CandyKey.of("src"), src.hlc())).isTrue();
+    }
+
     @Test
     void renameCandyMovesKeyAtomicallyAndSurvivesFlush() {
         engine = BoxEngine.createNew(box, CandyboxConfig.defaults(), store, 1, new ManualClock(1000), 1L);
@@ -441,4 +576,62 @@ class BoxEngineTest {
         assertThatThrownBy(() -> ownerA.putCandy(CandyKey.of("k2"), bytes("zombie"), null, Map.of(), null))
                 .isInstanceOf(FencedException.class);
     }
+
+    @Test
+    void handoverAfterFlushWithRegressedClockKeepsGetAndListInAgreement() {
+        // Owner A flushes before handing over, so B replays empty WALs and its clock is not lifted.
+        ManualClock clockA = new ManualClock(10_000);
+        BoxEngine ownerA = BoxEngine.createNew(box, CandyboxConfig.defaults(), store, 1, clockA,
+                1L);
+        CandyMetadata v1 = ownerA.putCandy(CandyKey.of("k"), bytes("v1"), null, Map.of(), null);
+        ownerA.flush();
+        long manifestLedgerId = ownerA.manifestLedgerId();
+        ownerA.close();
+
+        engine = BoxEngine.recover(box, CandyboxConfig.defaults(), store, 2, new ManualClock(100),
+                manifestLedgerId, 2L);
+        CandyMetadata v2 = engine.putCandy(CandyKey.of("k"), bytes("v2-lagging"), null, Map.of(),
+                null);
+        assertThat(v1.hlc().isAfter(v2.hlc())).isTrue();
+
+        // Last-writer-wins by HLC: GET must agree with LIST rather than take the memtable's hit.
+        assertThat(engine.getCandy(CandyKey.of("k"))).isEqualTo(bytes("v1"));
+        assertThat(engine.headCandy(CandyKey.of("k")).contentLength()).isEqualTo(2);
+        assertThat(engine.listCandies(null, null, 100).entries())
+                .extracting(e -> e.contentLength()).containsExactly(2L);
+
+        // ... and still once the lagging write is flushed to an L0 table above A's.
+        engine.flush();
+        assertThat(engine.getCandy(CandyKey.of("k"))).isEqualTo(bytes("v1"));
+        assertThat(engine.listCandies(null, null, 100).entries())
+                .extracting(e -> e.contentLength()).containsExactly(2L);
+    }
+
+    @Test
+    void recoveryOpensSSTablesInParallelAndReportsItsPhases() {
+        BoxEngine ownerA = BoxEngine.createNew(box, CandyboxConfig.defaults(), store, 1,
+                new ManualClock(1000), 1L);
+        for (int i = 0; i < 6; i++) {
+            ownerA.putCandy(CandyKey.of("k" + i), bytes("v" + i), null, Map.of(), null);
+            ownerA.flush();
+        }
+        ownerA.putCandy(CandyKey.of("unflushed"), bytes("wal"), null, Map.of(), null);
+        long manifestLedgerId = ownerA.manifestLedgerId();
+
+        ExecutorService openers = Executors.newFixedThreadPool(4);
+        try {
+            engine = BoxEngine.recover(box, CandyboxConfig.defaults(), store, 2, new ManualClock(1000),
+                    manifestLedgerId, 2L, new EngineResources(Runnable::run, BlockCache.disabled(), openers));
+        } finally {
+            openers.shutdown();
+        }
+        for (int i = 0; i < 6; i++) {
+            assertThat(engine.getCandy(CandyKey.of("k" + i))).isEqualTo(bytes("v" + i));
+        }
+        assertThat(engine.getCandy(CandyKey.of("unflushed"))).isEqualTo(bytes("wal"));
+        RecoveryTimings timings = engine.recoveryTimings();
+        assertThat(timings.sstables()).isEqualTo(6);
+        assertThat(timings.walRecords()).isEqualTo(1);
+        assertThat(timings.totalMillis()).isGreaterThanOrEqualTo(0);
+    }
 }
@@ -67,8 +67,10 @@ class CrossPartitionZeroCopyEngineTest {
 
     @Test
     void zeroCopyPutReusesSourceSegmentsAcrossPartitions() {
-        src = BoxEngine.createNew(box, CandyboxConfig.defaults(), store, 1, new ManualClock(1000), 1L);
-        dst = BoxEngine.createNew(box, CandyboxConfig.defaults(), store, 2, new ManualClock(1000), 1L);
+        // Inlining off: the payload must land in a Syrup for there to be a segment to share.
+        CandyboxConfig config = CandyboxConfig.builder().inlineThresholdBytes(0).build();
+        src = BoxEngine.createNew(box, config, store, 1, new ManualClock(1000), 1L);
+        dst = BoxEngine.createNew(box, config, store, 2, new ManualClock(1000), 1L);
         src.putCandy(CandyKey.of("src"), bytes("payload"), "text/plain", Map.of("k", "v"), null);
         src.flush();
 
@@ -0,0 +1,234 @@
+/*
+ * Copyright (c) 2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.predatorray.candybox.lsm.engine;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import me.predatorray.candybox.bookkeeper.fake.InMemoryLedgerStore;
+import me.predatorray.candybox.common.BoxName;
+import me.predatorray.candybox.common.CandyKey;
+import me.predatorray.candybox.common.ManualClock;
+import me.predatorray.candybox.common.config.CandyboxConfig;
+import me.predatorray.candybox.common.exception.CandyNotFoundException;
+import me.predatorray.candybox.common.exception.FencedException;
+import me.predatorray.candybox.common.exception.NotOwnerException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class StandbyReplicaTest {
+
+    private final InMemoryLedgerStore store = new InMemoryLedgerStore();
+    private final BoxName box = BoxName.of("standby-box");
+    private final ManualClock clock = new ManualClock(1000);
+    private BoxEngine owner;
+    private BoxEngine promoted;
+
+    @AfterEach
+    void tearDown() {
+        if (promoted != null) {
+            promoted.close();
+        }
+        if (owner != null) {
+            owner.close();
+        }
+        store.close();
+    }
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private StandbyReplica follow(long manifestLedgerId) {
+        return StandbyReplica.follow(box, CandyboxConfig.defaults(), store, manifestLedgerId, clock,
+                EngineResources.standalone());
+    }
+
+    @Test
+    void caughtUpStandbyPromotesWithoutReplayingAndFencesTheOldOwner() {
+        owner = BoxEngine.createNew(box, CandyboxConfig.defaults(), store, 1, new ManualClock(1000), 1L);
+        StandbyReplica standby = follow(owner.manifestLedgerId());
+        owner.putCandy(CandyKey.of("flushed"), bytes("sst"), null, Map.of(), null);
+        owner.flush();
+        owner.putCandy(CandyKey.of("a"), bytes("1"), null, Map.of(), null);
+        owner.deleteRange(CandyKey.of("x"), CandyKey.of("y"));
+        assertThat(standby.catchUp()).isEqualTo(2);
+        assertThat(standby.openReaders()).isEqualTo(1);
+
+        owner.putCandy(CandyKey.of("b"), bytes("2"), null, Map.of(), null);
+        assertThat(standby.catchUp()).isEqualTo(1);
+        assertThat(standby.walRecords()).isEqualTo(3);
+
+        promoted = standby.promote(2, new ManualClock(1000), 2L);
+        assertThat(standby.isClosed()).isTrue();
+        assertThat(promoted.recoveryTimings().walRecords()).isZero(); // all of it tailed beforehand
+        assertThat(promoted.getCandy(CandyKey.of("flushed"))).isEqualTo(bytes("sst"));
+        assertThat(promoted.getCandy(CandyKey.of("a"))).isEqualTo(bytes("1"));
+        assertThat(promoted.getCandy(CandyKey.of("b"))).isEqualTo(bytes("2"));
+
+        assertThatThrownBy(() -> owner.putCandy(CandyKey.of("zombie"), bytes("z"), null, Map.of(), null))
+                .isInstanceOf(FencedException.class);
+    }
+
+    @Test
+    void promotionReadsWhateverTheStandbyHadNotTailedYet() {
+        owner = BoxEngine.createNew(box, CandyboxConfig.defaults(), store, 1, new ManualClock(1000), 1L);
+        StandbyReplica standby = follow(owner.manifestLedgerId());
+        owner.putCandy(CandyKey.of("early"), bytes("1"), null, Map.of(), null);
+        standby.catchUp();
+
+        // Written after the last poll, across a WAL rotation and a flush the standby never saw.
+        owner.putCandy(CandyKey.of("late"), bytes("2"), null, Map.of(), null);
+        owner.flush();
+        owner.putCandy(CandyKey.of("later"), bytes("3"), null, Map.of(), null);
+        owner.deleteCandy(CandyKey.of("early"));
+
+        promoted = standby.promote(2, new ManualClock(1000), 2L);
+        assertThat(promoted.recoveryTimings().walRecords()).isEqualTo(2);
+        assertThat(promoted.getCandy(CandyKey.of("late"))).isEqualTo(bytes("2"));
+        assertThat(promoted.getCandy(CandyKey.of("later"))).isEqualTo(bytes("3"));
+        assertThatThrownBy(() -> promoted.getCandy(CandyKey.of("early")))
+                .isInstanceOf(CandyNotFoundException.class);
+    }
+
+    @Test
+    void flushedWalsAreDroppedFromTheReplicaAndTheirTablesOpened() {
+        owner = BoxEngine.createNew(box, CandyboxConfig.defaults(), store, 1, new ManualClock(1000), 1L);
+        StandbyReplica standby = follow(owner.manifestLedgerId());
+        for (int i = 0; i < 3; i++) {
+            owner.putCandy(CandyKey.of("k" + i), bytes("v" + i), null, Map.of(), null);
+            owner.flush();
+            standby.catchUp();
+        }
+        assertThat(standby.openReaders()).isEqualTo(3);
+
+        promoted = standby.promote(2, new ManualClock(1000), 2L);
+        // Every write reached an SSTable, so no WAL is left to replay.
+        assertThat(promoted.recoveryTimings().walRecords()).isZero();
+        for (int i = 0; i < 3; i++) {
+            assertThat(promoted.getCandy(CandyKey.of("k" + i))).isEqualTo(bytes("v" + i));
+        }
+    }
+
+    @Test
+    void standbyRepointedAtANewOwnersManifestKeepsFollowing() {
+        owner = BoxEngine.createNew(box, CandyboxConfig.defaults(), store, 1, new ManualClock(1000), 1L);
+        StandbyReplica standby = follow(owner.manifestLedgerId());
+        owner.putCandy(CandyKey.of("a"), bytes("1"), null, Map.of(), null);
+        owner.flush();
+        standby.catchUp();
+
+        // Ownership moves to node 2 behind the standby's back; node 3's standby follows it there.
+        BoxEngine second = BoxEngine.recover(box, CandyboxConfig.defaults(), store, 2,
+                new ManualClock(1000), owner.manifestLedgerId(), 2L);
+        owner.close();
+        owner = second;
+        owner.putCandy(CandyKey.of("b"), bytes("2"), null, Map.of(), null);
+        standby.follow(owner.manifestLedgerId());
+        assertThat(standby.catchUp()).isEqualTo(1);
+        assertThat(standby.openReaders()).isEqualTo(1);
+
+        promoted = standby.promote(3, new ManualClock(1000), 3L);
+        assertThat(promoted.getCandy(CandyKey.of("a"))).isEqualTo(bytes("1"));
+        assertThat(promoted.getCandy(CandyKey.of("b"))).isEqualTo(bytes("2"));
+    }
+
+    @Test
+    void staleTokenPromotionIsRejectedAndSpendsTheStandby() {
+        owner = BoxEngine.createNew(box, CandyboxConfig.defaults(), store, 1, new ManualClock(1000), 5L);
+        owner.putCandy(CandyKey.of("a"), bytes("1"), null, Map.of(), null);
+        StandbyReplica standby = follow(owner.manifestLedgerId());
+        standby.catchUp();
+
+        assertThatThrownBy(() -> standby.promote(2, new ManualClock(1000), 4L))
+                .isInstanceOf(FencedException.class);
+        assertThat(standby.isClosed()).isTrue();
+        assertThatThrownBy(standby::catchUp).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void standbyServesReadsOfWhatItTailedAndRefusesThemOncePromoted() {
+        owner = BoxEngine.createNew(box, CandyboxConfig.defaults(), store, 1, new ManualClock(1000), 1L);
+        StandbyReplica standby = follow(owner.manifestLedgerId());
+        assertThatThrownBy(() -> standby.headCandy(CandyKey.of("a")))
+                .isInstanceOf(NotOwnerException.class); // nothing tailed yet
+
+        owner.putCandy(CandyKey.of("a"), bytes("flushed"), null, Map.of(), null);
+        owner.flush();
+        owner.putCandy(CandyKey.of("b"), bytes("unflushed"), null, Map.of(), null);
+        standby.catchUp();
+        owner.putCandy(CandyKey.of("c"), bytes("not tailed"), null, Map.of(), null);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertThat(standby.getCandy(CandyKey.of("a"), out).contentLength()).isEqualTo(7);
+        assertThat(out.toByteArray()).isEqualTo(bytes("flushed"));
+        assertThat(standby.headCandy(CandyKey.of("b")).contentLength()).isEqualTo(9);
+        assertThatThrownBy(() -> standby.headCandy(CandyKey.of("c")))
+                .isInstanceOf(CandyNotFoundException.class);
+        assertThat(standby.scanCandies(ScanQuery.forward(null, null, 10)).entries())
+                .extracting(e -> e.key().value()).containsExactly("a", "b");
+
+        promoted = standby.promote(2, new ManualClock(1000), 2L);
+        assertThatThrownBy(() -> standby.headCandy(CandyKey.of("a")))
+                .isInstanceOf(NotOwnerException.class);
+    }
+
+    @Test
+    void freshnessIsMeasuredFromTheStartOfTheLastCatchUp() {
+        owner = BoxEngine.createNew(box, CandyboxConfig.defaults(), store, 1, new ManualClock(1000), 1L);
+        StandbyReplica standby = follow(owner.manifestLedgerId());
+        assertThat(standby.isCaughtUpWithin(Long.MAX_VALUE)).isFalse();
+
+        standby.catchUp();
+        assertThat(standby.caughtUpAtMillis()).isEqualTo(800); // less the 200 ms LAC lag
+        clock.advance(300);
+        assertThat(standby.isCaughtUpWithin(500)).isTrue();
+        assertThat(standby.isCaughtUpWithin(499)).isFalse();
+
+        standby.catchUp();
+        assertThat(standby.isCaughtUpWithin(200)).isTrue();
+        assertThat(standby.isCaughtUpWithin(199)).isFalse();
+        standby.close();
+        assertThat(standby.isCaughtUpWithin(Long.MAX_VALUE)).isFalse();
+    }
+
+    @Test
+    void lastWriteToAQuietPartitionReachesTheStandbyWithinItsFreshness() {
+        InMemoryLedgerStore lagging = new InMemoryLedgerStore(clock, 200);
+        owner = BoxEngine.createNew(box, CandyboxConfig.defaults(), lagging, 1, clock, 1L);
+        StandbyReplica standby = StandbyReplica.follow(box, CandyboxConfig.defaults(), lagging,
+                owner.manifestLedgerId(), clock, EngineResources.standalone());
+        clock.advance(200);
+        standby.catchUp();
+        owner.putCandy(CandyKey.of("a"), bytes("quiet"), null, Map.of(), null);
+
+        // The owner writes nothing more, so no later add carries the put's LAC to the standby.
+        standby.catchUp();
+        assertThatThrownBy(() -> standby.headCandy(CandyKey.of("a")))
+                .isInstanceOf(CandyNotFoundException.class);
+        assertThat(standby.caughtUpAtMillis()).isLessThan(1200); // so it does not claim the put
+
+        // Once as fresh as the put, the standby must have it: the explicit LAC has been published.
+        clock.advance(200);
+        standby.catchUp();
+        assertThat(standby.caughtUpAtMillis()).isEqualTo(1200);
+        assertThat(standby.headCandy(CandyKey.of("a")).contentLength()).isEqualTo(5);
+        standby.close();
+    }
+}
@@ -21,6 +21,7 @@ import static me.predatorray.candybox.lsm.TestData.tombstone;
 import static org.assertj.core.api.Assertions.assertThat;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import me.predatorray.candybox.common.Mutation;
@@ -79,4 +80,52 @@ class MergingIteratorTest {
         Mutation k = merged.stream().filter(m -> m.key().value().equals("k")).findFirst().orElseThrow();
         assertThat(k.hlc()).isEqualTo(hlc(500, 0, 1)); // highest HLC won, direction notwithstanding
     }
+
+    @Test
+    void mergesManyOverlappingSourcesInBothDirections() {
+        // 20 sources; source s holds every key divisible by (s % 5 + 1), written at HLC s.
+        List<List<Mutation>> ascending = new ArrayList<>();
+        for (int s = 0; s < 20; s++) {
+            List<Mutation> src = new ArrayList<>();
+            for (int k = 0; k < 30; k++) {
+                if (k % (s % 5 + 1) == 0) {
+                    src.add(putMutation(String.format("k%02d", k), hlc(s, 0, 1)));
+                }
+            }
+            ascending.add(src);
+        }
+
+        List<Iterator<Mutation>> forward = new ArrayList<>();
+        List<Iterator<Mutation>> reverse = new ArrayList<>();
+        for (List<Mutation> src : ascending) {
+            forward.add(src.iterator());
+            List<Mutation> desc = new ArrayList<>(src);
+            Collections.reverse(desc);
+            reverse.add(desc.iterator());
+        }
+
+        List<Mutation> fwd = drain(new MergingIterator(forward, false));
+        assertThat(fwd).hasSize(30);
+        assertThat(fwd).extracting(m -> m.key().value()).isSorted();
+        // k00 is in every source, so the newest source (HLC 19) wins; k01 is only in s % 5 == 0.
+        assertThat(fwd.get(0).hlc()).isEqualTo(hlc(19, 0, 1));
+        assertThat(fwd.get(1).hlc()).isEqualTo(hlc(15, 0, 1));
+
+        List<Mutation> rev = drain(new MergingIterator(reverse, false, ScanDirection.REVERSE));
+        List<Mutation> fwdReversed = new ArrayList<>(fwd);
+        Collections.reverse(fwdReversed);
+        assertThat(rev).isEqualTo(fwdReversed);
+    }
+
+    @Test
+    void hlcTieKeepsTheEarliestSource() {
+        Mutation first = putMutation("k", hlc(7, 0, 1));
+        Mutation second = putMutation("k", hlc(7, 0, 1));
+
+        List<Mutation> merged = drain(new MergingIterator(
+                List.of(List.of(first).iterator(), List.of(second).iterator()), false));
+
+        assertThat(merged).hasSize(1);
+        assertThat(merged.get(0)).isSameAs(first);
+    }
 }
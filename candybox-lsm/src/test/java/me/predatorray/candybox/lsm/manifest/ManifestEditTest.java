@@ -39,18 +39,20 @@ class ManifestEditTest {
     @Test
     void constructorNormalizesNullCollectionsToEmpty() {
         ManifestEdit edit = new ManifestEdit(List.of(), Set.of(), Set.of(), Set.of(), null,
-                null, null, null, null, null, 0L);
+                null, null, null, null, null, null, null, null, 0L);
         assertThat(edit.addedUploads()).isEmpty();
         assertThat(edit.upsertParts()).isEmpty();
         assertThat(edit.removedUploads()).isEmpty();
         assertThat(edit.addedRenameIntents()).isEmpty();
         assertThat(edit.removedRenameIntents()).isEmpty();
+        assertThat(edit.addedPendingWals()).isEmpty();
+        assertThat(edit.removedPendingWals()).isEmpty();
     }
 
     @Test
     void constructorRejectsNegativeFencingToken() {
         assertThatThrownBy(() -> new ManifestEdit(List.of(), Set.of(), Set.of(), Set.of(), null,
-                List.of(), List.of(), Set.of(), List.of(), Set.of(), -1L))
+                List.of(), List.of(), Set.of(), List.of(), Set.of(), Set.of(), Set.of(), null, -1L))
                 .isInstanceOf(IllegalArgumentException.class)
                 .hasMessageContaining("ownerFencingToken");
     }
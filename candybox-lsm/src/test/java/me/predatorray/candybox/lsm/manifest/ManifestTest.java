@@ -23,6 +23,7 @@ import java.util.Set;
 import me.predatorray.candybox.bookkeeper.LedgerConfig;
 import me.predatorray.candybox.bookkeeper.fake.InMemoryLedgerStore;
 import me.predatorray.candybox.common.CandyKey;
+import me.predatorray.candybox.common.HashScope;
 import me.predatorray.candybox.common.config.LedgerRole;
 import me.predatorray.candybox.common.exception.FencedException;
 import me.predatorray.candybox.lsm.sstable.SSTableMeta;
@@ -120,6 +121,53 @@ class ManifestTest {
         recovered.close();
     }
 
+    @Test
+    void pendingWalsRoundTripAndSurviveACheckpoint() {
+        ManifestEdit sealEdit = ManifestEdit.builder()
+                .newWalLedgerId(11L).addedPendingWals(Set.of(10L)).build();
+        byte[] sb = ManifestSerializer.serialize(sealEdit);
+        assertThat(ManifestSerializer.deserialize(sb)).isEqualTo(sealEdit);
+
+        Manifest m = Manifest.createNew(store, cfg, 1L);
+        m.apply(ManifestEdit.builder().newWalLedgerId(10L).build());
+        m.apply(sealEdit);
+        m.apply(ManifestEdit.builder().newWalLedgerId(12L).addedPendingWals(Set.of(11L)).build());
+        assertThat(m.current().walLedgerId()).isEqualTo(12L);
+        assertThat(m.current().pendingWalLedgerIds()).containsExactlyInAnyOrder(10L, 11L);
+
+        // Flushing the oldest sealed memtable retires its WAL; the younger one stays pending.
+        m.apply(ManifestEdit.builder().addedTables(List.of(table(100, 0)))
+                .removedPendingWals(Set.of(10L)).build());
+        assertThat(m.current().pendingWalLedgerIds()).containsExactly(11L);
+
+        long prior = m.ledgerId();
+        m.close();
+        Manifest recovered = Manifest.recover(store, cfg, prior, 2L);
+        assertThat(recovered.current().pendingWalLedgerIds()).containsExactly(11L);
+        assertThat(recovered.current().walLedgerId()).isEqualTo(12L);
+        recovered.close();
+    }
+
+    @Test
+    void aSplitScopeRoundTripsAndSurvivesACheckpoint() {
+        HashScope scope = new HashScope(16, 3);
+        ManifestEdit narrow = ManifestEdit.builder().hashScope(scope).build();
+        assertThat(ManifestSerializer.deserialize(ManifestSerializer.serialize(narrow)))
+                .isEqualTo(narrow);
+
+        Manifest m = Manifest.createNew(store, cfg, 1L);
+        assertThat(m.current().hashScope()).isEqualTo(HashScope.ALL);
+        m.apply(narrow);
+        m.apply(ManifestEdit.flush(table(100, 0), Set.of(7L), 9L)); // unchanged by other edits
+        assertThat(m.current().hashScope()).isEqualTo(scope);
+
+        long prior = m.ledgerId();
+        m.close();
+        Manifest recovered = Manifest.recover(store, cfg, prior, 2L);
+        assertThat(recovered.current().hashScope()).isEqualTo(scope);
+        recovered.close();
+    }
+
     @Test
     void recoverReplaysPriorManifestIntoFreshLedger() {
         Manifest a = Manifest.createNew(store, cfg, 1L);
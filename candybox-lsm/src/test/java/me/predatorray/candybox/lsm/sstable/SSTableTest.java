@@ -27,7 +27,11 @@ import me.predatorray.candybox.common.CandyKey;
 import me.predatorray.candybox.common.Hlc;
 import me.predatorray.candybox.common.Mutation;
 import me.predatorray.candybox.common.RangeTombstone;
+import me.predatorray.candybox.common.bloom.BloomFilter;
 import me.predatorray.candybox.common.config.LedgerRole;
+import me.predatorray.candybox.common.serial.BinaryWriter;
+import me.predatorray.candybox.common.serial.CandyLocatorSerializer;
+import me.predatorray.candybox.common.serial.MutationSerializer;
 import org.junit.jupiter.api.Test;
 
 class SSTableTest {
@@ -202,4 +206,178 @@ class SSTableTest {
             assertThat(count).isEqualTo(50);
         }
     }
+
+    @Test
+    void blockCacheServesRepeatedReadsAcrossReadersOfTheSameTable() {
+        SSTableMeta meta = writeKeys(500);
+        BlockCache cache = new BlockCache(1L << 20);
+        try (SSTableReader first = new SSTableReader(store, meta.ledgerId(), cache);
+             SSTableReader second = new SSTableReader(store, meta.ledgerId(), cache)) {
+            assertThat(first.get(CandyKey.of("key-00250"))).isPresent();
+            assertThat(cache.stats().misses()).isEqualTo(1);
+
+            // Same block through another reader (as after a handover to a node sharing the cache).
+            assertThat(second.get(CandyKey.of("key-00250"))).isPresent();
+            assertThat(second.get(CandyKey.of("key-00251"))).isPresent();
+            assertThat(cache.stats().hits()).isEqualTo(2);
+            assertThat(cache.stats().misses()).isEqualTo(1);
+            assertThat(cache.stats().weightedSize()).isPositive();
+        }
+    }
+
+    @Test
+    void invalidatingALedgerDropsOnlyItsBlocks() {
+        SSTableMeta a = writeKeys(100);
+        SSTableMeta b = writeKeys(100);
+        BlockCache cache = new BlockCache(1L << 20);
+        try (SSTableReader ra = new SSTableReader(store, a.ledgerId(), cache);
+             SSTableReader rb = new SSTableReader(store, b.ledgerId(), cache)) {
+            ra.scan(null).forEachRemaining(m -> { });
+            rb.get(CandyKey.of("key-00000"));
+            long bothCached = cache.stats().weightedSize();
+
+            assertThat(cache.invalidateLedger(a.ledgerId())).isGreaterThan(1);
+            assertThat(cache.stats().weightedSize()).isPositive().isLessThan(bothCached);
+            assertThat(cache.get(b.ledgerId(), 0)).isNotNull();
+            assertThat(cache.get(a.ledgerId(), 0)).isNull();
+        }
+    }
+
+    @Test
+    void restartPointSearchFindsEveryKeyAndMissesTheGapsBetweenThem() {
+        // Block target large enough that each block spans several restart intervals.
+        List<Mutation> sorted = new ArrayList<>();
+        for (int i = 0; i < 300; i += 2) {
+            sorted.add(putMutation(String.format("key-%05d", i), hlc(i + 1, 0, 1)));
+        }
+        SSTableMeta meta = new SSTableWriter(store, 10, 4096).write(config, 0, sorted.iterator());
+        try (SSTableReader reader = new SSTableReader(store, meta.ledgerId())) {
+            for (int i = 0; i < 300; i++) {
+                CandyKey key = CandyKey.of(String.format("key-%05d", i));
+                if (i % 2 == 0) {
+                    assertThat(reader.get(key)).as(key.value()).get()
+                            .extracting(l -> l.hlc()).isEqualTo(hlc(i + 1, 0, 1));
+                } else {
+                    assertThat(reader.get(key)).as(key.value()).isEmpty();
+                }
+            }
+            assertThat(reader.get(CandyKey.of("key-"))).isEmpty();
+        }
+    }
+
+    @Test
+    void legacyV1AndV2TablesStayReadable() {
+        List<Mutation> sorted = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            sorted.add(putMutation(String.format("key-%05d", i), hlc(i + 1, 0, 1)));
+        }
+        for (int version : new int[] {1, 2}) {
+            long ledgerId = writeLegacyTable(version, sorted);
+            try (SSTableReader reader = new SSTableReader(store, ledgerId, new BlockCache(1L << 20))) {
+                assertThat(reader.entryCount()).isEqualTo(40);
+                assertThat(reader.get(CandyKey.of("key-00017"))).isPresent();
+                assertThat(reader.get(CandyKey.of("key-00017"))).isPresent(); // from the cache
+                assertThat(reader.get(CandyKey.of("key-00040"))).isEmpty();
+                List<String> keys = new ArrayList<>();
+                reader.scanReverse(CandyKey.of("key-00002")).forEachRemaining(m -> keys.add(m.key().value()));
+                assertThat(keys).containsExactly("key-00002", "key-00001", "key-00000");
+                assertThat(reader.rangeTombstones()).isEmpty();
+            }
+        }
+    }
+
+    @Test
+    void prefixCompressedDeepPathKeysRoundTripAndShrinkTheTable() {
+        List<Mutation> sorted = new ArrayList<>();
+        long rawBytes = 0;
+        for (int d = 0; d < 4; d++) {
+            for (int f = 0; f < 60; f++) {
+                Mutation m = putMutation(String.format("tenant/2026/10/16/device-%04d/frame-%06d.jpg", d, f),
+                        hlc(d * 100 + f + 1, 0, 1));
+                sorted.add(m);
+                rawBytes += MutationSerializer.serialize(m).length;
+            }
+        }
+        SSTableMeta meta = new SSTableWriter(store, 10, 1024).write(config, 0, sorted.iterator());
+        // The keys share ~36 of their 46 bytes; storing only the suffixes saves far more than the
+        // restart arrays cost.
+        assertThat(meta.sizeBytes()).isLessThan(rawBytes * 3 / 4);
+
+        try (SSTableReader reader = new SSTableReader(store, meta.ledgerId())) {
+            for (Mutation m : sorted) {
+                assertThat(reader.get(m.key())).as(m.key().value()).get()
+                        .extracting(l -> l.hlc()).isEqualTo(m.hlc());
+            }
+            // Absent keys sorting just past some block's last key.
+            assertThat(reader.get(CandyKey.of("tenant/2026/10/16/device-0000/frame-000059.jpgx"))).isEmpty();
+            assertThat(reader.get(CandyKey.of("tenant/2026/10/16/device-0000/g"))).isEmpty();
+
+            List<String> forward = new ArrayList<>();
+            reader.scan(CandyKey.of("tenant/2026/10/16/device-0001/")).forEachRemaining(
+                    m -> forward.add(m.key().value()));
+            assertThat(forward).hasSize(180).first().isEqualTo("tenant/2026/10/16/device-0001/frame-000000.jpg");
+            List<String> reverse = new ArrayList<>();
+            reader.scanReverse(CandyKey.of("tenant/2026/10/16/device-0002/")).forEachRemaining(
+                    m -> reverse.add(m.key().value()));
+            assertThat(reverse).hasSize(120).first().isEqualTo("tenant/2026/10/16/device-0001/frame-000059.jpg");
+        }
+    }
+
+    @Test
+    void v3RestartBlocksWithUncompressedKeysStayReadable() {
+        // A v3 block: [bytes key, bytes locator]*, restart offsets, restart count.
+        BinaryWriter w = new BinaryWriter();
+        List<Integer> restarts = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            if (i % SSTableFormat.RESTART_INTERVAL == 0) {
+                restarts.add(w.size());
+            }
+            Mutation m = putMutation(String.format("key-%02d", i), hlc(i + 1, 0, 1));
+            w.writeBytes(m.key().utf8Bytes()).writeBytes(CandyLocatorSerializer.serialize(m.locator()));
+        }
+        restarts.forEach(w::writeInt);
+        w.writeInt(restarts.size());
+
+        DataBlock block = DataBlock.parse(w.toByteArray(), SSTableFormat.FORMAT_VERSION_RESTARTS);
+        assertThat(block.get("key-17".getBytes())).get().extracting(l -> l.hlc()).isEqualTo(hlc(18, 0, 1));
+        assertThat(block.get("key-170".getBytes())).isEmpty();
+        assertThat(block.mutations()).hasSize(20);
+        assertThat(block.mutations().get(19).key().value()).isEqualTo("key-19");
+    }
+
+    /** Hand-writes a pre-v3 table: Mutation-run data blocks of 8 entries, footer at {@code version}. */
+    private long writeLegacyTable(int version, List<Mutation> sorted) {
+        var ledger = store.createLedger(config);
+        List<byte[]> keys = new ArrayList<>();
+        BinaryWriter index = new BinaryWriter();
+        int blocks = (sorted.size() + 7) / 8;
+        index.writeVarInt(blocks);
+        for (int b = 0; b < blocks; b++) {
+            List<Mutation> run = sorted.subList(b * 8, Math.min(sorted.size(), b * 8 + 8));
+            BinaryWriter block = new BinaryWriter().writeVarInt(run.size());
+            for (Mutation m : run) {
+                block.writeBytes(MutationSerializer.serialize(m));
+                keys.add(m.key().utf8Bytes());
+            }
+            long entryId = ledger.append(block.toByteArray());
+            index.writeBytes(run.get(run.size() - 1).key().utf8Bytes()).writeVarLong(entryId);
+        }
+        long bloomEntryId = ledger.append(BloomFilter.build(keys, 10).serialize());
+        long indexEntryId = ledger.append(index.toByteArray());
+        BinaryWriter footer = new BinaryWriter()
+                .writeInt(SSTableFormat.FOOTER_MAGIC)
+                .writeByte(version)
+                .writeVarLong(bloomEntryId)
+                .writeVarLong(indexEntryId)
+                .writeVarInt(blocks)
+                .writeVarLong(sorted.size())
+                .writeBytes(keys.get(0))
+                .writeBytes(keys.get(keys.size() - 1));
+        if (version >= 2) {
+            footer.writeBoolean(false); // no range-del block
+        }
+        ledger.append(footer.toByteArray());
+        ledger.close();
+        return ledger.ledgerId();
+    }
 }
@@ -0,0 +1,224 @@
+/*
+ * Copyright (c) 2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.predatorray.candybox.lsm.syrup;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import me.predatorray.candybox.bookkeeper.LedgerConfig;
+import me.predatorray.candybox.bookkeeper.LedgerEntry;
+import me.predatorray.candybox.bookkeeper.LedgerStore;
+import me.predatorray.candybox.bookkeeper.ReadableLedger;
+import me.predatorray.candybox.bookkeeper.WritableLedger;
+import me.predatorray.candybox.bookkeeper.fake.InMemoryLedgerStore;
+import me.predatorray.candybox.common.checksum.Crc32c;
+import me.predatorray.candybox.common.config.LedgerRole;
+import me.predatorray.candybox.common.exception.StorageException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * {@link ChunkPrefetcher} over a store whose asynchronous reads complete out of order (later entries
+ * land first), checking that chunks still come back in order, that no more than the window is ever
+ * outstanding, and that a bad chunk fails exactly its own {@code next()}.
+ */
+class ChunkPrefetcherTest {
+
+    private final InMemoryLedgerStore backing = new InMemoryLedgerStore();
+    private final ExecutorService bookies = Executors.newFixedThreadPool(4);
+    private final SlowStore store = new SlowStore();
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        bookies.shutdownNow();
+        bookies.awaitTermination(5, TimeUnit.SECONDS);
+        backing.close();
+    }
+
+    @Test
+    void emitsChunksInOrderWithBoundedReadAhead() {
+        List<String> expected = new ArrayList<>();
+        List<Long> syrups = new ArrayList<>();
+        for (int s = 0; s < 3; s++) {
+            WritableLedger syrup = backing.createLedger(LedgerConfig.forRole(LedgerRole.SYRUP));
+            for (int e = 0; e < 5; e++) {
+                String payload = "s" + s + "e" + e;
+                syrup.append(chunk(payload));
+                expected.add(payload);
+            }
+            syrup.close();
+            syrups.add(syrup.ledgerId());
+        }
+
+        List<String> emitted = new ArrayList<>();
+        try (ChunkPrefetcher chunks = new ChunkPrefetcher(store, 3)) {
+            for (long syrupId : syrups) {
+                chunks.add(syrupId, 0, 1);
+                chunks.add(syrupId, 2, 4);
+            }
+            ChunkPrefetcher.Chunk chunk;
+            while ((chunk = chunks.next()) != null) {
+                emitted.add(new String(chunk.data(), SyrupManager.CHUNK_HEADER_BYTES,
+                        chunk.payloadLength(), StandardCharsets.UTF_8));
+                // The slot the taken chunk held may already be refilled: at most window reads remain.
+                assertThat(store.issued.get() - emitted.size()).isLessThanOrEqualTo(3);
+            }
+        }
+        assertThat(emitted).isEqualTo(expected);
+        assertThat(store.opened.get()).isEqualTo(3);
+        assertThat(store.closed.get()).isEqualTo(3);
+    }
+
+    @Test
+    void corruptChunkFailsItsOwnTurnAndCloseDrainsTheRest() {
+        WritableLedger syrup = backing.createLedger(LedgerConfig.forRole(LedgerRole.SYRUP));
+        syrup.append(chunk("ok"));
+        syrup.append(new byte[] {0, 0, 0, 0, 'b', 'a', 'd'});
+        syrup.append(chunk("after"));
+        syrup.close();
+
+        ChunkPrefetcher chunks = new ChunkPrefetcher(store, 4);
+        chunks.add(syrup.ledgerId(), 0, 2);
+        assertThat(chunks.next().entryId()).isZero();
+        assertThatThrownBy(chunks::next)
+                .isInstanceOf(StorageException.class)
+                .hasMessageContaining("CRC mismatch");
+        chunks.close();
+        assertThat(store.closed.get()).isEqualTo(1);
+    }
+
+    private static byte[] chunk(String payload) {
+        byte[] bytes = payload.getBytes(StandardCharsets.UTF_8);
+        int crc = Crc32c.of(bytes);
+        byte[] entry = new byte[SyrupManager.CHUNK_HEADER_BYTES + bytes.length];
+        entry[0] = (byte) (crc >>> 24);
+        entry[1] = (byte) (crc >>> 16);
+        entry[2] = (byte) (crc >>> 8);
+        entry[3] = (byte) crc;
+        System.arraycopy(bytes, 0, entry, SyrupManager.CHUNK_HEADER_BYTES, bytes.length);
+        return entry;
+    }
+
+    /** Serves reads from {@link #backing} on a pool, lower entry ids sleeping longer. */
+    private final class SlowStore implements LedgerStore {
+
+        final AtomicInteger issued = new AtomicInteger();
+        final AtomicInteger opened = new AtomicInteger();
+        final AtomicInteger closed = new AtomicInteger();
+
+        @Override
+        public WritableLedger createLedger(LedgerConfig config) {
+            return backing.createLedger(config);
+        }
+
+        @Override
+        public ReadableLedger openLedger(long ledgerId) {
+            opened.incrementAndGet();
+            return new SlowLedger(backing.openLedger(ledgerId));
+        }
+
+        @Override
+        public ReadableLedger recoverOpen(long ledgerId) {
+            return backing.recoverOpen(ledgerId);
+        }
+
+        @Override
+        public void deleteLedger(long ledgerId) {
+            backing.deleteLedger(ledgerId);
+        }
+
+        @Override
+        public List<Long> listLedgers() {
+            return backing.listLedgers();
+        }
+
+        @Override
+        public void close() {
+        }
+
+        private final class SlowLedger implements ReadableLedger {
+
+            private final ReadableLedger delegate;
+
+            SlowLedger(ReadableLedger delegate) {
+                this.delegate = delegate;
+            }
+
+            @Override
+            public CompletableFuture<LedgerEntry> readAsync(long entryId) {
+                issued.incrementAndGet();
+                return CompletableFuture.supplyAsync(() -> {
+                    try {
+                        Thread.sleep(2 * (5 - entryId % 5));
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return delegate.read(entryId);
+                }, bookies);
+            }
+
+            @Override
+            public LedgerEntry read(long entryId) {
+                return delegate.read(entryId);
+            }
+
+            @Override
+            public long readLastAddConfirmed() {
+                return delegate.readLastAddConfirmed();
+            }
+
+            @Override
+            public List<LedgerEntry> readRange(long firstEntryId, long lastEntryId) {
+                return delegate.readRange(firstEntryId, lastEntryId);
+            }
+
+            @Override
+            public long ledgerId() {
+                return delegate.ledgerId();
+            }
+
+            @Override
+            public long lastAddConfirmed() {
+                return delegate.lastAddConfirmed();
+            }
+
+            @Override
+            public boolean isSealed() {
+                return delegate.isSealed();
+            }
+
+            @Override
+            public Map<String, byte[]> customMetadata() {
+                return delegate.customMetadata();
+            }
+
+            @Override
+            public void close() {
+                closed.incrementAndGet();
+                delegate.close();
+            }
+        }
+    }
+}
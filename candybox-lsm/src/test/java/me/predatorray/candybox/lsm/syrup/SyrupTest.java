@@ -20,8 +20,17 @@ import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import me.predatorray.candybox.bookkeeper.LedgerConfig;
 import me.predatorray.candybox.bookkeeper.WritableLedger;
 import me.predatorray.candybox.bookkeeper.fake.InMemoryLedgerStore;
@@ -135,6 +144,37 @@ class SyrupTest {
         assertThat(mid.toByteArray()).containsExactly(expectMid);
     }
 
+    @Test
+    void readAheadWindowSpansSegmentsSyrupsAndParts() {
+        byte[] partA = new byte[70];
+        byte[] partB = new byte[50];
+        new Random(3).nextBytes(partA);
+        new Random(5).nextBytes(partB);
+        SyrupManager writer = new SyrupManager(store, smallChunkConfig(),
+                LedgerConfig.forRole(LedgerRole.SYRUP));
+        SyrupWriteResult ra = writer.writeCandy(new ByteArrayInputStream(partA));
+        SyrupWriteResult rb = writer.writeCandy(new ByteArrayInputStream(partB));
+        writer.close();
+        List<Part> parts = List.of(
+                new Part(partA.length, 16, Crc32c.of(partA), ra.segments()),
+                new Part(partB.length, 16, Crc32c.of(partB), rb.segments()));
+        byte[] whole = new byte[120];
+        System.arraycopy(partA, 0, whole, 0, 70);
+        System.arraycopy(partB, 0, whole, 70, 50);
+
+        // A window wider than any one segment keeps reads in flight across Syrup rollovers.
+        SyrupReader reader = new SyrupReader(store, 5);
+        ByteArrayOutputStream all = new ByteArrayOutputStream();
+        assertThat(reader.readParts(parts, all)).isEqualTo(120);
+        assertThat(all.toByteArray()).isEqualTo(whole);
+
+        ByteArrayOutputStream slice = new ByteArrayOutputStream();
+        reader.readRange(parts, 17, 101, slice);
+        assertThat(slice.toByteArray()).isEqualTo(Arrays.copyOfRange(whole, 17, 102));
+
+        assertThat(reader.readAll(ra.segments(), partA.length)).isEqualTo(partA);
+    }
+
     @Test
     void recoversWhenOpenSyrupIsSealedUnderneath() {
         // Models BookKeeper sealing the open Syrup after bookie loss: the next append fails, but the
@@ -162,4 +202,49 @@ class SyrupTest {
             writer.close();
         }
     }
+
+    @Test
+    void aBurstOfConcurrentWritersLeavesOnlyABoundedIdlePoolOpen() throws Exception {
+        int writers = SyrupManager.MAX_IDLE_SYRUPS + 2;
+        SyrupManager writer = new SyrupManager(store, CandyboxConfig.defaults(),
+                LedgerConfig.forRole(LedgerRole.SYRUP));
+        ExecutorService pool = Executors.newFixedThreadPool(writers);
+        try {
+            // No stream yields its byte until every writer is streaming, so each opens its own Syrup.
+            CountDownLatch streaming = new CountDownLatch(writers);
+            List<Future<SyrupWriteResult>> results = new ArrayList<>();
+            for (int i = 0; i < writers; i++) {
+                byte value = (byte) i;
+                results.add(pool.submit(() -> writer.writeCandy(new InputStream() {
+                    private boolean served;
+
+                    @Override
+                    public int read() throws IOException {
+                        if (served) {
+                            return -1;
+                        }
+                        streaming.countDown();
+                        try {
+                            streaming.await(10, TimeUnit.SECONDS);
+                        } catch (InterruptedException e) {
+                            throw new IOException(e);
+                        }
+                        served = true;
+                        return value;
+                    }
+                })));
+            }
+            for (int i = 0; i < writers; i++) {
+                SyrupWriteResult result = results.get(i).get(30, TimeUnit.SECONDS);
+                writer.release(result);
+                assertThat(new SyrupReader(store).readAll(result.segments(), 1))
+                        .isEqualTo(new byte[] {(byte) i});
+            }
+            // The surplus writers' Syrups were sealed on return; nothing is pinned any more.
+            assertThat(writer.openSyrupIds()).hasSize(SyrupManager.MAX_IDLE_SYRUPS);
+        } finally {
+            pool.shutdownNow();
+            writer.close();
+        }
+    }
 }
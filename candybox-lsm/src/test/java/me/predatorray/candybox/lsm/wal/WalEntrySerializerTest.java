@@ -18,10 +18,14 @@ package me.predatorray.candybox.lsm.wal;
 import static me.predatorray.candybox.lsm.TestData.hlc;
 import static me.predatorray.candybox.lsm.TestData.putMutation;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
+import java.util.ArrayList;
+import java.util.List;
 import me.predatorray.candybox.common.CandyKey;
 import me.predatorray.candybox.common.Mutation;
 import me.predatorray.candybox.common.RangeTombstone;
+import me.predatorray.candybox.common.exception.SerializationException;
 import org.junit.jupiter.api.Test;
 
 class WalEntrySerializerTest {
@@ -45,4 +49,33 @@ class WalEntrySerializerTest {
         assertThat(((WalEntry.RangeDelete) decoded).tombstone()).isEqualTo(rt);
         assertThat(decoded.hlc()).isEqualTo(hlc(20, 0, 1));
     }
+
+    @Test
+    void roundTripsBatchInCommitOrder() {
+        List<WalEntry> batch = List.of(
+                WalEntry.of(putMutation("b", hlc(30, 0, 1))),
+                WalEntry.of(new RangeTombstone(CandyKey.of("c/"), CandyKey.of("c0"), hlc(31, 0, 1))),
+                WalEntry.of(putMutation("a", hlc(32, 0, 1))));
+        byte[] encoded = WalEntrySerializer.serializeBatch(batch);
+
+        assertThat(WalEntrySerializer.deserializeAll(encoded)).containsExactlyElementsOf(batch);
+        // A batch is not a single record: the single-record decoder refuses it.
+        assertThatThrownBy(() -> WalEntrySerializer.deserialize(encoded))
+                .isInstanceOf(SerializationException.class);
+        // Records serialized up front batch into the very same bytes.
+        List<byte[]> records = new ArrayList<>();
+        for (WalEntry entry : batch) {
+            records.add(WalEntrySerializer.serialize(entry));
+        }
+        assertThat(WalEntrySerializer.serializeEncodedBatch(records)).isEqualTo(encoded);
+    }
+
+    @Test
+    void singleRecordBatchUsesThePlainEncoding() {
+        WalEntry only = WalEntry.of(putMutation("k", hlc(40, 0, 1)));
+        assertThat(WalEntrySerializer.serializeBatch(List.of(only)))
+                .isEqualTo(WalEntrySerializer.serialize(only));
+        assertThat(WalEntrySerializer.deserializeAll(WalEntrySerializer.serialize(only)))
+                .containsExactly(only);
+    }
 }
@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.predatorray.candybox.lsm.wal;
+
+import static me.predatorray.candybox.lsm.TestData.hlc;
+import static me.predatorray.candybox.lsm.TestData.putMutation;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import me.predatorray.candybox.bookkeeper.LedgerConfig;
+import me.predatorray.candybox.bookkeeper.WritableLedger;
+import me.predatorray.candybox.bookkeeper.fake.InMemoryLedgerStore;
+import me.predatorray.candybox.common.CandyKey;
+import me.predatorray.candybox.common.Mutation;
+import me.predatorray.candybox.common.RangeTombstone;
+import me.predatorray.candybox.common.config.LedgerRole;
+import me.predatorray.candybox.common.exception.FencedException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class WriteAheadLogTest {
+
+    private final InMemoryLedgerStore store = new InMemoryLedgerStore();
+    private final LedgerConfig walConfig = LedgerConfig.forRole(LedgerRole.WAL);
+
+    @AfterEach
+    void tearDown() {
+        store.close();
+    }
+
+    @Test
+    void concurrentAppendsAreGroupCommittedIntoOneLedgerEntry() throws Exception {
+        int writers = 8;
+        List<Mutation> mutations = new ArrayList<>();
+        for (int i = 0; i < writers; i++) {
+            mutations.add(putMutation("k" + i, hlc(100 + i, 0, 1)));
+        }
+        int recordBytes = WalEntrySerializer.serialize(WalEntry.of(mutations.get(0))).length;
+        // The leader lingers until every writer has queued (the batch cap is exactly all of them), so
+        // the whole burst must land in a single ledger entry.
+        WriteAheadLog wal = WriteAheadLog.create(store, walConfig, TimeUnit.SECONDS.toMicros(10),
+                writers * recordBytes);
+
+        ExecutorService pool = Executors.newFixedThreadPool(writers);
+        try {
+            List<Future<Long>> acks = new ArrayList<>();
+            for (Mutation m : mutations) {
+                acks.add(pool.submit(() -> wal.append(m)));
+            }
+            for (Future<Long> ack : acks) {
+                assertThat(ack.get(30, TimeUnit.SECONDS)).isZero();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        long walId = wal.ledgerId();
+        wal.close();
+
+        WriteAheadLog.ReplayResult replay = WriteAheadLog.replay(store.recoverOpen(walId));
+        assertThat(store.openLedger(walId).lastAddConfirmed()).isZero();
+        assertThat(replay.entries()).extracting(e -> ((WalEntry.PointMutation) e).mutation())
+                .containsExactlyInAnyOrderElementsOf(mutations);
+        assertThat(replay.maxHlc()).isEqualTo(hlc(100 + writers - 1, 0, 1));
+    }
+
+    @Test
+    void replayObservesTheMaxHlcAcrossBatchedAndSingleEntries() {
+        RangeTombstone newest = new RangeTombstone(CandyKey.of("a/"), CandyKey.of("a0"), hlc(90, 3, 1));
+        WritableLedger ledger = store.createLedger(walConfig);
+        ledger.append(WalEntrySerializer.serialize(WalEntry.of(putMutation("x", hlc(10, 0, 1)))));
+        // A group-committed entry, with the max HLC buried mid-batch.
+        ledger.append(WalEntrySerializer.serializeBatch(List.of(
+                WalEntry.of(putMutation("y", hlc(20, 0, 1))),
+                WalEntry.of(newest),
+                WalEntry.of(putMutation("z", hlc(30, 0, 1))))));
+        ledger.close();
+
+        WriteAheadLog.ReplayResult replay = WriteAheadLog.replay(store.openLedger(ledger.ledgerId()));
+        assertThat(replay.entries()).hasSize(4);
+        assertThat(replay.entries().get(2)).isEqualTo(WalEntry.of(newest));
+        assertThat(replay.maxHlc()).isEqualTo(hlc(90, 3, 1));
+    }
+
+    @Test
+    void streamedReplayDeliversEveryRecordInLedgerOrderWithAReadAheadWindow() {
+        WritableLedger ledger = store.createLedger(walConfig);
+        for (int i = 0; i < 20; i++) {
+            ledger.append(WalEntrySerializer.serializeBatch(List.of(
+                    WalEntry.of(putMutation("k" + i + "a", hlc(100 + i, 0, 1))),
+                    WalEntry.of(putMutation("k" + i + "b", hlc(100 + i, 1, 1))))));
+        }
+        ledger.close();
+
+        List<WalEntry> delivered = new ArrayList<>();
+        WriteAheadLog.ReplaySummary summary =
+                WriteAheadLog.replay(store.openLedger(ledger.ledgerId()), 8, delivered::add);
+        assertThat(summary.records()).isEqualTo(40);
+        assertThat(summary.maxHlc()).isEqualTo(hlc(119, 1, 1));
+        assertThat(delivered).isEqualTo(
+                WriteAheadLog.replay(store.openLedger(ledger.ledgerId())).entries());
+        assertThat(delivered.get(0)).isEqualTo(WalEntry.of(putMutation("k0a", hlc(100, 0, 1))));
+    }
+
+    @Test
+    void failedBatchFailsItsCallerAndLaterAppendsStillReportFencing() {
+        WriteAheadLog wal = WriteAheadLog.create(store, walConfig);
+        wal.append(putMutation("a", hlc(1, 0, 1)));
+        store.recoverOpen(wal.ledgerId());
+
+        assertThatThrownBy(() -> wal.append(putMutation("b", hlc(2, 0, 1))))
+                .isInstanceOf(FencedException.class);
+        assertThatThrownBy(() -> wal.append(putMutation("c", hlc(3, 0, 1))))
+                .isInstanceOf(FencedException.class);
+    }
+}
@@ -19,10 +19,18 @@ package me.predatorray.candybox.protocol;
  * The wire unit: an {@link Opcode} plus an opaque payload. Higher-level {@link Message}s serialize
  * themselves into a frame's payload; {@link FrameCodec} handles the on-wire framing.
  *
- * @param opcode  the opcode
- * @param payload the payload bytes (treat as read-only)
+ * <p>A frame on a multiplexed connection also carries the {@code requestId} that correlates a
+ * response with its request, so a node may answer out of order. {@link #UNCORRELATED} marks a frame
+ * of the original one-request-at-a-time framing, which {@link FrameCodec} writes as version 1.
+ *
+ * @param opcode    the opcode
+ * @param payload   the payload bytes (treat as read-only)
+ * @param requestId the correlation id ({@code >= 0}), or {@link #UNCORRELATED}
  */
-public record Frame(Opcode opcode, byte[] payload) {
+public record Frame(Opcode opcode, byte[] payload, int requestId) {
+
+    /** The request id of a frame sent without correlation (protocol version 1). */
+    public static final int UNCORRELATED = -1;
 
     public Frame {
         if (opcode == null) {
@@ -31,5 +39,23 @@ public record Frame(Opcode opcode, byte[] payload) {
         if (payload == null) {
             payload = new byte[0];
         }
+        if (requestId < UNCORRELATED) {
+            throw new IllegalArgumentException("requestId must be non-negative");
+        }
+    }
+
+    /** An uncorrelated frame. */
+    public Frame(Opcode opcode, byte[] payload) {
+        this(opcode, payload, UNCORRELATED);
+    }
+
+    /** Whether this frame carries a request id (and so travels as protocol version 2). */
+    public boolean isCorrelated() {
+        return requestId != UNCORRELATED;
+    }
+
+    /** This frame re-tagged with {@code id}, e.g. a handler's response with its request's id. */
+    public Frame withRequestId(int id) {
+        return id == requestId ? this : new Frame(opcode, payload, id);
     }
 }
@@ -20,10 +20,15 @@ import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 
 /**
- * The framed binary codec: {@code magic(2) | version(1) | opcode(1) | length(4) | payload}, all
- * big-endian.
+ * The framed binary codec, all big-endian. Version 1 is
+ * {@code magic(2) | version(1) | opcode(1) | length(4) | payload}; version 2 inserts a
+ * {@code requestId(4)} before the length so a connection can carry many requests at once and a node
+ * can answer them out of order. A {@link Frame} is written as version 2 iff it
+ * {@linkplain Frame#isCorrelated() carries a request id}, and both versions are always readable, so
+ * a node answers each request in the version it arrived in and v1-only peers keep working.
  *
  * <p>It enforces a configurable maximum payload length (default 16 MiB) and validates the magic,
  * version, and length prefix <em>before allocating</em> the payload buffer, so a hostile or corrupt
@@ -33,7 +38,9 @@ public final class FrameCodec {
 
     public static final int MAGIC = 0xCB0F;
     public static final byte VERSION = 1;
+    public static final byte VERSION_CORRELATED = 2;
     public static final int HEADER_BYTES = 8;
+    public static final int HEADER_BYTES_CORRELATED = 12;
     public static final int DEFAULT_MAX_FRAME_BYTES = 16 << 20;
 
     private final int maxFrameBytes;
@@ -60,19 +67,30 @@ public final class FrameCodec {
             throw new ProtocolException("Frame payload " + payload.length + " exceeds max "
                     + maxFrameBytes);
         }
-        byte[] out = new byte[HEADER_BYTES + payload.length];
+        boolean correlated = frame.isCorrelated();
+        int header = correlated ? HEADER_BYTES_CORRELATED : HEADER_BYTES;
+        byte[] out = new byte[header + payload.length];
         out[0] = (byte) (MAGIC >>> 8);
         out[1] = (byte) MAGIC;
-        out[2] = VERSION;
+        out[2] = correlated ? VERSION_CORRELATED : VERSION;
         out[3] = (byte) frame.opcode().code();
-        out[4] = (byte) (payload.length >>> 24);
-        out[5] = (byte) (payload.length >>> 16);
-        out[6] = (byte) (payload.length >>> 8);
-        out[7] = (byte) payload.length;
-        System.arraycopy(payload, 0, out, HEADER_BYTES, payload.length);
+        int pos = 4;
+        if (correlated) {
+            pos = writeInt(out, pos, frame.requestId());
+        }
+        writeInt(out, pos, payload.length);
+        System.arraycopy(payload, 0, out, header, payload.length);
         return out;
     }
 
+    private static int writeInt(byte[] out, int pos, int value) {
+        out[pos] = (byte) (value >>> 24);
+        out[pos + 1] = (byte) (value >>> 16);
+        out[pos + 2] = (byte) (value >>> 8);
+        out[pos + 3] = (byte) value;
+        return pos + 4;
+    }
+
     /** Writes an encoded frame directly to a stream. */
     public void write(OutputStream out, Frame frame) throws IOException {
         out.write(encode(frame));
@@ -91,27 +109,78 @@ public final class FrameCodec {
     /**
      * Reads one frame from a stream, validating the header and length cap before allocating.
      *
-     * @throws ProtocolException on bad magic/version or an out-of-range length
+     * @throws ProtocolException on bad magic/version/request id or an out-of-range length
      * @throws EOFException      if the stream ends mid-frame
      */
     public Frame read(DataInputStream in) throws IOException {
-        int magic = in.readUnsignedShort();
+        checkMagic(in.readUnsignedShort());
+        int version = checkVersion(in.readUnsignedByte());
+        int opcode = in.readUnsignedByte();
+        int requestId = version == VERSION_CORRELATED
+                ? checkRequestId(in.readInt()) : Frame.UNCORRELATED;
+        int length = checkLength(in.readInt());
+        byte[] payload = new byte[length];
+        in.readFully(payload);
+        return new Frame(Opcode.fromCode(opcode), payload, requestId);
+    }
+
+    /**
+     * Decodes one frame from the front of {@code buffer} (read mode) if the whole frame is there,
+     * advancing past it; otherwise returns null and leaves the position untouched. The header is
+     * validated as soon as it has arrived, so a non-blocking reader never buffers toward a bad length.
+     *
+     * @throws ProtocolException on bad magic/version/request id or an out-of-range length
+     */
+    public Frame decode(ByteBuffer buffer) {
+        int start = buffer.position();
+        if (buffer.remaining() < HEADER_BYTES) {
+            return null;
+        }
+        checkMagic(Short.toUnsignedInt(buffer.getShort(start)));
+        int version = checkVersion(Byte.toUnsignedInt(buffer.get(start + 2)));
+        int header = version == VERSION_CORRELATED ? HEADER_BYTES_CORRELATED : HEADER_BYTES;
+        if (buffer.remaining() < header) {
+            return null;
+        }
+        int opcode = Byte.toUnsignedInt(buffer.get(start + 3));
+        int requestId = version == VERSION_CORRELATED
+                ? checkRequestId(buffer.getInt(start + 4)) : Frame.UNCORRELATED;
+        int length = checkLength(buffer.getInt(start + header - 4));
+        if (buffer.remaining() < header + length) {
+            return null;
+        }
+        byte[] payload = new byte[length];
+        buffer.position(start + header);
+        buffer.get(payload);
+        return new Frame(Opcode.fromCode(opcode), payload, requestId);
+    }
+
+    private static void checkMagic(int magic) {
         if (magic != MAGIC) {
             throw new ProtocolException("Bad frame magic: 0x" + Integer.toHexString(magic));
         }
-        int version = in.readUnsignedByte();
-        if (version != VERSION) {
+    }
+
+    private static int checkVersion(int version) {
+        if (version != VERSION && version != VERSION_CORRELATED) {
             throw new ProtocolException("Unsupported protocol version: " + version);
         }
-        int opcode = in.readUnsignedByte();
-        int length = in.readInt();
+        return version;
+    }
+
+    private static int checkRequestId(int requestId) {
+        if (requestId < 0) {
+            throw new ProtocolException("Illegal request id " + requestId);
+        }
+        return requestId;
+    }
+
+    private int checkLength(int length) {
         if (length < 0 || length > maxFrameBytes) {
             // Reject before allocating: a bad length must never trigger a huge allocation.
             throw new ProtocolException("Illegal frame length " + length + " (max " + maxFrameBytes + ")");
         }
-        byte[] payload = new byte[length];
-        in.readFully(payload);
-        return new Frame(Opcode.fromCode(opcode), payload);
+        return length;
     }
 
     /** Reads one frame from a plain {@link InputStream}. */
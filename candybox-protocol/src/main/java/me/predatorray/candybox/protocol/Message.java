@@ -24,9 +24,15 @@ import me.predatorray.candybox.common.Part;
  * The typed protocol messages, mapped to/from {@link Frame}s by {@link MessageCodec}. A sealed
  * hierarchy so the codec's dispatch is exhaustive.
  *
- * <p>Phase 2 scaffold: these define the wire contract for the full v1 client API. Large-object
- * streaming (chunked PUT/GET bodies rather than the inlined {@code data} here) is TODO(phase-2);
- * the records carry inline bytes for now so small objects round-trip.
+ * <p>The plain PUT / GET / UploadPart messages carry the object's bytes inline, so they are bounded
+ * by the frame cap. Their {@code *Stream} counterparts carry only the header; the bytes follow as
+ * {@link StreamChunk} frames on the same request id (see {@link Opcode#opensStream()}), which the
+ * transport meters with {@link StreamAck} credits and closes with a {@link StreamEnd}.
+ *
+ * <p>The single-object reads and {@link ListCandiesRequest} carry a trailing
+ * {@code maxStalenessMillis}: {@code 0} (and its absence, from older clients) asks for the owner's
+ * answer; a positive bound also lets a standby of the partition answer from its replica when that is
+ * at most this far behind the owner. A node that can do neither answers {@code MOVED}.
  */
 public sealed interface Message {
 
@@ -53,6 +59,13 @@ public sealed interface Message {
         }
     }
 
+    /** See {@link Opcode#PING}; answered with an {@link OkResponse} listing the node's features. */
+    record PingRequest() implements Message {
+        public Opcode opcode() {
+            return Opcode.PING;
+        }
+    }
+
     record ListBoxesRequest() implements Message {
         public Opcode opcode() {
             return Opcode.LIST_BOXES;
@@ -93,10 +106,37 @@ public sealed interface Message {
         }
     }
 
-    record GetCandyRequest(String box, String key) implements Message {
+    record GetCandyRequest(String box, String key, long maxStalenessMillis) implements Message {
         public Opcode opcode() {
             return Opcode.GET_CANDY;
         }
+
+        /** A read answered by the owner. */
+        public GetCandyRequest(String box, String key) {
+            this(box, key, 0);
+        }
+    }
+
+    /** {@link PutCandyRequest} without the bytes, which follow as a stream. */
+    record PutCandyStreamRequest(String box, String key, String contentType,
+                                 Map<String, String> userMetadata, String idempotencyToken,
+                                 String owner, List<String> grants) implements Message {
+        public Opcode opcode() {
+            return Opcode.PUT_CANDY_STREAM;
+        }
+    }
+
+    /** A GET answered with a {@link CandyStreamResponse} and the bytes as a stream. */
+    record GetCandyStreamRequest(String box, String key, long maxStalenessMillis)
+            implements Message {
+        public Opcode opcode() {
+            return Opcode.GET_CANDY_STREAM;
+        }
+
+        /** A read answered by the owner. */
+        public GetCandyStreamRequest(String box, String key) {
+            this(box, key, 0);
+        }
     }
 
     /**
@@ -105,17 +145,27 @@ public sealed interface Message {
      * server; {@code firstByte == -1} means "the last {@code lastByte} bytes" (suffix range) and the
      * server resolves to {@code [contentLength - lastByte, contentLength - 1]}.
      */
-    record RangeGetCandyRequest(String box, String key, long firstByte, long lastByte)
-            implements Message {
+    record RangeGetCandyRequest(String box, String key, long firstByte, long lastByte,
+                                long maxStalenessMillis) implements Message {
         public Opcode opcode() {
             return Opcode.RANGE_GET_CANDY;
         }
+
+        /** A read answered by the owner. */
+        public RangeGetCandyRequest(String box, String key, long firstByte, long lastByte) {
+            this(box, key, firstByte, lastByte, 0);
+        }
     }
 
-    record HeadCandyRequest(String box, String key) implements Message {
+    record HeadCandyRequest(String box, String key, long maxStalenessMillis) implements Message {
         public Opcode opcode() {
             return Opcode.HEAD_CANDY;
         }
+
+        /** A read answered by the owner. */
+        public HeadCandyRequest(String box, String key) {
+            this(box, key, 0);
+        }
     }
 
     record DeleteCandyRequest(String box, String key) implements Message {
@@ -212,13 +262,21 @@ public sealed interface Message {
      * Deletes a key range with a single range tombstone <em>in one partition</em>; the client fans
      * the request out to every partition of the Box. Exactly one of: a {@code prefix}, or a
      * {@code [startKey, endKey)} window (either bound nullable). {@code prefix} non-null selects the
-     * prefix form.
+     * prefix form. {@code partitionModulus} is the modulus of the partition's hash scope as the client
+     * last saw it, so a node whose partition has split since refuses the stale fan-out ({@code 0},
+     * from a client that predates splits, expects the Box's creation partition count).
      */
     record DeleteRangeRequest(String box, int partition, String prefix, String startKey,
-                              String endKey) implements Message {
+                              String endKey, int partitionModulus) implements Message {
         public Opcode opcode() {
             return Opcode.DELETE_RANGE;
         }
+
+        /** A range delete that expects the partition never to have been split. */
+        public DeleteRangeRequest(String box, int partition, String prefix, String startKey,
+                                  String endKey) {
+            this(box, partition, prefix, startKey, endKey, 0);
+        }
     }
 
     // ---- Multipart upload requests ---------------------------------------------------------
@@ -237,6 +295,14 @@ public sealed interface Message {
         }
     }
 
+    /** {@link UploadPartRequest} without the bytes, which follow as a stream. */
+    record UploadPartStreamRequest(String box, String key, String uploadId, int partNumber)
+            implements Message {
+        public Opcode opcode() {
+            return Opcode.UPLOAD_PART_STREAM;
+        }
+    }
+
     /** A {@code (partNumber, crc32c)} pair as supplied by the client in CompleteMultipartUpload. */
     record CompletedPart(int partNumber, int crc32c) {
     }
@@ -263,13 +329,21 @@ public sealed interface Message {
 
     /**
      * Lists in-flight multipart uploads in one partition of a Box, narrowed by an optional key
-     * prefix; the client fans out across partitions and merges.
+     * prefix; the client fans out across partitions and merges. {@code partitionModulus} as in
+     * {@link DeleteRangeRequest}.
      */
     record ListMultipartUploadsRequest(String box, int partition, String prefix, String keyMarker,
-                                       String uploadIdMarker, int maxUploads) implements Message {
+                                       String uploadIdMarker, int maxUploads, int partitionModulus)
+            implements Message {
         public Opcode opcode() {
             return Opcode.LIST_MULTIPART_UPLOADS;
         }
+
+        /** A listing that expects the partition never to have been split. */
+        public ListMultipartUploadsRequest(String box, int partition, String prefix, String keyMarker,
+                                           String uploadIdMarker, int maxUploads) {
+            this(box, partition, prefix, keyMarker, uploadIdMarker, maxUploads, 0);
+        }
     }
 
     /** Lists the parts recorded for one in-flight upload. */
@@ -292,19 +366,46 @@ public sealed interface Message {
         }
     }
 
-    /** Lists live Candies in one partition of a Box; the client fans out and merge-sorts pages. */
+    /**
+     * Lists live Candies in one partition of a Box; the client fans out and merge-sorts pages. With
+     * a {@code delimiter} the node rolls keys up into common prefixes (returned in
+     * {@link ListCandiesResponse#commonPrefixes()}, counted against {@code maxKeys}).
+     * {@code partitionModulus} as in {@link DeleteRangeRequest}.
+     */
     record ListCandiesRequest(String box, int partition, String prefix, String startAfter,
-                              int maxKeys, String startKey, String endKey, boolean reverse)
+                              int maxKeys, String startKey, String endKey, boolean reverse,
+                              String delimiter, long maxStalenessMillis, int partitionModulus)
             implements Message {
         public Opcode opcode() {
             return Opcode.LIST_CANDIES;
         }
 
+        /** A listing that expects the partition never to have been split. */
+        public ListCandiesRequest(String box, int partition, String prefix, String startAfter,
+                                  int maxKeys, String startKey, String endKey, boolean reverse,
+                                  String delimiter, long maxStalenessMillis) {
+            this(box, partition, prefix, startAfter, maxKeys, startKey, endKey, reverse, delimiter,
+                    maxStalenessMillis, 0);
+        }
+
+        /** A listing answered by the owner. */
+        public ListCandiesRequest(String box, int partition, String prefix, String startAfter,
+                                  int maxKeys, String startKey, String endKey, boolean reverse,
+                                  String delimiter) {
+            this(box, partition, prefix, startAfter, maxKeys, startKey, endKey, reverse, delimiter, 0);
+        }
+
         /** A plain forward prefix/startAfter listing of one partition. */
         public ListCandiesRequest(String box, int partition, String prefix, String startAfter,
                                   int maxKeys) {
             this(box, partition, prefix, startAfter, maxKeys, null, null, false);
         }
+
+        /** A listing without delimiter rollup. */
+        public ListCandiesRequest(String box, int partition, String prefix, String startAfter,
+                                  int maxKeys, String startKey, String endKey, boolean reverse) {
+            this(box, partition, prefix, startAfter, maxKeys, startKey, endKey, reverse, null);
+        }
     }
 
     // ---- ACLs --------------------------------------------------------------------------------
@@ -399,10 +500,25 @@ public sealed interface Message {
 
     // ---- Responses -------------------------------------------------------------------------
 
-    record OkResponse() implements Message {
+    /**
+     * Success. {@code features} is only set on the answer to a {@link PingRequest}: the bits of the
+     * optional protocol features the node supports, such as {@link #STREAMING}.
+     */
+    record OkResponse(int features) implements Message {
+        /** The node accepts streamed requests and answers with streamed bodies. */
+        public static final int STREAMING = 1;
+
         public Opcode opcode() {
             return Opcode.RESPONSE_OK;
         }
+
+        public OkResponse() {
+            this(0);
+        }
+
+        public boolean supports(int feature) {
+            return (features & feature) == feature;
+        }
     }
 
     record ErrorResponse(String errorType, String message) implements Message {
@@ -444,10 +560,31 @@ public sealed interface Message {
         }
     }
 
-    record ListCandiesResponse(List<ListedCandy> entries, String nextStartAfter) implements Message {
+    /**
+     * The header of a streamed GET: the whole Candy's metadata. Its {@code contentLength} bytes
+     * follow as a stream.
+     */
+    record CandyStreamResponse(long contentLength, String contentType,
+                               Map<String, String> userMetadata, int crc32c, long createdAtMillis)
+            implements Message {
+        public Opcode opcode() {
+            return Opcode.RESPONSE_CANDY_STREAM;
+        }
+    }
+
+    record ListCandiesResponse(List<ListedCandy> entries, List<String> commonPrefixes,
+                               String nextStartAfter) implements Message {
         public Opcode opcode() {
             return Opcode.RESPONSE_LIST;
         }
+
+        public ListCandiesResponse {
+            commonPrefixes = commonPrefixes == null ? List.of() : commonPrefixes;
+        }
+
+        public ListCandiesResponse(List<ListedCandy> entries, String nextStartAfter) {
+            this(entries, List.of(), nextStartAfter);
+        }
     }
 
     /** One row in a {@link ListCandiesResponse}. */
@@ -463,18 +600,35 @@ public sealed interface Message {
         }
     }
 
-    /** Tells the client which node owns the requested partition, so it can re-route. */
-    record MovedResponse(int ownerNodeId) implements Message {
+    /**
+     * Tells the client which node owns the requested partition, so it can re-route. With
+     * {@code routingChanged} the partition itself has split since the client's descriptor was read:
+     * the client re-reads the Box's info and re-routes from that (the owner may even be this node).
+     */
+    record MovedResponse(int ownerNodeId, boolean routingChanged) implements Message {
         public Opcode opcode() {
             return Opcode.RESPONSE_MOVED;
         }
+
+        /** The partition moved to another node; its routing is unchanged. */
+        public MovedResponse(int ownerNodeId) {
+            this(ownerNodeId, false);
+        }
     }
 
-    /** A Box's descriptor: its (creation-time-fixed) partition count. */
-    record BoxInfoResponse(int partitionCount) implements Message {
+    /**
+     * A Box's descriptor: its creation-time partition count, plus the split level of every partition
+     * that has split or was split off (absent = level {@code 0}).
+     */
+    record BoxInfoResponse(int partitionCount, Map<Integer, Integer> splitLevels) implements Message {
         public Opcode opcode() {
             return Opcode.RESPONSE_BOX_INFO;
         }
+
+        /** An unsplit Box's descriptor. */
+        public BoxInfoResponse(int partitionCount) {
+            this(partitionCount, Map.of());
+        }
     }
 
     record ListBoxesResponse(List<String> boxes) implements Message {
@@ -517,4 +671,27 @@ public sealed interface Message {
             return Opcode.RESPONSE_LIST_PARTS;
         }
     }
+
+    // ---- Stream frames ---------------------------------------------------------------------
+
+    /** One piece of a stream's body and the CRC32C of {@code data}, checked on arrival. */
+    record StreamChunk(int crc32c, byte[] data) implements Message {
+        public Opcode opcode() {
+            return Opcode.STREAM_CHUNK;
+        }
+    }
+
+    /** The receiver of a stream consumed {@code chunks} more chunks; the sender may send as many. */
+    record StreamAck(int chunks) implements Message {
+        public Opcode opcode() {
+            return Opcode.STREAM_ACK;
+        }
+    }
+
+    /** Ends a stream; {@code error} is null when the body is complete, else why it was cut short. */
+    record StreamEnd(String error) implements Message {
+        public Opcode opcode() {
+            return Opcode.STREAM_END;
+        }
+    }
 }
@@ -21,9 +21,9 @@ import java.util.List;
 import java.util.Map;
 import me.predatorray.candybox.common.Hlc;
 import me.predatorray.candybox.common.Part;
-import me.predatorray.candybox.common.SegmentRef;
 import me.predatorray.candybox.common.serial.BinaryReader;
 import me.predatorray.candybox.common.serial.BinaryWriter;
+import me.predatorray.candybox.common.serial.CandyLocatorSerializer;
 
 /**
  * Serializes {@link Message}s to and from {@link Frame} payloads. Each message body is a versioned
@@ -44,7 +44,8 @@ public final class MessageCodec {
         } else if (message instanceof Message.DeleteBoxRequest m) {
             w.writeString(m.box());
             w.writeBoolean(m.force());
-        } else if (message instanceof Message.ListBoxesRequest) {
+        } else if (message instanceof Message.ListBoxesRequest
+                || message instanceof Message.PingRequest) {
             // no body
         } else if (message instanceof Message.HeadBoxRequest m) {
             w.writeString(m.box());
@@ -59,12 +60,26 @@ public final class MessageCodec {
             writeStrings(w, m.grants());
         } else if (message instanceof Message.GetCandyRequest m) {
             writeBoxKey(w, m.box(), m.key());
+            w.writeVarLong(m.maxStalenessMillis());
+        } else if (message instanceof Message.PutCandyStreamRequest m) {
+            w.writeString(m.box());
+            w.writeString(m.key());
+            writeNullable(w, m.contentType());
+            writeMetadata(w, m.userMetadata());
+            writeNullable(w, m.idempotencyToken());
+            writeNullable(w, m.owner());
+            writeStrings(w, m.grants());
+        } else if (message instanceof Message.GetCandyStreamRequest m) {
+            writeBoxKey(w, m.box(), m.key());
+            w.writeVarLong(m.maxStalenessMillis());
         } else if (message instanceof Message.RangeGetCandyRequest m) {
             writeBoxKey(w, m.box(), m.key());
             w.writeLong(m.firstByte());
             w.writeLong(m.lastByte());
+            w.writeVarLong(m.maxStalenessMillis());
         } else if (message instanceof Message.HeadCandyRequest m) {
             writeBoxKey(w, m.box(), m.key());
+            w.writeVarLong(m.maxStalenessMillis());
         } else if (message instanceof Message.DeleteCandyRequest m) {
             writeBoxKey(w, m.box(), m.key());
         } else if (message instanceof Message.CopyCandyRequest m) {
@@ -120,6 +135,7 @@ public final class MessageCodec {
             writeNullable(w, m.prefix());
             writeNullable(w, m.startKey());
             writeNullable(w, m.endKey());
+            w.writeVarInt(m.partitionModulus());
         } else if (message instanceof Message.CreateMultipartUploadRequest m) {
             w.writeString(m.box());
             w.writeString(m.key());
@@ -131,6 +147,11 @@ public final class MessageCodec {
             w.writeString(m.uploadId());
             w.writeVarInt(m.partNumber());
             w.writeBytes(m.data() == null ? new byte[0] : m.data());
+        } else if (message instanceof Message.UploadPartStreamRequest m) {
+            w.writeString(m.box());
+            w.writeString(m.key());
+            w.writeString(m.uploadId());
+            w.writeVarInt(m.partNumber());
         } else if (message instanceof Message.CompleteMultipartUploadRequest m) {
             w.writeString(m.box());
             w.writeString(m.key());
@@ -154,6 +175,7 @@ public final class MessageCodec {
             writeNullable(w, m.keyMarker());
             writeNullable(w, m.uploadIdMarker());
             w.writeVarInt(m.maxUploads());
+            w.writeVarInt(m.partitionModulus());
         } else if (message instanceof Message.ListPartsRequest m) {
             w.writeString(m.box());
             w.writeString(m.key());
@@ -199,8 +221,11 @@ public final class MessageCodec {
             writeNullable(w, m.startKey());
             writeNullable(w, m.endKey());
             w.writeBoolean(m.reverse());
-        } else if (message instanceof Message.OkResponse) {
-            // no body
+            writeNullable(w, m.delimiter());
+            w.writeVarLong(m.maxStalenessMillis());
+            w.writeVarInt(m.partitionModulus());
+        } else if (message instanceof Message.OkResponse m) {
+            w.writeVarInt(m.features());
         } else if (message instanceof Message.ErrorResponse m) {
             w.writeString(m.errorType());
             w.writeString(m.message());
@@ -215,6 +240,19 @@ public final class MessageCodec {
             writeMetadata(w, m.userMetadata());
             w.writeInt(m.crc32c());
             w.writeBytes(m.data() == null ? new byte[0] : m.data());
+        } else if (message instanceof Message.CandyStreamResponse m) {
+            w.writeVarLong(m.contentLength());
+            writeNullable(w, m.contentType());
+            writeMetadata(w, m.userMetadata());
+            w.writeInt(m.crc32c());
+            w.writeVarLong(Math.max(0, m.createdAtMillis()));
+        } else if (message instanceof Message.StreamChunk m) {
+            w.writeInt(m.crc32c());
+            w.writeBytes(m.data());
+        } else if (message instanceof Message.StreamAck m) {
+            w.writeVarInt(m.chunks());
+        } else if (message instanceof Message.StreamEnd m) {
+            writeNullable(w, m.error());
         } else if (message instanceof Message.ListCandiesResponse m) {
             w.writeVarInt(m.entries().size());
             for (Message.ListedCandy e : m.entries()) {
@@ -223,6 +261,7 @@ public final class MessageCodec {
                 w.writeVarLong(Math.max(0, e.createdAtMillis()));
             }
             writeNullable(w, m.nextStartAfter());
+            writeStrings(w, m.commonPrefixes());
         } else if (message instanceof Message.HeadCandyResponse m) {
             w.writeVarLong(m.contentLength());
             writeNullable(w, m.contentType());
@@ -231,8 +270,14 @@ public final class MessageCodec {
             w.writeVarLong(Math.max(0, m.createdAtMillis()));
         } else if (message instanceof Message.MovedResponse m) {
             w.writeInt(m.ownerNodeId());
+            w.writeBoolean(m.routingChanged());
         } else if (message instanceof Message.BoxInfoResponse m) {
             w.writeVarInt(m.partitionCount());
+            w.writeVarInt(m.splitLevels().size());
+            for (Map.Entry<Integer, Integer> e : m.splitLevels().entrySet()) {
+                w.writeVarInt(e.getKey());
+                w.writeVarInt(e.getValue());
+            }
         } else if (message instanceof Message.ListBoxesResponse m) {
             w.writeVarInt(m.boxes().size());
             for (String box : m.boxes()) {
@@ -298,14 +343,23 @@ public final class MessageCodec {
             case BOX_INFO -> new Message.BoxInfoRequest(r.readString());
             case DELETE_BOX -> new Message.DeleteBoxRequest(r.readString(), r.readBoolean());
             case LIST_BOXES -> new Message.ListBoxesRequest();
+            case PING -> new Message.PingRequest();
             case HEAD_BOX -> new Message.HeadBoxRequest(r.readString());
             case PUT_CANDY -> new Message.PutCandyRequest(r.readString(), r.readString(),
                     readNullable(r), readMetadata(r), readNullable(r), r.readBytes(),
                     readNullable(r), readStrings(r));
-            case GET_CANDY -> new Message.GetCandyRequest(r.readString(), r.readString());
+            // Trailing staleness bounds: absent from clients that predate follower reads.
+            case GET_CANDY -> new Message.GetCandyRequest(r.readString(), r.readString(),
+                    readStaleness(r));
+            case PUT_CANDY_STREAM -> new Message.PutCandyStreamRequest(r.readString(),
+                    r.readString(), readNullable(r), readMetadata(r), readNullable(r), readNullable(r),
+                    readStrings(r));
+            case GET_CANDY_STREAM -> new Message.GetCandyStreamRequest(r.readString(),
+                    r.readString(), readStaleness(r));
             case RANGE_GET_CANDY -> new Message.RangeGetCandyRequest(r.readString(), r.readString(),
-                    r.readLong(), r.readLong());
-            case HEAD_CANDY -> new Message.HeadCandyRequest(r.readString(), r.readString());
+                    r.readLong(), r.readLong(), readStaleness(r));
+            case HEAD_CANDY -> new Message.HeadCandyRequest(r.readString(), r.readString(),
+                    readStaleness(r));
             case DELETE_CANDY -> new Message.DeleteCandyRequest(r.readString(), r.readString());
             case COPY_CANDY -> new Message.CopyCandyRequest(r.readString(), r.readString(),
                     r.readString(), readNullable(r), readNullable(r), readStrings(r));
@@ -325,19 +379,23 @@ public final class MessageCodec {
             case COMPLETE_RENAME -> new Message.CompleteRenameRequest(r.readString(), r.readString(),
                     r.readVarInt(), r.readString(), readNullableHlc(r));
             case DELETE_RANGE -> new Message.DeleteRangeRequest(r.readString(), r.readVarInt(),
-                    readNullable(r), readNullable(r), readNullable(r));
+                    readNullable(r), readNullable(r), readNullable(r), readModulus(r));
             case LIST_CANDIES -> new Message.ListCandiesRequest(r.readString(), r.readVarInt(),
                     readNullable(r), readNullable(r), r.readInt(), readNullable(r), readNullable(r),
-                    r.readBoolean());
+                    r.readBoolean(), r.hasRemaining() ? readNullable(r) : null, // older clients omit it
+                    readStaleness(r), readModulus(r));
             case CREATE_MULTIPART_UPLOAD -> new Message.CreateMultipartUploadRequest(r.readString(),
                     r.readString(), readNullable(r), readMetadata(r));
             case UPLOAD_PART -> new Message.UploadPartRequest(r.readString(), r.readString(),
                     r.readString(), r.readVarInt(), r.readBytes());
+            case UPLOAD_PART_STREAM -> new Message.UploadPartStreamRequest(r.readString(),
+                    r.readString(), r.readString(), r.readVarInt());
             case COMPLETE_MULTIPART_UPLOAD -> decodeCompleteMultipart(r);
             case ABORT_MULTIPART_UPLOAD -> new Message.AbortMultipartUploadRequest(r.readString(),
                     r.readString(), r.readString());
             case LIST_MULTIPART_UPLOADS -> new Message.ListMultipartUploadsRequest(r.readString(),
-                    r.readVarInt(), readNullable(r), readNullable(r), readNullable(r), r.readVarInt());
+                    r.readVarInt(), readNullable(r), readNullable(r), readNullable(r), r.readVarInt(),
+                    readModulus(r));
             case LIST_PARTS -> new Message.ListPartsRequest(r.readString(), r.readString(),
                     r.readString(), r.readVarInt(), r.readVarInt());
             case UPLOAD_PART_COPY -> new Message.UploadPartCopyRequest(r.readString(), r.readString(),
@@ -346,17 +404,21 @@ public final class MessageCodec {
             case RESPONSE_UPLOAD_PART -> new Message.UploadPartResponse(r.readInt(), r.readVarLong());
             case RESPONSE_LIST_MULTIPART_UPLOADS -> decodeListMultipart(r);
             case RESPONSE_LIST_PARTS -> decodeListParts(r);
-            case RESPONSE_OK -> new Message.OkResponse();
+            // Trailing field: absent from nodes that predate feature negotiation.
+            case RESPONSE_OK -> new Message.OkResponse(r.hasRemaining() ? r.readVarInt() : 0);
             case RESPONSE_ERROR -> new Message.ErrorResponse(r.readString(), r.readString());
             case RESPONSE_BUSY -> new Message.BusyResponse(r.readVarLong());
             case RESPONSE_NOT_FOUND -> new Message.NotFoundResponse();
             case RESPONSE_CANDY_DATA -> new Message.CandyDataResponse(r.readVarLong(), r.readVarLong(),
                     readNullable(r), readMetadata(r), r.readInt(), r.readBytes());
+            case RESPONSE_CANDY_STREAM -> new Message.CandyStreamResponse(r.readVarLong(),
+                    readNullable(r), readMetadata(r), r.readInt(), r.readVarLong());
             case RESPONSE_LIST -> decodeList(r);
             case RESPONSE_HEAD -> new Message.HeadCandyResponse(r.readVarLong(), readNullable(r),
                     readMetadata(r), r.readInt(), r.readVarLong());
-            case RESPONSE_MOVED -> new Message.MovedResponse(r.readInt());
-            case RESPONSE_BOX_INFO -> new Message.BoxInfoResponse(r.readVarInt());
+            case RESPONSE_MOVED -> new Message.MovedResponse(r.readInt(),
+                    r.hasRemaining() && r.readBoolean());
+            case RESPONSE_BOX_INFO -> decodeBoxInfo(r);
             case RESPONSE_BOX_LIST -> decodeBoxList(r);
             case GET_BOX_ACL -> new Message.GetBoxAclRequest(r.readString());
             case SET_BOX_ACL -> {
@@ -383,6 +445,9 @@ public final class MessageCodec {
             case RESPONSE_SASL_AUTHENTICATE ->
                     new Message.SaslAuthenticateResponse(r.readBoolean(), r.readBytes());
             case RESPONSE_AUTH_FAILED -> new Message.AuthFailedResponse(r.readString());
+            case STREAM_CHUNK -> new Message.StreamChunk(r.readInt(), r.readBytes());
+            case STREAM_ACK -> new Message.StreamAck(r.readVarInt());
+            case STREAM_END -> new Message.StreamEnd(readNullable(r));
         };
     }
 
@@ -458,23 +523,18 @@ public final class MessageCodec {
         for (int i = 0; i < count; i++) {
             entries.add(new Message.ListedCandy(r.readString(), r.readVarLong(), r.readVarLong()));
         }
-        return new Message.ListCandiesResponse(entries, readNullable(r));
+        String next = readNullable(r);
+        // Trailing field: absent from nodes that predate delimiter rollup.
+        List<String> commonPrefixes = r.hasRemaining() ? readStrings(r) : List.of();
+        return new Message.ListCandiesResponse(entries, commonPrefixes, next);
     }
 
+    /** Parts travel in the locator's Part record encoding, inline payloads included. */
     private static void writeParts(BinaryWriter w, List<Part> parts) {
         List<Part> list = parts == null ? List.of() : parts;
         w.writeVarInt(list.size());
         for (Part p : list) {
-            w.writeVarLong(p.partLength());
-            w.writeVarInt(p.chunkSize());
-            w.writeInt(p.crc32c());
-            List<SegmentRef> segs = p.segments();
-            w.writeVarInt(segs.size());
-            for (SegmentRef s : segs) {
-                w.writeVarLong(s.syrupId());
-                w.writeVarLong(s.firstEntryId());
-                w.writeVarLong(s.lastEntryId());
-            }
+            CandyLocatorSerializer.writePart(w, p);
         }
     }
 
@@ -482,15 +542,7 @@ public final class MessageCodec {
         int partCount = r.readVarInt();
         List<Part> parts = new ArrayList<>(partCount);
         for (int i = 0; i < partCount; i++) {
-            long partLength = r.readVarLong();
-            int chunkSize = r.readVarInt();
-            int crc32c = r.readInt();
-            int segCount = r.readVarInt();
-            List<SegmentRef> segments = new ArrayList<>(segCount);
-            for (int j = 0; j < segCount; j++) {
-                segments.add(new SegmentRef(r.readVarLong(), r.readVarLong(), r.readVarLong()));
-            }
-            parts.add(new Part(partLength, chunkSize, crc32c, segments));
+            parts.add(CandyLocatorSerializer.readPart(r));
         }
         return parts;
     }
@@ -536,6 +588,28 @@ public final class MessageCodec {
         return r.readBoolean() ? r.readString() : null;
     }
 
+    private static long readStaleness(BinaryReader r) {
+        return r.hasRemaining() ? r.readVarLong() : 0;
+    }
+
+    /** Trailing field: clients that predate partition splits send no modulus (unchecked). */
+    private static int readModulus(BinaryReader r) {
+        return r.hasRemaining() ? r.readVarInt() : 0;
+    }
+
+    private static Message.BoxInfoResponse decodeBoxInfo(BinaryReader r) {
+        int partitionCount = r.readVarInt();
+        if (!r.hasRemaining()) {
+            return new Message.BoxInfoResponse(partitionCount); // a node that predates splits
+        }
+        int n = r.readVarInt();
+        Map<Integer, Integer> splitLevels = new LinkedHashMap<>();
+        for (int i = 0; i < n; i++) {
+            splitLevels.put(r.readVarInt(), r.readVarInt());
+        }
+        return new Message.BoxInfoResponse(partitionCount, splitLevels);
+    }
+
     private static void writeMetadata(BinaryWriter w, Map<String, String> metadata) {
         Map<String, String> md = metadata == null ? Map.of() : metadata;
         w.writeVarInt(md.size());
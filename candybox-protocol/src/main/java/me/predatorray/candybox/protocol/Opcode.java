@@ -24,6 +24,12 @@ public enum Opcode {
     DELETE_BOX(2),
     LIST_BOXES(3),
     HEAD_BOX(4),
+    /**
+     * Answered with {@link #RESPONSE_OK} by the transport itself, before authentication. A client
+     * sends it correlated (version 2) on a new connection to learn whether the node multiplexes, and
+     * from the answer's features whether it accepts streamed bodies.
+     */
+    PING(5),
 
     PUT_CANDY(10),
     GET_CANDY(11),
@@ -62,6 +68,22 @@ public enum Opcode {
     /** One step of the SASL exchange: an opaque, mechanism-defined client token. */
     SASL_AUTHENTICATE(51),
 
+    /** A PUT whose bytes follow as a stream (see {@link #opensStream()}) rather than inline. */
+    PUT_CANDY_STREAM(60),
+    /** A GET answered with {@link #RESPONSE_CANDY_STREAM} and the bytes as a stream. */
+    GET_CANDY_STREAM(61),
+    /** An UploadPart whose bytes follow as a stream rather than inline. */
+    UPLOAD_PART_STREAM(62),
+    /** One piece of a stream's body, checksummed on its own. */
+    STREAM_CHUNK(63),
+    /** Flow control: the receiver has consumed this many chunks and takes as many more. */
+    STREAM_ACK(64),
+    /**
+     * Ends a stream: cleanly when empty, otherwise aborted with the reason. From the receiver of a
+     * response body it cancels the rest.
+     */
+    STREAM_END(65),
+
     RESPONSE_OK(20),
     RESPONSE_ERROR(21),
     RESPONSE_BUSY(22),
@@ -90,7 +112,9 @@ public enum Opcode {
     RESPONSE_BOX_ACL(56),
     RESPONSE_CANDY_ACL(57),
     /** A resolved {@code CandyLocator}'s parts + metadata, for a cross-partition zero-copy relay. */
-    RESPONSE_CANDY_LOCATOR(58);
+    RESPONSE_CANDY_LOCATOR(58),
+    /** A Candy's metadata, followed by its bytes as a stream. */
+    RESPONSE_CANDY_STREAM(66);
 
     private final int code;
 
@@ -102,6 +126,27 @@ public enum Opcode {
         return code;
     }
 
+    /**
+     * Whether a frame with this opcode is followed by a body: {@link #STREAM_CHUNK} frames under
+     * the same request id, closed by a {@link #STREAM_END}. Streams need correlated framing.
+     */
+    public boolean opensStream() {
+        return this == PUT_CANDY_STREAM || this == UPLOAD_PART_STREAM || this == RESPONSE_CANDY_STREAM;
+    }
+
+    /**
+     * Whether a request with this opcode moves a streamed body in either direction, and so keeps
+     * exchanging frames with its connection while it is handled.
+     */
+    public boolean isStreamingRequest() {
+        return this == PUT_CANDY_STREAM || this == UPLOAD_PART_STREAM || this == GET_CANDY_STREAM;
+    }
+
+    /** Whether this opcode carries a stream's body or flow control rather than a request/response. */
+    public boolean isStreamControl() {
+        return this == STREAM_CHUNK || this == STREAM_ACK || this == STREAM_END;
+    }
+
     public static Opcode fromCode(int code) {
         for (Opcode op : values()) {
             if (op.code == code) {
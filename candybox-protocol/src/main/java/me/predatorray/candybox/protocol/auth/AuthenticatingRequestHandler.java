@@ -26,6 +26,7 @@ import me.predatorray.candybox.protocol.Message;
 import me.predatorray.candybox.protocol.MessageCodec;
 import me.predatorray.candybox.protocol.Opcode;
 import me.predatorray.candybox.protocol.transport.ConnectionContext;
+import me.predatorray.candybox.protocol.transport.Exchange;
 import me.predatorray.candybox.protocol.transport.RequestHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -75,6 +76,12 @@ public final class AuthenticatingRequestHandler implements RequestHandler {
 
     @Override
     public Frame handle(ConnectionContext context, Frame request) {
+        return handle(context, request, Exchange.NONE);
+    }
+
+    /** Gates streamed requests like any other: an unauthenticated one never sees its body. */
+    @Override
+    public Frame handle(ConnectionContext context, Frame request, Exchange exchange) {
         Opcode opcode = request.opcode();
         if (opcode == Opcode.SASL_HANDSHAKE) {
             return handshake(context, request);
@@ -86,7 +93,7 @@ public final class AuthenticatingRequestHandler implements RequestHandler {
             return authFailed("Not authenticated: this server requires SASL authentication "
                     + "(mechanisms: " + List.copyOf(mechanisms.keySet()) + ")");
         }
-        return delegate.handle(context, request);
+        return delegate.handle(context, request, exchange);
     }
 
     private Frame handshake(ConnectionContext context, Frame request) {
@@ -15,7 +15,11 @@
  */
 package me.predatorray.candybox.protocol.transport;
 
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.function.Function;
 import me.predatorray.candybox.protocol.Frame;
+import me.predatorray.candybox.protocol.Opcode;
 
 /** A client-side connection that performs synchronous request/response RPCs. */
 public interface Connection extends AutoCloseable {
@@ -28,6 +32,37 @@ public interface Connection extends AutoCloseable {
      */
     Frame call(Frame request);
 
+    /** Whether this connection carries streamed bodies ({@link #upload}, {@link #download}). */
+    default boolean supportsStreaming() {
+        return false;
+    }
+
+    /**
+     * Sends a request that {@linkplain Opcode#opensStream() opens a stream}, then its body from
+     * {@code body} in chunks as the node takes them, and returns the response (blocking). Nothing
+     * is read from {@code body} if the node answers before asking for it — a redirect, a denial — so
+     * the caller may still send it elsewhere. A body that cannot be read fails the call with a
+     * {@code StorageException}, leaving the connection usable.
+     *
+     * @throws UnsupportedOperationException if this connection does not stream
+     */
+    default Frame upload(Frame request, InputStream body) {
+        throw new UnsupportedOperationException("This connection does not stream");
+    }
+
+    /**
+     * Sends a request that may be answered with a streamed body, and returns the response header
+     * (blocking). When the header opens a stream, its body has been written to the stream
+     * {@code body} returns for that header by the time this returns. A body cut short — aborted by
+     * the node, failing its checksum, or not accepted by the caller's stream — fails the call with
+     * a {@code StorageException}, leaving the connection usable.
+     *
+     * @throws UnsupportedOperationException if this connection does not stream
+     */
+    default Frame download(Frame request, Function<Frame, OutputStream> body) {
+        throw new UnsupportedOperationException("This connection does not stream");
+    }
+
     @Override
     void close();
 }
@@ -23,8 +23,8 @@ import me.predatorray.candybox.common.auth.Principal;
  * call on that connection. Holds the authenticated {@link Principal} (null until the SASL exchange
  * completes) and the in-progress SASL authenticator owned by the authenticating handler.
  *
- * <p>Each connection is served by a single thread, but the fields are volatile so a handler chain
- * crossing threads still observes the authenticated state.
+ * <p>Requests on a multiplexed connection are handled on several threads at once, so the fields are
+ * volatile: a request handled after the SASL exchange completes observes the authenticated state.
  */
 public final class ConnectionContext {
 
@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.predatorray.candybox.protocol.transport;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import me.predatorray.candybox.protocol.Frame;
+import me.predatorray.candybox.protocol.Opcode;
+import me.predatorray.candybox.protocol.ProtocolException;
+
+/**
+ * The streamed side of one request, for a handler that moves an object's bytes without holding
+ * them: the request's body as it arrives, and a way to answer with a body of its own. Only a
+ * correlated request on a connection that streams has either (see {@link Opcode#opensStream()}).
+ */
+public interface Exchange {
+
+    /** The exchange of a request that neither carries nor may answer with a stream. */
+    Exchange NONE = new Exchange() {
+        @Override
+        public InputStream requestBody() {
+            throw new ProtocolException("This request has no streamed body");
+        }
+
+        @Override
+        public OutputStream respondWithBody(Frame header) {
+            throw new ProtocolException("Streamed responses need a multiplexed connection");
+        }
+    };
+
+    /**
+     * The request's body. The peer sends nothing until the handler first reads, so a request
+     * answered without reading (a redirect, a denial) costs no transfer; bytes that fail their
+     * chunk checksum, or a body the peer aborts, fail the read.
+     */
+    InputStream requestBody();
+
+    /**
+     * Sends {@code header} (an opcode that {@linkplain Opcode#opensStream() opens a stream}) and
+     * returns the stream its body is written to; closing it ends the body. Writes block while the
+     * peer is behind. A handler that calls this returns {@code null}; a frame it returns instead,
+     * such as an error after a failed read, aborts the body.
+     */
+    OutputStream respondWithBody(Frame header);
+}
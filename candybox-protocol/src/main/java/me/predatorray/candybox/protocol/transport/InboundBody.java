@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.predatorray.candybox.protocol.transport;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import me.predatorray.candybox.common.checksum.Crc32c;
+import me.predatorray.candybox.protocol.Frame;
+import me.predatorray.candybox.protocol.Message;
+import me.predatorray.candybox.protocol.MessageCodec;
+
+/**
+ * The receiving end of a stream's body. The connection's reader {@link #offer}s chunks as they
+ * arrive — never more than the window the sender was given, so the reader never waits on the
+ * consumer — and the consumer reads them, checking each chunk's CRC32C and handing the sender a
+ * credit for every chunk it takes.
+ */
+final class InboundBody extends InputStream {
+
+    private static final byte[] NONE = new byte[0];
+
+    private final int requestId;
+    private final StreamSession.FrameSink sink;
+    private final int initialCredits;
+    private final MessageCodec codec = new MessageCodec();
+    private final ArrayDeque<Frame> chunks = new ArrayDeque<>();
+    private byte[] current = NONE;
+    private int position;
+    private boolean started;
+    private boolean ended;
+    private boolean closed;
+    private IOException failure;
+
+    /**
+     * @param initialCredits credits granted on the first read (a request body's window); 0 when
+     *                       the sender starts with its window
+     */
+    InboundBody(int requestId, StreamSession.FrameSink sink, int initialCredits) {
+        this.requestId = requestId;
+        this.sink = sink;
+        this.initialCredits = initialCredits;
+    }
+
+    /** Queues a chunk; a sender that overruns its window fails the body. */
+    synchronized void offer(Frame chunk) {
+        if (ended || failure != null) {
+            return;
+        }
+        if (chunks.size() >= StreamSession.WINDOW) {
+            failure = new IOException("Stream " + requestId + " overran its flow-control window");
+        } else {
+            chunks.add(chunk);
+        }
+        notifyAll();
+    }
+
+    /** The sender finished the body, or aborted it with {@code error}. */
+    synchronized void end(String error) {
+        if (!ended) {
+            ended = true;
+            if (error != null && failure == null) {
+                failure = new IOException("Stream aborted by peer: " + error);
+            }
+            notifyAll();
+        }
+    }
+
+    synchronized void fail(IOException cause) {
+        if (failure == null) {
+            failure = cause;
+        }
+        notifyAll();
+    }
+
+    synchronized boolean isEnded() {
+        return ended;
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] one = new byte[1];
+        return read(one, 0, 1) < 0 ? -1 : one[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (position == current.length && !nextChunk()) {
+            return -1;
+        }
+        int n = Math.min(len, current.length - position);
+        System.arraycopy(current, position, b, off, n);
+        position += n;
+        return n;
+    }
+
+    @Override
+    public int available() {
+        return current.length - position;
+    }
+
+    /** Takes the next chunk, waiting for it; false at the end of the body. */
+    private boolean nextChunk() throws IOException {
+        int grant = 0;
+        Frame frame;
+        synchronized (this) {
+            if (!started) {
+                started = true;
+                grant = initialCredits;
+            }
+        }
+        if (grant > 0) {
+            send(new Message.StreamAck(grant));
+        }
+        boolean more;
+        synchronized (this) {
+            while (chunks.isEmpty() && failure == null && !ended && !closed) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted reading stream " + requestId);
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+            frame = chunks.poll();
+            if (frame == null) {
+                return false;
+            }
+            more = !ended;
+        }
+        if (more) {
+            send(new Message.StreamAck(1));
+        }
+        Message.StreamChunk chunk = (Message.StreamChunk) codec.decode(frame);
+        if (Crc32c.of(chunk.data()) != chunk.crc32c()) {
+            IOException corrupt = new IOException("Stream " + requestId
+                    + " chunk failed its CRC32C check");
+            fail(corrupt);
+            throw corrupt;
+        }
+        current = chunk.data();
+        position = 0;
+        return true;
+    }
+
+    /** Stops reading; a body the sender has not finished is cancelled. */
+    @Override
+    public void close() throws IOException {
+        boolean cancel;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            cancel = !ended && failure == null;
+            chunks.clear();
+            notifyAll();
+        }
+        current = NONE;
+        position = 0;
+        if (cancel) {
+            send(new Message.StreamEnd("cancelled"));
+        }
+    }
+
+    private void send(Message message) throws IOException {
+        sink.send(codec.encode(message).withRequestId(requestId));
+    }
+}
@@ -17,14 +17,20 @@ package me.predatorray.candybox.protocol.transport;
 
 import me.predatorray.candybox.protocol.Frame;
 import me.predatorray.candybox.protocol.FrameCodec;
+import me.predatorray.candybox.protocol.Message;
+import me.predatorray.candybox.protocol.MessageCodec;
+import me.predatorray.candybox.protocol.Opcode;
 
 /**
  * An in-JVM {@link Transport} that delivers requests straight to a {@link RequestHandler} with no
  * sockets. Requests and responses are still round-tripped through {@link FrameCodec} so tests
- * exercise the real wire encoding (including the max-frame cap) without networking.
+ * exercise the real wire encoding (including the max-frame cap) without networking. Like the TCP
+ * server, it answers {@link Opcode#PING} itself and echoes a correlated request's id.
  */
 public final class LoopbackTransport implements Transport {
 
+    private static final Frame PONG = new MessageCodec().encode(new Message.OkResponse());
+
     private final RequestHandler handler;
     private final FrameCodec codec;
 
@@ -54,8 +60,10 @@ public final class LoopbackTransport implements Transport {
         @Override
         public Frame call(Frame request) {
             Frame onWire = codec.decode(codec.encode(request)); // exercise the codec
-            Frame response = handler.handle(context, onWire);
-            return codec.decode(codec.encode(response));
+            Frame response = onWire.opcode() == Opcode.PING
+                    ? PONG
+                    : handler.handle(context, onWire);
+            return codec.decode(codec.encode(response.withRequestId(onWire.requestId())));
         }
 
         @Override
@@ -0,0 +1,621 @@
+/*
+ * Copyright (c) 2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.predatorray.candybox.protocol.transport;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLEngineResult;
+import javax.net.ssl.SSLException;
+import me.predatorray.candybox.protocol.Frame;
+import me.predatorray.candybox.protocol.FrameCodec;
+import me.predatorray.candybox.protocol.Message;
+import me.predatorray.candybox.protocol.MessageCodec;
+import me.predatorray.candybox.protocol.Opcode;
+import me.predatorray.candybox.protocol.ProtocolException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A non-blocking TCP {@link TransportServer}: one selector thread accepts connections, reads and
+ * decodes frames and writes responses for all of them, and hands each request to a fixed pool of
+ * {@code workerThreads}. An idle connection costs a few buffers rather than a thread, so a node can
+ * hold many thousands of client connections open. With an {@link SSLContext} each connection speaks
+ * TLS through its own {@link SSLEngine}, optionally demanding a client certificate (mTLS).
+ *
+ * <p>The wire behaviour matches {@link TcpTransportServer}: uncorrelated (version 1) requests of a
+ * connection are handled one at a time and answered in order; correlated (version 2) requests run
+ * concurrently, at most {@code maxInFlightPerConnection} per connection, beyond which the loop stops
+ * reading that connection (TCP backpressure); {@link Opcode#PING} is answered on the loop; and at
+ * most {@code maxInFlight} requests run node-wide, further ones being answered
+ * {@code RESPONSE_BUSY}. A handler failure closes its connection. A correlated request may stream
+ * its body in or out ({@link Exchange}): the loop routes the stream's chunks and credits while a
+ * worker runs its handler, and as in {@link TcpTransportServer} such a request is not held to
+ * {@code maxInFlightPerConnection}. A worker sending a body blocks on the receiver's credits, so
+ * no connection queues more than a few chunks per stream for the loop to write.
+ */
+public final class NioTransportServer implements TransportServer {
+
+    private static final Logger LOG = LoggerFactory.getLogger(NioTransportServer.class);
+
+    /** The default size of the worker pool that runs the request handler. */
+    public static final int DEFAULT_WORKER_THREADS = 64;
+
+    private static final Frame PONG = new MessageCodec().encode(
+            new Message.OkResponse(Message.OkResponse.STREAMING));
+    private static final int READ_CHUNK = 8192;
+
+    private final ServerSocketChannel listener;
+    private final Selector selector;
+    private final Thread eventLoop;
+    private final ExecutorService workers;
+    private final Queue<Runnable> loopTasks = new ConcurrentLinkedQueue<>();
+    private final FrameCodec codec;
+    private final RequestHandler handler;
+    private final SSLContext sslContext;
+    private final boolean needClientAuth;
+    private final int maxInFlightPerConnection;
+    private final RequestAdmission admission;
+    private volatile boolean running = true;
+
+    /** A plaintext listener with the default limits. */
+    public NioTransportServer(int port, RequestHandler handler, FrameCodec codec) {
+        this(port, handler, codec, null, false, DEFAULT_WORKER_THREADS,
+                TcpTransportServer.DEFAULT_MAX_IN_FLIGHT_PER_CONNECTION,
+                TcpTransportServer.DEFAULT_MAX_IN_FLIGHT);
+    }
+
+    /**
+     * @param sslContext               the server TLS context (key material loaded), or null for
+     *                                 plaintext
+     * @param needClientAuth           require a client certificate (mTLS); only meaningful with TLS
+     * @param workerThreads            how many threads run the request handler
+     * @param maxInFlightPerConnection how many correlated requests of one connection may be handled
+     *                                 at once
+     * @param maxInFlight              how many requests of all connections may be handled at once
+     *                                 before further ones are answered busy
+     */
+    public NioTransportServer(int port, RequestHandler handler, FrameCodec codec,
+                              SSLContext sslContext, boolean needClientAuth, int workerThreads,
+                              int maxInFlightPerConnection, int maxInFlight) {
+        if (workerThreads < 1) {
+            throw new IllegalArgumentException("workerThreads must be positive");
+        }
+        if (maxInFlightPerConnection < 1) {
+            throw new IllegalArgumentException("maxInFlightPerConnection must be positive");
+        }
+        this.handler = handler;
+        this.codec = codec;
+        this.sslContext = sslContext;
+        this.needClientAuth = needClientAuth;
+        this.maxInFlightPerConnection = maxInFlightPerConnection;
+        this.admission = new RequestAdmission(maxInFlight);
+        try {
+            this.selector = Selector.open();
+            this.listener = ServerSocketChannel.open();
+            listener.bind(new InetSocketAddress(port));
+            listener.configureBlocking(false);
+            listener.register(selector, SelectionKey.OP_ACCEPT);
+        } catch (IOException e) {
+            throw new ProtocolException("Failed to bind server socket on port " + port, e);
+        }
+        AtomicInteger ids = new AtomicInteger();
+        // Admission bounds the queued work, so the queue itself can stay unbounded.
+        this.workers = Executors.newFixedThreadPool(workerThreads,
+                r -> namedDaemon(r, "candybox-worker-" + ids.incrementAndGet()));
+        this.eventLoop = namedDaemon(this::runLoop, "candybox-nio");
+        eventLoop.start();
+    }
+
+    @Override
+    public int port() {
+        return listener.socket().getLocalPort();
+    }
+
+    private void runLoop() {
+        try {
+            while (running) {
+                selector.select();
+                for (Runnable task; (task = loopTasks.poll()) != null; ) {
+                    task.run();
+                }
+                for (SelectionKey key : selector.selectedKeys()) {
+                    if (key.isValid() && key.isAcceptable()) {
+                        accept();
+                    } else if (key.isValid()) {
+                        ((Conn) key.attachment()).onReady(key);
+                    }
+                }
+                selector.selectedKeys().clear();
+            }
+        } catch (IOException | ClosedSelectorException e) {
+            if (running) {
+                LOG.warn("Event loop error", e);
+            }
+        } finally {
+            for (SelectionKey key : selector.keys()) {
+                if (key.attachment() instanceof Conn conn) {
+                    conn.close();
+                }
+            }
+            closeQuietly();
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel;
+        while ((channel = listener.accept()) != null) {
+            try {
+                channel.configureBlocking(false);
+                Wire wire = sslContext == null ? new PlainWire(channel) : new TlsWire(channel,
+                        serverEngine());
+                Conn conn = new Conn(channel, wire);
+                conn.key = channel.register(selector, SelectionKey.OP_READ, conn);
+            } catch (IOException | RuntimeException e) {
+                LOG.debug("Dropping connection that failed to set up", e);
+                channel.close();
+            }
+        }
+    }
+
+    private SSLEngine serverEngine() throws IOException {
+        SSLEngine engine = sslContext.createSSLEngine();
+        engine.setUseClientMode(false);
+        engine.setNeedClientAuth(needClientAuth);
+        engine.beginHandshake();
+        return engine;
+    }
+
+    /** Runs {@code task} on the event loop (the only thread that touches connection state). */
+    private void onLoop(Runnable task) {
+        loopTasks.add(task);
+        selector.wakeup();
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        selector.wakeup();
+        workers.shutdownNow();
+        try {
+            eventLoop.join(5_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (eventLoop.isAlive()) {
+            closeQuietly();
+        }
+    }
+
+    private void closeQuietly() {
+        try {
+            listener.close();
+            selector.close();
+        } catch (IOException e) {
+            LOG.debug("Error closing server socket", e);
+        }
+    }
+
+    private static Thread namedDaemon(Runnable r, String name) {
+        Thread t = new Thread(r, name);
+        t.setDaemon(true);
+        return t;
+    }
+
+    /** One accepted connection; every method runs on the event loop. */
+    private final class Conn {
+        private final SocketChannel channel;
+        private final Wire wire;
+        private final ConnectionContext context = new ConnectionContext();
+        private final StreamSession streams = new StreamSession(this::send);
+        private final ArrayDeque<ByteBuffer> out = new ArrayDeque<>();
+        private ByteBuffer in = ByteBuffer.allocate(READ_CHUNK);
+        private SelectionKey key;
+        private int inFlight;
+        private boolean awaitingInline;
+        private boolean closed;
+
+        Conn(SocketChannel channel, Wire wire) {
+            this.channel = channel;
+            this.wire = wire;
+        }
+
+        void onReady(SelectionKey ready) {
+            try {
+                if (ready.isReadable()) {
+                    read();
+                }
+                if (!closed && ready.isValid() && ready.isWritable()) {
+                    flush();
+                }
+            } catch (IOException | RuntimeException e) {
+                LOG.debug("Closing connection", e);
+                close();
+            }
+        }
+
+        /** Reads and dispatches until the socket runs dry or this connection must stop reading. */
+        private void read() throws IOException {
+            while (dispatchBuffered()) {
+                ensureReadSpace();
+                int n = wire.read(in);
+                if (n < 0) {
+                    close();
+                    return;
+                }
+                if (n == 0) {
+                    break;
+                }
+            }
+            flush();
+        }
+
+        /** Dispatches every whole buffered frame it may; true if it can take more input. */
+        private boolean dispatchBuffered() {
+            in.flip();
+            try {
+                while (accepting()) {
+                    Frame request = codec.decode(in);
+                    if (request == null) {
+                        return true;
+                    }
+                    dispatch(request);
+                }
+                return false;
+            } finally {
+                in.compact();
+            }
+        }
+
+        private boolean accepting() {
+            return !closed && !awaitingInline && inFlight < maxInFlightPerConnection;
+        }
+
+        private void dispatch(Frame request) {
+            if (request.opcode().isStreamControl()) {
+                streams.route(request);
+                return;
+            }
+            if (request.opcode() == Opcode.PING) {
+                enqueue(codec.encode(PONG.withRequestId(request.requestId())));
+                return;
+            }
+            if (!admission.tryAdmit()) {
+                enqueue(codec.encode(RequestAdmission.busy(request)));
+                return;
+            }
+            boolean limited = isLimited(request);
+            if (limited) {
+                inFlight++;
+            } else if (!request.isCorrelated()) {
+                awaitingInline = true;
+            }
+            Exchange exchange = request.isCorrelated()
+                    ? new ServerExchange(streams, request)
+                    : Exchange.NONE;
+            try {
+                workers.execute(() -> handle(request, exchange));
+            } catch (RejectedExecutionException shuttingDown) {
+                admission.release();
+                close();
+            }
+        }
+
+        /** Whether {@code request} counts against the connection's in-flight limit. */
+        private boolean isLimited(Frame request) {
+            return request.isCorrelated() && !request.opcode().isStreamingRequest();
+        }
+
+        /** Runs on a worker: handles one request and hands its response (or body) to the loop. */
+        private void handle(Frame request, Exchange exchange) {
+            boolean failed = true;
+            try {
+                Frame response = handler.handle(context, request, exchange);
+                if (exchange instanceof ServerExchange streamed) {
+                    streamed.complete(response);
+                } else {
+                    send(response.withRequestId(request.requestId()));
+                }
+                failed = false;
+            } catch (IOException | RuntimeException e) {
+                LOG.debug("Closing connection after failed request", e);
+            } finally {
+                admission.release();
+            }
+            boolean closeAfter = failed;
+            onLoop(() -> complete(request, closeAfter));
+        }
+
+        /** Queues a frame for the loop to write; callable from any thread. */
+        private void send(Frame frame) {
+            byte[] encoded = codec.encode(frame);
+            onLoop(() -> {
+                if (closed) {
+                    return;
+                }
+                out.add(ByteBuffer.wrap(encoded));
+                try {
+                    flush();
+                } catch (IOException | RuntimeException e) {
+                    LOG.debug("Closing connection", e);
+                    close();
+                }
+            });
+        }
+
+        private void complete(Frame request, boolean failed) {
+            if (isLimited(request)) {
+                inFlight--;
+            } else if (!request.isCorrelated()) {
+                awaitingInline = false;
+            }
+            if (closed) {
+                return;
+            }
+            if (failed) {
+                close();
+                return;
+            }
+            try {
+                read(); // resume a connection that stopped reading at its limit
+            } catch (IOException | RuntimeException e) {
+                LOG.debug("Closing connection", e);
+                close();
+            }
+        }
+
+        private void enqueue(byte[] response) {
+            out.add(ByteBuffer.wrap(response));
+        }
+
+        private void flush() throws IOException {
+            if (closed) {
+                return;
+            }
+            boolean drained = wire.write(out);
+            int ops = (accepting() ? SelectionKey.OP_READ : 0)
+                    | (drained ? 0 : SelectionKey.OP_WRITE);
+            key.interestOps(ops);
+        }
+
+        /** Makes room for one more read, growing only as far as the frame being assembled needs. */
+        private void ensureReadSpace() {
+            int need = wire.minReadSpace();
+            if (in.remaining() >= need) {
+                return;
+            }
+            int capacity = Math.max(in.capacity() * 2, in.position() + need);
+            in = ByteBuffer.allocate(capacity).put(in.flip());
+        }
+
+        void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            streams.closeAll(new IOException("Connection closed"));
+            wire.closeOutbound();
+            if (key != null) {
+                key.cancel();
+            }
+            try {
+                channel.close();
+            } catch (IOException e) {
+                LOG.debug("Error closing connection", e);
+            }
+        }
+    }
+
+    /** How a connection's bytes cross the socket: as they are, or through TLS. */
+    private interface Wire {
+
+        /** Appends what can be read now to {@code dst}; 0 if nothing, -1 once the peer has closed. */
+        int read(ByteBuffer dst) throws IOException;
+
+        /** Writes from the head of {@code queue}, dropping finished buffers; true once all is sent. */
+        boolean write(ArrayDeque<ByteBuffer> queue) throws IOException;
+
+        /** The free space {@link #read} needs in its destination. */
+        int minReadSpace();
+
+        /** Best effort to tell the peer this side is closing. */
+        void closeOutbound();
+    }
+
+    private static final class PlainWire implements Wire {
+        private final SocketChannel channel;
+
+        PlainWire(SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            return channel.read(dst);
+        }
+
+        @Override
+        public boolean write(ArrayDeque<ByteBuffer> queue) throws IOException {
+            if (queue.isEmpty()) {
+                return true;
+            }
+            channel.write(queue.toArray(new ByteBuffer[0]));
+            while (!queue.isEmpty() && !queue.peek().hasRemaining()) {
+                queue.poll();
+            }
+            return queue.isEmpty(); // if not, the socket buffer is full; wait for OP_WRITE
+        }
+
+        @Override
+        public int minReadSpace() {
+            return READ_CHUNK;
+        }
+
+        @Override
+        public void closeOutbound() {
+            // nothing to say at this layer
+        }
+    }
+
+    /**
+     * TLS through an {@link SSLEngine}: ciphertext is read into {@code netIn} and unwrapped into the
+     * connection's buffer, responses are wrapped into {@code netOut} on their way out, and the
+     * handshake advances as records arrive. Delegated handshake tasks run inline on the loop.
+     */
+    private static final class TlsWire implements Wire {
+        private static final ByteBuffer EMPTY = ByteBuffer.allocate(0);
+
+        private final SocketChannel channel;
+        private final SSLEngine engine;
+        private ByteBuffer netIn;  // write mode: ciphertext received, not yet unwrapped
+        private ByteBuffer netOut; // read mode: ciphertext wrapped, not yet sent
+
+        TlsWire(SocketChannel channel, SSLEngine engine) {
+            this.channel = channel;
+            this.engine = engine;
+            int packet = engine.getSession().getPacketBufferSize();
+            this.netIn = ByteBuffer.allocate(packet);
+            this.netOut = ByteBuffer.allocate(packet).flip();
+        }
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            if (!netIn.hasRemaining()) {
+                netIn = grow(netIn.flip(), netIn.capacity() * 2);
+            }
+            int fromSocket = channel.read(netIn);
+            int produced = 0;
+            netIn.flip();
+            try {
+                while (netIn.hasRemaining() && dst.remaining() >= minReadSpace()) {
+                    SSLEngineResult result = engine.unwrap(netIn, dst);
+                    produced += result.bytesProduced();
+                    if (result.getStatus() == SSLEngineResult.Status.CLOSED) {
+                        return produced > 0 ? produced : -1;
+                    }
+                    if (result.getStatus() != SSLEngineResult.Status.OK) {
+                        break; // a partial record: wait for the rest
+                    }
+                    handshake(result.getHandshakeStatus());
+                    if (result.bytesConsumed() == 0 && result.bytesProduced() == 0) {
+                        break;
+                    }
+                }
+            } finally {
+                netIn.compact();
+            }
+            return produced == 0 && fromSocket < 0 ? -1 : produced;
+        }
+
+        @Override
+        public boolean write(ArrayDeque<ByteBuffer> queue) throws IOException {
+            while (true) {
+                if (netOut.hasRemaining()) {
+                    channel.write(netOut);
+                    if (netOut.hasRemaining()) {
+                        return false;
+                    }
+                }
+                ByteBuffer next = queue.peek();
+                if (next == null) {
+                    return true;
+                }
+                SSLEngineResult result = wrap(next);
+                if (result.getStatus() == SSLEngineResult.Status.CLOSED) {
+                    throw new SSLException("TLS session closed");
+                }
+                if (!next.hasRemaining()) {
+                    queue.poll();
+                }
+                handshake(result.getHandshakeStatus());
+                if (result.bytesProduced() == 0 && !netOut.hasRemaining()) {
+                    return queue.isEmpty(); // the engine is waiting on the peer
+                }
+            }
+        }
+
+        @Override
+        public int minReadSpace() {
+            return engine.getSession().getApplicationBufferSize();
+        }
+
+        @Override
+        public void closeOutbound() {
+            engine.closeOutbound();
+            try {
+                wrap(EMPTY);
+                channel.write(netOut);
+            } catch (IOException e) {
+                LOG.debug("Could not send TLS close_notify", e);
+            }
+        }
+
+        /** Runs the handshake as far as it can go without input from the peer. */
+        private void handshake(SSLEngineResult.HandshakeStatus status) throws SSLException {
+            while (true) {
+                switch (status) {
+                    case NEED_TASK -> {
+                        for (Runnable task; (task = engine.getDelegatedTask()) != null; ) {
+                            task.run();
+                        }
+                        status = engine.getHandshakeStatus();
+                    }
+                    case NEED_WRAP -> status = wrap(EMPTY).getHandshakeStatus();
+                    default -> {
+                        return;
+                    }
+                }
+            }
+        }
+
+        /** Wraps {@code src} behind whatever ciphertext is still waiting to be sent. */
+        private SSLEngineResult wrap(ByteBuffer src) throws SSLException {
+            while (true) {
+                netOut.compact();
+                SSLEngineResult result;
+                try {
+                    result = engine.wrap(src, netOut);
+                } finally {
+                    netOut.flip();
+                }
+                if (result.getStatus() != SSLEngineResult.Status.BUFFER_OVERFLOW) {
+                    return result;
+                }
+                netOut = grow(netOut, netOut.capacity() + engine.getSession().getPacketBufferSize())
+                        .flip();
+            }
+        }
+
+        /** A larger buffer in write mode holding {@code readable}'s remaining bytes. */
+        private static ByteBuffer grow(ByteBuffer readable, int capacity) {
+            return ByteBuffer.allocate(capacity).put(readable);
+        }
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.predatorray.candybox.protocol.transport;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import me.predatorray.candybox.common.checksum.Crc32c;
+import me.predatorray.candybox.protocol.Message;
+import me.predatorray.candybox.protocol.MessageCodec;
+
+/**
+ * The sending end of a stream's body. Bytes are cut into {@link StreamSession#CHUNK_SIZE} chunks,
+ * each sent with its CRC32C once the receiver has a credit for it; a writer that gets ahead of the
+ * receiver blocks, so at most one chunk is buffered here and {@link StreamSession#WINDOW} are in
+ * flight. {@link #close()} ends the body.
+ */
+final class OutboundBody extends OutputStream {
+
+    private final int requestId;
+    private final StreamSession.FrameSink sink;
+    private final MessageCodec codec = new MessageCodec();
+    private byte[] buffer;
+    private int buffered;
+    private int credits;
+    private boolean ended;
+    private IOException failure;
+
+    OutboundBody(int requestId, StreamSession.FrameSink sink, int credits) {
+        this.requestId = requestId;
+        this.sink = sink;
+        this.credits = credits;
+    }
+
+    synchronized void grant(int chunks) {
+        credits += chunks;
+        notifyAll();
+    }
+
+    /** The receiver wants no more of the body. */
+    void cancel(String reason) {
+        fail(new IOException("Stream cancelled by peer: " + reason));
+    }
+
+    synchronized void fail(IOException cause) {
+        if (failure == null) {
+            failure = cause;
+        }
+        notifyAll();
+    }
+
+    /** Blocks until the receiver takes another chunk. */
+    synchronized void awaitCredit() throws IOException {
+        while (credits == 0 && failure == null) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted writing stream " + requestId);
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /** Sends {@code len} bytes of {@code b} as one chunk, once a credit allows. */
+    void sendChunk(byte[] b, int off, int len) throws IOException {
+        synchronized (this) {
+            awaitCredit();
+            credits--;
+        }
+        byte[] data = Arrays.copyOfRange(b, off, off + len);
+        send(new Message.StreamChunk(Crc32c.of(data), data));
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[] {(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (ended) {
+            throw new IOException("Stream " + requestId + " has ended");
+        }
+        while (len > 0) {
+            if (buffer == null) {
+                buffer = new byte[StreamSession.CHUNK_SIZE];
+            }
+            int n = Math.min(len, buffer.length - buffered);
+            System.arraycopy(b, off, buffer, buffered, n);
+            buffered += n;
+            off += n;
+            len -= n;
+            if (buffered == buffer.length) {
+                sendChunk(buffer, 0, buffered);
+                buffered = 0;
+            }
+        }
+    }
+
+    /** Sends what is buffered and ends the body; quietly does nothing once the receiver cancelled. */
+    @Override
+    public void close() throws IOException {
+        if (ended) {
+            return;
+        }
+        synchronized (this) {
+            if (failure != null) {
+                ended = true;
+                return;
+            }
+        }
+        if (buffered > 0) {
+            sendChunk(buffer, 0, buffered);
+            buffered = 0;
+        }
+        ended = true;
+        send(new Message.StreamEnd(null));
+    }
+
+    /** Ends the body short, telling the receiver why, unless it already ended. */
+    void abort(String reason) throws IOException {
+        if (ended) {
+            return;
+        }
+        ended = true;
+        buffered = 0;
+        synchronized (this) {
+            if (failure != null) {
+                return;
+            }
+        }
+        send(new Message.StreamEnd(reason));
+    }
+
+    private void send(Message message) throws IOException {
+        sink.send(codec.encode(message).withRequestId(requestId));
+    }
+}
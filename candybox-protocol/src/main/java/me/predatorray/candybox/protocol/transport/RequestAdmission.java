@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.predatorray.candybox.protocol.transport;
+
+import java.util.concurrent.Semaphore;
+import me.predatorray.candybox.protocol.Frame;
+import me.predatorray.candybox.protocol.Message;
+import me.predatorray.candybox.protocol.MessageCodec;
+
+/**
+ * A transport server's node-wide cap on requests being handled at once. A request that finds every
+ * permit taken is not queued: it is answered {@code RESPONSE_BUSY} straight away, so an overloaded
+ * node sheds load at the door instead of letting a backlog (and its latency) grow without bound.
+ */
+final class RequestAdmission {
+
+    /** How long a rejected client is told to back off (the same hint the node's write stall gives). */
+    static final long BUSY_RETRY_AFTER_MILLIS = 100;
+
+    private static final Frame BUSY =
+            new MessageCodec().encode(new Message.BusyResponse(BUSY_RETRY_AFTER_MILLIS));
+
+    private final Semaphore permits;
+
+    RequestAdmission(int maxInFlight) {
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("maxInFlight must be positive");
+        }
+        this.permits = new Semaphore(maxInFlight);
+    }
+
+    /** Takes a permit if one is free; the caller must {@link #release()} it once handled. */
+    boolean tryAdmit() {
+        return permits.tryAcquire();
+    }
+
+    void release() {
+        permits.release();
+    }
+
+    /** The busy answer to {@code request}, in the request's framing. */
+    static Frame busy(Frame request) {
+        return BUSY.withRequestId(request.requestId());
+    }
+}
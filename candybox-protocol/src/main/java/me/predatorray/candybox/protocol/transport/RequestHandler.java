@@ -30,10 +30,11 @@ public interface RequestHandler {
     Frame handle(Frame request);
 
     /**
-     * Handles one request with its connection's state. Transports always invoke this form, with one
-     * {@link ConnectionContext} per accepted connection; handlers that care about the caller's
-     * identity (the SASL gate, the authorizing dispatcher) override it, while plain handlers and
-     * test lambdas only implement {@link #handle(Frame)}.
+     * Handles one request with its connection's state. Transports invoke this form (through
+     * {@link #handle(ConnectionContext, Frame, Exchange)}), with one {@link ConnectionContext} per
+     * accepted connection; handlers that care about the caller's identity (the SASL gate, the
+     * authorizing dispatcher) override it, while plain handlers and test lambdas only implement
+     * {@link #handle(Frame)}.
      *
      * @param context the per-connection state (authentication progress + principal)
      * @param request the decoded request frame
@@ -42,4 +43,16 @@ public interface RequestHandler {
     default Frame handle(ConnectionContext context, Frame request) {
         return handle(request);
     }
+
+    /**
+     * Handles one request that may stream its body in or out. Transports always invoke this form;
+     * only handlers that serve streamed requests override it.
+     *
+     * @param exchange the request's streamed body and response, or {@link Exchange#NONE}
+     * @return the response frame, or {@code null} once answered through
+     *         {@link Exchange#respondWithBody}
+     */
+    default Frame handle(ConnectionContext context, Frame request, Exchange exchange) {
+        return handle(context, request);
+    }
 }
@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.predatorray.candybox.protocol.transport;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import me.predatorray.candybox.protocol.Frame;
+import me.predatorray.candybox.protocol.ProtocolException;
+
+/**
+ * A transport server's {@link Exchange} for one correlated request. Created on the connection's
+ * reader as the request arrives, so none of its stream frames can arrive unrouted; the handler's
+ * thread then finishes it with {@link #complete}.
+ */
+final class ServerExchange implements Exchange {
+
+    private final StreamSession streams;
+    private final int requestId;
+    private final InboundBody requestBody;
+    private OutboundBody responseBody;
+
+    ServerExchange(StreamSession streams, Frame request) {
+        this.streams = streams;
+        this.requestId = request.requestId();
+        this.requestBody = request.opcode().opensStream()
+                ? streams.openInbound(requestId, StreamSession.WINDOW)
+                : null;
+    }
+
+    @Override
+    public InputStream requestBody() {
+        if (requestBody == null) {
+            return Exchange.NONE.requestBody();
+        }
+        return requestBody;
+    }
+
+    @Override
+    public OutputStream respondWithBody(Frame header) {
+        if (!header.opcode().opensStream()) {
+            throw new IllegalArgumentException(header.opcode() + " does not open a stream");
+        }
+        if (responseBody != null) {
+            throw new IllegalStateException("Request " + requestId + " already has a response");
+        }
+        responseBody = streams.openOutbound(requestId, StreamSession.WINDOW);
+        try {
+            streams.write(header.withRequestId(requestId));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return responseBody;
+    }
+
+    /**
+     * Sends the handler's outcome: its response frame, or — once it has responded with a body —
+     * the end of that body, aborted if the handler returned a frame after all.
+     */
+    void complete(Frame response) throws IOException {
+        try {
+            if (responseBody == null) {
+                if (response == null) {
+                    throw new ProtocolException("Handler returned no response");
+                }
+                streams.write(response.withRequestId(requestId));
+            } else if (response == null) {
+                responseBody.close();
+            } else {
+                responseBody.abort("aborted with " + response.opcode());
+            }
+        } finally {
+            streams.forget(requestId);
+        }
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) 2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.predatorray.candybox.protocol.transport;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import me.predatorray.candybox.protocol.Frame;
+import me.predatorray.candybox.protocol.Message;
+import me.predatorray.candybox.protocol.MessageCodec;
+import me.predatorray.candybox.protocol.Opcode;
+
+/**
+ * The streams open on one connection, on either side of it: the reader hands every stream frame to
+ * {@link #route}, which delivers it to the body of the request it belongs to. A frame for a request
+ * whose streams are gone — a chunk still in flight when the request was answered — is dropped.
+ *
+ * <p>Every stream is chunked at {@link #CHUNK_SIZE} and metered by credits: a sender may have at
+ * most {@link #WINDOW} chunks unacknowledged, and a receiver acknowledges each chunk as it consumes
+ * it. A request body starts with no credit — the receiving handler grants the window when it first
+ * reads — while a response body starts with the whole window.
+ */
+final class StreamSession {
+
+    /** The most body bytes one {@link Opcode#STREAM_CHUNK} carries. */
+    static final int CHUNK_SIZE = 64 * 1024;
+
+    /** How many chunks a sender may have unacknowledged, and so what a receiver buffers. */
+    static final int WINDOW = 4;
+
+    /** Writes one stream frame (already carrying its request id) to the connection. */
+    @FunctionalInterface
+    interface FrameSink {
+        void send(Frame frame) throws IOException;
+    }
+
+    private final FrameSink sink;
+    private final MessageCodec codec = new MessageCodec();
+    private final ConcurrentMap<Integer, Bodies> open = new ConcurrentHashMap<>();
+    private volatile IOException closed;
+
+    StreamSession(FrameSink sink) {
+        this.sink = sink;
+    }
+
+    /** Writes a frame of this connection's streams' requests (such as a streamed response header). */
+    void write(Frame frame) throws IOException {
+        sink.send(frame);
+    }
+
+    /** Opens the receiving end of request {@code requestId}'s body. */
+    InboundBody openInbound(int requestId, int initialCredits) {
+        InboundBody body = new InboundBody(requestId, sink, initialCredits);
+        bodies(requestId).inbound = body;
+        if (closed != null) {
+            body.fail(closed);
+        }
+        return body;
+    }
+
+    /** Opens the sending end of request {@code requestId}'s body. */
+    OutboundBody openOutbound(int requestId, int credits) {
+        OutboundBody body = new OutboundBody(requestId, sink, credits);
+        bodies(requestId).outbound = body;
+        if (closed != null) {
+            body.fail(closed);
+        }
+        return body;
+    }
+
+    private Bodies bodies(int requestId) {
+        return open.computeIfAbsent(requestId, id -> new Bodies());
+    }
+
+    /**
+     * The request was answered: a body this side is still sending for it is not wanted any more
+     * (the receiver stopped reading it, or never started).
+     */
+    void stopSending(int requestId) {
+        Bodies bodies = open.get(requestId);
+        OutboundBody outbound = bodies == null ? null : bodies.outbound;
+        if (outbound != null) {
+            outbound.cancel("request answered");
+        }
+    }
+
+    /** Stops routing request {@code requestId}'s stream frames. */
+    void forget(int requestId) {
+        open.remove(requestId);
+    }
+
+    /**
+     * Delivers a stream frame: a chunk to the request's inbound body, a credit to its outbound one.
+     * An end closes the inbound body while it is open; otherwise the peer is cancelling the body
+     * this side sends.
+     */
+    void route(Frame frame) {
+        Bodies bodies = open.get(frame.requestId());
+        if (bodies == null) {
+            return;
+        }
+        InboundBody inbound = bodies.inbound;
+        OutboundBody outbound = bodies.outbound;
+        switch (frame.opcode()) {
+            case STREAM_CHUNK -> {
+                if (inbound != null) {
+                    inbound.offer(frame);
+                }
+            }
+            case STREAM_ACK -> {
+                if (outbound != null) {
+                    outbound.grant(((Message.StreamAck) codec.decode(frame)).chunks());
+                }
+            }
+            case STREAM_END -> {
+                String error = ((Message.StreamEnd) codec.decode(frame)).error();
+                if (inbound != null && !inbound.isEnded()) {
+                    inbound.end(error);
+                } else if (outbound != null) {
+                    outbound.cancel(error == null ? "cancelled" : error);
+                }
+            }
+            default -> throw new IllegalArgumentException("Not a stream frame: " + frame.opcode());
+        }
+    }
+
+    /** Fails every open body with {@code cause} (the connection is gone) and any opened later. */
+    void closeAll(IOException cause) {
+        closed = cause;
+        for (Integer id : open.keySet()) {
+            Bodies bodies = open.remove(id);
+            if (bodies != null) {
+                bodies.fail(cause);
+            }
+        }
+    }
+
+    private static final class Bodies {
+        volatile InboundBody inbound;
+        volatile OutboundBody outbound;
+
+        void fail(IOException cause) {
+            InboundBody in = inbound;
+            if (in != null) {
+                in.fail(cause);
+            }
+            OutboundBody out = outbound;
+            if (out != null) {
+                out.fail(cause);
+            }
+        }
+    }
+}
@@ -18,28 +18,52 @@ package me.predatorray.candybox.protocol.transport;
 import java.io.BufferedOutputStream;
 import java.io.DataInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.Socket;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 import javax.net.ssl.SSLContext;
 import javax.net.ssl.SSLParameters;
 import javax.net.ssl.SSLSocket;
+import me.predatorray.candybox.common.exception.StorageException;
 import me.predatorray.candybox.protocol.Frame;
 import me.predatorray.candybox.protocol.FrameCodec;
+import me.predatorray.candybox.protocol.Message;
+import me.predatorray.candybox.protocol.MessageCodec;
+import me.predatorray.candybox.protocol.Opcode;
 import me.predatorray.candybox.protocol.ProtocolException;
 
 /**
- * A blocking TCP {@link Transport}. Each {@link #connect} opens a socket; calls on a connection are
- * serialized (one in-flight request at a time). With an {@link SSLContext} every connection speaks
- * TLS, verifying the server certificate against the context's trust and — unless disabled for dev
- * certificates — that its SAN matches the host being dialed (HTTPS-style endpoint identification).
+ * A TCP {@link Transport}. Each {@link #connect} opens a socket. With an {@link SSLContext} every
+ * connection speaks TLS, verifying the server certificate against the context's trust and — unless
+ * disabled for dev certificates — that its SAN matches the host being dialed (HTTPS-style endpoint
+ * identification).
  *
- * <p>TODO(phase-2): connection pooling, async pipelining, retry/routing on top of this.
+ * <p>Connections are multiplexed by default: {@link #connect} sends a correlated (version 2)
+ * {@link Opcode#PING}, and if the node answers in kind every call is tagged with a request id and any
+ * number of callers share the socket with their requests in flight at once; a reader thread hands
+ * each response, in whatever order the node completes them, to the caller waiting on its id. A node
+ * that predates version 2 drops the connection on the probe, and the transport reconnects with the
+ * original framing, serializing calls (one in-flight request at a time).
+ *
+ * <p>A multiplexed connection to a node that advertises {@link Message.OkResponse#STREAMING} in its
+ * answer to the probe also carries streamed bodies ({@link Connection#upload},
+ * {@link Connection#download}) alongside the calls sharing it.
  */
 public final class TcpTransport implements Transport {
 
+    private static final MessageCodec MESSAGES = new MessageCodec();
+    private static final Frame PING = MESSAGES.encode(new Message.PingRequest());
+
     private final FrameCodec codec;
     private final SSLContext sslContext;
     private final boolean verifyEndpoint;
+    private final boolean multiplex;
 
     public TcpTransport() {
         this(new FrameCodec());
@@ -55,34 +79,84 @@ public final class TcpTransport implements Transport {
      *                       only for dev certificates without proper SANs
      */
     public TcpTransport(FrameCodec codec, SSLContext sslContext, boolean verifyEndpoint) {
+        this(codec, sslContext, verifyEndpoint, true);
+    }
+
+    /**
+     * @param multiplex probe each new connection for request multiplexing; false always uses the
+     *                  original one-request-at-a-time framing
+     */
+    public TcpTransport(FrameCodec codec, SSLContext sslContext, boolean verifyEndpoint,
+                        boolean multiplex) {
         this.codec = codec;
         this.sslContext = sslContext;
         this.verifyEndpoint = verifyEndpoint;
+        this.multiplex = multiplex;
     }
 
     @Override
     public Connection connect(String host, int port) {
-        try {
-            Socket socket;
-            if (sslContext != null) {
-                SSLSocket ssl = (SSLSocket) sslContext.getSocketFactory()
-                        .createSocket(host, port);
-                if (verifyEndpoint) {
-                    SSLParameters params = ssl.getSSLParameters();
-                    params.setEndpointIdentificationAlgorithm("HTTPS");
-                    ssl.setSSLParameters(params);
-                }
-                ssl.startHandshake();
-                socket = ssl;
-            } else {
-                socket = new Socket(host, port);
+        if (multiplex) {
+            Connection multiplexed = tryMultiplexed(host, port);
+            if (multiplexed != null) {
+                return multiplexed;
             }
-            return new TcpConnection(socket, codec);
+        }
+        try {
+            return new TcpConnection(open(host, port), codec);
         } catch (IOException e) {
             throw new ProtocolException("Failed to connect to " + host + ":" + port, e);
         }
     }
 
+    /** A multiplexed connection, or null if the node does not speak version 2 framing. */
+    private Connection tryMultiplexed(String host, int port) {
+        Socket socket;
+        try {
+            socket = open(host, port);
+        } catch (IOException e) {
+            throw new ProtocolException("Failed to connect to " + host + ":" + port, e);
+        }
+        try {
+            DataInputStream in = new DataInputStream(socket.getInputStream());
+            OutputStream out = new BufferedOutputStream(socket.getOutputStream());
+            codec.write(out, PING.withRequestId(0));
+            Frame pong = codec.read(in);
+            if (pong.isCorrelated() && pong.opcode() == Opcode.RESPONSE_OK) {
+                boolean streaming = ((Message.OkResponse) MESSAGES.decode(pong))
+                        .supports(Message.OkResponse.STREAMING);
+                return new MultiplexedConnection(socket, in, out, codec, host + ":" + port,
+                        streaming);
+            }
+        } catch (IOException | ProtocolException legacyPeer) {
+            // a v1-only node rejects the version 2 header and hangs up
+        }
+        closeQuietly(socket);
+        return null;
+    }
+
+    private Socket open(String host, int port) throws IOException {
+        if (sslContext == null) {
+            return new Socket(host, port);
+        }
+        SSLSocket ssl = (SSLSocket) sslContext.getSocketFactory().createSocket(host, port);
+        if (verifyEndpoint) {
+            SSLParameters params = ssl.getSSLParameters();
+            params.setEndpointIdentificationAlgorithm("HTTPS");
+            ssl.setSSLParameters(params);
+        }
+        ssl.startHandshake();
+        return ssl;
+    }
+
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException ignored) {
+            // best effort
+        }
+    }
+
     @Override
     public void close() {
         // connections are closed individually
@@ -120,4 +194,215 @@ public final class TcpTransport implements Transport {
             }
         }
     }
+
+    /**
+     * A connection shared by concurrent callers. Each call registers a future under a fresh request
+     * id and writes its frame (writes are serialized so frames never interleave); the reader thread
+     * completes futures as responses arrive, and hands stream frames to the streams they belong to.
+     * Once the socket fails every pending and later call fails with the cause, so a caller such as
+     * the router can drop and reopen the connection.
+     */
+    private static final class MultiplexedConnection implements Connection {
+        private final Socket socket;
+        private final DataInputStream in;
+        private final OutputStream out;
+        private final FrameCodec codec;
+        private final ConcurrentMap<Integer, CompletableFuture<Frame>> pending =
+                new ConcurrentHashMap<>();
+        private final AtomicInteger nextRequestId = new AtomicInteger(1); // 0 was the probe
+        private final StreamSession streams;
+        private final boolean streaming;
+        private volatile Throwable failure;
+
+        MultiplexedConnection(Socket socket, DataInputStream in, OutputStream out, FrameCodec codec,
+                              String peer, boolean streaming) {
+            this.socket = socket;
+            this.in = in;
+            this.out = out;
+            this.codec = codec;
+            this.streaming = streaming;
+            this.streams = new StreamSession(this::write);
+            Thread reader = new Thread(this::readLoop, "candybox-mux-" + peer);
+            reader.setDaemon(true);
+            reader.start();
+        }
+
+        @Override
+        public Frame call(Frame request) {
+            int id = nextRequestId();
+            CompletableFuture<Frame> response = register(id);
+            send(id, request);
+            return await(id, response);
+        }
+
+        @Override
+        public boolean supportsStreaming() {
+            return streaming;
+        }
+
+        @Override
+        public Frame upload(Frame request, InputStream body) {
+            requireStreaming();
+            int id = nextRequestId();
+            OutboundBody outbound = streams.openOutbound(id, 0);
+            try {
+                CompletableFuture<Frame> response = register(id);
+                send(id, request);
+                sendBody(id, body, outbound);
+                return await(id, response);
+            } finally {
+                streams.forget(id);
+            }
+        }
+
+        /**
+         * Sends {@code body} a chunk per credit, reading each chunk only once the node has asked for
+         * it. Stops early, leaving the rest unread, once the node has answered.
+         */
+        private void sendBody(int id, InputStream body, OutboundBody outbound) {
+            byte[] chunk = new byte[StreamSession.CHUNK_SIZE];
+            try {
+                while (true) {
+                    outbound.awaitCredit();
+                    int n;
+                    try {
+                        n = body.readNBytes(chunk, 0, chunk.length);
+                    } catch (IOException | RuntimeException e) {
+                        pending.remove(id);
+                        try {
+                            outbound.abort("request body failed");
+                        } catch (IOException ignored) {
+                            // the connection failing too changes nothing for this caller
+                        }
+                        throw new StorageException("Failed reading the request body", e);
+                    }
+                    if (n > 0) {
+                        outbound.sendChunk(chunk, 0, n);
+                    }
+                    if (n < chunk.length) {
+                        outbound.close();
+                        return;
+                    }
+                }
+            } catch (IOException answeredOrFailed) {
+                // Either the node answered before taking it all, or the connection failed; the
+                // response (or its failure) says which.
+            }
+        }
+
+        @Override
+        public Frame download(Frame request, Function<Frame, OutputStream> body) {
+            requireStreaming();
+            int id = nextRequestId();
+            InboundBody inbound = streams.openInbound(id, 0);
+            try {
+                CompletableFuture<Frame> response = register(id);
+                send(id, request);
+                Frame header = await(id, response);
+                if (header.opcode().opensStream()) {
+                    try (inbound) {
+                        inbound.transferTo(body.apply(header));
+                    } catch (IOException e) {
+                        throw new StorageException("Streamed response failed", e);
+                    }
+                }
+                return header;
+            } finally {
+                streams.forget(id);
+            }
+        }
+
+        private void requireStreaming() {
+            if (!streaming) {
+                throw new UnsupportedOperationException("The node does not accept streams");
+            }
+        }
+
+        private int nextRequestId() {
+            return nextRequestId.getAndIncrement() & Integer.MAX_VALUE;
+        }
+
+        private CompletableFuture<Frame> register(int id) {
+            CompletableFuture<Frame> response = new CompletableFuture<>();
+            pending.put(id, response);
+            // Re-check after registering: the reader may have failed (and drained pending) before.
+            Throwable failed = failure;
+            if (failed != null) {
+                pending.remove(id);
+                throw new ProtocolException("RPC failed", failed);
+            }
+            return response;
+        }
+
+        private void send(int id, Frame request) {
+            try {
+                write(request.withRequestId(id));
+            } catch (IOException e) {
+                pending.remove(id);
+                throw new ProtocolException("RPC failed", e);
+            }
+        }
+
+        /** Writes a frame; a failed write fails the whole connection. */
+        private void write(Frame frame) throws IOException {
+            try {
+                synchronized (out) {
+                    codec.write(out, frame);
+                }
+            } catch (IOException e) {
+                fail(e);
+                throw e;
+            }
+        }
+
+        private Frame await(int id, CompletableFuture<Frame> response) {
+            try {
+                return response.get();
+            } catch (InterruptedException e) {
+                pending.remove(id);
+                Thread.currentThread().interrupt();
+                throw new ProtocolException("RPC interrupted", e);
+            } catch (ExecutionException e) {
+                throw new ProtocolException("RPC failed", e.getCause());
+            }
+        }
+
+        private void readLoop() {
+            try {
+                while (true) {
+                    Frame response = codec.read(in);
+                    if (response.opcode().isStreamControl()) {
+                        streams.route(response);
+                        continue;
+                    }
+                    streams.stopSending(response.requestId());
+                    CompletableFuture<Frame> waiter = pending.remove(response.requestId());
+                    if (waiter != null) {
+                        waiter.complete(response.withRequestId(Frame.UNCORRELATED));
+                    }
+                }
+            } catch (IOException | ProtocolException e) {
+                fail(e);
+            }
+        }
+
+        private void fail(Throwable cause) {
+            if (failure == null) {
+                failure = cause;
+            }
+            closeQuietly(socket);
+            streams.closeAll(cause instanceof IOException io ? io : new IOException(cause));
+            for (Integer id : pending.keySet()) {
+                CompletableFuture<Frame> waiter = pending.remove(id);
+                if (waiter != null) {
+                    waiter.completeExceptionally(cause);
+                }
+            }
+        }
+
+        @Override
+        public void close() {
+            fail(new IOException("Connection closed"));
+        }
+    }
 }
@@ -25,33 +25,61 @@ import java.net.Socket;
 import java.net.SocketException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
 import javax.net.ssl.SSLContext;
 import javax.net.ssl.SSLException;
 import javax.net.ssl.SSLServerSocket;
 import me.predatorray.candybox.protocol.Frame;
 import me.predatorray.candybox.protocol.FrameCodec;
+import me.predatorray.candybox.protocol.Message;
+import me.predatorray.candybox.protocol.MessageCodec;
+import me.predatorray.candybox.protocol.Opcode;
 import me.predatorray.candybox.protocol.ProtocolException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * A blocking TCP {@link TransportServer}: one accept loop, one handler thread per connection, each
+ * A blocking TCP {@link TransportServer}: one accept loop, one reader thread per connection, each
  * reading framed requests and writing framed responses until the peer closes. With an
  * {@link SSLContext} the listener speaks TLS ({@code SSLServerSocket} — same blocking model),
  * optionally demanding a client certificate (mTLS).
  *
- * <p>TODO(phase-2): replace per-connection threads with NIO/Netty, add request pipelining,
- * backpressure, and graceful shutdown draining. This is correct and sufficient for early wiring/tests.
+ * <p>Uncorrelated (version 1) requests are handled inline, strictly in order. Correlated (version 2)
+ * requests each run on their own handler thread and are answered with their request id as they
+ * complete, so a slow request does not hold up the ones behind it on the same connection; at most
+ * {@code maxInFlightPerConnection} run at once, beyond which the reader stops reading (TCP
+ * backpressure). {@link Opcode#PING} is answered here, before any handler or authentication gate.
+ * Across all connections at most {@code maxInFlight} requests are handled at once; one arriving
+ * beyond that is answered {@code RESPONSE_BUSY} without reaching the handler.
+ *
+ * <p>A correlated request may stream its body in or out ({@link Exchange}); the reader routes the
+ * stream's chunks and credits to it while its handler runs. Such a request waits on the connection
+ * rather than on the node, so it does not count against {@code maxInFlightPerConnection} — a reader
+ * blocked on that limit must not starve the transfers it is waiting for.
+ *
+ * <p>Every connection costs a thread even while idle; {@link NioTransportServer} serves many mostly
+ * idle connections from one event loop instead.
  */
 public final class TcpTransportServer implements TransportServer {
 
     private static final Logger LOG = LoggerFactory.getLogger(TcpTransportServer.class);
 
+    /** The default cap on concurrently handled correlated requests per connection. */
+    public static final int DEFAULT_MAX_IN_FLIGHT_PER_CONNECTION = 64;
+
+    /** The default cap on requests handled at once across all connections. */
+    public static final int DEFAULT_MAX_IN_FLIGHT = 1024;
+
+    private static final Frame PONG = new MessageCodec().encode(
+            new Message.OkResponse(Message.OkResponse.STREAMING));
+
     private final ServerSocket serverSocket;
     private final ExecutorService acceptExecutor;
     private final ExecutorService handlerExecutor;
     private final FrameCodec codec;
     private final RequestHandler handler;
+    private final int maxInFlightPerConnection;
+    private final RequestAdmission admission;
     private volatile boolean running = true;
 
     /** A plaintext listener. */
@@ -67,8 +95,36 @@ public final class TcpTransportServer implements TransportServer {
      */
     public TcpTransportServer(int port, RequestHandler handler, FrameCodec codec,
                               SSLContext sslContext, boolean needClientAuth) {
+        this(port, handler, codec, sslContext, needClientAuth, DEFAULT_MAX_IN_FLIGHT_PER_CONNECTION);
+    }
+
+    /**
+     * @param maxInFlightPerConnection how many correlated requests of one connection may be handled
+     *                                 at once
+     */
+    public TcpTransportServer(int port, RequestHandler handler, FrameCodec codec,
+                              SSLContext sslContext, boolean needClientAuth,
+                              int maxInFlightPerConnection) {
+        this(port, handler, codec, sslContext, needClientAuth, maxInFlightPerConnection,
+                DEFAULT_MAX_IN_FLIGHT);
+    }
+
+    /**
+     * @param maxInFlightPerConnection how many correlated requests of one connection may be handled
+     *                                 at once
+     * @param maxInFlight              how many requests of all connections may be handled at once
+     *                                 before further ones are answered busy
+     */
+    public TcpTransportServer(int port, RequestHandler handler, FrameCodec codec,
+                              SSLContext sslContext, boolean needClientAuth,
+                              int maxInFlightPerConnection, int maxInFlight) {
+        if (maxInFlightPerConnection < 1) {
+            throw new IllegalArgumentException("maxInFlightPerConnection must be positive");
+        }
         this.handler = handler;
         this.codec = codec;
+        this.maxInFlightPerConnection = maxInFlightPerConnection;
+        this.admission = new RequestAdmission(maxInFlight);
         try {
             if (sslContext != null) {
                 SSLServerSocket ssl = (SSLServerSocket) sslContext.getServerSocketFactory()
@@ -107,24 +163,97 @@ public final class TcpTransportServer implements TransportServer {
 
     private void serve(Socket socket) {
         ConnectionContext context = new ConnectionContext();
+        Semaphore inFlight = new Semaphore(maxInFlightPerConnection);
         try (socket;
              DataInputStream in = new DataInputStream(socket.getInputStream());
              OutputStream out = new BufferedOutputStream(socket.getOutputStream())) {
-            while (running) {
-                Frame request;
-                try {
-                    request = codec.read(in);
-                } catch (EOFException | SocketException closed) {
-                    return; // peer disconnected
-                } catch (SSLException handshakeOrRecord) {
-                    LOG.debug("TLS error on connection", handshakeOrRecord);
-                    return;
-                }
-                Frame response = handler.handle(context, request);
-                codec.write(out, response);
+            StreamSession streams = new StreamSession(frame -> write(out, frame));
+            try {
+                readRequests(socket, in, out, context, inFlight, streams);
+            } finally {
+                streams.closeAll(new IOException("Connection closed"));
             }
         } catch (IOException e) {
             LOG.debug("Connection handler ended", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt(); // server closing
+        }
+    }
+
+    private void readRequests(Socket socket, DataInputStream in, OutputStream out,
+                              ConnectionContext context, Semaphore inFlight, StreamSession streams)
+            throws IOException, InterruptedException {
+        while (running) {
+            Frame request;
+            try {
+                request = codec.read(in);
+            } catch (EOFException | SocketException closed) {
+                return; // peer disconnected
+            } catch (SSLException handshakeOrRecord) {
+                LOG.debug("TLS error on connection", handshakeOrRecord);
+                return;
+            }
+            if (request.opcode().isStreamControl()) {
+                streams.route(request);
+            } else if (request.opcode() == Opcode.PING) {
+                write(out, PONG.withRequestId(request.requestId()));
+            } else if (request.isCorrelated()) {
+                Semaphore limit = request.opcode().isStreamingRequest() ? null : inFlight;
+                if (limit != null) {
+                    limit.acquire();
+                }
+                if (admission.tryAdmit()) {
+                    ServerExchange exchange = new ServerExchange(streams, request);
+                    handlerExecutor.submit(() -> {
+                        try {
+                            respond(socket, context, request, exchange);
+                        } finally {
+                            admission.release();
+                            if (limit != null) {
+                                limit.release();
+                            }
+                        }
+                    });
+                } else {
+                    if (limit != null) {
+                        limit.release();
+                    }
+                    write(out, RequestAdmission.busy(request));
+                }
+            } else if (admission.tryAdmit()) {
+                try {
+                    write(out, handler.handle(context, request, Exchange.NONE));
+                } finally {
+                    admission.release();
+                }
+            } else {
+                write(out, RequestAdmission.busy(request));
+            }
+        }
+    }
+
+    /**
+     * Handles one correlated request off the reader thread. A handler failure closes the connection,
+     * as it does inline, so the client fails that call instead of waiting for a response that will
+     * never come.
+     */
+    private void respond(Socket socket, ConnectionContext context, Frame request,
+                         ServerExchange exchange) {
+        try {
+            exchange.complete(handler.handle(context, request, exchange));
+        } catch (IOException | RuntimeException e) {
+            LOG.debug("Closing connection after failed request", e);
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+                // best effort
+            }
+        }
+    }
+
+    private void write(OutputStream out, Frame response) throws IOException {
+        synchronized (out) {
+            codec.write(out, response);
         }
     }
 
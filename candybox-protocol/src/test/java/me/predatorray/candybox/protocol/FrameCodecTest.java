@@ -20,6 +20,7 @@ import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 import java.io.ByteArrayInputStream;
 import java.io.DataInputStream;
+import java.nio.ByteBuffer;
 import org.junit.jupiter.api.Test;
 
 class FrameCodecTest {
@@ -41,6 +42,36 @@ class FrameCodecTest {
         assertThat(decoded.payload()).isEmpty();
     }
 
+    @Test
+    void correlatedFrameRoundTripsAsVersionTwo() {
+        Frame frame = new Frame(Opcode.GET_CANDY, "hello".getBytes(), 0x12345678);
+        byte[] bytes = codec.encode(frame);
+        assertThat(bytes).hasSize(FrameCodec.HEADER_BYTES_CORRELATED + 5);
+        assertThat(bytes[2]).isEqualTo(FrameCodec.VERSION_CORRELATED);
+
+        Frame decoded = codec.decode(bytes);
+        assertThat(decoded.opcode()).isEqualTo(Opcode.GET_CANDY);
+        assertThat(decoded.requestId()).isEqualTo(0x12345678);
+        assertThat(new String(decoded.payload())).isEqualTo("hello");
+    }
+
+    @Test
+    void uncorrelatedFrameKeepsTheVersionOneHeader() {
+        byte[] bytes = codec.encode(new Frame(Opcode.GET_CANDY, "hello".getBytes()));
+        assertThat(bytes).hasSize(FrameCodec.HEADER_BYTES + 5);
+        assertThat(bytes[2]).isEqualTo(FrameCodec.VERSION);
+        assertThat(codec.decode(bytes).isCorrelated()).isFalse();
+    }
+
+    @Test
+    void negativeRequestIdOnTheWireIsRejected() {
+        byte[] bytes = codec.encode(new Frame(Opcode.RESPONSE_OK, new byte[0], 1));
+        bytes[4] = (byte) 0x80; // sign bit of the request id
+        assertThatThrownBy(() -> codec.decode(bytes))
+                .isInstanceOf(ProtocolException.class)
+                .hasMessageContaining("request id");
+    }
+
     @Test
     void rejectsOversizedLengthBeforeAllocating() {
         FrameCodec capped = new FrameCodec(16);
@@ -59,6 +90,36 @@ class FrameCodecTest {
                 .hasMessageContaining("Illegal frame length");
     }
 
+    @Test
+    void bufferDecodeWaitsForAWholeFrameAndConsumesOnlyIt() {
+        byte[] first = codec.encode(new Frame(Opcode.GET_CANDY, "one".getBytes(), 3));
+        byte[] second = codec.encode(new Frame(Opcode.PUT_CANDY, "two".getBytes()));
+        ByteBuffer buffer = ByteBuffer.allocate(first.length + second.length);
+        buffer.put(first, 0, first.length - 1).flip();
+        assertThat(codec.decode(buffer)).isNull();
+        assertThat(buffer.position()).isZero();
+
+        buffer.compact().put(first, first.length - 1, 1).put(second, 0, 5).flip();
+        Frame decoded = codec.decode(buffer);
+        assertThat(decoded.requestId()).isEqualTo(3);
+        assertThat(new String(decoded.payload())).isEqualTo("one");
+        assertThat(codec.decode(buffer)).isNull(); // only part of the second header
+        assertThat(buffer.remaining()).isEqualTo(5);
+
+        buffer.compact().put(second, 5, second.length - 5).flip();
+        assertThat(codec.decode(buffer).opcode()).isEqualTo(Opcode.PUT_CANDY);
+        assertThat(buffer.hasRemaining()).isFalse();
+    }
+
+    @Test
+    void bufferDecodeRejectsAnOversizedLengthOnceTheHeaderArrives() {
+        byte[] bytes = new FrameCodec().encode(new Frame(Opcode.PUT_CANDY, new byte[32]));
+        ByteBuffer header = ByteBuffer.wrap(bytes, 0, FrameCodec.HEADER_BYTES);
+        assertThatThrownBy(() -> new FrameCodec(16).decode(header))
+                .isInstanceOf(ProtocolException.class)
+                .hasMessageContaining("Illegal frame length");
+    }
+
     @Test
     void encodingPayloadOverCapIsRejected() {
         FrameCodec capped = new FrameCodec(8);
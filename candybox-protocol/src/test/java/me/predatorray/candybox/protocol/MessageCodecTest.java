@@ -106,6 +106,15 @@ class MessageCodecTest {
         assertThat(loc.owner()).isEqualTo("User:alice");
         assertThat(loc.grants()).containsExactly("User:bob:READ");
 
+        // An inlined Candy's part carries its payload instead of segments.
+        me.predatorray.candybox.common.Part inline = me.predatorray.candybox.common.Part.inline(
+                "tiny".getBytes(java.nio.charset.StandardCharsets.UTF_8), 1 << 20, 0x0badf00d);
+        Message.CandyLocatorResponse inlined = (Message.CandyLocatorResponse) roundTrip(
+                new Message.CandyLocatorResponse(List.of(inline), null, Map.of(), hlc, 1L, null,
+                        List.of()));
+        assertThat(inlined.parts()).isEqualTo(List.of(inline));
+        assertThat(inlined.parts().get(0).isInline()).isTrue();
+
         Message.ZeroCopyPutRequest zp = (Message.ZeroCopyPutRequest) roundTrip(
                 new Message.ZeroCopyPutRequest("box", "dst", List.of(part), "text/plain",
                         Map.of("m", "v"), "User:alice", List.of(), "idem", "tok-1", "src", 2, hlc));
@@ -139,6 +148,37 @@ class MessageCodecTest {
         assertThat(out.startAfter()).isEqualTo("p/cursor");
     }
 
+    @Test
+    void delimitedListingRoundTripsTheDelimiterAndCommonPrefixes() {
+        Message.ListCandiesRequest req = (Message.ListCandiesRequest) roundTrip(
+                new Message.ListCandiesRequest("box", 0, "p/", null, 10, null, null, false, "/"));
+        assertThat(req.delimiter()).isEqualTo("/");
+
+        Message.ListCandiesResponse resp = (Message.ListCandiesResponse) roundTrip(
+                new Message.ListCandiesResponse(List.of(new Message.ListedCandy("p/a", 1, 2)),
+                        List.of("p/b/", "p/c/"), "p/c/"));
+        assertThat(resp.commonPrefixes()).containsExactly("p/b/", "p/c/");
+        assertThat(resp.nextStartAfter()).isEqualTo("p/c/");
+    }
+
+    @Test
+    void listingFromAPeerWithoutDelimiterSupportDecodes() {
+        // Bodies written before the trailing delimiter / commonPrefixes fields existed (the request's
+        // last three bytes are its absent delimiter, zero staleness bound and zero modulus).
+        Message.ListCandiesRequest req = new Message.ListCandiesRequest("box", 0, "p/", null, 10);
+        byte[] body = codec.encode(req).payload();
+        Message.ListCandiesRequest old = (Message.ListCandiesRequest) codec.decode(
+                new Frame(Opcode.LIST_CANDIES, java.util.Arrays.copyOf(body, body.length - 3)));
+        assertThat(old.delimiter()).isNull();
+        assertThat(old.maxStalenessMillis()).isZero();
+
+        byte[] respBody = codec.encode(new Message.ListCandiesResponse(List.of(), null)).payload();
+        Message.ListCandiesResponse oldResp = (Message.ListCandiesResponse) codec.decode(
+                new Frame(Opcode.RESPONSE_LIST,
+                        java.util.Arrays.copyOf(respBody, respBody.length - 1)));
+        assertThat(oldResp.commonPrefixes()).isEmpty();
+    }
+
     @Test
     void responsesRoundTrip() {
         assertThat(roundTrip(new Message.OkResponse())).isInstanceOf(Message.OkResponse.class);
@@ -203,6 +243,38 @@ class MessageCodecTest {
     void movedResponseRoundTrips() {
         Message.MovedResponse out = (Message.MovedResponse) roundTrip(new Message.MovedResponse(7));
         assertThat(out.ownerNodeId()).isEqualTo(7);
+        assertThat(out.routingChanged()).isFalse();
+        assertThat(((Message.MovedResponse) roundTrip(new Message.MovedResponse(7, true)))
+                .routingChanged()).isTrue();
+    }
+
+    @Test
+    void splitRoutingFieldsRoundTripAndDefaultWhenAbsent() {
+        Message.BoxInfoResponse info = (Message.BoxInfoResponse) roundTrip(
+                new Message.BoxInfoResponse(4, Map.of(1, 1, 5, 1)));
+        assertThat(info.splitLevels()).isEqualTo(Map.of(1, 1, 5, 1));
+        Message.ListCandiesRequest list = (Message.ListCandiesRequest) roundTrip(
+                new Message.ListCandiesRequest("box", 5, null, null, 10, null, null, false, null, 0, 8));
+        assertThat(list.partitionModulus()).isEqualTo(8);
+        Message.DeleteRangeRequest range = (Message.DeleteRangeRequest) roundTrip(
+                new Message.DeleteRangeRequest("box", 5, "p/", null, null, 8));
+        assertThat(range.partitionModulus()).isEqualTo(8);
+        Message.ListMultipartUploadsRequest uploads = (Message.ListMultipartUploadsRequest) roundTrip(
+                new Message.ListMultipartUploadsRequest("box", 5, null, null, null, 100, 8));
+        assertThat(uploads.partitionModulus()).isEqualTo(8);
+
+        // Bodies from peers that predate splits: no modulus, no routing flag, no split levels.
+        byte[] moved = codec.encode(new Message.MovedResponse(3)).payload();
+        assertThat(((Message.MovedResponse) codec.decode(new Frame(Opcode.RESPONSE_MOVED,
+                java.util.Arrays.copyOf(moved, moved.length - 1)))).routingChanged()).isFalse();
+        byte[] boxInfo = codec.encode(new Message.BoxInfoResponse(4)).payload();
+        assertThat(((Message.BoxInfoResponse) codec.decode(new Frame(Opcode.RESPONSE_BOX_INFO,
+                java.util.Arrays.copyOf(boxInfo, boxInfo.length - 1)))).splitLevels()).isEmpty();
+        byte[] rangeBody = codec.encode(new Message.DeleteRangeRequest("box", 1, "p/", null, null))
+                .payload();
+        assertThat(((Message.DeleteRangeRequest) codec.decode(new Frame(Opcode.DELETE_RANGE,
+                java.util.Arrays.copyOf(rangeBody, rangeBody.length - 1)))).partitionModulus())
+                .isZero();
     }
 
     @Test
@@ -269,6 +341,34 @@ class MessageCodecTest {
         assertThat(delete.key()).isEqualTo("k/3");
     }
 
+    @Test
+    void readRequestsRoundTripTheirStalenessBound() {
+        assertThat(((Message.GetCandyRequest) roundTrip(
+                new Message.GetCandyRequest("box", "k", 5000))).maxStalenessMillis()).isEqualTo(5000);
+        assertThat(((Message.GetCandyStreamRequest) roundTrip(
+                new Message.GetCandyStreamRequest("box", "k", 5000))).maxStalenessMillis())
+                .isEqualTo(5000);
+        Message.RangeGetCandyRequest range = (Message.RangeGetCandyRequest) roundTrip(
+                new Message.RangeGetCandyRequest("box", "k", 6, 9, 5000));
+        assertThat(range.lastByte()).isEqualTo(9);
+        assertThat(range.maxStalenessMillis()).isEqualTo(5000);
+        assertThat(((Message.HeadCandyRequest) roundTrip(
+                new Message.HeadCandyRequest("box", "k", 5000))).maxStalenessMillis()).isEqualTo(5000);
+        Message.ListCandiesRequest list = (Message.ListCandiesRequest) roundTrip(
+                new Message.ListCandiesRequest("box", 1, "p/", null, 10, null, null, false, "/", 5000));
+        assertThat(list.delimiter()).isEqualTo("/");
+        assertThat(list.maxStalenessMillis()).isEqualTo(5000);
+    }
+
+    @Test
+    void readFromAClientWithoutStalenessSupportAsksTheOwner() {
+        byte[] body = codec.encode(new Message.GetCandyRequest("box", "k")).payload();
+        Message.GetCandyRequest old = (Message.GetCandyRequest) codec.decode(
+                new Frame(Opcode.GET_CANDY, java.util.Arrays.copyOf(body, body.length - 1)));
+        assertThat(old.key()).isEqualTo("k");
+        assertThat(old.maxStalenessMillis()).isZero();
+    }
+
     @Test
     void candyDataResponseRoundTrips() {
         Message.CandyDataResponse resp = new Message.CandyDataResponse(
@@ -449,4 +549,47 @@ class MessageCodecTest {
                 new Message.AuthFailedResponse("Authentication failed"));
         assertThat(failed.message()).isEqualTo("Authentication failed");
     }
+
+    @Test
+    void streamingMessagesRoundTrip() {
+        Message.PutCandyStreamRequest put = (Message.PutCandyStreamRequest) roundTrip(
+                new Message.PutCandyStreamRequest("b", "k", "text/plain", Map.of("a", "1"), "tok",
+                        null, List.of("alice:READ")));
+        assertThat(put.key()).isEqualTo("k");
+        assertThat(put.userMetadata()).containsEntry("a", "1");
+        assertThat(put.owner()).isNull();
+        assertThat(put.grants()).containsExactly("alice:READ");
+
+        Message.UploadPartStreamRequest part = (Message.UploadPartStreamRequest) roundTrip(
+                new Message.UploadPartStreamRequest("b", "k", "u-1", 3));
+        assertThat(part.uploadId()).isEqualTo("u-1");
+        assertThat(part.partNumber()).isEqualTo(3);
+
+        Message.CandyStreamResponse header = (Message.CandyStreamResponse) roundTrip(
+                new Message.CandyStreamResponse(1L << 33, "image/png", Map.of(), 0x55, 9000));
+        assertThat(header.contentLength()).isEqualTo(1L << 33);
+        assertThat(header.createdAtMillis()).isEqualTo(9000);
+
+        byte[] data = {1, 2, 3};
+        Message.StreamChunk chunk = (Message.StreamChunk) roundTrip(new Message.StreamChunk(7, data));
+        assertThat(chunk.crc32c()).isEqualTo(7);
+        assertThat(chunk.data()).isEqualTo(data);
+        assertThat(((Message.StreamAck) roundTrip(new Message.StreamAck(4))).chunks()).isEqualTo(4);
+        assertThat(((Message.StreamEnd) roundTrip(new Message.StreamEnd(null))).error()).isNull();
+        assertThat(((Message.StreamEnd) roundTrip(new Message.StreamEnd("boom"))).error())
+                .isEqualTo("boom");
+    }
+
+    @Test
+    void okResponseFeaturesAreATrailingField() {
+        Message.OkResponse pong = (Message.OkResponse) roundTrip(
+                new Message.OkResponse(Message.OkResponse.STREAMING));
+        assertThat(pong.supports(Message.OkResponse.STREAMING)).isTrue();
+
+        // A node predating streaming answers with an OK carrying no features.
+        byte[] body = codec.encode(new Message.OkResponse()).payload();
+        Message.OkResponse old = (Message.OkResponse) codec.decode(new Frame(Opcode.RESPONSE_OK,
+                java.util.Arrays.copyOf(body, body.length - 1)));
+        assertThat(old.supports(Message.OkResponse.STREAMING)).isFalse();
+    }
 }
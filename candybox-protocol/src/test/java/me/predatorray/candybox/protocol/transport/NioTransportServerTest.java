@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.predatorray.candybox.protocol.transport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import me.predatorray.candybox.protocol.Frame;
+import me.predatorray.candybox.protocol.FrameCodec;
+import me.predatorray.candybox.protocol.Message;
+import me.predatorray.candybox.protocol.MessageCodec;
+import me.predatorray.candybox.protocol.Opcode;
+import me.predatorray.candybox.protocol.ProtocolException;
+import org.junit.jupiter.api.Test;
+
+class NioTransportServerTest {
+
+    private static final FrameCodec CODEC = new FrameCodec();
+    private static final RequestHandler ECHO =
+            req -> new Frame(Opcode.RESPONSE_OK, req.payload());
+
+    @Test
+    void servesMultiplexedAndLegacyClients() {
+        try (NioTransportServer server = new NioTransportServer(0, ECHO, CODEC);
+             TcpTransport multiplexed = new TcpTransport();
+             TcpTransport legacy = new TcpTransport(CODEC, null, false, false);
+             Connection v2 = multiplexed.connect("127.0.0.1", server.port());
+             Connection v1 = legacy.connect("127.0.0.1", server.port())) {
+            for (int i = 0; i < 3; i++) {
+                assertThat(new String(v2.call(new Frame(Opcode.GET_CANDY, ("a" + i).getBytes()))
+                        .payload())).isEqualTo("a" + i);
+                assertThat(new String(v1.call(new Frame(Opcode.GET_CANDY, ("b" + i).getBytes()))
+                        .payload())).isEqualTo("b" + i);
+            }
+        }
+    }
+
+    @Test
+    void streamsBodiesBothWays() {
+        byte[] upload = TransportTest.body(StreamSession.CHUNK_SIZE * 6 + 3);
+        try (NioTransportServer server = new NioTransportServer(0, TransportTest.STREAMING, CODEC);
+             TcpTransport transport = new TcpTransport();
+             Connection conn = transport.connect("127.0.0.1", server.port())) {
+            assertThat(conn.supportsStreaming()).isTrue();
+            assertThat(conn.upload(new Frame(Opcode.PUT_CANDY_STREAM, "k".getBytes()),
+                    new java.io.ByteArrayInputStream(upload)).payload()).isEqualTo(upload);
+
+            java.io.ByteArrayOutputStream sink = new java.io.ByteArrayOutputStream();
+            int length = StreamSession.CHUNK_SIZE * 7 + 11;
+            conn.download(new Frame(Opcode.GET_CANDY_STREAM, String.valueOf(length).getBytes()),
+                    header -> sink);
+            assertThat(sink.toByteArray()).isEqualTo(TransportTest.body(length));
+        }
+    }
+
+    @Test
+    void framesLargerThanTheReadBufferRoundTrip() {
+        byte[] payload = new byte[3 << 20];
+        for (int i = 0; i < payload.length; i++) {
+            payload[i] = (byte) (i * 31);
+        }
+        try (NioTransportServer server = new NioTransportServer(0, ECHO, CODEC);
+             TcpTransport transport = new TcpTransport();
+             Connection conn = transport.connect("127.0.0.1", server.port())) {
+            assertThat(conn.call(new Frame(Opcode.PUT_CANDY, payload)).payload()).isEqualTo(payload);
+        }
+    }
+
+    @Test
+    void answersCorrelatedRequestsOutOfOrder() throws Exception {
+        CountDownLatch fastDone = new CountDownLatch(1);
+        RequestHandler slowWaitsForFast = req -> {
+            String body = new String(req.payload());
+            if (body.equals("slow")) {
+                try {
+                    if (!fastDone.await(10, TimeUnit.SECONDS)) {
+                        body = "timed out";
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            } else {
+                fastDone.countDown();
+            }
+            return new Frame(Opcode.RESPONSE_OK, body.getBytes());
+        };
+        try (NioTransportServer server = new NioTransportServer(0, slowWaitsForFast, CODEC);
+             TcpTransport transport = new TcpTransport();
+             Connection conn = transport.connect("127.0.0.1", server.port())) {
+            CompletableFuture<Frame> slow = CompletableFuture.supplyAsync(
+                    () -> conn.call(new Frame(Opcode.GET_CANDY, "slow".getBytes())));
+            // Only answerable while "slow" is still in flight on the same connection.
+            Frame fast = conn.call(new Frame(Opcode.GET_CANDY, "fast".getBytes()));
+            assertThat(new String(fast.payload())).isEqualTo("fast");
+            assertThat(new String(slow.get(10, TimeUnit.SECONDS).payload())).isEqualTo("slow");
+        }
+    }
+
+    @Test
+    void manyConnectionsShareOneEventLoop() {
+        try (NioTransportServer server = new NioTransportServer(0, ECHO, CODEC);
+             TcpTransport transport = new TcpTransport(CODEC, null, false, false)) {
+            List<Connection> connections = new ArrayList<>();
+            try {
+                for (int i = 0; i < 200; i++) {
+                    connections.add(transport.connect("127.0.0.1", server.port()));
+                }
+                for (int i = 0; i < connections.size(); i++) {
+                    Frame response = connections.get(i).call(
+                            new Frame(Opcode.GET_CANDY, Integer.toString(i).getBytes()));
+                    assertThat(new String(response.payload())).isEqualTo(Integer.toString(i));
+                }
+            } finally {
+                connections.forEach(Connection::close);
+            }
+        }
+    }
+
+    @Test
+    void requestsBeyondTheInFlightLimitAreAnsweredBusy() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch entered = new CountDownLatch(1);
+        RequestHandler blocking = req -> {
+            entered.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return new Frame(Opcode.RESPONSE_OK, req.payload());
+        };
+        try (NioTransportServer server = new NioTransportServer(0, blocking, CODEC, null, false,
+                4, 8, 1);
+             TcpTransport transport = new TcpTransport();
+             Connection conn = transport.connect("127.0.0.1", server.port())) {
+            CompletableFuture<Frame> held = CompletableFuture.supplyAsync(
+                    () -> conn.call(new Frame(Opcode.GET_CANDY, "held".getBytes())));
+            assertThat(entered.await(10, TimeUnit.SECONDS)).isTrue();
+
+            Frame busy = conn.call(new Frame(Opcode.GET_CANDY, "shed".getBytes()));
+            assertThat(new MessageCodec().decode(busy)).isInstanceOf(Message.BusyResponse.class);
+
+            release.countDown();
+            assertThat(new String(held.get(10, TimeUnit.SECONDS).payload())).isEqualTo("held");
+            assertThat(new String(conn.call(new Frame(Opcode.GET_CANDY, "again".getBytes()))
+                    .payload())).isEqualTo("again");
+        }
+    }
+
+    @Test
+    void aFailingHandlerClosesItsConnection() {
+        RequestHandler failing = req -> {
+            throw new IllegalStateException("boom");
+        };
+        try (NioTransportServer server = new NioTransportServer(0, failing, CODEC);
+             TcpTransport transport = new TcpTransport(CODEC, null, false, false);
+             Connection conn = transport.connect("127.0.0.1", server.port())) {
+            assertThatThrownBy(() -> conn.call(new Frame(Opcode.GET_CANDY, new byte[0])))
+                    .isInstanceOf(ProtocolException.class);
+        }
+    }
+}
@@ -105,4 +105,48 @@ class TlsTransportTest {
             }
         }
     }
+
+    @Test
+    void nioServerRoundTripsOverTls() throws Exception {
+        try (NioTransportServer server = nioServer(false)) {
+            SSLContext client = PemTls.clientContext(resource("ca.pem"), null, null);
+            try (TcpTransport transport = new TcpTransport(CODEC, client, true);
+                 Connection connection = transport.connect("localhost", server.port())) {
+                byte[] payload = new byte[1 << 20]; // spans many TLS records
+                payload[payload.length - 1] = 9;
+                for (int i = 0; i < 3; i++) {
+                    Frame response = connection.call(new Frame(Opcode.LIST_BOXES, payload));
+                    assertArrayEquals(payload, response.payload());
+                }
+            }
+        }
+    }
+
+    @Test
+    void nioServerDemandsAClientCertificateUnderMtls() throws Exception {
+        try (NioTransportServer server = nioServer(true)) {
+            SSLContext trusted = PemTls.clientContext(resource("ca.pem"), resource("client.pem"),
+                    resource("client.key"));
+            try (TcpTransport transport = new TcpTransport(CODEC, trusted, true);
+                 Connection connection = transport.connect("localhost", server.port())) {
+                Frame response = connection.call(new Frame(Opcode.LIST_BOXES, new byte[] {7}));
+                assertArrayEquals(new byte[] {7}, response.payload());
+            }
+            SSLContext anonymous = PemTls.clientContext(resource("ca.pem"), null, null);
+            try (TcpTransport transport = new TcpTransport(CODEC, anonymous, true)) {
+                assertThrows(ProtocolException.class, () -> {
+                    try (Connection connection = transport.connect("localhost", server.port())) {
+                        connection.call(new Frame(Opcode.LIST_BOXES, new byte[0]));
+                    }
+                });
+            }
+        }
+    }
+
+    private static NioTransportServer nioServer(boolean needClientAuth) throws URISyntaxException {
+        return new NioTransportServer(0, ECHO, CODEC, serverContext(), needClientAuth,
+                NioTransportServer.DEFAULT_WORKER_THREADS,
+                TcpTransportServer.DEFAULT_MAX_IN_FLIGHT_PER_CONNECTION,
+                TcpTransportServer.DEFAULT_MAX_IN_FLIGHT);
+    }
 }
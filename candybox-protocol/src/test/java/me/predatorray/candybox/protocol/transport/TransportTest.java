@@ -16,8 +16,26 @@
 package me.predatorray.candybox.protocol.transport;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import me.predatorray.candybox.common.exception.StorageException;
 import me.predatorray.candybox.protocol.Frame;
+import me.predatorray.candybox.protocol.FrameCodec;
+import me.predatorray.candybox.protocol.Message;
+import me.predatorray.candybox.protocol.MessageCodec;
 import me.predatorray.candybox.protocol.Opcode;
 import org.junit.jupiter.api.Test;
 
@@ -27,6 +45,54 @@ class TransportTest {
     private static final RequestHandler ECHO =
             req -> new Frame(Opcode.RESPONSE_OK, req.payload());
 
+    /**
+     * Streams bodies both ways: a {@code PUT_CANDY_STREAM} is answered with its body echoed inline
+     * (or, for a {@code "moved"} request, before reading it at all); a {@code GET_CANDY_STREAM} for
+     * {@code n} is answered with {@link #body(int) body(n)} as a stream (or, for {@code "abort"}, part
+     * of one cut short by an error).
+     */
+    static final RequestHandler STREAMING = new RequestHandler() {
+        @Override
+        public Frame handle(Frame request) {
+            return new Frame(Opcode.RESPONSE_OK, request.payload());
+        }
+
+        @Override
+        public Frame handle(ConnectionContext context, Frame request, Exchange exchange) {
+            String arg = new String(request.payload());
+            try {
+                if (request.opcode() == Opcode.PUT_CANDY_STREAM) {
+                    if (arg.equals("moved")) {
+                        return new Frame(Opcode.RESPONSE_MOVED, new byte[0]);
+                    }
+                    return new Frame(Opcode.RESPONSE_OK, exchange.requestBody().readAllBytes());
+                }
+                if (request.opcode() == Opcode.GET_CANDY_STREAM) {
+                    OutputStream out = exchange.respondWithBody(
+                            new Frame(Opcode.RESPONSE_CANDY_STREAM, new byte[0]));
+                    if (arg.equals("abort")) {
+                        out.write(body(200_000));
+                        return new Frame(Opcode.RESPONSE_ERROR, new byte[0]);
+                    }
+                    out.write(body(Integer.parseInt(arg)));
+                    return null;
+                }
+            } catch (IOException e) {
+                return new Frame(Opcode.RESPONSE_ERROR, new byte[0]); // the stream was cut short
+            }
+            return handle(context, request);
+        }
+    };
+
+    /** A recognizable body of {@code length} bytes, spanning several chunks once it is large. */
+    static byte[] body(int length) {
+        byte[] data = new byte[length];
+        for (int i = 0; i < length; i++) {
+            data[i] = (byte) (i * 31 + (i >>> 16));
+        }
+        return data;
+    }
+
     @Test
     void loopbackTransportDeliversThroughTheCodec() {
         try (LoopbackTransport transport = new LoopbackTransport(ECHO);
@@ -50,4 +116,219 @@ class TransportTest {
             }
         }
     }
+
+    @Test
+    void multiplexedConnectionAnswersRequestsOutOfOrder() throws Exception {
+        CountDownLatch fastDone = new CountDownLatch(1);
+        RequestHandler slowWaitsForFast = req -> {
+            String body = new String(req.payload());
+            if (body.equals("slow")) {
+                try {
+                    if (!fastDone.await(10, TimeUnit.SECONDS)) {
+                        body = "timed out";
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            } else {
+                fastDone.countDown();
+            }
+            return new Frame(Opcode.RESPONSE_OK, body.getBytes());
+        };
+        try (TcpTransportServer server = new TcpTransportServer(0, slowWaitsForFast, new FrameCodec());
+             TcpTransport transport = new TcpTransport();
+             Connection conn = transport.connect("127.0.0.1", server.port())) {
+            CompletableFuture<Frame> slow = CompletableFuture.supplyAsync(
+                    () -> conn.call(new Frame(Opcode.GET_CANDY, "slow".getBytes())));
+            // Only answerable while "slow" is still in flight on the same connection.
+            Frame fast = conn.call(new Frame(Opcode.GET_CANDY, "fast".getBytes()));
+            assertThat(new String(fast.payload())).isEqualTo("fast");
+            assertThat(fast.isCorrelated()).isFalse();
+            assertThat(new String(slow.get(10, TimeUnit.SECONDS).payload())).isEqualTo("slow");
+        }
+    }
+
+    @Test
+    void tcpTransportFallsBackToVersionOneFramingForALegacyNode() throws Exception {
+        try (ServerSocket legacy = new ServerSocket(0);
+             TcpTransport transport = new TcpTransport()) {
+            Thread node = new Thread(() -> serveVersionOneEcho(legacy));
+            node.setDaemon(true);
+            node.start();
+            try (Connection conn = transport.connect("127.0.0.1", legacy.getLocalPort())) {
+                Frame r1 = conn.call(new Frame(Opcode.GET_CANDY, "one".getBytes()));
+                Frame r2 = conn.call(new Frame(Opcode.GET_CANDY, "two".getBytes()));
+                assertThat(new String(r1.payload())).isEqualTo("one");
+                assertThat(new String(r2.payload())).isEqualTo("two");
+            }
+        }
+    }
+
+    @Test
+    void tcpServerAnswersBusyBeyondItsInFlightLimit() throws Exception {
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        RequestHandler blocking = req -> {
+            entered.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return new Frame(Opcode.RESPONSE_OK, req.payload());
+        };
+        try (TcpTransportServer server = new TcpTransportServer(0, blocking, new FrameCodec(),
+                null, false, 8, 1);
+             TcpTransport transport = new TcpTransport();
+             Connection conn = transport.connect("127.0.0.1", server.port())) {
+            CompletableFuture<Frame> held = CompletableFuture.supplyAsync(
+                    () -> conn.call(new Frame(Opcode.GET_CANDY, "held".getBytes())));
+            assertThat(entered.await(10, TimeUnit.SECONDS)).isTrue();
+
+            Frame busy = conn.call(new Frame(Opcode.GET_CANDY, "shed".getBytes()));
+            assertThat(new MessageCodec().decode(busy)).isInstanceOf(Message.BusyResponse.class);
+
+            release.countDown();
+            assertThat(new String(held.get(10, TimeUnit.SECONDS).payload())).isEqualTo("held");
+        }
+    }
+
+    @Test
+    void pingIsAnsweredByTheTransportNotTheHandler() {
+        RequestHandler refuses = req -> {
+            throw new AssertionError("handler must not see " + req.opcode());
+        };
+        try (LoopbackTransport transport = new LoopbackTransport(refuses);
+             Connection conn = transport.connect("ignored", 0)) {
+            Frame response = conn.call(new Frame(Opcode.PING, new byte[0], 7));
+            assertThat(response.opcode()).isEqualTo(Opcode.RESPONSE_OK);
+            assertThat(response.requestId()).isEqualTo(7);
+        }
+    }
+
+    @Test
+    void bodiesStreamBothWaysOverAMultiplexedConnection() {
+        byte[] upload = body(StreamSession.CHUNK_SIZE * (StreamSession.WINDOW + 3) + 17);
+        try (TcpTransportServer server = new TcpTransportServer(0, STREAMING, new FrameCodec());
+             TcpTransport transport = new TcpTransport();
+             Connection conn = transport.connect("127.0.0.1", server.port())) {
+            assertThat(conn.supportsStreaming()).isTrue();
+            Frame put = conn.upload(new Frame(Opcode.PUT_CANDY_STREAM, "k".getBytes()),
+                    new ByteArrayInputStream(upload));
+            assertThat(put.payload()).isEqualTo(upload);
+
+            for (int length : new int[] {0, 5, StreamSession.CHUNK_SIZE * 9 + 1}) {
+                ByteArrayOutputStream sink = new ByteArrayOutputStream();
+                Frame header = conn.download(
+                        new Frame(Opcode.GET_CANDY_STREAM, String.valueOf(length).getBytes()),
+                        h -> sink);
+                assertThat(header.opcode()).isEqualTo(Opcode.RESPONSE_CANDY_STREAM);
+                assertThat(sink.toByteArray()).isEqualTo(body(length));
+            }
+        }
+    }
+
+    @Test
+    void anUploadAnsweredBeforeItsBodyIsReadDrawsNothing() {
+        AtomicInteger reads = new AtomicInteger();
+        InputStream untouched = new InputStream() {
+            @Override
+            public int read() {
+                reads.incrementAndGet();
+                return -1;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) {
+                reads.incrementAndGet();
+                return -1;
+            }
+        };
+        try (TcpTransportServer server = new TcpTransportServer(0, STREAMING, new FrameCodec());
+             TcpTransport transport = new TcpTransport();
+             Connection conn = transport.connect("127.0.0.1", server.port())) {
+            Frame moved = conn.upload(new Frame(Opcode.PUT_CANDY_STREAM, "moved".getBytes()),
+                    untouched);
+            assertThat(moved.opcode()).isEqualTo(Opcode.RESPONSE_MOVED);
+            assertThat(reads).hasValue(0);
+            assertThat(new String(conn.call(new Frame(Opcode.GET_CANDY, "next".getBytes()))
+                    .payload())).isEqualTo("next");
+        }
+    }
+
+    @Test
+    void anAbortedDownloadFailsOnlyItsOwnCall() {
+        try (TcpTransportServer server = new TcpTransportServer(0, STREAMING, new FrameCodec());
+             TcpTransport transport = new TcpTransport();
+             Connection conn = transport.connect("127.0.0.1", server.port())) {
+            assertThatThrownBy(() -> conn.download(
+                    new Frame(Opcode.GET_CANDY_STREAM, "abort".getBytes()),
+                    h -> OutputStream.nullOutputStream()))
+                    .isInstanceOf(StorageException.class);
+            assertThat(new String(conn.call(new Frame(Opcode.GET_CANDY, "still up".getBytes()))
+                    .payload())).isEqualTo("still up");
+        }
+    }
+
+    @Test
+    void aFailingRequestBodyCancelsTheUpload() {
+        InputStream failing = new InputStream() {
+            @Override
+            public int read() throws IOException {
+                throw new IOException("disk gone");
+            }
+        };
+        try (TcpTransportServer server = new TcpTransportServer(0, STREAMING, new FrameCodec());
+             TcpTransport transport = new TcpTransport();
+             Connection conn = transport.connect("127.0.0.1", server.port())) {
+            assertThatThrownBy(() -> conn.upload(
+                    new Frame(Opcode.PUT_CANDY_STREAM, "k".getBytes()), failing))
+                    .isInstanceOf(StorageException.class);
+            assertThat(new String(conn.call(new Frame(Opcode.GET_CANDY, "still up".getBytes()))
+                    .payload())).isEqualTo("still up");
+        }
+    }
+
+    @Test
+    void loopbackAndLegacyConnectionsDoNotStream() throws Exception {
+        try (LoopbackTransport loopback = new LoopbackTransport(ECHO);
+             Connection conn = loopback.connect("ignored", 0)) {
+            assertThat(conn.supportsStreaming()).isFalse();
+        }
+        try (ServerSocket legacy = new ServerSocket(0);
+             TcpTransport transport = new TcpTransport()) {
+            Thread node = new Thread(() -> serveVersionOneEcho(legacy));
+            node.setDaemon(true);
+            node.start();
+            try (Connection conn = transport.connect("127.0.0.1", legacy.getLocalPort())) {
+                assertThat(conn.supportsStreaming()).isFalse();
+            }
+        }
+    }
+
+    /**
+     * A node predating version 2 framing: hangs up on any other version, echoes version 1 frames.
+     * Serves connections one after another until the socket closes.
+     */
+    private static void serveVersionOneEcho(ServerSocket legacy) {
+        while (!legacy.isClosed()) {
+            try (Socket socket = legacy.accept();
+                 DataInputStream in = new DataInputStream(socket.getInputStream());
+                 DataOutputStream out = new DataOutputStream(socket.getOutputStream())) {
+                while (true) {
+                    byte[] header = new byte[4];
+                    in.readFully(header);
+                    if (header[2] != FrameCodec.VERSION) {
+                        break;
+                    }
+                    byte[] payload = new byte[in.readInt()];
+                    in.readFully(payload);
+                    out.write(new FrameCodec().encode(new Frame(Opcode.RESPONSE_OK, payload)));
+                    out.flush();
+                }
+            } catch (java.io.IOException closed) {
+                // peer or listener closed
+            }
+        }
+    }
 }
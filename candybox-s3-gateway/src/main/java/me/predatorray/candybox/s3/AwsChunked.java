@@ -15,7 +15,13 @@
  */
 package me.predatorray.candybox.s3;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PushbackInputStream;
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
@@ -37,9 +43,16 @@ import java.util.Map;
  *
  * <p>If we stored the framing verbatim the object would be corrupted, so this decoder must run
  * before the bytes reach {@code putCandy}. See {@code S3_GATEWAY_PLAN.md} §10.
+ *
+ * <p>{@link #decoder} unframes incrementally, handing each chunk's bytes and then its signature to a
+ * {@link Listener} as they pass, so a streamed upload is verified chunk by chunk without ever
+ * holding the body; {@link #decode} is the same parse over a buffered body.
  */
 final class AwsChunked {
 
+    /** Longest chunk-header or trailer line accepted, so a garbage body cannot grow one unbounded. */
+    private static final int MAX_LINE = 4096;
+
     private AwsChunked() {
     }
 
@@ -52,6 +65,29 @@ final class AwsChunked {
     record Decoded(byte[] payload, List<Chunk> chunks, Map<String, String> trailers) {
     }
 
+    /**
+     * Callbacks from a {@link #decoder} in body order. Each runs before the bytes it concerns are
+     * handed on, so throwing an {@link S3Exception} from one rejects the body before its reader sees
+     * the end of it.
+     */
+    interface Listener {
+
+        Listener NONE = new Listener() {
+        };
+
+        /** The next {@code length} bytes of the current chunk's data. */
+        default void data(byte[] b, int offset, int length) {
+        }
+
+        /** The current chunk ended (the empty final chunk included); null when it is unsigned. */
+        default void chunkEnd(String signature) {
+        }
+
+        /** The body ended, with its trailing headers (lower-cased names). */
+        default void end(Map<String, String> trailers) {
+        }
+    }
+
     /** Whether a request body is {@code aws-chunked} framed, from its headers. */
     static boolean isChunked(String contentEncoding, String contentSha256) {
         if (contentEncoding != null && contentEncoding.toLowerCase().contains("aws-chunked")) {
@@ -62,21 +98,96 @@ final class AwsChunked {
 
     /** Decodes the framed body into the raw payload + signatures + trailers. */
     static Decoded decode(byte[] framed) {
-        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, framed.length));
+        ByteArrayOutputStream payload = new ByteArrayOutputStream(Math.max(64, framed.length));
         List<Chunk> chunks = new ArrayList<>();
         Map<String, String> trailers = new LinkedHashMap<>();
-        int pos = 0;
-        while (pos < framed.length) {
-            int eol = indexOfCrlf(framed, pos);
-            if (eol < 0) {
-                throw new S3Exception(S3ErrorCode.INVALID_REQUEST,
-                        "Malformed aws-chunked body: no chunk header");
+        ByteArrayOutputStream chunk = new ByteArrayOutputStream();
+        Listener collector = new Listener() {
+            @Override
+            public void data(byte[] b, int offset, int length) {
+                chunk.write(b, offset, length);
+            }
+
+            @Override
+            public void chunkEnd(String signature) {
+                chunks.add(new Chunk(chunk.toByteArray(), signature));
+                chunk.reset();
+            }
+
+            @Override
+            public void end(Map<String, String> parsed) {
+                trailers.putAll(parsed);
+            }
+        };
+        try (InputStream in = decoder(new ByteArrayInputStream(framed), collector)) {
+            in.transferTo(payload);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // unreachable: the source is in memory
+        }
+        return new Decoded(payload.toByteArray(), chunks, trailers);
+    }
+
+    /**
+     * The raw payload of the framed body {@code framed}, unframed as it is read. Reading it to EOF
+     * consumes {@code framed} to EOF too; malformed framing fails the read with an
+     * {@link S3Exception}.
+     */
+    static InputStream decoder(InputStream framed, Listener listener) {
+        return new Decoder(framed, listener);
+    }
+
+    private static final class Decoder extends InputStream {
+
+        private final PushbackInputStream in;
+        private final Listener listener;
+        private int remaining;
+        private String signature;
+        private boolean finished;
+
+        Decoder(InputStream framed, Listener listener) {
+            this.in = new PushbackInputStream(framed, 2);
+            this.listener = listener;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) < 0 ? -1 : one[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            while (remaining == 0) {
+                if (finished || !nextChunk()) {
+                    return -1;
+                }
+            }
+            int n = in.read(b, off, Math.min(len, remaining));
+            if (n < 0) {
+                throw new S3Exception(S3ErrorCode.INVALID_REQUEST, "Truncated aws-chunked chunk");
+            }
+            listener.data(b, off, n);
+            remaining -= n;
+            if (remaining == 0) {
+                skipDataCrlf();
+                listener.chunkEnd(signature);
+            }
+            return n;
+        }
+
+        /** Reads the next chunk header; false (having finished the body) at the final chunk. */
+        private boolean nextChunk() throws IOException {
+            String header = readLine(false);
+            if (header == null) {
+                finish(Map.of());
+                return false;
             }
-            String header = new String(framed, pos, eol - pos, StandardCharsets.US_ASCII);
-            pos = eol + 2;
             int semi = header.indexOf(';');
             String sizeHex = (semi >= 0 ? header.substring(0, semi) : header).trim();
-            String signature = null;
+            signature = null;
             if (semi >= 0) {
                 String ext = header.substring(semi + 1).trim();
                 if (ext.startsWith("chunk-signature=")) {
@@ -87,58 +198,98 @@ final class AwsChunked {
             try {
                 size = Integer.parseInt(sizeHex, 16);
             } catch (NumberFormatException e) {
+                size = -1;
+            }
+            if (size < 0) {
                 throw new S3Exception(S3ErrorCode.INVALID_REQUEST,
                         "Malformed aws-chunked size: " + sizeHex);
             }
-            if (size == 0) {
-                chunks.add(new Chunk(new byte[0], signature));
-                pos = readTrailers(framed, pos, trailers);
-                break;
+            if (size > 0) {
+                remaining = size;
+                return true;
             }
-            if (pos + size > framed.length) {
-                throw new S3Exception(S3ErrorCode.INVALID_REQUEST, "Truncated aws-chunked chunk");
-            }
-            byte[] data = new byte[size];
-            System.arraycopy(framed, pos, data, 0, size);
-            chunks.add(new Chunk(data, signature));
-            out.write(framed, pos, size);
-            pos += size;
-            // Each chunk's data is followed by a CRLF.
-            if (pos + 2 <= framed.length && framed[pos] == '\r' && framed[pos + 1] == '\n') {
-                pos += 2;
+            listener.chunkEnd(signature);
+            finish(readTrailers());
+            return false;
+        }
+
+        private void finish(Map<String, String> trailers) throws IOException {
+            finished = true;
+            listener.end(trailers);
+            // Anything after the final chunk is ignored, but consumed so the body ends with us.
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+
+        /** Parses {@code name: value\r\n} trailer lines after the final chunk, until a blank line/EOF. */
+        private Map<String, String> readTrailers() throws IOException {
+            Map<String, String> trailers = new LinkedHashMap<>();
+            String line;
+            while ((line = readLine(true)) != null && !line.isEmpty()) {
+                int colon = line.indexOf(':');
+                if (colon > 0) {
+                    trailers.put(line.substring(0, colon).trim().toLowerCase(Locale.ROOT),
+                            line.substring(colon + 1).trim());
+                }
             }
+            return trailers;
         }
-        return new Decoded(out.toByteArray(), chunks, trailers);
-    }
 
-    /** Parses {@code name: value\r\n} trailer lines after the final chunk, until a blank line/EOF. */
-    private static int readTrailers(byte[] framed, int pos, Map<String, String> trailers) {
-        while (pos < framed.length) {
-            int eol = indexOfCrlf(framed, pos);
-            if (eol < 0) {
-                // Tolerate a final unterminated trailer line.
-                eol = framed.length;
+        /** Each chunk's data is followed by a CRLF, tolerated when missing. */
+        private void skipDataCrlf() throws IOException {
+            int cr = in.read();
+            if (cr != '\r') {
+                unread(cr);
+                return;
             }
-            if (eol == pos) {
-                return eol + 2; // blank line ends the trailers
+            int lf = in.read();
+            if (lf != '\n') {
+                unread(lf);
+                in.unread(cr);
             }
-            String line = new String(framed, pos, eol - pos, StandardCharsets.US_ASCII);
-            int colon = line.indexOf(':');
-            if (colon > 0) {
-                trailers.put(line.substring(0, colon).trim().toLowerCase(Locale.ROOT),
-                        line.substring(colon + 1).trim());
+        }
+
+        /**
+         * The next CRLF-terminated line, or null at EOF before any of it. A line cut short by EOF is
+         * returned when {@code tolerateEof} (a final unterminated trailer), else rejected.
+         */
+        private String readLine(boolean tolerateEof) throws IOException {
+            ByteArrayOutputStream line = new ByteArrayOutputStream(32);
+            while (true) {
+                int c = in.read();
+                if (c < 0) {
+                    if (line.size() == 0) {
+                        return null;
+                    }
+                    if (!tolerateEof) {
+                        throw new S3Exception(S3ErrorCode.INVALID_REQUEST,
+                                "Malformed aws-chunked body: no chunk header");
+                    }
+                    return line.toString(StandardCharsets.US_ASCII);
+                }
+                if (c == '\r') {
+                    int next = in.read();
+                    if (next == '\n') {
+                        return line.toString(StandardCharsets.US_ASCII);
+                    }
+                    unread(next);
+                }
+                if (line.size() == MAX_LINE) {
+                    throw new S3Exception(S3ErrorCode.INVALID_REQUEST,
+                            "Malformed aws-chunked body: line too long");
+                }
+                line.write(c);
             }
-            pos = eol + 2;
         }
-        return pos;
-    }
 
-    private static int indexOfCrlf(byte[] b, int from) {
-        for (int i = from; i + 1 < b.length; i++) {
-            if (b[i] == '\r' && b[i + 1] == '\n') {
-                return i;
+        private void unread(int c) throws IOException {
+            if (c >= 0) {
+                in.unread(c);
             }
         }
-        return -1;
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
     }
 }
@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) 2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.predatorray.candybox.s3;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+
+/**
+ * A streamed request body, bridging the I/O event loop that receives its {@code HttpContent} to the
+ * blocking worker that reads it as an {@link InputStream} (see {@code S3_GATEWAY_PLAN.md} §4).
+ *
+ * <p>Backpressure is the channel's auto-read: once more than {@link #HIGH_WATERMARK} bytes are
+ * queued the channel stops reading the socket, and it resumes when the reader has drained the
+ * queue below {@link #LOW_WATERMARK} — so a slow node slows the uploader instead of filling the
+ * gateway's heap.
+ *
+ * <p>A {@code 100 Continue} the client asked for is sent on the first read, so a request answered
+ * without its body (a denial, a redirect-worthy error) never has the client send it.
+ */
+final class BlockingBridge extends InputStream {
+
+    static final int HIGH_WATERMARK = 1024 * 1024;
+    static final int LOW_WATERMARK = 256 * 1024;
+
+    private final Channel channel;
+    private final ArrayDeque<ByteBuf> queue = new ArrayDeque<>();
+    private boolean continueExpected;
+    private long queued;
+    private boolean paused;
+    private boolean ended;
+    private boolean closed;
+    private Throwable failure;
+
+    BlockingBridge(Channel channel, boolean continueExpected) {
+        this.channel = channel;
+        this.continueExpected = continueExpected;
+    }
+
+    /** Queues the next piece of the body (event loop); the bridge takes its own reference. */
+    void offer(ByteBuf content) {
+        if (!content.isReadable()) {
+            return;
+        }
+        synchronized (this) {
+            if (closed || ended) {
+                return;
+            }
+            queue.add(content.retain());
+            queued += content.readableBytes();
+            if (queued > HIGH_WATERMARK && !paused) {
+                paused = true;
+                channel.config().setAutoRead(false);
+            }
+            notifyAll();
+        }
+    }
+
+    /** The last of the body has been queued (event loop). */
+    synchronized void end() {
+        ended = true;
+        notifyAll();
+    }
+
+    /** The body will never be complete — the connection closed or broke (event loop). */
+    synchronized void fail(Throwable cause) {
+        if (!ended && failure == null) {
+            failure = cause;
+            notifyAll();
+        }
+    }
+
+    /** Whether the whole body has arrived, read or not. */
+    synchronized boolean ended() {
+        return ended;
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] one = new byte[1];
+        return read(one, 0, 1) < 0 ? -1 : one[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        sendContinueIfExpected();
+        synchronized (this) {
+            ByteBuf head;
+            while ((head = queue.peek()) == null) {
+                if (closed) {
+                    throw new IOException("Request body closed");
+                }
+                if (ended) {
+                    return -1;
+                }
+                if (failure != null) {
+                    throw new IOException("Request body incomplete", failure);
+                }
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted awaiting the request body");
+                }
+            }
+            int n = Math.min(len, head.readableBytes());
+            head.readBytes(b, off, n);
+            if (!head.isReadable()) {
+                queue.poll().release();
+            }
+            queued -= n;
+            if (paused && queued < LOW_WATERMARK) {
+                paused = false;
+                channel.config().setAutoRead(true);
+            }
+            return n;
+        }
+    }
+
+    @Override
+    public synchronized int available() {
+        return (int) Math.min(queued, Integer.MAX_VALUE);
+    }
+
+    private void sendContinueIfExpected() {
+        boolean send;
+        synchronized (this) {
+            send = continueExpected;
+            continueExpected = false;
+        }
+        if (send) {
+            channel.writeAndFlush(new DefaultFullHttpResponse(HttpVersion.HTTP_1_1,
+                    HttpResponseStatus.CONTINUE, Unpooled.EMPTY_BUFFER));
+        }
+    }
+
+    /** Releases whatever is still queued; pieces arriving later are dropped. */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            ByteBuf buf;
+            while ((buf = queue.poll()) != null) {
+                buf.release();
+            }
+            queued = 0;
+            notifyAll();
+            if (!paused) {
+                return;
+            }
+            paused = false;
+        }
+        channel.config().setAutoRead(true);
+    }
+}
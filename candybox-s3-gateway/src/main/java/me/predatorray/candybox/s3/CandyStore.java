@@ -15,9 +15,13 @@
  */
 package me.predatorray.candybox.s3;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
 import me.predatorray.candybox.client.CandyboxClient.CandyInfo;
 import me.predatorray.candybox.client.CandyboxClient.Listing;
 import me.predatorray.candybox.client.CandyboxClient.MultipartListing;
@@ -26,6 +30,7 @@ import me.predatorray.candybox.client.CandyboxClient.PartUploadInfo;
 import me.predatorray.candybox.client.CandyboxClient.RangeBytes;
 import me.predatorray.candybox.common.auth.BoxAcl;
 import me.predatorray.candybox.common.auth.ObjectAcl;
+import me.predatorray.candybox.common.exception.StorageException;
 
 /**
  * The narrow seam the gateway's request handling depends on, exactly the subset of the Candybox client
@@ -33,6 +38,10 @@ import me.predatorray.candybox.common.auth.ObjectAcl;
  * {@code CandyboxClient}); unit tests pass a hand-written in-memory fake, so the Netty handler can be
  * exercised with {@code EmbeddedChannel} and no sockets. Methods throw the Candybox exception hierarchy,
  * which {@link ErrorMapper} translates to S3 errors.
+ *
+ * <p>The {@code InputStream}/{@code OutputStream} variants are what the handler uses for object
+ * bodies; their defaults buffer through the {@code byte[]} methods, so a fake need only implement
+ * those, while {@link CandyboxClientStore} streams them to and from the node.
  */
 interface CandyStore {
 
@@ -54,8 +63,32 @@ interface CandyStore {
         putCandy(box, key, data, contentType, userMetadata);
     }
 
+    /**
+     * Streaming {@code putCandy}: reads {@code data} to EOF (not closed). The default buffers it and
+     * delegates to the {@code byte[]} variant.
+     */
+    default void putCandy(String box, String key, InputStream data, String contentType,
+                          Map<String, String> userMetadata, String owner, List<String> grants) {
+        putCandy(box, key, readFully(data), contentType, userMetadata, owner, grants);
+    }
+
     byte[] getCandy(String box, String key);
 
+    /**
+     * Streaming GET: once the object's metadata is known, writes its bytes to the stream
+     * {@code sink} returns for it (not closed), and returns that metadata.
+     */
+    default CandyInfo getCandy(String box, String key, Function<CandyInfo, OutputStream> sink) {
+        CandyInfo info = headCandy(box, key);
+        byte[] data = getCandy(box, key);
+        try {
+            sink.apply(info).write(data);
+        } catch (IOException e) {
+            throw new StorageException("Failed writing Candy to output stream", e);
+        }
+        return info;
+    }
+
     /**
      * Range GET: returns a byte window of an object. {@code firstByte}/{@code lastByte} follow the
      * HTTP {@code Range:} convention (inclusive on both ends, {@code -1} sentinel for "unbounded").
@@ -74,7 +107,12 @@ interface CandyStore {
         return copyCandy(box, srcKey, dstKey);
     }
 
-    Listing listCandies(String box, String prefix, String startAfter, int maxKeys);
+    /**
+     * Lists a page of a Box. With a non-null {@code delimiter}, keys containing it after
+     * {@code prefix} come back rolled up into the listing's common prefixes, which count against
+     * {@code maxKeys}.
+     */
+    Listing listCandies(String box, String prefix, String delimiter, String startAfter, int maxKeys);
 
     // ---- ACLs ---------------------------------------------------------------------------------
 
@@ -102,6 +140,12 @@ interface CandyStore {
 
     PartUploadInfo uploadPart(String box, String key, String uploadId, int partNumber, byte[] data);
 
+    /** Streaming {@code uploadPart}; the default buffers {@code data}. */
+    default PartUploadInfo uploadPart(String box, String key, String uploadId, int partNumber,
+                                      InputStream data) {
+        return uploadPart(box, key, uploadId, partNumber, readFully(data));
+    }
+
     PartUploadInfo uploadPartCopy(String box, String key, String uploadId, int partNumber,
                                   String srcKey, long firstByte, long lastByte);
 
@@ -120,4 +164,12 @@ interface CandyStore {
                                           String uploadIdMarker, int maxUploads);
 
     PartListing listParts(String box, String key, String uploadId, int partNumberMarker, int maxParts);
+
+    private static byte[] readFully(InputStream in) {
+        try {
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new StorageException("Failed reading input stream", e);
+        }
+    }
 }
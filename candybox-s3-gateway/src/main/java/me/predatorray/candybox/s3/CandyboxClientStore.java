@@ -15,8 +15,11 @@
  */
 package me.predatorray.candybox.s3;
 
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 import me.predatorray.candybox.client.CandyboxClient;
 import me.predatorray.candybox.client.CandyboxClient.CandyInfo;
 import me.predatorray.candybox.client.CandyboxClient.Listing;
@@ -27,8 +30,9 @@ import me.predatorray.candybox.client.CandyboxClient.RangeBytes;
 
 /**
  * The production {@link CandyStore}: delegates to a cluster-aware {@link CandyboxClient}. Object writes
- * pass a {@code null} idempotency token (S3 PUT has no such concept). The gateway owns the client's
- * lifecycle and closes it on shutdown.
+ * pass a {@code null} idempotency token (S3 PUT has no such concept). Object bodies go through the
+ * client's streaming overloads, so the gateway never holds a whole PUT or GET in memory. The gateway
+ * owns the client's lifecycle and closes it on shutdown.
  */
 final class CandyboxClientStore implements CandyStore, AutoCloseable {
 
@@ -71,6 +75,13 @@ final class CandyboxClientStore implements CandyStore, AutoCloseable {
         client.putCandy(box, key, data, contentType, userMetadata, null, owner, grants);
     }
 
+    @Override
+    public void putCandy(String box, String key, InputStream data, String contentType,
+                         Map<String, String> userMetadata, String owner,
+                         List<String> grants) {
+        client.putCandy(box, key, data, contentType, userMetadata, null, owner, grants);
+    }
+
     @Override
     public CandyInfo copyCandy(String box, String srcKey, String dstKey, String owner,
                                List<String> grants) {
@@ -110,6 +121,11 @@ final class CandyboxClientStore implements CandyStore, AutoCloseable {
         return client.getCandy(box, key);
     }
 
+    @Override
+    public CandyInfo getCandy(String box, String key, Function<CandyInfo, OutputStream> sink) {
+        return client.getCandy(box, key, sink);
+    }
+
     @Override
     public RangeBytes getCandyRange(String box, String key, long firstByte, long lastByte) {
         return client.getCandyRange(box, key, firstByte, lastByte);
@@ -131,8 +147,9 @@ final class CandyboxClientStore implements CandyStore, AutoCloseable {
     }
 
     @Override
-    public Listing listCandies(String box, String prefix, String startAfter, int maxKeys) {
-        return client.listCandies(box, prefix, startAfter, maxKeys);
+    public Listing listCandies(String box, String prefix, String delimiter, String startAfter,
+                               int maxKeys) {
+        return client.listCandies(box, prefix, delimiter, startAfter, maxKeys);
     }
 
     @Override
@@ -147,6 +164,12 @@ final class CandyboxClientStore implements CandyStore, AutoCloseable {
         return client.uploadPart(box, key, uploadId, partNumber, data);
     }
 
+    @Override
+    public PartUploadInfo uploadPart(String box, String key, String uploadId, int partNumber,
+                                     InputStream data) {
+        return client.uploadPart(box, key, uploadId, partNumber, data);
+    }
+
     @Override
     public PartUploadInfo uploadPartCopy(String box, String key, String uploadId, int partNumber,
                                          String srcKey, long firstByte, long lastByte) {
@@ -25,6 +25,7 @@ import me.predatorray.candybox.common.exception.CandyboxException;
 import me.predatorray.candybox.common.exception.FencedException;
 import me.predatorray.candybox.common.exception.LimitExceededException;
 import me.predatorray.candybox.common.exception.NotOwnerException;
+import me.predatorray.candybox.common.exception.StorageException;
 import me.predatorray.candybox.common.exception.ValidationException;
 
 /**
@@ -51,6 +52,10 @@ final class ErrorMapper {
         if (t instanceof S3Exception s3) {
             return s3;
         }
+        if (t instanceof StorageException && t.getCause() instanceof S3Exception s3) {
+            // A streamed body failed verification while the client was sending it to the node.
+            return s3;
+        }
         if (t instanceof LimitExceededException e) {
             String msg = lower(e.getMessage());
             S3ErrorCode code = msg.contains("key") ? S3ErrorCode.KEY_TOO_LONG : S3ErrorCode.ENTITY_TOO_LARGE;
@@ -15,8 +15,12 @@
  */
 package me.predatorray.candybox.s3;
 
-import io.netty.handler.codec.http.FullHttpRequest;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 import java.time.Duration;
 import java.time.Instant;
 import java.time.ZoneOffset;
@@ -26,6 +30,8 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.CRC32C;
 import me.predatorray.candybox.common.Clock;
 import me.predatorray.candybox.common.auth.Principal;
 import me.predatorray.candybox.common.auth.S3Key;
@@ -74,7 +80,7 @@ final class S3Authenticator {
         }
     }
 
-    S3Auth authenticate(FullHttpRequest request) {
+    S3Auth authenticate(S3Request request) {
         if (!enabled) {
             return S3Auth.anonymous();
         }
@@ -92,7 +98,7 @@ final class S3Authenticator {
                 : verifyHeader(request, authorization, rawQuery);
     }
 
-    private S3Auth verifyHeader(FullHttpRequest request, String authorization,
+    private S3Auth verifyHeader(S3Request request, String authorization,
                                 Map<String, List<String>> rawQuery) {
         if (!authorization.startsWith(SigV4.ALGORITHM)) {
             throw new S3Exception(S3ErrorCode.INVALID_REQUEST,
@@ -138,7 +144,7 @@ final class S3Authenticator {
                 header.credential().scope());
     }
 
-    private S3Auth verifyPresigned(FullHttpRequest request, Map<String, List<String>> rawQuery) {
+    private S3Auth verifyPresigned(S3Request request, Map<String, List<String>> rawQuery) {
         if (!SigV4.ALGORITHM.equals(first(rawQuery, "X-Amz-Algorithm"))) {
             throw new S3Exception(S3ErrorCode.INVALID_REQUEST, "Unsupported X-Amz-Algorithm");
         }
@@ -186,7 +192,7 @@ final class S3Authenticator {
     }
 
     /** The hash that goes into the canonical request, per the x-amz-content-sha256 mode. */
-    private static String payloadHashForCanonicalRequest(FullHttpRequest request,
+    private static String payloadHashForCanonicalRequest(S3Request request,
                                                          String payloadSha) {
         if (payloadSha == null || payloadSha.isBlank()) {
             // Legacy clients may omit it; hash the body we received.
@@ -281,77 +287,134 @@ final class S3Authenticator {
      * trailers validated when recognized (CRC32/CRC32C).
      */
     byte[] verifiedBody(S3Auth auth, byte[] received, String contentEncoding) {
+        try (InputStream body = verifiedBody(auth, new ByteArrayInputStream(received),
+                contentEncoding)) {
+            return body.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // unreachable: the body is in memory
+        }
+    }
+
+    /**
+     * {@code verifiedBody} over a body still arriving: the returned stream unframes and verifies as
+     * it is read, and fails with the same {@link S3Exception}s — at the latest before it reports
+     * EOF, so a reader that commits only at EOF never commits an unverified body.
+     */
+    InputStream verifiedBody(S3Auth auth, InputStream received, String contentEncoding) {
         String mode = auth.payloadSha256Header();
+        boolean chunked = AwsChunked.isChunked(contentEncoding, mode);
         if (auth.isAnonymous() || mode == null || SigV4.UNSIGNED_PAYLOAD.equals(mode)) {
             // No payload integrity to enforce beyond what framing requires.
-            if (AwsChunked.isChunked(contentEncoding, mode)) {
-                return AwsChunked.decode(received).payload();
-            }
-            return received;
-        }
-        switch (mode) {
-            case SigV4.STREAMING_SIGNED -> {
-                AwsChunked.Decoded decoded = AwsChunked.decode(received);
-                verifyChunkSignatures(auth, decoded);
-                return decoded.payload();
-            }
-            case SigV4.STREAMING_SIGNED_TRAILER, SigV4.STREAMING_UNSIGNED_TRAILER -> {
-                AwsChunked.Decoded decoded = AwsChunked.decode(received);
-                verifyTrailerChecksum(decoded);
-                return decoded.payload();
-            }
-            default -> {
-                byte[] body = AwsChunked.isChunked(contentEncoding, mode)
-                        ? AwsChunked.decode(received).payload() : received;
-                String actual = SigV4.hex(SigV4.sha256(body));
-                if (!SigV4.signatureEquals(actual, mode.toLowerCase(Locale.ROOT))) {
-                    throw new S3Exception(S3ErrorCode.X_AMZ_CONTENT_SHA256_MISMATCH,
-                            "The provided 'x-amz-content-sha256' header does not match what was computed.");
-                }
-                return body;
-            }
+            return chunked ? AwsChunked.decoder(received, AwsChunked.Listener.NONE) : received;
         }
+        return switch (mode) {
+            case SigV4.STREAMING_SIGNED -> AwsChunked.decoder(received, new ChunkSignatures(auth));
+            case SigV4.STREAMING_SIGNED_TRAILER, SigV4.STREAMING_UNSIGNED_TRAILER ->
+                    AwsChunked.decoder(received, new TrailerChecksums());
+            default -> new Sha256Verifying(chunked
+                    ? AwsChunked.decoder(received, AwsChunked.Listener.NONE) : received,
+                    mode.toLowerCase(Locale.ROOT));
+        };
     }
 
-    private void verifyChunkSignatures(S3Auth auth, AwsChunked.Decoded decoded) {
-        String previous = auth.seedSignature();
-        List<AwsChunked.Chunk> chunks = decoded.chunks();
-        for (AwsChunked.Chunk chunk : chunks) {
-            if (chunk.signature() == null) {
+    /** Verifies each chunk's signature against the chain seeded by the request signature. */
+    private static final class ChunkSignatures implements AwsChunked.Listener {
+        private final S3Auth auth;
+        private final MessageDigest chunkDigest = SigV4.newSha256();
+        private String previous;
+
+        ChunkSignatures(S3Auth auth) {
+            this.auth = auth;
+            this.previous = auth.seedSignature();
+        }
+
+        @Override
+        public void data(byte[] b, int offset, int length) {
+            chunkDigest.update(b, offset, length);
+        }
+
+        @Override
+        public void chunkEnd(String signature) {
+            if (signature == null) {
                 throw new S3Exception(S3ErrorCode.SIGNATURE_DOES_NOT_MATCH,
                         "Missing chunk-signature in a signed streaming payload");
             }
             String expected = SigV4.chunkSignature(auth.signingKey(), auth.amzDate(), auth.scope(),
-                    previous, chunk.data());
-            if (!SigV4.signatureEquals(expected, chunk.signature())) {
+                    previous, SigV4.hex(chunkDigest.digest()));
+            if (!SigV4.signatureEquals(expected, signature)) {
                 throw new S3Exception(S3ErrorCode.SIGNATURE_DOES_NOT_MATCH,
                         "Chunk signature mismatch in streaming payload");
             }
-            previous = chunk.signature();
+            previous = signature;
         }
     }
 
-    private void verifyTrailerChecksum(AwsChunked.Decoded decoded) {
-        Map<String, String> trailers = decoded.trailers();
-        String crc32 = trailers.get("x-amz-checksum-crc32");
-        if (crc32 != null) {
-            java.util.zip.CRC32 crc = new java.util.zip.CRC32();
-            crc.update(decoded.payload());
-            if (!crc32.trim().equals(base64IntBE((int) crc.getValue()))) {
+    /** Checks the {@code x-amz-checksum-crc32}/{@code -crc32c} trailers against the payload. */
+    private static final class TrailerChecksums implements AwsChunked.Listener {
+        private final CRC32 crc32 = new CRC32();
+        private final CRC32C crc32c = new CRC32C();
+
+        @Override
+        public void data(byte[] b, int offset, int length) {
+            crc32.update(b, offset, length);
+            crc32c.update(b, offset, length);
+        }
+
+        @Override
+        public void end(Map<String, String> trailers) {
+            String expected32 = trailers.get("x-amz-checksum-crc32");
+            if (expected32 != null
+                    && !expected32.trim().equals(base64IntBE((int) crc32.getValue()))) {
                 throw new S3Exception(S3ErrorCode.INVALID_REQUEST,
                         "x-amz-checksum-crc32 trailer does not match the payload");
             }
-        }
-        String crc32c = trailers.get("x-amz-checksum-crc32c");
-        if (crc32c != null) {
-            java.util.zip.CRC32C crc = new java.util.zip.CRC32C();
-            crc.update(decoded.payload());
-            if (!crc32c.trim().equals(base64IntBE((int) crc.getValue()))) {
+            String expected32c = trailers.get("x-amz-checksum-crc32c");
+            if (expected32c != null
+                    && !expected32c.trim().equals(base64IntBE((int) crc32c.getValue()))) {
                 throw new S3Exception(S3ErrorCode.INVALID_REQUEST,
                         "x-amz-checksum-crc32c trailer does not match the payload");
             }
+            // Other checksum algorithms (sha1/sha256) are accepted without verification in v1.
+        }
+    }
+
+    /** Hashes the body as it is read and compares it to the signed sha256 before reporting EOF. */
+    private static final class Sha256Verifying extends InputStream {
+        private final InputStream in;
+        private final MessageDigest digest = SigV4.newSha256();
+        private final String expectedHex;
+        private boolean verified;
+
+        Sha256Verifying(InputStream in, String expectedHex) {
+            this.in = in;
+            this.expectedHex = expectedHex;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) < 0 ? -1 : one[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = in.read(b, off, len);
+            if (n > 0) {
+                digest.update(b, off, n);
+            } else if (n < 0 && !verified) {
+                if (!SigV4.signatureEquals(SigV4.hex(digest.digest()), expectedHex)) {
+                    throw new S3Exception(S3ErrorCode.X_AMZ_CONTENT_SHA256_MISMATCH,
+                            "The provided 'x-amz-content-sha256' header does not match what was computed.");
+                }
+                verified = true;
+            }
+            return n;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
         }
-        // Other checksum algorithms (sha1/sha256) are accepted without verification in v1.
     }
 
     private static String base64IntBE(int value) {
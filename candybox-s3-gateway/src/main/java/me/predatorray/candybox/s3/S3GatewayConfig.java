@@ -50,6 +50,7 @@ public final class S3GatewayConfig {
     private final long maxObjectBytes;
     private final int workerThreads;
     private final long routerCacheTtlMillis;
+    private final long followerReadMaxStalenessMillis;
     private final SecurityConfig security;
     private final boolean s3AuthEnabled;
     private final boolean s3AllowAnonymous;
@@ -63,6 +64,7 @@ public final class S3GatewayConfig {
         this.maxObjectBytes = b.maxObjectBytes;
         this.workerThreads = b.workerThreads;
         this.routerCacheTtlMillis = b.routerCacheTtlMillis;
+        this.followerReadMaxStalenessMillis = b.followerReadMaxStalenessMillis;
         this.security = b.security;
         this.s3AuthEnabled = b.s3AuthEnabled;
         this.s3AllowAnonymous = b.s3AllowAnonymous;
@@ -91,6 +93,8 @@ public final class S3GatewayConfig {
                 .workerThreads(r.getInt("s3.worker-threads")
                         .orElse(Math.max(4, Runtime.getRuntime().availableProcessors() * 2)))
                 .routerCacheTtlMillis(r.getLong("s3.router-cache-ttl-ms").orElse(5_000L))
+                .followerReadMaxStalenessMillis(
+                        r.getLong("s3.follower-read-max-staleness-ms").orElse(0L))
                 .security(SecurityConfig.resolve(r::get))
                 .s3AuthEnabled(r.get("s3.auth.enabled").map(Boolean::parseBoolean).orElse(false))
                 .s3AllowAnonymous(r.get("s3.auth.allow-anonymous").map(Boolean::parseBoolean)
@@ -130,6 +134,11 @@ public final class S3GatewayConfig {
         return routerCacheTtlMillis;
     }
 
+    /** How stale the gateway's reads may be; see {@code CandyboxConfig.followerReadMaxStalenessMillis}. */
+    public long followerReadMaxStalenessMillis() {
+        return followerReadMaxStalenessMillis;
+    }
+
     /** The shared {@code auth.*} / {@code tls.*} surface: how this gateway dials the nodes. */
     public SecurityConfig security() {
         return security;
@@ -203,6 +212,7 @@ public final class S3GatewayConfig {
         private boolean s3AllowAnonymous = true;
         private int workerThreads = 8;
         private long routerCacheTtlMillis = 5_000L;
+        private long followerReadMaxStalenessMillis = 0L;
 
         Builder bindHost(String v) {
             this.bindHost = v;
@@ -244,6 +254,11 @@ public final class S3GatewayConfig {
             return this;
         }
 
+        Builder followerReadMaxStalenessMillis(long v) {
+            this.followerReadMaxStalenessMillis = v;
+            return this;
+        }
+
         Builder security(SecurityConfig v) {
             this.security = v;
             return this;
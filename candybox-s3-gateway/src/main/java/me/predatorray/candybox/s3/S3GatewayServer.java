@@ -23,7 +23,6 @@ import io.netty.channel.EventLoopGroup;
 import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.SocketChannel;
 import io.netty.channel.socket.nio.NioServerSocketChannel;
-import io.netty.handler.codec.http.HttpObjectAggregator;
 import io.netty.handler.codec.http.HttpServerCodec;
 import io.netty.util.concurrent.DefaultEventExecutorGroup;
 import io.netty.util.concurrent.EventExecutorGroup;
@@ -36,9 +35,11 @@ import org.slf4j.LoggerFactory;
  * dedicated blocking {@link EventExecutorGroup} on which {@link S3Handler} runs so the synchronous
  * Candybox client calls never block an I/O thread.
  *
- * <p>v1 aggregates each request into a {@code FullHttpRequest} (bounded by the configured max object
- * size, itself capped to ~2 GiB by the aggregator's int limit), consistent with the client's current
- * buffer-based API. True streaming awaits client streaming support — see {@code S3_GATEWAY_PLAN.md} §4.
+ * <p>Object bodies stream in both directions: {@link S3RequestReader} hands an upload to the handler
+ * as soon as its head arrives and feeds the body through with auto-read backpressure, and a GET is
+ * written out as the node produces it — so a large transfer costs the gateway a bounded buffer, not
+ * the object. Other requests are aggregated, bounded by the configured max object size (capped to
+ * ~2 GiB); see {@code S3_GATEWAY_PLAN.md} §4.
  */
 final class S3GatewayServer implements AutoCloseable {
 
@@ -94,7 +95,7 @@ final class S3GatewayServer implements AutoCloseable {
                             ch.pipeline().addLast(new io.netty.handler.ssl.SslHandler(engine));
                         }
                         ch.pipeline().addLast(new HttpServerCodec());
-                        ch.pipeline().addLast(new HttpObjectAggregator(maxContent));
+                        ch.pipeline().addLast(new S3RequestReader(maxContent));
                         // Run the (blocking) handler off the I/O event loop.
                         ch.pipeline().addLast(blockingGroup,
                                 new S3Handler(store, config, authenticator, access));
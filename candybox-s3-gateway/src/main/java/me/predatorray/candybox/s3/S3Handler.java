@@ -20,14 +20,17 @@ import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.SimpleChannelInboundHandler;
 import io.netty.handler.codec.http.DefaultFullHttpResponse;
-import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.DefaultHttpResponse;
 import io.netty.handler.codec.http.FullHttpResponse;
 import io.netty.handler.codec.http.HttpHeaderNames;
 import io.netty.handler.codec.http.HttpHeaderValues;
+import io.netty.handler.codec.http.HttpResponse;
 import io.netty.handler.codec.http.HttpResponseStatus;
 import io.netty.handler.codec.http.HttpUtil;
 import io.netty.handler.codec.http.HttpVersion;
 import io.netty.handler.codec.http.QueryStringDecoder;
+import java.io.IOException;
+import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Base64;
@@ -55,16 +58,16 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * The Netty inbound handler: turns an aggregated {@link FullHttpRequest} into Candybox client calls and
- * writes back an S3-shaped response. Added to the pipeline behind a blocking {@code EventExecutorGroup}
- * (see {@link S3GatewayServer}) so the synchronous {@link CandyStore} calls never block an I/O event
- * loop.
+ * The Netty inbound handler: turns an {@link S3Request} into Candybox client calls and writes back an
+ * S3-shaped response. Added to the pipeline behind a blocking {@code EventExecutorGroup} (see
+ * {@link S3GatewayServer}) so the synchronous {@link CandyStore} calls never block an I/O event loop.
  *
- * <p>v1 buffers whole request/response bodies (the underlying client API is itself buffer-based today),
- * path-style addressing only, anonymous (the {@code Authorization} header is accepted and ignored). See
- * {@code S3_GATEWAY_PLAN.md}.
+ * <p>Object bodies stream: a PUT or UploadPart body is verified as it is read from the request's
+ * {@link BlockingBridge} and forwarded to the store, and a full-object GET is written out in chunks
+ * as the store produces it ({@link StreamedResponse}). Range GETs and the XML documents are
+ * buffered. Path-style addressing only. See {@code S3_GATEWAY_PLAN.md}.
  */
-final class S3Handler extends SimpleChannelInboundHandler<FullHttpRequest> {
+final class S3Handler extends SimpleChannelInboundHandler<S3Request> {
 
     private static final Logger LOG = LoggerFactory.getLogger(S3Handler.class);
     private static final String META_PREFIX = "x-amz-meta-";
@@ -92,7 +95,7 @@ final class S3Handler extends SimpleChannelInboundHandler<FullHttpRequest> {
     }
 
     @Override
-    protected void channelRead0(ChannelHandlerContext ctx, FullHttpRequest request) {
+    protected void channelRead0(ChannelHandlerContext ctx, S3Request request) {
         String requestId = UUID.randomUUID().toString();
         String method = request.method().name().toUpperCase(Locale.ROOT);
         QueryStringDecoder decoder = new QueryStringDecoder(request.uri());
@@ -117,7 +120,7 @@ final class S3Handler extends SimpleChannelInboundHandler<FullHttpRequest> {
         }
     }
 
-    private void dispatch(ChannelHandlerContext ctx, FullHttpRequest request, S3Action action,
+    private void dispatch(ChannelHandlerContext ctx, S3Request request, S3Action action,
                           PathParts parts, QueryStringDecoder decoder, String requestId,
                           S3Authenticator.S3Auth auth) {
         Principal principal = auth.principal();
@@ -189,7 +192,7 @@ final class S3Handler extends SimpleChannelInboundHandler<FullHttpRequest> {
 
     // ---- ACLs --------------------------------------------------------------------------------
 
-    private void getBucketAcl(ChannelHandlerContext ctx, FullHttpRequest request, PathParts parts,
+    private void getBucketAcl(ChannelHandlerContext ctx, S3Request request, PathParts parts,
                               String requestId) {
         if (!store.headBox(parts.bucket())) {
             throw new S3Exception(S3ErrorCode.NO_SUCH_BUCKET, null);
@@ -200,7 +203,7 @@ final class S3Handler extends SimpleChannelInboundHandler<FullHttpRequest> {
         sendXml(ctx, request, HttpResponseStatus.OK, xml, requestId);
     }
 
-    private void putBucketAcl(ChannelHandlerContext ctx, FullHttpRequest request, PathParts parts,
+    private void putBucketAcl(ChannelHandlerContext ctx, S3Request request, PathParts parts,
                               String requestId, S3Authenticator.S3Auth auth) {
         if (!store.headBox(parts.bucket())) {
             throw new S3Exception(S3ErrorCode.NO_SUCH_BUCKET, null);
@@ -218,7 +221,7 @@ final class S3Handler extends SimpleChannelInboundHandler<FullHttpRequest> {
         send(ctx, request, empty(HttpResponseStatus.OK), requestId);
     }
 
-    private void getObjectAcl(ChannelHandlerContext ctx, FullHttpRequest request, PathParts parts,
+    private void getObjectAcl(ChannelHandlerContext ctx, S3Request request, PathParts parts,
                               String requestId) {
         requireKey(parts);
         ObjectAcl acl = store.getCandyAcl(parts.bucket(), parts.key());
@@ -228,7 +231,7 @@ final class S3Handler extends SimpleChannelInboundHandler<FullHttpRequest> {
                 requestId);
     }
 
-    private void putObjectAcl(ChannelHandlerContext ctx, FullHttpRequest request, PathParts parts,
+    private void putObjectAcl(ChannelHandlerContext ctx, S3Request request, PathParts parts,
                               String requestId, S3Authenticator.S3Auth auth) {
         requireKey(parts);
         ObjectAcl current = store.getCandyAcl(parts.bucket(), parts.key());
@@ -240,7 +243,7 @@ final class S3Handler extends SimpleChannelInboundHandler<FullHttpRequest> {
     }
 
     /** The grants a PUT ?acl asks for: the {@code x-amz-acl} canned header, else the XML body. */
-    private List<Grant> requestedGrants(FullHttpRequest request, S3Authenticator.S3Auth auth) {
+    private List<Grant> requestedGrants(S3Request request, S3Authenticator.S3Auth auth) {
         String canned = request.headers().get("x-amz-acl");
         if (canned != null && !canned.isBlank()) {
             return S3AccessControl.cannedGrants(canned);
@@ -279,18 +282,14 @@ final class S3Handler extends SimpleChannelInboundHandler<FullHttpRequest> {
 
     // ---- objects ---------------------------------------------------------------------------
 
-    private void putOrCopy(ChannelHandlerContext ctx, FullHttpRequest request, PathParts parts,
+    private void putOrCopy(ChannelHandlerContext ctx, S3Request request, PathParts parts,
                            String requestId, S3Authenticator.S3Auth auth) {
         String copySource = request.headers().get("x-amz-copy-source");
         if (copySource != null && !copySource.isBlank()) {
             copyObject(ctx, request, parts, copySource, requestId, auth);
             return;
         }
-        byte[] body = bodyBytes(request, auth);
-        if (body.length > config.maxObjectBytes()) {
-            throw new S3Exception(S3ErrorCode.ENTITY_TOO_LARGE,
-                    "Object exceeds the configured maximum of " + config.maxObjectBytes() + " bytes");
-        }
+        MeteredBody body = meteredBody(request, auth, "Object");
         String contentType = request.headers().get(HttpHeaderNames.CONTENT_TYPE);
         if (contentType == null || contentType.isBlank()) {
             contentType = "application/octet-stream";
@@ -300,7 +299,7 @@ final class S3Handler extends SimpleChannelInboundHandler<FullHttpRequest> {
                 ownerOf(auth), cannedGrantTexts(request));
 
         FullHttpResponse r = empty(HttpResponseStatus.OK);
-        r.headers().set(HttpHeaderNames.ETAG, Etag.of(Crc32c.of(body)));
+        r.headers().set(HttpHeaderNames.ETAG, Etag.of(body.crc32c()));
         send(ctx, request, r, requestId);
     }
 
@@ -310,12 +309,12 @@ final class S3Handler extends SimpleChannelInboundHandler<FullHttpRequest> {
     }
 
     /** The {@code x-amz-acl} canned grants in the wire text form. */
-    private static List<String> cannedGrantTexts(FullHttpRequest request) {
+    private static List<String> cannedGrantTexts(S3Request request) {
         return S3AccessControl.cannedGrants(request.headers().get("x-amz-acl")).stream()
                 .map(Grant::toText).toList();
     }
 
-    private void copyObject(ChannelHandlerContext ctx, FullHttpRequest request, PathParts parts,
+    private void copyObject(ChannelHandlerContext ctx, S3Request request, PathParts parts,
                             String copySource, String requestId, S3Authenticator.S3Auth auth) {
         PathParts src = PathParts.parse(stripLeadingSlash(uriDecode(copySource)));
         if (src.bucket() == null || src.key() == null || src.key().isEmpty()) {
@@ -336,40 +335,56 @@ final class S3Handler extends SimpleChannelInboundHandler<FullHttpRequest> {
                 S3Xml.copyObjectResult(Etag.unquoted(info.crc32c()), info.createdAtMillis()), requestId);
     }
 
-    private void getObject(ChannelHandlerContext ctx, FullHttpRequest request, PathParts parts,
+    private void getObject(ChannelHandlerContext ctx, S3Request request, PathParts parts,
                            String requestId) {
         requireKey(parts);
         String rangeHeader = request.headers().get(HttpHeaderNames.RANGE);
         if (rangeHeader == null || rangeHeader.isBlank()) {
-            // Full object, 200 OK.
-            CandyInfo info = store.headCandy(parts.bucket(), parts.key());
-            byte[] data = store.getCandy(parts.bucket(), parts.key());
-            FullHttpResponse r = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1,
-                    HttpResponseStatus.OK, Unpooled.wrappedBuffer(data));
-            applyObjectHeaders(r, info);
-            send(ctx, request, r, requestId);
+            streamObject(ctx, request, parts, requestId);
             return;
         }
         getObjectRange(ctx, request, parts, rangeHeader, requestId);
     }
 
+    /**
+     * Serves the whole object with a 200, streamed as it comes off the node: the head once the
+     * object's metadata is known, then its bytes. A failure after the head went out can no longer
+     * become an error response, so it closes the connection and the client sees a short body.
+     */
+    private void streamObject(ChannelHandlerContext ctx, S3Request request, PathParts parts,
+                              String requestId) {
+        StreamedResponse response = new StreamedResponse(ctx.channel());
+        try {
+            store.getCandy(parts.bucket(), parts.key(), info -> {
+                HttpResponse head = new DefaultHttpResponse(HttpVersion.HTTP_1_1,
+                        HttpResponseStatus.OK);
+                applyObjectHeaders(head, info);
+                head.headers().set(HttpHeaderNames.CONTENT_LENGTH, info.contentLength());
+                return response.start(head, stampHeaders(request, head, requestId));
+            });
+        } catch (RuntimeException e) {
+            if (!response.started()) {
+                throw e;
+            }
+            LOG.warn("Failed streaming {}/{} (req {})", parts.bucket(), parts.key(), requestId, e);
+            ctx.channel().close();
+            return;
+        }
+        response.finish();
+    }
+
     /**
      * Handles {@code Range: bytes=…} with a 206 Partial Content response and a {@code Content-Range}
      * header. Multi-range ({@code bytes=A-B,C-D}) is rejected with {@link S3ErrorCode#NOT_IMPLEMENTED}.
      * An unparseable header that doesn't start with {@code bytes=} is ignored per RFC 9110 §14.2 and
      * served as a full 200, matching mainstream S3 behavior.
      */
-    private void getObjectRange(ChannelHandlerContext ctx, FullHttpRequest request, PathParts parts,
+    private void getObjectRange(ChannelHandlerContext ctx, S3Request request, PathParts parts,
                                 String rangeHeader, String requestId) {
         ParsedRange range = parseRange(rangeHeader);
         if (range == null) {
             // Unparseable / non-bytes unit; per RFC 9110 §14.2 fall back to a full 200.
-            CandyInfo info = store.headCandy(parts.bucket(), parts.key());
-            byte[] data = store.getCandy(parts.bucket(), parts.key());
-            FullHttpResponse r = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1,
-                    HttpResponseStatus.OK, Unpooled.wrappedBuffer(data));
-            applyObjectHeaders(r, info);
-            send(ctx, request, r, requestId);
+            streamObject(ctx, request, parts, requestId);
             return;
         }
         RangeBytes slice;
@@ -456,7 +471,7 @@ final class S3Handler extends SimpleChannelInboundHandler<FullHttpRequest> {
     private record ParsedRange(long firstByte, long lastByte) {
     }
 
-    private void headObject(ChannelHandlerContext ctx, FullHttpRequest request, PathParts parts,
+    private void headObject(ChannelHandlerContext ctx, S3Request request, PathParts parts,
                             String requestId) {
         requireKey(parts);
         CandyInfo info = store.headCandy(parts.bucket(), parts.key());
@@ -467,7 +482,7 @@ final class S3Handler extends SimpleChannelInboundHandler<FullHttpRequest> {
         send(ctx, request, r, requestId, true);
     }
 
-    private void applyObjectHeaders(FullHttpResponse r, CandyInfo info) {
+    private void applyObjectHeaders(HttpResponse r, CandyInfo info) {
         String contentType = info.contentType();
         r.headers().set(HttpHeaderNames.CONTENT_TYPE,
                 (contentType == null || contentType.isBlank()) ? "application/octet-stream" : contentType);
@@ -481,7 +496,7 @@ final class S3Handler extends SimpleChannelInboundHandler<FullHttpRequest> {
 
     // ---- multipart upload ------------------------------------------------------------------
 
-    private void createMultipartUpload(ChannelHandlerContext ctx, FullHttpRequest request,
+    private void createMultipartUpload(ChannelHandlerContext ctx, S3Request request,
                                        PathParts parts, String requestId) {
         requireKey(parts);
         String contentType = request.headers().get(HttpHeaderNames.CONTENT_TYPE);
@@ -495,7 +510,7 @@ final class S3Handler extends SimpleChannelInboundHandler<FullHttpRequest> {
                 S3Xml.initiateMultipartUploadResult(parts.bucket(), parts.key(), uploadId), requestId);
     }
 
-    private void uploadPart(ChannelHandlerContext ctx, FullHttpRequest request, PathParts parts,
+    private void uploadPart(ChannelHandlerContext ctx, S3Request request, PathParts parts,
                             QueryStringDecoder decoder, String requestId,
                             S3Authenticator.S3Auth auth) {
         requireKey(parts);
@@ -509,12 +524,8 @@ final class S3Handler extends SimpleChannelInboundHandler<FullHttpRequest> {
             uploadPartCopy(ctx, request, parts, uploadId, partNumber, copySource, requestId);
             return;
         }
-        byte[] body = bodyBytes(request, auth);
-        if (body.length > config.maxObjectBytes()) {
-            // Per-part size: tracks the configured single-object cap until streaming lands.
-            throw new S3Exception(S3ErrorCode.ENTITY_TOO_LARGE,
-                    "Part exceeds the configured maximum of " + config.maxObjectBytes() + " bytes");
-        }
+        // Per-part size: tracks the configured single-object cap.
+        MeteredBody body = meteredBody(request, auth, "Part");
         PartUploadInfo info = store.uploadPart(parts.bucket(), parts.key(), uploadId, partNumber,
                 body);
         FullHttpResponse r = empty(HttpResponseStatus.OK);
@@ -527,7 +538,7 @@ final class S3Handler extends SimpleChannelInboundHandler<FullHttpRequest> {
      * (S3 UploadPartCopy). Source is required to be in the same Box; multi-Box copy is rejected
      * with {@link S3ErrorCode#NOT_IMPLEMENTED}, matching the existing {@code CopyObject} rule.
      */
-    private void uploadPartCopy(ChannelHandlerContext ctx, FullHttpRequest request, PathParts parts,
+    private void uploadPartCopy(ChannelHandlerContext ctx, S3Request request, PathParts parts,
                                 String uploadId, int partNumber, String copySource, String requestId) {
         PathParts src = PathParts.parse(stripLeadingSlash(uriDecode(copySource)));
         if (src.bucket() == null || src.key() == null || src.key().isEmpty()) {
@@ -561,7 +572,7 @@ final class S3Handler extends SimpleChannelInboundHandler<FullHttpRequest> {
                 S3Xml.copyPartResult(Etag.unquoted(info.crc32c()), lastModified), requestId);
     }
 
-    private void completeMultipartUpload(ChannelHandlerContext ctx, FullHttpRequest request,
+    private void completeMultipartUpload(ChannelHandlerContext ctx, S3Request request,
                                          PathParts parts, QueryStringDecoder decoder,
                                          String requestId, S3Authenticator.S3Auth auth) {
         requireKey(parts);
@@ -591,7 +602,7 @@ final class S3Handler extends SimpleChannelInboundHandler<FullHttpRequest> {
         return Etag.unquoted(objectCrc32c) + "-" + partCount;
     }
 
-    private void abortMultipartUpload(ChannelHandlerContext ctx, FullHttpRequest request,
+    private void abortMultipartUpload(ChannelHandlerContext ctx, S3Request request,
                                       PathParts parts, QueryStringDecoder decoder,
                                       String requestId) {
         requireKey(parts);
@@ -600,7 +611,7 @@ final class S3Handler extends SimpleChannelInboundHandler<FullHttpRequest> {
         send(ctx, request, empty(HttpResponseStatus.NO_CONTENT), requestId);
     }
 
-    private void listMultipartUploads(ChannelHandlerContext ctx, FullHttpRequest request,
+    private void listMultipartUploads(ChannelHandlerContext ctx, S3Request request,
                                       String bucket, QueryStringDecoder decoder, String requestId) {
         Map<String, List<String>> q = decoder.parameters();
         String prefix = first(q, "prefix", "");
@@ -620,7 +631,7 @@ final class S3Handler extends SimpleChannelInboundHandler<FullHttpRequest> {
                         listing.nextUploadIdMarker(), rows), requestId);
     }
 
-    private void listParts(ChannelHandlerContext ctx, FullHttpRequest request, PathParts parts,
+    private void listParts(ChannelHandlerContext ctx, S3Request request, PathParts parts,
                            QueryStringDecoder decoder, String requestId) {
         requireKey(parts);
         String uploadId = requiredQuery(decoder, "uploadId");
@@ -690,7 +701,7 @@ final class S3Handler extends SimpleChannelInboundHandler<FullHttpRequest> {
 
     // ---- listing ---------------------------------------------------------------------------
 
-    private void listObjects(ChannelHandlerContext ctx, FullHttpRequest request, String bucket,
+    private void listObjects(ChannelHandlerContext ctx, S3Request request, String bucket,
                              QueryStringDecoder decoder, String requestId) {
         Map<String, List<String>> q = decoder.parameters();
         // ListObjectsV2 is selected by list-type=2; without it this is the V1 ListObjects API, whose
@@ -707,22 +718,21 @@ final class S3Handler extends SimpleChannelInboundHandler<FullHttpRequest> {
                 ? (continuationToken != null ? decodeToken(continuationToken) : startAfterParam)
                 : marker;
 
-        Listing listing = store.listCandies(bucket, prefix, startAfter, maxKeys);
-        List<S3Xml.Content> contents = new ArrayList<>();
-        Set<String> commonPrefixes = new LinkedHashSet<>();
-        rollUp(listing, prefix, delimiter, contents, commonPrefixes);
+        Listing listing = store.listCandies(bucket, prefix, delimiter, startAfter, maxKeys);
+        List<S3Xml.Content> contents = contents(listing);
+        List<String> commonPrefixes = listing.commonPrefixes();
 
         String xml;
         if (v2) {
             String nextToken = listing.isTruncated() ? encodeToken(listing.nextStartAfter()) : null;
             xml = S3Xml.listBucketV2(bucket, prefix, delimiter, maxKeys, contents,
-                    new ArrayList<>(commonPrefixes), continuationToken, nextToken, startAfterParam);
+                    commonPrefixes, continuationToken, nextToken, startAfterParam);
         } else {
             // S3 only returns NextMarker when a delimiter is in play; otherwise the client resumes from
             // the last returned key. Our resume cursor is exactly that last key, so the two agree.
             String nextMarker = (listing.isTruncated() && delimiter != null) ? listing.nextStartAfter() : null;
             xml = S3Xml.listBucketV1(bucket, prefix, delimiter, maxKeys, contents,
-                    new ArrayList<>(commonPrefixes), marker, nextMarker, listing.isTruncated());
+                    commonPrefixes, marker, nextMarker, listing.isTruncated());
         }
         sendXml(ctx, request, HttpResponseStatus.OK, xml, requestId);
     }
@@ -733,7 +743,7 @@ final class S3Handler extends SimpleChannelInboundHandler<FullHttpRequest> {
      * (the {@code version-id-marker} is irrelevant). Mainly here so version-aware clients — e.g. the
      * s3-tests cleanup, which drains a bucket via {@code list_object_versions} — work against us.
      */
-    private void listObjectVersions(ChannelHandlerContext ctx, FullHttpRequest request, String bucket,
+    private void listObjectVersions(ChannelHandlerContext ctx, S3Request request, String bucket,
                                     QueryStringDecoder decoder, String requestId) {
         Map<String, List<String>> q = decoder.parameters();
         String prefix = first(q, "prefix", "");
@@ -741,40 +751,29 @@ final class S3Handler extends SimpleChannelInboundHandler<FullHttpRequest> {
         int maxKeys = clampMaxKeys(first(q, "max-keys", null));
         String keyMarker = first(q, "key-marker", null);
 
-        Listing listing = store.listCandies(bucket, prefix, keyMarker, maxKeys);
-        List<S3Xml.Content> versions = new ArrayList<>();
-        Set<String> commonPrefixes = new LinkedHashSet<>();
-        rollUp(listing, prefix, delimiter, versions, commonPrefixes);
+        Listing listing = store.listCandies(bucket, prefix, delimiter, keyMarker, maxKeys);
+        List<S3Xml.Content> versions = contents(listing);
 
         String nextKeyMarker = listing.isTruncated() ? listing.nextStartAfter() : null;
         String xml = S3Xml.listVersions(bucket, prefix, delimiter, maxKeys, versions,
-                new ArrayList<>(commonPrefixes), keyMarker, nextKeyMarker);
+                listing.commonPrefixes(), keyMarker, nextKeyMarker);
         sendXml(ctx, request, HttpResponseStatus.OK, xml, requestId);
     }
 
     /**
-     * Folds a {@link Listing} page into object rows and synthesized common prefixes: a key whose first
-     * {@code delimiter} occurrence after {@code prefix} rolls it up into a {@code CommonPrefixes} entry,
-     * otherwise it becomes a content/version row. List entries carry no ETag (the listing API returns no
-     * CRC32C; a HEAD on the key yields the deterministic ETag).
+     * The content/version rows of a {@link Listing} page; the store has already rolled keys under a
+     * delimiter up into the page's common prefixes. List entries carry no ETag (the listing API
+     * returns no CRC32C; a HEAD on the key yields the deterministic ETag).
      */
-    private static void rollUp(Listing listing, String prefix, String delimiter,
-                               List<S3Xml.Content> rows, Set<String> commonPrefixes) {
+    private static List<S3Xml.Content> contents(Listing listing) {
+        List<S3Xml.Content> rows = new ArrayList<>(listing.entries().size());
         for (Listing.Entry e : listing.entries()) {
-            String key = e.key();
-            if (delimiter != null) {
-                int from = prefix == null ? 0 : prefix.length();
-                int idx = key.indexOf(delimiter, from);
-                if (idx >= 0) {
-                    commonPrefixes.add(key.substring(0, idx + delimiter.length()));
-                    continue;
-                }
-            }
-            rows.add(new S3Xml.Content(key, e.contentLength(), e.createdAtMillis(), null));
+            rows.add(new S3Xml.Content(e.key(), e.contentLength(), e.createdAtMillis(), null));
         }
+        return rows;
     }
 
-    private void deleteObjects(ChannelHandlerContext ctx, FullHttpRequest request, String bucket,
+    private void deleteObjects(ChannelHandlerContext ctx, S3Request request, String bucket,
                                String requestId, S3Authenticator.S3Auth auth) {
         S3RequestXml.DeleteRequest req = S3RequestXml.parseDelete(bodyBytes(request, auth));
         List<String> deleted = new ArrayList<>();
@@ -797,14 +796,35 @@ final class S3Handler extends SimpleChannelInboundHandler<FullHttpRequest> {
 
     /** The verified raw object bytes: unframes aws-chunked bodies and enforces the request's
      * payload-integrity mode (literal sha256, chunk-signature chain, checksum trailers). */
-    private byte[] bodyBytes(FullHttpRequest request, S3Authenticator.S3Auth auth) {
+    private byte[] bodyBytes(S3Request request, S3Authenticator.S3Auth auth) {
         byte[] raw = new byte[request.content().readableBytes()];
         request.content().getBytes(request.content().readerIndex(), raw);
         String encoding = request.headers().get(HttpHeaderNames.CONTENT_ENCODING);
         return authenticator.verifiedBody(auth, raw, encoding);
     }
 
-    private static Map<String, String> userMetadata(FullHttpRequest request) {
+    /**
+     * The object bytes of an upload, verified as they stream in and capped at the configured
+     * maximum: refused up front when the request declares a larger size, else failed once more
+     * than that has been read.
+     */
+    private MeteredBody meteredBody(S3Request request, S3Authenticator.S3Auth auth, String what) {
+        String encoding = request.headers().get(HttpHeaderNames.CONTENT_ENCODING);
+        String decodedLength = request.headers().get("x-amz-decoded-content-length");
+        // An aws-chunked Content-Length counts the framing too.
+        long declared = decodedLength != null ? parseLong(decodedLength, -1)
+                : AwsChunked.isChunked(encoding, auth.payloadSha256Header()) ? -1
+                : HttpUtil.getContentLength(request.head(), -1L);
+        S3Exception tooLarge = new S3Exception(S3ErrorCode.ENTITY_TOO_LARGE,
+                what + " exceeds the configured maximum of " + config.maxObjectBytes() + " bytes");
+        if (declared > config.maxObjectBytes()) {
+            throw tooLarge;
+        }
+        return new MeteredBody(authenticator.verifiedBody(auth, request.body(), encoding),
+                config.maxObjectBytes(), tooLarge);
+    }
+
+    private static Map<String, String> userMetadata(S3Request request) {
         Map<String, String> meta = new LinkedHashMap<>();
         for (Map.Entry<String, String> h : request.headers()) {
             String name = h.getKey().toLowerCase(Locale.ROOT);
@@ -868,7 +888,7 @@ final class S3Handler extends SimpleChannelInboundHandler<FullHttpRequest> {
 
     // ---- response writing ------------------------------------------------------------------
 
-    private void sendXml(ChannelHandlerContext ctx, FullHttpRequest request, HttpResponseStatus status,
+    private void sendXml(ChannelHandlerContext ctx, S3Request request, HttpResponseStatus status,
                          String xml, String requestId) {
         FullHttpResponse r = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, status,
                 Unpooled.copiedBuffer(xml, StandardCharsets.UTF_8));
@@ -876,7 +896,7 @@ final class S3Handler extends SimpleChannelInboundHandler<FullHttpRequest> {
         send(ctx, request, r, requestId);
     }
 
-    private void sendError(ChannelHandlerContext ctx, FullHttpRequest request, S3ErrorCode error,
+    private void sendError(ChannelHandlerContext ctx, S3Request request, S3ErrorCode error,
                            String message, String resource, String requestId) {
         String msg = message == null ? error.defaultMessage() : message;
         FullHttpResponse r = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1,
@@ -893,7 +913,7 @@ final class S3Handler extends SimpleChannelInboundHandler<FullHttpRequest> {
         return new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, status, Unpooled.EMPTY_BUFFER);
     }
 
-    private void send(ChannelHandlerContext ctx, FullHttpRequest request, FullHttpResponse response,
+    private void send(ChannelHandlerContext ctx, S3Request request, FullHttpResponse response,
                       String requestId) {
         send(ctx, request, response, requestId, isHead(request));
     }
@@ -902,11 +922,9 @@ final class S3Handler extends SimpleChannelInboundHandler<FullHttpRequest> {
      * Writes the response, honoring keep-alive. When {@code headOnly} is true the body buffer is
      * cleared but the (already-set) {@code Content-Length} is preserved, as HTTP requires for HEAD.
      */
-    private void send(ChannelHandlerContext ctx, FullHttpRequest request, FullHttpResponse response,
+    private void send(ChannelHandlerContext ctx, S3Request request, FullHttpResponse response,
                       String requestId, boolean headOnly) {
-        response.headers().set("x-amz-request-id", requestId);
-        response.headers().set(HttpHeaderNames.SERVER, "Candybox");
-        boolean keepAlive = HttpUtil.isKeepAlive(request);
+        boolean keepAlive = stampHeaders(request, response, requestId);
         if (headOnly) {
             String declared = response.headers().get(HttpHeaderNames.CONTENT_LENGTH, "0");
             response.content().clear();
@@ -915,15 +933,27 @@ final class S3Handler extends SimpleChannelInboundHandler<FullHttpRequest> {
             response.headers().set(HttpHeaderNames.CONTENT_LENGTH, response.content().readableBytes());
         }
         if (keepAlive) {
-            response.headers().set(HttpHeaderNames.CONNECTION, HttpHeaderValues.KEEP_ALIVE);
             ctx.writeAndFlush(response);
         } else {
-            response.headers().set(HttpHeaderNames.CONNECTION, HttpHeaderValues.CLOSE);
             ctx.writeAndFlush(response).addListener(ChannelFutureListener.CLOSE);
         }
     }
 
-    private static boolean isHead(FullHttpRequest request) {
+    /**
+     * Sets the headers every response carries, and returns whether the connection stays open after
+     * it: not when the client asked to close, nor when the response beats the rest of its request
+     * body (refused before it was read), which would otherwise be parsed as the next request.
+     */
+    private static boolean stampHeaders(S3Request request, HttpResponse response, String requestId) {
+        response.headers().set("x-amz-request-id", requestId);
+        response.headers().set(HttpHeaderNames.SERVER, "Candybox");
+        boolean keepAlive = HttpUtil.isKeepAlive(request.head()) && request.bodyReceived();
+        response.headers().set(HttpHeaderNames.CONNECTION,
+                keepAlive ? HttpHeaderValues.KEEP_ALIVE : HttpHeaderValues.CLOSE);
+        return keepAlive;
+    }
+
+    private static boolean isHead(S3Request request) {
         return "HEAD".equalsIgnoreCase(request.method().name());
     }
 
@@ -943,6 +973,45 @@ final class S3Handler extends SimpleChannelInboundHandler<FullHttpRequest> {
         return java.net.URLDecoder.decode(s, StandardCharsets.UTF_8);
     }
 
+    /** Counts and checksums an upload's bytes as the store reads them, failing past the limit. */
+    private static final class MeteredBody extends InputStream {
+        private final InputStream in;
+        private final long limit;
+        private final S3Exception tooLarge;
+        private final Crc32c.Accumulator crc = new Crc32c.Accumulator();
+        private long count;
+
+        MeteredBody(InputStream in, long limit, S3Exception tooLarge) {
+            this.in = in;
+            this.limit = limit;
+            this.tooLarge = tooLarge;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) < 0 ? -1 : one[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = in.read(b, off, len);
+            if (n > 0) {
+                count += n;
+                if (count > limit) {
+                    throw tooLarge;
+                }
+                crc.update(b, off, n);
+            }
+            return n;
+        }
+
+        /** The CRC32C of everything read, the object's once it was read to EOF. */
+        int crc32c() {
+            return crc.value();
+        }
+    }
+
     /** Path-style split of a decoded request path into bucket + key (both may be null/empty). */
     record PathParts(String bucket, String key) {
         static PathParts parse(String rawPath) {
@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.predatorray.candybox.s3;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.util.AbstractReferenceCounted;
+import java.io.InputStream;
+
+/**
+ * One request as {@link S3Handler} sees it, built by {@link S3RequestReader}: the request head, and
+ * its body either aggregated into {@link #content()} (documents, empty bodies) or still arriving
+ * through a {@link BlockingBridge} (object and part uploads). Releasing it releases the aggregate
+ * and closes the bridge.
+ */
+final class S3Request extends AbstractReferenceCounted {
+
+    private final HttpRequest head;
+    private final ByteBuf content;
+    private final BlockingBridge bridge;
+
+    private S3Request(HttpRequest head, ByteBuf content, BlockingBridge bridge) {
+        this.head = head;
+        this.content = content;
+        this.bridge = bridge;
+    }
+
+    /** A request whose whole body is in {@code content}, which the request now owns. */
+    static S3Request aggregated(HttpRequest head, ByteBuf content) {
+        return new S3Request(head, content, null);
+    }
+
+    /** A request whose body arrives through {@code bridge}, which the request now owns. */
+    static S3Request streamed(HttpRequest head, BlockingBridge bridge) {
+        return new S3Request(head, Unpooled.EMPTY_BUFFER, bridge);
+    }
+
+    HttpRequest head() {
+        return head;
+    }
+
+    HttpHeaders headers() {
+        return head.headers();
+    }
+
+    HttpMethod method() {
+        return head.method();
+    }
+
+    String uri() {
+        return head.uri();
+    }
+
+    /** The aggregated body; empty for a streamed request. */
+    ByteBuf content() {
+        return content;
+    }
+
+    /** The body as a stream: the bridge when streamed, else a view of the aggregate. */
+    InputStream body() {
+        return bridge != null ? bridge : new ByteBufInputStream(content.duplicate());
+    }
+
+    /**
+     * Whether the whole body has arrived. A response sent before it has must close the connection,
+     * since the rest of the body would otherwise be parsed as the next request.
+     */
+    boolean bodyReceived() {
+        return bridge == null || bridge.ended();
+    }
+
+    @Override
+    protected void deallocate() {
+        content.release();
+        if (bridge != null) {
+            bridge.close();
+        }
+    }
+
+    @Override
+    public S3Request touch(Object hint) {
+        content.touch(hint);
+        return this;
+    }
+}
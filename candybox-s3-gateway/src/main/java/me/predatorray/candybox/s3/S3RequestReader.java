@@ -0,0 +1,208 @@
+/*
+ * Copyright (c) 2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.predatorray.candybox.s3;
+
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpObject;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpUtil;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.handler.codec.http.QueryStringDecoder;
+import io.netty.util.ReferenceCountUtil;
+import java.nio.channels.ClosedChannelException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.UUID;
+import me.predatorray.candybox.s3.S3Handler.PathParts;
+import me.predatorray.candybox.s3.S3Router.S3Action;
+
+/**
+ * Turns the codec's {@code HttpRequest}/{@code HttpContent} stream into {@link S3Request}s on the
+ * I/O event loop, in place of an {@code HttpObjectAggregator}. Object and part uploads are passed on
+ * as soon as their head arrives, their body following through a {@link BlockingBridge}; every other
+ * request carries at most a small document (bucket/ACL XML, multipart completion, batch delete) and
+ * is aggregated up to {@code maxContent} bytes, a larger one being refused with
+ * {@code EntityTooLarge} and the connection closed.
+ *
+ * <p>An upload signed in the header without {@code x-amz-content-sha256} is aggregated too: its
+ * signature covers the hash of the whole body, which {@link S3Authenticator} needs up front.
+ */
+final class S3RequestReader extends ChannelInboundHandlerAdapter {
+
+    private final int maxContent;
+
+    // The request being aggregated, or null.
+    private HttpRequest head;
+    private CompositeByteBuf aggregate;
+    // The body being streamed, or null; deferred holds a FullHttpRequest's until its content is in.
+    private BlockingBridge bridge;
+    private S3Request deferred;
+
+    S3RequestReader(int maxContent) {
+        this.maxContent = maxContent;
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+        if (!(msg instanceof HttpObject)) {
+            ctx.fireChannelRead(msg);
+            return;
+        }
+        try {
+            if (msg instanceof HttpRequest request) {
+                begin(ctx, request);
+            }
+            if (msg instanceof HttpContent content) {
+                append(ctx, content);
+            }
+        } finally {
+            ReferenceCountUtil.release(msg);
+        }
+    }
+
+    private void begin(ChannelHandlerContext ctx, HttpRequest request) {
+        if (streams(request)) {
+            bridge = new BlockingBridge(ctx.channel(), HttpUtil.is100ContinueExpected(request));
+            S3Request streamed = S3Request.streamed(request, bridge);
+            if (request instanceof LastHttpContent) {
+                deferred = streamed; // a FullHttpRequest: pass it on once its content is queued
+            } else {
+                ctx.fireChannelRead(streamed);
+            }
+            return;
+        }
+        if (HttpUtil.getContentLength(request, -1L) > maxContent) {
+            tooLarge(ctx, request);
+            return;
+        }
+        if (HttpUtil.is100ContinueExpected(request)) {
+            ctx.writeAndFlush(new DefaultFullHttpResponse(HttpVersion.HTTP_1_1,
+                    HttpResponseStatus.CONTINUE, Unpooled.EMPTY_BUFFER));
+        }
+        head = request;
+        aggregate = ctx.alloc().compositeBuffer();
+    }
+
+    private void append(ChannelHandlerContext ctx, HttpContent content) {
+        boolean last = content instanceof LastHttpContent;
+        if (bridge != null) {
+            bridge.offer(content.content());
+            if (last) {
+                bridge.end();
+                bridge = null;
+                if (deferred != null) {
+                    S3Request request = deferred;
+                    deferred = null;
+                    ctx.fireChannelRead(request);
+                }
+            }
+        } else if (head != null) {
+            if (aggregate.readableBytes() + (long) content.content().readableBytes() > maxContent) {
+                HttpRequest request = head;
+                releaseAggregate();
+                tooLarge(ctx, request);
+                return;
+            }
+            aggregate.addComponent(true, content.content().retain());
+            if (last) {
+                S3Request request = S3Request.aggregated(head, aggregate);
+                head = null;
+                aggregate = null;
+                ctx.fireChannelRead(request);
+            }
+        }
+        // Otherwise the rest of a refused body, dropped while the connection closes.
+    }
+
+    /** Whether {@code request}'s body is streamed: a PUT of an object or a part, not a copy. */
+    private static boolean streams(HttpRequest request) {
+        if (!HttpMethod.PUT.equals(request.method())) {
+            return false;
+        }
+        String copySource = request.headers().get("x-amz-copy-source");
+        if (copySource != null && !copySource.isBlank()) {
+            return false;
+        }
+        if (request.headers().contains("Authorization")
+                && !request.headers().contains("x-amz-content-sha256")) {
+            return false;
+        }
+        QueryStringDecoder decoder = new QueryStringDecoder(request.uri());
+        PathParts parts = PathParts.parse(decoder.rawPath());
+        Set<String> queryNames = new LinkedHashSet<>();
+        decoder.parameters().keySet().forEach(k -> queryNames.add(k.toLowerCase(Locale.ROOT)));
+        S3Action action = S3Router.route("PUT", parts.bucket(), parts.key(), queryNames);
+        return action == S3Action.PUT_OBJECT || action == S3Action.UPLOAD_PART;
+    }
+
+    /** Refuses an oversized document and closes the connection rather than read the rest of it. */
+    private void tooLarge(ChannelHandlerContext ctx, HttpRequest request) {
+        S3ErrorCode error = S3ErrorCode.ENTITY_TOO_LARGE;
+        String resource = new QueryStringDecoder(request.uri()).rawPath();
+        FullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1,
+                HttpResponseStatus.valueOf(error.httpStatus()),
+                Unpooled.copiedBuffer(S3Xml.error(error, "Request body exceeds " + maxContent
+                        + " bytes", resource, UUID.randomUUID().toString()), StandardCharsets.UTF_8));
+        response.headers().set(HttpHeaderNames.CONTENT_TYPE, "application/xml");
+        response.headers().set(HttpHeaderNames.CONTENT_LENGTH, response.content().readableBytes());
+        response.headers().set(HttpHeaderNames.CONNECTION, HttpHeaderValues.CLOSE);
+        ctx.writeAndFlush(response).addListener(ChannelFutureListener.CLOSE);
+    }
+
+    private void releaseAggregate() {
+        if (aggregate != null) {
+            aggregate.release();
+        }
+        head = null;
+        aggregate = null;
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        if (bridge != null) {
+            bridge.fail(new ClosedChannelException());
+            bridge = null;
+        }
+        if (deferred != null) {
+            deferred.release();
+            deferred = null;
+        }
+        releaseAggregate();
+        super.channelInactive(ctx);
+    }
+
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception {
+        if (bridge != null) {
+            bridge.fail(cause);
+        }
+        super.exceptionCaught(ctx, cause);
+    }
+}
@@ -164,9 +164,15 @@ final class SigV4 {
      */
     static String chunkSignature(byte[] signingKey, String amzDate, String scope,
                                  String previousSignature, byte[] chunkData) {
+        return chunkSignature(signingKey, amzDate, scope, previousSignature,
+                hex(sha256(chunkData)));
+    }
+
+    /** {@code chunkSignature} from the hex SHA-256 of the chunk's data, hashed as it streamed in. */
+    static String chunkSignature(byte[] signingKey, String amzDate, String scope,
+                                 String previousSignature, String chunkSha256Hex) {
         String stringToSign = "AWS4-HMAC-SHA256-PAYLOAD\n" + amzDate + "\n" + scope + "\n"
-                + previousSignature + "\n" + hex(sha256(new byte[0])) + "\n"
-                + hex(sha256(chunkData));
+                + previousSignature + "\n" + hex(sha256(new byte[0])) + "\n" + chunkSha256Hex;
         return signature(signingKey, stringToSign);
     }
 
@@ -185,8 +191,13 @@ final class SigV4 {
     }
 
     static byte[] sha256(byte[] data) {
+        return newSha256().digest(data);
+    }
+
+    /** A fresh SHA-256 digest, for hashing a body as it streams in. */
+    static MessageDigest newSha256() {
         try {
-            return MessageDigest.getInstance("SHA-256").digest(data);
+            return MessageDigest.getInstance("SHA-256");
         } catch (GeneralSecurityException e) {
             throw new IllegalStateException("SHA-256 unavailable", e);
         }
@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.predatorray.candybox.s3;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.LastHttpContent;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * A response whose body is written as it is produced: the head once, then each write as a
+ * {@code HttpContent} chunk (see {@code S3_GATEWAY_PLAN.md} §4). When the channel's outbound buffer
+ * is full the writer waits for it to drain, so a slow reader slows the node's stream instead of
+ * piling the object up in the gateway.
+ *
+ * <p>Writes go through the {@link Channel} rather than the handler's context: their futures then
+ * complete on the I/O event loop, and the blocking worker may wait on them.
+ */
+final class StreamedResponse extends OutputStream {
+
+    private final Channel channel;
+    private boolean keepAlive;
+    private boolean started;
+    private ChannelFuture lastWrite;
+
+    StreamedResponse(Channel channel) {
+        this.channel = channel;
+    }
+
+    /** Writes the response head; the body follows through this stream. */
+    OutputStream start(HttpResponse head, boolean keepAlive) {
+        this.keepAlive = keepAlive;
+        started = true;
+        lastWrite = channel.writeAndFlush(head);
+        return this;
+    }
+
+    /** Whether the head has gone out, after which a failure can only close the connection. */
+    boolean started() {
+        return started;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[] {(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return;
+        }
+        if (lastWrite.isDone() && !lastWrite.isSuccess()) {
+            throw new IOException("Response write failed", lastWrite.cause());
+        }
+        ByteBuf chunk = channel.alloc().buffer(len).writeBytes(b, off, len);
+        lastWrite = channel.writeAndFlush(new DefaultHttpContent(chunk));
+        if (!channel.isWritable()) {
+            lastWrite.awaitUninterruptibly();
+        }
+    }
+
+    /** Ends the body, closing the connection unless it is kept alive. */
+    void finish() {
+        ChannelFuture end = channel.writeAndFlush(LastHttpContent.EMPTY_LAST_CONTENT);
+        if (!keepAlive) {
+            end.addListener(ChannelFutureListener.CLOSE);
+        }
+    }
+}
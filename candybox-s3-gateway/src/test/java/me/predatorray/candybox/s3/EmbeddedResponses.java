@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.predatorray.candybox.s3;
+
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.LastHttpContent;
+
+/**
+ * Reads what the handler wrote to an {@link EmbeddedChannel} back as one {@link FullHttpResponse},
+ * whether it went out whole or as a streamed head plus {@code HttpContent} chunks.
+ */
+final class EmbeddedResponses {
+
+    private EmbeddedResponses() {
+    }
+
+    static FullHttpResponse read(EmbeddedChannel channel) {
+        HttpResponse head = channel.readOutbound();
+        if (head instanceof FullHttpResponse full) {
+            return full;
+        }
+        CompositeByteBuf body = Unpooled.compositeBuffer();
+        HttpContent content;
+        do {
+            content = channel.readOutbound();
+            body.addComponent(true, content.content());
+        } while (!(content instanceof LastHttpContent));
+        FullHttpResponse full = new DefaultFullHttpResponse(head.protocolVersion(), head.status(),
+                body);
+        full.headers().set(head.headers());
+        return full;
+    }
+}
@@ -26,6 +26,7 @@ import me.predatorray.candybox.common.exception.CandyboxException;
 import me.predatorray.candybox.common.exception.FencedException;
 import me.predatorray.candybox.common.exception.LimitExceededException;
 import me.predatorray.candybox.common.exception.NotOwnerException;
+import me.predatorray.candybox.common.exception.StorageException;
 import me.predatorray.candybox.common.exception.ValidationException;
 import org.junit.jupiter.api.Test;
 
@@ -98,4 +99,13 @@ class ErrorMapperTest {
         S3Exception original = new S3Exception(S3ErrorCode.MALFORMED_XML, "bad");
         assertThat(ErrorMapper.toS3(original)).isSameAs(original);
     }
+
+    @Test
+    void bodyVerificationFailureUnwrapsFromTheClientsStorageException() {
+        S3Exception original = new S3Exception(S3ErrorCode.SIGNATURE_DOES_NOT_MATCH, "bad chunk");
+        assertThat(ErrorMapper.toS3(new StorageException("Failed reading the request body",
+                original))).isSameAs(original);
+        assertThat(ErrorMapper.toS3(new StorageException("Failed reading the request body",
+                new java.io.IOException("reset"))).error()).isEqualTo(S3ErrorCode.INTERNAL_ERROR);
+    }
 }
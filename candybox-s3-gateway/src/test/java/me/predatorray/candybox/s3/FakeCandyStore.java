@@ -209,10 +209,14 @@ final class FakeCandyStore implements CandyStore {
     }
 
     @Override
-    public Listing listCandies(String box, String prefix, String startAfter, int maxKeys) {
+    public Listing listCandies(String box, String prefix, String delimiter, String startAfter,
+                               int maxKeys) {
         TreeMap<String, Obj> b = box(box);
         List<Listing.Entry> entries = new ArrayList<>();
+        List<String> commonPrefixes = new ArrayList<>();
+        String last = null;
         String next = null;
+        int from = prefix == null ? 0 : prefix.length();
         for (Map.Entry<String, Obj> e : b.entrySet()) {
             String key = e.getKey();
             if (prefix != null && !prefix.isEmpty() && !key.startsWith(prefix)) {
@@ -221,13 +225,25 @@ final class FakeCandyStore implements CandyStore {
             if (startAfter != null && key.compareTo(startAfter) <= 0) {
                 continue;
             }
-            if (entries.size() == maxKeys) {
-                next = entries.get(entries.size() - 1).key();
+            int at = delimiter == null || delimiter.isEmpty() ? -1 : key.indexOf(delimiter, from);
+            String rolledUp = at < 0 ? null : key.substring(0, at + delimiter.length());
+            if (rolledUp != null && (rolledUp.equals(last) || rolledUp.equals(startAfter))) {
+                continue; // the rest of an already-listed common prefix
+            }
+            if (entries.size() + commonPrefixes.size() == maxKeys) {
+                next = last;
                 break;
             }
-            entries.add(new Listing.Entry(key, e.getValue().data().length, e.getValue().created()));
+            if (rolledUp != null) {
+                commonPrefixes.add(rolledUp);
+                last = rolledUp;
+            } else {
+                entries.add(new Listing.Entry(key, e.getValue().data().length,
+                        e.getValue().created()));
+                last = key;
+            }
         }
-        return new Listing(entries, next);
+        return new Listing(entries, commonPrefixes, next);
     }
 
     @Override
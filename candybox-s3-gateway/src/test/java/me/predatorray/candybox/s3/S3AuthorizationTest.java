@@ -67,7 +67,7 @@ class S3AuthorizationTest {
         S3GatewayConfig config = config();
         S3Authenticator authenticator =
                 new S3Authenticator(true, allowAnonymous, keys, "us-east-1", clock);
-        return new EmbeddedChannel(
+        return new EmbeddedChannel(new S3RequestReader(1024 * 1024),
                 new S3Handler(store, config, authenticator, new S3AccessControl(true, store)));
     }
 
@@ -83,7 +83,7 @@ class S3AuthorizationTest {
             sign(request, method.name(), uri, body, signAs);
         }
         ch.writeInbound(request);
-        FullHttpResponse response = ch.readOutbound();
+        FullHttpResponse response = EmbeddedResponses.read(ch);
         String responseBody = response.content().toString(StandardCharsets.UTF_8);
         int status = response.status().code();
         response.release();
@@ -352,7 +352,7 @@ class S3AuthorizationTest {
                 + ", SignedHeaders=" + String.join(";", signedHeaders)
                 + ", Signature=" + seed);
         ch.writeInbound(request);
-        FullHttpResponse response = ch.readOutbound();
+        FullHttpResponse response = EmbeddedResponses.read(ch);
         Response captured = new Response(response.status().code(),
                 response.content().toString(StandardCharsets.UTF_8));
         response.release();
@@ -414,7 +414,7 @@ class S3AuthorizationTest {
                 + ", SignedHeaders=" + String.join(";", signedHeaders)
                 + ", Signature=" + signature);
         ch.writeInbound(request);
-        FullHttpResponse response = ch.readOutbound();
+        FullHttpResponse response = EmbeddedResponses.read(ch);
         Response captured = new Response(response.status().code(),
                 response.content().toString(StandardCharsets.UTF_8));
         response.release();
@@ -41,6 +41,7 @@ class S3GatewayConfigTest {
         assertThat(c.region()).isEqualTo("us-east-1");
         assertThat(c.maxObjectBytes()).isEqualTo(S3GatewayConfig.DEFAULT_MAX_OBJECT_BYTES);
         assertThat(c.routerCacheTtlMillis()).isEqualTo(5_000L);
+        assertThat(c.followerReadMaxStalenessMillis()).isZero();
         assertThat(c.workerThreads()).isGreaterThanOrEqualTo(4);
         assertThat(c.zookeeperConnect()).isEqualTo("zk:2181");
     }
@@ -54,7 +55,8 @@ class S3GatewayConfigTest {
                 "s3.region", "eu-west-1",
                 "s3.max-object-bytes", "1048576",
                 "s3.worker-threads", "16",
-                "s3.router-cache-ttl-ms", "250"), Map.of());
+                "s3.router-cache-ttl-ms", "250",
+                "s3.follower-read-max-staleness-ms", "1000"), Map.of());
         assertThat(c.bindHost()).isEqualTo("10.0.0.1");
         assertThat(c.bindPort()).isEqualTo(8080);
         assertThat(c.healthPort()).isEqualTo(8081);
@@ -62,6 +64,7 @@ class S3GatewayConfigTest {
         assertThat(c.maxObjectBytes()).isEqualTo(1_048_576L);
         assertThat(c.workerThreads()).isEqualTo(16);
         assertThat(c.routerCacheTtlMillis()).isEqualTo(250L);
+        assertThat(c.followerReadMaxStalenessMillis()).isEqualTo(1_000L);
     }
 
     @Test
@@ -23,8 +23,10 @@ import java.net.http.HttpRequest;
 import java.net.http.HttpRequest.BodyPublishers;
 import java.net.http.HttpResponse;
 import java.net.http.HttpResponse.BodyHandlers;
+import java.io.ByteArrayInputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.Properties;
+import java.util.Random;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
@@ -32,9 +34,9 @@ import org.junit.jupiter.api.Test;
 /**
  * Drives the real Netty {@link S3GatewayServer} over a loopback socket with an in-memory
  * {@link FakeCandyStore}. Unlike {@link S3HandlerTest} (which feeds the handler via EmbeddedChannel),
- * this exercises the full pipeline — {@code HttpServerCodec} + {@code HttpObjectAggregator} + the
- * blocking handler — so it covers HTTP framing, keep-alive, aws-chunked uploads, and percent-decoded
- * keys end to end without BookKeeper/ZooKeeper.
+ * this exercises the full pipeline — {@code HttpServerCodec} + {@link S3RequestReader} + the
+ * blocking handler — so it covers HTTP framing, keep-alive, streamed bodies, aws-chunked uploads, and
+ * percent-decoded keys end to end without BookKeeper/ZooKeeper.
  */
 class S3GatewayServerTest {
 
@@ -76,6 +78,27 @@ class S3GatewayServerTest {
         assertThat(get.headers().firstValue("Content-Type")).hasValue("application/octet-stream");
     }
 
+    @Test
+    void largeObjectsStreamBothWays() throws Exception {
+        send("PUT", "/big", null);
+        // Several times the bridge's high watermark, sent without a Content-Length.
+        byte[] data = new byte[5 * BlockingBridge.HIGH_WATERMARK + 12345];
+        new Random(42).nextBytes(data);
+        HttpRequest put = HttpRequest.newBuilder(URI.create(baseUri + "/big/blob"))
+                .expectContinue(true)
+                .PUT(BodyPublishers.ofInputStream(() -> new ByteArrayInputStream(data)))
+                .build();
+        HttpResponse<String> stored = http.send(put, BodyHandlers.ofString());
+        assertThat(stored.statusCode()).isEqualTo(200);
+
+        HttpResponse<byte[]> get = http.send(
+                HttpRequest.newBuilder(URI.create(baseUri + "/big/blob")).GET().build(),
+                BodyHandlers.ofByteArray());
+        assertThat(get.statusCode()).isEqualTo(200);
+        assertThat(get.body()).isEqualTo(data);
+        assertThat(get.headers().firstValue("ETag")).isEqualTo(stored.headers().firstValue("ETag"));
+    }
+
     @Test
     void decodesAwsChunkedUploads() throws Exception {
         send("PUT", "/chunked", null);
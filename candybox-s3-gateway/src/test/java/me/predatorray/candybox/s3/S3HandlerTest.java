@@ -21,10 +21,14 @@ import io.netty.buffer.Unpooled;
 import io.netty.channel.embedded.EmbeddedChannel;
 import io.netty.handler.codec.http.DefaultFullHttpRequest;
 import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpContent;
 import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
 import io.netty.handler.codec.http.HttpHeaders;
 import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponse;
 import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.LastHttpContent;
 import java.nio.charset.StandardCharsets;
 import java.util.Properties;
 import java.util.function.Consumer;
@@ -33,6 +37,8 @@ import org.junit.jupiter.api.Test;
 
 class S3HandlerTest {
 
+    private static final int MAX_CONTENT = 1024 * 1024;
+
     private final FakeCandyStore store = new FakeCandyStore();
 
     // ---- buckets ---------------------------------------------------------------------------
@@ -260,14 +266,82 @@ class S3HandlerTest {
         p.setProperty("zookeeper.connect", "unused:2181");
         p.setProperty("s3.max-object-bytes", "4");
         S3GatewayConfig tiny = S3GatewayConfig.fromProperties(p, java.util.Map.of());
-        EmbeddedChannel ch = new EmbeddedChannel(new S3Handler(store, tiny));
+        EmbeddedChannel ch = new EmbeddedChannel(new S3RequestReader(MAX_CONTENT),
+                new S3Handler(store, tiny));
+        DefaultFullHttpRequest req = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.PUT,
+                "/photos/big.bin", Unpooled.wrappedBuffer("too many bytes".getBytes(StandardCharsets.UTF_8)));
+        ch.writeInbound(req);
+        Response r = Response.capture(EmbeddedResponses.read(ch));
+        ch.finishAndReleaseAll();
+        assertThat(r.status).isEqualTo(400);
+        assertThat(r.body).contains("<Code>EntityTooLarge</Code>");
+    }
+
+    @Test
+    void declaredOversizedPutIsRefusedBeforeTheBodyIsAskedFor() {
+        put("/photos");
+        Properties p = new Properties();
+        p.setProperty("zookeeper.connect", "unused:2181");
+        p.setProperty("s3.max-object-bytes", "4");
+        S3GatewayConfig tiny = S3GatewayConfig.fromProperties(p, java.util.Map.of());
+        EmbeddedChannel ch = new EmbeddedChannel(new S3RequestReader(MAX_CONTENT),
+                new S3Handler(store, tiny));
         DefaultFullHttpRequest req = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.PUT,
                 "/photos/big.bin", Unpooled.wrappedBuffer("too many bytes".getBytes(StandardCharsets.UTF_8)));
+        req.headers().set(HttpHeaderNames.CONTENT_LENGTH, 14);
+        req.headers().set(HttpHeaderNames.EXPECT, HttpHeaderValues.CONTINUE);
         ch.writeInbound(req);
+        // The refusal is the first thing written: no 100 Continue ever invited the body.
         Response r = Response.capture(ch.readOutbound());
         ch.finishAndReleaseAll();
         assertThat(r.status).isEqualTo(400);
         assertThat(r.body).contains("<Code>EntityTooLarge</Code>");
+        assertThat(head("/photos/big.bin").status).isEqualTo(404);
+    }
+
+    @Test
+    void oversizedDocumentIsRefusedAndTheConnectionClosed() {
+        put("/photos");
+        EmbeddedChannel ch = new EmbeddedChannel(new S3RequestReader(16),
+                new S3Handler(store, config()));
+        byte[] xml = "<Delete><Object><Key>a</Key></Object></Delete>".getBytes(StandardCharsets.UTF_8);
+        DefaultFullHttpRequest req = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1,
+                HttpMethod.POST, "/photos?delete", Unpooled.wrappedBuffer(xml));
+        ch.writeInbound(req);
+        Response r = Response.capture(ch.readOutbound());
+        assertThat(r.status).isEqualTo(400);
+        assertThat(r.body).contains("<Code>EntityTooLarge</Code>");
+        assertThat(ch.isOpen()).isFalse();
+        ch.finishAndReleaseAll();
+    }
+
+    @Test
+    void getStreamsTheHeadThenTheBodyInChunks() {
+        put("/photos");
+        byte[] data = new byte[200_000];
+        new java.util.Random(7).nextBytes(data);
+        put("/photos/large.bin", data, null);
+
+        EmbeddedChannel ch = new EmbeddedChannel(new S3RequestReader(MAX_CONTENT),
+                new S3Handler(store, config()));
+        ch.writeInbound(new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET,
+                "/photos/large.bin", Unpooled.EMPTY_BUFFER));
+        HttpResponse head = ch.readOutbound();
+        assertThat(head).isNotInstanceOf(FullHttpResponse.class);
+        assertThat(head.status().code()).isEqualTo(200);
+        assertThat(head.headers().get(HttpHeaderNames.CONTENT_LENGTH)).isEqualTo("200000");
+        assertThat(head.headers().get(HttpHeaderNames.ETAG)).isEqualTo(Etag.of(Crc32c.of(data)));
+        java.io.ByteArrayOutputStream body = new java.io.ByteArrayOutputStream();
+        HttpContent content;
+        do {
+            content = ch.readOutbound();
+            byte[] chunk = new byte[content.content().readableBytes()];
+            content.content().readBytes(chunk);
+            body.writeBytes(chunk);
+            content.release();
+        } while (!(content instanceof LastHttpContent));
+        ch.finishAndReleaseAll();
+        assertThat(body.toByteArray()).isEqualTo(data);
     }
 
     @Test
@@ -474,15 +548,15 @@ class S3HandlerTest {
     }
 
     private Response exchange(HttpMethod method, String uri, byte[] body, Consumer<HttpHeaders> headers) {
-        EmbeddedChannel channel = new EmbeddedChannel(new S3Handler(store, config()));
+        EmbeddedChannel channel = new EmbeddedChannel(new S3RequestReader(MAX_CONTENT),
+                new S3Handler(store, config()));
         DefaultFullHttpRequest request = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, method, uri,
                 body == null ? Unpooled.EMPTY_BUFFER : Unpooled.wrappedBuffer(body));
         if (headers != null) {
             headers.accept(request.headers());
         }
         channel.writeInbound(request);
-        FullHttpResponse response = channel.readOutbound();
-        Response captured = Response.capture(response);
+        Response captured = Response.capture(EmbeddedResponses.read(channel));
         channel.finishAndReleaseAll();
         return captured;
     }
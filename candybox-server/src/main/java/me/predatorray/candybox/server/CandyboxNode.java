@@ -17,22 +17,34 @@ package me.predatorray.candybox.server;
 
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import me.predatorray.candybox.bookkeeper.CachingLedgerStore;
 import me.predatorray.candybox.bookkeeper.LedgerStore;
 import me.predatorray.candybox.common.BoxName;
 import me.predatorray.candybox.common.CandyKey;
 import me.predatorray.candybox.common.Clock;
+import me.predatorray.candybox.common.HashScope;
 import me.predatorray.candybox.common.Hlc;
 import me.predatorray.candybox.common.SystemClock;
 import me.predatorray.candybox.common.auth.Authorizer;
+import me.predatorray.candybox.common.concurrent.CacheStats;
 import me.predatorray.candybox.common.config.CandyboxConfig;
 import me.predatorray.candybox.common.exception.BoxAlreadyExistsException;
 import me.predatorray.candybox.common.exception.BoxNotEmptyException;
@@ -44,24 +56,39 @@ import me.predatorray.candybox.coordination.CandyboxKeys;
 import me.predatorray.candybox.coordination.CasConflictException;
 import me.predatorray.candybox.coordination.CoordinationCas;
 import me.predatorray.candybox.coordination.CoordinationService;
+import me.predatorray.candybox.coordination.PartitionAssignment;
+import me.predatorray.candybox.coordination.PartitionAssignment.BoxPartition;
+import me.predatorray.candybox.coordination.PartitionLoad;
 import me.predatorray.candybox.coordination.VersionedValue;
 import me.predatorray.candybox.common.serial.BinaryReader;
 import me.predatorray.candybox.common.serial.BinaryWriter;
 import me.predatorray.candybox.lsm.engine.BoxEngine;
+import me.predatorray.candybox.lsm.engine.BoxEngineStats;
+import me.predatorray.candybox.lsm.engine.BoxReader;
+import me.predatorray.candybox.lsm.engine.EngineResources;
+import me.predatorray.candybox.lsm.engine.RecoveryTimings;
+import me.predatorray.candybox.lsm.engine.StandbyReplica;
 import me.predatorray.candybox.lsm.manifest.RenameIntent;
+import me.predatorray.candybox.lsm.sstable.BlockCache;
 import me.predatorray.candybox.protocol.transport.RequestHandler;
-import me.predatorray.candybox.server.PartitionAssignment.BoxPartition;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * A Candybox storage node. Every Box is split into a creation-time-fixed number of hash partitions
- * (its {@link BoxDescriptor}); the node owns a set of <em>partitions</em> under fenced ZooKeeper
- * leases (via {@link PartitionOwnership}), serving each from its own {@link BoxEngine}, so the
- * write load of one Box spreads across the cluster. {@link #createBox} creates the descriptor and
+ * A Candybox storage node. Every Box is split into hash partitions (its {@link BoxDescriptor}) — a
+ * number fixed at creation, which {@link #splitPartition} divides further as one runs hot; the node
+ * owns a set of <em>partitions</em> under fenced ZooKeeper leases (via {@link PartitionOwnership}),
+ * serving each from its own {@link BoxEngine}, so the write load of one Box spreads across the
+ * cluster. {@link #createBox} creates the descriptor and
  * takes initial ownership of every partition; the {@link PartitionBalancer} then spreads ownership
  * evenly and {@link #openPartition} is the per-partition failover/takeover path. A background
  * heartbeat renews the leases.
+ *
+ * <p>A node may also keep {@link StandbyReplica warm standbys} of partitions other nodes own, as the
+ * balancer designates them: a background tick keeps each caught up with its owner, promotes it the
+ * moment that owner's lease is free and the owner has left the cluster, and {@link #openPartition}
+ * promotes rather than recovers cold whenever a standby is at hand. A standby also answers reads
+ * whose caller tolerates its staleness (see {@link #reader}).
  */
 public final class CandyboxNode implements AutoCloseable {
 
@@ -69,7 +96,8 @@ public final class CandyboxNode implements AutoCloseable {
 
     private final int nodeId;
     private final CandyboxConfig config;
-    private final LedgerStore ledgerStore;
+    // The caller's store behind the node-wide cache of read-only handles; every component uses this.
+    private final CachingLedgerStore ledgerStore;
     private final CoordinationService coordination;
     private final Clock clock;
     private final BoxAclStore aclStore;
@@ -80,13 +108,37 @@ public final class CandyboxNode implements AutoCloseable {
     private final ScheduledExecutorService leaseHeartbeat;
     private final ScheduledExecutorService compactionWorker;
     private final ScheduledExecutorService balancerWorker;
+    private final ScheduledExecutorService standbyWorker;
+    // Warm replicas of partitions other nodes own, as designated by the last assignment applied.
+    private final ConcurrentMap<BoxPartition, StandbyReplica> standbys = new ConcurrentHashMap<>();
+    private volatile PartitionAssignment followedAssignment = PartitionAssignment.empty();
+    // Node-wide pool writing sealed memtables to L0 for every owned partition (null = flush inline).
+    private final ExecutorService flushWorkers;
+    // Node-wide pools for takeovers (null = recover on the caller): one recovers whole partitions,
+    // the other opens their SSTable readers — separate, so recoveries cannot starve their own opens.
+    private final ExecutorService recoveryWorkers;
+    private final ExecutorService readerOpenWorkers;
+    // Serializes takeovers and releases of one partition without holding a map bin lock across a
+    // recovery. An entry lives only while the partition is owned here or someone holds its lock.
+    private final ConcurrentMap<BoxPartition, ReentrantLock> openLocks = new ConcurrentHashMap<>();
+    // Takeover latency by recovery phase, for the metrics endpoint.
+    private final Map<String, LatencyHistogram> recoveryTimes = new LinkedHashMap<>();
+    // Each owned partition's engine counters as of the last load publish, to turn them into rates.
+    private final ConcurrentMap<BoxPartition, LoadSample> loadSamples = new ConcurrentHashMap<>();
+    private final EngineResources engineResources;
+    // Node-wide cache of decoded SSTable blocks, shared by every owned partition's engine.
+    private final BlockCache blockCache;
     private final CompactionService compactionService;
     private final GarbageCollector garbageCollector;
+    private final SyrupDefragmenter syrupDefragmenter;
     private final PartitionBalancer balancer;
 
     /** Bounded compaction passes per partition per worker tick, so one cannot starve the others. */
     private static final int MAX_COMPACTIONS_PER_TICK = 8;
 
+    /** Descriptor compare-and-set attempts a split makes against concurrent splits of the Box. */
+    private static final int MAX_DESCRIPTOR_CAS_RETRIES = 16;
+
     public CandyboxNode(int nodeId, CandyboxConfig config, LedgerStore ledgerStore,
                         CoordinationService coordination) {
         this(nodeId, config, ledgerStore, coordination, SystemClock.INSTANCE);
@@ -105,15 +157,40 @@ public final class CandyboxNode implements AutoCloseable {
                         CoordinationService coordination, Clock clock, String advertisedAddress) {
         this.nodeId = nodeId;
         this.config = config;
-        this.ledgerStore = ledgerStore;
+        this.ledgerStore = new CachingLedgerStore(ledgerStore, config.ledgerHandleCacheCapacity(),
+                config.ledgerHandleIdleMillis(), clock);
         this.coordination = coordination;
         this.clock = clock;
         this.aclStore = new BoxAclStore(coordination, clock);
         coordination.registerMember(nodeId, advertisedAddress.getBytes(StandardCharsets.UTF_8));
-        this.compactionService = new CompactionService(ledgerStore, config, clock);
-        this.garbageCollector = new GarbageCollector(ledgerStore, config.ledgerGcGraceMillis(), clock);
+        this.compactionService = new CompactionService(this.ledgerStore, config, clock);
+        this.blockCache = new BlockCache(config.blockCacheCapacityBytes());
+        this.garbageCollector = new GarbageCollector(this.ledgerStore, config.ledgerGcGraceMillis(), clock,
+                blockCache);
+        this.syrupDefragmenter = new SyrupDefragmenter(config);
         this.balancer = new PartitionBalancer(this, coordination, config);
 
+        for (String phase : List.of("manifest", "wal", "sstables", "total")) {
+            recoveryTimes.put(phase, new LatencyHistogram());
+        }
+        if (config.recoveryThreads() > 0) {
+            this.recoveryWorkers = daemonPool("candybox-recovery-" + nodeId, config.recoveryThreads());
+            this.readerOpenWorkers = daemonPool("candybox-sstable-open-" + nodeId,
+                    config.recoveryThreads());
+        } else {
+            this.recoveryWorkers = null;
+            this.readerOpenWorkers = null;
+        }
+        if (config.flushThreads() > 0) {
+            this.flushWorkers = daemonPool("candybox-flush-" + nodeId, config.flushThreads());
+            this.engineResources = new EngineResources(flushWorkers, blockCache,
+                    readerOpenWorkers != null ? readerOpenWorkers : Runnable::run);
+        } else {
+            this.flushWorkers = null;
+            this.engineResources = new EngineResources(Runnable::run, blockCache,
+                    readerOpenWorkers != null ? readerOpenWorkers : Runnable::run);
+        }
+
         long renewInterval = config.leaseRenewIntervalMillis();
         if (renewInterval > 0) {
             this.leaseHeartbeat = daemonScheduler("candybox-lease-" + nodeId);
@@ -140,17 +217,52 @@ public final class CandyboxNode implements AutoCloseable {
         } else {
             this.balancerWorker = null;
         }
+
+        if (config.standbyReplicas() > 0) {
+            long catchUpInterval = config.standbyCatchUpIntervalMillis();
+            this.standbyWorker = daemonScheduler("candybox-standby-" + nodeId);
+            this.standbyWorker.scheduleWithFixedDelay(this::catchUpStandbys, catchUpInterval,
+                    catchUpInterval, TimeUnit.MILLISECONDS);
+        } else {
+            this.standbyWorker = null;
+        }
     }
 
     /**
-     * One background maintenance tick: compact owned partitions, GC their obsoleted ledgers, and sweep
-     * any abandoned in-flight multipart uploads (older than {@code multipartUploadTtlMillis}).
+     * One background maintenance tick: finish owned partitions' interrupted splits, compact them,
+     * defragment their emptiest Syrups, GC their obsoleted ledgers, sweep any abandoned in-flight
+     * multipart uploads (older than {@code multipartUploadTtlMillis}), and close ledger handles
+     * left idle in the node-wide cache.
      */
     private void runMaintenance() {
+        reconcileScopesOnce();
         compactOwnedBoxesOnce();
+        defragmentSyrupsOnce();
         collectGarbageOnce();
         sweepStaleMultipartUploadsOnce();
         finalizeRenameIntentsOnce();
+        closeIdleLedgerHandlesOnce();
+    }
+
+    /**
+     * Closes cached read handles unused for {@code ledgerHandleIdleMillis}. The cache also sweeps
+     * when a ledger is opened, but a quiet node opens none. Exposed for manual/operational triggering.
+     */
+    public void closeIdleLedgerHandlesOnce() {
+        try {
+            ledgerStore.evictIdle();
+        } catch (RuntimeException e) {
+            LOG.warn("Failed closing idle ledger handles on node {}", nodeId, e);
+        }
+    }
+
+    private static ExecutorService daemonPool(String namePrefix, int threads) {
+        AtomicInteger ids = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, namePrefix + "-" + ids.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
     }
 
     private static ScheduledExecutorService daemonScheduler(String name) {
@@ -204,8 +316,9 @@ public final class CandyboxNode implements AutoCloseable {
         try {
             for (int p = 0; p < count; p++) {
                 PartitionOwnership ownership = PartitionOwnership.createNew(box, p, config,
-                        ledgerStore, coordination, nodeId, clock);
+                        ledgerStore, coordination, nodeId, clock, engineResources);
                 created.add(ownership);
+                ownership.engine().narrowScope(descriptor.scopeOf(p));
                 partitions.put(new BoxPartition(box.value(), p), ownership);
             }
             descriptorCache.put(box.value(), descriptor);
@@ -224,38 +337,326 @@ public final class CandyboxNode implements AutoCloseable {
      * recovers the manifest + WAL from the current pointer, and advances the pointer.
      */
     public void openPartition(BoxName box, int partition) {
-        partitions.compute(new BoxPartition(box.value(), partition), (bp, existing) -> {
+        BoxPartition bp = new BoxPartition(box.value(), partition);
+        ReentrantLock openLock = lockPartition(bp);
+        try {
+            PartitionOwnership existing = partitions.get(bp);
             if (existing != null && existing.isOwner()) {
-                return existing; // already owned here
+                return; // already owned here
             }
             LOG.info("Opening (taking over) box {} partition {} on node {}", bp.box(),
                     bp.partition(), nodeId);
-            return PartitionOwnership.recover(box, partition, config, ledgerStore, coordination,
-                    nodeId, clock);
-        });
+            long started = System.nanoTime();
+            StandbyReplica standby = standbys.get(bp);
+            PartitionOwnership ownership;
+            try {
+                ownership = PartitionOwnership.recover(box, partition, config, ledgerStore,
+                        coordination, nodeId, clock, engineResources, standby);
+            } finally {
+                if (standby != null && standby.isClosed()) {
+                    standbys.remove(bp, standby); // promoted, or spent by a failed promotion
+                }
+            }
+            partitions.put(bp, ownership);
+            recordRecovery(ownership.engine().recoveryTimings(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+            reconcileScope(ownership);
+        } finally {
+            unlockPartition(bp, openLock);
+        }
+    }
+
+    /**
+     * Takes {@code bp}'s open lock. A lock found in {@link #openLocks} may be dropped by its holder
+     * before this thread gets it, so it is only kept if it is still the partition's lock then.
+     */
+    private ReentrantLock lockPartition(BoxPartition bp) {
+        while (true) {
+            ReentrantLock lock = openLocks.computeIfAbsent(bp, k -> new ReentrantLock());
+            lock.lock();
+            if (openLocks.get(bp) == lock) {
+                return lock;
+            }
+            lock.unlock();
+        }
+    }
+
+    /** Releases {@code bp}'s open lock, dropping it if the partition is not owned here. */
+    private void unlockPartition(BoxPartition bp, ReentrantLock lock) {
+        try {
+            if (lock.getHoldCount() == 1 && !partitions.containsKey(bp)) {
+                openLocks.remove(bp, lock);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Splits one partition this node owns by hash (DESIGN §7b): the {@link HashScope#right() right}
+     * half of its keys becomes a new partition, owned here until the balancer moves it, which starts
+     * from this one's SSTables and Syrups by reference. Writes to the handed-off half are refused with
+     * {@code BUSY} for the duration; reads carry on.
+     *
+     * <p>The steps roll forward from a crash: the new partition's manifest pointer is published first,
+     * then this partition's engine is narrowed, then the descriptor records the split. A failure
+     * before the narrowing withdraws the new partition's published references (a crash leaves them
+     * and an unreferenced pointer for the next split of this partition to overwrite); one after it,
+     * such as a descriptor update that keeps losing its CAS, is finished by {@link #reconcileScope}
+     * on the next maintenance tick or when the partition is next opened.
+     *
+     * @return the new partition's id
+     * @throws NotOwnerException if this node does not own {@code partition}
+     */
+    public int splitPartition(BoxName box, int partition) {
+        BoxPartition bp = new BoxPartition(box.value(), partition);
+        ReentrantLock openLock = lockPartition(bp);
+        try {
+            PartitionOwnership ownership = partitions.get(bp);
+            if (ownership == null || !ownership.isOwner()) {
+                throw new NotOwnerException(box.value());
+            }
+            reconcileScope(ownership);
+            BoxDescriptor descriptor = descriptor(box);
+            HashScope kept = descriptor.scopeOf(partition).left();
+            int child = descriptor.splitSibling(partition);
+            PartitionOwnership split;
+            try {
+                split = ownership.split(child, config, nodeId, engineResources);
+            } catch (RuntimeException e) {
+                abandonSplitQuietly(ownership);
+                throw e;
+            }
+            try {
+                publishPartitionRefs(split); // before this partition may compact a shared table away
+                ownership.engine().narrowScope(kept);
+            } catch (RuntimeException e) {
+                split.close();
+                abandonSplitQuietly(ownership);
+                deleteSplitRefsQuietly(box, child);
+                throw e;
+            }
+            partitions.put(new BoxPartition(box.value(), child), split);
+            registerSplit(box, partition, kept);
+            publishPartitionRefs(ownership);
+            // Its load is measured afresh before the balancer weighs (and maybe splits) it again.
+            loadSamples.remove(bp);
+            try {
+                CoordinationCas.deleteIfPresent(coordination,
+                        CandyboxKeys.partitionLoadKey(box.value(), partition), 0);
+            } catch (CasConflictException raced) {
+                // A publish of the old figures raced us; the next measured rate replaces them.
+            }
+            LOG.info("Split box {} partition {} on node {}: keys {} moved to partition {}", box,
+                    partition, nodeId, split.engine().manifestState().hashScope(), child);
+            return child;
+        } finally {
+            unlockPartition(bp, openLock);
+        }
+    }
+
+    private static void abandonSplitQuietly(PartitionOwnership ownership) {
+        try {
+            ownership.engine().abandonSplit();
+        } catch (NotOwnerException lost) {
+            // The engine stops serving anyway; the next owner recovers it unsplit.
+        }
+    }
+
+    /**
+     * Withdraws the references an abandoned split published for the partition it was creating,
+     * which would otherwise hold this partition's SSTables and Syrups back from GC for good.
+     */
+    private void deleteSplitRefsQuietly(BoxName box, int child) {
+        try {
+            CoordinationCas.deleteIfPresent(coordination,
+                    CandyboxKeys.partitionRefsKey(box.value(), child), MAX_DESCRIPTOR_CAS_RETRIES);
+        } catch (RuntimeException e) {
+            LOG.warn("Failed withdrawing the references of box {} partition {}, whose split was "
+                    + "abandoned", box, child, e);
+        }
+    }
+
+    /**
+     * Runs {@link #reconcileScope} over every partition this node owns whose engine and cached
+     * descriptor disagree, so a split whose descriptor update failed is routed without waiting for
+     * the partition to be reopened. Exposed for manual/operational triggering.
+     *
+     * @return the number of partitions reconciled
+     */
+    public int reconcileScopesOnce() {
+        int reconciled = 0;
+        for (Map.Entry<BoxPartition, PartitionOwnership> entry : partitions.entrySet()) {
+            PartitionOwnership candidate = entry.getValue();
+            try {
+                BoxDescriptor descriptor = descriptor(candidate.box());
+                // A partition the descriptor does not name yet is routed by its parent's reconcile.
+                if (!candidate.isOwner() || !descriptor.isPartition(candidate.partition())
+                        || candidate.engine().manifestState().hashScope()
+                                .equals(descriptor.scopeOf(candidate.partition()))) {
+                    continue;
+                }
+            } catch (NotOwnerException | BoxNotFoundException gone) {
+                continue;
+            }
+            BoxPartition bp = entry.getKey();
+            ReentrantLock openLock = lockPartition(bp);
+            try {
+                PartitionOwnership ownership = partitions.get(bp);
+                if (ownership != null && ownership.isOwner()) {
+                    reconcileScope(ownership);
+                    reconciled++;
+                }
+            } catch (NotOwnerException | BoxNotFoundException gone) {
+                // Lost or deleted meanwhile; whoever opens it next reconciles it.
+            } catch (RuntimeException e) {
+                LOG.warn("Failed reconciling the scope of box {} partition {} on node {}",
+                        bp.box(), bp.partition(), nodeId, e);
+            } finally {
+                unlockPartition(bp, openLock);
+            }
+        }
+        return reconciled;
+    }
+
+    /**
+     * Brings an owned partition's engine and the descriptor into agreement about which keys it owns,
+     * finishing whatever a split left undone: an engine wider than its routed scope (one created
+     * before the Box's partitions had scopes) is narrowed, and a narrower one (split, but the split
+     * never reached the descriptor) has its split recorded.
+     */
+    private void reconcileScope(PartitionOwnership ownership) {
+        BoxEngine engine = ownership.engine();
+        HashScope owned = engine.manifestState().hashScope();
+        HashScope routed = refreshDescriptor(ownership.box()).scopeOf(ownership.partition());
+        if (owned.equals(routed)) {
+            return;
+        }
+        if (owned.covers(routed)) {
+            engine.narrowScope(routed);
+        } else if (routed.covers(owned)) {
+            LOG.info("Recording the interrupted split of box {} partition {} (scope {})",
+                    ownership.box(), ownership.partition(), owned);
+            registerSplit(ownership.box(), ownership.partition(), owned);
+        } else {
+            throw new IllegalStateException("Box " + ownership.box() + " partition "
+                    + ownership.partition() + " owns " + owned + " but is routed " + routed);
+        }
+    }
+
+    /** Splits {@code partition} in the Box's descriptor until its scope is {@code scope}. */
+    private void registerSplit(BoxName box, int partition, HashScope scope) {
+        String key = CandyboxKeys.boxMetaKey(box.value());
+        for (int attempt = 0; ; attempt++) {
+            VersionedValue meta = coordination.get(key)
+                    .orElseThrow(() -> new BoxNotFoundException(box.value()));
+            BoxDescriptor descriptor = BoxDescriptor.decode(meta.value());
+            HashScope routed = descriptor.scopeOf(partition);
+            if (routed.equals(scope)) {
+                descriptorCache.put(box.value(), descriptor);
+                return;
+            }
+            if (!routed.covers(scope)) {
+                throw new IllegalStateException("Partition " + partition + " of box " + box
+                        + " is routed " + routed + ", which does not cover " + scope);
+            }
+            try {
+                coordination.compareAndSet(key, descriptor.split(partition).encode(),
+                        meta.version());
+            } catch (CasConflictException raced) {
+                // Another partition's split landed first; re-read and retry.
+                if (attempt >= MAX_DESCRIPTOR_CAS_RETRIES) {
+                    throw raced;
+                }
+            }
+        }
+    }
+
+    /**
+     * Takes over several partitions at once, up to {@link CandyboxConfig#recoveryThreads()} of them
+     * recovering concurrently, so a failover of many partitions costs about the slowest recoveries
+     * rather than their sum. Each partition succeeds or fails on its own.
+     *
+     * @return the partitions that could not be opened, with why
+     */
+    Map<BoxPartition, RuntimeException> openPartitions(Collection<BoxPartition> targets) {
+        Map<BoxPartition, RuntimeException> failures = new ConcurrentHashMap<>();
+        if (recoveryWorkers == null || targets.size() <= 1) {
+            for (BoxPartition bp : targets) {
+                openQuietly(bp, failures);
+            }
+            return failures;
+        }
+        List<CompletableFuture<Void>> recoveries = new ArrayList<>(targets.size());
+        for (BoxPartition bp : targets) {
+            recoveries.add(CompletableFuture.runAsync(() -> openQuietly(bp, failures), recoveryWorkers));
+        }
+        CompletableFuture.allOf(recoveries.toArray(new CompletableFuture<?>[0])).join();
+        return failures;
+    }
+
+    private void openQuietly(BoxPartition bp, Map<BoxPartition, RuntimeException> failures) {
+        try {
+            openPartition(BoxName.of(bp.box()), bp.partition());
+        } catch (RuntimeException e) {
+            failures.put(bp, e);
+        }
+    }
+
+    private void recordRecovery(RecoveryTimings timings, long totalMillis) {
+        recoveryTimes.get("manifest").observe(timings.manifestMillis());
+        recoveryTimes.get("wal").observe(timings.walReplayMillis());
+        recoveryTimes.get("sstables").observe(timings.sstableOpenMillis());
+        recoveryTimes.get("total").observe(totalMillis);
+    }
+
+    /** Takeover latency histograms by phase ({@code manifest}, {@code wal}, {@code sstables}, {@code total}). */
+    Map<String, LatencyHistogram.Snapshot> recoveryHistograms() {
+        Map<String, LatencyHistogram.Snapshot> out = new LinkedHashMap<>();
+        recoveryTimes.forEach((phase, histogram) -> out.put(phase, histogram.snapshot()));
+        return out;
     }
 
     /** Takes over ownership of every partition of an existing Box (test/operational convenience). */
     public void openBox(BoxName box) {
-        BoxDescriptor descriptor = descriptor(box);
-        for (int p = 0; p < descriptor.partitionCount(); p++) {
-            openPartition(box, p);
+        List<BoxPartition> targets = new ArrayList<>();
+        for (int p : refreshDescriptor(box).partitions()) {
+            targets.add(new BoxPartition(box.value(), p));
+        }
+        Map<BoxPartition, RuntimeException> failures = openPartitions(targets);
+        for (BoxPartition bp : targets) {
+            RuntimeException failure = failures.get(bp);
+            if (failure != null) {
+                throw failure; // the lowest-numbered partition that failed, as a sequential open would
+            }
         }
     }
 
     /** Relinquishes one partition (releases the lease, closes the engine); does not delete data. */
     public void releasePartition(BoxName box, int partition) {
-        PartitionOwnership ownership = partitions.remove(new BoxPartition(box.value(), partition));
-        if (ownership != null) {
-            ownership.close();
+        BoxPartition bp = new BoxPartition(box.value(), partition);
+        ReentrantLock openLock = lockPartition(bp);
+        try {
+            PartitionOwnership ownership = partitions.remove(bp);
+            if (ownership != null) {
+                ownership.close();
+            }
+        } finally {
+            unlockPartition(bp, openLock);
         }
     }
 
     /** Like {@link #releasePartition} but flushes first so the next owner's WAL replay is small. */
     void releasePartitionForHandover(BoxName box, int partition) {
-        PartitionOwnership ownership = partitions.remove(new BoxPartition(box.value(), partition));
-        if (ownership != null) {
-            ownership.closeForHandover();
+        BoxPartition bp = new BoxPartition(box.value(), partition);
+        ReentrantLock openLock = lockPartition(bp);
+        try {
+            PartitionOwnership ownership = partitions.remove(bp);
+            if (ownership != null) {
+                ownership.closeForHandover();
+            }
+        } finally {
+            unlockPartition(bp, openLock);
         }
     }
 
@@ -275,9 +676,8 @@ public final class CandyboxNode implements AutoCloseable {
      * @throws NotOwnerException if {@code !force} and another live node still owns a partition
      */
     public void deleteBox(BoxName box, boolean force) {
-        BoxDescriptor descriptor = descriptor(box);
-        List<PartitionOwnership> owned = new ArrayList<>(descriptor.partitionCount());
-        for (int p = 0; p < descriptor.partitionCount(); p++) {
+        List<PartitionOwnership> owned = new ArrayList<>();
+        for (int p : refreshDescriptor(box).partitions()) {
             PartitionOwnership ownership = partitions.get(new BoxPartition(box.value(), p));
             if (ownership != null && ownership.isOwner()) {
                 owned.add(ownership);
@@ -301,8 +701,14 @@ public final class CandyboxNode implements AutoCloseable {
             }
         }
         for (PartitionOwnership ownership : owned) {
-            partitions.remove(new BoxPartition(box.value(), ownership.partition()));
-            dropPartition(ownership);
+            BoxPartition bp = new BoxPartition(box.value(), ownership.partition());
+            ReentrantLock openLock = lockPartition(bp);
+            try {
+                partitions.remove(bp, ownership);
+                dropPartition(ownership);
+            } finally {
+                unlockPartition(bp, openLock);
+            }
         }
         descriptorCache.remove(box.value());
         deleteMetaQuietly(box);
@@ -348,6 +754,16 @@ public final class CandyboxNode implements AutoCloseable {
         return names;
     }
 
+    /** Counters of the node-wide SSTable block cache, for the metrics endpoint. */
+    public CacheStats blockCacheStats() {
+        return blockCache.stats();
+    }
+
+    /** Counters of the node-wide cache of open read-only ledger handles, for the metrics endpoint. */
+    public CacheStats ledgerHandleCacheStats() {
+        return ledgerStore.stats();
+    }
+
     /**
      * A point-in-time snapshot of {@link me.predatorray.candybox.lsm.engine.BoxEngineStats} for every
      * partition this node currently owns, keyed by {@code box/partition}. Used by the health/metrics
@@ -375,11 +791,27 @@ public final class CandyboxNode implements AutoCloseable {
         return findDescriptor(box).isPresent();
     }
 
-    /** The Box's descriptor, or throws {@link BoxNotFoundException}. Cached (it is immutable). */
+    /**
+     * The Box's descriptor, or throws {@link BoxNotFoundException}. Cached: it changes only when a
+     * partition splits, and a node serving a stale copy learns of it from the {@link
+     * NotOwnerException} of the narrowed partition (see {@link #refreshDescriptor}).
+     */
     public BoxDescriptor descriptor(BoxName box) {
         return findDescriptor(box).orElseThrow(() -> new BoxNotFoundException(box.value()));
     }
 
+    /** Re-reads the Box's descriptor from coordination into the cache; see {@link #descriptor}. */
+    public BoxDescriptor refreshDescriptor(BoxName box) {
+        Optional<BoxDescriptor> loaded = coordination.get(CandyboxKeys.boxMetaKey(box.value()))
+                .map(v -> BoxDescriptor.decode(v.value()));
+        if (loaded.isEmpty()) {
+            descriptorCache.remove(box.value());
+            throw new BoxNotFoundException(box.value());
+        }
+        descriptorCache.put(box.value(), loaded.get());
+        return loaded.get();
+    }
+
     private Optional<BoxDescriptor> findDescriptor(BoxName box) {
         BoxDescriptor cached = descriptorCache.get(box.value());
         if (cached != null) {
@@ -421,18 +853,43 @@ public final class CandyboxNode implements AutoCloseable {
         return ownership.engine();
     }
 
+    /**
+     * Returns what should answer a read of one partition that tolerates {@code maxStalenessMillis} of
+     * staleness: the engine when this node owns the partition, else this node's standby of it if that
+     * caught up within the bound. With a zero bound, or no fresh standby, this is {@link
+     * #enginePartition} and throws as it does.
+     */
+    public BoxReader reader(BoxName box, int partition, long maxStalenessMillis) {
+        if (maxStalenessMillis > 0 && !ownsPartition(box.value(), partition)) {
+            StandbyReplica standby = standbys.get(new BoxPartition(box.value(), partition));
+            if (standby != null && standby.isCaughtUpWithin(maxStalenessMillis)) {
+                return standby;
+            }
+        }
+        return enginePartition(box, partition);
+    }
+
     /**
      * Drops locally owned partitions whose Box descriptor no longer exists — the convergence path of
      * a (force) {@link #deleteBox} issued on another node while this one owned some partitions.
      */
     void sweepDeletedBoxes() {
         for (BoxPartition bp : partitions.keySet()) {
-            if (coordination.get(CandyboxKeys.boxMetaKey(bp.box())).isEmpty()) {
-                PartitionOwnership ownership = partitions.remove(bp);
-                if (ownership != null) {
-                    LOG.info("Dropping box {} partition {} on node {}: the Box was deleted",
-                            bp.box(), bp.partition(), nodeId);
-                    dropPartition(ownership);
+            Optional<VersionedValue> meta = coordination.get(CandyboxKeys.boxMetaKey(bp.box()));
+            if (meta.isPresent()) {
+                // Picks up other nodes' splits on the way.
+                descriptorCache.put(bp.box(), BoxDescriptor.decode(meta.get().value()));
+            } else {
+                ReentrantLock openLock = lockPartition(bp);
+                try {
+                    PartitionOwnership ownership = partitions.remove(bp);
+                    if (ownership != null) {
+                        LOG.info("Dropping box {} partition {} on node {}: the Box was deleted",
+                                bp.box(), bp.partition(), nodeId);
+                        dropPartition(ownership);
+                    }
+                } finally {
+                    unlockPartition(bp, openLock);
                 }
                 descriptorCache.remove(bp.box());
             }
@@ -467,6 +924,101 @@ public final class CandyboxNode implements AutoCloseable {
         balancer.runOnce();
     }
 
+    /**
+     * Converges this node's warm standbys on {@code assignment}: starts following every partition
+     * that names this node as a standby and is owned elsewhere, and closes the standbys of the rest.
+     */
+    void followPartitions(PartitionAssignment assignment) {
+        followedAssignment = assignment;
+        for (Iterator<Map.Entry<BoxPartition, StandbyReplica>> it = standbys.entrySet().iterator();
+                it.hasNext(); ) {
+            Map.Entry<BoxPartition, StandbyReplica> e = it.next();
+            if (!assignment.standbysOf(e.getKey()).contains(nodeId)) {
+                it.remove();
+                e.getValue().close();
+            }
+        }
+        for (Map.Entry<BoxPartition, List<Integer>> e : assignment.standbys().entrySet()) {
+            BoxPartition bp = e.getKey();
+            if (!e.getValue().contains(nodeId) || standbys.containsKey(bp)
+                    || ownsPartition(bp.box(), bp.partition())) {
+                continue;
+            }
+            Optional<VersionedValue> pointer =
+                    coordination.get(CandyboxKeys.manifestKey(bp.box(), bp.partition()));
+            if (pointer.isEmpty()) {
+                continue; // the Box is being created or deleted; the next round decides
+            }
+            LOG.info("Node {} standing by for box {} partition {}", nodeId, bp.box(), bp.partition());
+            standbys.put(bp, StandbyReplica.follow(BoxName.of(bp.box()), config, ledgerStore,
+                    ManifestPointer.decode(pointer.get().value()).ledgerId(), clock,
+                    engineResources));
+        }
+    }
+
+    /**
+     * One standby tick: catches every standby up with its owner, re-pointing it first if the owner
+     * changed, and promotes it once the partition's lease is free and either the assignment hands the
+     * partition to this node or its assigned owner has left the cluster and this node is its first
+     * live standby. Driven by the background worker when {@code standbyReplicas > 0}; exposed so
+     * tests can drive it manually.
+     */
+    void catchUpStandbys() {
+        List<Integer> members = null;
+        for (Map.Entry<BoxPartition, StandbyReplica> e : standbys.entrySet()) {
+            BoxPartition bp = e.getKey();
+            StandbyReplica standby = e.getValue();
+            try {
+                coordination.get(CandyboxKeys.manifestKey(bp.box(), bp.partition())).ifPresent(
+                        p -> standby.follow(ManifestPointer.decode(p.value()).ledgerId()));
+                standby.catchUp();
+            } catch (RuntimeException ex) {
+                // Closed under us, or a ledger just retired; the next tick retries.
+                LOG.debug("Standby of box {} partition {} on node {} could not catch up: {}",
+                        bp.box(), bp.partition(), nodeId, ex.getMessage());
+                continue;
+            }
+            if (coordination.leaseHolder(CandyboxKeys.ownerResource(bp.box(), bp.partition()))
+                    .isPresent()) {
+                continue;
+            }
+            if (members == null) {
+                members = coordination.members();
+            }
+            if (shouldPromote(bp, members)) {
+                LOG.info("Node {} promoting its standby of box {} partition {}", nodeId, bp.box(),
+                        bp.partition());
+                try {
+                    openPartition(BoxName.of(bp.box()), bp.partition());
+                } catch (RuntimeException ex) {
+                    LOG.info("Node {} could not promote box {} partition {} yet: {}", nodeId,
+                            bp.box(), bp.partition(), ex.getMessage());
+                }
+            }
+        }
+    }
+
+    private boolean shouldPromote(BoxPartition bp, List<Integer> members) {
+        PartitionAssignment assignment = followedAssignment;
+        Integer owner = assignment.targets().get(bp);
+        if (owner == null) {
+            return false;
+        }
+        if (owner == nodeId) {
+            return true; // the balancer already handed it here
+        }
+        if (members.contains(owner)) {
+            return false; // a planned handover: the assigned owner takes it
+        }
+        return assignment.standbysOf(bp).stream().filter(members::contains).findFirst()
+                .map(first -> first == nodeId).orElse(false);
+    }
+
+    /** The partitions this node currently stands by for. */
+    Set<BoxPartition> standbyPartitions() {
+        return Set.copyOf(standbys.keySet());
+    }
+
     private void renewLeases() {
         for (PartitionOwnership ownership : partitions.values()) {
             try {
@@ -511,6 +1063,33 @@ public final class CandyboxNode implements AutoCloseable {
         return performed;
     }
 
+    /**
+     * Runs one round of Syrup defragmentation over every partition this node owns, copying at most
+     * about {@code syrupDefragMaxBytesPerRound} Candy bytes in total — the node-wide throttle. Each
+     * relocation is a fenced, LWW-conditional write, so a partition lost mid-round is skipped like in
+     * compaction. Exposed for manual/operational triggering.
+     *
+     * @return the Candy bytes copied across all partitions
+     */
+    public long defragmentSyrupsOnce() {
+        long budget = config.syrupDefragMaxBytesPerRound();
+        long copied = 0;
+        for (PartitionOwnership ownership : partitions.values()) {
+            if (!ownership.isOwner()) {
+                continue;
+            }
+            try {
+                copied += syrupDefragmenter.defragmentOnce(ownership.engine(), budget - copied);
+            } catch (FencedException | NotOwnerException lostOwnership) {
+                LOG.info("Stopping Syrup defragmentation of a partition on node {}: {}", nodeId,
+                        lostOwnership.getMessage());
+            } catch (RuntimeException e) {
+                LOG.warn("Syrup defragmentation error on node {}", nodeId, e);
+            }
+        }
+        return copied;
+    }
+
     /**
      * Runs one GC pass over every partition this node owns, deleting ledgers obsoleted by committed
      * compactions past the grace period. Exposed for manual/operational triggering.
@@ -631,7 +1210,10 @@ public final class CandyboxNode implements AutoCloseable {
         return clock.currentTimeMillis();
     }
 
-    /** Publishes one owned partition's referenced-Syrup set to coordination (Box-global GC input). */
+    /**
+     * Publishes one owned partition's referenced-ledger set — its Syrups, and the SSTables it may
+     * share with the partitions split off it or from — to coordination (Box-global GC input).
+     */
     void publishPartitionRefs(BoxName box, int partition) {
         PartitionOwnership ownership = partitions.get(new BoxPartition(box.value(), partition));
         if (ownership != null && ownership.isOwner()) {
@@ -642,7 +1224,9 @@ public final class CandyboxNode implements AutoCloseable {
     private void publishPartitionRefs(PartitionOwnership ownership) {
         Set<Long> refs;
         try {
-            refs = ownership.engine().referencedSyrups();
+            BoxEngine engine = ownership.engine();
+            refs = new HashSet<>(engine.referencedSyrups());
+            refs.addAll(engine.referencedSSTables());
         } catch (NotOwnerException lost) {
             return;
         }
@@ -650,19 +1234,76 @@ public final class CandyboxNode implements AutoCloseable {
                 encodeLongSet(refs));
     }
 
-    /** The union of every <em>other</em> partition's published referenced-Syrup set for a Box. */
+    /**
+     * Publishes a {@link PartitionLoad} for every owned partition, the balancer's input: request and
+     * byte rates since this node last sampled the same engine, plus its memtable bytes and L0 tables
+     * now. A partition sampled for the first time (just taken over) publishes nothing yet, so the
+     * previous owner's figures stand until this node has measured a rate of its own.
+     */
+    void publishPartitionLoads() {
+        long now = clock.currentTimeMillis();
+        loadSamples.keySet().removeIf(bp -> {
+            PartitionOwnership ownership = partitions.get(bp);
+            return ownership == null || !ownership.isOwner();
+        });
+        for (Map.Entry<BoxPartition, PartitionOwnership> e : partitions.entrySet()) {
+            BoxEngine engine;
+            BoxEngineStats stats;
+            try {
+                engine = e.getValue().engine();
+                stats = engine.stats();
+            } catch (NotOwnerException lost) {
+                continue;
+            }
+            LoadSample previous = loadSamples.get(e.getKey());
+            boolean sameEngine = previous != null && previous.engine() == engine;
+            if (sameEngine && now <= previous.atMillis()) {
+                continue; // no time has passed to measure a rate over
+            }
+            loadSamples.put(e.getKey(), new LoadSample(engine, stats, now));
+            if (!sameEngine) {
+                continue;
+            }
+            double seconds = (now - previous.atMillis()) / 1000.0;
+            BoxEngineStats before = previous.stats();
+            PartitionLoad load = new PartitionLoad((operations(stats) - operations(before)) / seconds,
+                    (stats.bytesIn() - before.bytesIn()) / seconds,
+                    (stats.bytesOut() - before.bytesOut()) / seconds,
+                    stats.memtableBytes(), stats.l0Tables());
+            casPut(CandyboxKeys.partitionLoadKey(e.getKey().box(), e.getKey().partition()),
+                    load.encode());
+        }
+    }
+
+    private static long operations(BoxEngineStats stats) {
+        return stats.puts() + stats.deletes() + stats.gets() + stats.heads() + stats.lists();
+    }
+
+    /** An engine's counters at one instant; a new engine (a re-acquired partition) starts over. */
+    private record LoadSample(BoxEngine engine, BoxEngineStats stats, long atMillis) {
+    }
+
+    /**
+     * The union of every <em>other</em> partition's published referenced-ledger set for a Box,
+     * including the partition a split of {@code excludePartition} creates (or a crash left
+     * behind), which shares its tables before the descriptor names it. Reads the descriptor fresh: a
+     * partition split off elsewhere must not be missed.
+     */
     private Set<Long> syrupsReferencedByOtherPartitions(String box, int excludePartition) {
         BoxDescriptor descriptor;
         try {
-            descriptor = descriptor(BoxName.of(box));
+            descriptor = refreshDescriptor(BoxName.of(box));
         } catch (BoxNotFoundException gone) {
             return Set.of();
         }
+        Set<Integer> others = new LinkedHashSet<>(descriptor.partitions());
+        others.remove(excludePartition);
+        if (descriptor.isPartition(excludePartition)
+                && descriptor.scopeOf(excludePartition).isSplittable()) {
+            others.add(descriptor.splitSibling(excludePartition));
+        }
         Set<Long> referenced = new HashSet<>();
-        for (int p = 0; p < descriptor.partitionCount(); p++) {
-            if (p == excludePartition) {
-                continue;
-            }
+        for (int p : others) {
             coordination.get(CandyboxKeys.partitionRefsKey(box, p))
                     .ifPresent(v -> referenced.addAll(decodeLongSet(v.value())));
         }
@@ -740,10 +1381,25 @@ public final class CandyboxNode implements AutoCloseable {
         if (balancerWorker != null) {
             balancerWorker.shutdownNow();
         }
+        if (standbyWorker != null) {
+            standbyWorker.shutdownNow();
+        }
+        standbys.values().forEach(StandbyReplica::close);
+        standbys.clear();
         for (PartitionOwnership ownership : partitions.values()) {
             ownership.close();
         }
         partitions.clear();
+        if (flushWorkers != null) {
+            // After the engines close, so no seal can hand the pool a task it would reject.
+            flushWorkers.shutdownNow();
+        }
+        if (recoveryWorkers != null) {
+            recoveryWorkers.shutdownNow();
+            readerOpenWorkers.shutdownNow();
+        }
+        // The underlying store belongs to the caller; only the handles this node cached are closed.
+        ledgerStore.invalidateAll();
         coordination.unregisterMember(nodeId);
     }
 }
@@ -30,8 +30,10 @@ import me.predatorray.candybox.coordination.zk.ZkAuth;
 import me.predatorray.candybox.coordination.zk.ZooKeeperCoordinationService;
 import me.predatorray.candybox.protocol.FrameCodec;
 import me.predatorray.candybox.protocol.auth.AuthenticatingRequestHandler;
+import me.predatorray.candybox.protocol.transport.NioTransportServer;
 import me.predatorray.candybox.protocol.transport.RequestHandler;
 import me.predatorray.candybox.protocol.transport.TcpTransportServer;
+import me.predatorray.candybox.protocol.transport.TransportServer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -74,13 +76,18 @@ public final class CandyboxServer {
     /** Wires the node, installs the shutdown hook, and blocks the calling thread until shutdown. */
     static void run(ServerConfig config) {
         SecurityConfig security = config.security();
-        LOG.info("Starting Candybox node {} (bind={}:{}, advertised={}, zk={}, tls={}, auth={})",
+        LOG.info("Starting Candybox node {} (bind={}:{}, advertised={}, zk={}, transport={}, tls={}, "
+                        + "auth={})",
                 config.nodeId(), config.bindHost(), config.bindPort(), config.advertisedAddress(),
-                config.zookeeperConnect(), security.tlsEnabled(),
+                config.zookeeperConnect(), config.transportMode(), security.tlsEnabled(),
                 security.authEnabled() ? security.saslMechanisms() : "off");
 
+        // Standbys (and the follower reads they serve) count on a quiet WAL's newest entry becoming
+        // visible within a catch-up interval, not with the owner's next write.
+        long explicitLacInterval = config.tuning().standbyReplicas() > 0
+                ? config.tuning().standbyCatchUpIntervalMillis() : 0;
         LedgerStore ledgerStore = BookKeeperLedgerStore.create(config.metadataServiceUri(),
-                config.ledgerPassword(), config.bookkeeperClientProps());
+                config.ledgerPassword(), config.bookkeeperClientProps(), explicitLacInterval);
         CoordinationService coordination = new ZooKeeperCoordinationService(
                 config.coordinationConnect(), SystemClock.INSTANCE,
                 new ZkAuth(security.zkAuthScheme(), security.zkAuthCredentials(),
@@ -95,12 +102,22 @@ public final class CandyboxServer {
                     AuthenticationProviders.forMechanisms(security.saslMechanisms()),
                     new FileCredentialStore(security.credentialsFile()), security.authRequired());
         }
-        TcpTransportServer transport = new TcpTransportServer(config.bindPort(), handler,
-                new FrameCodec(), security.serverSslContext(), security.tlsClientAuth());
+        TransportServer transport = switch (config.transportMode()) {
+            case BLOCKING -> new TcpTransportServer(config.bindPort(), handler, new FrameCodec(),
+                    security.serverSslContext(), security.tlsClientAuth(),
+                    TcpTransportServer.DEFAULT_MAX_IN_FLIGHT_PER_CONNECTION,
+                    config.maxInFlightRequests());
+            case NIO -> new NioTransportServer(config.bindPort(), handler, new FrameCodec(),
+                    security.serverSslContext(), security.tlsClientAuth(), config.workerThreads(),
+                    TcpTransportServer.DEFAULT_MAX_IN_FLIGHT_PER_CONNECTION,
+                    config.maxInFlightRequests());
+        };
 
         AtomicBoolean ready = new AtomicBoolean(true);
         HealthServer health = new HealthServer(config.healthPort(), config.nodeId(), ready::get,
-                node::ownedBoxStats, security.metricsAuthToken());
+                new HealthServer.MetricsSources(node::ownedBoxStats, node::blockCacheStats,
+                        node::ledgerHandleCacheStats, node::recoveryHistograms),
+                security.metricsAuthToken());
         health.start();
 
         LOG.info("Candybox node {} is up: serving on {}, health on {}", config.nodeId(),
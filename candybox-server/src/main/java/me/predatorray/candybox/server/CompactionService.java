@@ -60,7 +60,9 @@ public final class CompactionService {
         if (task.isEmpty()) {
             return false;
         }
-        CompactionResult result = compactor.compact(task.get());
+        // A split partition's compactions shed the keys its sibling owns from their shared tables.
+        CompactionResult result = compactor.compact(task.get(),
+                engine.manifestState().hashScope());
         engine.applyCompaction(result.edit());
         return true;
     }
@@ -21,6 +21,7 @@ import me.predatorray.candybox.bookkeeper.LedgerStore;
 import me.predatorray.candybox.common.Clock;
 import me.predatorray.candybox.common.exception.StorageException;
 import me.predatorray.candybox.lsm.engine.BoxEngine;
+import me.predatorray.candybox.lsm.sstable.BlockCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -30,16 +31,20 @@ import org.slf4j.LoggerFactory;
  * <p>Three reclaim sources, each after a grace period (Pulsar-style — a margin for in-flight readers /
  * continuation tokens), via {@link LedgerStore#deleteLedger(long)}:
  * <ul>
- *   <li><b>SSTables</b> removed from the manifest by a committed compaction;</li>
+ *   <li><b>SSTables</b> removed from the manifest by a committed compaction (and no longer listed by
+ *       a split sibling that shares them);</li>
  *   <li><b>Syrups</b> no longer referenced by any SSTable, the memtable, or the open write Syrup
  *       (dropped from the live set first via a fencing-gated manifest edit, then whole-ledger-deleted —
- *       v1 reclaims a Syrup only once every segment in it is dead; no defragmentation);</li>
+ *       a Syrup dies only once every segment in it is dead, which {@link SyrupDefragmenter} hastens
+ *       by moving the survivors of mostly-dead Syrups elsewhere);</li>
  *   <li><b>WAL</b> ledgers rotated out at flush, whose mutations are now durable in an SSTable.</li>
  * </ul>
  *
  * <p>Safety: this runs only for a Box this node still owns (the caller checks ownership), so the
  * physical delete is effectively gated on the owner's fencing token, and the reclaimed ledgers are
  * already out of the committed manifest. Deletes are idempotent: a missing ledger is treated as gone.
+ * A reclaimed SSTable's blocks are dropped from the node's {@link BlockCache} so they stop taking
+ * space there.
  *
  * <p>TODO(phase-3+): an enumeration backstop so ledgers orphaned by a prior owner that crashed before
  * GC are eventually reclaimed (the pending sets are in-memory today).
@@ -51,11 +56,18 @@ public final class GarbageCollector {
     private final LedgerStore ledgerStore;
     private final long graceMillis;
     private final Clock clock;
+    private final BlockCache blockCache;
 
     public GarbageCollector(LedgerStore ledgerStore, long graceMillis, Clock clock) {
+        this(ledgerStore, graceMillis, clock, BlockCache.disabled());
+    }
+
+    public GarbageCollector(LedgerStore ledgerStore, long graceMillis, Clock clock,
+                            BlockCache blockCache) {
         this.ledgerStore = ledgerStore;
         this.graceMillis = graceMillis;
         this.clock = clock;
+        this.blockCache = blockCache;
     }
 
     /**
@@ -70,15 +82,16 @@ public final class GarbageCollector {
 
     /**
      * As {@link #collect(BoxEngine)}, but a Syrup is only physically reclaimed when it is referenced
-     * by <em>no</em> partition of the Box: {@code foreignReferencedSyrups} is the union of every
-     * sibling partition's published referenced-Syrup set, so a Syrup shared cross-partition by a
-     * zero-copy copy/rename is never deleted out from under the partition that points at it. This is
-     * the Box-global garbage collection of DESIGN §9.
+     * by <em>no</em> partition of the Box: {@code foreignReferenced} is the union of every sibling
+     * partition's published referenced-ledger set, so a Syrup shared cross-partition by a zero-copy
+     * copy/rename is never deleted out from under the partition that points at it. This is the
+     * Box-global garbage collection of DESIGN §9. The same gate holds back an SSTable a split sibling
+     * still lists (DESIGN §7b).
      */
-    public int collect(BoxEngine engine, Set<Long> foreignReferencedSyrups) {
+    public int collect(BoxEngine engine, Set<Long> foreignReferenced) {
         long cutoff = clock.currentTimeMillis() - graceMillis;
-        int deleted = collectSSTables(engine, cutoff);
-        deleted += collectSyrups(engine, cutoff, foreignReferencedSyrups);
+        int deleted = collectSSTables(engine, cutoff, foreignReferenced);
+        deleted += collectSyrups(engine, cutoff, foreignReferenced);
         deleted += collectWals(engine, cutoff);
         return deleted;
     }
@@ -97,13 +110,17 @@ public final class GarbageCollector {
         return deleted;
     }
 
-    private int collectSSTables(BoxEngine engine, long cutoff) {
+    private int collectSSTables(BoxEngine engine, long cutoff, Set<Long> foreignReferenced) {
         int deleted = 0;
         for (long ledgerId : engine.reclaimableSSTables(cutoff)) {
+            if (foreignReferenced.contains(ledgerId)) {
+                continue; // a split sibling still reads it: stays obsolete, retried on a later pass
+            }
             if (deleteLedger(ledgerId)) {
                 deleted++;
             }
             engine.forgetObsoleteSSTable(ledgerId);
+            blockCache.invalidateLedger(ledgerId);
         }
         if (deleted > 0) {
             LOG.debug("GC deleted {} obsolete SSTable ledger(s)", deleted);
@@ -111,19 +128,19 @@ public final class GarbageCollector {
         return deleted;
     }
 
-    private int collectSyrups(BoxEngine engine, long cutoff, Set<Long> foreignReferencedSyrups) {
+    private int collectSyrups(BoxEngine engine, long cutoff, Set<Long> foreignReferenced) {
         List<Long> orphans = new java.util.ArrayList<>(engine.reclaimableSyrups(cutoff));
-        if (!foreignReferencedSyrups.isEmpty()) {
+        if (!foreignReferenced.isEmpty()) {
             // Box-global gate: keep a Syrup alive (neither dropped from the live set nor deleted) while
             // any sibling partition still references it — it stays a pending orphan and is retried on a
             // later pass once the cross-partition reference is gone.
-            orphans.removeIf(foreignReferencedSyrups::contains);
+            orphans.removeIf(foreignReferenced::contains);
         }
         if (orphans.isEmpty()) {
             return 0;
         }
         // Drop them from the live set first via a fencing-gated manifest edit; then delete the ledgers
-        // (a Syrup is removed whole only once every segment in it is dead — v1 has no defragmentation).
+        // (a Syrup is removed whole only once every segment in it is dead).
         engine.dropSyrups(orphans);
         int deleted = 0;
         for (long syrupId : orphans) {
@@ -24,6 +24,8 @@ import java.net.InetSocketAddress;
 import java.nio.charset.StandardCharsets;
 import java.util.Map;
 import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+import me.predatorray.candybox.common.concurrent.CacheStats;
 import me.predatorray.candybox.lsm.engine.BoxEngineStats;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -37,7 +39,8 @@ import org.slf4j.LoggerFactory;
  *   <li>{@code GET /readyz} — readiness; {@code 200} when the supplied predicate is true (TCP bound
  *       and membership registered), else {@code 503}. Wire this to a Kubernetes readiness probe.</li>
  *   <li>{@code GET /metrics} — Prometheus text exposition of {@link BoxEngineStats} counters, one
- *       series per owned Box (a {@code box} label) plus a {@code node} label.</li>
+ *       series per owned Box (a {@code box} label) plus a {@code node} label, and the node-wide
+ *       block cache counters.</li>
  * </ul>
  */
 public final class HealthServer implements AutoCloseable {
@@ -47,24 +50,44 @@ public final class HealthServer implements AutoCloseable {
     private final HttpServer http;
 
     /**
-     * @param port        the HTTP port to bind
-     * @param nodeId      this node's id, emitted as a {@code node} metric label
-     * @param ready       readiness predicate
-     * @param statsSource supplies a per-Box stats snapshot at scrape time
+     * What {@code /metrics} renders, each read at scrape time. A null {@code boxStats} renders as no
+     * Boxes; the node-wide series of any other null source are omitted.
+     *
+     * @param boxStats      a per-Box stats snapshot
+     * @param blockCache    the node-wide block cache counters ({@code candybox_block_cache_*})
+     * @param ledgerHandles the node-wide ledger handle cache counters
+     *                      ({@code candybox_ledger_handle*})
+     * @param recoveryTimes the partition takeover latency histograms by phase
+     *                      ({@code candybox_partition_recovery_seconds})
      */
-    public HealthServer(int port, int nodeId, BooleanSupplier ready,
-                        java.util.function.Supplier<Map<String, BoxEngineStats>> statsSource) {
-        this(port, nodeId, ready, statsSource, null);
+    record MetricsSources(Supplier<Map<String, BoxEngineStats>> boxStats,
+                          Supplier<CacheStats> blockCache,
+                          Supplier<CacheStats> ledgerHandles,
+                          Supplier<Map<String, LatencyHistogram.Snapshot>> recoveryTimes) {
+
+        MetricsSources {
+            if (boxStats == null) {
+                boxStats = Map::of;
+            }
+        }
+
+        /** Sources of the per-Box stats alone. */
+        static MetricsSources boxes(Supplier<Map<String, BoxEngineStats>> boxStats) {
+            return new MetricsSources(boxStats, null, null, null);
+        }
     }
 
     /**
+     * @param port         the HTTP port to bind
+     * @param nodeId       this node's id, emitted as a {@code node} metric label
+     * @param ready        readiness predicate
+     * @param metrics      what {@code /metrics} renders
      * @param metricsToken when non-null, {@code /metrics} demands {@code Authorization: Bearer
      *                     <token>} (the probes stay open — metrics leak Box names and workload
      *                     shape, the probes only a boolean)
      */
-    public HealthServer(int port, int nodeId, BooleanSupplier ready,
-                        java.util.function.Supplier<Map<String, BoxEngineStats>> statsSource,
-                        String metricsToken) {
+    HealthServer(int port, int nodeId, BooleanSupplier ready, MetricsSources metrics,
+                 String metricsToken) {
         try {
             this.http = HttpServer.create(new InetSocketAddress(port), 0);
         } catch (IOException e) {
@@ -80,7 +103,7 @@ public final class HealthServer implements AutoCloseable {
                 respond(exchange, 401, "metrics require Authorization: Bearer <token>\n");
                 return;
             }
-            respond(exchange, 200, renderMetrics(nodeId, statsSource.get()));
+            respond(exchange, 200, renderMetrics(nodeId, metrics));
         });
         http.setExecutor(null); // default executor (a small internal pool)
     }
@@ -112,8 +135,14 @@ public final class HealthServer implements AutoCloseable {
         }
     }
 
-    /** Renders the per-Box counters in Prometheus text exposition format. */
-    static String renderMetrics(int nodeId, Map<String, BoxEngineStats> byBox) {
+    /** Renders {@code sources} in Prometheus text exposition format. */
+    static String renderMetrics(int nodeId, MetricsSources sources) {
+        Map<String, BoxEngineStats> byBox = sources.boxStats().get();
+        CacheStats blockCache = sources.blockCache() == null ? null : sources.blockCache().get();
+        CacheStats ledgerHandles =
+                sources.ledgerHandles() == null ? null : sources.ledgerHandles().get();
+        Map<String, LatencyHistogram.Snapshot> recoveryTimes =
+                sources.recoveryTimes() == null ? null : sources.recoveryTimes().get();
         StringBuilder sb = new StringBuilder();
         metric(sb, "candybox_puts_total", "Total Candy puts.", nodeId, byBox, BoxEngineStats::puts);
         metric(sb, "candybox_deletes_total", "Total Candy deletes.", nodeId, byBox, BoxEngineStats::deletes);
@@ -122,20 +151,81 @@ public final class HealthServer implements AutoCloseable {
         metric(sb, "candybox_lists_total", "Total Candy lists.", nodeId, byBox, BoxEngineStats::lists);
         metric(sb, "candybox_flushes_total", "Total memtable flushes.", nodeId, byBox, BoxEngineStats::flushes);
         metric(sb, "candybox_compactions_total", "Total compactions.", nodeId, byBox, BoxEngineStats::compactions);
-        metric(sb, "candybox_stall_rejections_total", "Total writes rejected for L0 stall.", nodeId,
+        metric(sb, "candybox_stall_rejections_total", "Total writes rejected for write stall.", nodeId,
                 byBox, BoxEngineStats::stallRejections);
+        metric(sb, "candybox_flush_millis_total", "Total time spent flushing memtables.", nodeId,
+                byBox, BoxEngineStats::flushMillis);
+        metric(sb, "candybox_flush_queue_depth", "Sealed memtables queued for flush.", "gauge",
+                nodeId, byBox, BoxEngineStats::flushQueueDepth);
+        metric(sb, "candybox_syrup_live_entries", "Syrup chunk entries still referenced by live Candies.",
+                "gauge", nodeId, byBox, BoxEngineStats::syrupLiveEntries);
+        metric(sb, "candybox_syrup_entries", "Chunk entries held by the scored Syrups.", "gauge",
+                nodeId, byBox, BoxEngineStats::syrupTotalEntries);
+        ratioMetric(sb, "candybox_syrup_live_ratio", "Live fraction of the scored Syrups' entries.",
+                nodeId, byBox);
+        metric(sb, "candybox_defrag_relocations_total", "Total locators rewritten by Syrup defragmentation.",
+                nodeId, byBox, BoxEngineStats::defragRelocations);
+        metric(sb, "candybox_defrag_bytes_total", "Total Candy bytes copied by Syrup defragmentation.",
+                nodeId, byBox, BoxEngineStats::defragBytes);
+        metric(sb, "candybox_bytes_in_total", "Total Candy bytes accepted by puts and part uploads.",
+                nodeId, byBox, BoxEngineStats::bytesIn);
+        metric(sb, "candybox_bytes_out_total", "Total Candy bytes served by gets.", nodeId, byBox,
+                BoxEngineStats::bytesOut);
+        metric(sb, "candybox_memtable_bytes", "Approximate bytes held in unflushed memtables.", "gauge",
+                nodeId, byBox, BoxEngineStats::memtableBytes);
+        metric(sb, "candybox_l0_tables", "SSTables currently in level 0.", "gauge", nodeId, byBox,
+                BoxEngineStats::l0Tables);
         sb.append("# HELP candybox_owned_boxes Number of Boxes this node currently owns.\n");
         sb.append("# TYPE candybox_owned_boxes gauge\n");
         sb.append("candybox_owned_boxes{node=\"").append(nodeId).append("\"} ")
                 .append(byBox.size()).append('\n');
+        if (blockCache != null) {
+            nodeMetric(sb, "candybox_block_cache_hits_total", "Block reads served from the block cache.",
+                    "counter", nodeId, blockCache.hits());
+            nodeMetric(sb, "candybox_block_cache_misses_total", "Block reads that went to the bookies.",
+                    "counter", nodeId, blockCache.misses());
+            nodeMetric(sb, "candybox_block_cache_evictions_total", "Blocks evicted to stay within capacity.",
+                    "counter", nodeId, blockCache.evictions());
+            nodeMetric(sb, "candybox_block_cache_bytes", "Estimated bytes held by the block cache.",
+                    "gauge", nodeId, blockCache.weightedSize());
+        }
+        if (ledgerHandles != null) {
+            nodeMetric(sb, "candybox_ledger_handle_opens_total",
+                    "Read-only ledger opens that went to the metadata store.", "counter", nodeId,
+                    ledgerHandles.misses());
+            nodeMetric(sb, "candybox_ledger_handle_hits_total", "Ledger opens served by a cached handle.",
+                    "counter", nodeId, ledgerHandles.hits());
+            nodeMetric(sb, "candybox_ledger_handle_evictions_total",
+                    "Cached ledger handles closed for capacity or idleness.", "counter", nodeId,
+                    ledgerHandles.evictions());
+            nodeMetric(sb, "candybox_ledger_handles_open", "Ledger handles held open by the cache.",
+                    "gauge", nodeId, ledgerHandles.weightedSize());
+        }
+        if (recoveryTimes != null) {
+            histogram(sb, "candybox_partition_recovery_seconds",
+                    "Partition takeover time by recovery phase.", nodeId, "phase", recoveryTimes);
+        }
         return sb.toString();
     }
 
+    private static void nodeMetric(StringBuilder sb, String name, String help, String type, int nodeId,
+                                   long value) {
+        sb.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        sb.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+        sb.append(name).append("{node=\"").append(nodeId).append("\"} ").append(value).append('\n');
+    }
+
     private static void metric(StringBuilder sb, String name, String help, int nodeId,
                                Map<String, BoxEngineStats> byBox,
                                java.util.function.ToLongFunction<BoxEngineStats> field) {
+        metric(sb, name, help, "counter", nodeId, byBox, field);
+    }
+
+    private static void metric(StringBuilder sb, String name, String help, String type, int nodeId,
+                               Map<String, BoxEngineStats> byBox,
+                               java.util.function.ToLongFunction<BoxEngineStats> field) {
         sb.append("# HELP ").append(name).append(' ').append(help).append('\n');
-        sb.append("# TYPE ").append(name).append(" counter\n");
+        sb.append("# TYPE ").append(name).append(' ').append(type).append('\n');
         for (Map.Entry<String, BoxEngineStats> e : byBox.entrySet()) {
             sb.append(name).append("{node=\"").append(nodeId).append("\",box=\"")
                     .append(escape(e.getKey())).append("\"} ")
@@ -143,6 +233,37 @@ public final class HealthServer implements AutoCloseable {
         }
     }
 
+    private static void ratioMetric(StringBuilder sb, String name, String help, int nodeId,
+                                    Map<String, BoxEngineStats> byBox) {
+        sb.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        sb.append("# TYPE ").append(name).append(" gauge\n");
+        for (Map.Entry<String, BoxEngineStats> e : byBox.entrySet()) {
+            sb.append(name).append("{node=\"").append(nodeId).append("\",box=\"")
+                    .append(escape(e.getKey())).append("\"} ")
+                    .append(e.getValue().syrupLiveRatio()).append('\n');
+        }
+    }
+
+    private static void histogram(StringBuilder sb, String name, String help, int nodeId,
+                                  String labelName, Map<String, LatencyHistogram.Snapshot> byLabel) {
+        sb.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        sb.append("# TYPE ").append(name).append(" histogram\n");
+        for (Map.Entry<String, LatencyHistogram.Snapshot> e : byLabel.entrySet()) {
+            String labels = "node=\"" + nodeId + "\"," + labelName + "=\"" + escape(e.getKey()) + "\"";
+            LatencyHistogram.Snapshot h = e.getValue();
+            for (int i = 0; i < h.cumulative().length; i++) {
+                String le = i < LatencyHistogram.BUCKET_MILLIS.length
+                        ? Double.toString(LatencyHistogram.BUCKET_MILLIS[i] / 1000.0) : "+Inf";
+                sb.append(name).append("_bucket{").append(labels).append(",le=\"").append(le)
+                        .append("\"} ").append(h.cumulative()[i]).append('\n');
+            }
+            sb.append(name).append("_sum{").append(labels).append("} ")
+                    .append(h.sumMillis() / 1000.0).append('\n');
+            sb.append(name).append("_count{").append(labels).append("} ").append(h.count())
+                    .append('\n');
+        }
+    }
+
     private static String escape(String label) {
         return label.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
     }
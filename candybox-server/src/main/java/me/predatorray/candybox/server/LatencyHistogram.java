@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.predatorray.candybox.server;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A fixed-bucket latency histogram in the Prometheus style: per-bucket counts, a running sum and a
+ * count, all lock-free so recording on a hot path costs a couple of adds. Bucket bounds suit
+ * operations measured in tens of milliseconds to minutes, such as partition recovery.
+ */
+final class LatencyHistogram {
+
+    /** Upper bounds of the finite buckets, in milliseconds; a final {@code +Inf} bucket follows. */
+    static final long[] BUCKET_MILLIS = {
+            50, 100, 250, 500, 1_000, 2_500, 5_000, 10_000, 30_000, 60_000, 120_000};
+
+    private final LongAdder[] buckets = new LongAdder[BUCKET_MILLIS.length + 1];
+    private final LongAdder sumMillis = new LongAdder();
+    private final LongAdder count = new LongAdder();
+
+    LatencyHistogram() {
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    void observe(long millis) {
+        int i = 0;
+        while (i < BUCKET_MILLIS.length && millis > BUCKET_MILLIS[i]) {
+            i++;
+        }
+        buckets[i].increment();
+        sumMillis.add(millis);
+        count.increment();
+    }
+
+    /** The counters now; a concurrent {@link #observe} may land in some fields and not others. */
+    Snapshot snapshot() {
+        long[] cumulative = new long[buckets.length];
+        long running = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            running += buckets[i].sum();
+            cumulative[i] = running;
+        }
+        return new Snapshot(cumulative, count.sum(), sumMillis.sum());
+    }
+
+    /**
+     * @param cumulative observations at or below each bound of {@link #BUCKET_MILLIS}, then in total
+     *                   (the {@code +Inf} bucket)
+     * @param count      observations recorded
+     * @param sumMillis  their sum, in milliseconds
+     */
+    record Snapshot(long[] cumulative, long count, long sumMillis) {
+    }
+}
@@ -16,9 +16,13 @@
 package me.predatorray.candybox.server;
 
 import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Function;
 import me.predatorray.candybox.common.BoxName;
 import me.predatorray.candybox.common.CandyKey;
 import me.predatorray.candybox.common.auth.BoxAcl;
@@ -31,13 +35,17 @@ import me.predatorray.candybox.common.exception.BoxNotFoundException;
 import me.predatorray.candybox.common.exception.BusyException;
 import me.predatorray.candybox.common.exception.CandyNotFoundException;
 import me.predatorray.candybox.common.exception.CandyboxException;
+import me.predatorray.candybox.common.exception.LimitExceededException;
 import me.predatorray.candybox.common.exception.NotOwnerException;
 import me.predatorray.candybox.common.exception.ValidationException;
 import me.predatorray.candybox.coordination.BoxDescriptor;
 import me.predatorray.candybox.lsm.engine.BoxEngine;
+import me.predatorray.candybox.lsm.engine.BoxReader;
 import me.predatorray.candybox.lsm.engine.CandyMetadata;
 import me.predatorray.candybox.common.CandyLocator;
 import me.predatorray.candybox.common.Part;
+import me.predatorray.candybox.common.Validation;
+import me.predatorray.candybox.common.config.SizeLimits;
 import me.predatorray.candybox.lsm.manifest.RenameIntent;
 import me.predatorray.candybox.lsm.engine.ListResult;
 import me.predatorray.candybox.lsm.engine.ScanDirection;
@@ -47,6 +55,7 @@ import me.predatorray.candybox.protocol.Frame;
 import me.predatorray.candybox.protocol.Message;
 import me.predatorray.candybox.protocol.MessageCodec;
 import me.predatorray.candybox.protocol.transport.ConnectionContext;
+import me.predatorray.candybox.protocol.transport.Exchange;
 import me.predatorray.candybox.protocol.transport.RequestHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -59,7 +68,16 @@ import org.slf4j.LoggerFactory;
  * <p>Every keyed request is dispatched to the engine of the key's hash partition; partition-scoped
  * requests (list, delete-range, list-uploads — fanned out by the client) carry an explicit partition.
  * A request landing on a node that does not own the target partition gets a {@code MOVED} response
- * naming the partition's current owner.
+ * naming the partition's current owner — unless it is a read that tolerates some staleness and this
+ * node keeps a standby of the partition caught up within that bound, which then answers it. When the
+ * partition has been split, the {@code MOVED} says so, and the client re-reads the Box's routing
+ * before retrying; a partition-scoped request that names the scope it expects is refused once the
+ * partition no longer has it, rather than answered for half the keys the client meant.
+ *
+ * <p>The streamed PUT / UploadPart requests feed their body straight into the engine as it arrives,
+ * and a streamed GET answers with the metadata and then the bytes as the engine reads them, so a
+ * transfer holds a chunk or two rather than the object. Ownership and access are settled first: a
+ * redirected or denied request never draws its body.
  */
 final class NodeRequestHandler implements RequestHandler {
 
@@ -79,6 +97,11 @@ final class NodeRequestHandler implements RequestHandler {
 
     @Override
     public Frame handle(ConnectionContext context, Frame request) {
+        return handle(context, request, Exchange.NONE);
+    }
+
+    @Override
+    public Frame handle(ConnectionContext context, Frame request, Exchange exchange) {
         Message message;
         try {
             message = codec.decode(request);
@@ -95,7 +118,8 @@ final class NodeRequestHandler implements RequestHandler {
                         principal + " is not allowed " + access.operation() + " on "
                                 + access.resource()));
             }
-            return codec.encode(dispatch(message, principal));
+            Message response = dispatch(message, principal, exchange);
+            return response == null ? null : codec.encode(response); // null: answered with a body
         } catch (BusyException e) {
             return codec.encode(new Message.BusyResponse(100));
         } catch (CandyNotFoundException e) {
@@ -119,12 +143,13 @@ final class NodeRequestHandler implements RequestHandler {
      * The S3 union rule: a READ / READ_ACP / WRITE_ACP the Box ACL denies is still allowed when the
      * <em>object's own</em> grants (locator v3) permit it. Only single-object read-side requests
      * qualify; resolution failures (no such object, partition moved) deny rather than leak
-     * existence — the box-level outcome stands.
+     * existence — the box-level outcome stands. The grants are read from wherever the request itself
+     * will be answered, so a standby's view of an object is checked against that same view.
      */
     private boolean objectGrantPermits(Message message, Principal principal, Operation operation) {
         String box = boxOf(message);
         String key = switch (message.opcode()) {
-            case GET_CANDY, RANGE_GET_CANDY, HEAD_CANDY -> routingKeyOf(message);
+            case GET_CANDY, GET_CANDY_STREAM, RANGE_GET_CANDY, HEAD_CANDY -> routingKeyOf(message);
             case GET_CANDY_ACL -> ((Message.GetCandyAclRequest) message).key();
             case SET_CANDY_ACL -> ((Message.SetCandyAclRequest) message).key();
             default -> null;
@@ -133,13 +158,55 @@ final class NodeRequestHandler implements RequestHandler {
             return false;
         }
         try {
-            ObjectAcl acl = node.engine(BoxName.of(box), key).getCandyAcl(CandyKey.of(key));
+            ObjectAcl acl = readKey(box, key, maxStalenessOf(message),
+                    reader -> reader.getCandyAcl(CandyKey.of(key)));
             return acl.permits(principal, operation);
         } catch (CandyboxException | IllegalArgumentException resolveFailed) {
             return false;
         }
     }
 
+    /** The staleness a read request tolerates; {@code 0} (owner only) for every other request. */
+    private static long maxStalenessOf(Message message) {
+        if (message instanceof Message.GetCandyRequest m) {
+            return m.maxStalenessMillis();
+        } else if (message instanceof Message.GetCandyStreamRequest m) {
+            return m.maxStalenessMillis();
+        } else if (message instanceof Message.RangeGetCandyRequest m) {
+            return m.maxStalenessMillis();
+        } else if (message instanceof Message.HeadCandyRequest m) {
+            return m.maxStalenessMillis();
+        } else if (message instanceof Message.ListCandiesRequest m) {
+            return m.maxStalenessMillis();
+        }
+        return 0;
+    }
+
+    /** {@link #read} of the partition holding {@code key}. */
+    private <T> T readKey(String box, String key, long maxStalenessMillis, Function<BoxReader, T> op) {
+        BoxName name = BoxName.of(box);
+        return read(name, node.descriptor(name).partitionOf(key), maxStalenessMillis, op);
+    }
+
+    /**
+     * Runs a read on what {@link CandyboxNode#reader} picks for the partition. A standby promoted or
+     * closed between that pick and the read refuses it with {@link NotOwnerException} before
+     * producing anything, so the read goes to this node's engine instead — which owns the partition
+     * if the standby was promoted, and answers {@code MOVED} if it was not.
+     */
+    private <T> T read(BoxName box, int partition, long maxStalenessMillis,
+                       Function<BoxReader, T> op) {
+        BoxReader reader = node.reader(box, partition, maxStalenessMillis);
+        try {
+            return op.apply(reader);
+        } catch (NotOwnerException e) {
+            if (reader instanceof BoxEngine) {
+                throw e;
+            }
+            return op.apply(node.enginePartition(box, partition));
+        }
+    }
+
     private static Access requiredAccess(Message message) {
         // Cluster-level requests first; everything Box-scoped derives from boxOf().
         if (message instanceof Message.CreateBoxRequest) {
@@ -174,21 +241,35 @@ final class NodeRequestHandler implements RequestHandler {
             return null; // SASL frames are consumed by the authentication gate before this handler
         }
         Operation operation = switch (message.opcode()) {
-            case GET_CANDY, RANGE_GET_CANDY, HEAD_CANDY, LIST_CANDIES, LIST_MULTIPART_UPLOADS,
-                    LIST_PARTS -> Operation.READ;
+            case GET_CANDY, GET_CANDY_STREAM, RANGE_GET_CANDY, HEAD_CANDY, LIST_CANDIES,
+                    LIST_MULTIPART_UPLOADS, LIST_PARTS -> Operation.READ;
             default -> Operation.WRITE;
         };
         return new Access(operation, Resource.box(box));
     }
 
     private Message movedOrNotFound(Message message, RuntimeException cause) {
-        Integer partition = partitionOf(message);
         String box = boxOf(message);
+        if (box != null && cause instanceof NotOwnerException) {
+            try {
+                node.refreshDescriptor(BoxName.of(box)); // a split may have re-homed the key
+            } catch (BoxNotFoundException gone) {
+                return new Message.NotFoundResponse();
+            }
+        }
+        Integer partition = partitionOf(message);
         if (box != null && partition != null) {
             Optional<Integer> owner = node.currentOwner(BoxName.of(box), partition);
+            if (routingChanged(message, box, partition)) {
+                return new Message.MovedResponse(owner.orElse(node.nodeId()), true);
+            }
             if (owner.isPresent() && owner.get() != node.nodeId()) {
                 return new Message.MovedResponse(owner.get());
             }
+            if (owner.isPresent() && cause instanceof NotOwnerException) {
+                // Ours, but split and not yet routed so (or between leases): settles momentarily.
+                return new Message.BusyResponse(100);
+            }
             return new Message.NotFoundResponse();
         }
         if (cause instanceof NotOwnerException) {
@@ -198,12 +279,68 @@ final class NodeRequestHandler implements RequestHandler {
         return new Message.NotFoundResponse();
     }
 
+    /**
+     * Whether the client may be routing {@code message} by a descriptor older than a split of
+     * {@code partition}: a partition-scoped request naming another scope than the partition's, or a
+     * keyed one for a partition that has been split (the client's view of it cannot be told).
+     */
+    private boolean routingChanged(Message message, String box, int partition) {
+        BoxDescriptor descriptor;
+        try {
+            descriptor = node.descriptor(BoxName.of(box));
+        } catch (BoxNotFoundException gone) {
+            return false;
+        }
+        if (!descriptor.isPartition(partition)) {
+            return true;
+        }
+        int modulus = descriptor.scopeOf(partition).modulus();
+        if (explicitPartitionOf(message) != null) {
+            return expectedModulus(partitionModulusOf(message), descriptor) != modulus;
+        }
+        return modulus != descriptor.partitionCount();
+    }
+
+    /**
+     * Refuses a partition-scoped request whose client expects {@code partitionModulus} when the
+     * partition, owned here, has since been split to another scope ({@code 0}: the client predates
+     * splits and expects the creation partition count).
+     */
+    private void requireScope(String box, int partition, int partitionModulus) {
+        BoxName name = BoxName.of(box);
+        if (node.ownsPartition(box, partition)
+                && node.enginePartition(name, partition).manifestState().hashScope().modulus()
+                        != expectedModulus(partitionModulus, node.descriptor(name))) {
+            throw new NotOwnerException(box);
+        }
+    }
+
+    /** The scope modulus a request expects, {@code 0} standing for an unsplit partition's. */
+    private static int expectedModulus(int partitionModulus, BoxDescriptor descriptor) {
+        return partitionModulus != 0 ? partitionModulus : descriptor.partitionCount();
+    }
+
+    private static int partitionModulusOf(Message message) {
+        if (message instanceof Message.ListCandiesRequest m) {
+            return m.partitionModulus();
+        } else if (message instanceof Message.DeleteRangeRequest m) {
+            return m.partitionModulus();
+        } else if (message instanceof Message.ListMultipartUploadsRequest m) {
+            return m.partitionModulus();
+        }
+        return 0;
+    }
+
     /** The target Box of a Box- or partition-routed request, or {@code null} for cluster-wide ones. */
     private static String boxOf(Message message) {
         if (message instanceof Message.PutCandyRequest m) {
             return m.box();
+        } else if (message instanceof Message.PutCandyStreamRequest m) {
+            return m.box();
         } else if (message instanceof Message.GetCandyRequest m) {
             return m.box();
+        } else if (message instanceof Message.GetCandyStreamRequest m) {
+            return m.box();
         } else if (message instanceof Message.RangeGetCandyRequest m) {
             return m.box();
         } else if (message instanceof Message.HeadCandyRequest m) {
@@ -230,6 +367,8 @@ final class NodeRequestHandler implements RequestHandler {
             return m.box();
         } else if (message instanceof Message.UploadPartRequest m) {
             return m.box();
+        } else if (message instanceof Message.UploadPartStreamRequest m) {
+            return m.box();
         } else if (message instanceof Message.CompleteMultipartUploadRequest m) {
             return m.box();
         } else if (message instanceof Message.AbortMultipartUploadRequest m) {
@@ -285,8 +424,12 @@ final class NodeRequestHandler implements RequestHandler {
     private static String routingKeyOf(Message message) {
         if (message instanceof Message.PutCandyRequest m) {
             return m.key();
+        } else if (message instanceof Message.PutCandyStreamRequest m) {
+            return m.key();
         } else if (message instanceof Message.GetCandyRequest m) {
             return m.key();
+        } else if (message instanceof Message.GetCandyStreamRequest m) {
+            return m.key();
         } else if (message instanceof Message.RangeGetCandyRequest m) {
             return m.key();
         } else if (message instanceof Message.HeadCandyRequest m) {
@@ -309,6 +452,8 @@ final class NodeRequestHandler implements RequestHandler {
             return m.key();
         } else if (message instanceof Message.UploadPartRequest m) {
             return m.key();
+        } else if (message instanceof Message.UploadPartStreamRequest m) {
+            return m.key();
         } else if (message instanceof Message.CompleteMultipartUploadRequest m) {
             return m.key();
         } else if (message instanceof Message.AbortMultipartUploadRequest m) {
@@ -325,7 +470,7 @@ final class NodeRequestHandler implements RequestHandler {
         return null;
     }
 
-    private Message dispatch(Message message, Principal principal) {
+    private Message dispatch(Message message, Principal principal, Exchange exchange) {
         if (message instanceof Message.CreateBoxRequest m) {
             node.createBox(BoxName.of(m.box()), m.partitionCount());
             // The creator owns the Box (private by default). An anonymous create (auth disabled)
@@ -356,11 +501,13 @@ final class NodeRequestHandler implements RequestHandler {
             node.aclStore().set(m.box(), acl);
             return new Message.OkResponse();
         } else if (message instanceof Message.BoxInfoRequest m) {
-            BoxName box = BoxName.of(m.box());
-            if (!node.boxExists(box)) {
+            BoxDescriptor descriptor;
+            try {
+                descriptor = node.refreshDescriptor(BoxName.of(m.box())); // splits change it
+            } catch (BoxNotFoundException gone) {
                 return new Message.NotFoundResponse();
             }
-            return new Message.BoxInfoResponse(node.descriptor(box).partitionCount());
+            return new Message.BoxInfoResponse(descriptor.partitionCount(), descriptor.splitLevels());
         } else if (message instanceof Message.DeleteBoxRequest m) {
             node.deleteBox(BoxName.of(m.box()), m.force());
             return new Message.OkResponse();
@@ -371,18 +518,30 @@ final class NodeRequestHandler implements RequestHandler {
                     m.contentType(), m.userMetadata(), m.idempotencyToken(),
                     effectiveAcl(principal, m.owner(), m.grants()));
             return new Message.OkResponse();
-        } else if (message instanceof Message.GetCandyRequest m) {
+        } else if (message instanceof Message.PutCandyStreamRequest m) {
             BoxEngine engine = node.engine(BoxName.of(m.box()), m.key());
+            engine.putCandy(CandyKey.of(m.key()), requestBody(exchange), m.contentType(),
+                    m.userMetadata(), m.idempotencyToken(),
+                    effectiveAcl(principal, m.owner(), m.grants()));
+            return new Message.OkResponse();
+        } else if (message instanceof Message.GetCandyStreamRequest m) {
+            readKey(m.box(), m.key(), m.maxStalenessMillis(), reader -> reader.getCandy(
+                    CandyKey.of(m.key()), meta -> exchange.respondWithBody(codec.encode(
+                            new Message.CandyStreamResponse(meta.contentLength(), meta.contentType(),
+                                    meta.userMetadata(), meta.crc32c(), meta.createdAtMillis())))));
+            return null;
+        } else if (message instanceof Message.GetCandyRequest m) {
             ByteArrayOutputStream out = new ByteArrayOutputStream();
-            CandyMetadata meta = engine.getCandy(CandyKey.of(m.key()), out);
+            CandyMetadata meta = readKey(m.box(), m.key(), m.maxStalenessMillis(),
+                    reader -> reader.getCandy(CandyKey.of(m.key()), out));
             return new Message.CandyDataResponse(meta.contentLength(), meta.contentType(),
                     meta.userMetadata(), meta.crc32c(), out.toByteArray());
         } else if (message instanceof Message.RangeGetCandyRequest m) {
-            BoxEngine engine = node.engine(BoxName.of(m.box()), m.key());
             ByteArrayOutputStream out = new ByteArrayOutputStream();
             BoxEngine.RangeReadResult result;
             try {
-                result = engine.getCandyRange(CandyKey.of(m.key()), m.firstByte(), m.lastByte(), out);
+                result = readKey(m.box(), m.key(), m.maxStalenessMillis(), reader ->
+                        reader.getCandyRange(CandyKey.of(m.key()), m.firstByte(), m.lastByte(), out));
             } catch (IllegalArgumentException e) {
                 // S3's InvalidRange — surface as a typed error the gateway can map to 416.
                 throw new ValidationException("InvalidRange: " + e.getMessage());
@@ -391,8 +550,8 @@ final class NodeRequestHandler implements RequestHandler {
             return new Message.CandyDataResponse(result.contentLength(), result.totalLength(),
                     meta.contentType(), meta.userMetadata(), meta.crc32c(), out.toByteArray());
         } else if (message instanceof Message.HeadCandyRequest m) {
-            BoxEngine engine = node.engine(BoxName.of(m.box()), m.key());
-            CandyMetadata meta = engine.headCandy(CandyKey.of(m.key()));
+            CandyMetadata meta = readKey(m.box(), m.key(), m.maxStalenessMillis(),
+                    reader -> reader.headCandy(CandyKey.of(m.key())));
             return new Message.HeadCandyResponse(meta.contentLength(), meta.contentType(),
                     meta.userMetadata(), meta.crc32c(), meta.createdAtMillis());
         } else if (message instanceof Message.DeleteCandyRequest m) {
@@ -451,6 +610,7 @@ final class NodeRequestHandler implements RequestHandler {
             node.deleteRenameMarker(m.box(), m.renameToken());
             return new Message.OkResponse();
         } else if (message instanceof Message.DeleteRangeRequest m) {
+            requireScope(m.box(), m.partition(), m.partitionModulus());
             BoxEngine engine = node.enginePartition(BoxName.of(m.box()), m.partition());
             if (m.prefix() != null) {
                 engine.deleteRangeByPrefix(m.prefix());
@@ -461,14 +621,16 @@ final class NodeRequestHandler implements RequestHandler {
             }
             return new Message.OkResponse();
         } else if (message instanceof Message.ListCandiesRequest m) {
-            BoxEngine engine = node.enginePartition(BoxName.of(m.box()), m.partition());
-            ListResult result = engine.scanCandies(toScanQuery(m));
+            requireScope(m.box(), m.partition(), m.partitionModulus());
+            ListResult result = read(BoxName.of(m.box()), m.partition(), m.maxStalenessMillis(),
+                    reader -> reader.scanCandies(toScanQuery(m)));
             List<Message.ListedCandy> entries = new ArrayList<>();
             for (ListResult.ListEntry e : result.entries()) {
                 entries.add(new Message.ListedCandy(e.key().value(), e.contentLength(),
                         e.createdAtMillis()));
             }
-            return new Message.ListCandiesResponse(entries, result.nextStartAfter());
+            return new Message.ListCandiesResponse(entries, result.commonPrefixes(),
+                    result.nextStartAfter());
         } else if (message instanceof Message.ListBoxesRequest) {
             // Box names are only revealed to principals allowed to READ them.
             List<String> visible = node.listBoxes().stream()
@@ -489,6 +651,11 @@ final class NodeRequestHandler implements RequestHandler {
             BoxEngine engine = node.engine(BoxName.of(m.box()), m.key());
             BoxEngine.PartUploadResult r = engine.uploadPart(m.uploadId(), m.partNumber(), m.data());
             return new Message.UploadPartResponse(r.crc32c(), r.partLength());
+        } else if (message instanceof Message.UploadPartStreamRequest m) {
+            BoxEngine engine = node.engine(BoxName.of(m.box()), m.key());
+            BoxEngine.PartUploadResult r = engine.uploadPart(m.uploadId(), m.partNumber(),
+                    requestBody(exchange));
+            return new Message.UploadPartResponse(r.crc32c(), r.partLength());
         } else if (message instanceof Message.CompleteMultipartUploadRequest m) {
             BoxEngine engine = node.engine(BoxName.of(m.box()), m.key());
             java.util.List<BoxEngine.PartCompletion> parts = new java.util.ArrayList<>(m.parts().size());
@@ -503,6 +670,7 @@ final class NodeRequestHandler implements RequestHandler {
             node.engine(BoxName.of(m.box()), m.key()).abortMultipartUpload(m.uploadId());
             return new Message.OkResponse();
         } else if (message instanceof Message.ListMultipartUploadsRequest m) {
+            requireScope(m.box(), m.partition(), m.partitionModulus());
             BoxEngine engine = node.enginePartition(BoxName.of(m.box()), m.partition());
             java.util.List<Message.InProgressUpload> rows = new java.util.ArrayList<>();
             String prefix = m.prefix() == null ? "" : m.prefix();
@@ -611,6 +779,16 @@ final class NodeRequestHandler implements RequestHandler {
                 locator.acl().owner(), locator.acl().grants().stream().map(Grant::toText).toList());
     }
 
+    /**
+     * A streamed request's body, cut off with a {@link LimitExceededException} as soon as it passes
+     * the Candy size limit rather than once all of it has been stored.
+     */
+    private InputStream requestBody(Exchange exchange) {
+        InputStream body = exchange.requestBody();
+        SizeLimits limits = node.config().sizeLimits();
+        return limits.maxCandySizeBytes() > 0 ? new CappedBody(body, limits) : body;
+    }
+
     /** Parses an object ACL from its wire text form verbatim (rename preserves the source's ACL). */
     private static ObjectAcl parseObjectAcl(String owner, List<String> grantTexts) {
         try {
@@ -642,10 +820,43 @@ final class NodeRequestHandler implements RequestHandler {
         CandyKey end = m.endKey() == null ? null : CandyKey.of(m.endKey());
         CandyKey cursor = m.startAfter() == null ? null : CandyKey.of(m.startAfter());
         ScanDirection direction = m.reverse() ? ScanDirection.REVERSE : ScanDirection.FORWARD;
-        return new ScanQuery(m.prefix(), start, end, cursor, direction, m.maxKeys());
+        return new ScanQuery(m.prefix(), start, end, cursor, direction, m.maxKeys(), m.delimiter());
     }
 
     private static String safe(String s) {
         return s == null ? "" : s;
     }
+
+    private static final class CappedBody extends FilterInputStream {
+        private final SizeLimits limits;
+        private long count;
+
+        CappedBody(InputStream in, SizeLimits limits) {
+            super(in);
+            this.limits = limits;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                counted(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                counted(n);
+            }
+            return n;
+        }
+
+        private void counted(int n) {
+            count += n;
+            Validation.checkCandySize(count, limits);
+        }
+    }
 }
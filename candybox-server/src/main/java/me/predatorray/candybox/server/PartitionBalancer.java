@@ -16,6 +16,7 @@
 package me.predatorray.candybox.server;
 
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -24,33 +25,56 @@ import java.util.Optional;
 import java.util.TreeMap;
 import me.predatorray.candybox.common.BoxName;
 import me.predatorray.candybox.common.config.CandyboxConfig;
+import me.predatorray.candybox.coordination.BalancerRound;
 import me.predatorray.candybox.coordination.BoxDescriptor;
 import me.predatorray.candybox.coordination.CandyboxKeys;
 import me.predatorray.candybox.coordination.CasConflictException;
+import me.predatorray.candybox.coordination.CoordinationCas;
 import me.predatorray.candybox.coordination.CoordinationService;
 import me.predatorray.candybox.coordination.Lease;
 import me.predatorray.candybox.coordination.LeaseInfo;
+import me.predatorray.candybox.coordination.PartitionAssignment;
+import me.predatorray.candybox.coordination.PartitionAssignment.BoxPartition;
+import me.predatorray.candybox.coordination.PartitionLoad;
 import me.predatorray.candybox.coordination.VersionedValue;
-import me.predatorray.candybox.server.PartitionAssignment.BoxPartition;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * Spreads partition ownership evenly across the cluster. Every node runs a balancing round on a
+ * Spreads partition load evenly across the cluster. Every node runs a balancing round on a
  * timer; whichever node holds the {@code cluster/balancer} lease acts as the <b>elected
  * coordinator</b> and publishes the desired assignment table, and <b>every</b> node (coordinator or
  * not) then converges on it: releasing partitions assigned elsewhere (with a pre-handover flush) and
  * acquiring partitions assigned to it once their lease is free.
  *
- * <p>The target computation is sticky and rate-limited:
+ * <p>Each round every owner first publishes its partitions' {@link PartitionLoad}, and the coordinator
+ * weighs each partition by its share of the cluster total in every load dimension — one for simply
+ * being a partition, then request rate, byte rate, memtable bytes and L0 tables — summed, so no
+ * dimension needs a unit or a tuning knob and a cluster publishing no load degrades to balancing
+ * partition counts. A node's load is the sum of its partitions' weights, and the target computation
+ * keeps the heaviest node as light as it can while staying sticky and rate-limited:
  * <ul>
- *   <li>a live owner keeps its partitions up to the fair-share capacity
- *       (⌈partitions/members⌉) — no gratuitous shuffling;</li>
+ *   <li>a live owner keeps its partitions, heaviest first, up to the fair-share capacity (the mean
+ *       node load plus {@link #LOAD_TOLERANCE a tenth}, and never less than ⌈partitions/members⌉
+ *       partitions' worth) — no shuffling over load noise, and a partition too heavy for any node
+ *       stays where it is;</li>
  *   <li>unowned partitions (a new Box, a dead node's partitions) are failover and are assigned to
  *       the least-loaded members without limit;</li>
  *   <li>at most {@link CandyboxConfig#balancerMaxMovesPerRound()} partitions are taken away from a
- *       <em>live</em> owner per round, so a node join migrates load gradually.</li>
+ *       <em>live</em> owner per round, heaviest first and only to a node lighter than the owner, so
+ *       a node join or a hot spot migrates load gradually.</li>
  * </ul>
+ * The moves a round chooses are logged and published at {@link CandyboxKeys#BALANCER_ROUND_KEY}.
+ *
+ * <p>A partition heavier than the capacity on its own cannot be balanced by moving it. With
+ * {@link CandyboxConfig#balancerMaxSplitsPerRound()} set, its owner splits it by hash instead
+ * ({@link CandyboxNode#splitPartition}, up to that many per node per round), and the halves are
+ * placed like any other partitions in later rounds.
+ *
+ * <p>With {@link CandyboxConfig#standbyReplicas()} set, the table also names each partition's warm
+ * standbys — sticky like ownership, otherwise the members standing by for the fewest partitions —
+ * and an unowned partition goes to its first live standby rather than the least-loaded member, so
+ * a failover promotes a replica that is already caught up.
  *
  * <p>The table is advisory; safety always rests on the per-partition fenced lease. A move converges
  * over polling rounds: the old owner releases in one round, the new owner acquires once it observes
@@ -60,6 +84,12 @@ final class PartitionBalancer {
 
     private static final Logger LOG = LoggerFactory.getLogger(PartitionBalancer.class);
 
+    /** How far above the mean node load an owner may sit before its partitions overflow. */
+    static final double LOAD_TOLERANCE = 0.1;
+
+    // Absorbs rounding when summing weights, so a load exactly at capacity still fits.
+    private static final double EPSILON = 1e-9;
+
     private final CandyboxNode node;
     private final CoordinationService coordination;
     private final CandyboxConfig config;
@@ -70,13 +100,21 @@ final class PartitionBalancer {
         this.config = config;
     }
 
-    /** One balancing round: coordinate (if elected) then converge on the published assignment. */
+    /**
+     * One balancing round: publish this node's partition loads, coordinate (if elected), then
+     * converge on the published assignment.
+     */
     void runOnce() {
         try {
             node.sweepDeletedBoxes();
         } catch (RuntimeException e) {
             LOG.warn("Deleted-box sweep failed on node {}", node.nodeId(), e);
         }
+        try {
+            node.publishPartitionLoads();
+        } catch (RuntimeException e) {
+            LOG.warn("Partition load publish failed on node {}", node.nodeId(), e);
+        }
         try {
             coordinateIfElected();
         } catch (RuntimeException e) {
@@ -87,6 +125,11 @@ final class PartitionBalancer {
         } catch (RuntimeException e) {
             LOG.warn("Balancer apply round failed on node {}", node.nodeId(), e);
         }
+        try {
+            splitOverloaded();
+        } catch (RuntimeException e) {
+            LOG.warn("Partition split round failed on node {}", node.nodeId(), e);
+        }
     }
 
     // ---- coordinator side --------------------------------------------------------------------
@@ -104,9 +147,13 @@ final class PartitionBalancer {
         }
         PartitionAssignment current = readAssignment().map(v -> PartitionAssignment.decode(v.value()))
                 .orElse(PartitionAssignment.empty());
-        PartitionAssignment target = computeTarget(partitions, members);
-        if (!target.targets().equals(current.targets())) {
-            publish(target);
+        List<BalancerRound.Move> moves = new ArrayList<>();
+        PartitionAssignment target = computeTarget(partitions, members, current, moves);
+        if (!target.targets().equals(current.targets())
+                || !target.standbys().equals(current.standbys())) {
+            if (publish(target) && !moves.isEmpty()) {
+                publishRound(new BalancerRound(node.currentTimeMillis(), moves));
+            }
         }
     }
 
@@ -119,8 +166,7 @@ final class PartitionBalancer {
             if (meta.isEmpty()) {
                 continue;
             }
-            int count = BoxDescriptor.decode(meta.get().value()).partitionCount();
-            for (int p = 0; p < count; p++) {
+            for (int p : BoxDescriptor.decode(meta.get().value()).partitions()) {
                 all.add(new BoxPartition(boxName, p));
             }
         }
@@ -128,49 +174,174 @@ final class PartitionBalancer {
         return all;
     }
 
-    private PartitionAssignment computeTarget(List<BoxPartition> partitions, List<Integer> members) {
-        int capacity = (partitions.size() + members.size() - 1) / members.size();
-        Map<Integer, Integer> load = new TreeMap<>();
+    /**
+     * The target table; appends the partitions it takes away from a live owner to {@code moves}.
+     */
+    private PartitionAssignment computeTarget(List<BoxPartition> partitions, List<Integer> members,
+                                              PartitionAssignment current,
+                                              List<BalancerRound.Move> moves) {
+        Map<BoxPartition, Double> weights = weigh(partitions);
+        double capacity = capacity(weights, members.size());
+        Map<Integer, Double> load = new TreeMap<>();
         for (int member : members) {
-            load.put(member, 0);
+            load.put(member, 0.0);
         }
+        Comparator<BoxPartition> heaviestFirst =
+                Comparator.comparingDouble((BoxPartition bp) -> weights.get(bp)).reversed();
 
         Map<BoxPartition, Integer> targets = new LinkedHashMap<>();
         List<BoxPartition> unowned = new ArrayList<>();
-        Map<BoxPartition, Integer> overflow = new LinkedHashMap<>(); // candidate moves: bp -> holder
-
+        Map<Integer, List<BoxPartition>> held = new TreeMap<>();
         for (BoxPartition bp : partitions) {
             Integer holder = liveHolder(bp);
             if (holder == null || !load.containsKey(holder)) {
                 unowned.add(bp); // failover / brand new: not a "move", never rate-limited
-            } else if (load.get(holder) < capacity) {
-                targets.put(bp, holder); // sticky: keep the live owner within its fair share
-                load.merge(holder, 1, Integer::sum);
             } else {
-                overflow.put(bp, holder); // live owner above capacity: moving this away counts
+                held.computeIfAbsent(holder, h -> new ArrayList<>()).add(bp);
+            }
+        }
+
+        List<BoxPartition> overflow = new ArrayList<>(); // candidate moves, off their live holder
+        Map<BoxPartition, Integer> holders = new HashMap<>();
+        for (Map.Entry<Integer, List<BoxPartition>> e : held.entrySet()) {
+            int holder = e.getKey();
+            List<BoxPartition> owned = e.getValue();
+            owned.sort(heaviestFirst);
+            for (BoxPartition bp : owned) {
+                double weight = weights.get(bp);
+                if (load.get(holder) == 0 || load.get(holder) + weight <= capacity + EPSILON) {
+                    // Sticky: keep the live owner within its fair share (and a lone heavy partition
+                    // where it is — moving it would only make another node the heaviest).
+                    targets.put(bp, holder);
+                    load.merge(holder, weight, Double::sum);
+                } else {
+                    overflow.add(bp); // live owner above capacity: moving this away counts
+                    holders.put(bp, holder);
+                }
             }
         }
 
+        unowned.sort(heaviestFirst);
         for (BoxPartition bp : unowned) {
-            int member = leastLoaded(load);
+            // A live standby already holds the partition warm: promoting it beats balancing load.
+            int member = current.standbysOf(bp).stream().filter(load::containsKey).findFirst()
+                    .orElseGet(() -> leastLoaded(load));
             targets.put(bp, member);
-            load.merge(member, 1, Integer::sum);
+            load.merge(member, weights.get(bp), Double::sum);
         }
 
+        overflow.sort(heaviestFirst);
         int movesLeft = config.balancerMaxMovesPerRound();
-        for (Map.Entry<BoxPartition, Integer> e : overflow.entrySet()) {
-            if (movesLeft > 0) {
-                int member = leastLoaded(load);
-                targets.put(e.getKey(), member);
-                load.merge(member, 1, Integer::sum);
+        for (BoxPartition bp : overflow) {
+            int holder = holders.get(bp);
+            int member = leastLoaded(load);
+            double weight = weights.get(bp);
+            if (movesLeft > 0 && load.get(member) + EPSILON < load.get(holder)) {
+                targets.put(bp, member);
+                load.merge(member, weight, Double::sum);
+                moves.add(new BalancerRound.Move(bp, holder, member, weight));
+                LOG.info("Balancer moving box {} partition {} (weight {}) from node {} to node {}",
+                        bp.box(), bp.partition(), String.format("%.3f", weight), holder, member);
                 movesLeft--;
             } else {
-                // Rate limit reached: the live owner keeps it this round, even above capacity.
-                targets.put(e.getKey(), e.getValue());
-                load.merge(e.getValue(), 1, Integer::sum);
+                // Rate limit reached, or no lighter node to take it: the live owner keeps it this
+                // round, even above capacity.
+                targets.put(bp, holder);
+                load.merge(holder, weight, Double::sum);
             }
         }
-        return new PartitionAssignment(targets);
+        // Deterministic table order regardless of the order partitions were placed in.
+        Map<BoxPartition, Integer> ordered = new LinkedHashMap<>();
+        for (BoxPartition bp : partitions) {
+            ordered.put(bp, targets.get(bp));
+        }
+        return new PartitionAssignment(ordered, computeStandbys(ordered, members, current));
+    }
+
+    /**
+     * The load a node may carry before its partitions overflow: the mean node load plus
+     * {@link #LOAD_TOLERANCE}, and never less than ⌈partitions/members⌉ partitions' worth.
+     */
+    private static double capacity(Map<BoxPartition, Double> weights, int members) {
+        double fairShare = weights.values().stream().mapToDouble(Double::doubleValue).sum()
+                / members;
+        int partitions = weights.size();
+        int perMember = (partitions + members - 1) / members;
+        return fairShare * Math.max(1 + LOAD_TOLERANCE, (double) perMember * members / partitions);
+    }
+
+    /**
+     * Each partition's weight: the sum, over the load dimensions, of its share of the cluster-wide
+     * total in that dimension. A dimension nobody has load in adds nothing, and a partition without
+     * published load weighs only its share of the partition count.
+     */
+    private Map<BoxPartition, Double> weigh(List<BoxPartition> partitions) {
+        Map<BoxPartition, double[]> dimensions = new LinkedHashMap<>();
+        double[] totals = new double[5];
+        for (BoxPartition bp : partitions) {
+            PartitionLoad load = coordination.get(CandyboxKeys.partitionLoadKey(bp.box(), bp.partition()))
+                    .map(v -> PartitionLoad.decode(v.value()))
+                    .orElse(PartitionLoad.NONE);
+            double[] d = {1, load.opsPerSecond(), load.bytesInPerSecond() + load.bytesOutPerSecond(),
+                    load.memtableBytes(), load.l0Tables()};
+            for (int i = 0; i < d.length; i++) {
+                totals[i] += Math.max(0, d[i]);
+            }
+            dimensions.put(bp, d);
+        }
+        Map<BoxPartition, Double> weights = new HashMap<>();
+        dimensions.forEach((bp, d) -> {
+            double weight = 0;
+            for (int i = 0; i < d.length; i++) {
+                if (totals[i] > 0) {
+                    weight += Math.max(0, d[i]) / totals[i];
+                }
+            }
+            weights.put(bp, weight);
+        });
+        return weights;
+    }
+
+    /**
+     * Picks {@link CandyboxConfig#standbyReplicas()} standbys per partition among the members other
+     * than its owner: live standbys from {@code current} keep their place, and the rest go to the
+     * members standing by for the fewest partitions.
+     */
+    private Map<BoxPartition, List<Integer>> computeStandbys(Map<BoxPartition, Integer> targets,
+                                                             List<Integer> members,
+                                                             PartitionAssignment current) {
+        int wanted = Math.min(config.standbyReplicas(), members.size() - 1);
+        Map<BoxPartition, List<Integer>> standbys = new LinkedHashMap<>();
+        if (wanted <= 0) {
+            return standbys;
+        }
+        Map<Integer, Integer> standing = new TreeMap<>();
+        for (int member : members) {
+            standing.put(member, 0);
+        }
+        for (Map.Entry<BoxPartition, Integer> e : targets.entrySet()) {
+            List<Integer> kept = new ArrayList<>(wanted);
+            for (int node : current.standbysOf(e.getKey())) {
+                if (kept.size() < wanted && standing.containsKey(node) && node != e.getValue()) {
+                    kept.add(node);
+                    standing.merge(node, 1, Integer::sum);
+                }
+            }
+            standbys.put(e.getKey(), kept);
+        }
+        for (Map.Entry<BoxPartition, List<Integer>> e : standbys.entrySet()) {
+            List<Integer> chosen = e.getValue();
+            while (chosen.size() < wanted) {
+                int owner = targets.get(e.getKey());
+                Map<Integer, Integer> eligible = new TreeMap<>(standing);
+                eligible.remove(owner);
+                chosen.forEach(eligible::remove);
+                int member = leastLoaded(eligible);
+                chosen.add(member);
+                standing.merge(member, 1, Integer::sum);
+            }
+        }
+        return standbys;
     }
 
     private Integer liveHolder(BoxPartition bp) {
@@ -179,11 +350,11 @@ final class PartitionBalancer {
                 .orElse(null);
     }
 
-    private static int leastLoaded(Map<Integer, Integer> load) {
+    private static <L extends Comparable<L>> int leastLoaded(Map<Integer, L> load) {
         int best = -1;
-        int bestLoad = Integer.MAX_VALUE;
-        for (Map.Entry<Integer, Integer> e : load.entrySet()) {
-            if (e.getValue() < bestLoad) {
+        L bestLoad = null;
+        for (Map.Entry<Integer, L> e : load.entrySet()) {
+            if (bestLoad == null || e.getValue().compareTo(bestLoad) < 0) {
                 best = e.getKey();
                 bestLoad = e.getValue();
             }
@@ -195,7 +366,8 @@ final class PartitionBalancer {
         return coordination.get(CandyboxKeys.ASSIGNMENT_KEY);
     }
 
-    private void publish(PartitionAssignment assignment) {
+    /** Publishes the assignment table; {@code false} if a concurrent publish won the race. */
+    private boolean publish(PartitionAssignment assignment) {
         try {
             Optional<VersionedValue> current = readAssignment();
             if (current.isEmpty()) {
@@ -204,13 +376,60 @@ final class PartitionBalancer {
                 coordination.compareAndSet(CandyboxKeys.ASSIGNMENT_KEY, assignment.encode(),
                         current.get().version());
             }
+            return true;
         } catch (CasConflictException raced) {
             LOG.debug("Assignment publish lost a race; will retry next round");
+            return false;
+        }
+    }
+
+    private void publishRound(BalancerRound round) {
+        try {
+            CoordinationCas.upsert(coordination, CandyboxKeys.BALANCER_ROUND_KEY, round.encode(), 0);
+        } catch (CasConflictException raced) {
+            LOG.debug("Balancer round publish lost a race; the assignment is what matters");
         }
     }
 
     // ---- every-node side ---------------------------------------------------------------------
 
+    /**
+     * Splits the partitions this node owns that outweigh the capacity on their own, heaviest first
+     * and at most {@link CandyboxConfig#balancerMaxSplitsPerRound()} of them. Not with a lone member:
+     * there is nowhere for the halves to go.
+     */
+    private void splitOverloaded() {
+        int splitsLeft = config.balancerMaxSplitsPerRound();
+        if (splitsLeft == 0) {
+            return;
+        }
+        List<Integer> members = coordination.members();
+        List<BoxPartition> partitions = allPartitions();
+        if (members.size() < 2 || partitions.isEmpty()) {
+            return;
+        }
+        Map<BoxPartition, Double> weights = weigh(partitions);
+        double capacity = capacity(weights, members.size());
+        List<BoxPartition> hot = new ArrayList<>();
+        for (BoxPartition bp : partitions) {
+            if (weights.get(bp) > capacity + EPSILON && node.ownsPartition(bp.box(), bp.partition())) {
+                hot.add(bp);
+            }
+        }
+        hot.sort(Comparator.comparingDouble((BoxPartition bp) -> weights.get(bp)).reversed());
+        for (BoxPartition bp : hot.subList(0, Math.min(splitsLeft, hot.size()))) {
+            try {
+                int child = node.splitPartition(BoxName.of(bp.box()), bp.partition());
+                LOG.info("Balancer split box {} partition {} (weight {} over capacity {}) into {}",
+                        bp.box(), bp.partition(), String.format("%.3f", weights.get(bp)),
+                        String.format("%.3f", capacity), child);
+            } catch (RuntimeException e) {
+                LOG.warn("Node {} could not split box {} partition {}: {}", node.nodeId(),
+                        bp.box(), bp.partition(), e.getMessage());
+            }
+        }
+    }
+
     private void applyAssignment() {
         Optional<VersionedValue> stored = readAssignment();
         if (stored.isEmpty()) {
@@ -230,6 +449,7 @@ final class PartitionBalancer {
                 node.releasePartitionForHandover(BoxName.of(bp.box()), bp.partition());
             }
         }
+        List<BoxPartition> takeovers = new ArrayList<>();
         for (Map.Entry<BoxPartition, Integer> e : assignment.targets().entrySet()) {
             BoxPartition bp = e.getKey();
             if (e.getValue() != node.nodeId() || node.ownsPartition(bp.box(), bp.partition())) {
@@ -239,13 +459,13 @@ final class PartitionBalancer {
                     .isPresent()) {
                 continue; // previous owner has not released/expired yet; retry next round
             }
-            try {
-                node.openPartition(BoxName.of(bp.box()), bp.partition());
-            } catch (RuntimeException ex) {
+            takeovers.add(bp);
+        }
+        // A failed-over node's partitions all land here in one round; recover them side by side.
+        node.openPartitions(takeovers).forEach((bp, ex) ->
                 // Lost an acquire race, or the Box vanished concurrently; converge next round.
                 LOG.info("Node {} could not take box {} partition {} yet: {}", node.nodeId(),
-                        bp.box(), bp.partition(), ex.getMessage());
-            }
-        }
+                        bp.box(), bp.partition(), ex.getMessage()));
+        node.followPartitions(assignment);
     }
 }
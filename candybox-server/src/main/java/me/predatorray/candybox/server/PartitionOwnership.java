@@ -29,6 +29,8 @@ import me.predatorray.candybox.coordination.CoordinationService;
 import me.predatorray.candybox.coordination.Lease;
 import me.predatorray.candybox.coordination.VersionedValue;
 import me.predatorray.candybox.lsm.engine.BoxEngine;
+import me.predatorray.candybox.lsm.engine.EngineResources;
+import me.predatorray.candybox.lsm.engine.StandbyReplica;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -84,14 +86,14 @@ final class PartitionOwnership implements AutoCloseable {
     /** Acquires ownership of a brand-new partition (the manifest pointer must not already exist). */
     static PartitionOwnership createNew(BoxName box, int partition, CandyboxConfig config,
                                         LedgerStore store, CoordinationService coordination,
-                                        int nodeId, Clock clock) {
+                                        int nodeId, Clock clock, EngineResources resources) {
         Lease lease = acquireLease(box, partition, coordination, nodeId, config);
         try {
             if (coordination.get(manifestKey(box, partition)).isPresent()) {
                 throw new BoxAlreadyExistsException(box.value());
             }
             BoxEngine engine = BoxEngine.createNew(box, config, store, nodeId, clock,
-                    lease.fencingToken());
+                    lease.fencingToken(), resources);
             try {
                 coordination.create(manifestKey(box, partition),
                         new ManifestPointer(engine.manifestLedgerId(), lease.fencingToken()).encode());
@@ -109,15 +111,36 @@ final class PartitionOwnership implements AutoCloseable {
     /** Acquires ownership of an existing partition by recovering its manifest (pointer must exist). */
     static PartitionOwnership recover(BoxName box, int partition, CandyboxConfig config,
                                       LedgerStore store, CoordinationService coordination,
-                                      int nodeId, Clock clock) {
+                                      int nodeId, Clock clock, EngineResources resources) {
+        return recover(box, partition, config, store, coordination, nodeId, clock, resources, null);
+    }
+
+    /**
+     * {@link #recover} promoting {@code standby}, this node's warm replica of the partition, instead
+     * of recovering cold. The standby is untouched if the lease cannot be acquired, and consumed
+     * (closed) once promotion has been attempted.
+     *
+     * @param standby the replica to promote, or null to recover cold
+     */
+    static PartitionOwnership recover(BoxName box, int partition, CandyboxConfig config,
+                                      LedgerStore store, CoordinationService coordination,
+                                      int nodeId, Clock clock, EngineResources resources,
+                                      StandbyReplica standby) {
         Lease lease = acquireLease(box, partition, coordination, nodeId, config);
         try {
             VersionedValue pointer = coordination.get(manifestKey(box, partition))
                     .orElseThrow(() -> new BoxNotFoundException(box.value()));
             long priorManifestLedgerId = ManifestPointer.decode(pointer.value()).ledgerId();
 
-            BoxEngine engine = BoxEngine.recover(box, config, store, nodeId, clock,
-                    priorManifestLedgerId, lease.fencingToken());
+            BoxEngine engine;
+            if (standby != null) {
+                // The pointer read under the lease is authoritative; the standby may trail it.
+                standby.follow(priorManifestLedgerId);
+                engine = standby.promote(nodeId, clock, lease.fencingToken());
+            } else {
+                engine = BoxEngine.recover(box, config, store, nodeId, clock,
+                        priorManifestLedgerId, lease.fencingToken(), resources);
+            }
             try {
                 coordination.compareAndSet(manifestKey(box, partition),
                         new ManifestPointer(engine.manifestLedgerId(), lease.fencingToken()).encode(),
@@ -135,6 +158,42 @@ final class PartitionOwnership implements AutoCloseable {
         }
     }
 
+    /**
+     * Splits this partition, handing the {@link me.predatorray.candybox.common.HashScope#right()
+     * right} half of its keys to the new partition {@code child}: acquires {@code child}'s lease,
+     * has the engine {@link BoxEngine#split split} off a child engine fenced by it, and publishes
+     * the child's manifest pointer — over a stale one a crashed earlier attempt may have left. This
+     * partition is not narrowed here: the caller does that once the child is published, and
+     * {@link BoxEngine#abandonSplit abandons} the split if this throws.
+     */
+    PartitionOwnership split(int child, CandyboxConfig config, int nodeId,
+                             EngineResources resources) {
+        Lease childLease = acquireLease(box, child, coordination, nodeId, config);
+        try {
+            Optional<VersionedValue> stale = coordination.get(manifestKey(box, child));
+            BoxEngine childEngine = engine().split(nodeId, childLease.fencingToken(), resources);
+            try {
+                byte[] pointer = new ManifestPointer(childEngine.manifestLedgerId(),
+                        childLease.fencingToken()).encode();
+                if (stale.isPresent()) {
+                    coordination.compareAndSet(manifestKey(box, child), pointer,
+                            stale.get().version());
+                } else {
+                    coordination.create(manifestKey(box, child), pointer);
+                }
+            } catch (RuntimeException e) {
+                childEngine.close();
+                throw e;
+            }
+            LOG.info("Node {} split box {} partition {} into {} (token {})", nodeId, box, partition,
+                    child, childLease.fencingToken());
+            return new PartitionOwnership(box, child, coordination, childLease, childEngine);
+        } catch (RuntimeException e) {
+            childLease.release();
+            throw e;
+        }
+    }
+
     private static Lease acquireLease(BoxName box, int partition, CoordinationService coordination,
                                       int nodeId, CandyboxConfig config) {
         Optional<Lease> lease = coordination.tryAcquireLease(ownerResource(box, partition), nodeId,
@@ -21,6 +21,7 @@ import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Locale;
 import java.util.Optional;
 import java.util.Properties;
 import java.util.function.Function;
@@ -30,6 +31,8 @@ import me.predatorray.candybox.common.config.CandyboxConfig;
 import me.predatorray.candybox.common.config.LedgerRole;
 import me.predatorray.candybox.common.config.QuorumConfig;
 import me.predatorray.candybox.common.config.SecurityConfig;
+import me.predatorray.candybox.protocol.transport.NioTransportServer;
+import me.predatorray.candybox.protocol.transport.TcpTransportServer;
 
 /**
  * Runtime, deployment-facing configuration for a {@link CandyboxServer} process: endpoints, ports,
@@ -46,6 +49,11 @@ import me.predatorray.candybox.common.config.SecurityConfig;
  * from {@code CANDYBOX_NODE_ID} / {@code node.id}, else the trailing ordinal of {@code HOSTNAME}
  * (so pod {@code candybox-2} becomes node {@code 2}). The advertised address published to membership
  * defaults to {@code CANDYBOX_ADVERTISED} / {@code server.advertised}, else the bind address.
+ *
+ * <p>{@code server.transport} picks how the client listener is served: {@code blocking} (a thread
+ * per connection) or {@code nio} (one event loop plus {@code server.worker.threads} request
+ * workers). Either way at most {@code server.max.inflight.requests} requests run at once; further
+ * ones are answered busy.
  */
 public final class ServerConfig {
 
@@ -62,6 +70,9 @@ public final class ServerConfig {
     private final int bindPort;
     private final String advertisedAddress;
     private final int healthPort;
+    private final TransportMode transportMode;
+    private final int workerThreads;
+    private final int maxInFlightRequests;
     private final String zookeeperConnect;
     private final String metadataServiceUri;
     private final String coordinationConnect;
@@ -78,6 +89,9 @@ public final class ServerConfig {
         this.bindPort = b.bindPort;
         this.advertisedAddress = b.advertisedAddress;
         this.healthPort = b.healthPort;
+        this.transportMode = b.transportMode;
+        this.workerThreads = b.workerThreads;
+        this.maxInFlightRequests = b.maxInFlightRequests;
         this.zookeeperConnect = b.zookeeperConnect;
         this.metadataServiceUri = b.metadataServiceUri;
         this.coordinationConnect = b.coordinationConnect;
@@ -122,6 +136,12 @@ public final class ServerConfig {
                 .bindPort(bindHp.port())
                 .advertisedAddress(advertised)
                 .healthPort(r.getInt("health.port").orElse(DEFAULT_HEALTH_PORT))
+                .transportMode(r.get("server.transport").map(TransportMode::parse)
+                        .orElse(TransportMode.BLOCKING))
+                .workerThreads(r.getInt("server.worker.threads")
+                        .orElse(NioTransportServer.DEFAULT_WORKER_THREADS))
+                .maxInFlightRequests(r.getInt("server.max.inflight.requests")
+                        .orElse(TcpTransportServer.DEFAULT_MAX_IN_FLIGHT))
                 .zookeeperConnect(zk)
                 .metadataServiceUri(r.get("bookkeeper.metadataServiceUri")
                         .orElse("zk://" + zk + "/ledgers"))
@@ -182,6 +202,21 @@ public final class ServerConfig {
         return healthPort;
     }
 
+    /** How the client listener serves its connections. */
+    public TransportMode transportMode() {
+        return transportMode;
+    }
+
+    /** Request handler threads of the {@link TransportMode#NIO} listener. */
+    public int workerThreads() {
+        return workerThreads;
+    }
+
+    /** Requests the listener handles at once before answering further ones busy. */
+    public int maxInFlightRequests() {
+        return maxInFlightRequests;
+    }
+
     public String zookeeperConnect() {
         return zookeeperConnect;
     }
@@ -219,6 +254,23 @@ public final class ServerConfig {
         return bookkeeperClientProps;
     }
 
+    /** How the client listener serves its connections. */
+    public enum TransportMode {
+        /** A thread per connection ({@link TcpTransportServer}). */
+        BLOCKING,
+        /** One selector thread and a bounded worker pool ({@link NioTransportServer}). */
+        NIO;
+
+        static TransportMode parse(String value) {
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException(
+                        "Config key 'server.transport' must be blocking or nio, got: " + value, e);
+            }
+        }
+    }
+
     /** A {@code host:port} pair. */
     record HostPort(String host, int port) {
         static HostPort parse(String value, int defaultPort) {
@@ -288,11 +340,25 @@ public final class ServerConfig {
         /** Maps the optional tuning keys onto {@link CandyboxConfig.Builder}; absent keys keep defaults. */
         CandyboxConfig buildTuning() {
             CandyboxConfig.Builder b = CandyboxConfig.builder();
+            applyLong("block.cache.capacity.bytes", b::blockCacheCapacityBytes);
+            applyInt("ledger.handle.cache.capacity", b::ledgerHandleCacheCapacity);
+            applyLong("ledger.handle.idle.millis", b::ledgerHandleIdleMillis);
             applyLong("memtable.flush.threshold.bytes", b::memtableFlushThresholdBytes);
+            applyInt("memtable.max.immutables", b::memtableMaxImmutables);
+            applyInt("flush.threads", b::flushThreads);
+            applyInt("recovery.threads", b::recoveryThreads);
+            applyLong("wal.group.commit.max.delay.micros", b::walGroupCommitMaxDelayMicros);
+            applyInt("wal.group.commit.max.bytes", b::walGroupCommitMaxBytes);
             applyLong("syrup.rollover.bytes", b::syrupRolloverBytes);
+            applyInt("syrup.append.window", b::syrupAppendWindow);
+            applyInt("syrup.read.ahead.window", b::syrupReadAheadWindow);
+            applyInt("inline.threshold.bytes", b::inlineThresholdBytes);
+            applyInt("syrup.defrag.live.ratio.percent", b::syrupDefragLiveRatioPercent);
+            applyLong("syrup.defrag.max.bytes.per.round", b::syrupDefragMaxBytesPerRound);
             applyLong("ownership.lease.ttl.millis", b::ownershipLeaseTtlMillis);
             applyLong("lease.renew.interval.millis", b::leaseRenewIntervalMillis);
             applyLong("router.cache.ttl.millis", b::routerCacheTtlMillis);
+            applyLong("follower.read.max.staleness.millis", b::followerReadMaxStalenessMillis);
             applyLong("compaction.interval.millis", b::compactionIntervalMillis);
             applyLong("max.clock.skew.millis", b::maxClockSkewMillis);
             applyLong("tombstone.gc.grace.millis", b::tombstoneGcGraceMillis);
@@ -309,6 +375,9 @@ public final class ServerConfig {
             applyInt("partitions.per.box.default", b::partitionsPerBoxDefault);
             applyLong("balancer.interval.millis", b::balancerIntervalMillis);
             applyInt("balancer.max.moves.per.round", b::balancerMaxMovesPerRound);
+            applyInt("balancer.max.splits.per.round", b::balancerMaxSplitsPerRound);
+            applyInt("standby.replicas", b::standbyReplicas);
+            applyLong("standby.catchup.interval.millis", b::standbyCatchUpIntervalMillis);
             applyLong("rename.intent.abandon.millis", b::renameIntentAbandonMillis);
             // Per-role BookKeeper quorum overrides, "E/Qw/Qa" (e.g. 1/1/1 for a single-bookie dev box).
             applyQuorum("quorum.wal", LedgerRole.WAL, b);
@@ -353,6 +422,9 @@ public final class ServerConfig {
         private int bindPort = DEFAULT_PORT;
         private String advertisedAddress;
         private int healthPort = DEFAULT_HEALTH_PORT;
+        private TransportMode transportMode = TransportMode.BLOCKING;
+        private int workerThreads = NioTransportServer.DEFAULT_WORKER_THREADS;
+        private int maxInFlightRequests = TcpTransportServer.DEFAULT_MAX_IN_FLIGHT;
         private String zookeeperConnect;
         private String metadataServiceUri;
         private String coordinationConnect;
@@ -388,6 +460,21 @@ public final class ServerConfig {
             return this;
         }
 
+        Builder transportMode(TransportMode v) {
+            this.transportMode = v;
+            return this;
+        }
+
+        Builder workerThreads(int v) {
+            this.workerThreads = v;
+            return this;
+        }
+
+        Builder maxInFlightRequests(int v) {
+            this.maxInFlightRequests = v;
+            return this;
+        }
+
         Builder zookeeperConnect(String v) {
             this.zookeeperConnect = v;
             return this;
@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.predatorray.candybox.server;
+
+import java.util.ArrayList;
+import java.util.List;
+import me.predatorray.candybox.common.config.CandyboxConfig;
+import me.predatorray.candybox.lsm.engine.BoxEngine;
+import me.predatorray.candybox.lsm.engine.SyrupUsage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Drives Syrup defragmentation for a partition (DESIGN §9(d)): scores its Syrups, picks those whose
+ * live ratio is at or below {@code syrupDefragLiveRatioPercent}, emptiest first, and has the engine
+ * copy their surviving Candies to a fresh Syrup. The old Syrups then drain through the ordinary GC.
+ *
+ * <p>Each call copies at most about {@code budgetBytes}, so the caller throttles the rate by how much
+ * budget it hands out per maintenance round. Scoring walks every sealed Syrup, so it is skipped
+ * when defragmentation is disabled or the round's budget is spent; the live-ratio gauges then keep
+ * the last pass's figures.
+ */
+public final class SyrupDefragmenter {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SyrupDefragmenter.class);
+
+    private final int liveRatioPercent;
+    private final int chunkSizeBytes;
+
+    public SyrupDefragmenter(CandyboxConfig config) {
+        this.liveRatioPercent = config.syrupDefragLiveRatioPercent();
+        this.chunkSizeBytes = config.sizeLimits().chunkSizeBytes();
+    }
+
+    /**
+     * Defragments the engine's emptiest Syrups within {@code budgetBytes}.
+     *
+     * @return the Candy bytes copied
+     */
+    public long defragmentOnce(BoxEngine engine, long budgetBytes) {
+        if (liveRatioPercent == 0 || budgetBytes <= 0) {
+            return 0;
+        }
+        List<SyrupUsage> usage = engine.syrupUsage();
+        List<Long> victims = new ArrayList<>();
+        long planned = 0;
+        for (SyrupUsage syrup : usage) {
+            if (syrup.liveRatio() * 100 > liveRatioPercent || planned >= budgetBytes) {
+                break; // emptiest first, so every later Syrup is fuller still
+            }
+            if (syrup.liveEntries() == 0) {
+                continue; // nothing live to copy: compaction dropping its shadowed versions frees it
+            }
+            victims.add(syrup.syrupId());
+            planned += syrup.liveEntries() * chunkSizeBytes;
+        }
+        if (victims.isEmpty()) {
+            return 0;
+        }
+        long copied = engine.defragmentSyrups(victims, budgetBytes);
+        LOG.info("Defragmented Syrups {} of box {}: copied {} bytes", victims, engine.box(), copied);
+        return copied;
+    }
+}
@@ -27,9 +27,11 @@ import me.predatorray.candybox.common.CandyKey;
 import me.predatorray.candybox.common.ManualClock;
 import me.predatorray.candybox.common.config.CandyboxConfig;
 import me.predatorray.candybox.common.exception.BoxAlreadyExistsException;
+import me.predatorray.candybox.common.exception.FencedException;
 import me.predatorray.candybox.common.exception.NotOwnerException;
 import me.predatorray.candybox.coordination.CandyboxKeys;
 import me.predatorray.candybox.coordination.fake.InMemoryCoordinationService;
+import me.predatorray.candybox.lsm.engine.BoxEngine;
 import me.predatorray.candybox.protocol.Frame;
 import me.predatorray.candybox.protocol.Message;
 import me.predatorray.candybox.protocol.MessageCodec;
@@ -136,6 +138,7 @@ class CandyboxNodeTest {
     void busyResponseSurfacedUnderWriteStall() {
         CandyboxConfig stall = CandyboxConfig.builder()
                 .memtableFlushThresholdBytes(1)
+                .flushThreads(0)                // flush on the writer thread
                 .l0CompactionTrigger(1)
                 .l0StallThreshold(2)
                 .build();
@@ -156,6 +159,7 @@ class CandyboxNodeTest {
     void compactionServiceMergesL0Tables() {
         CandyboxConfig cfg = CandyboxConfig.builder()
                 .memtableFlushThresholdBytes(1) // each put flushes => one L0 table per key
+                .flushThreads(0)                // flush on the writer thread
                 .l0CompactionTrigger(3)
                 .l0StallThreshold(100)
                 .build();
@@ -188,6 +192,7 @@ class CandyboxNodeTest {
     void backgroundCompactionWorkerMergesOwnedBoxes() {
         CandyboxConfig cfg = CandyboxConfig.builder()
                 .memtableFlushThresholdBytes(1) // each put flushes => one L0 table per key
+                .flushThreads(0)                // flush on the writer thread
                 .l0CompactionTrigger(3)
                 .l0StallThreshold(100)
                 .build();
@@ -218,6 +223,7 @@ class CandyboxNodeTest {
     void gcDeletesLedgersOfCompactedInputs() {
         CandyboxConfig cfg = CandyboxConfig.builder()
                 .memtableFlushThresholdBytes(1)
+                .flushThreads(0)                // flush on the writer thread
                 .l0CompactionTrigger(3)
                 .l0StallThreshold(100)
                 .ledgerGcGraceMillis(0) // delete obsolete ledgers immediately
@@ -257,11 +263,50 @@ class CandyboxNodeTest {
         store.close();
     }
 
+    @Test
+    void gcEvictsTheBlocksOfDeletedSSTablesFromTheSharedBlockCache() {
+        CandyboxConfig cfg = CandyboxConfig.builder()
+                .memtableFlushThresholdBytes(1)
+                .flushThreads(0)                // flush on the writer thread
+                .l0CompactionTrigger(3)
+                .l0StallThreshold(100)
+                .ledgerGcGraceMillis(0)
+                .build();
+        InMemoryLedgerStore store = new InMemoryLedgerStore();
+        try (CandyboxNode node = new CandyboxNode(1, cfg, store, new InMemoryCoordinationService(),
+                new ManualClock(1000))) {
+            node.createBox(BoxName.of("my-box"), 1);
+            RequestHandler handler = node.requestHandler();
+            for (int i = 0; i < 5; i++) {
+                roundTrip(handler, put("my-box", "key-" + i));
+            }
+            for (int pass = 0; pass < 2; pass++) {
+                for (int i = 0; i < 5; i++) {
+                    roundTrip(handler, new Message.HeadCandyRequest("my-box", "key-" + i));
+                }
+            }
+            assertThat(node.blockCacheStats().hits()).isPositive();
+            assertThat(node.blockCacheStats().weightedSize()).isPositive();
+
+            // Compaction reads its inputs uncached; GC then drops the inputs' cached blocks.
+            node.compactOwnedBoxesOnce();
+            node.collectGarbageOnce();
+            assertThat(node.blockCacheStats().weightedSize()).isZero();
+
+            long missesBefore = node.blockCacheStats().misses();
+            roundTrip(handler, new Message.HeadCandyRequest("my-box", "key-0"));
+            assertThat(node.blockCacheStats().misses()).isGreaterThan(missesBefore);
+        }
+        store.close();
+    }
+
     @Test
     void gcReclaimsOrphanedSyrupsAfterOverwrite() {
         CandyboxConfig cfg = CandyboxConfig.builder()
                 .memtableFlushThresholdBytes(1) // each put flushes
+                .flushThreads(0)                // flush on the writer thread
                 .syrupRolloverBytes(1)          // each Candy lands in its own Syrup
+                .inlineThresholdBytes(0)        // ... even a tiny one
                 .l0CompactionTrigger(2)
                 .l0StallThreshold(100)
                 .ledgerGcGraceMillis(0)
@@ -307,6 +352,7 @@ class CandyboxNodeTest {
     void gcDeletesRotatedWalLedgers() {
         CandyboxConfig cfg = CandyboxConfig.builder()
                 .memtableFlushThresholdBytes(1) // each put flushes => rotates the WAL
+                .flushThreads(0)                // flush on the writer thread
                 .l0CompactionTrigger(100)       // no compaction, so only WALs are reclaimable
                 .l0StallThreshold(200)
                 .ledgerGcGraceMillis(0)
@@ -328,6 +374,35 @@ class CandyboxNodeTest {
         store.close();
     }
 
+    @Test
+    void maintenanceClosesLedgerHandlesLeftIdleOnAQuietNode() {
+        InMemoryLedgerStore store = new InMemoryLedgerStore();
+        ManualClock clock = new ManualClock(1000);
+        CandyboxConfig cfg = CandyboxConfig.builder()
+                .ledgerHandleIdleMillis(60_000)
+                .syrupRolloverBytes(1) // every Candy seals the Syrup before it
+                .inlineThresholdBytes(0)
+                .build();
+        try (CandyboxNode node = new CandyboxNode(1, cfg, store, new InMemoryCoordinationService(),
+                clock)) {
+            BoxName box = BoxName.of("quiet-box");
+            node.createBox(box, 1);
+            BoxEngine engine = node.engine(box, "k");
+            for (String key : new String[] {"k1", "k2"}) {
+                engine.putCandy(CandyKey.of(key), "v".getBytes(StandardCharsets.UTF_8), null,
+                        Map.of(), null);
+            }
+            assertThat(engine.getCandy(CandyKey.of("k1"))).isEqualTo("v".getBytes(StandardCharsets.UTF_8));
+            assertThat(node.ledgerHandleCacheStats().weightedSize()).isEqualTo(1);
+
+            // No further opens: only the maintenance tick can retire the handles.
+            clock.advance(60_000);
+            node.closeIdleLedgerHandlesOnce();
+            assertThat(node.ledgerHandleCacheStats().weightedSize()).isZero();
+        }
+        store.close();
+    }
+
     @Test
     void createBoxRollsBackWhenAPartitionCannotBeCreated() {
         InMemoryLedgerStore store = new InMemoryLedgerStore();
@@ -387,6 +462,127 @@ class CandyboxNodeTest {
         store.close();
     }
 
+    @Test
+    void openBoxRecoversPartitionsInParallelAndRecordsEachPhase() {
+        InMemoryLedgerStore store = new InMemoryLedgerStore();
+        InMemoryCoordinationService coordination = new InMemoryCoordinationService();
+        try (CandyboxNode node = new CandyboxNode(1, CandyboxConfig.builder().recoveryThreads(4).build(),
+                store, coordination, new ManualClock(1000))) {
+            BoxName box = BoxName.of("parallel-box");
+            node.createBox(box, 8);
+            for (int i = 0; i < 32; i++) {
+                node.engine(box, "k" + i).putCandy(CandyKey.of("k" + i),
+                        ("v" + i).getBytes(StandardCharsets.UTF_8), null, Map.of(), null);
+            }
+            node.releaseBox(box);
+
+            node.openBox(box);
+            assertThat(node.ownedBoxStats()).hasSize(8);
+            for (int i = 0; i < 32; i++) {
+                assertThat(node.engine(box, "k" + i).getCandy(CandyKey.of("k" + i)))
+                        .isEqualTo(("v" + i).getBytes(StandardCharsets.UTF_8));
+            }
+            Map<String, LatencyHistogram.Snapshot> recovery = node.recoveryHistograms();
+            assertThat(recovery).containsOnlyKeys("manifest", "wal", "sstables", "total");
+            assertThat(recovery.get("total").count()).isEqualTo(8);
+        }
+        store.close();
+    }
+
+    @Test
+    void splitPartitionHandsHalfTheKeysToANewPartitionThatSurvivesReopen() {
+        InMemoryLedgerStore store = new InMemoryLedgerStore();
+        InMemoryCoordinationService coordination = new InMemoryCoordinationService();
+        try (CandyboxNode node = new CandyboxNode(1, CandyboxConfig.defaults(), store, coordination,
+                new ManualClock(1000))) {
+            BoxName box = BoxName.of("split-box");
+            node.createBox(box, 1);
+            RequestHandler handler = node.requestHandler();
+            for (int i = 0; i < 16; i++) {
+                roundTrip(handler, putValue("split-box", "k" + i, "v" + i));
+            }
+
+            assertThat(node.splitPartition(box, 0)).isEqualTo(1);
+            assertThat(node.refreshDescriptor(box).partitions()).containsExactly(0, 1);
+            assertThat(roundTrip(handler, new Message.BoxInfoRequest("split-box")))
+                    .isEqualTo(new Message.BoxInfoResponse(1, Map.of(0, 1, 1, 1)));
+            // A listing addressed under the old layout is told to re-fetch it, not answered partially.
+            assertThat(roundTrip(handler, new Message.ListCandiesRequest("split-box", 0, null, null,
+                    100, null, null, false, null, 0, 1)))
+                    .isEqualTo(new Message.MovedResponse(1, true));
+            // So is one from a client that predates splits and sends no modulus at all.
+            assertThat(roundTrip(handler, new Message.ListCandiesRequest("split-box", 0, null, null,
+                    100, null, null, false, null, 0, 0)))
+                    .isEqualTo(new Message.MovedResponse(1, true));
+
+            node.releaseBox(box);
+            node.openBox(box);
+            assertThat(node.ownedBoxStats()).containsKeys("split-box/0", "split-box/1");
+            int listed = 0;
+            for (int p : new int[] {0, 1}) {
+                Message page = roundTrip(handler, new Message.ListCandiesRequest("split-box", p, null,
+                        null, 100, null, null, false, null, 0, 2));
+                listed += ((Message.ListCandiesResponse) page).entries().size();
+            }
+            assertThat(listed).isEqualTo(16);
+            for (int i = 0; i < 16; i++) {
+                Message get = roundTrip(handler, new Message.GetCandyRequest("split-box", "k" + i));
+                assertThat(new String(((Message.CandyDataResponse) get).data(),
+                        StandardCharsets.UTF_8)).isEqualTo("v" + i);
+            }
+        }
+        store.close();
+    }
+
+    @Test
+    void splitWhoseDescriptorUpdateWasLostIsRoutedByTheMaintenanceTick() {
+        InMemoryLedgerStore store = new InMemoryLedgerStore();
+        InMemoryCoordinationService coordination = new InMemoryCoordinationService();
+        try (CandyboxNode node = new CandyboxNode(1, CandyboxConfig.defaults(), store, coordination,
+                new ManualClock(1000))) {
+            BoxName box = BoxName.of("unrouted-box");
+            node.createBox(box, 1);
+            String metaKey = CandyboxKeys.boxMetaKey("unrouted-box");
+            byte[] unsplit = coordination.get(metaKey).orElseThrow().value();
+            assertThat(node.splitPartition(box, 0)).isEqualTo(1);
+            // As if registerSplit had failed: partition 0 is narrowed, the descriptor unaware.
+            coordination.compareAndSet(metaKey, unsplit,
+                    coordination.get(metaKey).orElseThrow().version());
+            node.refreshDescriptor(box);
+
+            assertThat(node.reconcileScopesOnce()).isEqualTo(1);
+            assertThat(node.refreshDescriptor(box).partitions()).containsExactly(0, 1);
+            assertThat(node.reconcileScopesOnce()).isZero();
+        }
+        store.close();
+    }
+
+    @Test
+    void abandonedSplitWithdrawsTheReferencesItPublishedForTheNewPartition() {
+        InMemoryLedgerStore store = new InMemoryLedgerStore();
+        InMemoryCoordinationService coordination = new InMemoryCoordinationService();
+        try (CandyboxNode node = new CandyboxNode(1, CandyboxConfig.defaults(), store, coordination,
+                new ManualClock(1000))) {
+            BoxName box = BoxName.of("abandoned-box");
+            node.createBox(box, 1);
+            RequestHandler handler = node.requestHandler();
+            for (int i = 0; i < 4; i++) {
+                roundTrip(handler, putValue("abandoned-box", "k" + i, "v" + i));
+            }
+            BoxEngine parent = node.enginePartition(box, 0);
+            parent.flush();
+            // Fence the parent's manifest: the split's copy goes through, narrowing it cannot.
+            store.recoverOpen(parent.manifestLedgerId());
+
+            assertThatThrownBy(() -> node.splitPartition(box, 0))
+                    .isInstanceOf(FencedException.class);
+            assertThat(coordination.get(CandyboxKeys.partitionRefsKey("abandoned-box", 1)))
+                    .isEmpty();
+            assertThat(node.refreshDescriptor(box).partitions()).containsExactly(0);
+        }
+        store.close();
+    }
+
     private static Message put(String box, String key) {
         return putValue(box, key, "v");
     }
@@ -62,7 +62,9 @@ class CrossPartitionGcAndRenameTest {
     private static CandyboxConfig aggressiveGcConfig() {
         return CandyboxConfig.builder()
                 .memtableFlushThresholdBytes(1)   // every write flushes => its own L0 table + WAL
+                .flushThreads(0)                   // flush on the writer thread
                 .syrupRolloverBytes(1)             // every Candy in its own Syrup ledger
+                .inlineThresholdBytes(0)           // ... even a tiny one
                 .l0CompactionTrigger(2)
                 .ledgerGcGraceMillis(0)            // reclaim immediately
                 .leaseRenewIntervalMillis(0)
@@ -23,7 +23,9 @@ import java.net.http.HttpRequest;
 import java.net.http.HttpResponse.BodyHandlers;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicBoolean;
+import me.predatorray.candybox.common.concurrent.CacheStats;
 import me.predatorray.candybox.lsm.engine.BoxEngineStats;
+import me.predatorray.candybox.server.HealthServer.MetricsSources;
 import org.junit.jupiter.api.Test;
 
 /**
@@ -35,7 +37,7 @@ import org.junit.jupiter.api.Test;
 class HealthServerTest {
 
     private static BoxEngineStats stats(long puts, long gets) {
-        return new BoxEngineStats(puts, 0, gets, 0, 0, 0, 0, 0);
+        return new BoxEngineStats(puts, 0, gets, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0);
     }
 
     private static String get(int port, String path) throws Exception {
@@ -53,7 +55,8 @@ class HealthServerTest {
     @Test
     void healthzIsAlwaysOkAndReadyzFollowsThePredicate() throws Exception {
         AtomicBoolean ready = new AtomicBoolean(false);
-        try (HealthServer server = new HealthServer(0, 1, ready::get, Map::of)) {
+        try (HealthServer server = new HealthServer(0, 1, ready::get, MetricsSources.boxes(Map::of),
+                null)) {
             server.start();
             int port = server.port();
 
@@ -74,7 +77,8 @@ class HealthServerTest {
     @Test
     void metricsEndpointRendersPerBoxCounters() throws Exception {
         Map<String, BoxEngineStats> byBox = Map.of("photos", stats(3, 7));
-        try (HealthServer server = new HealthServer(0, 42, () -> true, () -> byBox)) {
+        try (HealthServer server = new HealthServer(0, 42, () -> true,
+                MetricsSources.boxes(() -> byBox), null)) {
             server.start();
             String body = get(server.port(), "/metrics");
             assertThat(body)
@@ -85,10 +89,102 @@ class HealthServerTest {
         }
     }
 
+    @Test
+    void renderMetricsExposesFlushQueueDepthAsAGauge() {
+        Map<String, BoxEngineStats> byBox =
+                Map.of("photos", new BoxEngineStats(0, 0, 0, 0, 0, 4, 0, 1, 2, 350, 0, 0, 0, 0, 0, 0,
+                        0, 0));
+        String rendered = HealthServer.renderMetrics(1, MetricsSources.boxes(() -> byBox));
+        assertThat(rendered)
+                .contains("# TYPE candybox_flush_queue_depth gauge")
+                .contains("candybox_flush_queue_depth{node=\"1\",box=\"photos\"} 2")
+                .contains("# TYPE candybox_flush_millis_total counter")
+                .contains("candybox_flush_millis_total{node=\"1\",box=\"photos\"} 350");
+    }
+
+    @Test
+    void renderMetricsExposesTheSyrupLiveRatioAndDefragCounters() {
+        Map<String, BoxEngineStats> byBox =
+                Map.of("photos", new BoxEngineStats(0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 25, 100, 3, 4096, 0,
+                        0, 0, 0));
+        String rendered = HealthServer.renderMetrics(1, MetricsSources.boxes(() -> byBox));
+        assertThat(rendered)
+                .contains("# TYPE candybox_syrup_live_ratio gauge")
+                .contains("candybox_syrup_live_ratio{node=\"1\",box=\"photos\"} 0.25")
+                .contains("candybox_syrup_live_entries{node=\"1\",box=\"photos\"} 25")
+                .contains("candybox_syrup_entries{node=\"1\",box=\"photos\"} 100")
+                .contains("candybox_defrag_relocations_total{node=\"1\",box=\"photos\"} 3")
+                .contains("candybox_defrag_bytes_total{node=\"1\",box=\"photos\"} 4096");
+    }
+
+    @Test
+    void renderMetricsExposesTheBalancerLoadInputs() {
+        Map<String, BoxEngineStats> byBox =
+                Map.of("photos", new BoxEngineStats(0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 700,
+                        1200, 65536, 5));
+        String rendered = HealthServer.renderMetrics(1, MetricsSources.boxes(() -> byBox));
+        assertThat(rendered)
+                .contains("candybox_bytes_in_total{node=\"1\",box=\"photos\"} 700")
+                .contains("candybox_bytes_out_total{node=\"1\",box=\"photos\"} 1200")
+                .contains("# TYPE candybox_memtable_bytes gauge")
+                .contains("candybox_memtable_bytes{node=\"1\",box=\"photos\"} 65536")
+                .contains("# TYPE candybox_l0_tables gauge")
+                .contains("candybox_l0_tables{node=\"1\",box=\"photos\"} 5");
+    }
+
+    @Test
+    void renderMetricsExposesNodeWideBlockCacheCounters() {
+        String rendered = HealthServer.renderMetrics(3, new MetricsSources(null,
+                () -> new CacheStats(90, 10, 4, 2048, 4096), null, null));
+        assertThat(rendered)
+                .contains("# TYPE candybox_block_cache_hits_total counter")
+                .contains("candybox_block_cache_hits_total{node=\"3\"} 90")
+                .contains("candybox_block_cache_misses_total{node=\"3\"} 10")
+                .contains("candybox_block_cache_evictions_total{node=\"3\"} 4")
+                .contains("# TYPE candybox_block_cache_bytes gauge")
+                .contains("candybox_block_cache_bytes{node=\"3\"} 2048");
+        assertThat(HealthServer.renderMetrics(3, MetricsSources.boxes(Map::of)))
+                .doesNotContain("candybox_block_cache");
+    }
+
+    @Test
+    void renderMetricsExposesLedgerHandleCacheCounters() {
+        String rendered = HealthServer.renderMetrics(3, new MetricsSources(null, null,
+                () -> new CacheStats(70, 5, 2, 3, 1024), null));
+        assertThat(rendered)
+                .contains("candybox_ledger_handle_opens_total{node=\"3\"} 5")
+                .contains("candybox_ledger_handle_hits_total{node=\"3\"} 70")
+                .contains("candybox_ledger_handle_evictions_total{node=\"3\"} 2")
+                .contains("# TYPE candybox_ledger_handles_open gauge")
+                .contains("candybox_ledger_handles_open{node=\"3\"} 3")
+                .doesNotContain("candybox_block_cache");
+    }
+
+    @Test
+    void renderMetricsExposesPartitionRecoveryHistograms() {
+        LatencyHistogram wal = new LatencyHistogram();
+        wal.observe(40);
+        wal.observe(700);
+        wal.observe(200_000);
+        String rendered = HealthServer.renderMetrics(2, new MetricsSources(null, null, null,
+                () -> Map.of("wal", wal.snapshot())));
+        assertThat(rendered)
+                .contains("# TYPE candybox_partition_recovery_seconds histogram")
+                .contains("candybox_partition_recovery_seconds_bucket{node=\"2\",phase=\"wal\",le=\"0.05\"} 1")
+                .contains("candybox_partition_recovery_seconds_bucket{node=\"2\",phase=\"wal\",le=\"0.5\"} 1")
+                .contains("candybox_partition_recovery_seconds_bucket{node=\"2\",phase=\"wal\",le=\"1.0\"} 2")
+                .contains("candybox_partition_recovery_seconds_bucket{node=\"2\",phase=\"wal\",le=\"120.0\"} 2")
+                .contains("candybox_partition_recovery_seconds_bucket{node=\"2\",phase=\"wal\",le=\"+Inf\"} 3")
+                .contains("candybox_partition_recovery_seconds_sum{node=\"2\",phase=\"wal\"} 200.74")
+                .contains("candybox_partition_recovery_seconds_count{node=\"2\",phase=\"wal\"} 3");
+        assertThat(HealthServer.renderMetrics(2, MetricsSources.boxes(Map::of)))
+                .doesNotContain("recovery_seconds");
+    }
+
     @Test
     void renderMetricsEscapesLabelSpecialCharacters() {
         Map<String, BoxEngineStats> byBox = Map.of("a\"b\\c", stats(1, 0));
-        String rendered = HealthServer.renderMetrics(5, byBox);
+        String rendered = HealthServer.renderMetrics(5, MetricsSources.boxes(() -> byBox));
         // The box label's quote and backslash must be escaped for valid Prometheus exposition.
         assertThat(rendered).contains("box=\"a\\\"b\\\\c\"");
         assertThat(rendered).contains("candybox_owned_boxes{node=\"5\"} 1");
@@ -96,7 +192,7 @@ class HealthServerTest {
 
     @Test
     void renderMetricsWithNoBoxesStillEmitsTheGauge() {
-        String rendered = HealthServer.renderMetrics(9, Map.of());
+        String rendered = HealthServer.renderMetrics(9, MetricsSources.boxes(Map::of));
         assertThat(rendered).contains("candybox_owned_boxes{node=\"9\"} 0");
         // The counter HELP/TYPE headers are present even with no series rows.
         assertThat(rendered).contains("# TYPE candybox_compactions_total counter");
@@ -104,7 +200,8 @@ class HealthServerTest {
 
     @Test
     void metricsTokenGuardsMetricsButNotProbes() throws Exception {
-        try (HealthServer server = new HealthServer(0, 1, () -> true, Map::of, "sekret")) {
+        try (HealthServer server = new HealthServer(0, 1, () -> true, MetricsSources.boxes(Map::of),
+                "sekret")) {
             server.start();
             HttpClient http = HttpClient.newHttpClient();
             String base = "http://127.0.0.1:" + server.port();
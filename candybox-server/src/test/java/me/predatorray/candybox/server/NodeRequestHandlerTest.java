@@ -17,6 +17,10 @@ package me.predatorray.candybox.server;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Map;
@@ -25,11 +29,14 @@ import me.predatorray.candybox.bookkeeper.fake.InMemoryLedgerStore;
 import me.predatorray.candybox.common.BoxName;
 import me.predatorray.candybox.common.ManualClock;
 import me.predatorray.candybox.common.config.CandyboxConfig;
+import me.predatorray.candybox.common.config.SizeLimits;
 import me.predatorray.candybox.coordination.fake.InMemoryCoordinationService;
 import me.predatorray.candybox.protocol.Frame;
 import me.predatorray.candybox.protocol.Message;
 import me.predatorray.candybox.protocol.MessageCodec;
 import me.predatorray.candybox.protocol.Opcode;
+import me.predatorray.candybox.protocol.transport.ConnectionContext;
+import me.predatorray.candybox.protocol.transport.Exchange;
 import me.predatorray.candybox.protocol.transport.RequestHandler;
 import org.junit.jupiter.api.Test;
 
@@ -54,6 +61,33 @@ class NodeRequestHandlerTest {
         return CODEC.decode(response);
     }
 
+    /** Stands in for a transport's exchange: a request body to read, a response body to capture. */
+    private static final class CapturingExchange implements Exchange {
+        private final InputStream requestBody;
+        private final ByteArrayOutputStream responseBody = new ByteArrayOutputStream();
+        private Message header;
+
+        CapturingExchange(byte[] requestBody) {
+            this.requestBody = new ByteArrayInputStream(requestBody);
+        }
+
+        @Override
+        public InputStream requestBody() {
+            return requestBody;
+        }
+
+        @Override
+        public OutputStream respondWithBody(Frame header) {
+            this.header = CODEC.decode(header);
+            return responseBody;
+        }
+    }
+
+    private static Message stream(RequestHandler handler, Message request, Exchange exchange) {
+        Frame response = handler.handle(new ConnectionContext(), CODEC.encode(request), exchange);
+        return response == null ? null : CODEC.decode(response);
+    }
+
     /** Multipart minimum dropped to 0 so small in-memory parts complete. */
     private static CandyboxConfig config() {
         return CandyboxConfig.builder().multipartMinPartBytes(0).build();
@@ -73,6 +107,64 @@ class NodeRequestHandlerTest {
         }
     }
 
+    @Test
+    void streamedPutGetAndUploadPartDispatch() {
+        try (CandyboxNode node = new CandyboxNode(1, config(), new InMemoryLedgerStore(),
+                new InMemoryCoordinationService(), new ManualClock(1000))) {
+            RequestHandler handler = node.requestHandler();
+            roundTrip(handler, new Message.CreateBoxRequest("stream-box", 1));
+
+            assertThat(stream(handler, new Message.PutCandyStreamRequest("stream-box", "k",
+                    "text/plain", Map.of("a", "1"), null, null, List.of()),
+                    new CapturingExchange(bytes("streamed body"))))
+                    .isInstanceOf(Message.OkResponse.class);
+
+            CapturingExchange get = new CapturingExchange(new byte[0]);
+            assertThat(stream(handler, new Message.GetCandyStreamRequest("stream-box", "k"), get))
+                    .isNull();
+            Message.CandyStreamResponse header = (Message.CandyStreamResponse) get.header;
+            assertThat(header.contentLength()).isEqualTo(13);
+            assertThat(header.contentType()).isEqualTo("text/plain");
+            assertThat(header.userMetadata()).containsEntry("a", "1");
+            assertThat(get.responseBody.toString(StandardCharsets.UTF_8)).isEqualTo("streamed body");
+
+            assertThat(stream(handler, new Message.GetCandyStreamRequest("stream-box", "absent"),
+                    new CapturingExchange(new byte[0])))
+                    .isInstanceOf(Message.NotFoundResponse.class);
+
+            String uploadId = ((Message.CreateMultipartUploadResponse) roundTrip(handler,
+                    new Message.CreateMultipartUploadRequest("stream-box", "mp", null, Map.of())))
+                    .uploadId();
+            Message part = stream(handler,
+                    new Message.UploadPartStreamRequest("stream-box", "mp", uploadId, 1),
+                    new CapturingExchange(bytes("part")));
+            assertThat(((Message.UploadPartResponse) part).partLength()).isEqualTo(4);
+        }
+    }
+
+    @Test
+    void streamedPutIsCutOffAtTheSizeLimit() {
+        SizeLimits defaults = SizeLimits.defaults();
+        CandyboxConfig capped = CandyboxConfig.builder().multipartMinPartBytes(0)
+                .sizeLimits(new SizeLimits(defaults.chunkSizeBytes(), defaults.maxCandyKeyBytes(),
+                        defaults.maxUserMetadataBytes(), defaults.maxLocatorBytes(), 8))
+                .build();
+        try (CandyboxNode node = new CandyboxNode(1, capped, new InMemoryLedgerStore(),
+                new InMemoryCoordinationService(), new ManualClock(1000))) {
+            RequestHandler handler = node.requestHandler();
+            roundTrip(handler, new Message.CreateBoxRequest("capped-box", 1));
+
+            Message response = stream(handler, new Message.PutCandyStreamRequest("capped-box", "k",
+                    null, Map.of(), null, null, List.of()),
+                    new CapturingExchange(bytes("too large")));
+            assertThat(response).isInstanceOf(Message.ErrorResponse.class);
+            assertThat(((Message.ErrorResponse) response).errorType())
+                    .isEqualTo("LimitExceededException");
+            assertThat(roundTrip(handler, new Message.HeadCandyRequest("capped-box", "k")))
+                    .isInstanceOf(Message.NotFoundResponse.class);
+        }
+    }
+
     @Test
     void requestForUnknownBoxIsNotFound() {
         try (CandyboxNode node = new CandyboxNode(1, config(), new InMemoryLedgerStore(),
@@ -104,6 +196,50 @@ class NodeRequestHandlerTest {
         store.close();
     }
 
+    @Test
+    void standbyAnswersReadsThatTolerateItsStaleness() {
+        ManualClock clock = new ManualClock(1000);
+        InMemoryLedgerStore store = new InMemoryLedgerStore();
+        InMemoryCoordinationService coordination = new InMemoryCoordinationService(clock);
+        CandyboxConfig config = CandyboxConfig.builder()
+                .leaseRenewIntervalMillis(0)
+                .standbyReplicas(1)
+                .standbyCatchUpIntervalMillis(3_600_000) // ticks are driven manually
+                .build();
+        try (CandyboxNode owner = new CandyboxNode(1, config, store, coordination, clock);
+             CandyboxNode standby = new CandyboxNode(2, config, store, coordination, clock)) {
+            owner.createBox(BoxName.of("replicated-box"), 1);
+            owner.runBalancerOnce();
+            standby.runBalancerOnce();
+            assertThat(roundTrip(owner.requestHandler(), new Message.PutCandyRequest(
+                    "replicated-box", "k", null, Map.of(), null, bytes("v"))))
+                    .isInstanceOf(Message.OkResponse.class);
+            standby.catchUpStandbys();
+            RequestHandler handler = standby.requestHandler();
+            long bound = 3_605_000; // the catch-up interval, the standby's LAC lag, plus 5 s
+
+            Message get = roundTrip(handler, new Message.GetCandyRequest("replicated-box", "k", bound));
+            assertThat(((Message.CandyDataResponse) get).data()).isEqualTo(bytes("v"));
+            assertThat(roundTrip(handler, new Message.HeadCandyRequest("replicated-box", "k", bound)))
+                    .isInstanceOf(Message.HeadCandyResponse.class);
+            Message list = roundTrip(handler, new Message.ListCandiesRequest("replicated-box", 0, null,
+                    null, 10, null, null, false, null, bound));
+            assertThat(((Message.ListCandiesResponse) list).entries()).hasSize(1);
+            CapturingExchange exchange = new CapturingExchange(new byte[0]);
+            assertThat(stream(handler, new Message.GetCandyStreamRequest("replicated-box", "k", bound),
+                    exchange)).isNull();
+            assertThat(exchange.responseBody.toByteArray()).isEqualTo(bytes("v"));
+
+            // Reads that want the owner, or a fresher answer than the standby has, are redirected.
+            assertThat(roundTrip(handler, new Message.GetCandyRequest("replicated-box", "k")))
+                    .isInstanceOf(Message.MovedResponse.class);
+            clock.advance(6_000);
+            assertThat(roundTrip(handler, new Message.GetCandyRequest("replicated-box", "k", bound)))
+                    .isInstanceOf(Message.MovedResponse.class);
+        }
+        store.close();
+    }
+
     @Test
     void everyKeyedAndPartitionedRequestRedirectsWithMovedFromANonOwner() {
         // Node 1 owns the (single-partition) Box; every Box-routed request sent to node 2 must come
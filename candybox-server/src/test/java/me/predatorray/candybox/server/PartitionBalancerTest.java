@@ -25,16 +25,19 @@ import me.predatorray.candybox.common.CandyKey;
 import me.predatorray.candybox.common.ManualClock;
 import me.predatorray.candybox.common.Partitioning;
 import me.predatorray.candybox.common.config.CandyboxConfig;
+import me.predatorray.candybox.coordination.BalancerRound;
 import me.predatorray.candybox.coordination.CandyboxKeys;
 import me.predatorray.candybox.coordination.LeaseInfo;
+import me.predatorray.candybox.coordination.PartitionAssignment.BoxPartition;
+import me.predatorray.candybox.coordination.PartitionLoad;
 import me.predatorray.candybox.coordination.fake.InMemoryCoordinationService;
 import org.junit.jupiter.api.Test;
 
 /**
  * Drives the {@link PartitionBalancer} deterministically (the scheduler is disabled; rounds run via
  * {@link CandyboxNode#runBalancerOnce()}): elected-coordinator assignment, even spread, the
- * per-round move rate limit, stickiness once balanced, dead-node failover, and the deleted-Box
- * sweep.
+ * per-round move rate limit, stickiness once balanced, load-weighted moves off a hot node, dead-node
+ * failover, warm-standby promotion, and the deleted-Box sweep.
  */
 class PartitionBalancerTest {
 
@@ -142,6 +145,60 @@ class PartitionBalancerTest {
         }
     }
 
+    @Test
+    void aHotNodeShedsItsHeaviestPartitionToALighterOne() {
+        ManualClock clock = new ManualClock(1_000);
+        InMemoryLedgerStore store = new InMemoryLedgerStore();
+        InMemoryCoordinationService coordination = new InMemoryCoordinationService(clock);
+        BoxName box = BoxName.of("hot-box");
+
+        CandyboxNode nodeA = new CandyboxNode(1, config(8), store, coordination, clock);
+        CandyboxNode nodeB = new CandyboxNode(2, config(8), store, coordination, clock);
+        try {
+            nodeA.createBox(box, 4);
+            nodeA.runBalancerOnce();
+            nodeB.runBalancerOnce();
+            // Balanced by count: node 1 kept partitions 0 and 1, node 2 took 2 and 3.
+            assertThat(ownerOf(coordination, box.value(), 0)).isEqualTo(1);
+            assertThat(ownerOf(coordination, box.value(), 1)).isEqualTo(1);
+
+            // All the traffic lands on node 1's partitions; node 2's stay idle.
+            byte[] value = new byte[1024];
+            for (int p = 0; p < 2; p++) {
+                String key = keyInPartition(p, 4);
+                for (int i = 0; i < 50; i++) {
+                    nodeA.engine(box, key).putCandy(CandyKey.of(key), value, null, Map.of(), null);
+                }
+            }
+            clock.advance(1_000);
+            nodeA.runBalancerOnce();
+            nodeB.runBalancerOnce();
+
+            // Node 1 keeps one hot partition and hands the other to the idle node, although both
+            // nodes already owned two partitions each.
+            assertThat(ownerOf(coordination, box.value(), 0)).isEqualTo(1);
+            assertThat(ownerOf(coordination, box.value(), 1)).isEqualTo(2);
+            assertThat(countOwnedBy(coordination, box.value(), 4, 2)).isEqualTo(3);
+            PartitionLoad published = PartitionLoad.decode(coordination.get(
+                    CandyboxKeys.partitionLoadKey(box.value(), 0)).orElseThrow().value());
+            assertThat(published.opsPerSecond()).isEqualTo(50.0);
+            assertThat(published.bytesInPerSecond()).isEqualTo(50.0 * 1024);
+
+            BalancerRound round = BalancerRound.decode(
+                    coordination.get(CandyboxKeys.BALANCER_ROUND_KEY).orElseThrow().value());
+            assertThat(round.moves()).hasSize(1);
+            BalancerRound.Move move = round.moves().get(0);
+            assertThat(move.partition()).isEqualTo(new BoxPartition(box.value(), 1));
+            assertThat(move.fromNode()).isEqualTo(1);
+            assertThat(move.toNode()).isEqualTo(2);
+            assertThat(move.weight()).isGreaterThan(1.0); // a quarter by count, half of every load
+        } finally {
+            nodeA.close();
+            nodeB.close();
+            store.close();
+        }
+    }
+
     @Test
     void deadNodesPartitionsFailOverWithoutRateLimit() {
         ManualClock clock = new ManualClock(1_000);
@@ -170,6 +227,51 @@ class PartitionBalancerTest {
         }
     }
 
+    @Test
+    void warmStandbyTakesOverFromADeadOwner() {
+        ManualClock clock = new ManualClock(1_000);
+        InMemoryLedgerStore store = new InMemoryLedgerStore();
+        InMemoryCoordinationService coordination = new InMemoryCoordinationService(clock);
+        CandyboxConfig config = CandyboxConfig.builder()
+                .leaseRenewIntervalMillis(0)
+                .ownershipLeaseTtlMillis(10_000)
+                .standbyReplicas(1)
+                .standbyCatchUpIntervalMillis(3_600_000) // ticks are driven manually
+                .build();
+        BoxName box = BoxName.of("standby-box");
+        BoxPartition bp = new BoxPartition(box.value(), 0);
+
+        CandyboxNode nodeA = new CandyboxNode(1, config, store, coordination, clock);
+        CandyboxNode nodeB = new CandyboxNode(2, config, store, coordination, clock);
+        try {
+            nodeA.createBox(box, 1);
+            nodeA.runBalancerOnce();
+            nodeB.runBalancerOnce();
+            assertThat(ownerOf(coordination, box.value(), 0)).isEqualTo(1);
+            assertThat(nodeB.standbyPartitions()).containsExactly(bp);
+
+            nodeA.enginePartition(box, 0).putCandy(CandyKey.of("k"), bytes("v1"), null, Map.of(), null);
+            nodeB.catchUpStandbys();
+            // Still owned and the owner still a member: the standby only follows.
+            assertThat(nodeB.ownsPartition(box.value(), 0)).isFalse();
+            nodeA.enginePartition(box, 0).putCandy(CandyKey.of("k2"), bytes("v2"), null, Map.of(), null);
+
+            // Node 1 dies without releasing anything: it leaves the membership and its lease lapses.
+            coordination.unregisterMember(1);
+            clock.advance(11_000);
+            nodeB.catchUpStandbys();
+
+            assertThat(ownerOf(coordination, box.value(), 0)).isEqualTo(2);
+            assertThat(nodeB.standbyPartitions()).isEmpty();
+            assertThat(nodeB.enginePartition(box, 0).getCandy(CandyKey.of("k"))).isEqualTo(bytes("v1"));
+            assertThat(nodeB.enginePartition(box, 0).getCandy(CandyKey.of("k2"))).isEqualTo(bytes("v2"));
+        } finally {
+            nodeA.close();
+            nodeB.close();
+            store.close();
+        }
+    }
+
     @Test
     void ownersDropPartitionsOfDeletedBoxes() {
         ManualClock clock = new ManualClock(1_000);
@@ -197,6 +299,10 @@ class PartitionBalancerTest {
         }
     }
 
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+
     /** Finds a key that hashes to {@code partition} under {@code count} partitions. */
     private static String keyInPartition(int partition, int count) {
         for (int i = 0; i < 10_000; i++) {
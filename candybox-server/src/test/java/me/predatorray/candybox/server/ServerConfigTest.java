@@ -108,6 +108,27 @@ class ServerConfigTest {
         assertThat(cfg.tuning().memtableFlushThresholdBytes()).isEqualTo(1048576L);
     }
 
+    @Test
+    void selectsTheListenerTransportAndItsLimits() {
+        ServerConfig defaults = ServerConfig.fromProperties(
+                props("zookeeper.connect", "zk:2181", "node.id", "1"), Map.of());
+        assertThat(defaults.transportMode()).isEqualTo(ServerConfig.TransportMode.BLOCKING);
+
+        ServerConfig cfg = ServerConfig.fromProperties(
+                props("zookeeper.connect", "zk:2181", "node.id", "1",
+                        "server.transport", "nio", "server.worker.threads", "16"),
+                Map.of("CANDYBOX_SERVER_MAX_INFLIGHT_REQUESTS", "256"));
+        assertThat(cfg.transportMode()).isEqualTo(ServerConfig.TransportMode.NIO);
+        assertThat(cfg.workerThreads()).isEqualTo(16);
+        assertThat(cfg.maxInFlightRequests()).isEqualTo(256);
+
+        assertThatThrownBy(() -> ServerConfig.fromProperties(
+                props("zookeeper.connect", "zk:2181", "node.id", "1", "server.transport", "epoll"),
+                Map.of()))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("server.transport");
+    }
+
     @Test
     void parsesPerRoleQuorumOverrides() {
         ServerConfig cfg = ServerConfig.fromProperties(
@@ -177,8 +198,9 @@ class ServerConfigTest {
 
     @Test
     void rendersPrometheusMetricsWithBoxAndNodeLabels() {
-        String text = HealthServer.renderMetrics(3, Map.of("alpha",
-                new me.predatorray.candybox.lsm.engine.BoxEngineStats(5, 1, 9, 2, 0, 1, 0, 0)));
+        String text = HealthServer.renderMetrics(3, HealthServer.MetricsSources.boxes(() -> Map.of(
+                "alpha", new me.predatorray.candybox.lsm.engine.BoxEngineStats(5, 1, 9, 2, 0, 1, 0, 0, 0, 0,
+                        0, 0, 0, 0, 0, 0, 0, 0))));
 
         assertThat(text).contains("# TYPE candybox_puts_total counter");
         assertThat(text).contains("candybox_puts_total{node=\"3\",box=\"alpha\"} 5");